@@ -44,6 +44,7 @@ import org.apache.helix.zookeeper.datamodel.ZNRecord;
 import org.apache.pinot.broker.broker.AccessControlFactory;
 import org.apache.pinot.broker.broker.BrokerAdminApiApplication;
 import org.apache.pinot.broker.grpc.BrokerGrpcServer;
+import org.apache.pinot.broker.querycache.BrokerQueryResultCache;
 import org.apache.pinot.broker.queryquota.HelixExternalViewBasedQueryQuotaManager;
 import org.apache.pinot.broker.requesthandler.BaseSingleStageBrokerRequestHandler;
 import org.apache.pinot.broker.requesthandler.BrokerRequestHandler;
@@ -384,6 +385,10 @@ public abstract class BaseBrokerStarter implements ServiceStartable {
               _accessControlFactory, _queryQuotaManager, tableCache, nettyDefaults, tlsDefaults,
               _serverRoutingStatsManager, _failureDetector, _resourceUsageAccountant);
     }
+    BrokerQueryResultCache queryResultCache = singleStageBrokerRequestHandler.getQueryResultCache();
+    if (queryResultCache != null) {
+      _routingManager.registerRoutingChangeListener(queryResultCache::invalidateTable);
+    }
     MultiStageBrokerRequestHandler multiStageBrokerRequestHandler = null;
     QueryDispatcher queryDispatcher = null;
     if (_brokerConf.getProperty(Helix.CONFIG_OF_MULTI_STAGE_ENGINE_ENABLED, Helix.DEFAULT_MULTI_STAGE_ENGINE_ENABLED)) {
@@ -0,0 +1,240 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.broker.querycache;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nullable;
+import org.apache.pinot.common.request.PinotQuery;
+import org.apache.pinot.common.response.broker.BrokerResponseNative;
+import org.apache.pinot.core.routing.SegmentsToQuery;
+import org.apache.pinot.core.routing.timeboundary.TimeBoundaryInfo;
+import org.apache.pinot.core.transport.ServerInstance;
+import org.apache.pinot.spi.env.PinotConfiguration;
+import org.apache.pinot.spi.utils.CommonConstants.Broker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Broker side cache of single-stage query results.
+ * <p>
+ * An entry is keyed on the server query (after all broker side rewrites, including the time boundary filter), the set
+ * of segments selected by the routing and the time boundary value. Because the segment set is part of the key, a query
+ * routed to a different set of segments (e.g. after a segment is added or removed) never hits a stale entry. Changes
+ * that do not alter the segment set (e.g. segment refresh) are handled by {@link #invalidateTable(String)}, which is
+ * invoked by the routing manager whenever the routing of a table is updated.
+ * <p>
+ * The cached responses are stored in serialized form so that the cached value cannot be modified by the post
+ * processing of the returned response. The cache is bounded by the total serialized size of the cached responses.
+ */
+public class BrokerQueryResultCache {
+  private static final Logger LOGGER = LoggerFactory.getLogger(BrokerQueryResultCache.class);
+
+  private final Cache<CacheKey, String> _cache;
+  // Version of each table, which is bumped on invalidation. The version is part of the key so that a response computed
+  // with the routing before the invalidation is never served after the invalidation.
+  private final Map<String, AtomicLong> _tableVersions = new ConcurrentHashMap<>();
+
+  public BrokerQueryResultCache(long maxSizeBytes, long expireAfterWriteMs) {
+    _cache = CacheBuilder.newBuilder()
+        .maximumWeight(maxSizeBytes)
+        .weigher((CacheKey key, String value) -> value.length())
+        .expireAfterWrite(expireAfterWriteMs, TimeUnit.MILLISECONDS)
+        .build();
+  }
+
+  /**
+   * Returns the cache if it is enabled in the broker config, or {@code null} otherwise.
+   */
+  @Nullable
+  public static BrokerQueryResultCache fromConfig(PinotConfiguration config) {
+    if (!config.getProperty(Broker.CONFIG_OF_QUERY_RESULT_CACHE_ENABLED,
+        Broker.DEFAULT_QUERY_RESULT_CACHE_ENABLED)) {
+      return null;
+    }
+    long maxSizeBytes = config.getProperty(Broker.CONFIG_OF_QUERY_RESULT_CACHE_MAX_SIZE_BYTES,
+        Broker.DEFAULT_QUERY_RESULT_CACHE_MAX_SIZE_BYTES);
+    long expireAfterWriteMs = config.getProperty(Broker.CONFIG_OF_QUERY_RESULT_CACHE_EXPIRE_AFTER_WRITE_MS,
+        Broker.DEFAULT_QUERY_RESULT_CACHE_EXPIRE_AFTER_WRITE_MS);
+    LOGGER.info("Enabling query result cache with max size: {} bytes, expire after write: {}ms", maxSizeBytes,
+        expireAfterWriteMs);
+    return new BrokerQueryResultCache(maxSizeBytes, expireAfterWriteMs);
+  }
+
+  /**
+   * Computes the cache key for a query on the given table.
+   *
+   * @param tableNameWithType Table queried
+   * @param serverPinotQuery Query sent to the servers, after all broker side rewrites
+   * @param routingTable Routing table computed for the query
+   * @param timeBoundaryInfo Time boundary info for hybrid tables, or {@code null} for non-hybrid tables
+   */
+  public CacheKey getCacheKey(String tableNameWithType, PinotQuery serverPinotQuery,
+      Map<ServerInstance, SegmentsToQuery> routingTable, @Nullable TimeBoundaryInfo timeBoundaryInfo) {
+    long version = _tableVersions.computeIfAbsent(tableNameWithType, k -> new AtomicLong()).get();
+
+    // Sort the query options so that the key does not depend on the map iteration order
+    PinotQuery normalizedQuery = serverPinotQuery.deepCopy();
+    Map<String, String> queryOptions = normalizedQuery.getQueryOptions();
+    if (queryOptions != null) {
+      normalizedQuery.setQueryOptions(new TreeMap<>(queryOptions));
+    }
+
+    // The same segments can be routed to different servers for each query, so only the segments are part of the key
+    List<String> segments = new ArrayList<>();
+    List<String> optionalSegments = new ArrayList<>();
+    for (SegmentsToQuery segmentsToQuery : routingTable.values()) {
+      segments.addAll(segmentsToQuery.getSegments());
+      List<String> optional = segmentsToQuery.getOptionalSegments();
+      if (optional != null) {
+        optionalSegments.addAll(optional);
+      }
+    }
+    segments.sort(null);
+    optionalSegments.sort(null);
+
+    Hasher hasher = Hashing.murmur3_128().newHasher();
+    hasher.putString(normalizedQuery.toString(), StandardCharsets.UTF_8);
+    putSegments(hasher, segments);
+    putSegments(hasher, optionalSegments);
+    if (timeBoundaryInfo != null) {
+      hasher.putString(timeBoundaryInfo.getTimeColumn(), StandardCharsets.UTF_8);
+      hasher.putString(timeBoundaryInfo.getTimeValue(), StandardCharsets.UTF_8);
+    }
+    return new CacheKey(tableNameWithType, version, hasher.hash());
+  }
+
+  private static void putSegments(Hasher hasher, List<String> segments) {
+    hasher.putInt(segments.size());
+    for (String segment : segments) {
+      hasher.putString(segment, StandardCharsets.UTF_8);
+      // Separator to avoid ambiguity between segment names
+      hasher.putByte((byte) 0);
+    }
+  }
+
+  /**
+   * Returns a new copy of the cached response for the given key, or {@code null} if it is not cached.
+   */
+  @Nullable
+  public BrokerResponseNative get(CacheKey key) {
+    String cachedResponse = _cache.getIfPresent(key);
+    if (cachedResponse == null) {
+      return null;
+    }
+    try {
+      return BrokerResponseNative.fromJsonString(cachedResponse);
+    } catch (Exception e) {
+      LOGGER.warn("Caught exception while deserializing cached response for table: {}, invalidating the entry",
+          key._tableNameWithType, e);
+      _cache.invalidate(key);
+      return null;
+    }
+  }
+
+  /**
+   * Caches the given response if it is complete (no exception and all the queried servers responded).
+   */
+  public void put(CacheKey key, BrokerResponseNative brokerResponse) {
+    if (!isCacheable(brokerResponse)) {
+      return;
+    }
+    AtomicLong version = _tableVersions.get(key._tableNameWithType);
+    if (version == null || version.get() != key._version) {
+      // Table invalidated while the query was executed
+      return;
+    }
+    try {
+      _cache.put(key, brokerResponse.toJsonString());
+    } catch (Exception e) {
+      LOGGER.warn("Caught exception while serializing response for table: {}, skipping caching the response",
+          key._tableNameWithType, e);
+    }
+  }
+
+  @VisibleForTesting
+  static boolean isCacheable(BrokerResponseNative brokerResponse) {
+    return brokerResponse.getExceptions().isEmpty() && !brokerResponse.isPartialResult()
+        && brokerResponse.getNumServersQueried() == brokerResponse.getNumServersResponded();
+  }
+
+  /**
+   * Invalidates all the cached responses for the given table.
+   */
+  public void invalidateTable(String tableNameWithType) {
+    AtomicLong version = _tableVersions.get(tableNameWithType);
+    if (version == null) {
+      return;
+    }
+    version.incrementAndGet();
+    _cache.asMap().keySet().removeIf(key -> key._tableNameWithType.equals(tableNameWithType));
+  }
+
+  @VisibleForTesting
+  long size() {
+    return _cache.size();
+  }
+
+  public static final class CacheKey {
+    private final String _tableNameWithType;
+    private final long _version;
+    private final HashCode _hash;
+
+    private CacheKey(String tableNameWithType, long version, HashCode hash) {
+      _tableNameWithType = tableNameWithType;
+      _version = version;
+      _hash = hash;
+    }
+
+    public String getTableNameWithType() {
+      return _tableNameWithType;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof CacheKey)) {
+        return false;
+      }
+      CacheKey that = (CacheKey) o;
+      return _version == that._version && _tableNameWithType.equals(that._tableNameWithType) && _hash.equals(
+          that._hash);
+    }
+
+    @Override
+    public int hashCode() {
+      return _hash.hashCode();
+    }
+  }
+}
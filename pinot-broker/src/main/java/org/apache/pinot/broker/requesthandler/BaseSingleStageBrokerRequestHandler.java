@@ -55,6 +55,7 @@ import org.apache.hc.client5.http.io.HttpClientConnectionManager;
 import org.apache.hc.core5.http.io.entity.EntityUtils;
 import org.apache.pinot.broker.api.AccessControl;
 import org.apache.pinot.broker.broker.AccessControlFactory;
+import org.apache.pinot.broker.querycache.BrokerQueryResultCache;
 import org.apache.pinot.broker.querylog.QueryLogger;
 import org.apache.pinot.broker.queryquota.QueryQuotaManager;
 import org.apache.pinot.common.config.provider.TableCache;
@@ -92,6 +93,7 @@ import org.apache.pinot.core.query.request.context.utils.QueryContextConverterUt
 import org.apache.pinot.core.routing.ImplicitHybridTableRouteProvider;
 import org.apache.pinot.core.routing.LogicalTableRouteProvider;
 import org.apache.pinot.core.routing.RoutingManager;
+import org.apache.pinot.core.routing.SegmentsToQuery;
 import org.apache.pinot.core.routing.TableRouteInfo;
 import org.apache.pinot.core.routing.TableRouteProvider;
 import org.apache.pinot.core.routing.timeboundary.TimeBoundaryInfo;
@@ -168,6 +170,8 @@ public abstract class BaseSingleStageBrokerRequestHandler extends BaseBrokerRequ
   protected BlockingQueue<Pair<String, String>> _multistageCompileQueryQueue;
   protected ImplicitHybridTableRouteProvider _implicitHybridTableRouteProvider;
   protected LogicalTableRouteProvider _logicalTableRouteProvider;
+  @Nullable
+  protected final BrokerQueryResultCache _queryResultCache;
 
   public BaseSingleStageBrokerRequestHandler(PinotConfiguration config, String brokerId,
       BrokerRequestIdGenerator requestIdGenerator, RoutingManager routingManager,
@@ -206,6 +210,7 @@ public abstract class BaseSingleStageBrokerRequestHandler extends BaseBrokerRequ
 
     _implicitHybridTableRouteProvider = new ImplicitHybridTableRouteProvider();
     _logicalTableRouteProvider = new LogicalTableRouteProvider();
+    _queryResultCache = BrokerQueryResultCache.fromConfig(_config);
 
     LOGGER.info("Initialized {} with broker id: {}, timeout: {}ms, query response limit: {}, "
             + "default query limit {}, query log max length: {}, query log max rate: {}, query cancellation "
@@ -247,6 +252,14 @@ public abstract class BaseSingleStageBrokerRequestHandler extends BaseBrokerRequ
     }
   }
 
+  /**
+   * Returns the query result cache, or {@code null} if it is not enabled.
+   */
+  @Nullable
+  public BrokerQueryResultCache getQueryResultCache() {
+    return _queryResultCache;
+  }
+
   @VisibleForTesting
   Set<ServerInstance> getRunningServers(long requestId) {
     Preconditions.checkState(isQueryCancellationEnabled(), "Query cancellation is not enabled on broker");
@@ -694,6 +707,19 @@ public abstract class BaseSingleStageBrokerRequestHandler extends BaseBrokerRequ
     long routingEndTimeNs = System.nanoTime();
     _brokerMetrics.addPhaseTiming(rawTableName, BrokerQueryPhase.QUERY_ROUTING,
         routingEndTimeNs - routingStartTimeNs);
+
+    // Compute the result cache key before the query options are modified with the per-query timeout.
+    // Only queries on offline segments are cached because consuming segments keep changing.
+    BrokerQueryResultCache.CacheKey resultCacheKey = null;
+    if (_queryResultCache != null && logicalTableConfig == null && !pinotQuery.isExplain()
+        && offlineBrokerRequest != null && realtimeBrokerRequest == null && errorMsgs.isEmpty()
+        && QueryOptionsUtils.isUseResultCache(offlineBrokerRequest.getPinotQuery().getQueryOptions())) {
+      Map<ServerInstance, SegmentsToQuery> offlineRoutingTable = routeInfo.getOfflineRoutingTable();
+      if (offlineRoutingTable != null) {
+        resultCacheKey = _queryResultCache.getCacheKey(offlineTableName, offlineBrokerRequest.getPinotQuery(),
+            offlineRoutingTable, timeBoundaryInfo);
+      }
+    }
     // Account the resource used for routing phase, since for single stage queries with multiple segments, routing
     // can be expensive.
     Tracing.ThreadAccountantOps.sampleAndCheckInterruption(_resourceUsageAccountant);
@@ -784,8 +810,11 @@ public abstract class BaseSingleStageBrokerRequestHandler extends BaseBrokerRequ
         realtimeExecutionServers = null;
       }
     }
-    BrokerResponseNative brokerResponse;
-    if (isQueryCancellationEnabled()) {
+    BrokerResponseNative brokerResponse = resultCacheKey != null ? _queryResultCache.get(resultCacheKey) : null;
+    if (brokerResponse != null) {
+      LOGGER.debug("Serving request {} from the query result cache", requestId);
+      _brokerMetrics.addMeteredTableValue(rawTableName, BrokerMeter.QUERY_RESULT_CACHE_HITS, 1);
+    } else if (isQueryCancellationEnabled()) {
       // Start to track the running query for cancellation just before sending it out to servers to avoid any
       // potential failures that could happen before sending it out, like failures to calculate the routing table etc.
       // TODO: Even tracking the query as late as here, a potential race condition between calling cancel API and
@@ -805,9 +834,11 @@ public abstract class BaseSingleStageBrokerRequestHandler extends BaseBrokerRequ
         onQueryFinish(requestId);
         LOGGER.debug("Remove track of running query: {}", requestId);
       }
+      putIntoResultCache(resultCacheKey, brokerResponse, rawTableName);
     } else {
       brokerResponse = processBrokerRequest(requestId, brokerRequest, serverBrokerRequest, routeInfo,
           remainingTimeMs, serverStats, requestContext);
+      putIntoResultCache(resultCacheKey, brokerResponse, rawTableName);
     }
     brokerResponse.setTablesQueried(Set.of(rawTableName));
     brokerResponse.setPools(Stream.concat(
@@ -876,6 +907,18 @@ public abstract class BaseSingleStageBrokerRequestHandler extends BaseBrokerRequ
     return brokerResponse;
   }
 
+  /**
+   * Caches the response returned by the servers. This must be invoked before the response is decorated with the
+   * per-request information (e.g. tables queried, broker side exceptions, time used).
+   */
+  private void putIntoResultCache(@Nullable BrokerQueryResultCache.CacheKey resultCacheKey,
+      BrokerResponseNative brokerResponse, String rawTableName) {
+    if (resultCacheKey != null) {
+      _brokerMetrics.addMeteredTableValue(rawTableName, BrokerMeter.QUERY_RESULT_CACHE_MISSES, 1);
+      _queryResultCache.put(resultCacheKey, brokerResponse);
+    }
+  }
+
   private CompileResult compileRequest(long requestId, String query, SqlNodeAndOptions sqlNodeAndOptions,
       JsonNode request, @Nullable RequesterIdentity requesterIdentity, RequestContext requestContext,
       @Nullable HttpHeaders httpHeaders, AccessControl accessControl) {
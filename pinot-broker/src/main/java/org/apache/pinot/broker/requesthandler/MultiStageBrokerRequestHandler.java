@@ -381,6 +381,10 @@ public class MultiStageBrokerRequestHandler extends BaseBrokerRequestHandler {
     String database = DatabaseUtils.extractDatabaseFromQueryRequest(queryOptions, httpHeaders);
     boolean inferPartitionHint = _config.getProperty(CommonConstants.Broker.CONFIG_OF_INFER_PARTITION_HINT,
         CommonConstants.Broker.DEFAULT_INFER_PARTITION_HINT);
+    boolean inferJoinStrategy = _config.getProperty(CommonConstants.Broker.CONFIG_OF_INFER_JOIN_STRATEGY,
+        CommonConstants.Broker.DEFAULT_INFER_JOIN_STRATEGY);
+    long defaultBroadcastJoinMaxRows = _config.getProperty(CommonConstants.Broker.CONFIG_OF_BROADCAST_JOIN_MAX_ROWS,
+        CommonConstants.Broker.DEFAULT_BROADCAST_JOIN_MAX_ROWS);
     boolean defaultUseSpool = _config.getProperty(CommonConstants.Broker.CONFIG_OF_SPOOLS,
         CommonConstants.Broker.DEFAULT_OF_SPOOLS);
     boolean defaultUseLeafServerForIntermediateStage = _config.getProperty(
@@ -421,6 +425,8 @@ public class MultiStageBrokerRequestHandler extends BaseBrokerRequestHandler {
         .isCaseSensitive(caseSensitive)
         .isNullHandlingEnabled(QueryOptionsUtils.isNullHandlingEnabled(queryOptions))
         .defaultInferPartitionHint(inferPartitionHint)
+        .defaultInferJoinStrategy(inferJoinStrategy)
+        .defaultBroadcastJoinMaxRows(defaultBroadcastJoinMaxRows)
         .defaultUseSpools(defaultUseSpool)
         .defaultUseLeafServerForIntermediateStage(defaultUseLeafServerForIntermediateStage)
         .defaultEnableGroupTrim(defaultEnableGroupTrim)
@@ -27,6 +27,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 import javax.annotation.Nullable;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.helix.AccessOption;
@@ -46,6 +48,7 @@ import org.apache.pinot.broker.routing.instanceselector.InstanceSelector;
 import org.apache.pinot.broker.routing.instanceselector.InstanceSelectorFactory;
 import org.apache.pinot.broker.routing.segmentmetadata.SegmentZkMetadataFetchListener;
 import org.apache.pinot.broker.routing.segmentmetadata.SegmentZkMetadataFetcher;
+import org.apache.pinot.broker.routing.segmentmetadata.TableNumDocsTracker;
 import org.apache.pinot.broker.routing.segmentpartition.SegmentPartitionMetadataManager;
 import org.apache.pinot.broker.routing.segmentpreselector.SegmentPreSelector;
 import org.apache.pinot.broker.routing.segmentpreselector.SegmentPreSelectorFactory;
@@ -114,6 +117,9 @@ public class BrokerRoutingManager implements RoutingManager, ClusterChangeHandle
   private final ServerRoutingStatsManager _serverRoutingStatsManager;
   private final PinotConfiguration _pinotConfig;
   private final boolean _enablePartitionMetadataManager;
+  private final boolean _enableTableNumDocsTracker;
+  // Listeners notified with the table name (with type) whenever the routing of the table is changed
+  private final List<Consumer<String>> _routingChangeListeners = new CopyOnWriteArrayList<>();
 
   private BaseDataAccessor<ZNRecord> _zkDataAccessor;
   private String _externalViewPathPrefix;
@@ -131,6 +137,8 @@ public class BrokerRoutingManager implements RoutingManager, ClusterChangeHandle
     _enablePartitionMetadataManager =
         pinotConfig.getProperty(CommonConstants.Broker.CONFIG_OF_ENABLE_PARTITION_METADATA_MANAGER,
             CommonConstants.Broker.DEFAULT_ENABLE_PARTITION_METADATA_MANAGER);
+    _enableTableNumDocsTracker = pinotConfig.getProperty(CommonConstants.Broker.CONFIG_OF_ENABLE_TABLE_NUM_DOCS_TRACKER,
+        CommonConstants.Broker.DEFAULT_ENABLE_TABLE_NUM_DOCS_TRACKER);
   }
 
   @Override
@@ -143,6 +151,24 @@ public class BrokerRoutingManager implements RoutingManager, ClusterChangeHandle
     _propertyStore = helixManager.getHelixPropertyStore();
   }
 
+  /**
+   * Registers a listener which is notified with the table name (with type) whenever the routing of the table is built,
+   * updated (segment assignment change or segment refresh) or removed.
+   */
+  public void registerRoutingChangeListener(Consumer<String> listener) {
+    _routingChangeListeners.add(listener);
+  }
+
+  private void notifyRoutingChange(String tableNameWithType) {
+    for (Consumer<String> listener : _routingChangeListeners) {
+      try {
+        listener.accept(tableNameWithType);
+      } catch (Exception e) {
+        LOGGER.error("Caught exception while notifying routing change for table: {}", tableNameWithType, e);
+      }
+    }
+  }
+
   @Override
   public synchronized void processClusterChange(ChangeType changeType) {
     if (changeType == ChangeType.IDEAL_STATE || changeType == ChangeType.EXTERNAL_VIEW) {
@@ -201,6 +227,7 @@ public class BrokerRoutingManager implements RoutingManager, ClusterChangeHandle
               continue;
             }
             routingEntry.onAssignmentChange(idealState, externalView);
+            notifyRoutingChange(tableNameWithType);
           } catch (Exception e) {
             LOGGER.error(
                 "Caught unexpected exception while updating routing entry on segment assignment change for table: {}",
@@ -595,6 +622,13 @@ public class BrokerRoutingManager implements RoutingManager, ClusterChangeHandle
       }
     }
 
+    // NOTE: Only track the number of documents for offline tables because the number of documents is not available in
+    //       the ZK metadata of the consuming segments, and is not refreshed after the consuming segments are committed.
+    TableNumDocsTracker numDocsTracker = null;
+    if (_enableTableNumDocsTracker && TableNameBuilder.isOfflineTableResource(tableNameWithType)) {
+      numDocsTracker = new TableNumDocsTracker(tableNameWithType);
+    }
+
     QueryConfig queryConfig = tableConfig.getQueryConfig();
     Long queryTimeoutMs = queryConfig != null ? queryConfig.getTimeoutMs() : null;
 
@@ -605,17 +639,21 @@ public class BrokerRoutingManager implements RoutingManager, ClusterChangeHandle
     if (partitionMetadataManager != null) {
       segmentZkMetadataFetcher.register(partitionMetadataManager);
     }
+    if (numDocsTracker != null) {
+      segmentZkMetadataFetcher.register(numDocsTracker);
+    }
     segmentZkMetadataFetcher.init(idealState, externalView, preSelectedOnlineSegments);
 
     RoutingEntry routingEntry =
         new RoutingEntry(tableNameWithType, idealStatePath, externalViewPath, segmentPreSelector, segmentSelector,
             segmentPruners, instanceSelector, idealStateVersion, externalViewVersion, segmentZkMetadataFetcher,
-            timeBoundaryManager, partitionMetadataManager, queryTimeoutMs, !idealState.isEnabled());
+            timeBoundaryManager, partitionMetadataManager, numDocsTracker, queryTimeoutMs, !idealState.isEnabled());
     if (_routingEntryMap.put(tableNameWithType, routingEntry) == null) {
       LOGGER.info("Built routing for table: {}", tableNameWithType);
     } else {
       LOGGER.info("Rebuilt routing for table: {}", tableNameWithType);
     }
+    notifyRoutingChange(tableNameWithType);
   }
 
   /**
@@ -641,6 +679,7 @@ public class BrokerRoutingManager implements RoutingManager, ClusterChangeHandle
     LOGGER.info("Removing routing for table: {}", tableNameWithType);
     if (_routingEntryMap.remove(tableNameWithType) != null) {
       LOGGER.info("Removed routing for table: {}", tableNameWithType);
+      notifyRoutingChange(tableNameWithType);
 
       // Remove time boundary manager for the offline part routing if the removed routing is the real-time part of a
       // hybrid table
@@ -705,6 +744,7 @@ public class BrokerRoutingManager implements RoutingManager, ClusterChangeHandle
     if (routingEntry != null) {
       routingEntry.refreshSegment(segment);
       LOGGER.info("Refreshed segment: {} for table: {}", segment, tableNameWithType);
+      notifyRoutingChange(tableNameWithType);
     } else {
       LOGGER.warn("Routing does not exist for table: {}, skipping refreshing segment", tableNameWithType);
     }
@@ -846,6 +886,17 @@ public class BrokerRoutingManager implements RoutingManager, ClusterChangeHandle
     return partitionMetadataManager != null ? partitionMetadataManager.getTablePartitionReplicatedServersInfo() : null;
   }
 
+  @Nullable
+  @Override
+  public Long getTableNumDocs(String tableNameWithType) {
+    RoutingEntry routingEntry = _routingEntryMap.get(tableNameWithType);
+    if (routingEntry == null) {
+      return null;
+    }
+    TableNumDocsTracker numDocsTracker = routingEntry.getNumDocsTracker();
+    return numDocsTracker != null ? numDocsTracker.getTableNumDocs() : null;
+  }
+
   @Nullable
   @Override
   public Set<String> getServingInstances(String tableNameWithType) {
@@ -874,6 +925,7 @@ public class BrokerRoutingManager implements RoutingManager, ClusterChangeHandle
     final SegmentSelector _segmentSelector;
     final List<SegmentPruner> _segmentPruners;
     final SegmentPartitionMetadataManager _partitionMetadataManager;
+    final TableNumDocsTracker _numDocsTracker;
     final InstanceSelector _instanceSelector;
     final Long _queryTimeoutMs;
     final SegmentZkMetadataFetcher _segmentZkMetadataFetcher;
@@ -890,8 +942,8 @@ public class BrokerRoutingManager implements RoutingManager, ClusterChangeHandle
         SegmentPreSelector segmentPreSelector, SegmentSelector segmentSelector, List<SegmentPruner> segmentPruners,
         InstanceSelector instanceSelector, int lastUpdateIdealStateVersion, int lastUpdateExternalViewVersion,
         SegmentZkMetadataFetcher segmentZkMetadataFetcher, @Nullable TimeBoundaryManager timeBoundaryManager,
-        @Nullable SegmentPartitionMetadataManager partitionMetadataManager, @Nullable Long queryTimeoutMs,
-        boolean disabled) {
+        @Nullable SegmentPartitionMetadataManager partitionMetadataManager,
+        @Nullable TableNumDocsTracker numDocsTracker, @Nullable Long queryTimeoutMs, boolean disabled) {
       _tableNameWithType = tableNameWithType;
       _idealStatePath = idealStatePath;
       _externalViewPath = externalViewPath;
@@ -903,6 +955,7 @@ public class BrokerRoutingManager implements RoutingManager, ClusterChangeHandle
       _lastUpdateExternalViewVersion = lastUpdateExternalViewVersion;
       _timeBoundaryManager = timeBoundaryManager;
       _partitionMetadataManager = partitionMetadataManager;
+      _numDocsTracker = numDocsTracker;
       _queryTimeoutMs = queryTimeoutMs;
       _segmentZkMetadataFetcher = segmentZkMetadataFetcher;
       _disabled = disabled;
@@ -934,6 +987,11 @@ public class BrokerRoutingManager implements RoutingManager, ClusterChangeHandle
       return _partitionMetadataManager;
     }
 
+    @Nullable
+    TableNumDocsTracker getNumDocsTracker() {
+      return _numDocsTracker;
+    }
+
     Long getQueryTimeoutMs() {
       return _queryTimeoutMs;
     }
@@ -0,0 +1,111 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.broker.routing.segmentmetadata;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.Nullable;
+import org.apache.helix.model.ExternalView;
+import org.apache.helix.model.IdealState;
+import org.apache.helix.zookeeper.datamodel.ZNRecord;
+import org.apache.pinot.common.metadata.segment.SegmentZKMetadata;
+
+
+/**
+ * The {@code TableNumDocsTracker} tracks the total number of documents of the online segments of a table based on the
+ * segment ZK metadata. It is used by the multi-stage query planner to estimate the size of the table (e.g. to decide
+ * whether a table is small enough to be broadcast for a join).
+ */
+public class TableNumDocsTracker implements SegmentZkMetadataFetchListener {
+  private static final long UNKNOWN_NUM_DOCS = -1L;
+
+  private final String _tableNameWithType;
+
+  // Number of documents for each online segment, UNKNOWN_NUM_DOCS if it is not available from the segment ZK metadata
+  private final Map<String, Long> _segmentNumDocsMap = new HashMap<>();
+
+  // Cache the total number of documents (null when unknown), which is re-computed on every segment change
+  private volatile Long _tableNumDocs;
+
+  public TableNumDocsTracker(String tableNameWithType) {
+    _tableNameWithType = tableNameWithType;
+  }
+
+  @Override
+  public synchronized void init(IdealState idealState, ExternalView externalView, List<String> onlineSegments,
+      List<ZNRecord> znRecords) {
+    int numSegments = onlineSegments.size();
+    for (int i = 0; i < numSegments; i++) {
+      _segmentNumDocsMap.put(onlineSegments.get(i), getNumDocs(znRecords.get(i)));
+    }
+    computeTableNumDocs();
+  }
+
+  @Override
+  public synchronized void onAssignmentChange(IdealState idealState, ExternalView externalView,
+      Set<String> onlineSegments, List<String> pulledSegments, List<ZNRecord> znRecords) {
+    int numSegments = pulledSegments.size();
+    for (int i = 0; i < numSegments; i++) {
+      _segmentNumDocsMap.put(pulledSegments.get(i), getNumDocs(znRecords.get(i)));
+    }
+    _segmentNumDocsMap.keySet().retainAll(onlineSegments);
+    computeTableNumDocs();
+  }
+
+  @Override
+  public synchronized void refreshSegment(String segment, @Nullable ZNRecord znRecord) {
+    _segmentNumDocsMap.put(segment, getNumDocs(znRecord));
+    computeTableNumDocs();
+  }
+
+  /**
+   * Returns the total number of documents of the online segments, or {@code null} if the number of documents is not
+   * available for some segments.
+   */
+  @Nullable
+  public Long getTableNumDocs() {
+    return _tableNumDocs;
+  }
+
+  public String getTableNameWithType() {
+    return _tableNameWithType;
+  }
+
+  private static long getNumDocs(@Nullable ZNRecord znRecord) {
+    if (znRecord == null) {
+      return UNKNOWN_NUM_DOCS;
+    }
+    long numDocs = new SegmentZKMetadata(znRecord).getTotalDocs();
+    return numDocs >= 0 ? numDocs : UNKNOWN_NUM_DOCS;
+  }
+
+  private void computeTableNumDocs() {
+    long tableNumDocs = 0;
+    for (long numDocs : _segmentNumDocsMap.values()) {
+      if (numDocs == UNKNOWN_NUM_DOCS) {
+        _tableNumDocs = null;
+        return;
+      }
+      tableNumDocs += numDocs;
+    }
+    _tableNumDocs = tableNumDocs;
+  }
+}
@@ -0,0 +1,166 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.broker.querycache;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.pinot.common.request.PinotQuery;
+import org.apache.pinot.common.response.broker.BrokerResponseNative;
+import org.apache.pinot.common.response.broker.QueryProcessingException;
+import org.apache.pinot.common.response.broker.ResultTable;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
+import org.apache.pinot.core.routing.SegmentsToQuery;
+import org.apache.pinot.core.routing.timeboundary.TimeBoundaryInfo;
+import org.apache.pinot.core.transport.ServerInstance;
+import org.apache.pinot.spi.exception.QueryErrorCode;
+import org.apache.pinot.sql.parsers.CalciteSqlParser;
+import org.testng.annotations.Test;
+
+import static org.mockito.Mockito.mock;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+
+public class BrokerQueryResultCacheTest {
+  private static final String OFFLINE_TABLE_NAME = "testTable_OFFLINE";
+  private static final ServerInstance SERVER_1 = mock(ServerInstance.class);
+  private static final ServerInstance SERVER_2 = mock(ServerInstance.class);
+
+  @Test
+  public void testCacheKey() {
+    BrokerQueryResultCache cache = new BrokerQueryResultCache(1024 * 1024, 60_000L);
+    PinotQuery query = CalciteSqlParser.compileToPinotQuery("SELECT COUNT(*) FROM testTable WHERE col > 5");
+    PinotQuery otherQuery = CalciteSqlParser.compileToPinotQuery("SELECT COUNT(*) FROM testTable WHERE col > 6");
+
+    Map<ServerInstance, SegmentsToQuery> routingTable = new HashMap<>();
+    routingTable.put(SERVER_1, new SegmentsToQuery(List.of("seg0", "seg1"), List.of()));
+    routingTable.put(SERVER_2, new SegmentsToQuery(List.of("seg2"), List.of()));
+    // Same segments routed to different servers
+    Map<ServerInstance, SegmentsToQuery> sameSegmentsRoutingTable = new HashMap<>();
+    sameSegmentsRoutingTable.put(SERVER_1, new SegmentsToQuery(List.of("seg2"), List.of()));
+    sameSegmentsRoutingTable.put(SERVER_2, new SegmentsToQuery(List.of("seg1", "seg0"), List.of()));
+    Map<ServerInstance, SegmentsToQuery> otherSegmentsRoutingTable = new HashMap<>();
+    otherSegmentsRoutingTable.put(SERVER_1, new SegmentsToQuery(List.of("seg0", "seg1", "seg3"), List.of()));
+
+    BrokerQueryResultCache.CacheKey key = cache.getCacheKey(OFFLINE_TABLE_NAME, query, routingTable, null);
+    assertEquals(cache.getCacheKey(OFFLINE_TABLE_NAME, query.deepCopy(), sameSegmentsRoutingTable, null), key);
+    assertNotEquals(cache.getCacheKey(OFFLINE_TABLE_NAME, otherQuery, routingTable, null), key);
+    assertNotEquals(cache.getCacheKey(OFFLINE_TABLE_NAME, query, otherSegmentsRoutingTable, null), key);
+    assertNotEquals(
+        cache.getCacheKey(OFFLINE_TABLE_NAME, query, routingTable, new TimeBoundaryInfo("daysSinceEpoch", "100")),
+        key);
+    assertEquals(
+        cache.getCacheKey(OFFLINE_TABLE_NAME, query, routingTable, new TimeBoundaryInfo("daysSinceEpoch", "100")),
+        cache.getCacheKey(OFFLINE_TABLE_NAME, query, routingTable, new TimeBoundaryInfo("daysSinceEpoch", "100")));
+  }
+
+  @Test
+  public void testGetAndPut() {
+    BrokerQueryResultCache cache = new BrokerQueryResultCache(1024 * 1024, 60_000L);
+    PinotQuery query = CalciteSqlParser.compileToPinotQuery("SELECT COUNT(*) FROM testTable");
+    Map<ServerInstance, SegmentsToQuery> routingTable =
+        Map.of(SERVER_1, new SegmentsToQuery(List.of("seg0", "seg1"), List.of()));
+    BrokerQueryResultCache.CacheKey key = cache.getCacheKey(OFFLINE_TABLE_NAME, query, routingTable, null);
+    assertNull(cache.get(key));
+
+    BrokerResponseNative brokerResponse = getBrokerResponse(10L);
+    cache.put(key, brokerResponse);
+    BrokerResponseNative cachedResponse = cache.get(key);
+    assertNotNull(cachedResponse);
+    assertNotSame(cachedResponse, brokerResponse);
+    assertEquals(((Number) cachedResponse.getResultTable().getRows().get(0)[0]).longValue(), 10L);
+    assertEquals(cachedResponse.getNumDocsScanned(), 10L);
+
+    // Modifying the returned response should not modify the cached response
+    cachedResponse.setResultTable(null);
+    assertNotNull(cache.get(key).getResultTable());
+
+    // Responses with exceptions should not be cached
+    BrokerQueryResultCache.CacheKey otherKey = cache.getCacheKey(OFFLINE_TABLE_NAME,
+        CalciteSqlParser.compileToPinotQuery("SELECT COUNT(*) FROM testTable WHERE col = 1"), routingTable, null);
+    BrokerResponseNative errorResponse = getBrokerResponse(5L);
+    errorResponse.addException(new QueryProcessingException(QueryErrorCode.SERVER_SEGMENT_MISSING, "missing"));
+    assertFalse(BrokerQueryResultCache.isCacheable(errorResponse));
+    cache.put(otherKey, errorResponse);
+    assertNull(cache.get(otherKey));
+
+    // Responses with partial servers responded should not be cached
+    BrokerResponseNative partialResponse = getBrokerResponse(5L);
+    partialResponse.setNumServersQueried(2);
+    assertFalse(BrokerQueryResultCache.isCacheable(partialResponse));
+    assertTrue(BrokerQueryResultCache.isCacheable(getBrokerResponse(5L)));
+  }
+
+  @Test
+  public void testInvalidateTable() {
+    BrokerQueryResultCache cache = new BrokerQueryResultCache(1024 * 1024, 60_000L);
+    PinotQuery query = CalciteSqlParser.compileToPinotQuery("SELECT COUNT(*) FROM testTable");
+    Map<ServerInstance, SegmentsToQuery> routingTable =
+        Map.of(SERVER_1, new SegmentsToQuery(List.of("seg0", "seg1"), List.of()));
+    BrokerQueryResultCache.CacheKey key = cache.getCacheKey(OFFLINE_TABLE_NAME, query, routingTable, null);
+    BrokerQueryResultCache.CacheKey otherTableKey = cache.getCacheKey("otherTable_OFFLINE", query, routingTable, null);
+    cache.put(key, getBrokerResponse(10L));
+    cache.put(otherTableKey, getBrokerResponse(20L));
+    assertEquals(cache.size(), 2);
+
+    cache.invalidateTable(OFFLINE_TABLE_NAME);
+    assertNull(cache.get(key));
+    assertNotNull(cache.get(otherTableKey));
+    assertEquals(cache.size(), 1);
+
+    // Response computed with the routing before the invalidation should not be cached
+    cache.put(key, getBrokerResponse(10L));
+    assertNull(cache.get(key));
+
+    // New key after invalidation should be cached
+    BrokerQueryResultCache.CacheKey newKey = cache.getCacheKey(OFFLINE_TABLE_NAME, query, routingTable, null);
+    assertNotEquals(newKey, key);
+    cache.put(newKey, getBrokerResponse(10L));
+    assertNotNull(cache.get(newKey));
+  }
+
+  @Test
+  public void testSizeBound() {
+    BrokerQueryResultCache cache = new BrokerQueryResultCache(1024, 60_000L);
+    Map<ServerInstance, SegmentsToQuery> routingTable =
+        Map.of(SERVER_1, new SegmentsToQuery(List.of("seg0"), List.of()));
+    for (int i = 0; i < 100; i++) {
+      PinotQuery query = CalciteSqlParser.compileToPinotQuery("SELECT COUNT(*) FROM testTable WHERE col = " + i);
+      cache.put(cache.getCacheKey(OFFLINE_TABLE_NAME, query, routingTable, null), getBrokerResponse(i));
+    }
+    assertTrue(cache.size() < 100);
+  }
+
+  private static BrokerResponseNative getBrokerResponse(long count) {
+    BrokerResponseNative brokerResponse = new BrokerResponseNative();
+    DataSchema dataSchema = new DataSchema(new String[]{"count(*)"}, new ColumnDataType[]{ColumnDataType.LONG});
+    brokerResponse.setResultTable(new ResultTable(dataSchema, List.<Object[]>of(new Object[]{count})));
+    brokerResponse.setNumDocsScanned(count);
+    brokerResponse.setNumServersQueried(1);
+    brokerResponse.setNumServersResponded(1);
+    return brokerResponse;
+  }
+}
@@ -0,0 +1,77 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.broker.routing.segmentmetadata;
+
+import com.google.common.collect.ImmutableSet;
+import java.util.Arrays;
+import java.util.Collections;
+import org.apache.helix.model.ExternalView;
+import org.apache.helix.model.IdealState;
+import org.apache.helix.zookeeper.datamodel.ZNRecord;
+import org.apache.pinot.common.metadata.segment.SegmentZKMetadata;
+import org.testng.annotations.Test;
+
+import static org.mockito.Mockito.mock;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+
+public class TableNumDocsTrackerTest {
+  private static final String OFFLINE_TABLE_NAME = "testTable_OFFLINE";
+
+  @Test
+  public void testTableNumDocs() {
+    IdealState idealState = mock(IdealState.class);
+    ExternalView externalView = mock(ExternalView.class);
+    TableNumDocsTracker tracker = new TableNumDocsTracker(OFFLINE_TABLE_NAME);
+    assertEquals(tracker.getTableNameWithType(), OFFLINE_TABLE_NAME);
+
+    tracker.init(idealState, externalView, Arrays.asList("seg0", "seg1"),
+        Arrays.asList(getZNRecord("seg0", 100), getZNRecord("seg1", 200)));
+    assertEquals(tracker.getTableNumDocs(), Long.valueOf(300));
+
+    // Add a new segment and remove an existing one
+    tracker.onAssignmentChange(idealState, externalView, ImmutableSet.of("seg1", "seg2"),
+        Collections.singletonList("seg2"), Collections.singletonList(getZNRecord("seg2", 50)));
+    assertEquals(tracker.getTableNumDocs(), Long.valueOf(250));
+
+    // Refresh an existing segment
+    tracker.refreshSegment("seg1", getZNRecord("seg1", 400));
+    assertEquals(tracker.getTableNumDocs(), Long.valueOf(450));
+
+    // Number of documents is unknown when the segment ZK metadata is missing
+    tracker.refreshSegment("seg3", null);
+    assertNull(tracker.getTableNumDocs());
+
+    // Number of documents is unknown when the total docs is not set in the segment ZK metadata
+    tracker.refreshSegment("seg3", new ZNRecord("seg3"));
+    assertNull(tracker.getTableNumDocs());
+
+    // Remove the segment with unknown number of documents
+    tracker.onAssignmentChange(idealState, externalView, ImmutableSet.of("seg1", "seg2"), Collections.emptyList(),
+        Collections.emptyList());
+    assertEquals(tracker.getTableNumDocs(), Long.valueOf(450));
+  }
+
+  private static ZNRecord getZNRecord(String segment, long numDocs) {
+    SegmentZKMetadata segmentZKMetadata = new SegmentZKMetadata(segment);
+    segmentZKMetadata.setTotalDocs(numDocs);
+    return segmentZKMetadata.toZNRecord();
+  }
+}
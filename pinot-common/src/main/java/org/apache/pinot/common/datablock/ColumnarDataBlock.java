@@ -18,6 +18,7 @@
  */
 package org.apache.pinot.common.datablock;
 
+import java.nio.ByteBuffer;
 import org.apache.pinot.common.utils.DataSchema;
 import org.apache.pinot.segment.spi.memory.DataBuffer;
 
@@ -66,5 +67,37 @@ public class ColumnarDataBlock extends BaseDataBlock {
     return _fixDataSize;
   }
 
-// TODO: add whole-column access methods.
+  // --------------------------------------------------------------------------
+  // Whole-column access for the fixed sized columns, which are stored contiguously and bulk copied from the view of the
+  // column in the fixed size data.
+  // NOTE: Null values are returned as the null placeholder of the column.
+  // --------------------------------------------------------------------------
+
+  public int[] getIntColumn(int colId) {
+    int[] values = new int[_numRows];
+    getColumnView(colId, Integer.BYTES).asIntBuffer().get(values);
+    return values;
+  }
+
+  public long[] getLongColumn(int colId) {
+    long[] values = new long[_numRows];
+    getColumnView(colId, Long.BYTES).asLongBuffer().get(values);
+    return values;
+  }
+
+  public float[] getFloatColumn(int colId) {
+    float[] values = new float[_numRows];
+    getColumnView(colId, Float.BYTES).asFloatBuffer().get(values);
+    return values;
+  }
+
+  public double[] getDoubleColumn(int colId) {
+    double[] values = new double[_numRows];
+    getColumnView(colId, Double.BYTES).asDoubleBuffer().get(values);
+    return values;
+  }
+
+  private ByteBuffer getColumnView(int colId, int valueSize) {
+    return _fixedSizeData.copyOrView(_cumulativeColumnOffsetSizeInBytes[colId], _numRows * valueSize);
+  }
 }
@@ -18,6 +18,7 @@
  */
 package org.apache.pinot.common.function;
 
+import javax.annotation.Nullable;
 import org.joda.time.DateTimeZone;
 import org.joda.time.format.DateTimeFormat;
 import org.joda.time.format.DateTimeFormatter;
@@ -75,6 +76,29 @@ public class DateTimePatternHandler {
     return dateTimeFormatter.print(millis);
   }
 
+  /**
+   * Batch version of {@link #parseEpochMillisToDateTimeString(long, String, String)}. The formatter is only looked up
+   * again when the pattern or time zone id changes from the previous value, so literal pattern and time zone id are
+   * resolved once per batch. Uses UTC when {@code timezoneIds} is {@code null}.
+   */
+  public static void parseEpochMillisToDateTimeStrings(int length, long[] millis, String[] patterns,
+      @Nullable String[] timezoneIds, String[] results) {
+    String pattern = null;
+    String timezoneId = DateTimeZone.UTC.getID();
+    DateTimeFormatter dateTimeFormatter = null;
+    for (int i = 0; i < length; i++) {
+      if (dateTimeFormatter == null || !patterns[i].equals(pattern) || (timezoneIds != null
+          && !timezoneIds[i].equals(timezoneId))) {
+        pattern = patterns[i];
+        if (timezoneIds != null) {
+          timezoneId = timezoneIds[i];
+        }
+        dateTimeFormatter = getDateTimeFormatter(pattern, timezoneId);
+      }
+      results[i] = dateTimeFormatter.print(millis[i]);
+    }
+  }
+
   private static DateTimeFormatter getDateTimeFormatter(String pattern, String timezoneId) {
     // This also leverages an internal cache so it won't generate a new DateTimeFormatter for every row with
     // the same pattern
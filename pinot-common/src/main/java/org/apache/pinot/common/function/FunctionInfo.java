@@ -18,19 +18,37 @@
  */
 package org.apache.pinot.common.function;
 
+import com.google.common.base.Preconditions;
+import java.lang.reflect.Array;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Set;
+import javax.annotation.Nullable;
 import org.apache.pinot.spi.annotations.ScalarFunction;
 
 
 public class FunctionInfo {
+  // Classes allowed as the parameter of a function with batch kernel
+  private static final Set<Class<?>> BATCH_PARAMETER_CLASSES =
+      Set.of(int.class, long.class, float.class, double.class, String.class, byte[].class);
+  // Classes allowed as the result of a function with batch kernel
+  private static final Set<Class<?>> BATCH_RESULT_CLASSES =
+      Set.of(int.class, long.class, float.class, double.class, String.class);
+
   private final Method _method;
   private final Class<?> _clazz;
   private final boolean _nullableParameters;
+  private final Method _batchMethod;
 
   public FunctionInfo(Method method, Class<?> clazz, boolean nullableParameters) {
+    this(method, clazz, nullableParameters, null);
+  }
+
+  public FunctionInfo(Method method, Class<?> clazz, boolean nullableParameters, @Nullable Method batchMethod) {
     _method = method;
     _clazz = clazz;
     _nullableParameters = nullableParameters;
+    _batchMethod = batchMethod;
   }
 
   public Method getMethod() {
@@ -45,10 +63,56 @@ public class FunctionInfo {
     return _nullableParameters;
   }
 
+  /**
+   * Returns the batch kernel of the function (see {@link ScalarFunction#batchMethod()}), or {@code null} if the
+   * function does not declare one.
+   */
+  @Nullable
+  public Method getBatchMethod() {
+    return _batchMethod;
+  }
+
   public static FunctionInfo fromMethod(Method method) {
     ScalarFunction annotation = method.getAnnotation(ScalarFunction.class);
     boolean nullableParameters = annotation != null && annotation.nullableParameters();
+    Method batchMethod = annotation != null ? getBatchMethod(method, annotation.batchMethod()) : null;
+
+    return new FunctionInfo(method, method.getDeclaringClass(), nullableParameters, batchMethod);
+  }
 
-    return new FunctionInfo(method, method.getDeclaringClass(), nullableParameters);
+  /**
+   * Resolves the batch kernel with the given name for the given method, or returns {@code null} if the name is empty.
+   *
+   * @throws IllegalStateException if the batch kernel does not exist or does not match the method signature
+   */
+  @Nullable
+  public static Method getBatchMethod(Method method, String batchMethodName) {
+    if (batchMethodName.isEmpty()) {
+      return null;
+    }
+    Class<?>[] parameterClasses = method.getParameterTypes();
+    int numParameters = parameterClasses.length;
+    Class<?> resultClass = method.getReturnType();
+    Preconditions.checkState(BATCH_RESULT_CLASSES.contains(resultClass),
+        "Unsupported result class: %s for batch kernel of method: %s", resultClass, method);
+    Class<?>[] batchParameterClasses = new Class<?>[numParameters + 2];
+    batchParameterClasses[0] = int.class;
+    for (int i = 0; i < numParameters; i++) {
+      Class<?> parameterClass = parameterClasses[i];
+      Preconditions.checkState(BATCH_PARAMETER_CLASSES.contains(parameterClass),
+          "Unsupported parameter class: %s for batch kernel of method: %s", parameterClass, method);
+      batchParameterClasses[i + 1] = Array.newInstance(parameterClass, 0).getClass();
+    }
+    batchParameterClasses[numParameters + 1] = Array.newInstance(resultClass, 0).getClass();
+    Method batchMethod;
+    try {
+      batchMethod = method.getDeclaringClass().getMethod(batchMethodName, batchParameterClasses);
+    } catch (NoSuchMethodException e) {
+      throw new IllegalStateException(
+          "Failed to find batch kernel: " + batchMethodName + " matching method: " + method, e);
+    }
+    Preconditions.checkState(Modifier.isStatic(batchMethod.getModifiers()) && batchMethod.getReturnType() == void.class,
+        "Batch kernel: %s must be static and return void", batchMethod);
+    return batchMethod;
   }
 }
@@ -19,6 +19,9 @@
 package org.apache.pinot.common.function;
 
 import com.google.common.base.Preconditions;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
@@ -30,7 +33,9 @@ import org.apache.pinot.common.utils.PinotDataType;
 
 /**
  * The {@code FunctionInvoker} is a wrapper on a java method which supports arguments type conversion and method
- * invocation via reflection.
+ * invocation via {@link MethodHandle} (or reflection when the method is not accessible through a method handle).
+ * <p>If the function declares a batch kernel (see {@link FunctionInfo#getBatchMethod()}), it can also be invoked over
+ * a batch of values via {@link #invokeBatch(int, Object[], Object)}.
  */
 public class FunctionInvoker {
   private final Method _method;
@@ -41,6 +46,10 @@ public class FunctionInvoker {
   private final Class<?>[] _parameterClasses;
   private final PinotDataType[] _parameterTypes;
   private final Object _instance;
+  // Takes an Object[] of arguments and returns Object, null if the method is not accessible through a method handle
+  private final MethodHandle _methodHandle;
+  // Takes (int length, Object[] arguments, Object results), null if the function does not declare a batch kernel
+  private final MethodHandle _batchMethodHandle;
 
   public FunctionInvoker(FunctionInfo functionInfo) {
     _method = functionInfo.getMethod();
@@ -65,6 +74,38 @@ public class FunctionInvoker {
         throw new IllegalStateException("Caught exception while constructing class: " + clazz, e);
       }
     }
+    _methodHandle = getMethodHandle(_method, _instance);
+    Method batchMethod = functionInfo.getBatchMethod();
+    if (batchMethod != null) {
+      try {
+        _batchMethodHandle = MethodHandles.publicLookup().unreflect(batchMethod)
+            .asSpreader(1, Object[].class, numParameters)
+            .asType(MethodType.methodType(void.class, int.class, Object[].class, Object.class));
+      } catch (IllegalAccessException e) {
+        throw new IllegalStateException("Caught exception while accessing batch kernel: " + batchMethod, e);
+      }
+    } else {
+      _batchMethodHandle = null;
+    }
+  }
+
+  /**
+   * Returns a method handle which spreads the Object[] arguments and boxes the result, or {@code null} if the method
+   * cannot be accessed through a public lookup.
+   */
+  @Nullable
+  private static MethodHandle getMethodHandle(Method method, @Nullable Object instance) {
+    MethodHandle methodHandle;
+    try {
+      methodHandle = MethodHandles.publicLookup().unreflect(method).asFixedArity();
+    } catch (IllegalAccessException e) {
+      return null;
+    }
+    if (instance != null) {
+      methodHandle = methodHandle.bindTo(instance);
+    }
+    return methodHandle.asSpreader(Object[].class, method.getParameterCount())
+        .asType(MethodType.methodType(Object.class, Object[].class));
   }
 
   /**
@@ -156,6 +197,40 @@ public class FunctionInvoker {
         }
       }
     }
-    return _method.invoke(_instance, arguments);
+    if (_methodHandle == null) {
+      return _method.invoke(_instance, arguments);
+    }
+    Preconditions.checkArgument(arguments.length == _parameterClasses.length,
+        "Wrong number of arguments for method: %s, expected: %s, actual: %s", _method, _parameterClasses.length,
+        arguments.length);
+    try {
+      return (Object) _methodHandle.invokeExact(arguments);
+    } catch (Throwable t) {
+      throw new InvocationTargetException(t);
+    }
+  }
+
+  /**
+   * Returns {@code true} if the function declares a batch kernel, {@code false} otherwise.
+   */
+  public boolean hasBatchMethod() {
+    return _batchMethodHandle != null;
+  }
+
+  /**
+   * Invokes the batch kernel of the function over the first {@code length} values. Each argument should be an array
+   * matching the corresponding parameter class (e.g. {@code double[]} for {@code double}), and the results should be
+   * an array matching the result class. Null handling is the responsibility of the caller.
+   *
+   * @throws InvocationTargetException if the batch kernel throws an exception.
+   */
+  public void invokeBatch(int length, Object[] arguments, Object results)
+      throws InvocationTargetException {
+    Preconditions.checkState(_batchMethodHandle != null, "Method: %s does not have a batch kernel", _method);
+    try {
+      _batchMethodHandle.invokeExact(length, arguments, results);
+    } catch (Throwable t) {
+      throw new InvocationTargetException(t);
+    }
   }
 }
@@ -128,8 +128,8 @@ public class FunctionRegistry {
       }
       ScalarFunction scalarFunction = method.getAnnotation(ScalarFunction.class);
       if (scalarFunction.enabled()) {
-        FunctionInfo functionInfo =
-            new FunctionInfo(method, method.getDeclaringClass(), scalarFunction.nullableParameters());
+        FunctionInfo functionInfo = new FunctionInfo(method, method.getDeclaringClass(),
+            scalarFunction.nullableParameters(), FunctionInfo.getBatchMethod(method, scalarFunction.batchMethod()));
         int numArguments = scalarFunction.isVarArg() ? VAR_ARG_KEY : method.getParameterCount();
         String[] names = scalarFunction.names();
         if (names.length == 0) {
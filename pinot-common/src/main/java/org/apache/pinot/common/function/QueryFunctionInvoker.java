@@ -71,4 +71,16 @@ public class QueryFunctionInvoker {
       throw QueryErrorCode.INTERNAL.asException(e);
     }
   }
+
+  public boolean hasBatchMethod() {
+    return _functionInvoker.hasBatchMethod();
+  }
+
+  public void invokeBatch(int length, Object[] arguments, Object results) {
+    try {
+      _functionInvoker.invokeBatch(length, arguments, results);
+    } catch (InvocationTargetException e) {
+      throw QueryErrorCode.QUERY_EXECUTION.asException(e.getTargetException());
+    }
+  }
 }
@@ -40,17 +40,29 @@ public class ArithmeticFunctions {
     return (b == 0) ? defaultValue : a / b;
   }
 
-  @ScalarFunction
+  @ScalarFunction(batchMethod = "intDivBatch")
   public static long intDiv(double a, double b) {
     return (long) Math.floor(a / b);
   }
 
-  @ScalarFunction
+  public static void intDivBatch(int length, double[] a, double[] b, long[] results) {
+    for (int i = 0; i < length; i++) {
+      results[i] = intDiv(a[i], b[i]);
+    }
+  }
+
+  @ScalarFunction(batchMethod = "intDivOrZeroBatch")
   public static long intDivOrZero(double a, double b) {
     //Same as intDiv but returns zero when dividing by zero or when dividing a minimal negative number by minus one.
     return (b == 0 || (a == Long.MIN_VALUE && b == -1)) ? 0 : intDiv(a, b);
   }
 
+  public static void intDivOrZeroBatch(int length, double[] a, double[] b, long[] results) {
+    for (int i = 0; i < length; i++) {
+      results[i] = intDivOrZero(a[i], b[i]);
+    }
+  }
+
   @ScalarFunction
   public static int isFinite(double value) {
     return Double.isFinite(value) ? 1 : 0;
@@ -76,18 +88,30 @@ public class ArithmeticFunctions {
     return a % b;
   }
 
-  @ScalarFunction
+  @ScalarFunction(batchMethod = "moduloOrZeroBatch")
   public static double moduloOrZero(double a, double b) {
     //Same as mod but returns zero when dividing by zero or when dividing a minimal negative number by minus one.
     return (b == 0 || (a == Long.MIN_VALUE && b == -1)) ? 0 : mod(a, b);
   }
 
-  @ScalarFunction
+  public static void moduloOrZeroBatch(int length, double[] a, double[] b, double[] results) {
+    for (int i = 0; i < length; i++) {
+      results[i] = moduloOrZero(a[i], b[i]);
+    }
+  }
+
+  @ScalarFunction(batchMethod = "positiveModuloBatch")
   public static double positiveModulo(double a, double b) {
     double result = a % b;
     return result >= 0 ? result : result + Math.abs(b);
   }
 
+  public static void positiveModuloBatch(int length, double[] a, double[] b, double[] results) {
+    for (int i = 0; i < length; i++) {
+      results[i] = positiveModulo(a[i], b[i]);
+    }
+  }
+
   @ScalarFunction
   public static double negate(double a) {
     return -a;
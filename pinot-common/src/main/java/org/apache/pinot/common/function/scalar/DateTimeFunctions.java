@@ -481,11 +481,15 @@ public class DateTimeFunctions {
   /**
    * Converts epoch millis to DateTime string represented by pattern
    */
-  @ScalarFunction
+  @ScalarFunction(batchMethod = "toDateTimeBatch")
   public static String toDateTime(long millis, String pattern) {
     return DateTimePatternHandler.parseEpochMillisToDateTimeString(millis, pattern);
   }
 
+  public static void toDateTimeBatch(int length, long[] millis, String[] patterns, String[] results) {
+    DateTimePatternHandler.parseEpochMillisToDateTimeStrings(length, millis, patterns, null, results);
+  }
+
   @ScalarFunction
   public static String[] toDateTimeMV(long[] millis, String pattern) {
     String[] results = new String[millis.length];
@@ -498,11 +502,16 @@ public class DateTimeFunctions {
   /**
    * Converts epoch millis to DateTime string represented by pattern and the time zone id.
    */
-  @ScalarFunction
+  @ScalarFunction(batchMethod = "toDateTimeBatch")
   public static String toDateTime(long millis, String pattern, String timezoneId) {
     return DateTimePatternHandler.parseEpochMillisToDateTimeString(millis, pattern, timezoneId);
   }
 
+  public static void toDateTimeBatch(int length, long[] millis, String[] patterns, String[] timezoneIds,
+      String[] results) {
+    DateTimePatternHandler.parseEpochMillisToDateTimeStrings(length, millis, patterns, timezoneIds, results);
+  }
+
   @ScalarFunction
   public static String[] toDateTimeMV(long[] millis, String pattern, String timezoneId) {
     String[] results = new String[millis.length];
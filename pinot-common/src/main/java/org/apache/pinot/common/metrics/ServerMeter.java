@@ -58,6 +58,12 @@ public enum ServerMeter implements AbstractMetrics.Meter {
   REALTIME_PARTITION_MISMATCH("mismatch", false),
   REALTIME_DEDUP_DROPPED("rows", false),
   DEDUP_PRELOAD_FAILURE("count", false),
+  // Lookups served by the in-memory hot tier and the on-disk cold tier of the tiered dedup metadata manager
+  DEDUP_HOT_TIER_HITS("rows", false),
+  DEDUP_COLD_TIER_HITS("rows", false),
+  // Lookups that passed the Bloom filter and probed the cold tier, including false positives
+  DEDUP_COLD_TIER_PROBES("rows", false),
+  DEDUP_KEYS_SPILLED_TO_COLD_TIER("rows", false),
   UPSERT_KEYS_IN_WRONG_SEGMENT("rows", false),
   PARTIAL_UPSERT_OUT_OF_ORDER("rows", false),
   PARTIAL_UPSERT_KEYS_NOT_REPLACED("rows", false),
@@ -90,6 +96,9 @@ public enum ServerMeter implements AbstractMetrics.Meter {
   NUM_SEGMENTS_PROCESSED("numSegmentsProcessed", false),
   NUM_SEGMENTS_MATCHED("numSegmentsMatched", false),
   NUM_MISSING_SEGMENTS("segments", false),
+  // Segments acquired for query after (hit) or before (miss) the asynchronous prefetch of their mmap buffers finished
+  SEGMENT_PREFETCH_HITS("segments", false),
+  SEGMENT_PREFETCH_MISSES("segments", false),
   RELOAD_FAILURES("segments", false),
   REFRESH_FAILURES("segments", false),
   UNTAR_FAILURES("segments", false),
@@ -169,6 +178,14 @@ public enum ServerMeter implements AbstractMetrics.Meter {
    * That means that if a stage has 10 workers and all of them reach the limit, this will be increased by 10.
    */
   AGGREGATE_TIMES_NUM_GROUPS_WARNING_LIMIT_REACHED("times", true),
+  /**
+   * Number of segments whose results were served from the segment results cache.
+   */
+  SEGMENT_RESULTS_CACHE_HITS("segments", true),
+  /**
+   * Number of cacheable segments whose results were not found in the segment results cache.
+   */
+  SEGMENT_RESULTS_CACHE_MISSES("segments", true),
   /**
    * The number of blocks that have been sent to the next stage without being serialized.
    * This is the sum of all blocks sent by all workers in the stage.
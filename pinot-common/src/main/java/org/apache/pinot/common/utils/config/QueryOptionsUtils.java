@@ -356,6 +356,10 @@ public class QueryOptionsUtils {
     return Boolean.parseBoolean(queryOptions.get(QueryOptionKey.ERROR_ON_NUM_GROUPS_LIMIT));
   }
 
+  public static boolean getSpillOnNumGroupsLimit(Map<String, String> queryOptions) {
+    return Boolean.parseBoolean(queryOptions.get(QueryOptionKey.SPILL_ON_NUM_GROUPS_LIMIT));
+  }
+
   @Nullable
   public static Integer getNumGroupsLimit(Map<String, String> queryOptions) {
     String maxNumGroupLimit = queryOptions.get(QueryOptionKey.NUM_GROUPS_LIMIT);
@@ -413,6 +417,16 @@ public class QueryOptionsUtils {
     return checkedParseIntPositive(QueryOptionKey.MAX_STREAMING_PENDING_BLOCKS, maxStreamingPendingBlocks);
   }
 
+  public static boolean isStreamingGroupBy(Map<String, String> queryOptions) {
+    return Boolean.parseBoolean(queryOptions.get(QueryOptionKey.STREAMING_GROUP_BY));
+  }
+
+  @Nullable
+  public static Integer getStreamingGroupByChunkSize(Map<String, String> queryOptions) {
+    String streamingGroupByChunkSize = queryOptions.get(QueryOptionKey.STREAMING_GROUP_BY_CHUNK_SIZE);
+    return checkedParseIntPositive(QueryOptionKey.STREAMING_GROUP_BY_CHUNK_SIZE, streamingGroupByChunkSize);
+  }
+
   @Nullable
   public static Integer getMaxRowsInJoin(Map<String, String> queryOptions) {
     String maxRowsInJoin = queryOptions.get(QueryOptionKey.MAX_ROWS_IN_JOIN);
@@ -425,6 +439,10 @@ public class QueryOptionsUtils {
     return joinOverflowModeStr != null ? JoinOverFlowMode.valueOf(joinOverflowModeStr) : null;
   }
 
+  public static boolean isSharedJoinBuild(Map<String, String> queryOptions) {
+    return Boolean.parseBoolean(queryOptions.get(QueryOptionKey.SHARED_JOIN_BUILD));
+  }
+
   @Nullable
   public static Integer getMaxRowsInWindow(Map<String, String> queryOptions) {
     String maxRowsInWindow = queryOptions.get(QueryOptionKey.MAX_ROWS_IN_WINDOW);
@@ -437,6 +455,29 @@ public class QueryOptionsUtils {
     return windowOverflowModeStr != null ? WindowOverFlowMode.valueOf(windowOverflowModeStr) : null;
   }
 
+  @Nullable
+  public static Integer getSortSpillThresholdRows(Map<String, String> queryOptions) {
+    String sortSpillThresholdRows = queryOptions.get(QueryOptionKey.SORT_SPILL_THRESHOLD_ROWS);
+    return checkedParseIntPositive(QueryOptionKey.SORT_SPILL_THRESHOLD_ROWS, sortSpillThresholdRows);
+  }
+
+  @Nullable
+  public static Long getSortSpillThresholdBytes(Map<String, String> queryOptions) {
+    String sortSpillThresholdBytes = queryOptions.get(QueryOptionKey.SORT_SPILL_THRESHOLD_BYTES);
+    return sortSpillThresholdBytes != null ? Long.parseLong(sortSpillThresholdBytes) : null;
+  }
+
+  @Nullable
+  public static String getMailboxCompression(Map<String, String> queryOptions) {
+    return queryOptions.get(QueryOptionKey.MAILBOX_COMPRESSION);
+  }
+
+  @Nullable
+  public static Boolean isUseColumnarDataBlock(Map<String, String> queryOptions) {
+    String useColumnarDataBlock = queryOptions.get(QueryOptionKey.USE_COLUMNAR_DATA_BLOCK);
+    return useColumnarDataBlock != null ? Boolean.parseBoolean(useColumnarDataBlock) : null;
+  }
+
   public static boolean isSkipUnavailableServers(Map<String, String> queryOptions) {
     return Boolean.parseBoolean(queryOptions.get(QueryOptionKey.SKIP_UNAVAILABLE_SERVERS));
   }
@@ -458,6 +499,11 @@ public class QueryOptionsUtils {
     return useMSEToFillEmptySchema != null ? Boolean.parseBoolean(useMSEToFillEmptySchema) : defaultValue;
   }
 
+  public static boolean isUseResultCache(Map<String, String> queryOptions) {
+    String useResultCache = queryOptions.get(QueryOptionKey.USE_RESULT_CACHE);
+    return useResultCache == null || Boolean.parseBoolean(useResultCache);
+  }
+
   public static boolean isInferInvalidSegmentPartition(Map<String, String> queryOptions) {
     return Boolean.parseBoolean(queryOptions.get(QueryOptionKey.INFER_INVALID_SEGMENT_PARTITION));
   }
@@ -491,6 +537,16 @@ public class QueryOptionsUtils {
     return option != null ? Boolean.parseBoolean(option) : defaultValue;
   }
 
+  public static boolean isInferJoinStrategy(Map<String, String> queryOptions, boolean defaultValue) {
+    String option = queryOptions.get(QueryOptionKey.INFER_JOIN_STRATEGY);
+    return option != null ? Boolean.parseBoolean(option) : defaultValue;
+  }
+
+  public static long getBroadcastJoinMaxRows(Map<String, String> queryOptions, long defaultValue) {
+    String option = queryOptions.get(QueryOptionKey.BROADCAST_JOIN_MAX_ROWS);
+    return option != null ? checkedParseLong(QueryOptionKey.BROADCAST_JOIN_MAX_ROWS, option, 0) : defaultValue;
+  }
+
   public static int getLiteModeServerStageLimit(Map<String, String> queryOptions, int defaultValue) {
     String option = queryOptions.get(QueryOptionKey.LITE_MODE_SERVER_STAGE_LIMIT);
     return option != null ? checkedParseIntPositive(QueryOptionKey.LITE_MODE_SERVER_STAGE_LIMIT, option) : defaultValue;
@@ -0,0 +1,110 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.common.function;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import org.apache.pinot.spi.annotations.ScalarFunction;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.expectThrows;
+
+
+public class FunctionInvokerTest {
+  // NOTE: Functions are disabled so that they are not registered into the FunctionRegistry
+
+  @ScalarFunction(enabled = false, batchMethod = "addBatch")
+  public static long add(long a, int b) {
+    return a + b;
+  }
+
+  public static void addBatch(int length, long[] a, int[] b, long[] results) {
+    for (int i = 0; i < length; i++) {
+      results[i] = a[i] + b[i];
+    }
+  }
+
+  @ScalarFunction(enabled = false)
+  public static String concat(String a, String b) {
+    return a + b;
+  }
+
+  @ScalarFunction(enabled = false)
+  public static int fail(int a) {
+    throw new IllegalStateException("fail");
+  }
+
+  @ScalarFunction(enabled = false, batchMethod = "mismatchedBatch")
+  public static double mismatched(double a) {
+    return a;
+  }
+
+  public static void mismatchedBatch(int length, float[] a, double[] results) {
+  }
+
+  @Test
+  public void testInvoke()
+      throws Exception {
+    FunctionInvoker functionInvoker = new FunctionInvoker(FunctionInfo.fromMethod(getMethod("add")));
+    assertEquals(functionInvoker.invoke(new Object[]{1L, 2}), 3L);
+    // Widening conversion on the arguments
+    assertEquals(functionInvoker.invoke(new Object[]{1, 2}), 3L);
+    // Null intolerant
+    assertNull(functionInvoker.invoke(new Object[]{null, 2}));
+
+    functionInvoker = new FunctionInvoker(FunctionInfo.fromMethod(getMethod("concat")));
+    assertFalse(functionInvoker.hasBatchMethod());
+    assertEquals(functionInvoker.invoke(new Object[]{"a", "b"}), "ab");
+
+    FunctionInvoker failingFunctionInvoker = new FunctionInvoker(FunctionInfo.fromMethod(getMethod("fail")));
+    InvocationTargetException e =
+        expectThrows(InvocationTargetException.class, () -> failingFunctionInvoker.invokeDirectly(new Object[]{1}));
+    assertTrue(e.getTargetException() instanceof IllegalStateException);
+  }
+
+  @Test
+  public void testInvokeBatch()
+      throws Exception {
+    FunctionInvoker functionInvoker = new FunctionInvoker(FunctionInfo.fromMethod(getMethod("add")));
+    assertTrue(functionInvoker.hasBatchMethod());
+    long[] a = new long[]{1, 2, 3, 4};
+    int[] b = new int[]{10, 20, 30, 40};
+    long[] results = new long[4];
+    functionInvoker.invokeBatch(3, new Object[]{a, b}, results);
+    assertEquals(results, new long[]{11, 22, 33, 0});
+  }
+
+  @Test
+  public void testMismatchedBatchMethod() {
+    expectThrows(IllegalStateException.class, () -> FunctionInfo.fromMethod(getMethod("mismatched")));
+  }
+
+  private static Method getMethod(String name) {
+    for (Method method : FunctionInvokerTest.class.getMethods()) {
+      if (method.getName().equals(name)) {
+        return method;
+      }
+    }
+    throw new IllegalArgumentException("Failed to find method: " + name);
+  }
+}
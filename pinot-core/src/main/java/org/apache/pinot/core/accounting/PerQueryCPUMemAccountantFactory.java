@@ -271,6 +271,11 @@ public class PerQueryCPUMemAccountantFactory implements ThreadAccountantFactory
       return getWatcherTask().getHeapUsageBytes() > getWatcherTask().getQueryMonitorConfig().getAlarmingLevel();
     }
 
+    @Override
+    public boolean shouldSpillToDisk() {
+      return getWatcherTask().getHeapUsageBytes() > getWatcherTask().getQueryMonitorConfig().getAlarmingLevel();
+    }
+
     @Override
     public void registerMseCancelCallback(String queryId, MseCancelCallback callback) {
       _queryCancelCallbacks.put(queryId, callback);
@@ -1588,6 +1588,11 @@ public class ObjectSerDeUtils {
         @Override
         public byte[] serialize(ThetaSketchAccumulator thetaSketchBuffer) {
           Sketch sketch = thetaSketchBuffer.getResult();
+          // The result can be a deserialized update sketch wrapping read-only memory (single input), which cannot be
+          // serialized in place. Compact it first.
+          if (sketch.hasMemory() && !sketch.isCompact()) {
+            sketch = sketch.compact();
+          }
           return sketch.toByteArray();
         }
 
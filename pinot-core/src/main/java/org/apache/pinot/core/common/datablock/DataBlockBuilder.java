@@ -230,7 +230,7 @@ public class DataBlockBuilder {
         RoaringBitmap nullBitmap = new RoaringBitmap();
         nullBitmaps[colId] = nullBitmap;
         AggregationFunction aggFunction = null;
-        if (aggFunctions != null) {
+        if (aggFunctions != null && dataSchema.getColumnDataType(colId).getStoredType() == ColumnDataType.OBJECT) {
           // NOTE: The first (numColumns - numAggFunctions) columns are key columns
           int numAggFunctions = aggFunctions.length;
           aggFunction = aggFunctions[colId + numAggFunctions - numColumns];
@@ -64,6 +64,7 @@ import org.apache.pinot.common.utils.config.TierConfigUtils;
 import org.apache.pinot.common.utils.fetcher.SegmentFetcherFactory;
 import org.apache.pinot.core.data.manager.offline.ImmutableSegmentDataManager;
 import org.apache.pinot.core.data.manager.realtime.RealtimeSegmentDataManager;
+import org.apache.pinot.core.query.cache.SegmentResultsCache;
 import org.apache.pinot.core.util.PeerServerSegmentFinder;
 import org.apache.pinot.segment.local.data.manager.SegmentDataManager;
 import org.apache.pinot.segment.local.data.manager.StaleSegment;
@@ -343,6 +344,7 @@ public abstract class BaseTableDataManager implements TableDataManager {
       _logger.info("Added new immutable segment: {}", segmentName);
     } else {
       _logger.info("Replaced immutable segment: {}", segmentName);
+      SegmentResultsCache.invalidateSegmentIfEnabled(_tableNameWithType, segmentName);
       oldSegmentManager.offload();
       releaseSegment(oldSegmentManager);
     }
@@ -665,6 +667,7 @@ public abstract class BaseTableDataManager implements TableDataManager {
     _serverMetrics.addValueToTableGauge(_tableNameWithType, ServerGauge.DOCUMENT_COUNT,
         -segmentDataManager.getSegment().getSegmentMetadata().getTotalDocs());
     segmentDataManager.destroy();
+    SegmentResultsCache.invalidateSegmentIfEnabled(_tableNameWithType, segmentName);
     _logger.info("Closed segment: {}", segmentName);
   }
 
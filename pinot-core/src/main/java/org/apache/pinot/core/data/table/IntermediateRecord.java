@@ -34,4 +34,12 @@ public class IntermediateRecord {
     _record = record;
     _values = values;
   }
+
+  /**
+   * Creates an intermediate record without the values to be ordered. This should only be used to re-create records that
+   * have already been ordered (or do not need to be ordered).
+   */
+  public static IntermediateRecord withoutOrderByValues(Key key, Record record) {
+    return new IntermediateRecord(key, record, null);
+  }
 }
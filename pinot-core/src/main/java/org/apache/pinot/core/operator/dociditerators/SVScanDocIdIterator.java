@@ -19,6 +19,7 @@
 package org.apache.pinot.core.operator.dociditerators;
 
 import java.util.OptionalInt;
+import javax.annotation.Nullable;
 import org.apache.pinot.core.common.BlockDocIdIterator;
 import org.apache.pinot.core.operator.filter.predicate.PredicateEvaluator;
 import org.apache.pinot.segment.spi.Constants;
@@ -33,6 +34,8 @@ import org.roaringbitmap.buffer.MutableRoaringBitmap;
 /**
  * The {@code SVScanDocIdIterator} is the scan-based iterator for SVScanDocIdSet to scan a single-value column for the
  * matching document ids.
+ * <p>When the matching zones (from the zone map of the column) are provided, the documents in the non-matching zones
+ * are skipped without being scanned.
  */
 @SuppressWarnings({"rawtypes", "unchecked"})
 public final class SVScanDocIdIterator implements ScanBasedDocIdIterator {
@@ -45,11 +48,20 @@ public final class SVScanDocIdIterator implements ScanBasedDocIdIterator {
   private int _firstMismatch;
   private int _cursor;
   private final int _cardinality;
+  // Whether each zone of the zone map might contain matching documents, or null if all the documents should be scanned
+  private final boolean[] _matchingZones;
+  private final int _numDocsPerZone;
 
   private int _nextDocId = 0;
   private long _numEntriesScanned = 0L;
+  private long _numDocsMatched = 0L;
 
   public SVScanDocIdIterator(PredicateEvaluator predicateEvaluator, DataSource dataSource, int numDocs, int batchSize) {
+    this(predicateEvaluator, dataSource, numDocs, batchSize, null, 0);
+  }
+
+  public SVScanDocIdIterator(PredicateEvaluator predicateEvaluator, DataSource dataSource, int numDocs, int batchSize,
+      @Nullable boolean[] matchingZones, int numDocsPerZone) {
     _batch = new int[batchSize];
     _predicateEvaluator = predicateEvaluator;
     _reader = dataSource.getForwardIndex();
@@ -57,6 +69,8 @@ public final class SVScanDocIdIterator implements ScanBasedDocIdIterator {
     _numDocs = numDocs;
     _valueMatcher = getValueMatcher();
     _cardinality = dataSource.getDataSourceMetadata().getCardinality();
+    _matchingZones = matchingZones;
+    _numDocsPerZone = numDocsPerZone;
   }
 
   // for testing
@@ -68,6 +82,8 @@ public final class SVScanDocIdIterator implements ScanBasedDocIdIterator {
     _numDocs = numDocs;
     _valueMatcher = getValueMatcher();
     _cardinality = -1;
+    _matchingZones = null;
+    _numDocsPerZone = 0;
   }
 
   @Override
@@ -76,7 +92,7 @@ public final class SVScanDocIdIterator implements ScanBasedDocIdIterator {
       int limit;
       int batchSize = 0;
       do {
-        limit = Math.min(_numDocs - _nextDocId, _batch.length);
+        limit = getNextBatchSize();
         if (limit > 0) {
           for (int i = 0; i < limit; i++) {
             _batch[i] = _nextDocId + i;
@@ -84,6 +100,7 @@ public final class SVScanDocIdIterator implements ScanBasedDocIdIterator {
           batchSize = _valueMatcher.matchValues(limit, _batch);
           _nextDocId += limit;
           _numEntriesScanned += limit;
+          _numDocsMatched += batchSize;
         }
       } while (limit > 0 & batchSize == 0);
       _firstMismatch = batchSize;
@@ -101,9 +118,14 @@ public final class SVScanDocIdIterator implements ScanBasedDocIdIterator {
     _nextDocId = targetDocId;
     _firstMismatch = 0;
     while (_nextDocId < _numDocs) {
+      if (_matchingZones != null && !_matchingZones[_nextDocId / _numDocsPerZone]) {
+        _nextDocId = getNextZoneStart(_nextDocId);
+        continue;
+      }
       int nextDocId = _nextDocId++;
       _numEntriesScanned++;
       if (_valueMatcher.doesValueMatch(nextDocId)) {
+        _numDocsMatched++;
         return nextDocId;
       }
     }
@@ -130,11 +152,15 @@ public final class SVScanDocIdIterator implements ScanBasedDocIdIterator {
     int[] buffer = new int[_batch.length];
     while (docIdIterator.hasNext()) {
       int limit = docIdIterator.nextBatch(buffer);
+      if (_matchingZones != null) {
+        limit = removeDocIdsInNonMatchingZones(limit, buffer);
+      }
       if (limit > 0) {
         int firstMismatch = _valueMatcher.matchValues(limit, buffer);
         for (int i = 0; i < firstMismatch; i++) {
           result.add(buffer[i]);
         }
+        _numDocsMatched += firstMismatch;
       }
       _numEntriesScanned += limit;
     }
@@ -142,11 +168,54 @@ public final class SVScanDocIdIterator implements ScanBasedDocIdIterator {
     return result.get();
   }
 
+  /**
+   * Returns the number of documents to scan in the next batch starting from {@code _nextDocId}. When zone map is used,
+   * first skips the non-matching zones, then limits the batch to the consecutive matching zones.
+   */
+  private int getNextBatchSize() {
+    if (_matchingZones == null) {
+      return Math.min(_numDocs - _nextDocId, _batch.length);
+    }
+    while (_nextDocId < _numDocs && !_matchingZones[_nextDocId / _numDocsPerZone]) {
+      _nextDocId = getNextZoneStart(_nextDocId);
+    }
+    int maxEndDocId = (int) Math.min((long) _nextDocId + _batch.length, _numDocs);
+    int endDocId = _nextDocId;
+    while (endDocId < maxEndDocId && _matchingZones[endDocId / _numDocsPerZone]) {
+      endDocId = Math.min(getNextZoneStart(endDocId), maxEndDocId);
+    }
+    return endDocId - _nextDocId;
+  }
+
+  private int getNextZoneStart(int docId) {
+    return (int) Math.min((long) (docId / _numDocsPerZone + 1) * _numDocsPerZone, _numDocs);
+  }
+
+  /**
+   * Removes the document ids in the non-matching zones, compacts the remaining ones in the start of the array, and
+   * returns the number of remaining document ids.
+   */
+  private int removeDocIdsInNonMatchingZones(int limit, int[] docIds) {
+    int numRemaining = 0;
+    for (int i = 0; i < limit; i++) {
+      int docId = docIds[i];
+      if (_matchingZones[docId / _numDocsPerZone]) {
+        docIds[numRemaining++] = docId;
+      }
+    }
+    return numRemaining;
+  }
+
   @Override
   public long getNumEntriesScanned() {
     return _numEntriesScanned;
   }
 
+  @Override
+  public long getNumDocsMatched() {
+    return _numDocsMatched;
+  }
+
   /**
    * This is an approximation of probability calculation in
    * org.apache.pinot.controller.recommender.rules.utils.QueryInvertedSortedIndexRecommender#percentSelected
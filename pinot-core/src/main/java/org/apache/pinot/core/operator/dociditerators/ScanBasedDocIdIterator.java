@@ -55,6 +55,15 @@ public interface ScanBasedDocIdIterator extends BlockDocIdIterator {
    */
   long getNumEntriesScanned();
 
+  /**
+   * Returns the number of scanned documents matching the predicate, or -1 if it is not tracked. For single-value
+   * columns, the selectivity of the predicate over the scanned documents is {@code numDocsMatched / numEntriesScanned}.
+   * This method should be called after the iteration is done.
+   */
+  default long getNumDocsMatched() {
+    return -1;
+  }
+
   /**
    * Returns the estimated (effective) cardinality of the underlying data source
    */
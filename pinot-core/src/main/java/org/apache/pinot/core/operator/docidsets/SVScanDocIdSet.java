@@ -18,6 +18,7 @@
  */
 package org.apache.pinot.core.operator.docidsets;
 
+import javax.annotation.Nullable;
 import org.apache.pinot.core.common.BlockDocIdSet;
 import org.apache.pinot.core.operator.dociditerators.SVScanDocIdIterator;
 import org.apache.pinot.core.operator.filter.predicate.PredicateEvaluator;
@@ -31,6 +32,12 @@ public final class SVScanDocIdSet implements BlockDocIdSet {
     _docIdIterator = new SVScanDocIdIterator(predicateEvaluator, dataSource, numDocs, batchSize);
   }
 
+  public SVScanDocIdSet(PredicateEvaluator predicateEvaluator, DataSource dataSource, int numDocs, int batchSize,
+      @Nullable boolean[] matchingZones, int numDocsPerZone) {
+    _docIdIterator =
+        new SVScanDocIdIterator(predicateEvaluator, dataSource, numDocs, batchSize, matchingZones, numDocsPerZone);
+  }
+
   @Override
   public SVScanDocIdIterator iterator() {
     return _docIdIterator;
@@ -23,14 +23,21 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import javax.annotation.Nullable;
+import org.apache.pinot.common.request.context.predicate.Predicate;
+import org.apache.pinot.core.common.BlockDocIdIterator;
 import org.apache.pinot.core.common.BlockDocIdSet;
 import org.apache.pinot.core.common.Operator;
+import org.apache.pinot.core.operator.ExplainAttributeBuilder;
+import org.apache.pinot.core.operator.dociditerators.BitmapBasedDocIdIterator;
+import org.apache.pinot.core.operator.dociditerators.ScanBasedDocIdIterator;
+import org.apache.pinot.core.operator.dociditerators.SortedDocIdIterator;
 import org.apache.pinot.core.operator.docidsets.AndDocIdSet;
 import org.apache.pinot.core.operator.docidsets.EmptyDocIdSet;
 import org.apache.pinot.core.operator.docidsets.MatchAllDocIdSet;
 import org.apache.pinot.core.operator.docidsets.NotDocIdSet;
 import org.apache.pinot.core.operator.docidsets.OrDocIdSet;
 import org.apache.pinot.spi.trace.Tracing;
+import org.apache.pinot.spi.utils.Pairs.IntPair;
 import org.roaringbitmap.buffer.BufferFastAggregation;
 import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
 
@@ -40,12 +47,23 @@ public class AndFilterOperator extends BaseFilterOperator {
 
   private final List<BaseFilterOperator> _filterOperators;
   private final Map<String, String> _queryOptions;
+  // When set, the observed stats of the column filter children are recorded into the tracker
+  private final FilterSelectivityTracker _selectivityTracker;
+  private final String _tableName;
 
   public AndFilterOperator(List<BaseFilterOperator> filterOperators, @Nullable Map<String, String> queryOptions,
       int numDocs, boolean nullHandlingEnabled) {
+    this(filterOperators, queryOptions, numDocs, nullHandlingEnabled, null, null);
+  }
+
+  public AndFilterOperator(List<BaseFilterOperator> filterOperators, @Nullable Map<String, String> queryOptions,
+      int numDocs, boolean nullHandlingEnabled, @Nullable FilterSelectivityTracker selectivityTracker,
+      @Nullable String tableName) {
     super(numDocs, nullHandlingEnabled);
     _filterOperators = filterOperators;
     _queryOptions = queryOptions;
+    _selectivityTracker = selectivityTracker;
+    _tableName = tableName;
   }
 
   @Override
@@ -53,7 +71,11 @@ public class AndFilterOperator extends BaseFilterOperator {
     Tracing.activeRecording().setNumChildren(_filterOperators.size());
     List<BlockDocIdSet> blockDocIdSets = new ArrayList<>(_filterOperators.size());
     for (BaseFilterOperator filterOperator : _filterOperators) {
-      blockDocIdSets.add(filterOperator.getTrues());
+      BlockDocIdSet blockDocIdSet = filterOperator.getTrues();
+      if (_selectivityTracker != null && filterOperator instanceof BaseColumnFilterOperator) {
+        blockDocIdSet = new StatsRecordingDocIdSet(blockDocIdSet, (BaseColumnFilterOperator) filterOperator);
+      }
+      blockDocIdSets.add(blockDocIdSet);
     }
     return new AndDocIdSet(blockDocIdSets, _queryOptions);
   }
@@ -116,6 +138,95 @@ public class AndFilterOperator extends BaseFilterOperator {
 
   @Override
   public String toExplainString() {
-    return EXPLAIN_NAME;
+    if (_selectivityTracker == null) {
+      return EXPLAIN_NAME;
+    }
+    return EXPLAIN_NAME + "(selectivity:" + getSelectivityExplanations() + ')';
+  }
+
+  @Override
+  protected void explainAttributes(ExplainAttributeBuilder attributeBuilder) {
+    super.explainAttributes(attributeBuilder);
+    if (_selectivityTracker != null) {
+      attributeBuilder.putStringList("selectivity", getSelectivityExplanations());
+    }
+  }
+
+  /**
+   * Returns the observed selectivity of the column filter children in the evaluation order, e.g. 'col:EQ=0.01'.
+   */
+  private List<String> getSelectivityExplanations() {
+    assert _selectivityTracker != null && _tableName != null;
+    List<String> explanations = new ArrayList<>();
+    for (BaseFilterOperator filterOperator : _filterOperators) {
+      if (filterOperator instanceof BaseColumnFilterOperator) {
+        BaseColumnFilterOperator columnFilterOperator = (BaseColumnFilterOperator) filterOperator;
+        String column = getColumnName(columnFilterOperator);
+        Predicate.Type predicateType = columnFilterOperator.getPredicateEvaluator().getPredicateType();
+        FilterSelectivityTracker.PredicateStats stats =
+            _selectivityTracker.getStats(_tableName, column, predicateType);
+        explanations.add(column + ':' + predicateType + '=' + (stats != null ? String.format("%.4f",
+            stats.getSelectivity()) : "unknown"));
+      }
+    }
+    return explanations;
+  }
+
+  private static String getColumnName(BaseColumnFilterOperator columnFilterOperator) {
+    return columnFilterOperator.getDataSource().getDataSourceMetadata().getFieldSpec().getName();
+  }
+
+  /**
+   * Wrapper on the {@link BlockDocIdSet} of a column filter child which records the observed stats of the predicate
+   * when the number of entries scanned is collected, i.e. after the evaluation. The iterator is not wrapped so that
+   * {@link AndDocIdSet} can still optimize on the iterator type.
+   */
+  private final class StatsRecordingDocIdSet implements BlockDocIdSet {
+    final BlockDocIdSet _blockDocIdSet;
+    final BaseColumnFilterOperator _filterOperator;
+    BlockDocIdIterator _iterator;
+    boolean _recorded;
+
+    StatsRecordingDocIdSet(BlockDocIdSet blockDocIdSet, BaseColumnFilterOperator filterOperator) {
+      _blockDocIdSet = blockDocIdSet;
+      _filterOperator = filterOperator;
+    }
+
+    @Override
+    public BlockDocIdIterator iterator() {
+      _iterator = _blockDocIdSet.iterator();
+      return _iterator;
+    }
+
+    @Override
+    public long getNumEntriesScannedInFilter() {
+      long numEntriesScanned = _blockDocIdSet.getNumEntriesScannedInFilter();
+      if (!_recorded && _iterator != null) {
+        _recorded = true;
+        long numDocsEvaluated;
+        long numDocsMatched;
+        if (_iterator instanceof BitmapBasedDocIdIterator) {
+          numDocsEvaluated = _numDocs;
+          numDocsMatched = ((BitmapBasedDocIdIterator) _iterator).getDocIds().getCardinality();
+        } else if (_iterator instanceof SortedDocIdIterator) {
+          numDocsEvaluated = _numDocs;
+          numDocsMatched = 0;
+          for (IntPair docIdRange : ((SortedDocIdIterator) _iterator).getDocIdRanges()) {
+            numDocsMatched += docIdRange.getRight() - docIdRange.getLeft() + 1;
+          }
+        } else if (_iterator instanceof ScanBasedDocIdIterator
+            && _filterOperator.getDataSource().getDataSourceMetadata().isSingleValue()) {
+          // For single-value column, each scanned entry is an evaluated document
+          numDocsEvaluated = numEntriesScanned;
+          numDocsMatched = ((ScanBasedDocIdIterator) _iterator).getNumDocsMatched();
+        } else {
+          return numEntriesScanned;
+        }
+        _selectivityTracker.record(_tableName, getColumnName(_filterOperator),
+            _filterOperator.getPredicateEvaluator().getPredicateType(), numDocsEvaluated, numDocsMatched,
+            numEntriesScanned);
+      }
+      return numEntriesScanned;
+    }
   }
 }
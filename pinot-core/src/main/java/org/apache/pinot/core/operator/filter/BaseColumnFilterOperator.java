@@ -24,6 +24,7 @@ import org.apache.pinot.core.common.BlockDocIdSet;
 import org.apache.pinot.core.operator.docidsets.AndDocIdSet;
 import org.apache.pinot.core.operator.docidsets.BitmapDocIdSet;
 import org.apache.pinot.core.operator.docidsets.EmptyDocIdSet;
+import org.apache.pinot.core.operator.filter.predicate.PredicateEvaluator;
 import org.apache.pinot.core.query.request.context.QueryContext;
 import org.apache.pinot.segment.spi.datasource.DataSource;
 import org.apache.pinot.segment.spi.index.reader.NullValueVectorReader;
@@ -42,6 +43,18 @@ public abstract class BaseColumnFilterOperator extends BaseFilterOperator {
 
   protected abstract BlockDocIdSet getNextBlockWithoutNullHandling();
 
+  /**
+   * Returns the predicate evaluator applied on the column.
+   */
+  public abstract PredicateEvaluator getPredicateEvaluator();
+
+  /**
+   * Returns the data source of the column.
+   */
+  public DataSource getDataSource() {
+    return _dataSource;
+  }
+
   @Override
   protected BlockDocIdSet getTrues() {
     if (_nullHandlingEnabled) {
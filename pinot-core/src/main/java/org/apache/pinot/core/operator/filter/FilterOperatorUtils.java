@@ -20,9 +20,13 @@ package org.apache.pinot.core.operator.filter;
 
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.OptionalInt;
+import javax.annotation.Nullable;
 import org.apache.pinot.common.request.context.predicate.Predicate;
+import org.apache.pinot.core.operator.filter.FilterSelectivityTracker.PredicateStats;
 import org.apache.pinot.core.operator.filter.predicate.BaseDictIdBasedRegexpLikePredicateEvaluator;
 import org.apache.pinot.core.operator.filter.predicate.PredicateEvaluator;
 import org.apache.pinot.core.query.request.context.QueryContext;
@@ -155,11 +159,19 @@ public class FilterOperatorUtils {
       } else {
         // Return the AND filter operator with re-ordered child filter operators
         reorderAndFilterChildOperators(queryContext, childFilterOperators);
-        return new AndFilterOperator(childFilterOperators, queryContext.getQueryOptions(), numDocs,
-            queryContext.isNullHandlingEnabled());
+        return createAndFilterOperator(queryContext, childFilterOperators, numDocs);
       }
     }
 
+    /**
+     * Creates the AND filter operator on the re-ordered child filter operators.
+     */
+    protected BaseFilterOperator createAndFilterOperator(QueryContext queryContext,
+        List<BaseFilterOperator> filterOperators, int numDocs) {
+      return new AndFilterOperator(filterOperators, queryContext.getQueryOptions(), numDocs,
+          queryContext.isNullHandlingEnabled());
+    }
+
     @Override
     public BaseFilterOperator getOrFilterOperator(QueryContext queryContext, List<BaseFilterOperator> filterOperators,
         int numDocs) {
@@ -204,52 +216,50 @@ public class FilterOperatorUtils {
      * removed from the list before calling this method.
      */
     protected void reorderAndFilterChildOperators(QueryContext queryContext, List<BaseFilterOperator> filterOperators) {
-      filterOperators.sort(new Comparator<BaseFilterOperator>() {
-        @Override
-        public int compare(BaseFilterOperator o1, BaseFilterOperator o2) {
-          return getPriority(o1) - getPriority(o2);
-        }
+      filterOperators.sort(Comparator.comparingInt(filterOperator -> getPriority(queryContext, filterOperator)));
+    }
 
-        int getPriority(BaseFilterOperator filterOperator) {
-          if (filterOperator instanceof PrioritizedFilterOperator) {
-            OptionalInt priority = ((PrioritizedFilterOperator<?>) filterOperator).getPriority();
-            if (priority.isPresent()) {
-              return priority.getAsInt();
-            }
-          }
-          if (filterOperator instanceof SortedIndexBasedFilterOperator) {
-            return PrioritizedFilterOperator.HIGH_PRIORITY;
-          }
-          if (filterOperator instanceof BitmapBasedFilterOperator
-              || filterOperator instanceof InvertedIndexFilterOperator) {
-            return PrioritizedFilterOperator.MEDIUM_PRIORITY;
-          }
-          if (filterOperator instanceof RangeIndexBasedFilterOperator
-              || filterOperator instanceof TextContainsFilterOperator
-              || filterOperator instanceof TextMatchFilterOperator || filterOperator instanceof JsonMatchFilterOperator
-              || filterOperator instanceof H3IndexFilterOperator
-              || filterOperator instanceof H3InclusionIndexFilterOperator) {
-            return PrioritizedFilterOperator.LOW_PRIORITY;
-          }
-          if (filterOperator instanceof AndFilterOperator) {
-            return PrioritizedFilterOperator.AND_PRIORITY;
-          }
-          if (filterOperator instanceof OrFilterOperator) {
-            return PrioritizedFilterOperator.OR_PRIORITY;
-          }
-          if (filterOperator instanceof NotFilterOperator) {
-            return getPriority(((NotFilterOperator) filterOperator).getChildFilterOperator());
-          }
-          if (filterOperator instanceof ScanBasedFilterOperator) {
-            int basePriority = PrioritizedFilterOperator.SCAN_PRIORITY;
-            return getScanBasedFilterPriority(queryContext, (ScanBasedFilterOperator) filterOperator, basePriority);
-          }
-          if (filterOperator instanceof ExpressionFilterOperator) {
-            return PrioritizedFilterOperator.EXPRESSION_PRIORITY;
-          }
-          return PrioritizedFilterOperator.UNKNOWN_FILTER_PRIORITY;
+    /**
+     * Returns the static priority of the filter operator within the AND filter, where lower value is evaluated first.
+     */
+    protected int getPriority(QueryContext queryContext, BaseFilterOperator filterOperator) {
+      if (filterOperator instanceof PrioritizedFilterOperator) {
+        OptionalInt priority = ((PrioritizedFilterOperator<?>) filterOperator).getPriority();
+        if (priority.isPresent()) {
+          return priority.getAsInt();
         }
-      });
+      }
+      if (filterOperator instanceof SortedIndexBasedFilterOperator) {
+        return PrioritizedFilterOperator.HIGH_PRIORITY;
+      }
+      if (filterOperator instanceof BitmapBasedFilterOperator
+          || filterOperator instanceof InvertedIndexFilterOperator) {
+        return PrioritizedFilterOperator.MEDIUM_PRIORITY;
+      }
+      if (filterOperator instanceof RangeIndexBasedFilterOperator
+          || filterOperator instanceof TextContainsFilterOperator
+          || filterOperator instanceof TextMatchFilterOperator || filterOperator instanceof JsonMatchFilterOperator
+          || filterOperator instanceof H3IndexFilterOperator
+          || filterOperator instanceof H3InclusionIndexFilterOperator) {
+        return PrioritizedFilterOperator.LOW_PRIORITY;
+      }
+      if (filterOperator instanceof AndFilterOperator) {
+        return PrioritizedFilterOperator.AND_PRIORITY;
+      }
+      if (filterOperator instanceof OrFilterOperator) {
+        return PrioritizedFilterOperator.OR_PRIORITY;
+      }
+      if (filterOperator instanceof NotFilterOperator) {
+        return getPriority(queryContext, ((NotFilterOperator) filterOperator).getChildFilterOperator());
+      }
+      if (filterOperator instanceof ScanBasedFilterOperator) {
+        int basePriority = PrioritizedFilterOperator.SCAN_PRIORITY;
+        return getScanBasedFilterPriority(queryContext, (ScanBasedFilterOperator) filterOperator, basePriority);
+      }
+      if (filterOperator instanceof ExpressionFilterOperator) {
+        return PrioritizedFilterOperator.EXPRESSION_PRIORITY;
+      }
+      return PrioritizedFilterOperator.UNKNOWN_FILTER_PRIORITY;
     }
 
     public static int getScanBasedFilterPriority(QueryContext queryContext,
@@ -267,6 +277,110 @@ public class FilterOperatorUtils {
     }
   }
 
+  /**
+   * Implementation which adapts the AND filter to the selectivity of the predicates observed by the
+   * {@link FilterSelectivityTracker}:
+   * <ul>
+   *   <li>
+   *     Child filter operators with the same static priority are ordered by the observed selectivity and cost, so
+   *     that the most selective scan is evaluated first and the following scans only evaluate the matching documents.
+   *   </li>
+   *   <li>
+   *     When a child filter is observed to be selective, the inverted/range index based children observed to match
+   *     most of the documents are evaluated with scan on the documents matching the other children instead of reading
+   *     the whole index.
+   *   </li>
+   * </ul>
+   * The AND filter operators created by this implementation record the observed stats of their column children.
+   */
+  public static class AdaptiveImplementation extends DefaultImplementation {
+    // Child filter matching at most this fraction of the evaluated documents is selective enough to drive the AND
+    public static final double SELECTIVE_THRESHOLD = 0.05;
+    // Index based child filter matching at least this fraction of the documents is evaluated with scan when there is a
+    // selective child filter
+    public static final double SCAN_THRESHOLD = 0.5;
+
+    private final FilterSelectivityTracker _tracker;
+
+    public AdaptiveImplementation(FilterSelectivityTracker tracker) {
+      _tracker = tracker;
+    }
+
+    public FilterSelectivityTracker getTracker() {
+      return _tracker;
+    }
+
+    @Override
+    protected void reorderAndFilterChildOperators(QueryContext queryContext, List<BaseFilterOperator> filterOperators) {
+      String tableName = queryContext.getTableName();
+      int numFilterOperators = filterOperators.size();
+      Map<BaseFilterOperator, PredicateStats> statsMap = new IdentityHashMap<>();
+      BaseFilterOperator mostSelectiveOperator = null;
+      double minSelectivity = SELECTIVE_THRESHOLD;
+      for (BaseFilterOperator filterOperator : filterOperators) {
+        PredicateStats stats = getStats(tableName, filterOperator);
+        if (stats != null) {
+          statsMap.put(filterOperator, stats);
+          if (stats.getSelectivity() <= minSelectivity) {
+            minSelectivity = stats.getSelectivity();
+            mostSelectiveOperator = filterOperator;
+          }
+        }
+      }
+      if (mostSelectiveOperator != null) {
+        for (int i = 0; i < numFilterOperators; i++) {
+          BaseFilterOperator filterOperator = filterOperators.get(i);
+          if (filterOperator == mostSelectiveOperator || !(filterOperator instanceof InvertedIndexFilterOperator
+              || filterOperator instanceof RangeIndexBasedFilterOperator)) {
+            continue;
+          }
+          PredicateStats stats = statsMap.get(filterOperator);
+          BaseColumnFilterOperator columnFilterOperator = (BaseColumnFilterOperator) filterOperator;
+          DataSource dataSource = columnFilterOperator.getDataSource();
+          if (stats != null && stats.getSelectivity() >= SCAN_THRESHOLD && dataSource.getForwardIndex() != null) {
+            ScanBasedFilterOperator scanBasedFilterOperator =
+                new ScanBasedFilterOperator(queryContext, columnFilterOperator.getPredicateEvaluator(), dataSource,
+                    filterOperator._numDocs);
+            filterOperators.set(i, scanBasedFilterOperator);
+            statsMap.put(scanBasedFilterOperator, stats);
+          }
+        }
+      }
+      filterOperators.sort(Comparator.<BaseFilterOperator>comparingInt(
+              filterOperator -> getPriority(queryContext, filterOperator))
+          .thenComparingDouble(filterOperator -> getRank(statsMap.get(filterOperator))));
+    }
+
+    @Override
+    protected BaseFilterOperator createAndFilterOperator(QueryContext queryContext,
+        List<BaseFilterOperator> filterOperators, int numDocs) {
+      return new AndFilterOperator(filterOperators, queryContext.getQueryOptions(), numDocs,
+          queryContext.isNullHandlingEnabled(), _tracker, queryContext.getTableName());
+    }
+
+    @Nullable
+    private PredicateStats getStats(String tableName, BaseFilterOperator filterOperator) {
+      if (!(filterOperator instanceof BaseColumnFilterOperator)) {
+        return null;
+      }
+      BaseColumnFilterOperator columnFilterOperator = (BaseColumnFilterOperator) filterOperator;
+      return _tracker.getStats(tableName, columnFilterOperator.getDataSource().getDataSourceMetadata().getFieldSpec()
+          .getName(), columnFilterOperator.getPredicateEvaluator().getPredicateType());
+    }
+
+    /**
+     * Returns the rank of the child filter within the AND filter, where lower rank is evaluated first. The rank is the
+     * cost of evaluating a document divided by the fraction of the documents filtered out. Child filter without stats
+     * is ranked last.
+     */
+    private static double getRank(@Nullable PredicateStats stats) {
+      if (stats == null) {
+        return Double.POSITIVE_INFINITY;
+      }
+      return Math.max(stats.getCostPerDoc(), 1.0) / Math.max(1.0 - stats.getSelectivity(), 1e-6);
+    }
+  }
+
   /**
    * Returns the leaf filter operator (i.e. not {@link AndFilterOperator} or {@link OrFilterOperator}).
    */
@@ -0,0 +1,170 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.operator.filter;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.util.Objects;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import org.apache.pinot.common.request.context.predicate.Predicate;
+import org.apache.pinot.spi.env.PinotConfiguration;
+import org.apache.pinot.spi.utils.CommonConstants.Server;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Tracks the observed selectivity (fraction of the evaluated documents matching the predicate) and cost (number of
+ * entries scanned per evaluated document) of the filter predicates per (table, column, predicate type). The stats are
+ * recorded from the filter execution statistics of the AND filter children, and are used by
+ * {@link FilterOperatorUtils.AdaptiveImplementation} to order the AND filter children and to pick between index and
+ * scan based evaluation.
+ * <p>
+ * The stats are kept as exponential moving averages so that they follow the data changes, and the number of tracked
+ * entries is bounded with LRU eviction.
+ */
+@ThreadSafe
+public class FilterSelectivityTracker {
+  private static final Logger LOGGER = LoggerFactory.getLogger(FilterSelectivityTracker.class);
+
+  // Weight of the latest observation in the exponential moving average
+  private static final double EWMA_ALPHA = 0.2;
+
+  private final Cache<Key, PredicateStats> _statsCache;
+  private final int _minNumSamples;
+
+  public FilterSelectivityTracker(int maxNumEntries, int minNumSamples) {
+    _statsCache = CacheBuilder.newBuilder().maximumSize(maxNumEntries).build();
+    _minNumSamples = minNumSamples;
+  }
+
+  /**
+   * Installs the {@link FilterOperatorUtils.AdaptiveImplementation} when the adaptive filter is enabled in the query
+   * executor config.
+   */
+  public static void init(PinotConfiguration queryExecutorConfig) {
+    if (queryExecutorConfig.getProperty(Server.ADAPTIVE_FILTER_ENABLED, Server.DEFAULT_ADAPTIVE_FILTER_ENABLED)) {
+      int maxNumEntries = queryExecutorConfig.getProperty(Server.ADAPTIVE_FILTER_MAX_ENTRIES,
+          Server.DEFAULT_ADAPTIVE_FILTER_MAX_ENTRIES);
+      int minNumSamples = queryExecutorConfig.getProperty(Server.ADAPTIVE_FILTER_MIN_SAMPLES,
+          Server.DEFAULT_ADAPTIVE_FILTER_MIN_SAMPLES);
+      LOGGER.info("Enabling adaptive filter with max entries: {}, min samples: {}", maxNumEntries, minNumSamples);
+      FilterOperatorUtils.setImplementation(
+          new FilterOperatorUtils.AdaptiveImplementation(new FilterSelectivityTracker(maxNumEntries, minNumSamples)));
+    }
+  }
+
+  /**
+   * Records an observation of the predicate.
+   *
+   * @param numDocsEvaluated Number of documents the predicate is evaluated on
+   * @param numDocsMatched Number of evaluated documents matching the predicate
+   * @param numEntriesScanned Number of entries scanned to evaluate the predicate
+   */
+  public void record(String tableName, String column, Predicate.Type predicateType, long numDocsEvaluated,
+      long numDocsMatched, long numEntriesScanned) {
+    if (numDocsEvaluated <= 0 || numDocsMatched < 0) {
+      return;
+    }
+    PredicateStats stats =
+        _statsCache.asMap().computeIfAbsent(new Key(tableName, column, predicateType), k -> new PredicateStats());
+    stats.update((double) numDocsMatched / numDocsEvaluated, (double) numEntriesScanned / numDocsEvaluated);
+  }
+
+  /**
+   * Returns the stats of the predicate, or {@code null} if the predicate has not been observed enough times.
+   */
+  @Nullable
+  public PredicateStats getStats(String tableName, String column, Predicate.Type predicateType) {
+    PredicateStats stats = _statsCache.getIfPresent(new Key(tableName, column, predicateType));
+    return stats != null && stats.getNumSamples() >= _minNumSamples ? stats : null;
+  }
+
+  public long getNumEntries() {
+    return _statsCache.size();
+  }
+
+  /**
+   * Observed stats of a predicate.
+   */
+  public static class PredicateStats {
+    private long _numSamples;
+    private double _selectivity;
+    private double _costPerDoc;
+
+    synchronized void update(double selectivity, double costPerDoc) {
+      if (_numSamples == 0) {
+        _selectivity = selectivity;
+        _costPerDoc = costPerDoc;
+      } else {
+        _selectivity += EWMA_ALPHA * (selectivity - _selectivity);
+        _costPerDoc += EWMA_ALPHA * (costPerDoc - _costPerDoc);
+      }
+      _numSamples++;
+    }
+
+    public synchronized long getNumSamples() {
+      return _numSamples;
+    }
+
+    /**
+     * Returns the fraction of the evaluated documents matching the predicate.
+     */
+    public synchronized double getSelectivity() {
+      return _selectivity;
+    }
+
+    /**
+     * Returns the number of entries scanned per evaluated document (0 for index based evaluation).
+     */
+    public synchronized double getCostPerDoc() {
+      return _costPerDoc;
+    }
+  }
+
+  private static final class Key {
+    final String _tableName;
+    final String _column;
+    final Predicate.Type _predicateType;
+
+    Key(String tableName, String column, Predicate.Type predicateType) {
+      _tableName = tableName;
+      _column = column;
+      _predicateType = predicateType;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key key = (Key) o;
+      return _tableName.equals(key._tableName) && _column.equals(key._column) && _predicateType == key._predicateType;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(_tableName, _column, _predicateType);
+    }
+  }
+}
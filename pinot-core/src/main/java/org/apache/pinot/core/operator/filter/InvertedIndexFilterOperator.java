@@ -56,6 +56,11 @@ public class InvertedIndexFilterOperator extends BaseColumnFilterOperator {
     _exclusive = predicateEvaluator.isExclusive();
   }
 
+  @Override
+  public PredicateEvaluator getPredicateEvaluator() {
+    return _predicateEvaluator;
+  }
+
   @Override
   protected BlockDocIdSet getNextBlockWithoutNullHandling() {
     int[] dictIds = _exclusive ? _predicateEvaluator.getNonMatchingDictIds() : _predicateEvaluator.getMatchingDictIds();
@@ -71,6 +71,11 @@ public class RangeIndexBasedFilterOperator extends BaseColumnFilterOperator {
     _parameterType = predicateEvaluator.isDictionaryBased() ? FieldSpec.DataType.INT : predicateEvaluator.getDataType();
   }
 
+  @Override
+  public PredicateEvaluator getPredicateEvaluator() {
+    return _predicateEvaluator;
+  }
+
   @Override
   protected BlockDocIdSet getNextBlockWithoutNullHandling() {
     if (_rangeIndexReader.isExact()) {
@@ -22,16 +22,29 @@ import com.google.common.base.CaseFormat;
 import com.google.common.base.Preconditions;
 import java.util.Collections;
 import java.util.List;
+import javax.annotation.Nullable;
 import org.apache.pinot.core.common.BlockDocIdIterator;
 import org.apache.pinot.core.common.BlockDocIdSet;
 import org.apache.pinot.core.common.Operator;
 import org.apache.pinot.core.operator.ExplainAttributeBuilder;
+import org.apache.pinot.core.operator.docidsets.EmptyDocIdSet;
 import org.apache.pinot.core.operator.docidsets.MVScanDocIdSet;
 import org.apache.pinot.core.operator.docidsets.SVScanDocIdSet;
 import org.apache.pinot.core.operator.filter.predicate.PredicateEvaluator;
+import org.apache.pinot.core.operator.filter.predicate.traits.DoubleRange;
+import org.apache.pinot.core.operator.filter.predicate.traits.DoubleValue;
+import org.apache.pinot.core.operator.filter.predicate.traits.FloatRange;
+import org.apache.pinot.core.operator.filter.predicate.traits.FloatValue;
+import org.apache.pinot.core.operator.filter.predicate.traits.IntRange;
+import org.apache.pinot.core.operator.filter.predicate.traits.IntValue;
+import org.apache.pinot.core.operator.filter.predicate.traits.LongRange;
+import org.apache.pinot.core.operator.filter.predicate.traits.LongValue;
 import org.apache.pinot.core.query.request.context.QueryContext;
 import org.apache.pinot.segment.spi.datasource.DataSource;
 import org.apache.pinot.segment.spi.datasource.DataSourceMetadata;
+import org.apache.pinot.segment.spi.index.StandardIndexes;
+import org.apache.pinot.segment.spi.index.reader.ZoneMapReader;
+import org.apache.pinot.spi.data.FieldSpec.DataType;
 
 
 public class ScanBasedFilterOperator extends BaseColumnFilterOperator {
@@ -55,16 +68,130 @@ public class ScanBasedFilterOperator extends BaseColumnFilterOperator {
     _batchSize = batchSize;
   }
 
+  @Override
+  public PredicateEvaluator getPredicateEvaluator() {
+    return _predicateEvaluator;
+  }
+
   @Override
   protected BlockDocIdSet getNextBlockWithoutNullHandling() {
     DataSourceMetadata dataSourceMetadata = _dataSource.getDataSourceMetadata();
     if (dataSourceMetadata.isSingleValue()) {
+      ZoneMapReader zoneMap = _dataSource.getIndex(StandardIndexes.zoneMap());
+      if (zoneMap != null) {
+        boolean[] matchingZones = getMatchingZones(zoneMap);
+        if (matchingZones != null) {
+          int numMatchingZones = 0;
+          for (boolean matchingZone : matchingZones) {
+            if (matchingZone) {
+              numMatchingZones++;
+            }
+          }
+          if (numMatchingZones == 0) {
+            return EmptyDocIdSet.getInstance();
+          }
+          if (numMatchingZones < matchingZones.length) {
+            return new SVScanDocIdSet(_predicateEvaluator, _dataSource, _numDocs, _batchSize, matchingZones,
+                zoneMap.getNumDocsPerZone());
+          }
+        }
+      }
       return new SVScanDocIdSet(_predicateEvaluator, _dataSource, _numDocs, _batchSize);
     } else {
       return new MVScanDocIdSet(_predicateEvaluator, _dataSource, _numDocs);
     }
   }
 
+  /**
+   * Returns whether each zone of the zone map might contain matching documents based on the min and max value of the
+   * zone, or {@code null} if the predicate cannot be evaluated against the zone map (only EQ and RANGE predicates are
+   * supported).
+   */
+  @Nullable
+  private boolean[] getMatchingZones(ZoneMapReader zoneMap) {
+    if (_predicateEvaluator.isDictionaryBased() != zoneMap.isDictionaryEncoded()) {
+      return null;
+    }
+    DataType valueType = zoneMap.getValueType();
+    if (!_predicateEvaluator.isDictionaryBased() && _predicateEvaluator.getDataType() != valueType) {
+      return null;
+    }
+    int numZones = zoneMap.getNumZones();
+    boolean[] matchingZones = new boolean[numZones];
+    switch (valueType) {
+      case INT: {
+        int lowerBound;
+        int upperBound;
+        if (_predicateEvaluator instanceof IntValue) {
+          lowerBound = ((IntValue) _predicateEvaluator).getInt();
+          upperBound = lowerBound;
+        } else if (_predicateEvaluator instanceof IntRange) {
+          lowerBound = ((IntRange) _predicateEvaluator).getInclusiveLowerBound();
+          upperBound = ((IntRange) _predicateEvaluator).getInclusiveUpperBound();
+        } else {
+          return null;
+        }
+        for (int i = 0; i < numZones; i++) {
+          matchingZones[i] = zoneMap.getMaxInt(i) >= lowerBound && zoneMap.getMinInt(i) <= upperBound;
+        }
+        return matchingZones;
+      }
+      case LONG: {
+        long lowerBound;
+        long upperBound;
+        if (_predicateEvaluator instanceof LongValue) {
+          lowerBound = ((LongValue) _predicateEvaluator).getLong();
+          upperBound = lowerBound;
+        } else if (_predicateEvaluator instanceof LongRange) {
+          lowerBound = ((LongRange) _predicateEvaluator).getInclusiveLowerBound();
+          upperBound = ((LongRange) _predicateEvaluator).getInclusiveUpperBound();
+        } else {
+          return null;
+        }
+        for (int i = 0; i < numZones; i++) {
+          matchingZones[i] = zoneMap.getMaxLong(i) >= lowerBound && zoneMap.getMinLong(i) <= upperBound;
+        }
+        return matchingZones;
+      }
+      case FLOAT: {
+        float lowerBound;
+        float upperBound;
+        if (_predicateEvaluator instanceof FloatValue) {
+          lowerBound = ((FloatValue) _predicateEvaluator).getFloat();
+          upperBound = lowerBound;
+        } else if (_predicateEvaluator instanceof FloatRange) {
+          lowerBound = ((FloatRange) _predicateEvaluator).getInclusiveLowerBound();
+          upperBound = ((FloatRange) _predicateEvaluator).getInclusiveUpperBound();
+        } else {
+          return null;
+        }
+        for (int i = 0; i < numZones; i++) {
+          matchingZones[i] = zoneMap.getMaxFloat(i) >= lowerBound && zoneMap.getMinFloat(i) <= upperBound;
+        }
+        return matchingZones;
+      }
+      case DOUBLE: {
+        double lowerBound;
+        double upperBound;
+        if (_predicateEvaluator instanceof DoubleValue) {
+          lowerBound = ((DoubleValue) _predicateEvaluator).getDouble();
+          upperBound = lowerBound;
+        } else if (_predicateEvaluator instanceof DoubleRange) {
+          lowerBound = ((DoubleRange) _predicateEvaluator).getInclusiveLowerBound();
+          upperBound = ((DoubleRange) _predicateEvaluator).getInclusiveUpperBound();
+        } else {
+          return null;
+        }
+        for (int i = 0; i < numZones; i++) {
+          matchingZones[i] = zoneMap.getMaxDouble(i) >= lowerBound && zoneMap.getMinDouble(i) <= upperBound;
+        }
+        return matchingZones;
+      }
+      default:
+        return null;
+    }
+  }
+
 
   @Override
   public List<Operator> getChildOperators() {
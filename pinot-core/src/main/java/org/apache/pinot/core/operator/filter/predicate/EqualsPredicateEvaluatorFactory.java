@@ -125,15 +125,7 @@ public class EqualsPredicateEvaluatorFactory {
 
     @Override
     public int applySV(int limit, int[] docIds, int[] values) {
-      // reimplemented here to ensure applySV can be inlined
-      int matches = 0;
-      for (int i = 0; i < limit; i++) {
-        int value = values[i];
-        if (applySV(value)) {
-          docIds[matches++] = docIds[i];
-        }
-      }
-      return matches;
+      return ScanKernels.matchEquals(limit, docIds, values, _matchingDictId);
     }
 
     @Override
@@ -190,15 +182,7 @@ public class EqualsPredicateEvaluatorFactory {
 
     @Override
     public int applySV(int limit, int[] docIds, int[] values) {
-      // reimplemented here to ensure applySV can be inlined
-      int matches = 0;
-      for (int i = 0; i < limit; i++) {
-        int value = values[i];
-        if (applySV(value)) {
-          docIds[matches++] = docIds[i];
-        }
-      }
-      return matches;
+      return ScanKernels.matchEquals(limit, docIds, values, _matchingValue);
     }
 
     @Override
@@ -243,15 +227,7 @@ public class EqualsPredicateEvaluatorFactory {
 
     @Override
     public int applySV(int limit, int[] docIds, long[] values) {
-      // reimplemented here to ensure applySV can be inlined
-      int matches = 0;
-      for (int i = 0; i < limit; i++) {
-        long value = values[i];
-        if (applySV(value)) {
-          docIds[matches++] = docIds[i];
-        }
-      }
-      return matches;
+      return ScanKernels.matchEquals(limit, docIds, values, _matchingValue);
     }
 
     @Override
@@ -291,15 +267,7 @@ public class EqualsPredicateEvaluatorFactory {
 
     @Override
     public int applySV(int limit, int[] docIds, float[] values) {
-      // reimplemented here to ensure applySV can be inlined
-      int matches = 0;
-      for (int i = 0; i < limit; i++) {
-        float value = values[i];
-        if (applySV(value)) {
-          docIds[matches++] = docIds[i];
-        }
-      }
-      return matches;
+      return ScanKernels.matchEquals(limit, docIds, values, _matchingValue);
     }
 
     @Override
@@ -339,15 +307,7 @@ public class EqualsPredicateEvaluatorFactory {
 
     @Override
     public int applySV(int limit, int[] docIds, double[] values) {
-      // reimplemented here to ensure applySV can be inlined
-      int matches = 0;
-      for (int i = 0; i < limit; i++) {
-        double value = values[i];
-        if (applySV(value)) {
-          docIds[matches++] = docIds[i];
-        }
-      }
-      return matches;
+      return ScanKernels.matchEquals(limit, docIds, values, _matchingValue);
     }
 
     @Override
@@ -157,6 +157,9 @@ public class InPredicateEvaluatorFactory {
 
   private static final class DictionaryBasedInPredicateEvaluator extends BaseDictionaryBasedPredicateEvaluator {
     final IntSet _matchingDictIdSet;
+    // Lazily created on the first batch evaluation because it is only needed for scan
+    long[] _matchingDictIdBitSet;
+    boolean _matchingDictIdBitSetInitialized;
 
     DictionaryBasedInPredicateEvaluator(InPredicate inPredicate, Dictionary dictionary, DataType dataType,
         @Nullable QueryContext queryContext) {
@@ -189,6 +192,13 @@ public class InPredicateEvaluatorFactory {
 
     @Override
     public int applySV(int limit, int[] docIds, int[] values) {
+      if (!_matchingDictIdBitSetInitialized) {
+        _matchingDictIdBitSet = ScanKernels.toDictIdBitSet(_matchingDictIdSet);
+        _matchingDictIdBitSetInitialized = true;
+      }
+      if (_matchingDictIdBitSet != null) {
+        return ScanKernels.matchBitSet(limit, docIds, values, _matchingDictIdBitSet);
+      }
       // reimplemented here to ensure applySV can be inlined
       int matches = 0;
       for (int i = 0; i < limit; i++) {
@@ -223,15 +223,7 @@ public class RangePredicateEvaluatorFactory {
 
     @Override
     public int applySV(int limit, int[] docIds, int[] dictIds) {
-      // reimplemented here to ensure applySV can be inlined
-      int matches = 0;
-      for (int i = 0; i < limit; i++) {
-        int dictId = dictIds[i];
-        if (applySV(dictId)) {
-          docIds[matches++] = docIds[i];
-        }
-      }
-      return matches;
+      return ScanKernels.matchRange(limit, docIds, dictIds, _startDictId, _endDictId - 1);
     }
 
     @Override
@@ -255,6 +247,9 @@ public class RangePredicateEvaluatorFactory {
     final boolean _dictIdSetBased;
     final IntSet _matchingDictIdSet;
     final BaseRawValueBasedPredicateEvaluator _rawValueBasedEvaluator;
+    // Lazily created on the first batch evaluation because it is only needed for scan
+    long[] _matchingDictIdBitSet;
+    boolean _matchingDictIdBitSetInitialized;
 
     UnsortedDictionaryBasedRangePredicateEvaluator(RangePredicate rangePredicate, Dictionary dictionary,
         DataType dataType) {
@@ -321,6 +316,20 @@ public class RangePredicateEvaluatorFactory {
         }
       }
     }
+
+    @Override
+    public int applySV(int limit, int[] docIds, int[] dictIds) {
+      if (_dictIdSetBased) {
+        if (!_matchingDictIdBitSetInitialized) {
+          _matchingDictIdBitSet = ScanKernels.toDictIdBitSet(_matchingDictIdSet);
+          _matchingDictIdBitSetInitialized = true;
+        }
+        if (_matchingDictIdBitSet != null) {
+          return ScanKernels.matchBitSet(limit, docIds, dictIds, _matchingDictIdBitSet);
+        }
+      }
+      return super.applySV(limit, docIds, dictIds);
+    }
   }
 
   private static final class IntRawValueBasedRangePredicateEvaluator extends BaseRawValueBasedPredicateEvaluator
@@ -367,15 +376,7 @@ public class RangePredicateEvaluatorFactory {
 
     @Override
     public int applySV(int limit, int[] docIds, int[] values) {
-      // reimplemented here to ensure applySV can be inlined
-      int matches = 0;
-      for (int i = 0; i < limit; i++) {
-        int value = values[i];
-        if (applySV(value)) {
-          docIds[matches++] = docIds[i];
-        }
-      }
-      return matches;
+      return ScanKernels.matchRange(limit, docIds, values, _inclusiveLowerBound, _inclusiveUpperBound);
     }
   }
 
@@ -423,15 +424,7 @@ public class RangePredicateEvaluatorFactory {
 
     @Override
     public int applySV(int limit, int[] docIds, long[] values) {
-      // reimplemented here to ensure applySV can be inlined
-      int matches = 0;
-      for (int i = 0; i < limit; i++) {
-        long value = values[i];
-        if (applySV(value)) {
-          docIds[matches++] = docIds[i];
-        }
-      }
-      return matches;
+      return ScanKernels.matchRange(limit, docIds, values, _inclusiveLowerBound, _inclusiveUpperBound);
     }
   }
 
@@ -479,15 +472,7 @@ public class RangePredicateEvaluatorFactory {
 
     @Override
     public int applySV(int limit, int[] docIds, float[] values) {
-      // reimplemented here to ensure applySV can be inlined
-      int matches = 0;
-      for (int i = 0; i < limit; i++) {
-        float value = values[i];
-        if (applySV(value)) {
-          docIds[matches++] = docIds[i];
-        }
-      }
-      return matches;
+      return ScanKernels.matchRange(limit, docIds, values, _inclusiveLowerBound, _inclusiveUpperBound);
     }
   }
 
@@ -535,15 +520,7 @@ public class RangePredicateEvaluatorFactory {
 
     @Override
     public int applySV(int limit, int[] docIds, double[] values) {
-      // reimplemented here to ensure applySV can be inlined
-      int matches = 0;
-      for (int i = 0; i < limit; i++) {
-        double value = values[i];
-        if (applySV(value)) {
-          docIds[matches++] = docIds[i];
-        }
-      }
-      return matches;
+      return ScanKernels.matchRange(limit, docIds, values, _inclusiveLowerBound, _inclusiveUpperBound);
     }
   }
 
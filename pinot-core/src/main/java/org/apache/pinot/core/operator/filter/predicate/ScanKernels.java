@@ -0,0 +1,174 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.operator.filter.predicate;
+
+import it.unimi.dsi.fastutil.ints.IntIterator;
+import it.unimi.dsi.fastutil.ints.IntSet;
+import javax.annotation.Nullable;
+
+
+/**
+ * Branch-free kernels to evaluate the EQ/IN/RANGE predicates on a batch of values decoded from the forward index.
+ * <p>
+ * Each kernel evaluates the predicate on the first {@code limit} values, and compacts the doc ids of the matching
+ * values to the start of the {@code docIds} array. The match result is added to the match count instead of being
+ * branched on, so that the kernels run at the same speed regardless of the selectivity of the predicate (no branch
+ * misprediction), and the comparison is a straight-line loop body which can be unrolled by the JIT compiler.
+ */
+public class ScanKernels {
+  private ScanKernels() {
+  }
+
+  // Max dictionary id for which the matching dictionary ids are stored as a bit set (128KB)
+  public static final int MAX_DICT_ID_BIT_SET_SIZE = 1 << 20;
+
+  public static int matchEquals(int limit, int[] docIds, int[] values, int value) {
+    int matches = 0;
+    for (int i = 0; i < limit; i++) {
+      docIds[matches] = docIds[i];
+      matches += values[i] == value ? 1 : 0;
+    }
+    return matches;
+  }
+
+  public static int matchEquals(int limit, int[] docIds, long[] values, long value) {
+    int matches = 0;
+    for (int i = 0; i < limit; i++) {
+      docIds[matches] = docIds[i];
+      matches += values[i] == value ? 1 : 0;
+    }
+    return matches;
+  }
+
+  public static int matchEquals(int limit, int[] docIds, float[] values, float value) {
+    int matches = 0;
+    for (int i = 0; i < limit; i++) {
+      docIds[matches] = docIds[i];
+      matches += values[i] == value ? 1 : 0;
+    }
+    return matches;
+  }
+
+  public static int matchEquals(int limit, int[] docIds, double[] values, double value) {
+    int matches = 0;
+    for (int i = 0; i < limit; i++) {
+      docIds[matches] = docIds[i];
+      matches += values[i] == value ? 1 : 0;
+    }
+    return matches;
+  }
+
+  /**
+   * Matches the values within the inclusive range [lower, upper].
+   */
+  public static int matchRange(int limit, int[] docIds, int[] values, int lower, int upper) {
+    if (lower > upper) {
+      return 0;
+    }
+    // Single unsigned comparison: value in [lower, upper] iff (value - lower) <= (upper - lower) as unsigned int
+    int rangeMax = (upper - lower) + Integer.MIN_VALUE;
+    int matches = 0;
+    for (int i = 0; i < limit; i++) {
+      docIds[matches] = docIds[i];
+      matches += (values[i] - lower) + Integer.MIN_VALUE <= rangeMax ? 1 : 0;
+    }
+    return matches;
+  }
+
+  /**
+   * Matches the values within the inclusive range [lower, upper].
+   */
+  public static int matchRange(int limit, int[] docIds, long[] values, long lower, long upper) {
+    if (lower > upper) {
+      return 0;
+    }
+    long rangeMax = (upper - lower) + Long.MIN_VALUE;
+    int matches = 0;
+    for (int i = 0; i < limit; i++) {
+      docIds[matches] = docIds[i];
+      matches += (values[i] - lower) + Long.MIN_VALUE <= rangeMax ? 1 : 0;
+    }
+    return matches;
+  }
+
+  /**
+   * Matches the values within the inclusive range [lower, upper].
+   */
+  public static int matchRange(int limit, int[] docIds, float[] values, float lower, float upper) {
+    int matches = 0;
+    for (int i = 0; i < limit; i++) {
+      float value = values[i];
+      docIds[matches] = docIds[i];
+      matches += (value >= lower & value <= upper) ? 1 : 0;
+    }
+    return matches;
+  }
+
+  /**
+   * Matches the values within the inclusive range [lower, upper].
+   */
+  public static int matchRange(int limit, int[] docIds, double[] values, double lower, double upper) {
+    int matches = 0;
+    for (int i = 0; i < limit; i++) {
+      double value = values[i];
+      docIds[matches] = docIds[i];
+      matches += (value >= lower & value <= upper) ? 1 : 0;
+    }
+    return matches;
+  }
+
+  /**
+   * Matches the dictionary ids contained in the bit set returned by {@link #toDictIdBitSet}. Dictionary ids beyond the
+   * bit set (e.g. added to a mutable dictionary after the bit set is created) do not match.
+   */
+  public static int matchBitSet(int limit, int[] docIds, int[] dictIds, long[] bitSet) {
+    int numWords = bitSet.length;
+    int matches = 0;
+    for (int i = 0; i < limit; i++) {
+      int dictId = dictIds[i];
+      int wordIndex = dictId >>> 6;
+      docIds[matches] = docIds[i];
+      matches += wordIndex < numWords ? (int) (bitSet[wordIndex] >>> dictId) & 1 : 0;
+    }
+    return matches;
+  }
+
+  /**
+   * Returns the bit set of the given dictionary ids which can be used with {@link #matchBitSet}, or {@code null} if
+   * the max dictionary id is too large for the bit set.
+   */
+  @Nullable
+  public static long[] toDictIdBitSet(IntSet dictIds) {
+    int maxDictId = -1;
+    IntIterator iterator = dictIds.iterator();
+    while (iterator.hasNext()) {
+      maxDictId = Math.max(maxDictId, iterator.nextInt());
+    }
+    if (maxDictId >= MAX_DICT_ID_BIT_SET_SIZE) {
+      return null;
+    }
+    long[] bitSet = new long[(maxDictId >>> 6) + 1];
+    iterator = dictIds.iterator();
+    while (iterator.hasNext()) {
+      int dictId = iterator.nextInt();
+      bitSet[dictId >>> 6] |= 1L << dictId;
+    }
+    return bitSet;
+  }
+}
@@ -0,0 +1,105 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.operator.query;
+
+import java.util.Collections;
+import java.util.List;
+import org.apache.pinot.core.common.Operator;
+import org.apache.pinot.core.operator.BaseOperator;
+import org.apache.pinot.core.operator.ExecutionStatistics;
+import org.apache.pinot.core.operator.blocks.results.BaseResultsBlock;
+import org.apache.pinot.core.query.cache.CachedSegmentResults;
+import org.apache.pinot.core.query.cache.SegmentResultsCache;
+import org.apache.pinot.core.query.request.context.QueryContext;
+import org.apache.pinot.segment.spi.IndexSegment;
+
+
+/**
+ * The <code>SegmentResultsCacheOperator</code> either serves the segment results from the {@link SegmentResultsCache}
+ * (cache hit), or executes the child operator and caches its results (cache miss).
+ * <p>On a cache hit, the execution statistics recorded when the results were computed are reported, so that the query
+ * response is identical to the one without the cache.
+ */
+public class SegmentResultsCacheOperator extends BaseOperator<BaseResultsBlock> {
+  private static final String EXPLAIN_NAME = "SEGMENT_RESULTS_CACHE";
+
+  private final IndexSegment _indexSegment;
+  // Cache hit
+  private final CachedSegmentResults _cachedResults;
+  private final QueryContext _queryContext;
+  // Cache miss
+  private final Operator<BaseResultsBlock> _childOperator;
+  private final SegmentResultsCache _cache;
+  private final String _tableNameWithType;
+  private final String _queryKey;
+
+  public SegmentResultsCacheOperator(CachedSegmentResults cachedResults, IndexSegment indexSegment,
+      QueryContext queryContext) {
+    _indexSegment = indexSegment;
+    _cachedResults = cachedResults;
+    _queryContext = queryContext;
+    _childOperator = null;
+    _cache = null;
+    _tableNameWithType = null;
+    _queryKey = null;
+  }
+
+  public SegmentResultsCacheOperator(Operator<BaseResultsBlock> childOperator, SegmentResultsCache cache,
+      String tableNameWithType, IndexSegment indexSegment, String queryKey) {
+    _indexSegment = indexSegment;
+    _cachedResults = null;
+    _queryContext = null;
+    _childOperator = childOperator;
+    _cache = cache;
+    _tableNameWithType = tableNameWithType;
+    _queryKey = queryKey;
+  }
+
+  @Override
+  protected BaseResultsBlock getNextBlock() {
+    if (_cachedResults != null) {
+      return _cachedResults.toResultsBlock(_queryContext);
+    }
+    assert _childOperator != null && _cache != null;
+    BaseResultsBlock resultsBlock = _childOperator.nextBlock();
+    // Intermediate results are copied into the cache, so the results block can be returned as is
+    _cache.put(_tableNameWithType, _indexSegment, _queryKey, resultsBlock, _childOperator.getExecutionStatistics());
+    return resultsBlock;
+  }
+
+  @Override
+  public List<Operator> getChildOperators() {
+    return _childOperator != null ? Collections.singletonList(_childOperator) : Collections.emptyList();
+  }
+
+  @Override
+  public String toExplainString() {
+    return EXPLAIN_NAME;
+  }
+
+  @Override
+  public IndexSegment getIndexSegment() {
+    return _indexSegment;
+  }
+
+  @Override
+  public ExecutionStatistics getExecutionStatistics() {
+    return _cachedResults != null ? _cachedResults.getExecutionStatistics() : _childOperator.getExecutionStatistics();
+  }
+}
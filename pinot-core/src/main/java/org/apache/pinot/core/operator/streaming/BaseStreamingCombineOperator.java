@@ -159,7 +159,7 @@ public abstract class BaseStreamingCombineOperator<T extends BaseResultsBlock> e
   }
 
   // NOTE: Throw EarlyTerminationException when interrupted or timed out
-  private void addResultsBlock(BaseResultsBlock resultsBlock) {
+  protected void addResultsBlock(BaseResultsBlock resultsBlock) {
     try {
       if (!_blockingQueue.offer(resultsBlock, _queryContext.getEndTimeMs() - System.currentTimeMillis(),
           TimeUnit.MILLISECONDS)) {
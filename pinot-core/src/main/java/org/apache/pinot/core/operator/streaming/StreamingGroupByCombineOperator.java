@@ -0,0 +1,144 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.operator.streaming;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import org.apache.pinot.common.utils.config.QueryOptionsUtils;
+import org.apache.pinot.core.common.Operator;
+import org.apache.pinot.core.data.table.IndexedTable;
+import org.apache.pinot.core.operator.AcquireReleaseColumnsSegmentOperator;
+import org.apache.pinot.core.operator.blocks.results.GroupByResultsBlock;
+import org.apache.pinot.core.query.aggregation.function.AggregationFunction;
+import org.apache.pinot.core.query.request.context.QueryContext;
+import org.apache.pinot.core.util.GroupByUtils;
+import org.apache.pinot.spi.utils.CommonConstants.Broker.Request.QueryOptionValue;
+
+
+/**
+ * Combine operator for group-by queries with streaming response.
+ * <p>Instead of merging the groups of all the segments into a single indexed table, each worker thread merges the
+ * groups of the segments it processes into its own indexed table, and streams the table as a results block once it
+ * reaches the chunk size (or when there is no more segment to process). The same group can be returned in multiple
+ * results blocks, so this operator should only be used when the groups are merged again downstream (e.g. multi-stage
+ * leaf stage returning intermediate results to the aggregate stage).
+ */
+@SuppressWarnings("rawtypes")
+public class StreamingGroupByCombineOperator extends BaseStreamingCombineOperator<GroupByResultsBlock> {
+  private static final String EXPLAIN_NAME = "STREAMING_COMBINE_GROUP_BY";
+
+  private final int _numGroupByExpressions;
+  private final int _numColumns;
+  private final int _chunkSize;
+
+  public StreamingGroupByCombineOperator(List<Operator> operators, QueryContext queryContext,
+      ExecutorService executorService) {
+    super(null, operators, queryContext, executorService);
+    AggregationFunction[] aggregationFunctions = queryContext.getAggregationFunctions();
+    assert aggregationFunctions != null && queryContext.getGroupByExpressions() != null;
+    _numGroupByExpressions = queryContext.getGroupByExpressions().size();
+    _numColumns = _numGroupByExpressions + aggregationFunctions.length;
+    Integer chunkSize = QueryOptionsUtils.getStreamingGroupByChunkSize(queryContext.getQueryOptions());
+    _chunkSize = chunkSize != null ? chunkSize : QueryOptionValue.DEFAULT_STREAMING_GROUP_BY_CHUNK_SIZE;
+  }
+
+  /**
+   * Returns whether the group-by query can be streamed, i.e. it is enabled through the query option, and the partial
+   * groups returned by each results block are not trimmed or finalized on the server.
+   */
+  public static boolean canStream(QueryContext queryContext) {
+    return QueryOptionsUtils.isStreamingGroupBy(queryContext.getQueryOptions())
+        && queryContext.getGroupByExpressions() != null && queryContext.getOrderByExpressions() == null
+        && queryContext.getHavingFilter() == null && !queryContext.isAccurateGroupByWithoutOrderBy()
+        && !queryContext.isServerReturnFinalResult() && !queryContext.isServerReturnFinalResultKeyUnpartitioned();
+  }
+
+  @Override
+  public String toExplainString() {
+    return EXPLAIN_NAME;
+  }
+
+  @Override
+  protected void processSegments() {
+    IndexedTable indexedTable = null;
+    boolean numGroupsLimitReached = false;
+    boolean numGroupsWarningLimitReached = false;
+    // The LAST_RESULTS_BLOCK of the merged segments is added after the chunk containing their groups, so that the main
+    // thread does not finish before receiving all the chunks
+    int numPendingOperators = 0;
+    int operatorId;
+    while (_processingException.get() == null && (operatorId = _nextOperatorId.getAndIncrement()) < _numOperators) {
+      Operator operator = _operators.get(operatorId);
+      try {
+        if (operator instanceof AcquireReleaseColumnsSegmentOperator) {
+          ((AcquireReleaseColumnsSegmentOperator) operator).acquire();
+        }
+        GroupByResultsBlock resultsBlock = (GroupByResultsBlock) operator.nextBlock();
+        if (indexedTable == null) {
+          // The indexed table is only accessed by the current thread
+          indexedTable =
+              GroupByUtils.createIndexedTableForCombineOperator(resultsBlock, _queryContext, 1, _executorService);
+        }
+        numGroupsLimitReached |= resultsBlock.isNumGroupsLimitReached();
+        numGroupsWarningLimitReached |= resultsBlock.isNumGroupsWarningLimitReached();
+        GroupByUtils.mergeGroupByResultsBlock(indexedTable, resultsBlock, _numGroupByExpressions, _numColumns);
+      } catch (RuntimeException e) {
+        throw wrapOperatorException(operator, e);
+      } finally {
+        if (operator instanceof AcquireReleaseColumnsSegmentOperator) {
+          ((AcquireReleaseColumnsSegmentOperator) operator).release();
+        }
+      }
+      numPendingOperators++;
+      if (indexedTable.size() >= _chunkSize) {
+        addChunk(indexedTable, numGroupsLimitReached, numGroupsWarningLimitReached);
+        indexedTable = null;
+        numGroupsLimitReached = false;
+        numGroupsWarningLimitReached = false;
+        addLastResultsBlocks(numPendingOperators);
+        numPendingOperators = 0;
+      }
+    }
+    if (indexedTable != null && indexedTable.size() > 0) {
+      addChunk(indexedTable, numGroupsLimitReached, numGroupsWarningLimitReached);
+    }
+    addLastResultsBlocks(numPendingOperators);
+  }
+
+  private void addChunk(IndexedTable indexedTable, boolean numGroupsLimitReached,
+      boolean numGroupsWarningLimitReached) {
+    indexedTable.finish(false);
+    GroupByResultsBlock resultsBlock = new GroupByResultsBlock(indexedTable, _queryContext);
+    resultsBlock.setNumGroupsLimitReached(numGroupsLimitReached);
+    resultsBlock.setNumGroupsWarningLimitReached(numGroupsWarningLimitReached);
+    addResultsBlock(resultsBlock);
+  }
+
+  private void addLastResultsBlocks(int numOperators) {
+    for (int i = 0; i < numOperators; i++) {
+      addResultsBlock(LAST_RESULTS_BLOCK);
+    }
+  }
+
+  @Override
+  protected boolean isQuerySatisfied(GroupByResultsBlock resultsBlock, Object tracker) {
+    // All the segments need to be processed to get all the groups
+    return false;
+  }
+}
@@ -21,6 +21,7 @@ package org.apache.pinot.core.operator.transform.function;
 import com.google.common.base.Preconditions;
 import java.math.BigDecimal;
 import java.sql.Timestamp;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import org.apache.commons.lang3.ArrayUtils;
@@ -32,6 +33,7 @@ import org.apache.pinot.common.utils.PinotDataType;
 import org.apache.pinot.core.operator.ColumnContext;
 import org.apache.pinot.core.operator.blocks.ValueBlock;
 import org.apache.pinot.core.operator.transform.TransformResultMetadata;
+import org.apache.pinot.spi.annotations.ScalarFunction;
 import org.apache.pinot.spi.data.FieldSpec.DataType;
 import org.apache.pinot.spi.utils.ByteArray;
 import org.apache.pinot.spi.utils.CommonConstants.NullValuePlaceHolder;
@@ -39,6 +41,9 @@ import org.apache.pinot.spi.utils.CommonConstants.NullValuePlaceHolder;
 
 /**
  * Wrapper transform function on the annotated scalar function.
+ * <p>When the scalar function declares a batch kernel (see {@link ScalarFunction#batchMethod()}), the single-valued
+ * results are computed with one call to the batch kernel per block. Otherwise the scalar function is invoked once per
+ * row.
  */
 public class ScalarTransformFunctionWrapper extends BaseTransformFunction {
   private final String _name;
@@ -51,6 +56,10 @@ public class ScalarTransformFunctionWrapper extends BaseTransformFunction {
   private int[] _nonLiteralIndices;
   private TransformFunction[] _nonLiteralFunctions;
   private Object[][] _nonLiteralValues;
+  // Arguments for the batch kernel, null when the batch kernel cannot be used
+  private Object[] _batchArguments;
+  // Length of the arrays filled with the literal arguments for the batch kernel
+  private int _batchLiteralLength;
 
   public ScalarTransformFunctionWrapper(FunctionInfo functionInfo) {
     _name = functionInfo.getMethod().getName();
@@ -89,6 +98,7 @@ public class ScalarTransformFunctionWrapper extends BaseTransformFunction {
         parameterTypes.length, numArguments);
 
     _scalarArguments = new Object[numArguments];
+    boolean hasNullLiteral = false;
     _nonLiteralIndices = new int[numArguments];
     _nonLiteralFunctions = new TransformFunction[numArguments];
     for (int i = 0; i < numArguments; i++) {
@@ -139,6 +149,7 @@ public class ScalarTransformFunctionWrapper extends BaseTransformFunction {
             break;
           case UNKNOWN:
             _scalarArguments[i] = null;
+            hasNullLiteral = true;
             break;
           default:
             throw new RuntimeException("Unsupported data type:" + dataType);
@@ -150,6 +161,10 @@ public class ScalarTransformFunctionWrapper extends BaseTransformFunction {
       }
     }
     _nonLiteralValues = new Object[_numNonLiteralArguments][];
+    // Null literal is handled by the per row invocation
+    if (_functionInvoker.hasBatchMethod() && !hasNullLiteral) {
+      _batchArguments = new Object[numArguments];
+    }
   }
 
   @Override
@@ -164,6 +179,10 @@ public class ScalarTransformFunctionWrapper extends BaseTransformFunction {
     }
     int length = valueBlock.getNumDocs();
     initIntValuesSV(length);
+    if (_batchArguments != null) {
+      transformBatch(valueBlock, length, _intValuesSV);
+      return _intValuesSV;
+    }
     getNonLiteralValues(valueBlock);
     for (int i = 0; i < length; i++) {
       for (int j = 0; j < _numNonLiteralArguments; j++) {
@@ -182,6 +201,10 @@ public class ScalarTransformFunctionWrapper extends BaseTransformFunction {
     }
     int length = valueBlock.getNumDocs();
     initLongValuesSV(length);
+    if (_batchArguments != null) {
+      transformBatch(valueBlock, length, _longValuesSV);
+      return _longValuesSV;
+    }
     getNonLiteralValues(valueBlock);
     for (int i = 0; i < length; i++) {
       for (int j = 0; j < _numNonLiteralArguments; j++) {
@@ -200,6 +223,10 @@ public class ScalarTransformFunctionWrapper extends BaseTransformFunction {
     }
     int length = valueBlock.getNumDocs();
     initFloatValuesSV(length);
+    if (_batchArguments != null) {
+      transformBatch(valueBlock, length, _floatValuesSV);
+      return _floatValuesSV;
+    }
     getNonLiteralValues(valueBlock);
     for (int i = 0; i < length; i++) {
       for (int j = 0; j < _numNonLiteralArguments; j++) {
@@ -219,6 +246,10 @@ public class ScalarTransformFunctionWrapper extends BaseTransformFunction {
     }
     int length = valueBlock.getNumDocs();
     initDoubleValuesSV(length);
+    if (_batchArguments != null) {
+      transformBatch(valueBlock, length, _doubleValuesSV);
+      return _doubleValuesSV;
+    }
     getNonLiteralValues(valueBlock);
     for (int i = 0; i < length; i++) {
       for (int j = 0; j < _numNonLiteralArguments; j++) {
@@ -257,6 +288,15 @@ public class ScalarTransformFunctionWrapper extends BaseTransformFunction {
     }
     int length = valueBlock.getNumDocs();
     initStringValuesSV(length);
+    if (_batchArguments != null) {
+      transformBatch(valueBlock, length, _stringValuesSV);
+      for (int i = 0; i < length; i++) {
+        if (_stringValuesSV[i] == null) {
+          _stringValuesSV[i] = NullValuePlaceHolder.STRING;
+        }
+      }
+      return _stringValuesSV;
+    }
     getNonLiteralValues(valueBlock);
     for (int i = 0; i < length; i++) {
       for (int j = 0; j < _numNonLiteralArguments; j++) {
@@ -374,6 +414,80 @@ public class ScalarTransformFunctionWrapper extends BaseTransformFunction {
     return _stringValuesMV;
   }
 
+  /**
+   * Helper method to compute the results with the batch kernel of the scalar function.
+   */
+  private void transformBatch(ValueBlock valueBlock, int length, Object results) {
+    Class<?>[] parameterClasses = _functionInvoker.getParameterClasses();
+    if (_batchLiteralLength < length) {
+      fillLiteralBatchArguments(parameterClasses, length);
+    }
+    for (int i = 0; i < _numNonLiteralArguments; i++) {
+      int index = _nonLiteralIndices[i];
+      Class<?> parameterClass = parameterClasses[index];
+      TransformFunction transformFunction = _nonLiteralFunctions[i];
+      if (parameterClass == int.class) {
+        _batchArguments[index] = transformFunction.transformToIntValuesSV(valueBlock);
+      } else if (parameterClass == long.class) {
+        _batchArguments[index] = transformFunction.transformToLongValuesSV(valueBlock);
+      } else if (parameterClass == float.class) {
+        _batchArguments[index] = transformFunction.transformToFloatValuesSV(valueBlock);
+      } else if (parameterClass == double.class) {
+        _batchArguments[index] = transformFunction.transformToDoubleValuesSV(valueBlock);
+      } else if (parameterClass == String.class) {
+        _batchArguments[index] = transformFunction.transformToStringValuesSV(valueBlock);
+      } else {
+        assert parameterClass == byte[].class;
+        _batchArguments[index] = transformFunction.transformToBytesValuesSV(valueBlock);
+      }
+    }
+    _functionInvoker.invokeBatch(length, _batchArguments, results);
+  }
+
+  /**
+   * Helper method to expand the literal arguments into arrays for the batch kernel. The arrays are only re-created
+   * when a larger block is processed.
+   */
+  private void fillLiteralBatchArguments(Class<?>[] parameterClasses, int length) {
+    int numArguments = _scalarArguments.length;
+    int nonLiteralIndex = 0;
+    for (int i = 0; i < numArguments; i++) {
+      if (nonLiteralIndex < _numNonLiteralArguments && _nonLiteralIndices[nonLiteralIndex] == i) {
+        nonLiteralIndex++;
+        continue;
+      }
+      Class<?> parameterClass = parameterClasses[i];
+      Object literal = _scalarArguments[i];
+      if (parameterClass == int.class) {
+        int[] values = new int[length];
+        Arrays.fill(values, ((Number) literal).intValue());
+        _batchArguments[i] = values;
+      } else if (parameterClass == long.class) {
+        long[] values = new long[length];
+        Arrays.fill(values, ((Number) literal).longValue());
+        _batchArguments[i] = values;
+      } else if (parameterClass == float.class) {
+        float[] values = new float[length];
+        Arrays.fill(values, ((Number) literal).floatValue());
+        _batchArguments[i] = values;
+      } else if (parameterClass == double.class) {
+        double[] values = new double[length];
+        Arrays.fill(values, ((Number) literal).doubleValue());
+        _batchArguments[i] = values;
+      } else if (parameterClass == String.class) {
+        String[] values = new String[length];
+        Arrays.fill(values, literal);
+        _batchArguments[i] = values;
+      } else {
+        assert parameterClass == byte[].class;
+        byte[][] values = new byte[length][];
+        Arrays.fill(values, literal);
+        _batchArguments[i] = values;
+      }
+    }
+    _batchLiteralLength = length;
+  }
+
   /**
    * Helper method to fetch values for the non-literal transform functions based on the parameter types.
    */
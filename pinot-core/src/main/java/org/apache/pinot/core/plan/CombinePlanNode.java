@@ -34,6 +34,7 @@ import org.apache.pinot.core.operator.combine.SelectionOnlyCombineOperator;
 import org.apache.pinot.core.operator.combine.SelectionOrderByCombineOperator;
 import org.apache.pinot.core.operator.combine.SequentialSortedGroupByCombineOperator;
 import org.apache.pinot.core.operator.combine.SortedGroupByCombineOperator;
+import org.apache.pinot.core.operator.streaming.StreamingGroupByCombineOperator;
 import org.apache.pinot.core.operator.streaming.StreamingSelectionOnlyCombineOperator;
 import org.apache.pinot.core.query.executor.ResultsBlockStreamer;
 import org.apache.pinot.core.query.request.context.QueryContext;
@@ -129,6 +130,10 @@ public class CombinePlanNode implements PlanNode {
           && QueryContextUtils.isSelectionOnlyQuery(_queryContext) && _queryContext.getLimit() != 0) {
       // Use streaming operator only for non-empty selection-only query
       return new StreamingSelectionOnlyCombineOperator(operators, _queryContext, _executorService);
+    } else if (_streamer != null && QueryContextUtils.isAggregationQuery(_queryContext)
+        && StreamingGroupByCombineOperator.canStream(_queryContext)) {
+      // Stream the partial groups in chunks when enabled
+      return new StreamingGroupByCombineOperator(operators, _queryContext, _executorService);
     } else {
       if (QueryContextUtils.isAggregationQuery(_queryContext)) {
         if (_queryContext.getGroupByExpressions() == null) {
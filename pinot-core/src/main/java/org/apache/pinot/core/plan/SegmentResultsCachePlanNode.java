@@ -0,0 +1,62 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.plan;
+
+import org.apache.pinot.core.common.Operator;
+import org.apache.pinot.core.operator.blocks.results.BaseResultsBlock;
+import org.apache.pinot.core.operator.query.SegmentResultsCacheOperator;
+import org.apache.pinot.core.query.cache.CachedSegmentResults;
+import org.apache.pinot.core.query.cache.SegmentResultsCache;
+import org.apache.pinot.core.query.request.context.QueryContext;
+import org.apache.pinot.segment.spi.IndexSegment;
+
+
+/**
+ * A wrapper of the segment-level plan node which serves the segment results from the {@link SegmentResultsCache}.
+ * When the results are cached, the child plan node is not run, so that no work is done on the segment.
+ */
+public class SegmentResultsCachePlanNode implements PlanNode {
+  private final PlanNode _childPlanNode;
+  private final SegmentResultsCache _cache;
+  private final String _tableNameWithType;
+  private final IndexSegment _indexSegment;
+  private final String _queryKey;
+  private final QueryContext _queryContext;
+
+  public SegmentResultsCachePlanNode(PlanNode childPlanNode, SegmentResultsCache cache, String tableNameWithType,
+      IndexSegment indexSegment, String queryKey, QueryContext queryContext) {
+    _childPlanNode = childPlanNode;
+    _cache = cache;
+    _tableNameWithType = tableNameWithType;
+    _indexSegment = indexSegment;
+    _queryKey = queryKey;
+    _queryContext = queryContext;
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public SegmentResultsCacheOperator run() {
+    CachedSegmentResults cachedResults = _cache.get(_tableNameWithType, _indexSegment, _queryKey);
+    if (cachedResults != null) {
+      return new SegmentResultsCacheOperator(cachedResults, _indexSegment, _queryContext);
+    }
+    return new SegmentResultsCacheOperator((Operator<BaseResultsBlock>) _childPlanNode.run(), _cache,
+        _tableNameWithType, _indexSegment, _queryKey);
+  }
+}
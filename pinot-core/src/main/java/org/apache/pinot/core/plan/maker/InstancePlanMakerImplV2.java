@@ -25,6 +25,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutorService;
+import javax.annotation.Nullable;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.collections4.MapUtils;
 import org.apache.commons.lang3.tuple.Pair;
@@ -43,10 +44,12 @@ import org.apache.pinot.core.plan.GroupByPlanNode;
 import org.apache.pinot.core.plan.InstanceResponsePlanNode;
 import org.apache.pinot.core.plan.Plan;
 import org.apache.pinot.core.plan.PlanNode;
+import org.apache.pinot.core.plan.SegmentResultsCachePlanNode;
 import org.apache.pinot.core.plan.SelectionPlanNode;
 import org.apache.pinot.core.plan.StreamingInstanceResponsePlanNode;
 import org.apache.pinot.core.plan.StreamingSelectionPlanNode;
 import org.apache.pinot.core.query.aggregation.function.AggregationFunction;
+import org.apache.pinot.core.query.cache.SegmentResultsCache;
 import org.apache.pinot.core.query.executor.ResultsBlockStreamer;
 import org.apache.pinot.core.query.prefetch.FetchPlanner;
 import org.apache.pinot.core.query.prefetch.FetchPlannerRegistry;
@@ -185,6 +188,9 @@ public class InstancePlanMakerImplV2 implements PlanMaker {
 
     int numSegments = segmentContexts.size();
     List<PlanNode> planNodes = new ArrayList<>(numSegments);
+    SegmentResultsCache segmentResultsCache = SegmentResultsCache.getInstance();
+    String segmentResultsCacheQueryKey =
+        segmentResultsCache != null ? SegmentResultsCache.getQueryKey(queryContext) : null;
     List<FetchContext> fetchContexts;
     if (queryContext.isEnablePrefetch()) {
       fetchContexts = new ArrayList<>(numSegments);
@@ -192,14 +198,15 @@ public class InstancePlanMakerImplV2 implements PlanMaker {
         FetchContext fetchContext =
             _fetchPlanner.planFetchForProcessing(segmentContext.getIndexSegment(), queryContext);
         fetchContexts.add(fetchContext);
-        planNodes.add(
-            new AcquireReleaseColumnsSegmentPlanNode(makeSegmentPlanNode(segmentContext, queryContext), segmentContext,
-                fetchContext));
+        planNodes.add(new AcquireReleaseColumnsSegmentPlanNode(
+            makeSegmentPlanNode(segmentContext, queryContext, segmentResultsCache, segmentResultsCacheQueryKey),
+            segmentContext, fetchContext));
       }
     } else {
       fetchContexts = Collections.emptyList();
       for (SegmentContext segmentContext : segmentContexts) {
-        planNodes.add(makeSegmentPlanNode(segmentContext, queryContext));
+        planNodes.add(
+            makeSegmentPlanNode(segmentContext, queryContext, segmentResultsCache, segmentResultsCacheQueryKey));
       }
     }
 
@@ -208,6 +215,21 @@ public class InstancePlanMakerImplV2 implements PlanMaker {
         new InstanceResponsePlanNode(combinePlanNode, segmentContexts, fetchContexts, queryContext));
   }
 
+  /**
+   * Makes the segment plan node, wrapped with the segment results cache when the query and the segment are cacheable.
+   */
+  private PlanNode makeSegmentPlanNode(SegmentContext segmentContext, QueryContext queryContext,
+      @Nullable SegmentResultsCache segmentResultsCache, @Nullable String segmentResultsCacheQueryKey) {
+    PlanNode planNode = makeSegmentPlanNode(segmentContext, queryContext);
+    IndexSegment indexSegment = segmentContext.getIndexSegment();
+    if (segmentResultsCache != null && segmentResultsCacheQueryKey != null && SegmentResultsCache.isCacheable(
+        indexSegment)) {
+      return new SegmentResultsCachePlanNode(planNode, segmentResultsCache, queryContext.getTableName(),
+          indexSegment, segmentResultsCacheQueryKey, queryContext);
+    }
+    return planNode;
+  }
+
   private void applyQueryOptions(QueryContext queryContext) {
     Map<String, String> queryOptions = queryContext.getQueryOptions();
 
@@ -0,0 +1,251 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.query.cache;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import javax.annotation.Nullable;
+import org.apache.commons.collections4.CollectionUtils;
+import org.apache.pinot.common.CustomObject;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
+import org.apache.pinot.core.data.table.IntermediateRecord;
+import org.apache.pinot.core.data.table.Key;
+import org.apache.pinot.core.data.table.Record;
+import org.apache.pinot.core.operator.ExecutionStatistics;
+import org.apache.pinot.core.operator.blocks.results.AggregationResultsBlock;
+import org.apache.pinot.core.operator.blocks.results.BaseResultsBlock;
+import org.apache.pinot.core.operator.blocks.results.GroupByResultsBlock;
+import org.apache.pinot.core.query.aggregation.function.AggregationFunction;
+import org.apache.pinot.core.query.aggregation.function.AggregationFunction.SerializedIntermediateResult;
+import org.apache.pinot.core.query.aggregation.groupby.AggregationGroupByResult;
+import org.apache.pinot.core.query.aggregation.groupby.GroupKeyGenerator;
+import org.apache.pinot.core.query.request.context.QueryContext;
+
+
+/**
+ * Segment level intermediate results cached in {@link SegmentResultsCache}.
+ * <p>
+ * Intermediate results of {@link ColumnDataType#OBJECT} type are stored serialized and deserialized each time the
+ * results block is re-created, so that the returned results block never shares mutable objects with the cache.
+ */
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class CachedSegmentResults {
+  // Rough per object overhead used to estimate the size of the cached results
+  private static final int OBJECT_OVERHEAD_BYTES = 16;
+
+  // For aggregation only queries
+  private final Object[] _aggregationResults;
+  // For group-by queries, each row contains the group-by values followed by the aggregation results
+  private final DataSchema _dataSchema;
+  private final List<Object[]> _groupByRows;
+  private final boolean _groupsTrimmed;
+  private final boolean _numGroupsLimitReached;
+  private final boolean _numGroupsWarningLimitReached;
+
+  private final ExecutionStatistics _executionStatistics;
+  private final long _estimatedSizeInBytes;
+
+  private CachedSegmentResults(@Nullable Object[] aggregationResults, @Nullable DataSchema dataSchema,
+      @Nullable List<Object[]> groupByRows, boolean groupsTrimmed, boolean numGroupsLimitReached,
+      boolean numGroupsWarningLimitReached, ExecutionStatistics executionStatistics, long estimatedSizeInBytes) {
+    _aggregationResults = aggregationResults;
+    _dataSchema = dataSchema;
+    _groupByRows = groupByRows;
+    _groupsTrimmed = groupsTrimmed;
+    _numGroupsLimitReached = numGroupsLimitReached;
+    _numGroupsWarningLimitReached = numGroupsWarningLimitReached;
+    _executionStatistics = executionStatistics;
+    _estimatedSizeInBytes = estimatedSizeInBytes;
+  }
+
+  /**
+   * Creates the cached results from the given segment level results block, or returns {@code null} if the results
+   * block cannot be cached.
+   * <p>NOTE: For group-by results block backed by {@link AggregationGroupByResult}, the group key generator is not
+   * closed, and the results block can still be consumed after this method returns.
+   */
+  @Nullable
+  public static CachedSegmentResults fromResultsBlock(BaseResultsBlock resultsBlock,
+      ExecutionStatistics executionStatistics) {
+    if (CollectionUtils.isNotEmpty(resultsBlock.getErrorMessages())) {
+      return null;
+    }
+    try {
+      if (resultsBlock instanceof AggregationResultsBlock) {
+        return fromAggregationResultsBlock((AggregationResultsBlock) resultsBlock, executionStatistics);
+      }
+      if (resultsBlock instanceof GroupByResultsBlock) {
+        return fromGroupByResultsBlock((GroupByResultsBlock) resultsBlock, executionStatistics);
+      }
+    } catch (UnsupportedOperationException e) {
+      // Intermediate result cannot be serialized
+    }
+    return null;
+  }
+
+  private static CachedSegmentResults fromAggregationResultsBlock(AggregationResultsBlock resultsBlock,
+      ExecutionStatistics executionStatistics) {
+    AggregationFunction[] aggregationFunctions = resultsBlock.getAggregationFunctions();
+    List<Object> results = resultsBlock.getResults();
+    int numResults = results.size();
+    Object[] aggregationResults = new Object[numResults];
+    long estimatedSizeInBytes = OBJECT_OVERHEAD_BYTES;
+    for (int i = 0; i < numResults; i++) {
+      aggregationResults[i] = toCachedValue(aggregationFunctions[i], results.get(i));
+      estimatedSizeInBytes += getEstimatedSizeInBytes(aggregationResults[i]);
+    }
+    return new CachedSegmentResults(aggregationResults, null, null, false, false, false, executionStatistics,
+        estimatedSizeInBytes);
+  }
+
+  private static CachedSegmentResults fromGroupByResultsBlock(GroupByResultsBlock resultsBlock,
+      ExecutionStatistics executionStatistics) {
+    QueryContext queryContext = resultsBlock.getQueryContext();
+    AggregationFunction[] aggregationFunctions = queryContext.getAggregationFunctions();
+    assert aggregationFunctions != null && queryContext.getGroupByExpressions() != null;
+    int numAggregationFunctions = aggregationFunctions.length;
+    int numGroupByExpressions = queryContext.getGroupByExpressions().size();
+    int numColumns = numGroupByExpressions + numAggregationFunctions;
+
+    List<Object[]> groupByRows;
+    List<IntermediateRecord> intermediateRecords = resultsBlock.getIntermediateRecords();
+    if (intermediateRecords != null) {
+      groupByRows = new ArrayList<>(intermediateRecords.size());
+      for (IntermediateRecord intermediateRecord : intermediateRecords) {
+        groupByRows.add(toCachedRow(aggregationFunctions, numGroupByExpressions,
+            intermediateRecord._record.getValues()));
+      }
+    } else {
+      AggregationGroupByResult aggregationGroupByResult = resultsBlock.getAggregationGroupByResult();
+      if (aggregationGroupByResult == null) {
+        return null;
+      }
+      groupByRows = new ArrayList<>(aggregationGroupByResult.getNumGroups());
+      Iterator<GroupKeyGenerator.GroupKey> groupKeyIterator = aggregationGroupByResult.getGroupKeyIterator();
+      while (groupKeyIterator.hasNext()) {
+        GroupKeyGenerator.GroupKey groupKey = groupKeyIterator.next();
+        Object[] values = Arrays.copyOf(groupKey._keys, numColumns);
+        for (int i = 0; i < numAggregationFunctions; i++) {
+          values[numGroupByExpressions + i] = aggregationGroupByResult.getResultForGroupId(i, groupKey._groupId);
+        }
+        groupByRows.add(toCachedRow(aggregationFunctions, numGroupByExpressions, values));
+      }
+    }
+
+    long estimatedSizeInBytes = OBJECT_OVERHEAD_BYTES;
+    for (Object[] row : groupByRows) {
+      estimatedSizeInBytes += OBJECT_OVERHEAD_BYTES;
+      for (Object value : row) {
+        estimatedSizeInBytes += getEstimatedSizeInBytes(value);
+      }
+    }
+    return new CachedSegmentResults(null, resultsBlock.getDataSchema(), groupByRows, resultsBlock.isGroupsTrimmed(),
+        resultsBlock.isNumGroupsLimitReached(), resultsBlock.isNumGroupsWarningLimitReached(), executionStatistics,
+        estimatedSizeInBytes);
+  }
+
+  private static Object[] toCachedRow(AggregationFunction[] aggregationFunctions, int numGroupByExpressions,
+      Object[] values) {
+    Object[] row = Arrays.copyOf(values, values.length);
+    for (int i = 0; i < aggregationFunctions.length; i++) {
+      int index = numGroupByExpressions + i;
+      row[index] = toCachedValue(aggregationFunctions[i], row[index]);
+    }
+    return row;
+  }
+
+  @Nullable
+  private static Object toCachedValue(AggregationFunction aggregationFunction, @Nullable Object intermediateResult) {
+    if (intermediateResult != null
+        && aggregationFunction.getIntermediateResultColumnType() == ColumnDataType.OBJECT) {
+      return aggregationFunction.serializeIntermediateResult(intermediateResult);
+    }
+    // Non-object intermediate results (INT, LONG, DOUBLE, STRING) are immutable
+    return intermediateResult;
+  }
+
+  @Nullable
+  private static Object fromCachedValue(AggregationFunction aggregationFunction, @Nullable Object cachedValue) {
+    if (cachedValue instanceof SerializedIntermediateResult) {
+      SerializedIntermediateResult serializedResult = (SerializedIntermediateResult) cachedValue;
+      return aggregationFunction.deserializeIntermediateResult(
+          new CustomObject(serializedResult.getType(), ByteBuffer.wrap(serializedResult.getBytes())));
+    }
+    return cachedValue;
+  }
+
+  private static long getEstimatedSizeInBytes(@Nullable Object value) {
+    if (value instanceof SerializedIntermediateResult) {
+      return OBJECT_OVERHEAD_BYTES + ((SerializedIntermediateResult) value).getBytes().length;
+    }
+    if (value instanceof String) {
+      return OBJECT_OVERHEAD_BYTES + 2L * ((String) value).length();
+    }
+    return OBJECT_OVERHEAD_BYTES;
+  }
+
+  /**
+   * Re-creates the segment level results block for the given query.
+   */
+  public BaseResultsBlock toResultsBlock(QueryContext queryContext) {
+    AggregationFunction[] aggregationFunctions = queryContext.getAggregationFunctions();
+    assert aggregationFunctions != null;
+    if (_aggregationResults != null) {
+      int numResults = _aggregationResults.length;
+      List<Object> results = new ArrayList<>(numResults);
+      for (int i = 0; i < numResults; i++) {
+        results.add(fromCachedValue(aggregationFunctions[i], _aggregationResults[i]));
+      }
+      return new AggregationResultsBlock(aggregationFunctions, results, queryContext);
+    }
+
+    assert _groupByRows != null && queryContext.getGroupByExpressions() != null;
+    int numGroupByExpressions = queryContext.getGroupByExpressions().size();
+    List<IntermediateRecord> intermediateRecords = new ArrayList<>(_groupByRows.size());
+    for (Object[] row : _groupByRows) {
+      Object[] values = Arrays.copyOf(row, row.length);
+      for (int i = 0; i < aggregationFunctions.length; i++) {
+        int index = numGroupByExpressions + i;
+        values[index] = fromCachedValue(aggregationFunctions[i], values[index]);
+      }
+      Key key = new Key(Arrays.copyOf(row, numGroupByExpressions));
+      intermediateRecords.add(IntermediateRecord.withoutOrderByValues(key, new Record(values)));
+    }
+    GroupByResultsBlock resultsBlock = new GroupByResultsBlock(_dataSchema, intermediateRecords, queryContext);
+    resultsBlock.setGroupsTrimmed(_groupsTrimmed);
+    resultsBlock.setNumGroupsLimitReached(_numGroupsLimitReached);
+    resultsBlock.setNumGroupsWarningLimitReached(_numGroupsWarningLimitReached);
+    return resultsBlock;
+  }
+
+  /**
+   * Returns the execution statistics of the segment when the results were computed.
+   */
+  public ExecutionStatistics getExecutionStatistics() {
+    return _executionStatistics;
+  }
+
+  public long getEstimatedSizeInBytes() {
+    return _estimatedSizeInBytes;
+  }
+}
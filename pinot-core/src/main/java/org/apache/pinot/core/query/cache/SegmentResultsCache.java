@@ -0,0 +1,218 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.query.cache;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.util.List;
+import java.util.Objects;
+import javax.annotation.Nullable;
+import org.apache.pinot.common.metrics.ServerMeter;
+import org.apache.pinot.common.metrics.ServerMetrics;
+import org.apache.pinot.core.operator.ExecutionStatistics;
+import org.apache.pinot.core.operator.blocks.results.BaseResultsBlock;
+import org.apache.pinot.core.query.request.context.QueryContext;
+import org.apache.pinot.core.query.request.context.utils.QueryContextUtils;
+import org.apache.pinot.segment.spi.ImmutableSegment;
+import org.apache.pinot.segment.spi.IndexSegment;
+import org.apache.pinot.spi.env.PinotConfiguration;
+import org.apache.pinot.spi.utils.CommonConstants.Server;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Server side cache of the segment level intermediate results (before combine) for aggregation and group-by queries
+ * on immutable segments.
+ * <p>
+ * An entry is keyed on the table name, segment name and CRC, and a canonical form of the query parts that affect the
+ * segment level results (select expressions, filter, group-by, order-by, limit and the segment level group trim
+ * settings). The intermediate results are stored in a form that is not shared with the combine operator (objects
+ * intermediate results are stored serialized), so that the merge performed by the combine operator cannot modify the
+ * cached values.
+ * <p>
+ * Segments with valid doc ids (upsert tables) and mutable (consuming) segments are never cached because their results
+ * can change without the segment being replaced. The entries of a segment are invalidated when the segment is
+ * replaced, reloaded or removed.
+ * <p>
+ * The cache is disabled by default, and can be enabled through the query executor config.
+ */
+public class SegmentResultsCache {
+  private static final Logger LOGGER = LoggerFactory.getLogger(SegmentResultsCache.class);
+
+  private static volatile SegmentResultsCache _instance;
+
+  private final Cache<Key, CachedSegmentResults> _cache;
+
+  @VisibleForTesting
+  public SegmentResultsCache(long maxSizeBytes) {
+    _cache = CacheBuilder.newBuilder()
+        .maximumWeight(maxSizeBytes)
+        .weigher((Key key, CachedSegmentResults value) -> (int) Math.min(Integer.MAX_VALUE,
+            key._queryKey.length() * 2L + value.getEstimatedSizeInBytes()))
+        .build();
+  }
+
+  /**
+   * Initializes the cache from the query executor config. The cache is only created when it is enabled.
+   */
+  public static void init(PinotConfiguration queryExecutorConfig) {
+    if (queryExecutorConfig.getProperty(Server.SEGMENT_RESULTS_CACHE_ENABLED,
+        Server.DEFAULT_SEGMENT_RESULTS_CACHE_ENABLED)) {
+      long maxSizeBytes = queryExecutorConfig.getProperty(Server.SEGMENT_RESULTS_CACHE_MAX_SIZE_BYTES,
+          Server.DEFAULT_SEGMENT_RESULTS_CACHE_MAX_SIZE_BYTES);
+      LOGGER.info("Enabling segment results cache with max size: {} bytes", maxSizeBytes);
+      _instance = new SegmentResultsCache(maxSizeBytes);
+    } else {
+      _instance = null;
+    }
+  }
+
+  /**
+   * Returns the cache, or {@code null} if it is not enabled.
+   */
+  @Nullable
+  public static SegmentResultsCache getInstance() {
+    return _instance;
+  }
+
+  @VisibleForTesting
+  public static void setInstance(@Nullable SegmentResultsCache instance) {
+    _instance = instance;
+  }
+
+  /**
+   * Invalidates the cached results for the given segment if the cache is enabled. This should be invoked when the
+   * segment is replaced, reloaded or removed.
+   */
+  public static void invalidateSegmentIfEnabled(String tableNameWithType, String segmentName) {
+    SegmentResultsCache instance = _instance;
+    if (instance != null) {
+      instance.invalidateSegment(tableNameWithType, segmentName);
+    }
+  }
+
+  /**
+   * Returns the canonical form of the query used as part of the cache key, or {@code null} if the query is not
+   * cacheable (only aggregation and group-by queries are cacheable).
+   */
+  @Nullable
+  public static String getQueryKey(QueryContext queryContext) {
+    if (queryContext.isExplain() || !QueryContextUtils.isAggregationQuery(queryContext)) {
+      return null;
+    }
+    StringBuilder stringBuilder = new StringBuilder();
+    stringBuilder.append(queryContext.getSelectExpressions()).append('|').append(queryContext.getFilter()).append('|');
+    List<?> groupByExpressions = queryContext.getGroupByExpressions();
+    if (groupByExpressions != null) {
+      stringBuilder.append(groupByExpressions).append('|').append(queryContext.getOrderByExpressions()).append('|')
+          .append(queryContext.getLimit()).append('|').append(queryContext.getNumGroupsLimit()).append('|')
+          .append(queryContext.getNumGroupsWarningLimit()).append('|')
+          .append(queryContext.getEffectiveSegmentGroupTrimSize()).append('|')
+          .append(queryContext.shouldSortAggregateUnderSafeTrim()).append('|');
+    }
+    stringBuilder.append(queryContext.isNullHandlingEnabled()).append('|')
+        .append(queryContext.getExpressionOverrideHints());
+    return stringBuilder.toString();
+  }
+
+  /**
+   * Returns {@code true} if the results of the given segment can be cached.
+   */
+  public static boolean isCacheable(IndexSegment indexSegment) {
+    return indexSegment instanceof ImmutableSegment && indexSegment.getValidDocIds() == null
+        && indexSegment.getQueryableDocIds() == null;
+  }
+
+  /**
+   * Returns the cached results for the given segment and query, or {@code null} if not cached.
+   */
+  @Nullable
+  public CachedSegmentResults get(String tableNameWithType, IndexSegment indexSegment, String queryKey) {
+    CachedSegmentResults cachedResults = _cache.getIfPresent(getKey(tableNameWithType, indexSegment, queryKey));
+    ServerMetrics.get().addMeteredGlobalValue(
+        cachedResults != null ? ServerMeter.SEGMENT_RESULTS_CACHE_HITS : ServerMeter.SEGMENT_RESULTS_CACHE_MISSES, 1);
+    return cachedResults;
+  }
+
+  /**
+   * Caches the given segment level results block, and returns the cached results, or {@code null} if the results block
+   * cannot be cached.
+   */
+  @Nullable
+  public CachedSegmentResults put(String tableNameWithType, IndexSegment indexSegment, String queryKey,
+      BaseResultsBlock resultsBlock, ExecutionStatistics executionStatistics) {
+    CachedSegmentResults cachedResults = CachedSegmentResults.fromResultsBlock(resultsBlock, executionStatistics);
+    if (cachedResults != null) {
+      _cache.put(getKey(tableNameWithType, indexSegment, queryKey), cachedResults);
+    }
+    return cachedResults;
+  }
+
+  /**
+   * Invalidates the cached results for the given segment.
+   */
+  public void invalidateSegment(String tableNameWithType, String segmentName) {
+    _cache.asMap().keySet().removeIf(
+        key -> key._segmentName.equals(segmentName) && key._tableNameWithType.equals(tableNameWithType));
+  }
+
+  @VisibleForTesting
+  long size() {
+    return _cache.size();
+  }
+
+  private static Key getKey(String tableNameWithType, IndexSegment indexSegment, String queryKey) {
+    return new Key(tableNameWithType, indexSegment.getSegmentName(), indexSegment.getSegmentMetadata().getCrc(),
+        queryKey);
+  }
+
+  private static final class Key {
+    final String _tableNameWithType;
+    final String _segmentName;
+    final String _crc;
+    final String _queryKey;
+
+    Key(String tableNameWithType, String segmentName, String crc, String queryKey) {
+      _tableNameWithType = tableNameWithType;
+      _segmentName = segmentName;
+      _crc = crc;
+      _queryKey = queryKey;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key key = (Key) o;
+      return _tableNameWithType.equals(key._tableNameWithType) && _segmentName.equals(key._segmentName)
+          && Objects.equals(_crc, key._crc) && _queryKey.equals(key._queryKey);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(_tableNameWithType, _segmentName, _crc, _queryKey);
+    }
+  }
+}
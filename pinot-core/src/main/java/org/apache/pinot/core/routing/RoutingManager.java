@@ -112,6 +112,15 @@ public interface RoutingManager {
   @Nullable
   TablePartitionReplicatedServersInfo getTablePartitionReplicatedServersInfo(String tableNameWithType);
 
+  /**
+   * Returns the total number of documents of the online segments for a given table based on the segment ZK metadata,
+   * or {@code null} if it is not tracked or unknown (e.g. some segments are still consuming).
+   */
+  @Nullable
+  default Long getTableNumDocs(String tableNameWithType) {
+    return null;
+  }
+
   /**
    * Returns the enabled server instances currently serving the given table.
    */
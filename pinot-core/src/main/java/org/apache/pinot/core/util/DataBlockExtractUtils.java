@@ -25,6 +25,7 @@ import java.util.Arrays;
 import java.util.List;
 import javax.annotation.Nullable;
 import org.apache.pinot.common.CustomObject;
+import org.apache.pinot.common.datablock.ColumnarDataBlock;
 import org.apache.pinot.common.datablock.DataBlock;
 import org.apache.pinot.common.utils.DataSchema;
 import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
@@ -234,6 +235,10 @@ public final class DataBlockExtractUtils {
   public static int[] extractIntColumn(DataType storedType, DataBlock dataBlock, int colId,
       @Nullable RoaringBitmap nullBitmap) {
     int numRows = dataBlock.getNumberOfRows();
+    if (storedType == DataType.INT && numRows > 0 && dataBlock instanceof ColumnarDataBlock) {
+      // NOTE: Null values are stored as the null placeholder (0), which is the same as the default value
+      return ((ColumnarDataBlock) dataBlock).getIntColumn(colId);
+    }
     int[] values = new int[numRows];
     if (numRows == 0 || storedType == DataType.UNKNOWN) {
       return values;
@@ -317,6 +322,10 @@ public final class DataBlockExtractUtils {
   public static long[] extractLongColumn(DataType storedType, DataBlock dataBlock, int colId,
       @Nullable RoaringBitmap nullBitmap) {
     int numRows = dataBlock.getNumberOfRows();
+    if (storedType == DataType.LONG && numRows > 0 && dataBlock instanceof ColumnarDataBlock) {
+      // NOTE: Null values are stored as the null placeholder (0), which is the same as the default value
+      return ((ColumnarDataBlock) dataBlock).getLongColumn(colId);
+    }
     long[] values = new long[numRows];
     if (numRows == 0 || storedType == DataType.UNKNOWN) {
       return values;
@@ -400,6 +409,10 @@ public final class DataBlockExtractUtils {
   public static float[] extractFloatColumn(DataType storedType, DataBlock dataBlock, int colId,
       @Nullable RoaringBitmap nullBitmap) {
     int numRows = dataBlock.getNumberOfRows();
+    if (storedType == DataType.FLOAT && numRows > 0 && dataBlock instanceof ColumnarDataBlock) {
+      // NOTE: Null values are stored as the null placeholder (0), which is the same as the default value
+      return ((ColumnarDataBlock) dataBlock).getFloatColumn(colId);
+    }
     float[] values = new float[numRows];
     if (numRows == 0 || storedType == DataType.UNKNOWN) {
       return values;
@@ -483,6 +496,10 @@ public final class DataBlockExtractUtils {
   public static double[] extractDoubleColumn(DataType storedType, DataBlock dataBlock, int colId,
       @Nullable RoaringBitmap nullBitmap) {
     int numRows = dataBlock.getNumberOfRows();
+    if (storedType == DataType.DOUBLE && numRows > 0 && dataBlock instanceof ColumnarDataBlock) {
+      // NOTE: Null values are stored as the null placeholder (0), which is the same as the default value
+      return ((ColumnarDataBlock) dataBlock).getDoubleColumn(colId);
+    }
     double[] values = new double[numRows];
     if (numRows == 0 || storedType == DataType.UNKNOWN) {
       return values;
@@ -19,7 +19,9 @@
 package org.apache.pinot.core.util;
 
 import com.google.common.annotations.VisibleForTesting;
+import java.util.Arrays;
 import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
 import org.apache.pinot.common.datatable.DataTable;
@@ -29,12 +31,15 @@ import org.apache.pinot.core.data.table.ConcurrentIndexedTable;
 import org.apache.pinot.core.data.table.DeterministicConcurrentIndexedTable;
 import org.apache.pinot.core.data.table.IndexedTable;
 import org.apache.pinot.core.data.table.IntermediateRecord;
+import org.apache.pinot.core.data.table.Key;
 import org.apache.pinot.core.data.table.Record;
 import org.apache.pinot.core.data.table.SimpleIndexedTable;
 import org.apache.pinot.core.data.table.SortedRecords;
 import org.apache.pinot.core.data.table.SortedRecordsMerger;
 import org.apache.pinot.core.data.table.UnboundedConcurrentIndexedTable;
 import org.apache.pinot.core.operator.blocks.results.GroupByResultsBlock;
+import org.apache.pinot.core.query.aggregation.groupby.AggregationGroupByResult;
+import org.apache.pinot.core.query.aggregation.groupby.GroupKeyGenerator;
 import org.apache.pinot.core.query.reduce.DataTableReducerContext;
 import org.apache.pinot.core.query.request.context.QueryContext;
 import org.apache.pinot.spi.trace.Tracing;
@@ -220,6 +225,49 @@ public final class GroupByUtils {
     }
   }
 
+  /**
+   * Merges the groups of a segment level results block into the indexed table of the combine operator.
+   */
+  public static void mergeGroupByResultsBlock(IndexedTable indexedTable, GroupByResultsBlock resultsBlock,
+      int numGroupByExpressions, int numColumns) {
+    // Count the number of merged keys
+    int mergedKeys = 0;
+    // For now, only GroupBy OrderBy query has pre-constructed intermediate records
+    List<IntermediateRecord> intermediateRecords = resultsBlock.getIntermediateRecords();
+    if (intermediateRecords == null) {
+      // Merge aggregation group-by result.
+      AggregationGroupByResult aggregationGroupByResult = resultsBlock.getAggregationGroupByResult();
+      if (aggregationGroupByResult != null) {
+        // Iterate over the group-by keys, for each key, update the group-by result in the indexedTable
+        try {
+          Iterator<GroupKeyGenerator.GroupKey> dicGroupKeyIterator = aggregationGroupByResult.getGroupKeyIterator();
+          while (dicGroupKeyIterator.hasNext()) {
+            GroupKeyGenerator.GroupKey groupKey = dicGroupKeyIterator.next();
+            Object[] keys = groupKey._keys;
+            Object[] values = Arrays.copyOf(keys, numColumns);
+            int groupId = groupKey._groupId;
+            for (int i = numGroupByExpressions; i < numColumns; i++) {
+              values[i] = aggregationGroupByResult.getResultForGroupId(i - numGroupByExpressions, groupId);
+            }
+            indexedTable.upsert(new Key(keys), new Record(values));
+            Tracing.ThreadAccountantOps.sampleAndCheckInterruptionPeriodically(mergedKeys);
+            mergedKeys++;
+          }
+        } finally {
+          // Release the resources used by the group key generator
+          aggregationGroupByResult.closeGroupKeyGenerator();
+        }
+      }
+    } else {
+      for (IntermediateRecord intermediateResult : intermediateRecords) {
+        //TODO: change upsert api so that it accepts intermediateRecord directly
+        indexedTable.upsert(intermediateResult._key, intermediateResult._record);
+        Tracing.ThreadAccountantOps.sampleAndCheckInterruptionPeriodically(mergedKeys);
+        mergedKeys++;
+      }
+    }
+  }
+
   public static SortedRecords getAndPopulateSortedRecords(GroupByResultsBlock block) {
     List<IntermediateRecord> intermediateRecords = block.getIntermediateRecords();
     Record[] sortedRecords = new Record[intermediateRecords.size()];
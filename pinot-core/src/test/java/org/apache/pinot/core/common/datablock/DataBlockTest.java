@@ -31,6 +31,8 @@ import org.apache.pinot.common.datablock.MetadataBlock;
 import org.apache.pinot.common.datablock.RowDataBlock;
 import org.apache.pinot.common.utils.DataSchema;
 import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
+import org.apache.pinot.core.util.DataBlockExtractUtils;
+import org.apache.pinot.spi.data.FieldSpec.DataType;
 import org.apache.pinot.spi.exception.QueryErrorCode;
 import org.testng.Assert;
 import org.testng.annotations.DataProvider;
@@ -111,6 +113,31 @@ public class DataBlockTest {
     }
   }
 
+  @Test(dataProvider = "testTypeNullPercentile")
+  public void testExtractColumnsFromColumnarBlock(int nullPercentile)
+      throws Exception {
+    DataSchema dataSchema = new DataSchema(new String[]{"int", "long", "float", "double"},
+        new ColumnDataType[]{ColumnDataType.INT, ColumnDataType.LONG, ColumnDataType.FLOAT, ColumnDataType.DOUBLE});
+    List<Object[]> rows = DataBlockTestUtils.getRandomRows(dataSchema, TEST_ROW_COUNT, nullPercentile);
+    List<Object[]> columnars = DataBlockTestUtils.convertColumnar(dataSchema, rows);
+    RowDataBlock rowBlock = DataBlockBuilder.buildFromRows(rows, dataSchema);
+    ColumnarDataBlock columnarBlock = DataBlockBuilder.buildFromColumns(columnars, dataSchema);
+    ColumnarDataBlock deserializedBlock = (ColumnarDataBlock) DataBlockUtils.deserialize(columnarBlock.serialize());
+
+    // Columnar block reads the whole columns, which should match the values read row by row
+    for (ColumnarDataBlock block : List.of(columnarBlock, deserializedBlock)) {
+      Assert.assertEquals(DataBlockExtractUtils.extractIntColumn(DataType.INT, block, 0, block.getNullRowIds(0)),
+          DataBlockExtractUtils.extractIntColumn(DataType.INT, rowBlock, 0, rowBlock.getNullRowIds(0)));
+      Assert.assertEquals(DataBlockExtractUtils.extractLongColumn(DataType.LONG, block, 1, block.getNullRowIds(1)),
+          DataBlockExtractUtils.extractLongColumn(DataType.LONG, rowBlock, 1, rowBlock.getNullRowIds(1)));
+      Assert.assertEquals(DataBlockExtractUtils.extractFloatColumn(DataType.FLOAT, block, 2, block.getNullRowIds(2)),
+          DataBlockExtractUtils.extractFloatColumn(DataType.FLOAT, rowBlock, 2, rowBlock.getNullRowIds(2)));
+      Assert.assertEquals(
+          DataBlockExtractUtils.extractDoubleColumn(DataType.DOUBLE, block, 3, block.getNullRowIds(3)),
+          DataBlockExtractUtils.extractDoubleColumn(DataType.DOUBLE, rowBlock, 3, rowBlock.getNullRowIds(3)));
+    }
+  }
+
   @DataProvider(name = "testTypeNullPercentile")
   public Object[][] provideTestTypeNullPercentile() {
     return new Object[][]{new Object[]{0}, new Object[]{10}, new Object[]{100}};
@@ -0,0 +1,144 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.operator.filter;
+
+import com.google.common.collect.Lists;
+import java.util.List;
+import org.apache.pinot.common.request.context.predicate.Predicate;
+import org.apache.pinot.core.common.Operator;
+import org.apache.pinot.core.operator.filter.predicate.PredicateEvaluator;
+import org.apache.pinot.core.query.request.context.QueryContext;
+import org.apache.pinot.segment.spi.datasource.DataSource;
+import org.apache.pinot.segment.spi.datasource.DataSourceMetadata;
+import org.apache.pinot.segment.spi.index.reader.ForwardIndexReader;
+import org.apache.pinot.spi.data.DimensionFieldSpec;
+import org.apache.pinot.spi.data.FieldSpec.DataType;
+import org.testng.annotations.Test;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+
+public class FilterSelectivityTrackerTest {
+  private static final String TABLE_NAME = "testTable_OFFLINE";
+  private static final int NUM_DOCS = 1000;
+
+  @Test
+  public void testRecord() {
+    FilterSelectivityTracker tracker = new FilterSelectivityTracker(100, 2);
+    tracker.record(TABLE_NAME, "col", Predicate.Type.EQ, 100, 10, 100);
+    // Not enough samples
+    assertNull(tracker.getStats(TABLE_NAME, "col", Predicate.Type.EQ));
+
+    tracker.record(TABLE_NAME, "col", Predicate.Type.EQ, 100, 60, 0);
+    FilterSelectivityTracker.PredicateStats stats = tracker.getStats(TABLE_NAME, "col", Predicate.Type.EQ);
+    assertNotNull(stats);
+    assertEquals(stats.getNumSamples(), 2);
+    // 0.1 + 0.2 * (0.6 - 0.1)
+    assertEquals(stats.getSelectivity(), 0.2, 1e-9);
+    // 1.0 + 0.2 * (0.0 - 1.0)
+    assertEquals(stats.getCostPerDoc(), 0.8, 1e-9);
+
+    // Stats are tracked separately per table, column and predicate type
+    assertNull(tracker.getStats(TABLE_NAME, "col", Predicate.Type.RANGE));
+    assertNull(tracker.getStats(TABLE_NAME, "otherCol", Predicate.Type.EQ));
+    assertNull(tracker.getStats("otherTable_OFFLINE", "col", Predicate.Type.EQ));
+
+    // Invalid observations should be ignored
+    tracker.record(TABLE_NAME, "col", Predicate.Type.EQ, 0, 0, 0);
+    tracker.record(TABLE_NAME, "col", Predicate.Type.EQ, 100, -1, 100);
+    assertEquals(stats.getNumSamples(), 2);
+  }
+
+  @Test
+  public void testBoundedEntries() {
+    FilterSelectivityTracker tracker = new FilterSelectivityTracker(10, 1);
+    for (int i = 0; i < 100; i++) {
+      tracker.record(TABLE_NAME, "col" + i, Predicate.Type.EQ, 100, 1, 100);
+    }
+    assertTrue(tracker.getNumEntries() <= 10);
+    assertNotNull(tracker.getStats(TABLE_NAME, "col99", Predicate.Type.EQ));
+  }
+
+  @Test
+  public void testAdaptiveReorder() {
+    FilterSelectivityTracker tracker = new FilterSelectivityTracker(100, 1);
+    FilterOperatorUtils.Implementation implementation = new FilterOperatorUtils.AdaptiveImplementation(tracker);
+    QueryContext queryContext = mock(QueryContext.class);
+    when(queryContext.getTableName()).thenReturn(TABLE_NAME);
+
+    ScanBasedFilterOperator unselectiveScan = getScanBasedFilterOperator(queryContext, "unselective");
+    ScanBasedFilterOperator selectiveScan = getScanBasedFilterOperator(queryContext, "selective");
+    ScanBasedFilterOperator unknownScan = getScanBasedFilterOperator(queryContext, "unknown");
+    tracker.record(TABLE_NAME, "unselective", Predicate.Type.EQ, NUM_DOCS, 900, NUM_DOCS);
+    tracker.record(TABLE_NAME, "selective", Predicate.Type.EQ, NUM_DOCS, 10, NUM_DOCS);
+
+    BaseFilterOperator filterOperator = implementation.getAndFilterOperator(queryContext,
+        Lists.newArrayList(unknownScan, unselectiveScan, selectiveScan), NUM_DOCS);
+    assertTrue(filterOperator instanceof AndFilterOperator);
+    List<Operator> childOperators = ((AndFilterOperator) filterOperator).getChildOperators();
+    assertEquals(childOperators, Lists.newArrayList(selectiveScan, unselectiveScan, unknownScan));
+    assertTrue(filterOperator.toExplainString().contains("selective:EQ=0.0100"));
+
+    // Inverted index matching most of the documents should be evaluated with scan when there is a selective child
+    DataSource dataSource = getDataSource("inverted");
+    PredicateEvaluator predicateEvaluator = getPredicateEvaluator();
+    InvertedIndexFilterOperator invertedIndexFilterOperator =
+        new InvertedIndexFilterOperator(queryContext, predicateEvaluator, dataSource, NUM_DOCS);
+    tracker.record(TABLE_NAME, "inverted", Predicate.Type.EQ, NUM_DOCS, 800, 0);
+    filterOperator = implementation.getAndFilterOperator(queryContext,
+        Lists.newArrayList(invertedIndexFilterOperator, selectiveScan), NUM_DOCS);
+    childOperators = ((AndFilterOperator) filterOperator).getChildOperators();
+    assertEquals(childOperators.size(), 2);
+    assertSame(childOperators.get(0), selectiveScan);
+    assertTrue(childOperators.get(1) instanceof ScanBasedFilterOperator);
+    assertSame(((ScanBasedFilterOperator) childOperators.get(1)).getDataSource(), dataSource);
+
+    // Inverted index should be kept without selective child
+    filterOperator = implementation.getAndFilterOperator(queryContext,
+        Lists.newArrayList(invertedIndexFilterOperator, unselectiveScan), NUM_DOCS);
+    childOperators = ((AndFilterOperator) filterOperator).getChildOperators();
+    assertEquals(childOperators, Lists.newArrayList(invertedIndexFilterOperator, unselectiveScan));
+  }
+
+  private static ScanBasedFilterOperator getScanBasedFilterOperator(QueryContext queryContext, String column) {
+    return new ScanBasedFilterOperator(queryContext, getPredicateEvaluator(), getDataSource(column), NUM_DOCS);
+  }
+
+  private static PredicateEvaluator getPredicateEvaluator() {
+    PredicateEvaluator predicateEvaluator = mock(PredicateEvaluator.class);
+    when(predicateEvaluator.getPredicateType()).thenReturn(Predicate.Type.EQ);
+    return predicateEvaluator;
+  }
+
+  private static DataSource getDataSource(String column) {
+    DataSourceMetadata dataSourceMetadata = mock(DataSourceMetadata.class);
+    when(dataSourceMetadata.isSingleValue()).thenReturn(true);
+    when(dataSourceMetadata.getFieldSpec()).thenReturn(new DimensionFieldSpec(column, DataType.INT, true));
+    DataSource dataSource = mock(DataSource.class);
+    when(dataSource.getDataSourceMetadata()).thenReturn(dataSourceMetadata);
+    when(dataSource.getForwardIndex()).thenReturn(mock(ForwardIndexReader.class));
+    return dataSource;
+  }
+}
@@ -0,0 +1,113 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.operator.filter.predicate;
+
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+
+public class ScanKernelsTest {
+  private static final int NUM_VALUES = 1000;
+  private static final Random RANDOM = new Random();
+
+  @Test
+  public void testMatchEquals() {
+    int[] intValues = RANDOM.ints(NUM_VALUES, 0, 10).toArray();
+    long[] longValues = Arrays.stream(intValues).asLongStream().toArray();
+    float[] floatValues = new float[NUM_VALUES];
+    double[] doubleValues = new double[NUM_VALUES];
+    for (int i = 0; i < NUM_VALUES; i++) {
+      floatValues[i] = intValues[i];
+      doubleValues[i] = intValues[i];
+    }
+    int[] expected = getMatchingDocIds(i -> intValues[i] == 5);
+
+    int[] docIds = getDocIds();
+    assertMatches(ScanKernels.matchEquals(NUM_VALUES, docIds, intValues, 5), docIds, expected);
+    docIds = getDocIds();
+    assertMatches(ScanKernels.matchEquals(NUM_VALUES, docIds, longValues, 5L), docIds, expected);
+    docIds = getDocIds();
+    assertMatches(ScanKernels.matchEquals(NUM_VALUES, docIds, floatValues, 5.0f), docIds, expected);
+    docIds = getDocIds();
+    assertMatches(ScanKernels.matchEquals(NUM_VALUES, docIds, doubleValues, 5.0), docIds, expected);
+  }
+
+  @Test
+  public void testMatchRange() {
+    int[] intValues = RANDOM.ints(NUM_VALUES).toArray();
+    long[] longValues = RANDOM.longs(NUM_VALUES).toArray();
+    double[] doubleValues = RANDOM.doubles(NUM_VALUES, -1, 1).toArray();
+    float[] floatValues = new float[NUM_VALUES];
+    for (int i = 0; i < NUM_VALUES; i++) {
+      floatValues[i] = (float) doubleValues[i];
+    }
+    // Ranges covering the extreme values should not overflow
+    int[][] intRanges =
+        {{-1000, 1000}, {Integer.MIN_VALUE, 0}, {0, Integer.MAX_VALUE}, {Integer.MIN_VALUE, Integer.MAX_VALUE}, {5, 4}};
+    for (int[] range : intRanges) {
+      int[] docIds = getDocIds();
+      assertMatches(ScanKernels.matchRange(NUM_VALUES, docIds, intValues, range[0], range[1]), docIds,
+          getMatchingDocIds(i -> intValues[i] >= range[0] && intValues[i] <= range[1]));
+    }
+    long[][] longRanges = {{-1000, 1000}, {Long.MIN_VALUE, 0}, {0, Long.MAX_VALUE}, {Long.MIN_VALUE, Long.MAX_VALUE}};
+    for (long[] range : longRanges) {
+      int[] docIds = getDocIds();
+      assertMatches(ScanKernels.matchRange(NUM_VALUES, docIds, longValues, range[0], range[1]), docIds,
+          getMatchingDocIds(i -> longValues[i] >= range[0] && longValues[i] <= range[1]));
+    }
+    int[] docIds = getDocIds();
+    assertMatches(ScanKernels.matchRange(NUM_VALUES, docIds, floatValues, -0.5f, 0.5f), docIds,
+        getMatchingDocIds(i -> floatValues[i] >= -0.5f && floatValues[i] <= 0.5f));
+    docIds = getDocIds();
+    assertMatches(ScanKernels.matchRange(NUM_VALUES, docIds, doubleValues, -0.5, 0.5), docIds,
+        getMatchingDocIds(i -> doubleValues[i] >= -0.5 && doubleValues[i] <= 0.5));
+  }
+
+  @Test
+  public void testMatchBitSet() {
+    int[] dictIds = RANDOM.ints(NUM_VALUES, 0, 200).toArray();
+    IntOpenHashSet matchingDictIds = new IntOpenHashSet(new int[]{0, 3, 63, 64, 100});
+    long[] bitSet = ScanKernels.toDictIdBitSet(matchingDictIds);
+    assertEquals(bitSet.length, 2);
+    int[] docIds = getDocIds();
+    assertMatches(ScanKernels.matchBitSet(NUM_VALUES, docIds, dictIds, bitSet), docIds,
+        getMatchingDocIds(i -> matchingDictIds.contains(dictIds[i])));
+
+    assertNull(ScanKernels.toDictIdBitSet(new IntOpenHashSet(new int[]{ScanKernels.MAX_DICT_ID_BIT_SET_SIZE})));
+  }
+
+  private static int[] getDocIds() {
+    return IntStream.range(0, NUM_VALUES).map(i -> i * 2).toArray();
+  }
+
+  private static int[] getMatchingDocIds(IntPredicate predicate) {
+    return IntStream.range(0, NUM_VALUES).filter(predicate).map(i -> i * 2).toArray();
+  }
+
+  private static void assertMatches(int numMatches, int[] docIds, int[] expected) {
+    assertEquals(Arrays.copyOf(docIds, numMatches), expected);
+  }
+}
@@ -0,0 +1,189 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.operator.streaming;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.apache.commons.io.FileUtils;
+import org.apache.pinot.core.operator.blocks.results.BaseResultsBlock;
+import org.apache.pinot.core.operator.blocks.results.GroupByResultsBlock;
+import org.apache.pinot.core.operator.blocks.results.MetadataResultsBlock;
+import org.apache.pinot.core.operator.combine.BaseCombineOperator;
+import org.apache.pinot.core.operator.combine.GroupByCombineOperator;
+import org.apache.pinot.core.plan.CombinePlanNode;
+import org.apache.pinot.core.plan.PlanNode;
+import org.apache.pinot.core.plan.maker.InstancePlanMakerImplV2;
+import org.apache.pinot.core.plan.maker.PlanMaker;
+import org.apache.pinot.core.query.request.context.QueryContext;
+import org.apache.pinot.core.query.request.context.utils.QueryContextConverterUtils;
+import org.apache.pinot.segment.local.indexsegment.immutable.ImmutableSegmentLoader;
+import org.apache.pinot.segment.local.segment.creator.impl.SegmentIndexCreationDriverImpl;
+import org.apache.pinot.segment.local.segment.readers.GenericRowRecordReader;
+import org.apache.pinot.segment.spi.IndexSegment;
+import org.apache.pinot.segment.spi.SegmentContext;
+import org.apache.pinot.segment.spi.creator.SegmentGeneratorConfig;
+import org.apache.pinot.spi.config.table.TableConfig;
+import org.apache.pinot.spi.config.table.TableType;
+import org.apache.pinot.spi.data.FieldSpec;
+import org.apache.pinot.spi.data.Schema;
+import org.apache.pinot.spi.data.readers.GenericRow;
+import org.apache.pinot.spi.utils.CommonConstants;
+import org.apache.pinot.spi.utils.ReadMode;
+import org.apache.pinot.spi.utils.builder.TableConfigBuilder;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+
+/**
+ * Test for {@link StreamingGroupByCombineOperator}.
+ */
+public class StreamingGroupByCombineOperatorTest {
+  private static final File TEMP_DIR = new File(FileUtils.getTempDirectory(), "StreamingGroupByCombineOperatorTest");
+  private static final String RAW_TABLE_NAME = "testTable";
+  private static final String SEGMENT_NAME_PREFIX = "testSegment_";
+  private static final int NUM_SEGMENTS = 8;
+  private static final int NUM_RECORDS_PER_SEGMENT = 100;
+
+  private static final String INT_COLUMN = "intColumn";
+  private static final TableConfig TABLE_CONFIG =
+      new TableConfigBuilder(TableType.OFFLINE).setTableName(RAW_TABLE_NAME).build();
+  private static final Schema SCHEMA =
+      new Schema.SchemaBuilder().addSingleValueDimension(INT_COLUMN, FieldSpec.DataType.INT).build();
+
+  private static final PlanMaker PLAN_MAKER = new InstancePlanMakerImplV2();
+  private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(4);
+
+  private List<IndexSegment> _indexSegments;
+
+  @Test
+  public void testStreamingGroupBy() {
+    BaseCombineOperator<?> combineOperator = getCombineOperator(
+        "SET streamingGroupBy = true; SET streamingGroupByChunkSize = 150; "
+            + "SELECT intColumn, COUNT(*) FROM testTable GROUP BY intColumn LIMIT 1000");
+    assertTrue(combineOperator instanceof StreamingGroupByCombineOperator);
+    StreamingGroupByCombineOperator streamingCombineOperator = (StreamingGroupByCombineOperator) combineOperator;
+
+    // Each segment has values [index * 50, index * 50 + 100), so that values are shared by 2 adjacent segments
+    Map<Integer, Long> expectedCounts = new HashMap<>();
+    for (int i = 0; i < NUM_SEGMENTS; i++) {
+      for (int j = 0; j < NUM_RECORDS_PER_SEGMENT; j++) {
+        expectedCounts.merge(i * NUM_RECORDS_PER_SEGMENT / 2 + j, 1L, Long::sum);
+      }
+    }
+
+    Map<Integer, Long> counts = new HashMap<>();
+    int numBlocks = 0;
+    streamingCombineOperator.start();
+    try {
+      BaseResultsBlock resultsBlock = streamingCombineOperator.nextBlock();
+      while (!(resultsBlock instanceof MetadataResultsBlock)) {
+        assertTrue(resultsBlock instanceof GroupByResultsBlock);
+        // Each chunk is streamed once it reaches the chunk size, or when the worker thread has no more segment
+        assertTrue(resultsBlock.getNumRows() <= 2 * NUM_RECORDS_PER_SEGMENT);
+        for (Object[] row : resultsBlock.getRows()) {
+          counts.merge((Integer) row[0], (Long) row[1], Long::sum);
+        }
+        numBlocks++;
+        resultsBlock = streamingCombineOperator.nextBlock();
+      }
+      assertEquals(resultsBlock.getNumSegmentsProcessed(), NUM_SEGMENTS);
+    } finally {
+      streamingCombineOperator.stop();
+    }
+    assertTrue(numBlocks > 1);
+    assertEquals(counts, expectedCounts);
+  }
+
+  @Test
+  public void testNonStreamableGroupBy() {
+    // Streaming not enabled
+    assertTrue(getCombineOperator("SELECT intColumn, COUNT(*) FROM testTable GROUP BY intColumn")
+        instanceof GroupByCombineOperator);
+    // Groups are trimmed on the server with ORDER BY
+    assertTrue(getCombineOperator("SET streamingGroupBy = true; "
+        + "SELECT intColumn, COUNT(*) FROM testTable GROUP BY intColumn ORDER BY COUNT(*) DESC LIMIT 10")
+        instanceof GroupByCombineOperator);
+    // Server returns final results
+    assertTrue(getCombineOperator("SET streamingGroupBy = true; SET serverReturnFinalResult = true; "
+        + "SELECT intColumn, COUNT(*) FROM testTable GROUP BY intColumn") instanceof GroupByCombineOperator);
+  }
+
+  private BaseCombineOperator<?> getCombineOperator(String query) {
+    QueryContext queryContext = QueryContextConverterUtils.getQueryContext(query);
+    List<PlanNode> planNodes = new ArrayList<>(NUM_SEGMENTS);
+    for (IndexSegment indexSegment : _indexSegments) {
+      planNodes.add(PLAN_MAKER.makeSegmentPlanNode(new SegmentContext(indexSegment), queryContext));
+    }
+    queryContext.setEndTimeMs(System.currentTimeMillis() + CommonConstants.Server.DEFAULT_QUERY_EXECUTOR_TIMEOUT_MS);
+    return new CombinePlanNode(planNodes, queryContext, EXECUTOR, resultsBlock -> {
+    }).run();
+  }
+
+  @BeforeClass
+  public void setUp()
+      throws Exception {
+    FileUtils.deleteDirectory(TEMP_DIR);
+    _indexSegments = new ArrayList<>(NUM_SEGMENTS);
+    for (int i = 0; i < NUM_SEGMENTS; i++) {
+      _indexSegments.add(createOfflineSegment(i));
+    }
+  }
+
+  @AfterClass
+  public void tearDown()
+      throws IOException {
+    for (IndexSegment indexSegment : _indexSegments) {
+      indexSegment.destroy();
+    }
+    FileUtils.deleteDirectory(TEMP_DIR);
+  }
+
+  private IndexSegment createOfflineSegment(int index)
+      throws Exception {
+    int baseValue = index * NUM_RECORDS_PER_SEGMENT / 2;
+    List<GenericRow> records = new ArrayList<>(NUM_RECORDS_PER_SEGMENT);
+    for (int i = 0; i < NUM_RECORDS_PER_SEGMENT; i++) {
+      GenericRow record = new GenericRow();
+      record.putValue(INT_COLUMN, baseValue + i);
+      records.add(record);
+    }
+
+    SegmentGeneratorConfig segmentGeneratorConfig = new SegmentGeneratorConfig(TABLE_CONFIG, SCHEMA);
+    segmentGeneratorConfig.setTableName(RAW_TABLE_NAME);
+    String segmentName = SEGMENT_NAME_PREFIX + index;
+    segmentGeneratorConfig.setSegmentName(segmentName);
+    segmentGeneratorConfig.setOutDir(TEMP_DIR.getPath());
+
+    SegmentIndexCreationDriverImpl driver = new SegmentIndexCreationDriverImpl();
+    driver.init(segmentGeneratorConfig, new GenericRowRecordReader(records));
+    driver.build();
+
+    return ImmutableSegmentLoader.load(new File(TEMP_DIR, segmentName), ReadMode.mmap);
+  }
+}
@@ -34,6 +34,9 @@ import org.apache.pinot.spi.data.FieldSpec.DataType;
 import org.apache.pinot.spi.utils.ArrayCopyUtils;
 import org.apache.pinot.spi.utils.BigDecimalUtils;
 import org.apache.pinot.spi.utils.CommonConstants.NullValuePlaceHolder;
+import org.joda.time.DateTimeZone;
+import org.joda.time.format.DateTimeFormat;
+import org.joda.time.format.DateTimeFormatter;
 import org.roaringbitmap.RoaringBitmap;
 import org.testng.annotations.Test;
 
@@ -1156,4 +1159,54 @@ public class ScalarTransformFunctionWrapperTest extends BaseTransformFunctionTes
     }
     testTransformFunctionWithNull(transformFunction, expectedValues, bitmap);
   }
+
+  @Test
+  public void testBatchArithmeticTransformFunction() {
+    ExpressionContext expression = RequestContextUtils.getExpression(
+        String.format("intDiv(%s, %s)", DOUBLE_SV_COLUMN, INT_SV_COLUMN));
+    TransformFunction transformFunction = TransformFunctionFactory.get(expression, _dataSourceMap);
+    assertTrue(transformFunction instanceof ScalarTransformFunctionWrapper);
+    assertEquals(transformFunction.getName(), "intDiv");
+    long[] expectedLongValues = new long[NUM_ROWS];
+    for (int i = 0; i < NUM_ROWS; i++) {
+      expectedLongValues[i] = (long) Math.floor(_doubleSVValues[i] / _intSVValues[i]);
+    }
+    testTransformFunction(transformFunction, expectedLongValues);
+
+    expression = RequestContextUtils.getExpression(String.format("positiveModulo(%s, 7)", LONG_SV_COLUMN));
+    transformFunction = TransformFunctionFactory.get(expression, _dataSourceMap);
+    assertTrue(transformFunction instanceof ScalarTransformFunctionWrapper);
+    assertEquals(transformFunction.getName(), "positiveModulo");
+    double[] expectedDoubleValues = new double[NUM_ROWS];
+    for (int i = 0; i < NUM_ROWS; i++) {
+      double result = (double) _longSVValues[i] % 7;
+      expectedDoubleValues[i] = result >= 0 ? result : result + 7;
+    }
+    testTransformFunction(transformFunction, expectedDoubleValues);
+  }
+
+  @Test
+  public void testBatchToDateTimeTransformFunction() {
+    ExpressionContext expression = RequestContextUtils.getExpression(
+        String.format("toDateTime(%s, 'yyyy-MM-dd HH:mm:ss', 'America/Los_Angeles')", TIME_COLUMN));
+    TransformFunction transformFunction = TransformFunctionFactory.get(expression, _dataSourceMap);
+    assertTrue(transformFunction instanceof ScalarTransformFunctionWrapper);
+    assertEquals(transformFunction.getName(), "toDateTime");
+    DateTimeFormatter formatter =
+        DateTimeFormat.forPattern("yyyy-MM-dd HH:mm:ss").withZone(DateTimeZone.forID("America/Los_Angeles"));
+    String[] expectedValues = new String[NUM_ROWS];
+    for (int i = 0; i < NUM_ROWS; i++) {
+      expectedValues[i] = formatter.print(_timeValues[i]);
+    }
+    testTransformFunction(transformFunction, expectedValues);
+
+    // Null literal argument falls back to the per row invocation
+    expression = RequestContextUtils.getExpression(String.format("toDateTime(%s, null)", TIME_COLUMN));
+    transformFunction = TransformFunctionFactory.get(expression, _dataSourceMap);
+    assertTrue(transformFunction instanceof ScalarTransformFunctionWrapper);
+    String[] stringValues = transformFunction.transformToStringValuesSV(_projectionBlock);
+    for (int i = 0; i < NUM_ROWS; i++) {
+      assertEquals(stringValues[i], NullValuePlaceHolder.STRING);
+    }
+  }
 }
@@ -0,0 +1,226 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.core.query.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
+import org.apache.pinot.core.data.table.IntermediateRecord;
+import org.apache.pinot.core.data.table.Key;
+import org.apache.pinot.core.data.table.Record;
+import org.apache.pinot.core.operator.ExecutionStatistics;
+import org.apache.pinot.core.operator.blocks.results.AggregationResultsBlock;
+import org.apache.pinot.core.operator.blocks.results.BaseResultsBlock;
+import org.apache.pinot.core.operator.blocks.results.GroupByResultsBlock;
+import org.apache.pinot.core.query.request.context.QueryContext;
+import org.apache.pinot.core.query.request.context.utils.QueryContextConverterUtils;
+import org.apache.pinot.segment.local.customobject.MinMaxRangePair;
+import org.apache.pinot.segment.spi.ImmutableSegment;
+import org.apache.pinot.segment.spi.IndexSegment;
+import org.apache.pinot.segment.spi.MutableSegment;
+import org.apache.pinot.segment.spi.SegmentMetadata;
+import org.apache.pinot.segment.spi.index.mutable.ThreadSafeMutableRoaringBitmap;
+import org.apache.pinot.spi.exception.QueryErrorCode;
+import org.apache.pinot.spi.exception.QueryErrorMessage;
+import org.testng.annotations.Test;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+
+public class SegmentResultsCacheTest {
+  private static final String TABLE_NAME = "testTable_OFFLINE";
+
+  @Test
+  public void testQueryKey() {
+    String queryKey = getQueryKey("SELECT COUNT(*), SUM(col1) FROM testTable WHERE col2 > 5");
+    assertNotNull(queryKey);
+    assertEquals(getQueryKey("SELECT COUNT(*), SUM(col1) FROM testTable WHERE col2 > 5"), queryKey);
+    // Query options that do not affect the segment results should not affect the key
+    assertEquals(getQueryKey("SET timeoutMs = 1000; SELECT COUNT(*), SUM(col1) FROM testTable WHERE col2 > 5"),
+        queryKey);
+    assertNotEquals(getQueryKey("SELECT COUNT(*), SUM(col1) FROM testTable WHERE col2 > 6"), queryKey);
+    assertNotEquals(getQueryKey("SELECT COUNT(*), SUM(col2) FROM testTable WHERE col2 > 5"), queryKey);
+
+    String groupByQueryKey = getQueryKey("SELECT col3, SUM(col1) FROM testTable GROUP BY col3 LIMIT 10");
+    assertNotNull(groupByQueryKey);
+    assertNotEquals(getQueryKey("SELECT col3, SUM(col1) FROM testTable GROUP BY col3 LIMIT 20"), groupByQueryKey);
+    assertNotEquals(
+        getQueryKey("SELECT col3, SUM(col1) FROM testTable GROUP BY col3 ORDER BY SUM(col1) DESC LIMIT 10"),
+        groupByQueryKey);
+    QueryContext groupByQueryContext =
+        QueryContextConverterUtils.getQueryContext("SELECT col3, SUM(col1) FROM testTable GROUP BY col3 LIMIT 10");
+    groupByQueryContext.setNumGroupsWarningLimit(groupByQueryContext.getNumGroupsWarningLimit() + 1);
+    assertNotEquals(SegmentResultsCache.getQueryKey(groupByQueryContext), groupByQueryKey);
+
+    // Only aggregation and group-by queries are cacheable
+    assertNull(getQueryKey("SELECT col1 FROM testTable"));
+    assertNull(getQueryKey("SELECT DISTINCT col1 FROM testTable"));
+    assertNull(getQueryKey("EXPLAIN PLAN FOR SELECT COUNT(*) FROM testTable"));
+  }
+
+  @Test
+  public void testIsCacheable() {
+    assertTrue(SegmentResultsCache.isCacheable(mockSegment("seg0", "1")));
+    assertFalse(SegmentResultsCache.isCacheable(mock(MutableSegment.class)));
+    ImmutableSegment upsertSegment = mockSegment("seg1", "1");
+    when(upsertSegment.getValidDocIds()).thenReturn(mock(ThreadSafeMutableRoaringBitmap.class));
+    assertFalse(SegmentResultsCache.isCacheable(upsertSegment));
+  }
+
+  @Test
+  public void testAggregation() {
+    SegmentResultsCache cache = new SegmentResultsCache(1024 * 1024);
+    QueryContext queryContext =
+        QueryContextConverterUtils.getQueryContext("SELECT COUNT(*), MINMAXRANGE(col1) FROM testTable");
+    String queryKey = SegmentResultsCache.getQueryKey(queryContext);
+    IndexSegment segment = mockSegment("seg0", "1");
+    assertNull(cache.get(TABLE_NAME, segment, queryKey));
+
+    MinMaxRangePair minMaxRangePair = new MinMaxRangePair(1.0, 5.0);
+    AggregationResultsBlock resultsBlock = new AggregationResultsBlock(queryContext.getAggregationFunctions(),
+        new ArrayList<>(Arrays.asList(10L, minMaxRangePair)), queryContext);
+    ExecutionStatistics executionStatistics = new ExecutionStatistics(10, 20, 30, 100);
+    assertNotNull(cache.put(TABLE_NAME, segment, queryKey, resultsBlock, executionStatistics));
+
+    // Modifying the original intermediate result should not modify the cached result
+    minMaxRangePair.apply(0.0, 10.0);
+
+    CachedSegmentResults cachedResults = cache.get(TABLE_NAME, segment, queryKey);
+    assertNotNull(cachedResults);
+    assertSame(cachedResults.getExecutionStatistics(), executionStatistics);
+    BaseResultsBlock cachedResultsBlock = cachedResults.toResultsBlock(queryContext);
+    assertTrue(cachedResultsBlock instanceof AggregationResultsBlock);
+    List<Object> results = ((AggregationResultsBlock) cachedResultsBlock).getResults();
+    assertEquals(results.get(0), 10L);
+    MinMaxRangePair cachedMinMaxRangePair = (MinMaxRangePair) results.get(1);
+    assertNotSame(cachedMinMaxRangePair, minMaxRangePair);
+    assertEquals(cachedMinMaxRangePair.getMin(), 1.0);
+    assertEquals(cachedMinMaxRangePair.getMax(), 5.0);
+
+    // Each results block should have its own intermediate results
+    assertNotSame(((AggregationResultsBlock) cachedResults.toResultsBlock(queryContext)).getResults().get(1),
+        cachedMinMaxRangePair);
+
+    // Segment with a different CRC should not hit the cache
+    assertNull(cache.get(TABLE_NAME, mockSegment("seg0", "2"), queryKey));
+    assertNull(cache.get(TABLE_NAME, mockSegment("seg1", "1"), queryKey));
+  }
+
+  @Test
+  public void testGroupBy() {
+    SegmentResultsCache cache = new SegmentResultsCache(1024 * 1024);
+    QueryContext queryContext = QueryContextConverterUtils.getQueryContext(
+        "SELECT col2, COUNT(*), MINMAXRANGE(col1) FROM testTable GROUP BY col2 LIMIT 10");
+    String queryKey = SegmentResultsCache.getQueryKey(queryContext);
+    IndexSegment segment = mockSegment("seg0", "1");
+
+    DataSchema dataSchema = new DataSchema(new String[]{"col2", "count(*)", "minmaxrange(col1)"},
+        new ColumnDataType[]{ColumnDataType.STRING, ColumnDataType.LONG, ColumnDataType.OBJECT});
+    List<IntermediateRecord> intermediateRecords = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      intermediateRecords.add(IntermediateRecord.withoutOrderByValues(new Key(new Object[]{"key" + i}),
+          new Record(new Object[]{"key" + i, (long) i, new MinMaxRangePair(i, i + 1)})));
+    }
+    GroupByResultsBlock resultsBlock = new GroupByResultsBlock(dataSchema, intermediateRecords, queryContext);
+    resultsBlock.setNumGroupsLimitReached(true);
+    assertNotNull(cache.put(TABLE_NAME, segment, queryKey, resultsBlock, new ExecutionStatistics(5, 0, 5, 5)));
+
+    CachedSegmentResults cachedResults = cache.get(TABLE_NAME, segment, queryKey);
+    assertNotNull(cachedResults);
+    GroupByResultsBlock cachedResultsBlock = (GroupByResultsBlock) cachedResults.toResultsBlock(queryContext);
+    assertEquals(cachedResultsBlock.getDataSchema(), dataSchema);
+    assertTrue(cachedResultsBlock.isNumGroupsLimitReached());
+    assertFalse(cachedResultsBlock.isGroupsTrimmed());
+    List<IntermediateRecord> cachedRecords = cachedResultsBlock.getIntermediateRecords();
+    assertNotNull(cachedRecords);
+    assertEquals(cachedRecords.size(), 5);
+    for (int i = 0; i < 5; i++) {
+      IntermediateRecord cachedRecord = cachedRecords.get(i);
+      assertEquals(cachedRecord._key, new Key(new Object[]{"key" + i}));
+      Object[] values = cachedRecord._record.getValues();
+      assertEquals(values[0], "key" + i);
+      assertEquals(values[1], (long) i);
+      MinMaxRangePair minMaxRangePair = (MinMaxRangePair) values[2];
+      assertNotSame(minMaxRangePair, intermediateRecords.get(i)._record.getValues()[2]);
+      assertEquals(minMaxRangePair.getMin(), (double) i);
+      assertEquals(minMaxRangePair.getMax(), (double) i + 1);
+    }
+  }
+
+  @Test
+  public void testInvalidateSegment() {
+    SegmentResultsCache cache = new SegmentResultsCache(1024 * 1024);
+    QueryContext queryContext = QueryContextConverterUtils.getQueryContext("SELECT COUNT(*) FROM testTable");
+    String queryKey = SegmentResultsCache.getQueryKey(queryContext);
+    IndexSegment segment0 = mockSegment("seg0", "1");
+    IndexSegment segment1 = mockSegment("seg1", "1");
+    ExecutionStatistics executionStatistics = new ExecutionStatistics(10, 0, 10, 10);
+    cache.put(TABLE_NAME, segment0, queryKey, getCountResultsBlock(queryContext, 10L), executionStatistics);
+    cache.put(TABLE_NAME, segment1, queryKey, getCountResultsBlock(queryContext, 20L), executionStatistics);
+    cache.put("otherTable_OFFLINE", segment0, queryKey, getCountResultsBlock(queryContext, 30L), executionStatistics);
+    assertEquals(cache.size(), 3);
+
+    cache.invalidateSegment(TABLE_NAME, "seg0");
+    assertEquals(cache.size(), 2);
+    assertNull(cache.get(TABLE_NAME, segment0, queryKey));
+    assertNotNull(cache.get(TABLE_NAME, segment1, queryKey));
+    assertNotNull(cache.get("otherTable_OFFLINE", segment0, queryKey));
+  }
+
+  @Test
+  public void testResultsBlockWithErrorNotCached() {
+    SegmentResultsCache cache = new SegmentResultsCache(1024 * 1024);
+    QueryContext queryContext = QueryContextConverterUtils.getQueryContext("SELECT COUNT(*) FROM testTable");
+    String queryKey = SegmentResultsCache.getQueryKey(queryContext);
+    IndexSegment segment = mockSegment("seg0", "1");
+    AggregationResultsBlock resultsBlock = getCountResultsBlock(queryContext, 10L);
+    resultsBlock.addErrorMessage(QueryErrorMessage.safeMsg(QueryErrorCode.QUERY_EXECUTION, "error"));
+    assertNull(cache.put(TABLE_NAME, segment, queryKey, resultsBlock, new ExecutionStatistics(10, 0, 10, 10)));
+    assertEquals(cache.size(), 0);
+  }
+
+  private static String getQueryKey(String query) {
+    return SegmentResultsCache.getQueryKey(QueryContextConverterUtils.getQueryContext(query));
+  }
+
+  private static AggregationResultsBlock getCountResultsBlock(QueryContext queryContext, long count) {
+    return new AggregationResultsBlock(queryContext.getAggregationFunctions(),
+        new ArrayList<>(List.of(count)), queryContext);
+  }
+
+  private static ImmutableSegment mockSegment(String segmentName, String crc) {
+    ImmutableSegment segment = mock(ImmutableSegment.class);
+    when(segment.getSegmentName()).thenReturn(segmentName);
+    SegmentMetadata segmentMetadata = mock(SegmentMetadata.class);
+    when(segmentMetadata.getCrc()).thenReturn(crc);
+    when(segment.getSegmentMetadata()).thenReturn(segmentMetadata);
+    return segment;
+  }
+}
@@ -56,6 +56,7 @@ public class MockRoutingManagerFactory {
   private final Map<String, ServerInstance> _serverInstances;
   private final Map<String, Map<String, List<ServerInstance>>> _tableSegmentServersMap;
   private final Set<String> _disabledTables;
+  private final Map<String, Long> _tableNumDocsMap;
 
   public MockRoutingManagerFactory(int... ports) {
     _tableNameMap = new HashMap<>();
@@ -64,6 +65,7 @@ public class MockRoutingManagerFactory {
     _serverInstances = new HashMap<>();
     _tableSegmentServersMap = new HashMap<>();
     _disabledTables = new HashSet<>();
+    _tableNumDocsMap = new HashMap<>();
     for (int port : ports) {
       _serverInstances.put(toHostname(port), getServerInstance(HOST_NAME, port, port, port, port));
     }
@@ -97,6 +99,10 @@ public class MockRoutingManagerFactory {
     _disabledTables.add(tableNameWithType);
   }
 
+  public void setTableNumDocs(String tableNameWithType, long numDocs) {
+    _tableNumDocsMap.put(tableNameWithType, numDocs);
+  }
+
   public RoutingManager buildRoutingManager(
       @Nullable Map<String, TablePartitionReplicatedServersInfo> partitionInfoMap) {
     int numTables = _tableSegmentServersMap.size();
@@ -147,7 +153,7 @@ public class MockRoutingManagerFactory {
       }
     }
     return new FakeRoutingManager(routingTableMap, tableSegmentsMap, _hybridTables, _disabledTables, partitionInfoMap,
-        _serverInstances, tablePartitionInfoMap);
+        _serverInstances, tablePartitionInfoMap, _tableNumDocsMap);
   }
 
   public TableCache buildTableCache() {
@@ -199,11 +205,13 @@ public class MockRoutingManagerFactory {
     @Nullable
     private final Map<String, TablePartitionInfo> _partitionInfoMap;
     private final Map<String, ServerInstance> _serverInstances;
+    private final Map<String, Long> _tableNumDocsMap;
 
     public FakeRoutingManager(Map<String, RoutingTable> routingTableMap, Map<String, List<String>> segmentsMap,
         Set<String> hybridTables, Set<String> disabledTables,
         @Nullable Map<String, TablePartitionReplicatedServersInfo> partitionReplicatedServersInfoMap,
-        Map<String, ServerInstance> serverInstances, @Nullable Map<String, TablePartitionInfo> partitionInfoMap) {
+        Map<String, ServerInstance> serverInstances, @Nullable Map<String, TablePartitionInfo> partitionInfoMap,
+        Map<String, Long> tableNumDocsMap) {
       _segmentsMap = segmentsMap;
       _routingTableMap = routingTableMap;
       _hybridTables = hybridTables;
@@ -211,6 +219,7 @@ public class MockRoutingManagerFactory {
       _serverInstances = serverInstances;
       _disabledTables = disabledTables;
       _partitionInfoMap = partitionInfoMap;
+      _tableNumDocsMap = tableNumDocsMap;
     }
 
     @Override
@@ -251,6 +260,12 @@ public class MockRoutingManagerFactory {
           String.valueOf(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(1))) : null;
     }
 
+    @Nullable
+    @Override
+    public Long getTableNumDocs(String tableNameWithType) {
+      return _tableNumDocsMap.get(tableNameWithType);
+    }
+
     @Nullable
     @Override
     public TablePartitionInfo getTablePartitionInfo(String tableNameWithType) {
@@ -0,0 +1,305 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.queries;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.commons.io.FileUtils;
+import org.apache.pinot.common.response.broker.BrokerResponseNative;
+import org.apache.pinot.segment.local.indexsegment.immutable.ImmutableSegmentLoader;
+import org.apache.pinot.segment.local.segment.creator.impl.SegmentIndexCreationDriverImpl;
+import org.apache.pinot.segment.local.segment.index.loader.IndexLoadingConfig;
+import org.apache.pinot.segment.local.segment.readers.GenericRowRecordReader;
+import org.apache.pinot.segment.spi.ImmutableSegment;
+import org.apache.pinot.segment.spi.IndexSegment;
+import org.apache.pinot.segment.spi.creator.SegmentGeneratorConfig;
+import org.apache.pinot.segment.spi.index.StandardIndexes;
+import org.apache.pinot.segment.spi.index.reader.ZoneMapReader;
+import org.apache.pinot.spi.config.table.FieldConfig;
+import org.apache.pinot.spi.config.table.TableConfig;
+import org.apache.pinot.spi.config.table.TableType;
+import org.apache.pinot.spi.data.FieldSpec.DataType;
+import org.apache.pinot.spi.data.Schema;
+import org.apache.pinot.spi.data.readers.GenericRow;
+import org.apache.pinot.spi.utils.JsonUtils;
+import org.apache.pinot.spi.utils.builder.TableConfigBuilder;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+
+
+/**
+ * Tests the scan based filter with zone map, where the zones that cannot match the predicate are skipped. Each column
+ * with zone map has a copy without zone map to compare the results and the number of entries scanned.
+ */
+public class ZoneMapQueriesTest extends BaseQueriesTest {
+  private static final File INDEX_DIR = new File(FileUtils.getTempDirectory(), "ZoneMapQueriesTest");
+  private static final String RAW_TABLE_NAME = "testTable";
+  private static final String SEGMENT_NAME = "testSegment";
+
+  private static final int NUM_RECORDS = 10000;
+  private static final int NUM_DOCS_PER_ZONE = 100;
+  private static final int NUM_BUCKETS = 10;
+  private static final String INT_RAW_COLUMN = "intRawCol";
+  private static final String LONG_DICT_COLUMN = "longDictCol";
+  private static final String DOUBLE_RAW_COLUMN = "doubleRawCol";
+  private static final String NO_ZONE_MAP_SUFFIX = "NoZoneMap";
+  private static final String BUCKET_COLUMN = "bucketCol";
+
+  private static final Schema SCHEMA = new Schema.SchemaBuilder().setSchemaName(RAW_TABLE_NAME)
+      .addSingleValueDimension(INT_RAW_COLUMN, DataType.INT)
+      .addSingleValueDimension(INT_RAW_COLUMN + NO_ZONE_MAP_SUFFIX, DataType.INT)
+      .addSingleValueDimension(LONG_DICT_COLUMN, DataType.LONG)
+      .addSingleValueDimension(LONG_DICT_COLUMN + NO_ZONE_MAP_SUFFIX, DataType.LONG)
+      .addSingleValueDimension(DOUBLE_RAW_COLUMN, DataType.DOUBLE)
+      .addSingleValueDimension(DOUBLE_RAW_COLUMN + NO_ZONE_MAP_SUFFIX, DataType.DOUBLE)
+      .addSingleValueDimension(BUCKET_COLUMN, DataType.INT)
+      .build();
+
+  private IndexSegment _indexSegment;
+  private List<IndexSegment> _indexSegments;
+
+  @Override
+  protected String getFilter() {
+    return "";
+  }
+
+  @Override
+  protected IndexSegment getIndexSegment() {
+    return _indexSegment;
+  }
+
+  @Override
+  protected List<IndexSegment> getIndexSegments() {
+    return _indexSegments;
+  }
+
+  @BeforeClass
+  public void setUp()
+      throws Exception {
+    FileUtils.deleteQuietly(INDEX_DIR);
+
+    List<GenericRow> records = new ArrayList<>(NUM_RECORDS);
+    for (int i = 0; i < NUM_RECORDS; i++) {
+      // Swap the adjacent values so that the columns are not sorted, but each zone still contains a range of values
+      int value = i ^ 1;
+      GenericRow record = new GenericRow();
+      record.putValue(INT_RAW_COLUMN, value);
+      record.putValue(INT_RAW_COLUMN + NO_ZONE_MAP_SUFFIX, value);
+      record.putValue(LONG_DICT_COLUMN, (long) value);
+      record.putValue(LONG_DICT_COLUMN + NO_ZONE_MAP_SUFFIX, (long) value);
+      record.putValue(DOUBLE_RAW_COLUMN, value + 0.5);
+      record.putValue(DOUBLE_RAW_COLUMN + NO_ZONE_MAP_SUFFIX, value + 0.5);
+      record.putValue(BUCKET_COLUMN, i % NUM_BUCKETS);
+      records.add(record);
+    }
+
+    TableConfig tableConfig = getTableConfig();
+    SegmentGeneratorConfig segmentGeneratorConfig = new SegmentGeneratorConfig(tableConfig, SCHEMA);
+    segmentGeneratorConfig.setTableName(RAW_TABLE_NAME);
+    segmentGeneratorConfig.setSegmentName(SEGMENT_NAME);
+    segmentGeneratorConfig.setOutDir(INDEX_DIR.getPath());
+
+    SegmentIndexCreationDriverImpl driver = new SegmentIndexCreationDriverImpl();
+    driver.init(segmentGeneratorConfig, new GenericRowRecordReader(records));
+    driver.build();
+
+    ImmutableSegment immutableSegment = ImmutableSegmentLoader.load(new File(INDEX_DIR, SEGMENT_NAME),
+        new IndexLoadingConfig(tableConfig, SCHEMA));
+    _indexSegment = immutableSegment;
+    _indexSegments = List.of(immutableSegment);
+  }
+
+  private static TableConfig getTableConfig() {
+    return getTableConfig(NUM_DOCS_PER_ZONE);
+  }
+
+  private static TableConfig getTableConfig(int numDocsPerZone) {
+    ObjectNode indexes = JsonUtils.newObjectNode();
+    indexes.set("zoneMap", JsonUtils.newObjectNode().put("numDocsPerZone", numDocsPerZone));
+    return new TableConfigBuilder(TableType.OFFLINE).setTableName(RAW_TABLE_NAME)
+        .setNoDictionaryColumns(List.of(INT_RAW_COLUMN + NO_ZONE_MAP_SUFFIX, DOUBLE_RAW_COLUMN + NO_ZONE_MAP_SUFFIX))
+        .setInvertedIndexColumns(List.of(BUCKET_COLUMN))
+        .addFieldConfig(new FieldConfig.Builder(INT_RAW_COLUMN).withEncodingType(FieldConfig.EncodingType.RAW)
+            .withIndexes(indexes).build())
+        .addFieldConfig(new FieldConfig.Builder(LONG_DICT_COLUMN).withEncodingType(FieldConfig.EncodingType.DICTIONARY)
+            .withIndexes(indexes).build())
+        .addFieldConfig(new FieldConfig.Builder(DOUBLE_RAW_COLUMN).withEncodingType(FieldConfig.EncodingType.RAW)
+            .withIndexes(indexes).build())
+        .build();
+  }
+
+  @Test
+  public void testZoneMapCreated() {
+    for (String column : new String[]{INT_RAW_COLUMN, LONG_DICT_COLUMN, DOUBLE_RAW_COLUMN}) {
+      assertNotNull(_indexSegment.getDataSource(column).getIndex(StandardIndexes.zoneMap()), column);
+      assertNull(_indexSegment.getDataSource(column + NO_ZONE_MAP_SUFFIX).getIndex(StandardIndexes.zoneMap()),
+          column);
+    }
+  }
+
+  @Test
+  public void testReloadAddsZoneMap()
+      throws Exception {
+    File reloadedSegmentDir = new File(INDEX_DIR, "reloadedSegment");
+    FileUtils.copyDirectory(new File(INDEX_DIR, SEGMENT_NAME), reloadedSegmentDir);
+    ObjectNode indexes = JsonUtils.newObjectNode();
+    indexes.set("zoneMap", JsonUtils.newObjectNode().put("numDocsPerZone", NUM_DOCS_PER_ZONE));
+    TableConfig tableConfig = getTableConfig();
+    List<FieldConfig> fieldConfigs = new ArrayList<>(tableConfig.getFieldConfigList());
+    for (String column : new String[]{INT_RAW_COLUMN, LONG_DICT_COLUMN, DOUBLE_RAW_COLUMN}) {
+      fieldConfigs.add(new FieldConfig.Builder(column + NO_ZONE_MAP_SUFFIX).withIndexes(indexes).build());
+    }
+    tableConfig.setFieldConfigList(fieldConfigs);
+    ImmutableSegment reloadedSegment =
+        ImmutableSegmentLoader.load(reloadedSegmentDir, new IndexLoadingConfig(tableConfig, SCHEMA));
+    try {
+      for (String column : new String[]{INT_RAW_COLUMN, LONG_DICT_COLUMN, DOUBLE_RAW_COLUMN}) {
+        ZoneMapReader zoneMap = _indexSegment.getDataSource(column).getIndex(StandardIndexes.zoneMap());
+        ZoneMapReader reloadedZoneMap =
+            reloadedSegment.getDataSource(column + NO_ZONE_MAP_SUFFIX).getIndex(StandardIndexes.zoneMap());
+        assertNotNull(reloadedZoneMap, column);
+        assertEquals(reloadedZoneMap.isDictionaryEncoded(), zoneMap.isDictionaryEncoded(), column);
+        assertEquals(reloadedZoneMap.getValueType(), zoneMap.getValueType(), column);
+        assertEquals(reloadedZoneMap.getNumZones(), zoneMap.getNumZones(), column);
+        for (int i = 0; i < zoneMap.getNumZones(); i++) {
+          if (zoneMap.getValueType() == DataType.DOUBLE) {
+            assertEquals(reloadedZoneMap.getMinDouble(i), zoneMap.getMinDouble(i), column);
+            assertEquals(reloadedZoneMap.getMaxDouble(i), zoneMap.getMaxDouble(i), column);
+          } else {
+            assertEquals(reloadedZoneMap.getMinInt(i), zoneMap.getMinInt(i), column);
+            assertEquals(reloadedZoneMap.getMaxInt(i), zoneMap.getMaxInt(i), column);
+          }
+        }
+      }
+    } finally {
+      reloadedSegment.destroy();
+    }
+  }
+
+  @Test
+  public void testReloadRebuildsZoneMapWithDifferentNumDocsPerZone()
+      throws Exception {
+    File reloadedSegmentDir = new File(INDEX_DIR, "rebuiltSegment");
+    FileUtils.copyDirectory(new File(INDEX_DIR, SEGMENT_NAME), reloadedSegmentDir);
+    ImmutableSegment reloadedSegment = ImmutableSegmentLoader.load(reloadedSegmentDir,
+        new IndexLoadingConfig(getTableConfig(2 * NUM_DOCS_PER_ZONE), SCHEMA));
+    try {
+      for (String column : new String[]{INT_RAW_COLUMN, LONG_DICT_COLUMN, DOUBLE_RAW_COLUMN}) {
+        ZoneMapReader zoneMap = _indexSegment.getDataSource(column).getIndex(StandardIndexes.zoneMap());
+        ZoneMapReader reloadedZoneMap = reloadedSegment.getDataSource(column).getIndex(StandardIndexes.zoneMap());
+        assertNotNull(reloadedZoneMap, column);
+        assertEquals(reloadedZoneMap.getNumDocsPerZone(), 2 * NUM_DOCS_PER_ZONE, column);
+        assertEquals(reloadedZoneMap.getNumZones(), NUM_RECORDS / (2 * NUM_DOCS_PER_ZONE), column);
+        // Each rebuilt zone covers 2 of the original zones
+        for (int i = 0; i < reloadedZoneMap.getNumZones(); i++) {
+          if (zoneMap.getValueType() == DataType.DOUBLE) {
+            assertEquals(reloadedZoneMap.getMinDouble(i), zoneMap.getMinDouble(2 * i), column);
+            assertEquals(reloadedZoneMap.getMaxDouble(i), zoneMap.getMaxDouble(2 * i + 1), column);
+          } else {
+            assertEquals(reloadedZoneMap.getMinInt(i), zoneMap.getMinInt(2 * i), column);
+            assertEquals(reloadedZoneMap.getMaxInt(i), zoneMap.getMaxInt(2 * i + 1), column);
+          }
+        }
+      }
+    } finally {
+      reloadedSegment.destroy();
+    }
+  }
+
+  @DataProvider
+  public static Object[][] columns() {
+    return new Object[][]{{INT_RAW_COLUMN}, {LONG_DICT_COLUMN}, {DOUBLE_RAW_COLUMN}};
+  }
+
+  @Test(dataProvider = "columns")
+  public void testEqualsPredicate(String column) {
+    // Only the zone containing the value is scanned
+    testFilter(column, column + " = " + literal(column, 5000), 1, NUM_DOCS_PER_ZONE);
+    // Value out of the zone map range (always false for dictionary-encoded column)
+    if (!column.equals(LONG_DICT_COLUMN)) {
+      testFilter(column, column + " = -1", 0, 0);
+    }
+  }
+
+  @Test(dataProvider = "columns")
+  public void testRangePredicate(String column) {
+    // Only the zones [0, 10) are scanned
+    testFilter(column, column + " < " + literal(column, 1000), 1000, 1000);
+    // Only the zones [10, 20) are scanned
+    testFilter(column, column + " BETWEEN " + literal(column, 1050) + " AND " + literal(column, 1949), 900, 1000);
+    // Only the last zone is scanned
+    testFilter(column, column + " > " + literal(column, 9949), 50, NUM_DOCS_PER_ZONE);
+    // Only the zones [10, 90) are scanned for the range under the NOT
+    testFilter(column, column + " NOT BETWEEN " + literal(column, 1000) + " AND " + literal(column, 8999), 2000, 8000);
+    // Value out of the zone map range (always false for dictionary-encoded column)
+    if (!column.equals(LONG_DICT_COLUMN)) {
+      testFilter(column, column + " < 0", 0, 0);
+    }
+  }
+
+  @Test(dataProvider = "columns")
+  public void testUnsupportedPredicate(String column) {
+    testFilter(column, column + " <> " + literal(column, 1000), NUM_RECORDS - 1, NUM_RECORDS);
+    testFilter(column, column + " IN (" + literal(column, 1000) + ", " + literal(column, 5000) + ")", 2, NUM_RECORDS);
+  }
+
+  @Test(dataProvider = "columns")
+  public void testAndWithIndexBasedPredicate(String column) {
+    // Only the docs in the zones [10, 20) matching the bucket are scanned
+    testFilter(column,
+        BUCKET_COLUMN + " = 3 AND " + column + " BETWEEN " + literal(column, 1000) + " AND " + literal(column, 1999),
+        100, 100);
+  }
+
+  private static String literal(String column, int value) {
+    return column.equals(DOUBLE_RAW_COLUMN) ? Double.toString(value + 0.5) : Integer.toString(value);
+  }
+
+  /**
+   * Runs the filter on the column with and without zone map, and verifies the number of matching docs and the number
+   * of entries scanned in filter.
+   */
+  private void testFilter(String column, String filter, int expectedNumMatchingDocs,
+      int expectedNumEntriesScannedInFilter) {
+    String query = "SELECT COUNT(*) FROM testTable WHERE " + filter;
+    BrokerResponseNative brokerResponse = getBrokerResponse(query);
+    assertEquals(brokerResponse.getResultTable().getRows().get(0)[0], 2L * expectedNumMatchingDocs, filter);
+    assertEquals(brokerResponse.getNumEntriesScannedInFilter(), 2L * expectedNumEntriesScannedInFilter, filter);
+
+    BrokerResponseNative noZoneMapBrokerResponse =
+        getBrokerResponse(query.replace(column, column + NO_ZONE_MAP_SUFFIX));
+    assertEquals(noZoneMapBrokerResponse.getResultTable().getRows().get(0)[0], 2L * expectedNumMatchingDocs, filter);
+  }
+
+  @AfterClass
+  public void tearDown()
+      throws IOException {
+    _indexSegment.destroy();
+    FileUtils.deleteDirectory(INDEX_DIR);
+  }
+}
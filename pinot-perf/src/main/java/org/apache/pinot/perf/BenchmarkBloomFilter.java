@@ -33,11 +33,16 @@ import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
-import org.apache.pinot.segment.local.segment.index.readers.bloom.BaseGuavaBloomFilterReader;
+import org.apache.pinot.segment.local.segment.creator.impl.bloom.SplitBlockBloomFilterCreator;
+import org.apache.pinot.segment.local.segment.index.readers.bloom.BloomFilterReaderFactory;
 import org.apache.pinot.segment.local.segment.index.readers.bloom.GuavaBloomFilterReaderUtils;
 import org.apache.pinot.segment.local.segment.index.readers.bloom.OffHeapGuavaBloomFilterReader;
 import org.apache.pinot.segment.local.segment.index.readers.bloom.OnHeapGuavaBloomFilterReader;
+import org.apache.pinot.segment.spi.V1Constants;
+import org.apache.pinot.segment.spi.index.reader.BloomFilterReader;
 import org.apache.pinot.segment.spi.memory.PinotDataBuffer;
+import org.apache.pinot.spi.config.table.BloomFilterConfig;
+import org.apache.pinot.spi.data.FieldSpec;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.Fork;
@@ -64,7 +69,7 @@ import org.openjdk.jmh.runner.options.OptionsBuilder;
 @State(Scope.Benchmark)
 public class BenchmarkBloomFilter {
 
-  @Param(value = {OFF_HEAP})
+  @Param(value = {OFF_HEAP, SPLIT_BLOCK_ON_HEAP, SPLIT_BLOCK_OFF_HEAP})
   private String _reader;
 
   @Param(value = {"10000"})
@@ -79,7 +84,7 @@ public class BenchmarkBloomFilter {
     new Runner(opt.build()).run();
   }
 
-  private BaseGuavaBloomFilterReader _actualReader;
+  private BloomFilterReader _actualReader;
   private Supplier<String> _valueSupplier;
   private String _value;
   private long _valueLong1;
@@ -87,9 +92,14 @@ public class BenchmarkBloomFilter {
 
   public static final String ON_HEAP = "onHeap";
   public static final String OFF_HEAP = "offHeap";
+  public static final String SPLIT_BLOCK_ON_HEAP = "splitBlockOnHeap";
+  public static final String SPLIT_BLOCK_OFF_HEAP = "splitBlockOffHeap";
 
-  private BaseGuavaBloomFilterReader loadReader(BloomFilter<CharSequence> bloomFilter)
+  private BloomFilterReader loadReader(BloomFilter<CharSequence> bloomFilter, List<String> words, double fpp)
       throws IOException {
+    if (_reader.equals(SPLIT_BLOCK_ON_HEAP) || _reader.equals(SPLIT_BLOCK_OFF_HEAP)) {
+      return loadSplitBlockReader(words, fpp);
+    }
 
     File file = Files.createTempFile("test", ".bloom").toFile();
     file.deleteOnExit();
@@ -109,6 +119,23 @@ public class BenchmarkBloomFilter {
     }
   }
 
+  private BloomFilterReader loadSplitBlockReader(List<String> words, double fpp)
+      throws IOException {
+    File indexDir = Files.createTempDirectory("test").toFile();
+    indexDir.deleteOnExit();
+    try (SplitBlockBloomFilterCreator creator = new SplitBlockBloomFilterCreator(indexDir, "test", _cardinality,
+        new BloomFilterConfig(false, fpp, _maxSizeInBytes, false, BloomFilterConfig.Type.SPLIT_BLOCK),
+        FieldSpec.DataType.STRING)) {
+      words.forEach(creator::add);
+      creator.seal();
+    }
+    File file = new File(indexDir, "test" + V1Constants.Indexes.BLOOM_FILTER_FILE_EXTENSION);
+    file.deleteOnExit();
+
+    PinotDataBuffer pinotDataBuffer = PinotDataBuffer.loadBigEndianFile(file);
+    return BloomFilterReaderFactory.getBloomFilterReader(pinotDataBuffer, _reader.equals(SPLIT_BLOCK_ON_HEAP));
+  }
+
   @Setup
   public void setUp()
       throws IOException {
@@ -122,7 +149,7 @@ public class BenchmarkBloomFilter {
         Funnels.stringFunnel(StandardCharsets.UTF_8), _cardinality, fpp);
     words.forEach(bloomFilter::put);
 
-    _actualReader = loadReader(bloomFilter);
+    _actualReader = loadReader(bloomFilter, words, fpp);
 
     _valueSupplier = () -> words.get(r.nextInt(_cardinality));
   }
@@ -25,6 +25,7 @@ import java.util.Random;
 import java.util.concurrent.TimeUnit;
 import net.jpountz.lz4.LZ4Factory;
 import org.apache.pinot.segment.local.io.compression.ChunkCompressorFactory;
+import org.apache.pinot.segment.local.io.compression.NumericChunkDecompressor;
 import org.apache.pinot.segment.spi.compression.ChunkCompressionType;
 import org.apache.pinot.segment.spi.compression.ChunkCompressor;
 import org.apache.pinot.segment.spi.compression.ChunkDecompressor;
@@ -51,12 +52,17 @@ import org.xerial.snappy.Snappy;
 @Warmup(iterations = 3)
 @Measurement(iterations = 5)
 @State(Scope.Benchmark)
-// Test to get memory statistics for snappy, zstandard and lz4 integer compression techniques
+// Test to get memory statistics for snappy, zstandard, lz4, gzip, delta, delta-of-delta and frame of reference integer
+// compression techniques
 public class BenchmarkNoDictionaryIntegerCompression {
 
   @Param({"500000", "1000000", "2000000", "3000000", "4000000", "5000000"})
   public static int _rowLength;
 
+  // Numeric compression types (delta, delta-of-delta and frame of reference) benefit from sorted values
+  @Param({"RANDOM", "SORTED"})
+  public static String _distribution;
+
   @State(Scope.Thread)
   public static class BenchmarkNoDictionaryIntegerCompressionState {
 
@@ -79,6 +85,23 @@ public class BenchmarkNoDictionaryIntegerCompression {
     private static LZ4Factory _factory;
     private static ChunkCompressor _gzipCompressor;
     private static ChunkDecompressor _gzipDecompressor;
+    private static ByteBuffer _deltaCompressedIntegerOutput;
+    private static ByteBuffer _deltaCompressedIntegerInput;
+    private static ByteBuffer _deltaIntegerDecompressed;
+    private static ByteBuffer _deltaDeltaCompressedIntegerOutput;
+    private static ByteBuffer _deltaDeltaCompressedIntegerInput;
+    private static ByteBuffer _deltaDeltaIntegerDecompressed;
+    private static ByteBuffer _frameOfReferenceCompressedIntegerOutput;
+    private static ByteBuffer _frameOfReferenceCompressedIntegerInput;
+    private static ByteBuffer _frameOfReferenceIntegerDecompressed;
+    private static int[] _decodedIntegers;
+
+    private static ChunkCompressor _deltaCompressor;
+    private static NumericChunkDecompressor _deltaDecompressor;
+    private static ChunkCompressor _deltaDeltaCompressor;
+    private static NumericChunkDecompressor _deltaDeltaDecompressor;
+    private static ChunkCompressor _frameOfReferenceCompressor;
+    private static NumericChunkDecompressor _frameOfReferenceDecompressor;
 
     @Setup(Level.Invocation)
     public void setUp()
@@ -95,6 +118,12 @@ public class BenchmarkNoDictionaryIntegerCompression {
       _uncompressedInt.flip();
       _factory.fastCompressor().compress(_uncompressedInt, _lz4CompressedIntegerInput);
       _gzipCompressor.compress(_uncompressedInt, _gzipCompressedIntegerInput);
+      _uncompressedInt.rewind();
+      _deltaCompressor.compress(_uncompressedInt, _deltaCompressedIntegerInput);
+      _uncompressedInt.rewind();
+      _deltaDeltaCompressor.compress(_uncompressedInt, _deltaDeltaCompressedIntegerInput);
+      _uncompressedInt.rewind();
+      _frameOfReferenceCompressor.compress(_uncompressedInt, _frameOfReferenceCompressedIntegerInput);
 
       _zstdIntegerDecompressed.rewind();
       _zstandardCompressedIntegerInput.flip();
@@ -108,8 +137,16 @@ public class BenchmarkNoDictionaryIntegerCompression {
       //Generate Random Int
       _uncompressedInt = ByteBuffer.allocateDirect(_rowLength * Integer.BYTES);
       Random random = new Random();
-      for (int i = 0; i < _rowLength; i++) {
-        _uncompressedInt.putInt(random.nextInt());
+      if ("SORTED".equals(_distribution)) {
+        int value = 0;
+        for (int i = 0; i < _rowLength; i++) {
+          value += random.nextInt(100);
+          _uncompressedInt.putInt(value);
+        }
+      } else {
+        for (int i = 0; i < _rowLength; i++) {
+          _uncompressedInt.putInt(random.nextInt());
+        }
       }
       _uncompressedInt.flip();
     }
@@ -119,6 +156,16 @@ public class BenchmarkNoDictionaryIntegerCompression {
       _factory = LZ4Factory.fastestInstance();
       _gzipCompressor = ChunkCompressorFactory.getCompressor(ChunkCompressionType.GZIP);
       _gzipDecompressor = ChunkCompressorFactory.getDecompressor(ChunkCompressionType.GZIP);
+      _deltaCompressor = ChunkCompressorFactory.getCompressor(ChunkCompressionType.DELTA, Integer.BYTES);
+      _deltaDecompressor =
+          (NumericChunkDecompressor) ChunkCompressorFactory.getDecompressor(ChunkCompressionType.DELTA);
+      _deltaDeltaCompressor = ChunkCompressorFactory.getCompressor(ChunkCompressionType.DELTA_DELTA, Integer.BYTES);
+      _deltaDeltaDecompressor =
+          (NumericChunkDecompressor) ChunkCompressorFactory.getDecompressor(ChunkCompressionType.DELTA_DELTA);
+      _frameOfReferenceCompressor = ChunkCompressorFactory.getCompressor(
+          ChunkCompressionType.FRAME_OF_REFERENCE, Integer.BYTES);
+      _frameOfReferenceDecompressor =
+          (NumericChunkDecompressor) ChunkCompressorFactory.getDecompressor(ChunkCompressionType.FRAME_OF_REFERENCE);
     }
 
     private void allocateBufferMemory() {
@@ -135,6 +182,16 @@ public class BenchmarkNoDictionaryIntegerCompression {
       _gzipIntegerDecompressed = ByteBuffer.allocateDirect(_uncompressedInt.capacity() * 2);
       _gzipCompressedIntegerOutput = ByteBuffer.allocateDirect(_uncompressedInt.capacity() * 2);
       _gzipCompressedIntegerInput = ByteBuffer.allocateDirect(_uncompressedInt.capacity() * 2);
+      _deltaCompressedIntegerOutput = ByteBuffer.allocateDirect(_uncompressedInt.capacity() * 2);
+      _deltaCompressedIntegerInput = ByteBuffer.allocateDirect(_uncompressedInt.capacity() * 2);
+      _deltaIntegerDecompressed = ByteBuffer.allocateDirect(_uncompressedInt.capacity() * 2);
+      _deltaDeltaCompressedIntegerOutput = ByteBuffer.allocateDirect(_uncompressedInt.capacity() * 2);
+      _deltaDeltaCompressedIntegerInput = ByteBuffer.allocateDirect(_uncompressedInt.capacity() * 2);
+      _deltaDeltaIntegerDecompressed = ByteBuffer.allocateDirect(_uncompressedInt.capacity() * 2);
+      _frameOfReferenceCompressedIntegerOutput = ByteBuffer.allocateDirect(_uncompressedInt.capacity() * 2);
+      _frameOfReferenceCompressedIntegerInput = ByteBuffer.allocateDirect(_uncompressedInt.capacity() * 2);
+      _frameOfReferenceIntegerDecompressed = ByteBuffer.allocateDirect(_uncompressedInt.capacity() * 2);
+      _decodedIntegers = new int[_rowLength];
     }
 
     @TearDown(Level.Invocation)
@@ -148,11 +205,20 @@ public class BenchmarkNoDictionaryIntegerCompression {
       _lz4IntegerDecompressed.clear();
       _gzipCompressedIntegerOutput.clear();
       _gzipIntegerDecompressed.clear();
+      _deltaCompressedIntegerOutput.clear();
+      _deltaIntegerDecompressed.clear();
+      _deltaDeltaCompressedIntegerOutput.clear();
+      _deltaDeltaIntegerDecompressed.clear();
+      _frameOfReferenceCompressedIntegerOutput.clear();
+      _frameOfReferenceIntegerDecompressed.clear();
 
       _uncompressedInt.rewind();
       _zstandardCompressedIntegerInput.rewind();
       _lz4CompressedIntegerInput.rewind();
       _gzipCompressedIntegerInput.rewind();
+      _deltaCompressedIntegerInput.rewind();
+      _deltaDeltaCompressedIntegerInput.rewind();
+      _frameOfReferenceCompressedIntegerInput.rewind();
     }
   }
 
@@ -246,6 +312,86 @@ public class BenchmarkNoDictionaryIntegerCompression {
     return state._gzipIntegerDecompressed.position();
   }
 
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public int benchmarkDeltaIntegerCompression(BenchmarkNoDictionaryIntegerCompressionState state)
+      throws IOException {
+    return state._deltaCompressor.compress(state._uncompressedInt, state._deltaCompressedIntegerOutput);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public int benchmarkDeltaIntegerDecompression(BenchmarkNoDictionaryIntegerCompressionState state)
+      throws IOException {
+    return state._deltaDecompressor.decompress(state._deltaCompressedIntegerInput, state._deltaIntegerDecompressed);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public int benchmarkDeltaIntegerBatchDecoding(BenchmarkNoDictionaryIntegerCompressionState state)
+      throws IOException {
+    // Decodes straight into the values array without going through the decompressed buffer
+    return state._deltaDecompressor.decompressInts(state._deltaCompressedIntegerInput, state._decodedIntegers, 0);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public int benchmarkDeltaDeltaIntegerCompression(BenchmarkNoDictionaryIntegerCompressionState state)
+      throws IOException {
+    return state._deltaDeltaCompressor.compress(state._uncompressedInt, state._deltaDeltaCompressedIntegerOutput);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public int benchmarkDeltaDeltaIntegerDecompression(BenchmarkNoDictionaryIntegerCompressionState state)
+      throws IOException {
+    return state._deltaDeltaDecompressor.decompress(
+        state._deltaDeltaCompressedIntegerInput, state._deltaDeltaIntegerDecompressed);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public int benchmarkDeltaDeltaIntegerBatchDecoding(BenchmarkNoDictionaryIntegerCompressionState state)
+      throws IOException {
+    // Decodes straight into the values array without going through the decompressed buffer
+    return state._deltaDeltaDecompressor.decompressInts(
+        state._deltaDeltaCompressedIntegerInput, state._decodedIntegers, 0);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public int benchmarkFrameOfReferenceIntegerCompression(BenchmarkNoDictionaryIntegerCompressionState state)
+      throws IOException {
+    return state._frameOfReferenceCompressor.compress(
+        state._uncompressedInt, state._frameOfReferenceCompressedIntegerOutput);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public int benchmarkFrameOfReferenceIntegerDecompression(BenchmarkNoDictionaryIntegerCompressionState state)
+      throws IOException {
+    return state._frameOfReferenceDecompressor.decompress(
+        state._frameOfReferenceCompressedIntegerInput, state._frameOfReferenceIntegerDecompressed);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public int benchmarkFrameOfReferenceIntegerBatchDecoding(BenchmarkNoDictionaryIntegerCompressionState state)
+      throws IOException {
+    // Decodes straight into the values array without going through the decompressed buffer
+    return state._frameOfReferenceDecompressor.decompressInts(
+        state._frameOfReferenceCompressedIntegerInput, state._decodedIntegers, 0);
+  }
+
   public static void main(String[] args)
       throws Exception {
     new Runner(
@@ -25,6 +25,7 @@ import java.util.Random;
 import java.util.concurrent.TimeUnit;
 import net.jpountz.lz4.LZ4Factory;
 import org.apache.pinot.segment.local.io.compression.ChunkCompressorFactory;
+import org.apache.pinot.segment.local.io.compression.NumericChunkDecompressor;
 import org.apache.pinot.segment.spi.compression.ChunkCompressionType;
 import org.apache.pinot.segment.spi.compression.ChunkCompressor;
 import org.apache.pinot.segment.spi.compression.ChunkDecompressor;
@@ -51,12 +52,17 @@ import org.xerial.snappy.Snappy;
 @Warmup(iterations = 3)
 @Measurement(iterations = 5)
 @State(Scope.Benchmark)
-// Test to get memory statistics for snappy, zstandard and lz4 long compression techniques
+// Test to get memory statistics for snappy, zstandard, lz4, gzip, delta, delta-of-delta and frame of reference long
+// compression techniques
 public class BenchmarkNoDictionaryLongCompression {
 
   @Param({"500000", "1000000", "2000000", "3000000", "4000000", "5000000"})
   public static int _rowLength;
 
+  // Numeric compression types (delta, delta-of-delta and frame of reference) benefit from sorted values
+  @Param({"RANDOM", "SORTED"})
+  public static String _distribution;
+
   @State(Scope.Thread)
   public static class BenchmarkNoDictionaryLongCompressionState {
 
@@ -78,6 +84,23 @@ public class BenchmarkNoDictionaryLongCompression {
     private static LZ4Factory _factory;
     private static ChunkCompressor _gzipCompressor;
     private static ChunkDecompressor _gzipDecompressor;
+    private static ByteBuffer _deltaCompressedLongOutput;
+    private static ByteBuffer _deltaCompressedLongInput;
+    private static ByteBuffer _deltaLongDecompressed;
+    private static ByteBuffer _deltaDeltaCompressedLongOutput;
+    private static ByteBuffer _deltaDeltaCompressedLongInput;
+    private static ByteBuffer _deltaDeltaLongDecompressed;
+    private static ByteBuffer _frameOfReferenceCompressedLongOutput;
+    private static ByteBuffer _frameOfReferenceCompressedLongInput;
+    private static ByteBuffer _frameOfReferenceLongDecompressed;
+    private static long[] _decodedLongs;
+
+    private static ChunkCompressor _deltaCompressor;
+    private static NumericChunkDecompressor _deltaDecompressor;
+    private static ChunkCompressor _deltaDeltaCompressor;
+    private static NumericChunkDecompressor _deltaDeltaDecompressor;
+    private static ChunkCompressor _frameOfReferenceCompressor;
+    private static NumericChunkDecompressor _frameOfReferenceDecompressor;
 
     @Setup(Level.Invocation)
     public void setUp()
@@ -94,6 +117,12 @@ public class BenchmarkNoDictionaryLongCompression {
       _uncompressedLong.flip();
       _factory.fastCompressor().compress(_uncompressedLong, _lz4CompressedLongInput);
       _gzipCompressor.compress(_uncompressedLong, _gzipCompressedLongInput);
+      _uncompressedLong.rewind();
+      _deltaCompressor.compress(_uncompressedLong, _deltaCompressedLongInput);
+      _uncompressedLong.rewind();
+      _deltaDeltaCompressor.compress(_uncompressedLong, _deltaDeltaCompressedLongInput);
+      _uncompressedLong.rewind();
+      _frameOfReferenceCompressor.compress(_uncompressedLong, _frameOfReferenceCompressedLongInput);
 
       _zstandardLongDecompressedOutput.rewind();
       _zstandardCompressedLongInput.flip();
@@ -107,8 +136,16 @@ public class BenchmarkNoDictionaryLongCompression {
       //Generate Random Long
       Random random = new Random();
       _uncompressedLong = ByteBuffer.allocateDirect(_rowLength * Long.BYTES);
-      for (int i = 0; i < _rowLength; i++) {
-        _uncompressedLong.putLong(random.nextLong());
+      if ("SORTED".equals(_distribution)) {
+        long value = System.currentTimeMillis();
+        for (int i = 0; i < _rowLength; i++) {
+          value += random.nextInt(100);
+          _uncompressedLong.putLong(value);
+        }
+      } else {
+        for (int i = 0; i < _rowLength; i++) {
+          _uncompressedLong.putLong(random.nextLong());
+        }
       }
       _uncompressedLong.flip();
     }
@@ -118,6 +155,16 @@ public class BenchmarkNoDictionaryLongCompression {
       _factory = LZ4Factory.fastestInstance();
       _gzipCompressor = ChunkCompressorFactory.getCompressor(ChunkCompressionType.GZIP);
       _gzipDecompressor = ChunkCompressorFactory.getDecompressor(ChunkCompressionType.GZIP);
+      _deltaCompressor = ChunkCompressorFactory.getCompressor(ChunkCompressionType.DELTA, Long.BYTES);
+      _deltaDecompressor =
+          (NumericChunkDecompressor) ChunkCompressorFactory.getDecompressor(ChunkCompressionType.DELTA);
+      _deltaDeltaCompressor = ChunkCompressorFactory.getCompressor(ChunkCompressionType.DELTA_DELTA, Long.BYTES);
+      _deltaDeltaDecompressor =
+          (NumericChunkDecompressor) ChunkCompressorFactory.getDecompressor(ChunkCompressionType.DELTA_DELTA);
+      _frameOfReferenceCompressor = ChunkCompressorFactory.getCompressor(
+          ChunkCompressionType.FRAME_OF_REFERENCE, Long.BYTES);
+      _frameOfReferenceDecompressor =
+          (NumericChunkDecompressor) ChunkCompressorFactory.getDecompressor(ChunkCompressionType.FRAME_OF_REFERENCE);
     }
 
     private void allocateBufferMemory() {
@@ -133,6 +180,16 @@ public class BenchmarkNoDictionaryLongCompression {
       _gzipLongDecompressed = ByteBuffer.allocateDirect(_uncompressedLong.capacity() * 2);
       _gzipCompressedLongOutput = ByteBuffer.allocateDirect(_uncompressedLong.capacity() * 2);
       _gzipCompressedLongInput = ByteBuffer.allocateDirect(_uncompressedLong.capacity() * 2);
+      _deltaCompressedLongOutput = ByteBuffer.allocateDirect(_uncompressedLong.capacity() * 2);
+      _deltaCompressedLongInput = ByteBuffer.allocateDirect(_uncompressedLong.capacity() * 2);
+      _deltaLongDecompressed = ByteBuffer.allocateDirect(_uncompressedLong.capacity() * 2);
+      _deltaDeltaCompressedLongOutput = ByteBuffer.allocateDirect(_uncompressedLong.capacity() * 2);
+      _deltaDeltaCompressedLongInput = ByteBuffer.allocateDirect(_uncompressedLong.capacity() * 2);
+      _deltaDeltaLongDecompressed = ByteBuffer.allocateDirect(_uncompressedLong.capacity() * 2);
+      _frameOfReferenceCompressedLongOutput = ByteBuffer.allocateDirect(_uncompressedLong.capacity() * 2);
+      _frameOfReferenceCompressedLongInput = ByteBuffer.allocateDirect(_uncompressedLong.capacity() * 2);
+      _frameOfReferenceLongDecompressed = ByteBuffer.allocateDirect(_uncompressedLong.capacity() * 2);
+      _decodedLongs = new long[_rowLength];
     }
 
     @TearDown(Level.Invocation)
@@ -146,11 +203,20 @@ public class BenchmarkNoDictionaryLongCompression {
       _lz4LongDecompressed.clear();
       _gzipCompressedLongOutput.clear();
       _gzipLongDecompressed.clear();
+      _deltaCompressedLongOutput.clear();
+      _deltaLongDecompressed.clear();
+      _deltaDeltaCompressedLongOutput.clear();
+      _deltaDeltaLongDecompressed.clear();
+      _frameOfReferenceCompressedLongOutput.clear();
+      _frameOfReferenceLongDecompressed.clear();
 
       _uncompressedLong.rewind();
       _zstandardCompressedLongInput.rewind();
       _lz4CompressedLongInput.rewind();
       _gzipCompressedLongInput.rewind();
+      _deltaCompressedLongInput.rewind();
+      _deltaDeltaCompressedLongInput.rewind();
+      _frameOfReferenceCompressedLongInput.rewind();
     }
   }
 
@@ -250,6 +316,94 @@ public class BenchmarkNoDictionaryLongCompression {
     return state._gzipLongDecompressed.position();
   }
 
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public int benchmarkDeltaLongCompression(
+      BenchmarkNoDictionaryLongCompression.BenchmarkNoDictionaryLongCompressionState state)
+      throws IOException {
+    return state._deltaCompressor.compress(state._uncompressedLong, state._deltaCompressedLongOutput);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public int benchmarkDeltaLongDecompression(
+      BenchmarkNoDictionaryLongCompression.BenchmarkNoDictionaryLongCompressionState state)
+      throws IOException {
+    return state._deltaDecompressor.decompress(state._deltaCompressedLongInput, state._deltaLongDecompressed);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public int benchmarkDeltaLongBatchDecoding(
+      BenchmarkNoDictionaryLongCompression.BenchmarkNoDictionaryLongCompressionState state)
+      throws IOException {
+    // Decodes straight into the values array without going through the decompressed buffer
+    return state._deltaDecompressor.decompressLongs(state._deltaCompressedLongInput, state._decodedLongs, 0);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public int benchmarkDeltaDeltaLongCompression(
+      BenchmarkNoDictionaryLongCompression.BenchmarkNoDictionaryLongCompressionState state)
+      throws IOException {
+    return state._deltaDeltaCompressor.compress(state._uncompressedLong, state._deltaDeltaCompressedLongOutput);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public int benchmarkDeltaDeltaLongDecompression(
+      BenchmarkNoDictionaryLongCompression.BenchmarkNoDictionaryLongCompressionState state)
+      throws IOException {
+    return state._deltaDeltaDecompressor.decompress(
+        state._deltaDeltaCompressedLongInput, state._deltaDeltaLongDecompressed);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public int benchmarkDeltaDeltaLongBatchDecoding(
+      BenchmarkNoDictionaryLongCompression.BenchmarkNoDictionaryLongCompressionState state)
+      throws IOException {
+    // Decodes straight into the values array without going through the decompressed buffer
+    return state._deltaDeltaDecompressor.decompressLongs(state._deltaDeltaCompressedLongInput, state._decodedLongs, 0);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public int benchmarkFrameOfReferenceLongCompression(
+      BenchmarkNoDictionaryLongCompression.BenchmarkNoDictionaryLongCompressionState state)
+      throws IOException {
+    return state._frameOfReferenceCompressor.compress(
+        state._uncompressedLong, state._frameOfReferenceCompressedLongOutput);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public int benchmarkFrameOfReferenceLongDecompression(
+      BenchmarkNoDictionaryLongCompression.BenchmarkNoDictionaryLongCompressionState state)
+      throws IOException {
+    return state._frameOfReferenceDecompressor.decompress(
+        state._frameOfReferenceCompressedLongInput, state._frameOfReferenceLongDecompressed);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public int benchmarkFrameOfReferenceLongBatchDecoding(
+      BenchmarkNoDictionaryLongCompression.BenchmarkNoDictionaryLongCompressionState state)
+      throws IOException {
+    // Decodes straight into the values array without going through the decompressed buffer
+    return state._frameOfReferenceDecompressor.decompressLongs(
+        state._frameOfReferenceCompressedLongInput, state._decodedLongs, 0);
+  }
+
   public static void main(String[] args)
       throws Exception {
     new Runner(new OptionsBuilder().include(BenchmarkNoDictionaryLongCompression.class.getSimpleName()).build()).run();
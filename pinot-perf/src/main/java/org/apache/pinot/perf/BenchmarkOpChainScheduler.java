@@ -0,0 +1,174 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.perf;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.calcite.rel.RelDistribution;
+import org.apache.pinot.calcite.rel.logical.PinotRelExchangeType;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
+import org.apache.pinot.query.mailbox.MailboxService;
+import org.apache.pinot.query.mailbox.ReceivingMailbox;
+import org.apache.pinot.query.planner.physical.MailboxIdUtils;
+import org.apache.pinot.query.planner.plannode.MailboxReceiveNode;
+import org.apache.pinot.query.routing.MailboxInfo;
+import org.apache.pinot.query.routing.MailboxInfos;
+import org.apache.pinot.query.routing.SharedMailboxInfos;
+import org.apache.pinot.query.routing.StageMetadata;
+import org.apache.pinot.query.routing.WorkerMetadata;
+import org.apache.pinot.query.runtime.blocks.RowHeapDataBlock;
+import org.apache.pinot.query.runtime.blocks.SuccessMseBlock;
+import org.apache.pinot.query.runtime.executor.OpChainSchedulerService;
+import org.apache.pinot.query.runtime.operator.MailboxReceiveOperator;
+import org.apache.pinot.query.runtime.operator.OpChain;
+import org.apache.pinot.query.runtime.plan.OpChainExecutionContext;
+import org.apache.pinot.spi.env.PinotConfiguration;
+import org.apache.pinot.spi.executor.ExecutorServiceUtils;
+import org.apache.pinot.spi.utils.CommonConstants.MultiStageQueryRunner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+
+/**
+ * Compares the thread-per-OpChain scheduling (each op chain blocks a thread of a cached thread pool while waiting for
+ * data) with the cooperative scheduling (op chains waiting for data release their thread of a bounded thread pool).
+ *
+ * Each invocation registers {@code _numOpChains} op chains reading from a mailbox, and the producers send
+ * {@code _numBlocks} blocks to each mailbox with {@code _producerDelayMs} between the blocks to simulate the upstream
+ * stages. Run in {@link Mode#Throughput} to compare the throughput and in {@link Mode#SampleTime} to compare the p99.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@State(Scope.Benchmark)
+public class BenchmarkOpChainScheduler {
+  private static final DataSchema DATA_SCHEMA =
+      new DataSchema(new String[]{"col1", "col2"}, new ColumnDataType[]{ColumnDataType.INT, ColumnDataType.STRING});
+  private static final int SENDER_STAGE_ID = 1;
+  private static final MailboxInfos MAILBOX_INFOS =
+      new SharedMailboxInfos(new MailboxInfo("localhost", 1234, List.of(0)));
+  private static final StageMetadata STAGE_METADATA = new StageMetadata(0,
+      List.of(new WorkerMetadata(0, Map.of(SENDER_STAGE_ID, MAILBOX_INFOS), Map.of())), Map.of());
+
+  @Param({"false", "true"})
+  private boolean _cooperative;
+
+  @Param({"64", "1024"})
+  private int _numOpChains;
+
+  @Param({"16"})
+  private int _numBlocks;
+
+  @Param({"1"})
+  private long _producerDelayMs;
+
+  private final AtomicLong _requestId = new AtomicLong();
+  private MailboxService _mailboxService;
+  private MailboxReceiveNode _receiveNode;
+  private ExecutorService _executorService;
+  private ScheduledExecutorService _producerService;
+  private OpChainSchedulerService _scheduler;
+  private RowHeapDataBlock _dataBlock;
+
+  public static void main(String[] args)
+      throws Exception {
+    ChainedOptionsBuilder opt = new OptionsBuilder().include(BenchmarkOpChainScheduler.class.getSimpleName());
+    new Runner(opt.build()).run();
+  }
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    _mailboxService = new MailboxService("localhost", 1234, new PinotConfiguration());
+    _receiveNode = new MailboxReceiveNode(0, DATA_SCHEMA, SENDER_STAGE_ID, PinotRelExchangeType.STREAMING,
+        RelDistribution.Type.SINGLETON, null, null, false, false, null);
+    int numCores = Runtime.getRuntime().availableProcessors();
+    // The cooperative scheduling does not need more threads than cores, while the thread-per-OpChain scheduling needs
+    // a thread per waiting op chain
+    _executorService = _cooperative ? Executors.newFixedThreadPool(numCores) : Executors.newCachedThreadPool();
+    _producerService = Executors.newScheduledThreadPool(numCores);
+    _scheduler = new OpChainSchedulerService(_executorService,
+        new PinotConfiguration(Map.of(MultiStageQueryRunner.KEY_OF_OP_CHAIN_COOPERATIVE_SCHEDULING, _cooperative)));
+    List<Object[]> rows = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      rows.add(new Object[]{i, "value_" + i});
+    }
+    _dataBlock = new RowHeapDataBlock(rows, DATA_SCHEMA);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    ExecutorServiceUtils.close(_producerService);
+    ExecutorServiceUtils.close(_executorService);
+  }
+
+  @Benchmark
+  public void runOpChains()
+      throws InterruptedException {
+    CountDownLatch finished = new CountDownLatch(_numOpChains);
+    for (int i = 0; i < _numOpChains; i++) {
+      long requestId = _requestId.getAndIncrement();
+      long deadlineMs = System.currentTimeMillis() + 60_000L;
+      OpChainExecutionContext context =
+          new OpChainExecutionContext(_mailboxService, requestId, deadlineMs, deadlineMs, Map.of(), STAGE_METADATA,
+              STAGE_METADATA.getWorkerMetadataList().get(0), null, null, true);
+      MailboxReceiveOperator receiveOperator = new MailboxReceiveOperator(context, _receiveNode);
+      _scheduler.register(new OpChain(context, receiveOperator, id -> finished.countDown()));
+      String mailboxId =
+          MailboxIdUtils.toMailboxIds(requestId, SENDER_STAGE_ID, MAILBOX_INFOS.getMailboxInfos(), 0, 0).get(0);
+      sendBlocks(_mailboxService.getReceivingMailbox(mailboxId), 0, deadlineMs);
+    }
+    finished.await();
+  }
+
+  private void sendBlocks(ReceivingMailbox mailbox, int blockId, long deadlineMs) {
+    _producerService.schedule(() -> {
+      long timeoutMs = deadlineMs - System.currentTimeMillis();
+      if (blockId < _numBlocks) {
+        mailbox.offer(_dataBlock, List.of(), timeoutMs);
+        sendBlocks(mailbox, blockId + 1, deadlineMs);
+      } else {
+        mailbox.offer(SuccessMseBlock.INSTANCE, List.of(), timeoutMs);
+      }
+    }, _producerDelayMs, TimeUnit.MILLISECONDS);
+  }
+}
@@ -131,6 +131,17 @@ public class BenchmarkQueriesMSQE extends BaseClusterIntegrationTest {
       + ") \n"
       + "where regexp_like_var('.*a.*', RAW_STRING_COL )";
 
+  public static final String GROUP_BY_QUERY = "select LOW_CARDINALITY_STRING_COL, sum(RAW_INT_COL), \n"
+      + "  min(NO_INDEX_INT_COL), max(SORTED_COL), avg(INT_COL)\n"
+      + "from MyTable \n"
+      + "group by LOW_CARDINALITY_STRING_COL";
+
+  public static final String FILTERED_GROUP_BY_QUERY = "select LOW_CARDINALITY_STRING_COL, \n"
+      + "  sum(RAW_INT_COL) filter (where INT_COL > 100), count(*)\n"
+      + "from MyTable \n"
+      + "where NO_INDEX_INT_COL % 2 = 0\n"
+      + "group by LOW_CARDINALITY_STRING_COL";
+
   private Distribution.DataSupplier _supplier;
 
   @Param("1500000")
@@ -140,10 +151,18 @@ public class BenchmarkQueriesMSQE extends BaseClusterIntegrationTest {
   String _scenario;
 
   @Param({
-      REGEXP_LIKE_CONST_QUERY, REGEXP_LIKE_VAR_QUERY
+      REGEXP_LIKE_CONST_QUERY, REGEXP_LIKE_VAR_QUERY, GROUP_BY_QUERY, FILTERED_GROUP_BY_QUERY
   })
   String _query;
 
+  // Blocks are only serialized between servers, so more than one server is needed to compare the block formats
+  @Param("2")
+  private int _numServers;
+
+  // Whether the blocks sent between servers are serialized in columnar format
+  @Param({"false", "true"})
+  private boolean _columnarDataBlock;
+
   @Setup
   public void setUp()
       throws Exception {
@@ -154,7 +173,7 @@ public class BenchmarkQueriesMSQE extends BaseClusterIntegrationTest {
     startZk();
     startController();
     startBroker();
-    startServer();
+    startServers(_numServers);
 
     // upload test data
     addSchema(SCHEMA);
@@ -187,8 +206,9 @@ public class BenchmarkQueriesMSQE extends BaseClusterIntegrationTest {
   @Benchmark
   public JsonNode query()
       throws Exception {
+    String query = "SET useColumnarDataBlock = " + _columnarDataBlock + "; " + _query;
     JsonNode result =
-        postQuery(_query, ClusterIntegrationTestUtils.getBrokerQueryApiUrl(getBrokerBaseApiUrl(), true), null,
+        postQuery(query, ClusterIntegrationTestUtils.getBrokerQueryApiUrl(getBrokerBaseApiUrl(), true), null,
             getExtraQueryProperties());
     JsonNode exceptions = result.get("exceptions").get(0);
     if (exceptions != null) {
@@ -0,0 +1,164 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.perf;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.apache.pinot.common.function.FunctionInfo;
+import org.apache.pinot.common.function.FunctionInvoker;
+import org.apache.pinot.common.function.scalar.ArithmeticFunctions;
+import org.apache.pinot.common.function.scalar.DateTimeFunctions;
+import org.apache.pinot.common.function.scalar.JsonFunctions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+
+/**
+ * Compares the per row invocation of scalar functions (via reflection and via method handle) with the batch kernel
+ * invocation over a block of values. Functions without batch kernel (e.g. jsonPathString) fall back to the per row
+ * method handle invocation in the batch benchmark, same as the query engine.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class BenchmarkScalarFunctionBatchEvaluation {
+  // Same as the max number of documents per block in the query engine
+  private static final int NUM_ROWS = 10_000;
+  private static final long TIME_BASE_MS = 1_700_000_000_000L;
+
+  @Param({"toDateTime", "intDiv", "positiveModulo", "jsonPathString"})
+  public String _function;
+
+  private Method _method;
+  private FunctionInvoker _functionInvoker;
+  // Per row arguments
+  private Object[][] _rowArguments;
+  // Batch arguments, one array per parameter
+  private Object[] _batchArguments;
+  private Object _batchResults;
+
+  @Setup
+  public void setUp()
+      throws Exception {
+    Random random = new Random(42);
+    Object[] firstArguments;
+    Object[] secondArguments;
+    switch (_function) {
+      case "toDateTime": {
+        _method = DateTimeFunctions.class.getMethod("toDateTime", long.class, String.class);
+        long[] millis = new long[NUM_ROWS];
+        String[] patterns = new String[NUM_ROWS];
+        for (int i = 0; i < NUM_ROWS; i++) {
+          millis[i] = TIME_BASE_MS + random.nextInt(Integer.MAX_VALUE);
+        }
+        Arrays.fill(patterns, "yyyy-MM-dd HH:mm:ss");
+        _batchArguments = new Object[]{millis, patterns};
+        _batchResults = new String[NUM_ROWS];
+        firstArguments = Arrays.stream(millis).boxed().toArray();
+        secondArguments = patterns;
+        break;
+      }
+      case "intDiv":
+      case "positiveModulo": {
+        _method = ArithmeticFunctions.class.getMethod(_function, double.class, double.class);
+        double[] a = new double[NUM_ROWS];
+        double[] b = new double[NUM_ROWS];
+        for (int i = 0; i < NUM_ROWS; i++) {
+          a[i] = random.nextDouble() * 1_000_000 - 500_000;
+          b[i] = random.nextInt(1000) + 1;
+        }
+        _batchArguments = new Object[]{a, b};
+        _batchResults = _function.equals("intDiv") ? new long[NUM_ROWS] : new double[NUM_ROWS];
+        firstArguments = Arrays.stream(a).boxed().toArray();
+        secondArguments = Arrays.stream(b).boxed().toArray();
+        break;
+      }
+      case "jsonPathString": {
+        _method = JsonFunctions.class.getMethod("jsonPathString", Object.class, String.class);
+        String[] jsons = new String[NUM_ROWS];
+        String[] jsonPaths = new String[NUM_ROWS];
+        for (int i = 0; i < NUM_ROWS; i++) {
+          jsons[i] = "{\"id\":" + i + ",\"name\":\"name_" + random.nextInt(1000) + "\",\"tags\":[\"a\",\"b\"]}";
+        }
+        Arrays.fill(jsonPaths, "$.name");
+        firstArguments = jsons;
+        secondArguments = jsonPaths;
+        break;
+      }
+      default:
+        throw new IllegalStateException("Unsupported function: " + _function);
+    }
+    _functionInvoker = new FunctionInvoker(FunctionInfo.fromMethod(_method));
+    _rowArguments = new Object[NUM_ROWS][];
+    for (int i = 0; i < NUM_ROWS; i++) {
+      _rowArguments[i] = new Object[]{firstArguments[i], secondArguments[i]};
+    }
+  }
+
+  @Benchmark
+  public void perRowReflection(Blackhole blackhole)
+      throws Exception {
+    for (int i = 0; i < NUM_ROWS; i++) {
+      blackhole.consume(_method.invoke(null, _rowArguments[i]));
+    }
+  }
+
+  @Benchmark
+  public void perRowMethodHandle(Blackhole blackhole) {
+    for (int i = 0; i < NUM_ROWS; i++) {
+      blackhole.consume(_functionInvoker.invoke(_rowArguments[i]));
+    }
+  }
+
+  @Benchmark
+  public void batch(Blackhole blackhole)
+      throws Exception {
+    if (_functionInvoker.hasBatchMethod()) {
+      _functionInvoker.invokeBatch(NUM_ROWS, _batchArguments, _batchResults);
+      blackhole.consume(_batchResults);
+    } else {
+      perRowMethodHandle(blackhole);
+    }
+  }
+
+  public static void main(String[] args)
+      throws Exception {
+    ChainedOptionsBuilder opt =
+        new OptionsBuilder().include(BenchmarkScalarFunctionBatchEvaluation.class.getSimpleName());
+    new Runner(opt.build()).run();
+  }
+}
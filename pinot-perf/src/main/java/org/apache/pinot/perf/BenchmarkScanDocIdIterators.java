@@ -27,6 +27,8 @@ import org.apache.commons.io.FileUtils;
 import org.apache.pinot.common.request.context.predicate.Predicate;
 import org.apache.pinot.core.operator.dociditerators.SVScanDocIdIterator;
 import org.apache.pinot.core.operator.filter.predicate.PredicateEvaluator;
+import org.apache.pinot.core.operator.filter.predicate.ScanKernels;
+import org.apache.pinot.segment.spi.Constants;
 import org.apache.pinot.segment.local.io.writer.impl.FixedBitSVForwardIndexWriter;
 import org.apache.pinot.segment.local.segment.index.readers.forward.FixedBitSVForwardIndexReaderV2;
 import org.apache.pinot.segment.spi.memory.PinotDataBuffer;
@@ -76,6 +78,10 @@ public class BenchmarkScanDocIdIterators {
   @Param({"UNIFORM(0,10000000)"})
   String _distribution;
 
+  // whether the predicate evaluator uses the branch-free batch kernel
+  @Param({"false", "true"})
+  boolean _branchFree;
+
   private DummyPredicateEvaluator _predicateEvaluator;
   private FixedBitSVForwardIndexReaderV2 _readerV2;
   private ImmutableRoaringBitmap _bitmap;
@@ -110,7 +116,9 @@ public class BenchmarkScanDocIdIterators {
       }
     }
     _bitmap = writer.get();
-    _predicateEvaluator = new DummyPredicateEvaluator(sorted[_thresholdQuantile * sorted.length / 10]);
+    int threshold = sorted[_thresholdQuantile * sorted.length / 10];
+    _predicateEvaluator =
+        _branchFree ? new BranchFreePredicateEvaluator(threshold) : new DummyPredicateEvaluator(threshold);
     _readerV2 = new FixedBitSVForwardIndexReaderV2(_dataBuffer, values.length, numBits);
   }
 
@@ -126,6 +134,34 @@ public class BenchmarkScanDocIdIterators {
     return new SVScanDocIdIterator(_predicateEvaluator, _readerV2, _numDocs).applyAnd(_bitmap);
   }
 
+  @Benchmark
+  public int benchmarkSVFullScan() {
+    SVScanDocIdIterator docIdIterator = new SVScanDocIdIterator(_predicateEvaluator, _readerV2, _numDocs);
+    int numMatchingDocs = 0;
+    while (docIdIterator.next() != Constants.EOF) {
+      numMatchingDocs++;
+    }
+    return numMatchingDocs;
+  }
+
+  /**
+   * Same as {@link DummyPredicateEvaluator}, but evaluates the batches with the branch-free {@link ScanKernels}.
+   */
+  public static class BranchFreePredicateEvaluator extends DummyPredicateEvaluator {
+
+    private final int _threshold;
+
+    public BranchFreePredicateEvaluator(int threshold) {
+      super(threshold);
+      _threshold = threshold;
+    }
+
+    @Override
+    public int applySV(int limit, int[] docIds, int[] values) {
+      return ScanKernels.matchRange(limit, docIds, values, Integer.MIN_VALUE, _threshold - 1);
+    }
+  }
+
   public static class DummyPredicateEvaluator implements PredicateEvaluator {
 
     private final int _threshold;
@@ -0,0 +1,179 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.perf;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.apache.pinot.segment.local.upsert.OffHeapRecordLocationMap;
+import org.apache.pinot.segment.local.utils.HashUtils;
+import org.apache.pinot.spi.utils.ByteArray;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+
+/**
+ * Compares the ingestion throughput of the on-heap upsert primary key map (ConcurrentHashMap of hashed primary keys to
+ * record locations) with the off-heap {@link OffHeapRecordLocationMap}.
+ * <p>
+ * Running the main method also prints the memory footprint per primary key of both maps.
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+@State(Scope.Benchmark)
+public class BenchmarkUpsertPrimaryKeyStore {
+  private static final int NUM_SEGMENTS = 100;
+
+  @Param({"1000000", "10000000"})
+  private int _numRecords;
+
+  // Ratio of records updating an existing primary key
+  @Param({"0.5"})
+  private double _updateRatio;
+
+  private byte[][] _keys;
+  private int[] _segmentIds;
+  private Object[] _segments;
+
+  @Setup
+  public void setUp() {
+    _keys = generateKeys(_numRecords, _updateRatio);
+    Random random = new Random(42);
+    _segmentIds = new int[_numRecords];
+    for (int i = 0; i < _numRecords; i++) {
+      _segmentIds[i] = random.nextInt(NUM_SEGMENTS) + 1;
+    }
+    _segments = new Object[NUM_SEGMENTS + 1];
+    for (int i = 0; i <= NUM_SEGMENTS; i++) {
+      _segments[i] = new Object();
+    }
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public int concurrentHashMap() {
+    ConcurrentHashMap<Object, RecordLocation> map = new ConcurrentHashMap<>();
+    for (int i = 0; i < _numRecords; i++) {
+      Long comparisonValue = (long) i;
+      Object segment = _segments[_segmentIds[i]];
+      int docId = i;
+      map.compute(new ByteArray(_keys[i]), (k, current) -> current == null
+          || comparisonValue.compareTo((Long) current._comparisonValue) >= 0 ? new RecordLocation(segment, docId,
+          comparisonValue) : current);
+    }
+    return map.size();
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public int offHeapRecordLocationMap()
+      throws IOException {
+    try (OffHeapRecordLocationMap map = new OffHeapRecordLocationMap(1 << 16, "BenchmarkUpsertPrimaryKeyStore")) {
+      for (int i = 0; i < _numRecords; i++) {
+        Long comparisonValue = (long) i;
+        byte[] key = _keys[i];
+        int index = map.indexOf(key);
+        if (index < 0) {
+          map.put(key, _segmentIds[i], i, comparisonValue, 0);
+        } else if (comparisonValue.compareTo((Long) map.getComparisonValue(index)) >= 0) {
+          map.set(index, _segmentIds[i], i, comparisonValue, 0);
+        }
+      }
+      return map.size();
+    }
+  }
+
+  private static byte[][] generateKeys(int numRecords, double updateRatio) {
+    Random random = new Random(42);
+    int numUniqueKeys = Math.max(1, (int) (numRecords * (1 - updateRatio)));
+    byte[][] keys = new byte[numRecords][];
+    for (int i = 0; i < numRecords; i++) {
+      keys[i] = HashUtils.hashMurmur3(Integer.toString(random.nextInt(numUniqueKeys)).getBytes());
+    }
+    return keys;
+  }
+
+  private static long getUsedHeapBytes() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+  private static void printMemoryFootprint(int numRecords)
+      throws IOException {
+    byte[][] keys = generateKeys(numRecords, 0);
+    Object segment = new Object();
+
+    long heapBytesBefore = getUsedHeapBytes();
+    ConcurrentHashMap<Object, RecordLocation> concurrentHashMap = new ConcurrentHashMap<>();
+    for (int i = 0; i < numRecords; i++) {
+      concurrentHashMap.put(new ByteArray(keys[i]), new RecordLocation(segment, i, (long) i));
+    }
+    long heapBytes = getUsedHeapBytes() - heapBytesBefore;
+    // The keys are shared with the ByteArray wrappers, so count them as part of the map
+    System.out.printf("ConcurrentHashMap: %d keys, %.1f bytes per key (heap)%n", concurrentHashMap.size(),
+        (double) heapBytes / numRecords + 16 + keys[0].length);
+    concurrentHashMap = null;
+
+    heapBytesBefore = getUsedHeapBytes();
+    try (OffHeapRecordLocationMap offHeapMap = new OffHeapRecordLocationMap(1 << 16, "memoryFootprint")) {
+      for (int i = 0; i < numRecords; i++) {
+        offHeapMap.put(keys[i], 1, i, (long) i, 0);
+      }
+      heapBytes = getUsedHeapBytes() - heapBytesBefore;
+      System.out.printf("OffHeapRecordLocationMap: %d keys, %.1f bytes per key (off-heap), %.1f bytes per key (heap)%n",
+          offHeapMap.size(), (double) offHeapMap.getSizeInBytes() / numRecords, (double) heapBytes / numRecords);
+    }
+  }
+
+  private static final class RecordLocation {
+    final Object _segment;
+    final int _docId;
+    final Comparable _comparisonValue;
+
+    RecordLocation(Object segment, int docId, Comparable comparisonValue) {
+      _segment = segment;
+      _docId = docId;
+      _comparisonValue = comparisonValue;
+    }
+  }
+
+  public static void main(String[] args)
+      throws Exception {
+    printMemoryFootprint(5_000_000);
+    new Runner(new OptionsBuilder().include(BenchmarkUpsertPrimaryKeyStore.class.getSimpleName()).build()).run();
+  }
+}
@@ -0,0 +1,135 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.perf;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.apache.calcite.rel.RelFieldCollation;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
+import org.apache.pinot.query.planner.logical.RexExpression;
+import org.apache.pinot.query.planner.plannode.WindowNode;
+import org.apache.pinot.query.runtime.operator.window.WindowFrame;
+import org.apache.pinot.query.runtime.operator.window.aggregate.AggregateWindowFunction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+
+/**
+ * Compares the window aggregation on boxed values (one {@code WindowValueAggregator} call per added / removed value)
+ * with the aggregation on primitive values for a single partition of {@code _numRows} rows sorted on the order key.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@State(Scope.Benchmark)
+public class BenchmarkWindowAggregation {
+  private static final DataSchema DATA_SCHEMA = new DataSchema(new String[]{"orderKey", "longCol", "doubleCol"},
+      new ColumnDataType[]{ColumnDataType.INT, ColumnDataType.LONG, ColumnDataType.DOUBLE});
+
+  @Param({"false", "true"})
+  private boolean _primitive;
+
+  @Param({"SUM", "COUNT", "MIN", "MAX"})
+  private String _functionName;
+
+  @Param({"LONG", "DOUBLE"})
+  private String _dataType;
+
+  // ROWS_SLIDING: ROWS BETWEEN 100 PRECEDING AND 100 FOLLOWING
+  // ROWS_RUNNING: ROWS BETWEEN UNBOUNDED PRECEDING AND CURRENT ROW
+  // RANGE_RUNNING: RANGE BETWEEN UNBOUNDED PRECEDING AND CURRENT ROW
+  @Param({"ROWS_SLIDING", "ROWS_RUNNING", "RANGE_RUNNING"})
+  private String _frame;
+
+  @Param({"1000000"})
+  private int _numRows;
+
+  private AggregateWindowFunction _windowFunction;
+  private List<Object[]> _rows;
+
+  public static void main(String[] args)
+      throws Exception {
+    ChainedOptionsBuilder opt = new OptionsBuilder().include(BenchmarkWindowAggregation.class.getSimpleName());
+    new Runner(opt.build()).run();
+  }
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    int inputRef = _dataType.equals("LONG") ? 1 : 2;
+    RexExpression.FunctionCall aggCall =
+        new RexExpression.FunctionCall(DATA_SCHEMA.getColumnDataType(inputRef), _functionName,
+            List.of(new RexExpression.InputRef(inputRef)));
+    WindowFrame windowFrame;
+    switch (_frame) {
+      case "ROWS_SLIDING":
+        windowFrame = new WindowFrame(WindowNode.WindowFrameType.ROWS, -100, 100);
+        break;
+      case "ROWS_RUNNING":
+        windowFrame = new WindowFrame(WindowNode.WindowFrameType.ROWS, Integer.MIN_VALUE, 0);
+        break;
+      case "RANGE_RUNNING":
+        windowFrame = new WindowFrame(WindowNode.WindowFrameType.RANGE, Integer.MIN_VALUE, 0);
+        break;
+      default:
+        throw new IllegalArgumentException("Unsupported frame: " + _frame);
+    }
+    _windowFunction =
+        new AggregateWindowFunction(aggCall, DATA_SCHEMA, List.of(new RelFieldCollation(0)), windowFrame, _primitive);
+
+    Random random = new Random(42);
+    _rows = new ArrayList<>(_numRows);
+    int orderKey = 0;
+    for (int i = 0; i < _numRows; i++) {
+      // Around 4 rows per order key
+      if (random.nextInt(4) == 0) {
+        orderKey++;
+      }
+      long value = random.nextInt(1_000_000);
+      _rows.add(new Object[]{orderKey, value, (double) value});
+    }
+  }
+
+  @Benchmark
+  public void processRows(Blackhole bh) {
+    List<Object> results = _windowFunction.processRows(_rows);
+    int numRows = results.size();
+    for (int i = 0; i < numRows; i++) {
+      bh.consume(results.get(i));
+    }
+  }
+}
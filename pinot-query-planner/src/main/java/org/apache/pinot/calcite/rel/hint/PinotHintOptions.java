@@ -59,6 +59,10 @@ public class PinotHintOptions {
     /** Throw an exception on reaching num_groups_limit instead of just setting a flag. */
     public static final String ERROR_ON_NUM_GROUPS_LIMIT = "error_on_num_groups_limit";
 
+    /** Spill the groups to disk on reaching num_groups_limit and re-aggregate them afterward, instead of truncating the
+     *  groups. Takes precedence over error_on_num_groups_limit. */
+    public static final String SPILL_ON_NUM_GROUPS_LIMIT = "spill_on_num_groups_limit";
+
     /** Max number of keys produced by MSQE aggregation. */
     public static final String NUM_GROUPS_LIMIT = "num_groups_limit";
 
@@ -97,9 +101,11 @@ public class PinotHintOptions {
     public static final String MAX_ROWS_IN_JOIN = "max_rows_in_join";
 
     /**
-     * Mode when join overflow happens, supported values: THROW or BREAK.
+     * Mode when join overflow happens, supported values: THROW, BREAK or SPILL.
      *   THROW(default): Break right table build process, and throw exception, no JOIN with left table performed.
      *   BREAK: Break right table build process, continue to perform JOIN operation, results might be partial.
+     *   SPILL: Spill both sides of the hash join to local disk partitioned by the join keys, then join the partitions
+     *          one by one. Only supported by the hash join, other join strategies behave as THROW.
      */
     public static final String JOIN_OVERFLOW_MODE = "join_overflow_mode";
 
@@ -113,6 +119,12 @@ public class PinotHintOptions {
      */
     public static final String APPEND_DISTINCT_TO_SEMI_JOIN_PROJECT = "append_distinct_to_semi_join_project";
 
+    /**
+     * Indicates that the distinct join keys from the right side should be pushed as a runtime filter into the left side
+     * leaf stage scan. Only applies to INNER and RIGHT join where the left side can be planned in the leaf stage.
+     */
+    public static final String RUNTIME_FILTER = "runtime_filter";
+
     @Nullable
     public static Map<String, String> getJoinHintOptions(Join join) {
       return PinotHintStrategyTable.getHintOptions(join.getHints(), JOIN_HINT_OPTIONS);
@@ -138,6 +150,11 @@ public class PinotHintOptions {
       return DistributionType.fromHint(joinHintOptions.get(RIGHT_DISTRIBUTION_TYPE));
     }
 
+    public static boolean useRuntimeFilter(Join join) {
+      return Boolean.parseBoolean(PinotHintStrategyTable.getHintOption(join.getHints(), JOIN_HINT_OPTIONS,
+          RUNTIME_FILTER));
+    }
+
     @Nullable
     public static Boolean isColocatedByJoinKeys(Join join) {
       String hint = PinotHintStrategyTable.getHintOption(join.getHints(), JOIN_HINT_OPTIONS, IS_COLOCATED_BY_JOIN_KEYS);
@@ -102,6 +102,8 @@ public class PinotLogicalExchange extends Exchange {
     if (_exchangeType != PinotRelExchangeType.getDefaultExchangeType()) {
       relWriter.item("relExchangeType", _exchangeType);
     }
+    // Show the colocated (pre-partitioned) exchange explicitly set from the join hint
+    relWriter.itemIf("prePartitioned", true, Boolean.TRUE.equals(_prePartitioned));
     return relWriter;
   }
 
@@ -0,0 +1,245 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.calcite.rel.rules;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+import org.apache.calcite.plan.RelOptRuleCall;
+import org.apache.calcite.plan.RelRule;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.core.Filter;
+import org.apache.calcite.rel.core.JoinInfo;
+import org.apache.calcite.rel.core.JoinRelType;
+import org.apache.calcite.rel.core.Project;
+import org.apache.calcite.rel.core.TableScan;
+import org.apache.calcite.rel.hint.RelHint;
+import org.apache.calcite.rel.logical.LogicalJoin;
+import org.apache.calcite.rex.RexInputRef;
+import org.apache.calcite.rex.RexNode;
+import org.apache.pinot.calcite.rel.hint.PinotHintOptions;
+import org.apache.pinot.query.planner.logical.RelToPlanNodeConverter;
+import org.apache.pinot.query.routing.WorkerManager;
+import org.immutables.value.Value;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Infers the join strategy from the table partition and segment metadata for the joins without explicit join strategy
+ * hint, and attaches it as join hint so that the exchanges are inserted accordingly:
+ * <ul>
+ *   <li>
+ *     Colocated join: when both sides of the join scan a table partitioned on the join keys with the same partition
+ *     function and number of partitions, and the same partition of both tables are served by the same servers (see
+ *     {@link WorkerManager#isColocated(String, String)}), the join is hinted as
+ *     {@link PinotHintOptions.JoinHintOptions#IS_COLOCATED_BY_JOIN_KEYS} and the table scans are hinted with the table
+ *     partition info. The join is then performed on each partition locally without shuffling the data.
+ *   </li>
+ *   <li>
+ *     Broadcast join: when the right side of an INNER or LEFT join scans a table with at most
+ *     {@code broadcastJoinMaxRows} rows (based on the segment metadata), the right side is broadcast to the workers of
+ *     the left side, and the left side is exchanged locally.
+ *   </li>
+ * </ul>
+ * Only the join inputs consisting of a table scan with optional projects and filters are considered.
+ */
+@Value.Enclosing
+public class PinotImplicitJoinHintRule extends RelRule<RelRule.Config> {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(PinotImplicitJoinHintRule.class);
+  private final WorkerManager _workerManager;
+  private final long _broadcastJoinMaxRows;
+
+  private PinotImplicitJoinHintRule(Config config) {
+    super(config);
+    _workerManager = config.getWorkerManager();
+    _broadcastJoinMaxRows = config.getBroadcastJoinMaxRows();
+  }
+
+  public static PinotImplicitJoinHintRule withWorkerManager(WorkerManager workerManager, long broadcastJoinMaxRows) {
+    return new PinotImplicitJoinHintRule(ImmutablePinotImplicitJoinHintRule.Config.builder()
+        .operandSupplier(b0 -> b0.operand(LogicalJoin.class).anyInputs())
+        .workerManager(workerManager)
+        .broadcastJoinMaxRows(broadcastJoinMaxRows)
+        .build()
+    );
+  }
+
+  @Override
+  public boolean matches(RelOptRuleCall call) {
+    LogicalJoin join = call.rel(0);
+    // we don't want to apply this rule if the join strategy is explicitly hinted, or when there is no join key
+    return !hasJoinStrategyHint(join) && !join.analyzeCondition().leftKeys.isEmpty();
+  }
+
+  @Override
+  public void onMatch(RelOptRuleCall call) {
+    LogicalJoin join = call.rel(0);
+    RelNode left = PinotRuleUtils.unboxRel(join.getLeft());
+    RelNode right = PinotRuleUtils.unboxRel(join.getRight());
+    TableScan leftTableScan = getTableScan(left);
+    TableScan rightTableScan = getTableScan(right);
+    if (rightTableScan == null) {
+      return;
+    }
+    String rightTableName = RelToPlanNodeConverter.getTableNameFromTableScan(rightTableScan);
+
+    if (leftTableScan != null) {
+      String leftTableName = RelToPlanNodeConverter.getTableNameFromTableScan(leftTableScan);
+      TableOptions leftTableOptions = _workerManager.inferTableOptions(leftTableName);
+      TableOptions rightTableOptions = _workerManager.inferTableOptions(rightTableName);
+      if (leftTableOptions != null && rightTableOptions != null
+          && isJoinedOnPartitionKeys(join.analyzeCondition(), left, leftTableOptions, right, rightTableOptions)
+          && _workerManager.isColocated(leftTableName, rightTableName)) {
+        LOGGER.debug("Inferred colocated join for tables: {} and {}", leftTableName, rightTableName);
+        RelNode newLeft = withTableOptions(left, leftTableOptions);
+        RelNode newRight = withTableOptions(right, rightTableOptions);
+        RelNode newJoin = join.copy(join.getTraitSet(), join.getCondition(), newLeft, newRight, join.getJoinType(),
+            join.isSemiJoinDone());
+        Map<String, String> options = Map.of(PinotHintOptions.JoinHintOptions.IS_COLOCATED_BY_JOIN_KEYS, "true");
+        call.transformTo(((LogicalJoin) newJoin).withHints(withJoinHintOptions(join.getHints(), options)));
+        return;
+      }
+    }
+
+    JoinRelType joinType = join.getJoinType();
+    if (_broadcastJoinMaxRows > 0 && (joinType == JoinRelType.INNER || joinType == JoinRelType.LEFT)) {
+      Long numDocs = _workerManager.getNumDocs(rightTableName);
+      if (numDocs != null && numDocs <= _broadcastJoinMaxRows) {
+        LOGGER.debug("Inferred broadcast join for table: {} with {} rows", rightTableName, numDocs);
+        Map<String, String> options = Map.of(
+            PinotHintOptions.JoinHintOptions.LEFT_DISTRIBUTION_TYPE, PinotHintOptions.DistributionType.LOCAL_HINT,
+            PinotHintOptions.JoinHintOptions.RIGHT_DISTRIBUTION_TYPE, PinotHintOptions.DistributionType.BROADCAST_HINT);
+        call.transformTo(join.withHints(withJoinHintOptions(join.getHints(), options)));
+      }
+    }
+  }
+
+  /**
+   * Returns whether the join strategy is explicitly hinted, in which case the hint is respected.
+   */
+  private static boolean hasJoinStrategyHint(LogicalJoin join) {
+    Map<String, String> joinHintOptions = PinotHintOptions.JoinHintOptions.getJoinHintOptions(join);
+    if (joinHintOptions == null) {
+      return false;
+    }
+    return joinHintOptions.containsKey(PinotHintOptions.JoinHintOptions.JOIN_STRATEGY)
+        || joinHintOptions.containsKey(PinotHintOptions.JoinHintOptions.IS_COLOCATED_BY_JOIN_KEYS)
+        || joinHintOptions.containsKey(PinotHintOptions.JoinHintOptions.LEFT_DISTRIBUTION_TYPE)
+        || joinHintOptions.containsKey(PinotHintOptions.JoinHintOptions.RIGHT_DISTRIBUTION_TYPE)
+        || joinHintOptions.containsKey(PinotHintOptions.JoinHintOptions.RUNTIME_FILTER);
+  }
+
+  /**
+   * Returns the table scan if the given node is a table scan with optional projects and filters on top of it, or
+   * {@code null} otherwise.
+   */
+  @Nullable
+  private static TableScan getTableScan(RelNode node) {
+    while (true) {
+      if (node instanceof TableScan) {
+        return (TableScan) node;
+      }
+      if (!(node instanceof Project) && !(node instanceof Filter)) {
+        return null;
+      }
+      node = PinotRuleUtils.unboxRel(node.getInput(0));
+    }
+  }
+
+  /**
+   * Returns whether any pair of the join keys are the partition keys of the tables.
+   */
+  private static boolean isJoinedOnPartitionKeys(JoinInfo joinInfo, RelNode left, TableOptions leftTableOptions,
+      RelNode right, TableOptions rightTableOptions) {
+    int numKeys = joinInfo.leftKeys.size();
+    for (int i = 0; i < numKeys; i++) {
+      if (isPartitionKey(left, joinInfo.leftKeys.get(i), leftTableOptions.getPartitionKey()) && isPartitionKey(right,
+          joinInfo.rightKeys.get(i), rightTableOptions.getPartitionKey())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns whether the given field of the node directly references the partition key of the underlying table scan.
+   */
+  private static boolean isPartitionKey(RelNode node, int fieldIndex, String partitionKey) {
+    while (!(node instanceof TableScan)) {
+      if (node instanceof Project) {
+        RexNode project = ((Project) node).getProjects().get(fieldIndex);
+        if (!(project instanceof RexInputRef)) {
+          return false;
+        }
+        fieldIndex = ((RexInputRef) project).getIndex();
+      }
+      node = PinotRuleUtils.unboxRel(node.getInput(0));
+    }
+    return node.getRowType().getFieldNames().get(fieldIndex).equals(partitionKey);
+  }
+
+  /**
+   * Returns a copy of the given node with the table options hint attached to the underlying table scan.
+   */
+  private static RelNode withTableOptions(RelNode node, TableOptions tableOptions) {
+    if (node instanceof TableScan) {
+      return PinotImplicitTableHintRule.withNewTableOptions((TableScan) node, tableOptions);
+    }
+    RelNode newInput = withTableOptions(PinotRuleUtils.unboxRel(node.getInput(0)), tableOptions);
+    return node.copy(node.getTraitSet(), List.of(newInput));
+  }
+
+  /**
+   * Returns the hints with the given options added to the join hint options.
+   */
+  private static List<RelHint> withJoinHintOptions(List<RelHint> hints, Map<String, String> options) {
+    List<RelHint> newHints = new ArrayList<>(hints.size() + 1);
+    Map<String, String> kvOptions = new LinkedHashMap<>();
+    for (RelHint hint : hints) {
+      if (hint.hintName.equals(PinotHintOptions.JOIN_HINT_OPTIONS)) {
+        kvOptions.putAll(hint.kvOptions);
+      } else {
+        newHints.add(hint);
+      }
+    }
+    kvOptions.putAll(options);
+    newHints.add(RelHint.builder(PinotHintOptions.JOIN_HINT_OPTIONS).hintOptions(kvOptions).build());
+    return newHints;
+  }
+
+  @Value.Immutable
+  public interface Config extends RelRule.Config {
+    @Nullable
+    WorkerManager getWorkerManager();
+
+    @Value.Default
+    default long getBroadcastJoinMaxRows() {
+      return 0;
+    }
+
+    @Override
+    default PinotImplicitJoinHintRule toRule() {
+      return new PinotImplicitJoinHintRule(this);
+    }
+  }
+}
@@ -104,7 +104,7 @@ public class PinotImplicitTableHintRule extends RelRule<RelRule.Config> {
   /**
    * Returns a new node which is a copy of the given table scan with the new table options hint.
    */
-  private static RelNode withNewTableOptions(TableScan tableScan, TableOptions tableOptions) {
+  static RelNode withNewTableOptions(TableScan tableScan, TableOptions tableOptions) {
     ArrayList<RelHint> newHints = new ArrayList<>(tableScan.getHints());
 
     newHints.removeIf(relHint -> relHint.hintName.equals(PinotHintOptions.TABLE_HINT_OPTIONS));
@@ -0,0 +1,136 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.calcite.rel.rules;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.calcite.plan.RelOptRule;
+import org.apache.calcite.plan.RelOptRuleCall;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.core.Join;
+import org.apache.calcite.rel.core.JoinInfo;
+import org.apache.calcite.rel.core.JoinRelType;
+import org.apache.calcite.rel.hint.RelHint;
+import org.apache.calcite.rel.logical.LogicalJoin;
+import org.apache.calcite.tools.RelBuilder;
+import org.apache.calcite.tools.RelBuilderFactory;
+import org.apache.pinot.calcite.rel.hint.PinotHintOptions;
+
+
+/**
+ * Special rule for Pinot, this rule adds a runtime filter on the left side of an INNER or RIGHT join, where the rows
+ * from the left side without a matching join key on the right side are dropped by the join.
+ *
+ * <p>The runtime filter is modeled as a dynamic broadcast SEMI join between the left input and the distinct join keys
+ * of the right input:
+ *
+ *             [ Inner Join ]                            [ Inner Join ]
+ *             /            \                            /            \
+ *     [Proj/Filter]     [Proj/Filter]          [ Semi Join ]       [Proj/Filter]
+ *          |                  |                /           \              |
+ *     [Table Scan ]     [Table Scan ]   [Proj/Filter]   [ Distinct ]  [Table Scan ]
+ *                                             |              |
+ *                                       [Table Scan ]  [Proj/Filter]
+ *                                                            |
+ *                                                      [Table Scan ]
+ *
+ * <p>{@link PinotJoinToDynamicBroadcastRule} then turns the SEMI join into a pipeline breaker, and at runtime the leaf
+ * stage waits for the distinct join keys and applies them as an IN filter to the left table scan (see
+ * {@code ServerPlanRequestVisitor}), which can be solved with the inverted index and cuts the rows shipped to the join.
+ *
+ * <p>This rule only applies when the {@link PinotHintOptions.JoinHintOptions#RUNTIME_FILTER} hint is set, because the
+ * right side is evaluated twice and all its join keys are broadcast to the leaf stage, which only pays off when the
+ * right side is small and selective (e.g. filtered dimension table joined with a fact table). It must be applied before
+ * the exchanges are inserted.
+ *
+ * <p>Only joins with a single equi-join key are supported, because the dynamic broadcast IN filter applies to a single
+ * column. Joins with multiple keys are left unchanged instead of filtering on one of the keys.
+ */
+public class PinotJoinToRuntimeFilterRule extends RelOptRule {
+  public static final PinotJoinToRuntimeFilterRule INSTANCE =
+      new PinotJoinToRuntimeFilterRule(PinotRuleUtils.PINOT_REL_FACTORY);
+
+  public PinotJoinToRuntimeFilterRule(RelBuilderFactory factory) {
+    super(operand(LogicalJoin.class, any()), factory, null);
+  }
+
+  @Override
+  public boolean matches(RelOptRuleCall call) {
+    Join join = call.rel(0);
+    if (!PinotHintOptions.JoinHintOptions.useRuntimeFilter(join)) {
+      return false;
+    }
+    // Rows from the left side are only dropped for INNER and RIGHT join
+    JoinRelType joinType = join.getJoinType();
+    if (joinType != JoinRelType.INNER && joinType != JoinRelType.RIGHT) {
+      return false;
+    }
+    if (PinotHintOptions.JoinHintOptions.useLookupJoinStrategy(join)) {
+      return false;
+    }
+    JoinInfo joinInfo = join.analyzeCondition();
+    return joinInfo.leftKeys.size() == 1 && PinotRuleUtils.canPushDynamicBroadcastToLeaf(join.getLeft());
+  }
+
+  @Override
+  public void onMatch(RelOptRuleCall call) {
+    Join join = call.rel(0);
+    JoinInfo joinInfo = join.analyzeCondition();
+    int leftKey = joinInfo.leftKeys.get(0);
+    int rightKey = joinInfo.rightKeys.get(0);
+    RelNode left = PinotRuleUtils.unboxRel(join.getLeft());
+    RelNode right = PinotRuleUtils.unboxRel(join.getRight());
+
+    RelBuilder relBuilder = call.builder();
+    relBuilder.push(left);
+    relBuilder.push(right).project(relBuilder.field(rightKey)).distinct();
+    relBuilder.semiJoin(relBuilder.equals(relBuilder.field(2, 0, leftKey), relBuilder.field(2, 1, 0)));
+    relBuilder.hints(RelHint.builder(PinotHintOptions.JOIN_HINT_OPTIONS)
+        .hintOption(PinotHintOptions.JoinHintOptions.JOIN_STRATEGY,
+            PinotHintOptions.JoinHintOptions.DYNAMIC_BROADCAST_JOIN_STRATEGY)
+        .build());
+    RelNode filteredLeft = relBuilder.build();
+
+    // Remove the runtime filter hint so that the rule is not applied again on the new join, and do not propagate the
+    // hints of the original join which would add it back
+    LogicalJoin newJoin =
+        (LogicalJoin) join.copy(join.getTraitSet(), join.getCondition(), filteredLeft, join.getRight(),
+            join.getJoinType(), join.isSemiJoinDone());
+    call.transformTo(newJoin.withHints(removeRuntimeFilterHint(join.getHints())), (originalRel, equiv) -> equiv);
+  }
+
+  private static List<RelHint> removeRuntimeFilterHint(List<RelHint> hints) {
+    List<RelHint> newHints = new ArrayList<>(hints.size());
+    for (RelHint hint : hints) {
+      if (hint.hintName.equals(PinotHintOptions.JOIN_HINT_OPTIONS)
+          && hint.kvOptions.containsKey(PinotHintOptions.JoinHintOptions.RUNTIME_FILTER)) {
+        Map<String, String> kvOptions = new LinkedHashMap<>(hint.kvOptions);
+        kvOptions.remove(PinotHintOptions.JoinHintOptions.RUNTIME_FILTER);
+        if (!kvOptions.isEmpty()) {
+          newHints.add(RelHint.builder(hint.hintName).inheritPath(hint.inheritPath).hintOptions(kvOptions).build());
+        }
+      } else {
+        newHints.add(hint);
+      }
+    }
+    return newHints;
+  }
+}
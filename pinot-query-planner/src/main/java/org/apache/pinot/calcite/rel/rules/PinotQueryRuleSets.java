@@ -20,6 +20,9 @@ package org.apache.pinot.calcite.rel.rules;
 
 import java.util.List;
 import org.apache.calcite.plan.RelOptRule;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.core.JoinRelType;
+import org.apache.calcite.rel.logical.LogicalJoin;
 import org.apache.calcite.rel.rules.AggregateCaseToFilterRule;
 import org.apache.calcite.rel.rules.AggregateJoinTransposeRule;
 import org.apache.calcite.rel.rules.AggregateProjectMergeRule;
@@ -31,6 +34,8 @@ import org.apache.calcite.rel.rules.FilterMergeRule;
 import org.apache.calcite.rel.rules.FilterProjectTransposeRule;
 import org.apache.calcite.rel.rules.FilterSetOpTransposeRule;
 import org.apache.calcite.rel.rules.JoinPushExpressionsRule;
+import org.apache.calcite.rel.rules.JoinToMultiJoinRule;
+import org.apache.calcite.rel.rules.LoptOptimizeJoinRule;
 import org.apache.calcite.rel.rules.ProjectFilterTransposeRule;
 import org.apache.calcite.rel.rules.ProjectMergeRule;
 import org.apache.calcite.rel.rules.ProjectRemoveRule;
@@ -211,6 +216,29 @@ public class PinotQueryRuleSets {
           .withDescription(PlannerRuleNames.PRUNE_EMPTY_UNION).toRule()
   );
 
+  // Merge the inner joins (and the projects / filters on top of them) into MultiJoin, applied bottom up before
+  // MULTI_JOIN_OPTIMIZE. Joins with hints are not merged so that the join strategy specified by the user is kept.
+  // Joins are only merged when the row counts of all the joined tables are known, so that MULTI_JOIN_OPTIMIZE never
+  // reorders joins based on the default row count estimates of Calcite.
+  public static final List<RelOptRule> JOIN_TO_MULTI_JOIN_RULES = List.of(
+      JoinToMultiJoinRule.Config.DEFAULT
+          .withOperandSupplier(b0 -> b0.operand(LogicalJoin.class)
+              .predicate(join -> join.getJoinType() == JoinRelType.INNER && join.getHints().isEmpty()
+                  && PinotRuleUtils.hasKnownRowCounts(join))
+              .inputs(b1 -> b1.operand(RelNode.class).anyInputs(), b2 -> b2.operand(RelNode.class).anyInputs()))
+          .as(JoinToMultiJoinRule.Config.class)
+          .withRelBuilderFactory(PinotRuleUtils.PINOT_REL_FACTORY).toRule(),
+      CoreRules.PROJECT_MULTI_JOIN_MERGE.config
+          .withRelBuilderFactory(PinotRuleUtils.PINOT_REL_FACTORY).toRule(),
+      CoreRules.FILTER_MULTI_JOIN_MERGE.config
+          .withRelBuilderFactory(PinotRuleUtils.PINOT_REL_FACTORY).toRule()
+  );
+
+  // Convert the MultiJoin back to joins ordered by the estimated row counts. JOIN_TO_MULTI_JOIN_RULES only creates
+  // MultiJoin when the row counts of all the joined tables are known.
+  public static final RelOptRule MULTI_JOIN_OPTIMIZE = LoptOptimizeJoinRule.Config.DEFAULT
+      .withRelBuilderFactory(PinotRuleUtils.PINOT_REL_FACTORY).toRule();
+
   // Pinot specific rules that should be run AFTER all other rules
   public static final List<RelOptRule> PINOT_POST_RULES = List.of(
       // TODO: Merge the following 2 rules into a single rule
@@ -220,6 +248,8 @@ public class PinotQueryRuleSets {
       PinotSortExchangeCopyRule.SORT_EXCHANGE_COPY,
 
       PinotSingleValueAggregateRemoveRule.INSTANCE,
+      // add runtime filter to join before exchange is inserted
+      PinotJoinToRuntimeFilterRule.INSTANCE,
       PinotJoinExchangeNodeInsertRule.INSTANCE,
       PinotAggregateExchangeNodeInsertRule.SortProjectAggregate.INSTANCE,
       PinotAggregateExchangeNodeInsertRule.SortAggregate.INSTANCE,
@@ -47,6 +47,7 @@ import org.apache.calcite.sql2rel.SqlToRelConverter;
 import org.apache.calcite.tools.RelBuilder;
 import org.apache.calcite.tools.RelBuilderFactory;
 import org.apache.pinot.calcite.rel.hint.PinotHintStrategyTable;
+import org.apache.pinot.query.catalog.PinotTable;
 
 
 public class PinotRuleUtils {
@@ -131,6 +132,24 @@ public class PinotRuleUtils {
     }
   }
 
+  /**
+   * Returns whether the row counts of all the tables scanned under the given node are known from the table statistics,
+   * instead of being the default estimate of the planner.
+   */
+  public static boolean hasKnownRowCounts(RelNode relNode) {
+    relNode = unboxRel(relNode);
+    if (relNode instanceof TableScan) {
+      PinotTable table = relNode.getTable().unwrap(PinotTable.class);
+      return table != null && table.getStatistic().getRowCount() != null;
+    }
+    for (RelNode input : relNode.getInputs()) {
+      if (!hasKnownRowCounts(input)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   public static String extractFunctionName(RexCall function) {
     SqlKind funcSqlKind = function.getOperator().getKind();
     return funcSqlKind == SqlKind.OTHER_FUNCTION ? function.getOperator().getName() : funcSqlKind.name();
@@ -0,0 +1,173 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.calcite.rel.rules;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.Nullable;
+import org.apache.calcite.plan.RelOptRule;
+import org.apache.calcite.plan.RelOptRuleCall;
+import org.apache.calcite.rel.RelCollation;
+import org.apache.calcite.rel.RelCollations;
+import org.apache.calcite.rel.RelFieldCollation;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.core.JoinRelType;
+import org.apache.calcite.rel.core.Sort;
+import org.apache.calcite.rel.logical.LogicalJoin;
+import org.apache.calcite.rel.logical.LogicalProject;
+import org.apache.calcite.rel.logical.LogicalSort;
+import org.apache.calcite.rel.logical.LogicalUnion;
+import org.apache.calcite.rex.RexInputRef;
+import org.apache.calcite.rex.RexNode;
+import org.apache.calcite.tools.RelBuilderFactory;
+import org.apache.pinot.calcite.rel.logical.PinotLogicalExchange;
+import org.apache.pinot.calcite.rel.logical.PinotLogicalSortExchange;
+import org.apache.pinot.calcite.rel.logical.PinotRelExchangeType;
+
+
+/**
+ * Special rule for Pinot, which pushes the partial top-N (sort with fetch) copied below the sort exchange by
+ * {@link PinotSortExchangeCopyRule} further down the plan, and inserts a copy of it before each exchange reachable
+ * without changing the top-N rows, so that each worker of the upstream stages only sends at most N rows.
+ * <p>The top-N is pushed through:
+ * <ul>
+ *   <li>Project, where the sort keys are input references</li>
+ *   <li>Streaming exchange, where the top-N of each sender contains all the rows of the global top-N it holds</li>
+ *   <li>UNION ALL, where the top-N is pushed to each input</li>
+ *   <li>LEFT / RIGHT join, where the top-N is pushed to the preserved side when all the sort keys come from it (each
+ *   row of the preserved side produces at least one output row)</li>
+ * </ul>
+ * This rule must be applied after all the exchanges are inserted.
+ */
+public class PinotSortPushDownRule extends RelOptRule {
+  public static final PinotSortPushDownRule INSTANCE = new PinotSortPushDownRule(PinotRuleUtils.PINOT_REL_FACTORY);
+
+  public PinotSortPushDownRule(RelBuilderFactory factory) {
+    super(operand(PinotLogicalSortExchange.class, operand(LogicalSort.class, any())), factory, null);
+  }
+
+  @Override
+  public boolean matches(RelOptRuleCall call) {
+    Sort sort = call.rel(1);
+    return sort.offset == null && sort.fetch != null;
+  }
+
+  @Override
+  public void onMatch(RelOptRuleCall call) {
+    PinotLogicalSortExchange exchange = call.rel(0);
+    Sort sort = call.rel(1);
+    RelNode input = sort.getInput();
+    RelNode newInput = pushDown(input, sort.getCollation(), sort.fetch);
+    if (newInput != input) {
+      RelNode newSort = sort.copy(sort.getTraitSet(), newInput, sort.getCollation(), null, sort.fetch);
+      call.transformTo(exchange.copy(exchange.getTraitSet(), newSort, exchange.getDistribution()));
+    }
+  }
+
+  /**
+   * Pushes the top-N into the given node, and returns the new node, or the same node if nothing is pushed.
+   */
+  private static RelNode pushDown(RelNode node, RelCollation collation, RexNode fetch) {
+    RelNode rel = PinotRuleUtils.unboxRel(node);
+    if (rel instanceof PinotLogicalExchange) {
+      PinotLogicalExchange exchange = (PinotLogicalExchange) rel;
+      RelNode input = PinotRuleUtils.unboxRel(exchange.getInput());
+      if (exchange.getExchangeType() != PinotRelExchangeType.STREAMING || input instanceof Sort) {
+        return node;
+      }
+      RelNode sort = LogicalSort.create(pushDown(exchange.getInput(), collation, fetch), collation, null, fetch);
+      return exchange.copy(exchange.getTraitSet(), sort, exchange.getDistribution());
+    }
+    if (rel instanceof LogicalProject) {
+      LogicalProject project = (LogicalProject) rel;
+      RelCollation inputCollation = mapCollationThroughProject(project, collation);
+      if (inputCollation == null) {
+        return node;
+      }
+      RelNode input = project.getInput();
+      RelNode newInput = pushDown(input, inputCollation, fetch);
+      return newInput != input ? project.copy(project.getTraitSet(), List.of(newInput)) : node;
+    }
+    if (rel instanceof LogicalUnion && ((LogicalUnion) rel).all) {
+      LogicalUnion union = (LogicalUnion) rel;
+      List<RelNode> inputs = union.getInputs();
+      List<RelNode> newInputs = new ArrayList<>(inputs.size());
+      boolean changed = false;
+      for (RelNode input : inputs) {
+        RelNode newInput = pushDown(input, collation, fetch);
+        changed |= newInput != input;
+        newInputs.add(newInput);
+      }
+      return changed ? union.copy(union.getTraitSet(), newInputs) : node;
+    }
+    if (rel instanceof LogicalJoin) {
+      LogicalJoin join = (LogicalJoin) rel;
+      int numLeftFields = join.getLeft().getRowType().getFieldCount();
+      if (join.getJoinType() == JoinRelType.LEFT && allFieldsInRange(collation, 0, numLeftFields)) {
+        RelNode left = join.getLeft();
+        RelNode newLeft = pushDown(left, collation, fetch);
+        return newLeft != left ? join.copy(join.getTraitSet(), List.of(newLeft, join.getRight())) : node;
+      }
+      if (join.getJoinType() == JoinRelType.RIGHT && allFieldsInRange(collation, numLeftFields,
+          join.getRowType().getFieldCount())) {
+        RelNode right = join.getRight();
+        RelNode newRight = pushDown(right, shiftCollation(collation, -numLeftFields), fetch);
+        return newRight != right ? join.copy(join.getTraitSet(), List.of(join.getLeft(), newRight)) : node;
+      }
+    }
+    return node;
+  }
+
+  /**
+   * Returns the collation on the project input, or {@code null} if some sort keys are not input references.
+   */
+  @Nullable
+  private static RelCollation mapCollationThroughProject(LogicalProject project, RelCollation collation) {
+    List<RexNode> projects = project.getProjects();
+    List<RelFieldCollation> fieldCollations = collation.getFieldCollations();
+    List<RelFieldCollation> newFieldCollations = new ArrayList<>(fieldCollations.size());
+    for (RelFieldCollation fieldCollation : fieldCollations) {
+      RexNode expression = projects.get(fieldCollation.getFieldIndex());
+      if (!(expression instanceof RexInputRef)) {
+        return null;
+      }
+      newFieldCollations.add(fieldCollation.withFieldIndex(((RexInputRef) expression).getIndex()));
+    }
+    return RelCollations.of(newFieldCollations);
+  }
+
+  private static boolean allFieldsInRange(RelCollation collation, int startIndex, int endIndex) {
+    for (RelFieldCollation fieldCollation : collation.getFieldCollations()) {
+      int fieldIndex = fieldCollation.getFieldIndex();
+      if (fieldIndex < startIndex || fieldIndex >= endIndex) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static RelCollation shiftCollation(RelCollation collation, int offset) {
+    List<RelFieldCollation> fieldCollations = collation.getFieldCollations();
+    List<RelFieldCollation> newFieldCollations = new ArrayList<>(fieldCollations.size());
+    for (RelFieldCollation fieldCollation : fieldCollations) {
+      newFieldCollations.add(fieldCollation.withFieldIndex(fieldCollation.getFieldIndex() + offset));
+    }
+    return RelCollations.of(newFieldCollations);
+  }
+}
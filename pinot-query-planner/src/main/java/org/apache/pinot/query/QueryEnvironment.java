@@ -57,11 +57,14 @@ import org.apache.calcite.tools.RelBuilder;
 import org.apache.commons.collections4.MapUtils;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.pinot.calcite.rel.rules.PinotEnrichedJoinRule;
+import org.apache.pinot.calcite.rel.rules.PinotImplicitJoinHintRule;
 import org.apache.pinot.calcite.rel.rules.PinotImplicitTableHintRule;
 import org.apache.pinot.calcite.rel.rules.PinotJoinToDynamicBroadcastRule;
+import org.apache.pinot.calcite.rel.rules.PinotJoinToRuntimeFilterRule;
 import org.apache.pinot.calcite.rel.rules.PinotQueryRuleSets;
 import org.apache.pinot.calcite.rel.rules.PinotRelDistributionTraitRule;
 import org.apache.pinot.calcite.rel.rules.PinotRuleUtils;
+import org.apache.pinot.calcite.rel.rules.PinotSortPushDownRule;
 import org.apache.pinot.calcite.sql.fun.PinotOperatorTable;
 import org.apache.pinot.calcite.sql2rel.PinotConvertletTable;
 import org.apache.pinot.common.catalog.PinotCatalogReader;
@@ -145,7 +148,7 @@ public class QueryEnvironment {
   public QueryEnvironment(Config config) {
     _envConfig = config;
     String database = config.getDatabase();
-    _catalog = new PinotCatalog(config.getTableCache(), database);
+    _catalog = new PinotCatalog(config.getTableCache(), database, config.getWorkerManager());
     CalciteSchema rootSchema = CalciteSchema.createRootSchema(false, false, database, _catalog);
     _config = Frameworks.newConfigBuilder()
         .traitDefs()
@@ -182,8 +185,9 @@ public class QueryEnvironment {
     Map<String, String> options = sqlNodeAndOptions.getOptions();
     HepProgram optProgram = _optProgram;
     Set<String> useRuleSet = QueryOptionsUtils.getUsePlannerRules(options);
+    Set<String> skipRuleSet = Set.of();
     if (MapUtils.isNotEmpty(options)) {
-      Set<String> skipRuleSet = QueryOptionsUtils.getSkipPlannerRules(options);
+      skipRuleSet = QueryOptionsUtils.getSkipPlannerRules(options);
       if (!skipRuleSet.isEmpty() || !useRuleSet.isEmpty()) {
         // dynamically create optProgram according to rule options
         optProgram = getOptProgram(skipRuleSet, useRuleSet);
@@ -191,7 +195,8 @@ public class QueryEnvironment {
     }
     boolean usePhysicalOptimizer = QueryOptionsUtils.isUsePhysicalOptimizer(sqlNodeAndOptions.getOptions(),
         _envConfig.defaultUsePhysicalOptimizer());
-    HepProgram traitProgram = getTraitProgram(workerManager, _envConfig, usePhysicalOptimizer, useRuleSet);
+    HepProgram traitProgram = getTraitProgram(workerManager, _envConfig, usePhysicalOptimizer, skipRuleSet, useRuleSet,
+        sqlNodeAndOptions.getOptions());
     SqlExplainFormat format = SqlExplainFormat.DOT;
     if (sqlNodeAndOptions.getSqlNode().getKind().equals(SqlKind.EXPLAIN)) {
       SqlExplain explain = (SqlExplain) sqlNodeAndOptions.getSqlNode();
@@ -502,7 +507,8 @@ public class QueryEnvironment {
    * Creates and returns a HepProgram that performs mostly logical transformations.
    * It performs several phases of rule application over the parsed decorrelated trimmed plan:
    * - In the first phase, it prunes the applies BASIC_RULES that are almost always helpful to simplify logical plan
-   * - In the second phase, it performs predicate pushdown -> projection pushdown -> predicate pushdown.
+   * - In the second phase, it performs predicate pushdown -> projection pushdown -> predicate pushdown, followed by
+   *   join reorder when enabled.
    * - In the third phase, the logical plan is prune with PRUNE_RULES.
    *
    * @param skipRuleSet parsed skipped rule name set from query options
@@ -540,6 +546,20 @@ public class QueryEnvironment {
     // Pushdown filters again since filter should be pushed down at the lowest level, after project pushdown.
     hepProgramBuilder.addRuleCollection(filterPushdownRules);
 
+    // ----
+    // Reorder the inner joins based on the table statistics. The joins are first merged into MultiJoin bottom up, then
+    // the MultiJoin is converted back to joins with the larger inputs joined first and the smaller inputs on the right
+    // (build) side. Joins are only reordered when the row counts of all the joined tables are known.
+    // NOTE: The only statistics are the table row counts from the segment metadata. Column NDVs and the actual stage
+    //       cardinalities of previous executions (MultiStageQueryStats) are not used by the planner.
+    if (!isRuleSkipped(CommonConstants.Broker.PlannerRuleNames.JOIN_REORDER, skipRuleSet, useRuleSet)) {
+      hepProgramBuilder.addSubprogram(new HepProgramBuilder()
+          .addMatchOrder(HepMatchOrder.BOTTOM_UP)
+          .addRuleCollection(PinotQueryRuleSets.JOIN_TO_MULTI_JOIN_RULES)
+          .addRuleInstance(PinotQueryRuleSets.MULTI_JOIN_OPTIMIZE)
+          .build());
+    }
+
     // ----
     // Prune duplicate/unnecessary nodes using a single HepInstruction.
     // TODO: We can consider using HepMatchOrder.TOP_DOWN if we find cases where it would help.
@@ -589,7 +609,7 @@ public class QueryEnvironment {
   }
 
   private static HepProgram getTraitProgram(@Nullable WorkerManager workerManager, Config config,
-      boolean usePhysicalOptimizer, Set<String> useRuleSet) {
+      boolean usePhysicalOptimizer, Set<String> skipRuleSet, Set<String> useRuleSet, Map<String, String> options) {
     HepProgramBuilder hepProgramBuilder = new HepProgramBuilder();
 
     // Set the match order as BOTTOM_UP.
@@ -598,11 +618,23 @@ public class QueryEnvironment {
     // ----
     // Run pinot specific rules that should run after all other rules, using 1 HepInstruction per rule.
     if (!usePhysicalOptimizer) {
+      // infer the join hints from the table metadata before the exchanges are inserted for the joins
+      if (config.getWorkerManager() != null && QueryOptionsUtils.isInferJoinStrategy(options,
+          config.defaultInferJoinStrategy())) {
+        long broadcastJoinMaxRows =
+            QueryOptionsUtils.getBroadcastJoinMaxRows(options, config.defaultBroadcastJoinMaxRows());
+        hepProgramBuilder.addRuleInstance(
+            PinotImplicitJoinHintRule.withWorkerManager(config.getWorkerManager(), broadcastJoinMaxRows));
+      }
       for (RelOptRule relOptRule : PinotQueryRuleSets.PINOT_POST_RULES) {
         if (isEligibleQueryPostRule(relOptRule, config)) {
           hepProgramBuilder.addRuleInstance(relOptRule);
         }
       }
+      if (!isRuleSkipped(CommonConstants.Broker.PlannerRuleNames.SORT_PUSH_DOWN, skipRuleSet, useRuleSet)) {
+        // push the partial top-N below the exchanges, this must be done after all the exchanges are inserted
+        hepProgramBuilder.addRuleInstance(PinotSortPushDownRule.INSTANCE);
+      }
       if (!isRuleSkipped(CommonConstants.Broker.PlannerRuleNames.JOIN_TO_ENRICHED_JOIN, Set.of(), useRuleSet)) {
         // push filter and project above join to enrichedJoin, does not work with physical optimizer
         hepProgramBuilder.addRuleCollection(PinotEnrichedJoinRule.PINOT_ENRICHED_JOIN_RULES);
@@ -626,7 +658,9 @@ public class QueryEnvironment {
 
   // This method is used to filter out post rules that are not eligible to run based on the config.
   private static boolean isEligibleQueryPostRule(RelOptRule relOptRule, Config config) {
-    if (relOptRule instanceof PinotJoinToDynamicBroadcastRule && !config.defaultEnableDynamicFilteringSemiJoin()) {
+    // Runtime filter relies on the dynamic broadcast of the SEMI join
+    if ((relOptRule instanceof PinotJoinToDynamicBroadcastRule || relOptRule instanceof PinotJoinToRuntimeFilterRule)
+        && !config.defaultEnableDynamicFilteringSemiJoin()) {
       return false;
     }
     return true;
@@ -682,6 +716,31 @@ public class QueryEnvironment {
       return CommonConstants.Broker.DEFAULT_INFER_PARTITION_HINT;
     }
 
+    /**
+     * Whether to infer the join strategy (colocated or broadcast join) from the table partition and segment metadata by
+     * default or not.
+     *
+     * This is treated as the default value for the broker and it is expected to be obtained from a Pinot configuration.
+     * This default value can be always overridden at query level by the query option
+     * {@link CommonConstants.Broker.Request.QueryOptionKey#INFER_JOIN_STRATEGY}.
+     */
+    @Value.Default
+    default boolean defaultInferJoinStrategy() {
+      return CommonConstants.Broker.DEFAULT_INFER_JOIN_STRATEGY;
+    }
+
+    /**
+     * Max number of rows of the right table to pick the broadcast join strategy when inferring the join strategy.
+     *
+     * This is treated as the default value for the broker and it is expected to be obtained from a Pinot configuration.
+     * This default value can be always overridden at query level by the query option
+     * {@link CommonConstants.Broker.Request.QueryOptionKey#BROADCAST_JOIN_MAX_ROWS}.
+     */
+    @Value.Default
+    default long defaultBroadcastJoinMaxRows() {
+      return CommonConstants.Broker.DEFAULT_BROADCAST_JOIN_MAX_ROWS;
+    }
+
     /**
      * Whether to use spools or not.
      *
@@ -33,6 +33,7 @@ import org.apache.calcite.schema.Schemas;
 import org.apache.calcite.schema.Table;
 import org.apache.pinot.common.config.provider.TableCache;
 import org.apache.pinot.common.utils.DatabaseUtils;
+import org.apache.pinot.query.routing.WorkerManager;
 import org.apache.pinot.spi.utils.builder.TableNameBuilder;
 
 import static java.util.Objects.requireNonNull;
@@ -48,14 +49,24 @@ public class PinotCatalog implements Schema {
 
   private final TableCache _tableCache;
   private final String _databaseName;
+  private final WorkerManager _workerManager;
 
   /**
    * PinotCatalog needs have access to the actual {@link TableCache} object because TableCache hosts the actual
    * table available for query and processes table/segment metadata updates when cluster status changes.
    */
   public PinotCatalog(TableCache tableCache, String databaseName) {
+    this(tableCache, databaseName, null);
+  }
+
+  /**
+   * When the {@link WorkerManager} is provided, the number of documents of the tables (from the segment metadata) is
+   * provided to the planner as the table statistics.
+   */
+  public PinotCatalog(TableCache tableCache, String databaseName, @Nullable WorkerManager workerManager) {
     _tableCache = tableCache;
     _databaseName = databaseName;
+    _workerManager = workerManager;
   }
 
   /**
@@ -82,7 +93,7 @@ public class PinotCatalog implements Schema {
       return null;
     }
 
-    return new PinotTable(schema);
+    return new PinotTable(schema, _workerManager != null ? _workerManager.getNumDocs(tableName) : null);
   }
 
   /**
@@ -18,11 +18,15 @@
  */
 package org.apache.pinot.query.catalog;
 
+import java.util.List;
+import javax.annotation.Nullable;
 import org.apache.calcite.DataContext;
 import org.apache.calcite.linq4j.Enumerable;
 import org.apache.calcite.rel.type.RelDataType;
 import org.apache.calcite.rel.type.RelDataTypeFactory;
 import org.apache.calcite.schema.ScannableTable;
+import org.apache.calcite.schema.Statistic;
+import org.apache.calcite.schema.Statistics;
 import org.apache.calcite.schema.impl.AbstractTable;
 import org.apache.pinot.query.type.TypeFactory;
 import org.apache.pinot.spi.data.Schema;
@@ -32,13 +36,21 @@ import org.apache.pinot.spi.data.Schema;
  * Wrapper for pinot internal info for a table.
  *
  * <p>This construct is used to connect a Pinot table to Apache Calcite's relational planner by providing a
- * {@link RelDataType} of the table to the planner.
+ * {@link RelDataType} of the table to the planner. When the number of documents of the table is known, it is also
+ * provided to the planner as the row count {@link Statistic} of the table, which is used by the cost based rules
+ * (e.g. join reorder).
  */
 public class PinotTable extends AbstractTable implements ScannableTable {
   private Schema _schema;
+  private final Long _numDocs;
 
   public PinotTable(Schema schema) {
+    this(schema, null);
+  }
+
+  public PinotTable(Schema schema, @Nullable Long numDocs) {
     _schema = schema;
+    _numDocs = numDocs;
   }
 
   @Override
@@ -52,6 +64,11 @@ public class PinotTable extends AbstractTable implements ScannableTable {
     return typeFactory.createRelDataTypeFromSchema(_schema);
   }
 
+  @Override
+  public Statistic getStatistic() {
+    return _numDocs != null ? Statistics.of(_numDocs, List.of()) : Statistics.UNKNOWN;
+  }
+
   @Override
   public boolean isRolledUp(String s) {
     return false;
@@ -809,6 +809,71 @@ public class WorkerManager {
     }
   }
 
+  /**
+   * Returns whether the given tables are partitioned with the same partition function and number of partitions, and the
+   * segments of the same partition are served by the same servers for both tables (e.g. replica groups line up), so
+   * that the partitions can be joined locally without shuffling the data. Note that the partition columns are not
+   * checked, and should be verified against the join keys by the caller.
+   */
+  public boolean isColocated(String tableName1, String tableName2) {
+    PartitionTableInfo partitionTableInfo1;
+    PartitionTableInfo partitionTableInfo2;
+    try {
+      partitionTableInfo1 = calculatePartitionTableInfo(tableName1);
+      partitionTableInfo2 = calculatePartitionTableInfo(tableName2);
+    } catch (IllegalStateException e) {
+      return false;
+    }
+    if (!partitionTableInfo1._partitionFunction.equalsIgnoreCase(partitionTableInfo2._partitionFunction)) {
+      return false;
+    }
+    PartitionInfo[] partitionInfoMap1 = partitionTableInfo1._partitionInfoMap;
+    PartitionInfo[] partitionInfoMap2 = partitionTableInfo2._partitionInfoMap;
+    int numPartitions = partitionInfoMap1.length;
+    if (partitionInfoMap2.length != numPartitions) {
+      return false;
+    }
+    for (int i = 0; i < numPartitions; i++) {
+      PartitionInfo partitionInfo1 = partitionInfoMap1[i];
+      PartitionInfo partitionInfo2 = partitionInfoMap2[i];
+      // NOTE: Partitioned leaf stage requires segments for each partition, see assignOnePartitionPerWorker()
+      if (partitionInfo1 == null || partitionInfo2 == null) {
+        return false;
+      }
+      if (partitionInfo1._fullyReplicatedServers.isEmpty() || !partitionInfo1._fullyReplicatedServers.equals(
+          partitionInfo2._fullyReplicatedServers)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the total number of documents of the given table based on the segment metadata, or {@code null} if it is
+   * not available. For hybrid table, returns the sum of the number of documents of the offline and real-time table.
+   */
+  @Nullable
+  public Long getNumDocs(String tableName) {
+    TableType tableType = TableNameBuilder.getTableTypeFromTableName(tableName);
+    if (tableType != null) {
+      return _routingManager.getTableNumDocs(tableName);
+    }
+    long numDocs = 0;
+    boolean routingExists = false;
+    for (String tableNameWithType : List.of(TableNameBuilder.OFFLINE.tableNameWithType(tableName),
+        TableNameBuilder.REALTIME.tableNameWithType(tableName))) {
+      if (_routingManager.routingExists(tableNameWithType)) {
+        Long tableNumDocs = _routingManager.getTableNumDocs(tableNameWithType);
+        if (tableNumDocs == null) {
+          return null;
+        }
+        numDocs += tableNumDocs;
+        routingExists = true;
+      }
+    }
+    return routingExists ? numDocs : null;
+  }
+
   private PartitionTableInfo calculatePartitionTableInfo(String tableName) {
     TableType tableType = TableNameBuilder.getTableTypeFromTableName(tableName);
     if (tableType == null) {
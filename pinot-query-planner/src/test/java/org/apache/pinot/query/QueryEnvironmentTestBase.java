@@ -40,6 +40,7 @@ import org.apache.pinot.query.routing.WorkerManager;
 import org.apache.pinot.spi.data.FieldSpec;
 import org.apache.pinot.spi.data.Schema;
 import org.apache.pinot.spi.utils.CommonConstants;
+import org.apache.pinot.spi.utils.builder.TableNameBuilder;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.DataProvider;
 
@@ -57,6 +58,7 @@ public class QueryEnvironmentTestBase {
   public static final Map<String, Schema> TABLE_SCHEMAS = new HashMap<>();
   public static final Map<String, Pair<String, List<List<String>>>> PARTITIONED_SEGMENTS_MAP = new HashMap<>();
   public static final int PARTITION_COUNT = 4;
+  public static final long NUM_DOCS_PER_SEGMENT = 1000;
   public static final Map<String, String> PARTITIONED_TABLES =
       ImmutableMap.of("a_REALTIME", "col2", "b_REALTIME", "col1");
   static {
@@ -307,6 +309,16 @@ public class QueryEnvironmentTestBase {
         factory.registerSegment(port2, entry.getKey(), segment);
       }
     }
+    // Number of documents is only tracked for offline tables
+    Map<String, Long> tableNumDocsMap = new HashMap<>();
+    for (Map<String, List<String>> segmentMap : List.of(segmentMap1, segmentMap2)) {
+      for (Map.Entry<String, List<String>> entry : segmentMap.entrySet()) {
+        if (TableNameBuilder.isOfflineTableResource(entry.getKey())) {
+          tableNumDocsMap.merge(entry.getKey(), entry.getValue().size() * NUM_DOCS_PER_SEGMENT, Long::sum);
+        }
+      }
+    }
+    tableNumDocsMap.forEach(factory::setTableNumDocs);
     Map<String, TablePartitionReplicatedServersInfo> partitionInfoMap = null;
     if (MapUtils.isNotEmpty(partitionedSegmentsMap)) {
       partitionInfoMap = new HashMap<>();
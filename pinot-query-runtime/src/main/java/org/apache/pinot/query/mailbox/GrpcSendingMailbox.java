@@ -18,6 +18,7 @@
  */
 package org.apache.pinot.query.mailbox;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Maps;
 import com.google.protobuf.ByteString;
 import com.google.protobuf.UnsafeByteOperations;
@@ -33,12 +34,13 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import javax.annotation.Nullable;
 import org.apache.pinot.common.datablock.DataBlock;
-import org.apache.pinot.common.datablock.DataBlockUtils;
 import org.apache.pinot.common.datablock.MetadataBlock;
 import org.apache.pinot.common.datatable.StatMap;
 import org.apache.pinot.common.proto.Mailbox.MailboxContent;
 import org.apache.pinot.common.proto.PinotMailboxGrpc;
+import org.apache.pinot.common.utils.DataSchema;
 import org.apache.pinot.query.mailbox.channel.ChannelManager;
 import org.apache.pinot.query.mailbox.channel.ChannelUtils;
 import org.apache.pinot.query.mailbox.channel.MailboxStatusObserver;
@@ -48,18 +50,32 @@ import org.apache.pinot.query.runtime.blocks.RowHeapDataBlock;
 import org.apache.pinot.query.runtime.blocks.SerializedDataBlock;
 import org.apache.pinot.query.runtime.blocks.SuccessMseBlock;
 import org.apache.pinot.query.runtime.operator.MailboxSendOperator;
+import org.apache.pinot.segment.local.io.compression.ChunkCompressorFactory;
+import org.apache.pinot.segment.spi.compression.ChunkCompressionType;
+import org.apache.pinot.segment.spi.compression.ChunkCompressor;
 import org.apache.pinot.segment.spi.memory.DataBuffer;
 import org.apache.pinot.spi.env.PinotConfiguration;
 import org.apache.pinot.spi.exception.QueryErrorCode;
+import org.apache.pinot.spi.utils.CommonConstants;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 
 /**
  * gRPC implementation of the {@link SendingMailbox}. The gRPC stream is created on the first call to {@link #send}.
+ *
+ * <p>Optionally (see {@link CommonConstants.MultiStageQueryRunner}):
+ * <ul>
+ *   <li>Consecutive small row blocks are coalesced up to a target number of rows before being serialized</li>
+ *   <li>Row blocks are serialized in columnar format</li>
+ *   <li>Serialized blocks are compressed, and the compression type is sent along with the message</li>
+ *   <li>Sending waits for the credits returned by the receiver to bound the bytes in flight</li>
+ * </ul>
  */
 public class GrpcSendingMailbox implements SendingMailbox {
   private static final Logger LOGGER = LoggerFactory.getLogger(GrpcSendingMailbox.class);
+  // Do not compress the small blocks (e.g. EOS) where the compression cannot save much
+  private static final int MIN_BYTES_TO_COMPRESS = 1024;
 
   private static final List<ByteString> EMPTY_BYTEBUFFER_LIST = Collections.emptyList();
   private final String _id;
@@ -70,12 +86,35 @@ public class GrpcSendingMailbox implements SendingMailbox {
   private final StatMap<MailboxSendOperator.StatKey> _statMap;
   private final MailboxStatusObserver _statusObserver = new MailboxStatusObserver();
   private final Sender _sender;
+  private final long _maxInFlightBytes;
+  private final int _batchRows;
+  @Nullable
+  private final ChunkCompressor _compressor;
+  private final MseBlockSerializer _serializer;
 
   private StreamObserver<MailboxContent> _contentObserver;
+  // Direct buffers for the compressor reused across the blocks
+  @Nullable
+  private ByteBuffer _uncompressedBuffer;
+  @Nullable
+  private ByteBuffer _compressedBuffer;
+
+  // Rows of the coalesced blocks not sent yet
+  private DataSchema _batchDataSchema;
+  private List<Object[]> _batchRowList;
+  private int _numBatchedBlocks;
 
   public GrpcSendingMailbox(
       PinotConfiguration config, String id, ChannelManager channelManager, String hostname, int port, long deadlineMs,
       StatMap<MailboxSendOperator.StatKey> statMap, int maxByteStringSize) {
+    this(config, id, channelManager, hostname, port, deadlineMs, statMap, maxByteStringSize,
+        ChunkCompressionType.PASS_THROUGH, false);
+  }
+
+  public GrpcSendingMailbox(
+      PinotConfiguration config, String id, ChannelManager channelManager, String hostname, int port, long deadlineMs,
+      StatMap<MailboxSendOperator.StatKey> statMap, int maxByteStringSize, ChunkCompressionType compressionType,
+      boolean columnarDataBlock) {
     _id = id;
     _channelManager = channelManager;
     _hostname = hostname;
@@ -83,6 +122,14 @@ public class GrpcSendingMailbox implements SendingMailbox {
     _deadlineMs = deadlineMs;
     _statMap = statMap;
     _sender = maxByteStringSize > 0 ? new SplitSender(this, maxByteStringSize) : new NonSplitSender(this);
+    _maxInFlightBytes = config.getProperty(CommonConstants.MultiStageQueryRunner.KEY_OF_MAILBOX_SEND_CREDIT_BYTES,
+        CommonConstants.MultiStageQueryRunner.DEFAULT_MAILBOX_SEND_CREDIT_BYTES);
+    _batchRows = config.getProperty(CommonConstants.MultiStageQueryRunner.KEY_OF_MAILBOX_SEND_BATCH_ROWS,
+        CommonConstants.MultiStageQueryRunner.DEFAULT_MAILBOX_SEND_BATCH_ROWS);
+    // NOTE: Use the length prefixed LZ4 so that the receiver knows the decompressed size
+    _compressor = compressionType != ChunkCompressionType.PASS_THROUGH
+        ? ChunkCompressorFactory.getCompressor(compressionType, true) : null;
+    _serializer = columnarDataBlock ? MseBlockSerializer.COLUMNAR : MseBlockSerializer.ROW;
   }
 
   @Override
@@ -93,17 +140,64 @@ public class GrpcSendingMailbox implements SendingMailbox {
   @Override
   public void send(MseBlock.Data data)
       throws IOException, TimeoutException {
+    if (_batchRows > 0 && data.isRowHeap()) {
+      RowHeapDataBlock rowHeapBlock = data.asRowHeap();
+      // NOTE: Blocks with aggregation functions carry custom objects serialized with the functions, do not mix them
+      if (rowHeapBlock.getNumRows() < _batchRows && rowHeapBlock.getAggFunctions() == null) {
+        if (isTerminated() || isEarlyTerminated()) {
+          LOGGER.debug("==[GRPC SEND]== terminated or early terminated mailbox. Skipping batching message {} to: {}",
+              data, _id);
+          return;
+        }
+        addToBatch(rowHeapBlock);
+        return;
+      }
+    }
+    flushBatch();
     sendInternal(data, List.of());
   }
 
   @Override
   public void send(MseBlock.Eos block, List<DataBuffer> serializedStats)
       throws IOException, TimeoutException {
+    flushBatch();
     sendInternal(block, serializedStats);
   }
 
+  private void addToBatch(RowHeapDataBlock block)
+      throws IOException, TimeoutException {
+    DataSchema dataSchema = block.getDataSchema();
+    if (_batchRowList != null && !_batchDataSchema.equals(dataSchema)) {
+      flushBatch();
+    }
+    if (_batchRowList == null) {
+      _batchDataSchema = dataSchema;
+      _batchRowList = new ArrayList<>(_batchRows);
+    }
+    _batchRowList.addAll(block.getRows());
+    _numBatchedBlocks++;
+    if (_batchRowList.size() >= _batchRows) {
+      flushBatch();
+    }
+  }
+
+  private void flushBatch()
+      throws IOException, TimeoutException {
+    if (_batchRowList == null) {
+      return;
+    }
+    RowHeapDataBlock block = new RowHeapDataBlock(_batchRowList, _batchDataSchema);
+    if (_numBatchedBlocks > 1) {
+      _statMap.merge(MailboxSendOperator.StatKey.BATCHED_MESSAGES, _numBatchedBlocks);
+    }
+    _batchDataSchema = null;
+    _batchRowList = null;
+    _numBatchedBlocks = 0;
+    sendInternal(block, List.of());
+  }
+
   private void sendInternal(MseBlock block, List<DataBuffer> serializedStats)
-      throws IOException {
+      throws IOException, TimeoutException {
     if (isTerminated() || (isEarlyTerminated() && block.isData())) {
       LOGGER.debug("==[GRPC SEND]== terminated or early terminated mailbox. Skipping sending message {} to: {}",
           block, _id);
@@ -127,19 +221,72 @@ public class GrpcSendingMailbox implements SendingMailbox {
   }
 
   private void processAndSend(MseBlock block, List<DataBuffer> serializedStats)
-      throws IOException {
+      throws IOException, TimeoutException {
     _statMap.merge(MailboxSendOperator.StatKey.RAW_MESSAGES, 1);
     long start = System.currentTimeMillis();
+    List<ByteBuffer> bytes;
+    ChunkCompressionType compressionType = null;
+    int sizeInBytes;
     try {
-      DataBlock dataBlock = MseBlockSerializer.toDataBlock(block, serializedStats);
-      int sizeInBytes = _sender.processAndSend(dataBlock);
+      DataBlock dataBlock = _serializer.toDataBlock(block, serializedStats);
+      bytes = dataBlock.serialize();
+      sizeInBytes = getSizeInBytes(bytes);
       if (LOGGER.isDebugEnabled()) {
         LOGGER.debug("Serialized block: {} to {} bytes", block, sizeInBytes);
       }
       _statMap.merge(MailboxSendOperator.StatKey.SERIALIZED_BYTES, sizeInBytes);
+      if (_compressor != null && sizeInBytes >= MIN_BYTES_TO_COMPRESS) {
+        ByteBuffer compressed = compress(bytes, sizeInBytes);
+        bytes = List.of(compressed);
+        sizeInBytes = compressed.remaining();
+        compressionType = _compressor.compressionType();
+      }
     } finally {
       _statMap.merge(MailboxSendOperator.StatKey.SERIALIZATION_TIME_MS, System.currentTimeMillis() - start);
     }
+    if (_maxInFlightBytes > 0) {
+      // Only throttle the data blocks, the metadata blocks are small and should not be delayed
+      long maxInFlightBytes = block.isData() ? _maxInFlightBytes : Long.MAX_VALUE;
+      long stallTimeMs;
+      try {
+        stallTimeMs = _statusObserver.acquireCredits(sizeInBytes, maxInFlightBytes, _deadlineMs);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted while waiting for credits to send to mailbox: " + _id, e);
+      }
+      _statMap.merge(MailboxSendOperator.StatKey.SEND_STALL_TIME_MS, stallTimeMs);
+    }
+    _sender.send(bytes, compressionType);
+    _statMap.merge(MailboxSendOperator.StatKey.SENT_BYTES, sizeInBytes);
+  }
+
+  private static int getSizeInBytes(List<ByteBuffer> bytes) {
+    int sizeInBytes = 0;
+    for (ByteBuffer byteBuffer : bytes) {
+      sizeInBytes += byteBuffer.remaining();
+    }
+    return sizeInBytes;
+  }
+
+  /**
+   * Compresses the serialized block into a single heap buffer. This method will consume the given ByteBuffers.
+   */
+  @VisibleForTesting
+  ByteBuffer compress(List<ByteBuffer> bytes, int sizeInBytes)
+      throws IOException {
+    assert _compressor != null;
+    // NOTE: Some compressors (e.g. ZSTANDARD) only work on direct buffers, so compress between direct buffers reused
+    //       across the blocks, and only copy out the compressed bytes
+    _uncompressedBuffer = ChannelUtils.getDirectBuffer(_uncompressedBuffer, sizeInBytes);
+    for (ByteBuffer byteBuffer : bytes) {
+      _uncompressedBuffer.put(byteBuffer);
+    }
+    _uncompressedBuffer.flip();
+    _compressedBuffer = ChannelUtils.getDirectBuffer(_compressedBuffer, _compressor.maxCompressedSize(sizeInBytes));
+    _compressor.compress(_uncompressedBuffer, _compressedBuffer);
+    byte[] compressedBytes = new byte[_compressedBuffer.remaining()];
+    _compressedBuffer.get(compressedBytes);
+    return ByteBuffer.wrap(compressedBytes);
   }
 
   @Override
@@ -150,6 +297,7 @@ public class GrpcSendingMailbox implements SendingMailbox {
     }
     LOGGER.debug("Completing mailbox: {}", _id);
     _contentObserver.onCompleted();
+    releaseCompressionBuffers();
   }
 
   @Override
@@ -159,6 +307,9 @@ public class GrpcSendingMailbox implements SendingMailbox {
       return;
     }
     LOGGER.debug("Cancelling mailbox: {}", _id);
+    _batchDataSchema = null;
+    _batchRowList = null;
+    _numBatchedBlocks = 0;
     if (_contentObserver == null) {
       _contentObserver = getContentObserver();
     }
@@ -173,6 +324,12 @@ public class GrpcSendingMailbox implements SendingMailbox {
       // Exception can be thrown if the stream is already closed, so we simply ignore it
       LOGGER.debug("Caught exception cancelling mailbox: {}", _id, e);
     }
+    releaseCompressionBuffers();
+  }
+
+  private void releaseCompressionBuffers() {
+    _uncompressedBuffer = null;
+    _compressedBuffer = null;
   }
 
   @Override
@@ -195,13 +352,16 @@ public class GrpcSendingMailbox implements SendingMailbox {
         .open(_statusObserver);
   }
 
-  protected void sendContent(ByteString byteString, boolean waitForMore) {
-    MailboxContent content = MailboxContent.newBuilder()
+  protected void sendContent(ByteString byteString, boolean waitForMore,
+      @Nullable ChunkCompressionType compressionType) {
+    MailboxContent.Builder builder = MailboxContent.newBuilder()
         .setMailboxId(_id)
         .setPayload(byteString)
-        .setWaitForMore(waitForMore)
-        .build();
-    _contentObserver.onNext(content);
+        .setWaitForMore(waitForMore);
+    if (compressionType != null) {
+      builder.putMetadata(ChannelUtils.MAILBOX_METADATA_COMPRESSION_KEY, compressionType.name());
+    }
+    _contentObserver.onNext(builder.build());
   }
 
   @Override
@@ -210,10 +370,17 @@ public class GrpcSendingMailbox implements SendingMailbox {
   }
 
   private static class MseBlockSerializer implements MseBlock.Visitor<DataBlock, List<DataBuffer>> {
-    private static final MseBlockSerializer INSTANCE = new MseBlockSerializer();
+    private static final MseBlockSerializer ROW = new MseBlockSerializer(false);
+    private static final MseBlockSerializer COLUMNAR = new MseBlockSerializer(true);
 
-    public static DataBlock toDataBlock(MseBlock block, List<DataBuffer> serializedStats) {
-      return block.accept(INSTANCE, serializedStats);
+    private final boolean _columnar;
+
+    private MseBlockSerializer(boolean columnar) {
+      _columnar = columnar;
+    }
+
+    public DataBlock toDataBlock(MseBlock block, List<DataBuffer> serializedStats) {
+      return block.accept(this, serializedStats);
     }
 
     @Override
@@ -222,7 +389,7 @@ public class GrpcSendingMailbox implements SendingMailbox {
       if (serializedStats != null && !serializedStats.isEmpty()) {
         throw new UnsupportedOperationException("Cannot serialize stats with RowHeapDataBlock");
       }
-      return block.asSerialized().getDataBlock();
+      return _columnar ? block.asColumnar().getDataBlock() : block.asSerialized().getDataBlock();
     }
 
     @Override
@@ -314,8 +481,10 @@ public class GrpcSendingMailbox implements SendingMailbox {
       _mailbox = mailbox;
     }
 
-    protected abstract int processAndSend(DataBlock dataBlock)
-        throws IOException;
+    /**
+     * Sends the serialized block. This method will consume the given ByteBuffers.
+     */
+    protected abstract void send(List<ByteBuffer> bytes, @Nullable ChunkCompressionType compressionType);
   }
 
   private static class SplitSender extends Sender {
@@ -327,20 +496,14 @@ public class GrpcSendingMailbox implements SendingMailbox {
     }
 
     @Override
-    protected int processAndSend(DataBlock dataBlock)
-        throws IOException {
-      List<ByteString> byteStrings = toByteStrings(dataBlock, _maxByteStringSize);
-      int sizeInBytes = 0;
-      for (ByteString byteString : byteStrings) {
-        sizeInBytes += byteString.size();
-      }
+    protected void send(List<ByteBuffer> bytes, @Nullable ChunkCompressionType compressionType) {
+      List<ByteString> byteStrings = toByteStrings(bytes, _maxByteStringSize);
       Iterator<ByteString> byteStringIt = byteStrings.iterator();
       while (byteStringIt.hasNext()) {
         ByteString byteString = byteStringIt.next();
         boolean waitForMore = byteStringIt.hasNext();
-        _mailbox.sendContent(byteString, waitForMore);
+        _mailbox.sendContent(byteString, waitForMore, compressionType);
       }
-      return sizeInBytes;
     }
   }
 
@@ -350,12 +513,12 @@ public class GrpcSendingMailbox implements SendingMailbox {
     }
 
     @Override
-    protected int processAndSend(DataBlock dataBlock)
-        throws IOException {
-      ByteString byteString = DataBlockUtils.toByteString(dataBlock);
-      int sizeInBytes = byteString.size();
-      _mailbox.sendContent(byteString, false);
-      return sizeInBytes;
+    protected void send(List<ByteBuffer> bytes, @Nullable ChunkCompressionType compressionType) {
+      ByteString byteString = ByteString.EMPTY;
+      for (ByteBuffer byteBuffer : bytes) {
+        byteString = byteString.concat(UnsafeByteOperations.unsafeWrap(byteBuffer));
+      }
+      _mailbox.sendContent(byteString, false, compressionType);
     }
   }
 }
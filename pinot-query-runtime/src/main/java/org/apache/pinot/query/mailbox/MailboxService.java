@@ -22,15 +22,18 @@ import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.RemovalListener;
 import java.time.Duration;
+import java.util.Map;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
 import org.apache.pinot.common.config.TlsConfig;
 import org.apache.pinot.common.datatable.StatMap;
+import org.apache.pinot.common.utils.config.QueryOptionsUtils;
 import org.apache.pinot.query.access.QueryAccessControlFactory;
 import org.apache.pinot.query.mailbox.channel.ChannelManager;
 import org.apache.pinot.query.mailbox.channel.GrpcMailboxServer;
 import org.apache.pinot.query.runtime.operator.MailboxSendOperator;
+import org.apache.pinot.segment.spi.compression.ChunkCompressionType;
 import org.apache.pinot.spi.env.PinotConfiguration;
 import org.apache.pinot.spi.utils.CommonConstants;
 import org.slf4j.Logger;
@@ -69,6 +72,8 @@ public class MailboxService {
   @Nullable private final TlsConfig _tlsConfig;
   @Nullable private final QueryAccessControlFactory _accessControlFactory;
   private final int _maxByteStringSize;
+  private final ChunkCompressionType _compressionType;
+  private final boolean _columnarDataBlock;
 
   private GrpcMailboxServer _grpcMailboxServer;
 
@@ -101,6 +106,11 @@ public class MailboxService {
     } else {
       _maxByteStringSize = 0;
     }
+    _compressionType = getCompressionType(config.getProperty(
+        CommonConstants.MultiStageQueryRunner.KEY_OF_MAILBOX_COMPRESSION,
+        CommonConstants.MultiStageQueryRunner.DEFAULT_MAILBOX_COMPRESSION));
+    _columnarDataBlock = config.getProperty(CommonConstants.MultiStageQueryRunner.KEY_OF_COLUMNAR_DATA_BLOCK,
+        CommonConstants.MultiStageQueryRunner.DEFAULT_COLUMNAR_DATA_BLOCK);
     LOGGER.info("Initialized MailboxService with hostname: {}, port: {}", hostname, port);
   }
 
@@ -136,11 +146,23 @@ public class MailboxService {
    */
   public SendingMailbox getSendingMailbox(String hostname, int port, String mailboxId, long deadlineMs,
       StatMap<MailboxSendOperator.StatKey> statMap) {
+    return getSendingMailbox(hostname, port, mailboxId, deadlineMs, statMap, Map.of());
+  }
+
+  /**
+   * Same as {@link #getSendingMailbox(String, int, String, long, StatMap)}, but the format of the blocks sent to a
+   * remote mailbox (compression and columnar format) can be overridden with the query options of the stage.
+   */
+  public SendingMailbox getSendingMailbox(String hostname, int port, String mailboxId, long deadlineMs,
+      StatMap<MailboxSendOperator.StatKey> statMap, Map<String, String> queryOptions) {
     if (_hostname.equals(hostname) && _port == port) {
       return new InMemorySendingMailbox(mailboxId, this, deadlineMs, statMap);
     } else {
-      return new GrpcSendingMailbox(
-          _config, mailboxId, _channelManager, hostname, port, deadlineMs, statMap, _maxByteStringSize);
+      String compression = QueryOptionsUtils.getMailboxCompression(queryOptions);
+      ChunkCompressionType compressionType = compression != null ? getCompressionType(compression) : _compressionType;
+      Boolean columnarDataBlock = QueryOptionsUtils.isUseColumnarDataBlock(queryOptions);
+      return new GrpcSendingMailbox(_config, mailboxId, _channelManager, hostname, port, deadlineMs, statMap,
+          _maxByteStringSize, compressionType, columnarDataBlock != null ? columnarDataBlock : _columnarDataBlock);
     }
   }
 
@@ -170,6 +192,14 @@ public class MailboxService {
     _receivingMailboxCache.invalidate(mailbox.getId());
   }
 
+  private static ChunkCompressionType getCompressionType(String compression) {
+    try {
+      return ChunkCompressionType.valueOf(compression.trim().toUpperCase());
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Unsupported mailbox compression: " + compression, e);
+    }
+  }
+
   private static Duration getIdleTimeout(PinotConfiguration config) {
     long channelIdleTimeoutSeconds = config.getProperty(
         CommonConstants.MultiStageQueryRunner.KEY_OF_CHANNEL_IDLE_TIMEOUT_SECONDS,
@@ -248,6 +248,13 @@ public class ReceivingMailbox {
     return _blocks.size();
   }
 
+  /**
+   * Returns whether {@link #poll()} would return a block, either a pending block or the error block.
+   */
+  public boolean hasPendingBlocks() {
+    return !_blocks.isEmpty() || _errorBlock.get() != null;
+  }
+
   private void notifyReader() {
     Reader reader = _reader;
     if (reader != null) {
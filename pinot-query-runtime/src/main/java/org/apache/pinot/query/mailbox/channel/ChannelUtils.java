@@ -20,6 +20,8 @@ package org.apache.pinot.query.mailbox.channel;
 
 import io.grpc.Context;
 import io.grpc.Metadata;
+import java.nio.ByteBuffer;
+import javax.annotation.Nullable;
 
 public class ChannelUtils {
   private ChannelUtils() {
@@ -27,8 +29,25 @@ public class ChannelUtils {
 
   public static final String MAILBOX_METADATA_BUFFER_SIZE_KEY = "buffer.size";
   public static final String MAILBOX_METADATA_REQUEST_EARLY_TERMINATE = "request.early.terminate";
+  // Number of bytes of the received message returned to the sender as credits, see MailboxStatusObserver
+  public static final String MAILBOX_METADATA_CREDIT_BYTES_KEY = "credit.bytes";
+  // Compression type of the payload of a mailbox content
+  public static final String MAILBOX_METADATA_COMPRESSION_KEY = "compression";
 
   public static final Metadata.Key<String> MAILBOX_ID_METADATA_KEY =
     Metadata.Key.of("mailboxId", Metadata.ASCII_STRING_MARSHALLER);
   public static final Context.Key<String> MAILBOX_ID_CTX_KEY = Context.key("mailboxId");
+
+  /**
+   * Returns a direct buffer with position 0 and limit set to the given size, reusing the given buffer when it is large
+   * enough. Used to reuse the direct buffers required by some compressors (e.g. ZSTANDARD) across the messages.
+   */
+  public static ByteBuffer getDirectBuffer(@Nullable ByteBuffer buffer, int size) {
+    if (buffer == null || buffer.capacity() < size) {
+      return ByteBuffer.allocateDirect(size);
+    }
+    buffer.clear();
+    buffer.limit(size);
+    return buffer;
+  }
 }
@@ -18,19 +18,25 @@
  */
 package org.apache.pinot.query.mailbox.channel;
 
+import com.google.common.annotations.VisibleForTesting;
 import io.grpc.Context;
 import io.grpc.stub.StreamObserver;
+import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.pinot.common.proto.Mailbox.MailboxContent;
 import org.apache.pinot.common.proto.Mailbox.MailboxStatus;
 import org.apache.pinot.query.mailbox.MailboxService;
 import org.apache.pinot.query.mailbox.ReceivingMailbox;
 import org.apache.pinot.query.runtime.blocks.ErrorMseBlock;
+import org.apache.pinot.segment.local.io.compression.ChunkCompressorFactory;
+import org.apache.pinot.segment.spi.compression.ChunkCompressionType;
+import org.apache.pinot.segment.spi.compression.ChunkDecompressor;
 import org.apache.pinot.spi.exception.QueryErrorCode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -41,7 +47,7 @@ import org.slf4j.LoggerFactory;
  *
  * <p>When the observer onNext() is called (e.g. when data packet has arrived at the receiving end), it puts the
  * mailbox content to the receiving mailbox buffer; response with the remaining buffer size of the receiving mailbox
- * to the sender side.
+ * and the credits of the received bytes to the sender side.
  */
 public class MailboxContentObserver implements StreamObserver<MailboxContent> {
   private static final Logger LOGGER = LoggerFactory.getLogger(MailboxContentObserver.class);
@@ -50,6 +56,12 @@ public class MailboxContentObserver implements StreamObserver<MailboxContent> {
   private final StreamObserver<MailboxStatus> _responseObserver;
 
   private final List<ByteBuffer> _mailboxBuffers;
+  private int _numMailboxBufferBytes;
+  // Direct buffers for the decompressor reused across the messages
+  @Nullable
+  private ByteBuffer _compressedBuffer;
+  @Nullable
+  private ByteBuffer _decompressedBuffer;
   private transient ReceivingMailbox _mailbox;
 
   public MailboxContentObserver(
@@ -67,19 +79,27 @@ public class MailboxContentObserver implements StreamObserver<MailboxContent> {
       _mailbox = _mailboxService.getReceivingMailbox(mailboxId);
     }
     _mailboxBuffers.add(mailboxContent.getPayload().asReadOnlyByteBuffer());
+    _numMailboxBufferBytes += mailboxContent.getPayload().size();
     if (mailboxContent.getWaitForMore()) {
       return;
     }
     try {
       long timeoutMs = Context.current().getDeadline().timeRemaining(TimeUnit.MILLISECONDS);
       List<ByteBuffer> buffers = new ArrayList<>(_mailboxBuffers);
+      int numBytes = _numMailboxBufferBytes;
       _mailboxBuffers.clear();
+      _numMailboxBufferBytes = 0;
+      String compression = mailboxContent.getMetadataMap().get(ChannelUtils.MAILBOX_METADATA_COMPRESSION_KEY);
+      if (compression != null) {
+        buffers = List.of(decompress(buffers, numBytes, ChunkCompressionType.valueOf(compression)));
+      }
       ReceivingMailbox.ReceivingMailboxStatus status = _mailbox.offerRaw(buffers, timeoutMs);
       switch (status) {
         case SUCCESS:
           _responseObserver.onNext(MailboxStatus.newBuilder().setMailboxId(mailboxId)
               .putMetadata(ChannelUtils.MAILBOX_METADATA_BUFFER_SIZE_KEY,
-                  Integer.toString(_mailbox.getNumPendingBlocks())).build());
+                  Integer.toString(_mailbox.getNumPendingBlocks()))
+              .putMetadata(ChannelUtils.MAILBOX_METADATA_CREDIT_BYTES_KEY, Integer.toString(numBytes)).build());
           break;
         case CANCELLED:
           LOGGER.warn("Mailbox: {} already cancelled from upstream", mailboxId);
@@ -112,6 +132,30 @@ public class MailboxContentObserver implements StreamObserver<MailboxContent> {
     }
   }
 
+  /**
+   * Decompresses the payload of a message compressed by the sender (see {@code GrpcSendingMailbox}) into a single heap
+   * buffer.
+   */
+  @VisibleForTesting
+  public ByteBuffer decompress(List<ByteBuffer> buffers, int numBytes, ChunkCompressionType compressionType)
+      throws IOException {
+    // NOTE: Some decompressors (e.g. ZSTANDARD) only work on direct buffers, so decompress between direct buffers
+    //       reused across the messages, and only copy out the decompressed bytes which are kept in the mailbox
+    _compressedBuffer = ChannelUtils.getDirectBuffer(_compressedBuffer, numBytes);
+    for (ByteBuffer buffer : buffers) {
+      _compressedBuffer.put(buffer);
+    }
+    _compressedBuffer.flip();
+    try (ChunkDecompressor decompressor = ChunkCompressorFactory.getDecompressor(compressionType)) {
+      _decompressedBuffer =
+          ChannelUtils.getDirectBuffer(_decompressedBuffer, decompressor.decompressedLength(_compressedBuffer));
+      decompressor.decompress(_compressedBuffer, _decompressedBuffer);
+      byte[] decompressedBytes = new byte[_decompressedBuffer.remaining()];
+      _decompressedBuffer.get(decompressedBytes);
+      return ByteBuffer.wrap(decompressedBytes);
+    }
+  }
+
   private void cancelStream() {
     try {
       // NOTE: DO NOT use onError() because it will terminate the stream, and sender might not get the callback
@@ -125,6 +169,8 @@ public class MailboxContentObserver implements StreamObserver<MailboxContent> {
   @Override
   public void onError(Throwable t) {
     LOGGER.warn("Error on receiver side", t);
+    _compressedBuffer = null;
+    _decompressedBuffer = null;
     if (_mailbox != null) {
       String msg = t != null ? t.getMessage() : "Unknown";
       _mailbox.setErrorBlock(ErrorMseBlock.fromError(
@@ -136,6 +182,8 @@ public class MailboxContentObserver implements StreamObserver<MailboxContent> {
 
   @Override
   public void onCompleted() {
+    _compressedBuffer = null;
+    _decompressedBuffer = null;
     try {
       _responseObserver.onCompleted();
     } catch (Exception e) {
@@ -19,6 +19,7 @@
 package org.apache.pinot.query.mailbox.channel;
 
 import io.grpc.stub.StreamObserver;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.pinot.common.proto.Mailbox.MailboxStatus;
@@ -28,6 +29,11 @@ import org.slf4j.LoggerFactory;
 
 /**
  * {@code MailboxStatusStreamObserver} is the status streaming observer used to track the status by the sender.
+ *
+ * <p>It also tracks the bytes in flight for the credit based flow control: the sender acquires credits for each message
+ * sent (see {@link #acquireCredits}), and the receiver returns the credits of the message once it is added to the
+ * receiving mailbox. When the receiver does not return credits (e.g. running an older version), the flow control is
+ * disabled for the stream.
  */
 public class MailboxStatusObserver implements StreamObserver<MailboxStatus> {
   private static final Logger LOGGER = LoggerFactory.getLogger(MailboxStatusObserver.class);
@@ -37,6 +43,10 @@ public class MailboxStatusObserver implements StreamObserver<MailboxStatus> {
   private final AtomicBoolean _finished = new AtomicBoolean();
   private volatile boolean _isEarlyTerminated;
 
+  private final Object _creditLock = new Object();
+  private long _numInFlightBytes;
+  private volatile boolean _creditsSupported = true;
+
   @Override
   public void onNext(MailboxStatus mailboxStatus) {
     // when receiving mailbox receives a data block it will return an updated info of the receiving end status including
@@ -46,9 +56,22 @@ public class MailboxStatusObserver implements StreamObserver<MailboxStatus> {
     if (Boolean.parseBoolean(
         mailboxStatus.getMetadataMap().get(ChannelUtils.MAILBOX_METADATA_REQUEST_EARLY_TERMINATE))) {
       _isEarlyTerminated = true;
+      releaseWaitingSender();
+    }
+    // -- handle credits returned by the receiver
+    String creditBytes = mailboxStatus.getMetadataMap().get(ChannelUtils.MAILBOX_METADATA_CREDIT_BYTES_KEY);
+    if (creditBytes != null) {
+      synchronized (_creditLock) {
+        _numInFlightBytes -= Long.parseLong(creditBytes);
+        _creditLock.notifyAll();
+      }
+    } else if (mailboxStatus.getMetadataMap().containsKey(ChannelUtils.MAILBOX_METADATA_BUFFER_SIZE_KEY)) {
+      // Receiver accepted the message without returning credits
+      _creditsSupported = false;
+      releaseWaitingSender();
     }
     // -- handling buffer size back-pressure
-    // TODO: this feedback info is not used to throttle the send speed. it is currently being discarded.
+    // NOTE: the buffer size is informational only, the send speed is throttled with the credits
     if (mailboxStatus.getMetadataMap().containsKey(ChannelUtils.MAILBOX_METADATA_BUFFER_SIZE_KEY)) {
       _bufferSize.set(
           Integer.parseInt(mailboxStatus.getMetadataMap().get(ChannelUtils.MAILBOX_METADATA_BUFFER_SIZE_KEY)));
@@ -57,6 +80,47 @@ public class MailboxStatusObserver implements StreamObserver<MailboxStatus> {
     }
   }
 
+  /**
+   * Acquires the credits to send a message of the given size, waiting until the bytes in flight plus the message size
+   * do not exceed {@code maxInFlightBytes}. A message is always allowed when there is no byte in flight so that
+   * messages larger than the limit can still be sent. Stops waiting when the stream is finished or early terminated.
+   *
+   * @return Time waited for the credits in milliseconds
+   */
+  public long acquireCredits(int numBytes, long maxInFlightBytes, long deadlineMs)
+      throws TimeoutException, InterruptedException {
+    synchronized (_creditLock) {
+      long startTimeMs = -1;
+      while (_numInFlightBytes > 0 && _numInFlightBytes + numBytes > maxInFlightBytes && _creditsSupported
+          && !_isEarlyTerminated && !_finished.get()) {
+        long currentTimeMs = System.currentTimeMillis();
+        if (startTimeMs < 0) {
+          startTimeMs = currentTimeMs;
+        }
+        long remainingTimeMs = deadlineMs - currentTimeMs;
+        if (remainingTimeMs <= 0) {
+          throw new TimeoutException(
+              "Timed out waiting for credits with " + _numInFlightBytes + " bytes in flight");
+        }
+        _creditLock.wait(remainingTimeMs);
+      }
+      _numInFlightBytes += numBytes;
+      return startTimeMs < 0 ? 0 : System.currentTimeMillis() - startTimeMs;
+    }
+  }
+
+  public long getNumInFlightBytes() {
+    synchronized (_creditLock) {
+      return _numInFlightBytes;
+    }
+  }
+
+  private void releaseWaitingSender() {
+    synchronized (_creditLock) {
+      _creditLock.notifyAll();
+    }
+  }
+
   public boolean isEarlyTerminated() {
     return _isEarlyTerminated;
   }
@@ -69,11 +133,13 @@ public class MailboxStatusObserver implements StreamObserver<MailboxStatus> {
   public void onError(Throwable t) {
     LOGGER.warn("Error on sender side", t);
     _finished.set(true);
+    releaseWaitingSender();
   }
 
   @Override
   public void onCompleted() {
     _finished.set(true);
+    releaseWaitingSender();
   }
 
   public boolean isFinished() {
@@ -64,6 +64,7 @@ import org.apache.pinot.query.runtime.operator.LeafOperator;
 import org.apache.pinot.query.runtime.operator.MailboxSendOperator;
 import org.apache.pinot.query.runtime.operator.MultiStageOperator;
 import org.apache.pinot.query.runtime.operator.OpChain;
+import org.apache.pinot.query.runtime.operator.utils.SpillFile;
 import org.apache.pinot.query.runtime.plan.MultiStageQueryStats;
 import org.apache.pinot.query.runtime.plan.OpChainExecutionContext;
 import org.apache.pinot.query.runtime.plan.PlanNodeToOpChain;
@@ -139,6 +140,12 @@ public class QueryRunner {
   @Nullable
   private WindowOverFlowMode _windowOverflowMode;
   @Nullable
+  private Integer _sortSpillThresholdRows;
+  @Nullable
+  private Long _sortSpillThresholdBytes;
+  private boolean _leafStreamingGroupBy;
+  private boolean _sharedJoinBuild;
+  @Nullable
   private PhysicalTimeSeriesServerPlanVisitor _timeSeriesPhysicalPlanVisitor;
   private BooleanSupplier _sendStats;
   private ThreadResourceUsageAccountant _resourceUsageAccountant;
@@ -196,6 +203,20 @@ public class QueryRunner {
     String windowOverflowModeStr = serverConf.getProperty(MultiStageQueryRunner.KEY_OF_WINDOW_OVERFLOW_MODE);
     _windowOverflowMode = windowOverflowModeStr != null ? WindowOverFlowMode.valueOf(windowOverflowModeStr) : null;
 
+    String sortSpillThresholdRowsStr = serverConf.getProperty(MultiStageQueryRunner.KEY_OF_SORT_SPILL_THRESHOLD_ROWS);
+    _sortSpillThresholdRows = sortSpillThresholdRowsStr != null ? Integer.parseInt(sortSpillThresholdRowsStr) : null;
+
+    String sortSpillThresholdBytesStr =
+        serverConf.getProperty(MultiStageQueryRunner.KEY_OF_SORT_SPILL_THRESHOLD_BYTES);
+    _sortSpillThresholdBytes = sortSpillThresholdBytesStr != null ? Long.parseLong(sortSpillThresholdBytesStr) : null;
+
+    SpillFile.setSpillDir(serverConf.getProperty(MultiStageQueryRunner.KEY_OF_SPILL_DIR));
+
+    _leafStreamingGroupBy = serverConf.getProperty(MultiStageQueryRunner.KEY_OF_LEAF_STREAMING_GROUP_BY,
+        MultiStageQueryRunner.DEFAULT_LEAF_STREAMING_GROUP_BY);
+    _sharedJoinBuild = serverConf.getProperty(MultiStageQueryRunner.KEY_OF_SHARED_JOIN_BUILD,
+        MultiStageQueryRunner.DEFAULT_SHARED_JOIN_BUILD);
+
     ExecutorService baseExecutorService =
         ExecutorServiceUtils.create(serverConf, Server.MULTISTAGE_EXECUTOR_CONFIG_PREFIX, "query-runner-on-" + port,
             Server.DEFAULT_MULTISTAGE_EXECUTOR_TYPE);
@@ -515,6 +536,30 @@ public class QueryRunner {
       opChainMetadata.put(QueryOptionKey.WINDOW_OVERFLOW_MODE, windowOverflowMode.name());
     }
 
+    Integer sortSpillThresholdRows = QueryOptionsUtils.getSortSpillThresholdRows(opChainMetadata);
+    if (sortSpillThresholdRows == null) {
+      sortSpillThresholdRows = _sortSpillThresholdRows;
+    }
+    if (sortSpillThresholdRows != null) {
+      opChainMetadata.put(QueryOptionKey.SORT_SPILL_THRESHOLD_ROWS, Integer.toString(sortSpillThresholdRows));
+    }
+
+    Long sortSpillThresholdBytes = QueryOptionsUtils.getSortSpillThresholdBytes(opChainMetadata);
+    if (sortSpillThresholdBytes == null) {
+      sortSpillThresholdBytes = _sortSpillThresholdBytes;
+    }
+    if (sortSpillThresholdBytes != null) {
+      opChainMetadata.put(QueryOptionKey.SORT_SPILL_THRESHOLD_BYTES, Long.toString(sortSpillThresholdBytes));
+    }
+
+    if (_leafStreamingGroupBy && !opChainMetadata.containsKey(QueryOptionKey.STREAMING_GROUP_BY)) {
+      opChainMetadata.put(QueryOptionKey.STREAMING_GROUP_BY, "true");
+    }
+
+    if (_sharedJoinBuild && !opChainMetadata.containsKey(QueryOptionKey.SHARED_JOIN_BUILD)) {
+      opChainMetadata.put(QueryOptionKey.SHARED_JOIN_BUILD, "true");
+    }
+
     return opChainMetadata;
   }
 
@@ -95,6 +95,14 @@ public interface MseBlock extends Block {
     /// if the block is a [RowHeapDataBlock].
     /// @throws java.io.UncheckedIOException if the block cannot be serialized.
     SerializedDataBlock asSerialized();
+    /// Returns the data in the block as a [SerializedDataBlock] in columnar format, where the values of each column
+    /// are stored contiguously (see [ColumnarDataBlock][org.apache.pinot.common.datablock.ColumnarDataBlock]).
+    /// Consumers that read whole columns (e.g. the aggregations) can then read them as primitive arrays instead of
+    /// boxed rows.
+    /// This is a no-op if the block is already a columnar [SerializedDataBlock]. Blocks without columns are kept in row
+    /// format because the columnar format cannot carry their number of rows.
+    /// @throws java.io.UncheckedIOException if the block cannot be serialized.
+    SerializedDataBlock asColumnar();
 
     /// Returns whether the block is a [RowHeapDataBlock].
     boolean isRowHeap();
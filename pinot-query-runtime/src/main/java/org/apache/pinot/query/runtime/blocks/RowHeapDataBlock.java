@@ -20,6 +20,7 @@ package org.apache.pinot.query.runtime.blocks;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.List;
 import javax.annotation.Nullable;
 import org.apache.pinot.common.utils.DataSchema;
@@ -111,6 +112,29 @@ public class RowHeapDataBlock implements MseBlock.Data {
     }
   }
 
+  @Override
+  public SerializedDataBlock asColumnar() {
+    int numRows = _rows.size();
+    int numColumns = _dataSchema.size();
+    if (numColumns == 0) {
+      // Columnar block derives the number of rows from the columns
+      return asSerialized();
+    }
+    List<Object[]> columns = new ArrayList<>(numColumns);
+    for (int colId = 0; colId < numColumns; colId++) {
+      Object[] column = new Object[numRows];
+      for (int rowId = 0; rowId < numRows; rowId++) {
+        column[rowId] = _rows.get(rowId)[colId];
+      }
+      columns.add(column);
+    }
+    try {
+      return new SerializedDataBlock(DataBlockBuilder.buildFromColumns(columns, _dataSchema, _aggFunctions));
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
   @Override
   public boolean isRowHeap() {
     return true;
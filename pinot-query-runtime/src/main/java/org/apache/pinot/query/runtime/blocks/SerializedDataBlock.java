@@ -69,6 +69,14 @@ public class SerializedDataBlock implements MseBlock.Data {
     return this;
   }
 
+  @Override
+  public SerializedDataBlock asColumnar() {
+    if (_dataBlock.getDataBlockType() == DataBlock.Type.COLUMNAR || _dataBlock.getDataSchema().size() == 0) {
+      return this;
+    }
+    return asRowHeap().asColumnar();
+  }
+
   @Override
   public boolean isRowHeap() {
     return false;
@@ -20,20 +20,28 @@ package org.apache.pinot.query.runtime.executor;
 
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.stream.Collectors;
+import javax.annotation.Nullable;
 import org.apache.pinot.core.util.trace.TraceRunnable;
 import org.apache.pinot.query.runtime.blocks.ErrorMseBlock;
 import org.apache.pinot.query.runtime.blocks.MseBlock;
+import org.apache.pinot.query.runtime.operator.BaseMailboxReceiveOperator;
 import org.apache.pinot.query.runtime.operator.MultiStageOperator;
 import org.apache.pinot.query.runtime.operator.OpChain;
 import org.apache.pinot.query.runtime.operator.OpChainId;
@@ -47,14 +55,29 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 
+/// Schedules the [OpChain]s on the executor.
+///
+/// By default, each op chain is executed by a single task that keeps its thread until the op chain finishes, blocking
+/// the thread while waiting for data from the mailboxes.
+/// When cooperative scheduling is enabled (see [MultiStageQueryRunner#KEY_OF_OP_CHAIN_COOPERATIVE_SCHEDULING]), an op
+/// chain whose leaf operators are all mailbox receive operators yields its thread between blocks when none of the
+/// mailboxes has data to read, and it is resubmitted to the executor when new data arrives or the deadline is reached.
+/// Operators pull their inputs synchronously, so the op chain can only yield before pulling the next block from the
+/// root operator.
+///
 /// TODO: Use CID to manage the queries
 public class OpChainSchedulerService {
   private static final Logger LOGGER = LoggerFactory.getLogger(OpChainSchedulerService.class);
   private static final int NUM_QUERY_LOCKS = 1 << 10; // 1024 locks
   private static final int QUERY_LOCK_MASK = NUM_QUERY_LOCKS - 1;
+  private static final int STATE_RUNNING = 0;
+  private static final int STATE_PARKED = 1;
 
   private final ExecutorService _executorService;
   private final ConcurrentHashMap<OpChainId, Future<?>> _submittedOpChainMap = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<OpChainId, CooperativeOpChain> _cooperativeOpChainMap = new ConcurrentHashMap<>();
+  @Nullable
+  private final ScheduledExecutorService _deadlineTimer;
   private final Cache<OpChainId, MultiStageOperator> _opChainCache;
   private final ReadWriteLock[] _queryLocks;
   private final Cache<Long, Boolean> _cancelledQueryCache;
@@ -67,19 +90,25 @@ public class OpChainSchedulerService {
         config.getProperty(MultiStageQueryRunner.KEY_OF_CANCELLED_QUERY_CACHE_SIZE,
             MultiStageQueryRunner.DEFAULT_OF_CANCELLED_QUERY_CACHE_SIZE),
         config.getProperty(MultiStageQueryRunner.KEY_OF_CANCELLED_QUERY_CACHE_EXPIRE_MS,
-            MultiStageQueryRunner.DEFAULT_OF_CANCELLED_QUERY_CACHE_EXPIRE_MS));
+            MultiStageQueryRunner.DEFAULT_OF_CANCELLED_QUERY_CACHE_EXPIRE_MS),
+        config.getProperty(MultiStageQueryRunner.KEY_OF_OP_CHAIN_COOPERATIVE_SCHEDULING,
+            MultiStageQueryRunner.DEFAULT_OF_OP_CHAIN_COOPERATIVE_SCHEDULING));
   }
 
   public OpChainSchedulerService(ExecutorService executorService) {
     this(executorService, MultiStageQueryRunner.DEFAULT_OF_OP_STATS_CACHE_SIZE,
         MultiStageQueryRunner.DEFAULT_OF_OP_STATS_CACHE_EXPIRE_MS,
         MultiStageQueryRunner.DEFAULT_OF_CANCELLED_QUERY_CACHE_SIZE,
-        MultiStageQueryRunner.DEFAULT_OF_CANCELLED_QUERY_CACHE_EXPIRE_MS);
+        MultiStageQueryRunner.DEFAULT_OF_CANCELLED_QUERY_CACHE_EXPIRE_MS,
+        MultiStageQueryRunner.DEFAULT_OF_OP_CHAIN_COOPERATIVE_SCHEDULING);
   }
 
   public OpChainSchedulerService(ExecutorService executorService, int opStatsCacheSize, long opStatsCacheExpireMs,
-      int cancelledQueryCacheSize, long cancelledQueryCacheExpireMs) {
+      int cancelledQueryCacheSize, long cancelledQueryCacheExpireMs, boolean cooperativeScheduling) {
     _executorService = executorService;
+    // The timer only wakes up the parked op chains when the deadline is reached, the op chains run on the executor
+    _deadlineTimer = cooperativeScheduling ? Executors.newSingleThreadScheduledExecutor(
+        new ThreadFactoryBuilder().setNameFormat("opchain-deadline-timer-%d").setDaemon(true).build()) : null;
     _opChainCache = CacheBuilder.newBuilder()
         .weigher((OpChainId key, MultiStageOperator value) -> countOperators(value))
         .maximumWeight(opStatsCacheSize)
@@ -116,6 +145,13 @@ public class OpChainSchedulerService {
 
   private void registerInternal(OpChain operatorChain) {
     OpChainId opChainId = operatorChain.getId();
+    if (_deadlineTimer != null) {
+      CooperativeOpChain cooperativeOpChain = new CooperativeOpChain(operatorChain);
+      _opChainCache.put(opChainId, operatorChain.getRoot());
+      _cooperativeOpChainMap.put(opChainId, cooperativeOpChain);
+      cooperativeOpChain.start();
+      return;
+    }
     Future<?> scheduledFuture = _executorService.submit(new TraceRunnable() {
       @Override
       public void runJob() {
@@ -131,25 +167,13 @@ public class OpChainSchedulerService {
           while (result.isData()) {
             result = operatorChain.getRoot().nextBlock();
           }
-          MultiStageQueryStats stats = operatorChain.getRoot().calculateStats();
-          if (result.isError()) {
-            errorBlock = (ErrorMseBlock) result;
-            LOGGER.error("({}): Completed erroneously {} {}", operatorChain, stats, errorBlock.getErrorMessages());
-          } else {
-            LOGGER.debug("({}): Completed {}", operatorChain, stats);
-            _opChainCache.invalidate(opChainId);
-          }
+          errorBlock = onCompleted(operatorChain, result);
         } catch (Exception e) {
           LOGGER.error("({}): Failed to execute operator chain!", operatorChain, e);
           thrown = e;
         } finally {
           _submittedOpChainMap.remove(opChainId);
-          if (errorBlock != null || thrown != null) {
-            if (thrown == null) {
-              thrown = new RuntimeException("Error block " + errorBlock.getErrorMessages());
-            }
-            operatorChain.cancel(thrown);
-          }
+          cancelOnError(operatorChain, errorBlock, thrown);
           Tracing.ThreadAccountantOps.clear();
         }
       }
@@ -158,6 +182,33 @@ public class OpChainSchedulerService {
     _submittedOpChainMap.put(opChainId, scheduledFuture);
   }
 
+  /**
+   * Handles the EOS block returned by the root operator, returns the error block if the op chain failed.
+   */
+  @Nullable
+  private ErrorMseBlock onCompleted(OpChain operatorChain, MseBlock result) {
+    MultiStageQueryStats stats = operatorChain.getRoot().calculateStats();
+    if (result.isError()) {
+      ErrorMseBlock errorBlock = (ErrorMseBlock) result;
+      LOGGER.error("({}): Completed erroneously {} {}", operatorChain, stats, errorBlock.getErrorMessages());
+      return errorBlock;
+    } else {
+      LOGGER.debug("({}): Completed {}", operatorChain, stats);
+      _opChainCache.invalidate(operatorChain.getId());
+      return null;
+    }
+  }
+
+  private static void cancelOnError(OpChain operatorChain, @Nullable ErrorMseBlock errorBlock,
+      @Nullable Throwable thrown) {
+    if (errorBlock != null || thrown != null) {
+      if (thrown == null) {
+        thrown = new RuntimeException("Error block " + errorBlock.getErrorMessages());
+      }
+      operatorChain.cancel(thrown);
+    }
+  }
+
   public Map<Integer, MultiStageQueryStats.StageStats.Closed> cancel(long requestId) {
     // Acquire write lock for the query to ensure that the query is not cancelled while scheduling the operator chain.
     Lock writeLock = getQueryLock(requestId).writeLock();
@@ -178,6 +229,11 @@ public class OpChainSchedulerService {
         iterator.remove();
       }
     }
+    for (Map.Entry<OpChainId, CooperativeOpChain> entry : _cooperativeOpChainMap.entrySet()) {
+      if (entry.getKey().getRequestId() == requestId) {
+        entry.getValue().cancel();
+      }
+    }
     Map<OpChainId, MultiStageOperator> cancelledByOpChainId = _opChainCache.asMap()
         .entrySet()
         .stream()
@@ -220,4 +276,219 @@ public class OpChainSchedulerService {
   private ReadWriteLock getQueryLock(long requestId) {
     return _queryLocks[(int) (requestId & QUERY_LOCK_MASK)];
   }
+
+  /**
+   * Returns the mailbox receive operators which are the leaves of the tree rooted at the given operator, or
+   * {@code null} if any leaf is not a mailbox receive operator, in which case the op chain cannot yield.
+   */
+  @Nullable
+  private static List<BaseMailboxReceiveOperator> getReceiveOperators(MultiStageOperator root) {
+    List<BaseMailboxReceiveOperator> receiveOperators = new ArrayList<>();
+    ArrayList<MultiStageOperator> stack = new ArrayList<>(8);
+    stack.add(root);
+    while (!stack.isEmpty()) {
+      MultiStageOperator operator = stack.remove(stack.size() - 1);
+      if (operator instanceof BaseMailboxReceiveOperator) {
+        receiveOperators.add((BaseMailboxReceiveOperator) operator);
+        continue;
+      }
+      List<MultiStageOperator> childOperators = operator.getChildOperators();
+      if (childOperators == null || childOperators.isEmpty()) {
+        return null;
+      }
+      stack.addAll(childOperators);
+    }
+    return receiveOperators;
+  }
+
+  /**
+   * An op chain executed cooperatively. Before pulling the next block from the root operator, the op chain checks
+   * whether all the receive operators the root operator reads from next are ready to read. If not, it parks and
+   * releases the thread, and the mailbox listeners (or the deadline timer) resubmit it to the executor when new data
+   * arrives. Operators that drain an input within a single call (e.g. a join building its right table) can still block
+   * the thread waiting for the rest of that input.
+   *
+   * At most one thread executes the op chain at any time: the op chain is only resubmitted by the thread that moves it
+   * from the parked state to the running state.
+   */
+  private class CooperativeOpChain extends TraceRunnable {
+    private final OpChain _operatorChain;
+    @Nullable
+    private final List<BaseMailboxReceiveOperator> _receiveOperators;
+    private final AtomicInteger _state = new AtomicInteger(STATE_RUNNING);
+    // Set on every wake-up request, and cleared before checking whether the op chain is ready to run, so that a wake-up
+    // request received while parking is not lost
+    private volatile boolean _wakeUpRequested;
+    private volatile boolean _cancelled;
+    @Nullable
+    private Thread _runningThread;
+    @Nullable
+    private ScheduledFuture<?> _deadlineWakeUp;
+
+    CooperativeOpChain(OpChain operatorChain) {
+      _operatorChain = operatorChain;
+      _receiveOperators = getReceiveOperators(operatorChain.getRoot());
+    }
+
+    void start() {
+      if (_receiveOperators != null) {
+        for (BaseMailboxReceiveOperator receiveOperator : _receiveOperators) {
+          receiveOperator.setOnNewDataListener(this::wakeUp);
+        }
+      }
+      submit();
+    }
+
+    /**
+     * Requests the op chain to run, and resubmits it to the executor if it is parked.
+     *
+     * This method can be called from any thread.
+     */
+    void wakeUp() {
+      _wakeUpRequested = true;
+      if (_state.compareAndSet(STATE_PARKED, STATE_RUNNING)) {
+        LOGGER.trace("({}): Resumed", _operatorChain);
+        submit();
+      }
+    }
+
+    /**
+     * Cancels the op chain. A parked op chain is resumed to be cancelled, and a running op chain is interrupted.
+     *
+     * This method can be called from any thread.
+     */
+    void cancel() {
+      _cancelled = true;
+      wakeUp();
+      synchronized (this) {
+        if (_runningThread != null) {
+          _runningThread.interrupt();
+        }
+      }
+    }
+
+    private void submit() {
+      try {
+        _executorService.submit(this);
+      } catch (Exception e) {
+        LOGGER.error("({}): Failed to schedule operator chain!", _operatorChain, e);
+        finish(null, e);
+      }
+    }
+
+    @Override
+    public void runJob() {
+      synchronized (this) {
+        _runningThread = Thread.currentThread();
+      }
+      OpChainId opChainId = _operatorChain.getId();
+      boolean parked = false;
+      ErrorMseBlock errorBlock = null;
+      Throwable thrown = null;
+      try {
+        Tracing.ThreadAccountantOps.setupWorker(opChainId.getStageId(), ThreadExecutionContext.TaskType.MSE,
+            _operatorChain.getParentContext());
+        LOGGER.trace("({}): Executing", _operatorChain);
+        while (true) {
+          if (_cancelled) {
+            throw new QueryCancelledException("Query has been cancelled while executing op-chain: " + opChainId);
+          }
+          _wakeUpRequested = false;
+          if (!isReadyToRun()) {
+            if (park()) {
+              parked = true;
+              return;
+            }
+            // Woken up while parking, check again whether the op chain is ready to run
+            continue;
+          }
+          MseBlock result = _operatorChain.getRoot().nextBlock();
+          if (!result.isData()) {
+            errorBlock = onCompleted(_operatorChain, result);
+            break;
+          }
+        }
+      } catch (Exception e) {
+        LOGGER.error("({}): Failed to execute operator chain!", _operatorChain, e);
+        thrown = e;
+      } finally {
+        synchronized (this) {
+          if (_runningThread == Thread.currentThread()) {
+            _runningThread = null;
+          }
+        }
+        if (!parked) {
+          finish(errorBlock, thrown);
+        }
+        Tracing.ThreadAccountantOps.clear();
+      }
+    }
+
+    /**
+     * Returns whether every unfinished receive operator the root operator reads from on its next call is ready to read.
+     * Operators only report the inputs they are currently consuming (see
+     * {@link MultiStageOperator#getNextInputOperators()}), e.g. a join whose right table is not built yet only waits
+     * for its right input, so data arriving on the left input does not resume the op chain.
+     */
+    private boolean isReadyToRun() {
+      if (_receiveOperators == null) {
+        return true;
+      }
+      ArrayList<MultiStageOperator> stack = new ArrayList<>(8);
+      stack.add(_operatorChain.getRoot());
+      while (!stack.isEmpty()) {
+        MultiStageOperator operator = stack.remove(stack.size() - 1);
+        if (operator instanceof BaseMailboxReceiveOperator) {
+          BaseMailboxReceiveOperator receiveOperator = (BaseMailboxReceiveOperator) operator;
+          if (!receiveOperator.isFinished() && !receiveOperator.isReadyToRead()) {
+            return false;
+          }
+        } else {
+          stack.addAll(operator.getNextInputOperators());
+        }
+      }
+      return true;
+    }
+
+    /**
+     * Parks the op chain, returns {@code false} if a wake-up request is received while parking, in which case the op
+     * chain keeps running on the current thread.
+     */
+    private boolean park() {
+      if (_deadlineWakeUp == null) {
+        // Subtract before adding to not overflow when there is no deadline (Long.MAX_VALUE)
+        long delayMs = Math.max(_operatorChain.getContext().getPassiveDeadlineMs() - System.currentTimeMillis(), 0) + 1;
+        _deadlineWakeUp = _deadlineTimer.schedule(this::wakeUp, delayMs, TimeUnit.MILLISECONDS);
+      }
+      _state.set(STATE_PARKED);
+      // The wake-up requests received before the state is set cannot resubmit the op chain
+      if (_wakeUpRequested && _state.compareAndSet(STATE_PARKED, STATE_RUNNING)) {
+        return false;
+      }
+      LOGGER.trace("({}): Parked", _operatorChain);
+      return true;
+    }
+
+    private void finish(@Nullable ErrorMseBlock errorBlock, @Nullable Throwable thrown) {
+      OpChainId opChainId = _operatorChain.getId();
+      _cooperativeOpChainMap.remove(opChainId);
+      if (_deadlineWakeUp != null) {
+        _deadlineWakeUp.cancel(false);
+      }
+      if (_receiveOperators != null) {
+        for (BaseMailboxReceiveOperator receiveOperator : _receiveOperators) {
+          receiveOperator.setOnNewDataListener(null);
+        }
+      }
+      try {
+        _operatorChain.close();
+      } catch (Exception e) {
+        LOGGER.error("({}): Failed to close operator chain!", _operatorChain, e);
+        if (thrown == null) {
+          thrown = e;
+        }
+      }
+      cancelOnError(_operatorChain, errorBlock, thrown);
+    }
+  }
 }
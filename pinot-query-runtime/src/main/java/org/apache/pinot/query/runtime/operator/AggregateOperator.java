@@ -199,7 +199,8 @@ public class AggregateOperator extends MultiStageOperator {
   @Override
   protected MseBlock getNextBlock() {
     if (_eosBlock != null) {
-      return _eosBlock;
+      // Keep producing the spilled partitions until all of them are consumed
+      return _groupByExecutor != null && !_eosBlock.isError() ? produceSpilledBlock() : _eosBlock;
     }
     MseBlock.Eos finalBlock = _aggregationExecutor != null ? consumeAggregation() : consumeGroupBy();
     _eosBlock = finalBlock;
@@ -207,6 +208,12 @@ public class AggregateOperator extends MultiStageOperator {
     if (finalBlock.isError()) {
       return finalBlock;
     }
+    if (_groupByExecutor != null && _groupByExecutor.isSpilled()) {
+      _groupByExecutor.finishSpilling();
+      _statMap.merge(StatKey.NUM_ROWS_SPILLED, _groupByExecutor.getNumRowsSpilled());
+      _statMap.merge(StatKey.NUM_BYTES_SPILLED, _groupByExecutor.getNumBytesSpilled());
+      return produceSpilledBlock();
+    }
     MseBlock mseBlock = produceAggregatedBlock();
     _aggregationExecutor = null;
     _groupByExecutor = null;
@@ -252,6 +259,37 @@ public class AggregateOperator extends MultiStageOperator {
     }
   }
 
+  /**
+   * Produces the result of the spilled group by. Without trimming, a block is returned for each spilled partition;
+   * otherwise all the partitions are trimmed into a single block.
+   */
+  private MseBlock produceSpilledBlock() {
+    assert _groupByExecutor != null;
+    List<Object[]> rows;
+    if (_groupTrimSize == Integer.MAX_VALUE) {
+      rows = _groupByExecutor.getNextSpilledPartitionResult();
+    } else {
+      rows = _groupByExecutor.getSpilledResult(_comparator, _groupTrimSize);
+      if (_groupByExecutor.getRowsProcessed() > _groupTrimSize) {
+        _statMap.merge(StatKey.GROUPS_TRIMMED, true);
+      }
+    }
+    if (rows == null || rows.isEmpty() || _groupTrimSize != Integer.MAX_VALUE) {
+      // All the partitions are consumed
+      _groupByExecutor.releaseSpilledPartitions();
+      _groupByExecutor = null;
+    }
+    return rows == null || rows.isEmpty() ? _eosBlock : new RowHeapDataBlock(rows, _resultSchema, _aggFunctions);
+  }
+
+  @Override
+  public void close() {
+    super.close();
+    if (_groupByExecutor != null) {
+      _groupByExecutor.releaseSpilledPartitions();
+    }
+  }
+
   @Override
   protected StatMap<?> copyStatMaps() {
     return new StatMap<>(_statMap);
@@ -467,7 +505,15 @@ public class AggregateOperator extends MultiStageOperator {
     },
     GROUPS_TRIMMED(StatMap.Type.BOOLEAN),
     NUM_GROUPS_LIMIT_REACHED(StatMap.Type.BOOLEAN),
-    NUM_GROUPS_WARNING_LIMIT_REACHED(StatMap.Type.BOOLEAN);
+    NUM_GROUPS_WARNING_LIMIT_REACHED(StatMap.Type.BOOLEAN),
+    /**
+     * Number of groups spilled to disk by the group by. A group can be spilled multiple times.
+     */
+    NUM_ROWS_SPILLED(StatMap.Type.LONG),
+    /**
+     * Number of bytes spilled to disk by the group by.
+     */
+    NUM_BYTES_SPILLED(StatMap.Type.LONG);
     //@formatter:on
 
     private final StatMap.Type _type;
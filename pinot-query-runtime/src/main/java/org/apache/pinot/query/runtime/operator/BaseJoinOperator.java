@@ -48,9 +48,10 @@ import org.slf4j.LoggerFactory;
 
 /**
  * The {@code BaseJoinOperator} implements the basic join algorithm.
- * <p>This algorithm assumes that the right table has to fit in memory since we are not supporting any spilling. It
- * reads the complete right table and materialize the data in memory. Then for each of the left table row, it looks up
- * for the corresponding row(s) from the right table, applies the non-equi evaluators and creates a joint row.
+ * <p>This algorithm assumes that the right table has to fit in memory unless the join operator supports spilling (see
+ * {@link #spillRightTable()}). It reads the complete right table and materialize the data in memory. Then for each of
+ * the left table row, it looks up for the corresponding row(s) from the right table, applies the non-equi evaluators
+ * and creates a joint row.
  * <p>For each of the data block received from the left table, it generates a joint data block. The output is in the
  * format of [left_row, right_row].
  */
@@ -78,9 +79,10 @@ public abstract class BaseJoinOperator extends MultiStageOperator {
    */
   protected final int _maxRowsInJoin;
   /**
-   * Mode when join overflow happens, supported values: THROW or BREAK.
+   * Mode when join overflow happens, supported values: THROW, BREAK or SPILL.
    *   THROW(default): Break right table build process, and throw exception, no JOIN with left table performed.
    *   BREAK: Break right table build process, continue to perform JOIN operation, results might be partial.
+   *   SPILL: Spill the right table to disk if supported by the join operator, otherwise same as THROW.
    */
   protected final JoinOverFlowMode _joinOverflowMode;
 
@@ -180,6 +182,14 @@ public abstract class BaseJoinOperator extends MultiStageOperator {
     return List.of(_leftInput, _rightInput);
   }
 
+  @Override
+  public List<MultiStageOperator> getNextInputOperators() {
+    if (_eos != null) {
+      return List.of();
+    }
+    return List.of(_isRightTableBuilt ? _leftInput : _rightInput);
+  }
+
   @Override
   protected MseBlock getNextBlock() {
     if (!_isRightTableBuilt) {
@@ -206,22 +216,7 @@ public abstract class BaseJoinOperator extends MultiStageOperator {
     int numRows = 0;
     MseBlock rightBlock = _rightInput.nextBlock();
     while (rightBlock.isData()) {
-      List<Object[]> rows = ((MseBlock.Data) rightBlock).asRowHeap().getRows();
-      // Row based overflow check.
-      if (rows.size() + numRows > _maxRowsInJoin) {
-        if (_joinOverflowMode == JoinOverFlowMode.THROW) {
-          throwForJoinRowLimitExceeded(
-              "Cannot build in memory hash table for join operator, reached number of rows limit: " + _maxRowsInJoin);
-        } else {
-          // Just fill up the buffer.
-          int remainingRows = _maxRowsInJoin - numRows;
-          rows = rows.subList(0, remainingRows);
-          _statMap.merge(StatKey.MAX_ROWS_IN_JOIN_REACHED, true);
-          // setting only the rightTableOperator to be early terminated and awaits EOS block next.
-          _rightInput.earlyTerminate();
-        }
-      }
-
+      List<Object[]> rows = limitRightRows(((MseBlock.Data) rightBlock).asRowHeap().getRows(), numRows);
       addRowsToRightTable(rows);
       numRows += rows.size();
       sampleAndCheckInterruption();
@@ -240,6 +235,38 @@ public abstract class BaseJoinOperator extends MultiStageOperator {
     LOGGER.trace("Finished building right table for join operator");
   }
 
+  /**
+   * Applies the max rows in join limit to the right rows to be added to the right table, where {@code numRows} is the
+   * number of rows already added. Returns the rows to add, which are truncated when the limit is reached in BREAK
+   * overflow mode (the right input is then early terminated).
+   */
+  protected List<Object[]> limitRightRows(List<Object[]> rows, int numRows) {
+    // Row based overflow check.
+    if (rows.size() + numRows > _maxRowsInJoin && !spillRightTable()) {
+      if (_joinOverflowMode != JoinOverFlowMode.BREAK) {
+        throwForJoinRowLimitExceeded(
+            "Cannot build in memory hash table for join operator, reached number of rows limit: " + _maxRowsInJoin);
+      } else {
+        // Just fill up the buffer.
+        int remainingRows = _maxRowsInJoin - numRows;
+        rows = rows.subList(0, remainingRows);
+        _statMap.merge(StatKey.MAX_ROWS_IN_JOIN_REACHED, true);
+        // setting only the rightTableOperator to be early terminated and awaits EOS block next.
+        _rightInput.earlyTerminate();
+      }
+    }
+    return rows;
+  }
+
+  /**
+   * Invoked when the right table reaches the max rows limit. Returns {@code true} if the join operator spills the right
+   * table to disk (and keeps accepting the right rows), {@code false} to apply the overflow mode. Spilling is not
+   * supported by default.
+   */
+  protected boolean spillRightTable() {
+    return false;
+  }
+
   protected abstract void addRowsToRightTable(List<Object[]> rows);
 
   protected abstract void finishBuildingRightTable();
@@ -340,7 +367,7 @@ public abstract class BaseJoinOperator extends MultiStageOperator {
    */
   protected boolean isMaxRowsLimitReached(int numJoinedRows) {
     if (numJoinedRows == _maxRowsInJoin) {
-      if (_joinOverflowMode == JoinOverFlowMode.THROW) {
+      if (_joinOverflowMode != JoinOverFlowMode.BREAK) {
         throwForJoinRowLimitExceeded(
             "Cannot process join, reached number of rows limit: " + _maxRowsInJoin);
       } else {
@@ -367,7 +394,9 @@ public abstract class BaseJoinOperator extends MultiStageOperator {
             + JoinOverFlowMode.BREAK.name() + "' either via:\n"
             + "  - The query option '" + QueryOptionKey.JOIN_OVERFLOW_MODE + "'\n"
             + "  - The hint '" + JoinHintOptions.JOIN_OVERFLOW_MODE + "' in the '"
-            + PinotHintOptions.JOIN_HINT_OPTIONS + "'\n");
+            + PinotHintOptions.JOIN_HINT_OPTIONS + "'\n"
+            + "For hash joins, the join overflow mode can also be set to '" + JoinOverFlowMode.SPILL.name()
+            + "' to spill the join to disk.\n");
   }
 
   public enum StatKey implements StatMap.Key {
@@ -388,7 +417,15 @@ public abstract class BaseJoinOperator extends MultiStageOperator {
     /**
      * How long (CPU time) has been spent on building the hash table.
      */
-    TIME_BUILDING_HASH_TABLE_MS(StatMap.Type.LONG);
+    TIME_BUILDING_HASH_TABLE_MS(StatMap.Type.LONG),
+    /**
+     * Number of rows (from both sides) spilled to disk by the hash join.
+     */
+    NUM_ROWS_SPILLED(StatMap.Type.LONG),
+    /**
+     * Number of bytes (from both sides) spilled to disk by the hash join.
+     */
+    NUM_BYTES_SPILLED(StatMap.Type.LONG);
     //@formatter:on
 
     private final StatMap.Type _type;
@@ -93,6 +93,28 @@ public abstract class BaseMailboxReceiveOperator extends MultiStageOperator {
     _multiConsumer.earlyTerminate();
   }
 
+  /**
+   * Returns whether all the mailboxes already emitted EOS.
+   */
+  public boolean isFinished() {
+    return _multiConsumer.isFinished();
+  }
+
+  /**
+   * Returns whether the next block can be read without waiting for data from the mailboxes.
+   */
+  public boolean isReadyToRead() {
+    return _multiConsumer.isReadyToRead();
+  }
+
+  /**
+   * Sets the listener notified when new data arrives in any of the mailboxes, see
+   * {@link BlockingMultiStreamConsumer#setOnNewDataListener(Runnable)}.
+   */
+  public void setOnNewDataListener(@Nullable Runnable listener) {
+    _multiConsumer.setOnNewDataListener(listener);
+  }
+
   @Override
   public Type getOperatorType() {
     return Type.MAILBOX_RECEIVE;
@@ -190,6 +212,11 @@ public abstract class BaseMailboxReceiveOperator extends MultiStageOperator {
       _mailbox.registeredReader(onNewData::newDataAvailable);
     }
 
+    @Override
+    public boolean hasPendingElements() {
+      return _mailbox.hasPendingBlocks();
+    }
+
     @Override
     public void earlyTerminate() {
       _mailbox.earlyTerminate();
@@ -19,37 +19,60 @@
 package org.apache.pinot.query.runtime.operator;
 
 import com.google.common.base.Preconditions;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.BitSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import javax.annotation.Nullable;
+import org.apache.calcite.rel.RelDistribution;
 import org.apache.calcite.rel.core.JoinRelType;
 import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.common.utils.config.QueryOptionsUtils;
 import org.apache.pinot.core.data.table.Key;
 import org.apache.pinot.query.planner.partitioning.KeySelector;
 import org.apache.pinot.query.planner.partitioning.KeySelectorFactory;
 import org.apache.pinot.query.planner.plannode.JoinNode;
+import org.apache.pinot.query.planner.plannode.MailboxReceiveNode;
+import org.apache.pinot.query.planner.plannode.PlanNode;
 import org.apache.pinot.query.runtime.blocks.MseBlock;
+import org.apache.pinot.query.runtime.blocks.RowHeapDataBlock;
 import org.apache.pinot.query.runtime.operator.join.DoubleLookupTable;
 import org.apache.pinot.query.runtime.operator.join.FloatLookupTable;
 import org.apache.pinot.query.runtime.operator.join.IntLookupTable;
 import org.apache.pinot.query.runtime.operator.join.LongLookupTable;
 import org.apache.pinot.query.runtime.operator.join.LookupTable;
 import org.apache.pinot.query.runtime.operator.join.ObjectLookupTable;
+import org.apache.pinot.query.runtime.operator.join.SharedLookupTable;
+import org.apache.pinot.query.runtime.operator.utils.SpillFile;
+import org.apache.pinot.query.runtime.operator.utils.SpilledPartitions;
 import org.apache.pinot.query.runtime.plan.OpChainExecutionContext;
+import org.apache.pinot.spi.exception.QueryErrorCode;
 import org.apache.pinot.spi.trace.Tracing;
+import org.apache.pinot.spi.utils.CommonConstants.MultiStageQueryRunner.JoinOverFlowMode;
 
 
 /**
  * This {@code HashJoinOperator} join algorithm with join keys. Right table is materialized into a hash table.
+ * <p>With the {@link JoinOverFlowMode#SPILL} overflow mode, when the right table reaches the max rows limit or the heap
+ * usage reaches the alarming level of the resource usage accountant, the join switches to a grace hash join: rows from
+ * both sides are partitioned by the join keys into local spill files, then the partitions are joined one by one with a
+ * hash table built from the right rows of the partition.
+ * <p>When the right input is broadcast and the shared join build is enabled, the workers of the stage on the same
+ * server share a single hash table (see {@link SharedLookupTable}) instead of building identical copies of it.
  */
-// TODO: Support memory size based resource limit.
 @SuppressWarnings("unchecked")
 public class HashJoinOperator extends BaseJoinOperator {
   private static final String EXPLAIN_NAME = "HASH_JOIN";
 
+  // Number of partitions when spilling the join to disk, must be a power of 2
+  private static final int NUM_SPILL_PARTITIONS_BITS = 4;
+  private static final int NUM_SPILL_PARTITIONS = 1 << NUM_SPILL_PARTITIONS_BITS;
+  // Number of rows per block in the spill files
+  private static final int SPILL_BLOCK_SIZE = 4096;
+
   // Placeholder for BitSet in _matchedRightRows when all keys are unique in the right table.
   protected static final BitSet BIT_SET_PLACEHOLDER = new BitSet(0);
 
@@ -66,6 +89,29 @@ public class HashJoinOperator extends BaseJoinOperator {
   @Nullable
   private List<Object[]> _nullKeyRightRows;
 
+  private final List<Integer> _leftKeys;
+  private final DataSchema _leftSchema;
+  // Schema of the right rows to serialize the spilled rows, null when it is not available in the join node
+  @Nullable
+  private final DataSchema _rightSchema;
+  // Partitions spilled to disk when the join is spilled, null when the right table fits in memory
+  @Nullable
+  private SpilledPartitions _rightPartitions;
+  @Nullable
+  private SpilledPartitions _leftPartitions;
+  @Nullable
+  private MseBlock.Eos _leftEos;
+  private int _currentPartitionId = -1;
+  @Nullable
+  private SpillFile.Reader _currentLeftReader;
+  private boolean _probingPartition;
+  // Sender stage of the broadcast right input when the right table can be shared with the other workers of the stage on
+  // the same server, -1 otherwise
+  private final int _sharedRightSenderStageId;
+  @Nullable
+  private SharedLookupTable _sharedRightTable;
+  private boolean _sharedRightTableReleased;
+
   public HashJoinOperator(OpChainExecutionContext context, MultiStageOperator leftInput, DataSchema leftSchema,
       MultiStageOperator rightInput, JoinNode node) {
     super(context, leftInput, leftSchema, rightInput, node);
@@ -73,10 +119,15 @@ public class HashJoinOperator extends BaseJoinOperator {
     Preconditions.checkState(!leftKeys.isEmpty(), "Hash join operator requires join keys");
     _leftKeySelector = KeySelectorFactory.getKeySelector(leftKeys);
     _rightKeySelector = KeySelectorFactory.getKeySelector(node.getRightKeys());
-    _rightTable = createLookupTable(leftKeys, leftSchema);
+    _sharedRightSenderStageId = getSharedRightSenderStageId(context, node);
+    // The right table is created when building it if it might be shared with the other workers
+    _rightTable = _sharedRightSenderStageId < 0 ? createLookupTable(leftKeys, leftSchema) : null;
     _matchedRightRows = needUnmatchedRightRows() ? new HashMap<>() : null;
     // Initialize _nullKeyRightRows for both RIGHT and FULL JOINs
     _nullKeyRightRows = needUnmatchedRightRows() ? new ArrayList<>() : null;
+    _leftKeys = leftKeys;
+    _leftSchema = leftSchema;
+    _rightSchema = getRightSchema(node);
   }
 
   /// Constructor that takes the schema for NonEquiEvaluator as an argument
@@ -87,8 +138,38 @@ public class HashJoinOperator extends BaseJoinOperator {
     Preconditions.checkState(!leftKeys.isEmpty(), "Hash join operator requires join keys");
     _leftKeySelector = KeySelectorFactory.getKeySelector(leftKeys);
     _rightKeySelector = KeySelectorFactory.getKeySelector(node.getRightKeys());
-    _rightTable = createLookupTable(leftKeys, leftSchema);
+    _sharedRightSenderStageId = getSharedRightSenderStageId(context, node);
+    _rightTable = _sharedRightSenderStageId < 0 ? createLookupTable(leftKeys, leftSchema) : null;
     _matchedRightRows = needUnmatchedRightRows() ? new HashMap<>() : null;
+    _leftKeys = leftKeys;
+    _leftSchema = leftSchema;
+    _rightSchema = getRightSchema(node);
+  }
+
+  @Nullable
+  private static DataSchema getRightSchema(JoinNode node) {
+    List<PlanNode> inputs = node.getInputs();
+    return inputs.size() == 2 ? inputs.get(1).getDataSchema() : null;
+  }
+
+  /**
+   * Returns the sender stage of the right input when the right table can be shared with the other workers of the stage,
+   * or -1 otherwise. The right table can be shared when the right input is broadcast (all the workers receive the same
+   * right rows), and the join does not keep per worker state along the right table (matched right rows for RIGHT and
+   * FULL joins, spilled partitions).
+   */
+  private int getSharedRightSenderStageId(OpChainExecutionContext context, JoinNode node) {
+    if (!QueryOptionsUtils.isSharedJoinBuild(context.getOpChainMetadata()) || needUnmatchedRightRows()
+        || _joinOverflowMode == JoinOverFlowMode.SPILL
+        || context.getStageMetadata().getWorkerMetadataList().size() < 2) {
+      return -1;
+    }
+    List<PlanNode> inputs = node.getInputs();
+    if (inputs.size() != 2 || !(inputs.get(1) instanceof MailboxReceiveNode)) {
+      return -1;
+    }
+    MailboxReceiveNode right = (MailboxReceiveNode) inputs.get(1);
+    return right.getDistributionType() == RelDistribution.Type.BROADCAST_DISTRIBUTED ? right.getSenderStageId() : -1;
   }
 
   private static LookupTable createLookupTable(List<Integer> joinKeys, DataSchema schema) {
@@ -114,8 +195,111 @@ public class HashJoinOperator extends BaseJoinOperator {
     return EXPLAIN_NAME;
   }
 
+  @Override
+  protected void buildRightTable() {
+    if (_sharedRightSenderStageId < 0) {
+      super.buildRightTable();
+      return;
+    }
+    SharedLookupTable sharedRightTable = acquireSharedRightTable();
+    if (!_isEarlyTerminated && sharedRightTable.tryStartBuilding()) {
+      buildSharedRightTable(sharedRightTable);
+    } else if (!_isEarlyTerminated) {
+      waitForSharedRightTable(sharedRightTable);
+    } else {
+      _rightTable = createLookupTable(_leftKeys, _leftSchema);
+      super.buildRightTable();
+    }
+  }
+
+  private SharedLookupTable acquireSharedRightTable() {
+    if (_sharedRightTable == null) {
+      _sharedRightTable =
+          SharedLookupTable.acquire(_context.getRequestId(), _context.getStageId(), _sharedRightSenderStageId,
+              _context.getStageMetadata().getWorkerMetadataList().size(), _context.getPassiveDeadlineMs());
+    }
+    return _sharedRightTable;
+  }
+
+  /**
+   * Builds the right table from the right input, and publishes it to the other workers of the stage. The build is
+   * abandoned if the right table is not built (e.g. the right input fails), in which case the other workers fail.
+   */
+  private void buildSharedRightTable(SharedLookupTable sharedRightTable) {
+    _rightTable = createLookupTable(_leftKeys, _leftSchema);
+    boolean published = false;
+    try {
+      super.buildRightTable();
+      if (_isRightTableBuilt && !_isEarlyTerminated) {
+        sharedRightTable.publish(_rightTable, _statMap.getBoolean(StatKey.MAX_ROWS_IN_JOIN_REACHED));
+        published = true;
+      }
+    } finally {
+      if (!published) {
+        sharedRightTable.abandon();
+      }
+    }
+  }
+
+  /**
+   * Drains and discards the right input, which contains the same rows as the right input of the worker building the
+   * shared right table, then waits for the shared right table to be built. The right input is drained so that the
+   * broadcast sender is not blocked by this worker before the building worker receives all the right rows. This blocks
+   * the executor thread until the shared right table is published.
+   * <p>The right rows are not kept, so the query fails if the shared build is abandoned, which only happens when the
+   * building worker fails (e.g. its right input fails or it reaches the max rows in join limit).
+   */
+  private void waitForSharedRightTable(SharedLookupTable sharedRightTable) {
+    long startTime = System.currentTimeMillis();
+    MseBlock rightBlock = _rightInput.nextBlock();
+    while (rightBlock.isData()) {
+      sampleAndCheckInterruption();
+      rightBlock = _rightInput.nextBlock();
+    }
+    MseBlock.Eos eosBlock = (MseBlock.Eos) rightBlock;
+    if (eosBlock.isError()) {
+      _eos = eosBlock;
+    } else {
+      SharedLookupTable.Result result = sharedRightTable.get(_context.getPassiveDeadlineMs());
+      if (result == null) {
+        throw QueryErrorCode.QUERY_EXECUTION.asException(
+            "Failed to build the shared hash table of the join on the other worker");
+      }
+      _rightTable = result.getLookupTable();
+      if (result.isMaxRowsInJoinReached()) {
+        _statMap.merge(StatKey.MAX_ROWS_IN_JOIN_REACHED, true);
+      }
+      _isRightTableBuilt = true;
+    }
+    _statMap.merge(StatKey.TIME_BUILDING_HASH_TABLE_MS, System.currentTimeMillis() - startTime);
+  }
+
+  /**
+   * Releases the shared right table, acquiring it first if needed, because the shared right table is removed once
+   * released by all the workers of the stage.
+   */
+  private void releaseSharedRightTable() {
+    if (_sharedRightSenderStageId >= 0 && !_sharedRightTableReleased) {
+      acquireSharedRightTable().release();
+      _sharedRightTableReleased = true;
+    }
+  }
+
   @Override
   protected void addRowsToRightTable(List<Object[]> rows) {
+    if (_rightPartitions == null && isSpillEnabled() && Tracing.getThreadAccountant().shouldSpillToDisk()) {
+      startSpilling();
+    }
+    if (_rightPartitions != null) {
+      for (Object[] row : rows) {
+        _rightPartitions.add(getPartitionId(_rightKeySelector.getKey(row)), row);
+      }
+    } else {
+      addRowsToLookupTable(rows);
+    }
+  }
+
+  private void addRowsToLookupTable(List<Object[]> rows) {
     assert _rightTable != null : "Right table should not be null when adding rows";
     for (Object[] row : rows) {
       Object key = _rightKeySelector.getKey(row);
@@ -152,17 +336,227 @@ public class HashJoinOperator extends BaseJoinOperator {
     return false;
   }
 
+  private boolean isSpillEnabled() {
+    return _joinOverflowMode == JoinOverFlowMode.SPILL && _rightSchema != null;
+  }
+
+  @Override
+  protected boolean spillRightTable() {
+    if (!isSpillEnabled()) {
+      return false;
+    }
+    if (_rightPartitions == null) {
+      startSpilling();
+    }
+    return true;
+  }
+
+  /**
+   * Moves the rows already added to the right table into the spilled partitions. All the following right rows are
+   * added to the spilled partitions.
+   */
+  private void startSpilling() {
+    assert _rightTable != null : "Right table should not be null when starting spilling";
+    logger().info("Spilling hash join to disk with {} partitions, right table size: {}", NUM_SPILL_PARTITIONS,
+        _rightTable.size());
+    _rightPartitions = new SpilledPartitions(NUM_SPILL_PARTITIONS, _rightSchema, SPILL_BLOCK_SIZE);
+    for (Map.Entry<Object, Object> entry : _rightTable.entrySet()) {
+      int partitionId = getPartitionId(entry.getKey());
+      // Values are not converted to list before the right table is finished
+      Object value = entry.getValue();
+      if (value instanceof Object[]) {
+        _rightPartitions.add(partitionId, (Object[]) value);
+      } else {
+        for (Object[] row : (List<Object[]>) value) {
+          _rightPartitions.add(partitionId, row);
+        }
+      }
+    }
+    if (_nullKeyRightRows != null) {
+      for (Object[] row : _nullKeyRightRows) {
+        _rightPartitions.add(getPartitionId(_rightKeySelector.getKey(row)), row);
+      }
+      _nullKeyRightRows.clear();
+    }
+    _rightTable = createLookupTable(_leftKeys, _leftSchema);
+  }
+
+  /**
+   * Returns the spill partition of the join key. The hash is mixed before taking the high bits so that the partitions
+   * are not correlated with the hash partitioning of the exchange feeding the join.
+   */
+  private static int getPartitionId(@Nullable Object key) {
+    if (key == null) {
+      return 0;
+    }
+    return (key.hashCode() * 0x9E3779B9) >>> (Integer.SIZE - NUM_SPILL_PARTITIONS_BITS);
+  }
+
+  /**
+   * The max rows limit is the budget of the in-memory right table when the join is spilled, so the joined rows of the
+   * spilled partitions are not limited.
+   */
+  @Override
+  protected boolean isMaxRowsLimitReached(int numJoinedRows) {
+    return _rightPartitions == null && super.isMaxRowsLimitReached(numJoinedRows);
+  }
+
   @Override
   protected void finishBuildingRightTable() {
+    if (_rightPartitions != null) {
+      _rightPartitions.finish();
+      return;
+    }
     assert _rightTable != null : "Right table should not be null when finishing building";
     _rightTable.finish();
   }
 
+  @Override
+  protected MseBlock buildJoinedDataBlock() {
+    if (_rightPartitions == null) {
+      return super.buildJoinedDataBlock();
+    }
+    if (_leftPartitions == null) {
+      MseBlock.Eos leftEos = spillLeftInput();
+      if (leftEos.isError()) {
+        return leftEos;
+      }
+      _leftEos = leftEos;
+    }
+    while (true) {
+      if (_isEarlyTerminated) {
+        return _leftEos;
+      }
+      if (_probingPartition) {
+        if (_currentLeftReader != null) {
+          List<Object[]> leftRows = readNextBlock(_currentLeftReader);
+          if (leftRows != null) {
+            List<Object[]> rows = buildJoinedRows(new RowHeapDataBlock(leftRows, _leftSchema));
+            sampleAndCheckInterruption();
+            if (!rows.isEmpty()) {
+              return new RowHeapDataBlock(rows, _resultSchema);
+            }
+            continue;
+          }
+          closeCurrentLeftReader();
+        }
+        _probingPartition = false;
+        if (needUnmatchedRightRows()) {
+          List<Object[]> rows = buildNonMatchRightRows();
+          if (!rows.isEmpty()) {
+            return new RowHeapDataBlock(rows, _resultSchema);
+          }
+        }
+      }
+      if (!loadNextPartition()) {
+        return _leftEos;
+      }
+    }
+  }
+
+  /**
+   * Partitions all the left rows into the spilled partitions, and returns the EOS block of the left input.
+   */
+  private MseBlock.Eos spillLeftInput() {
+    assert _rightPartitions != null;
+    _leftPartitions = new SpilledPartitions(NUM_SPILL_PARTITIONS, _leftSchema, SPILL_BLOCK_SIZE);
+    MseBlock leftBlock = _leftInput.nextBlock();
+    while (leftBlock.isData()) {
+      for (Object[] row : ((MseBlock.Data) leftBlock).asRowHeap().getRows()) {
+        _leftPartitions.add(getPartitionId(_leftKeySelector.getKey(row)), row);
+      }
+      sampleAndCheckInterruption();
+      leftBlock = _leftInput.nextBlock();
+    }
+    _leftPartitions.finish();
+    _statMap.merge(StatKey.NUM_ROWS_SPILLED, _rightPartitions.getNumRows() + _leftPartitions.getNumRows());
+    _statMap.merge(StatKey.NUM_BYTES_SPILLED, _rightPartitions.getNumBytes() + _leftPartitions.getNumBytes());
+    return (MseBlock.Eos) leftBlock;
+  }
+
+  /**
+   * Builds the right table from the next partition, and opens the reader over the left rows of the partition. Returns
+   * {@code false} when all the partitions are processed.
+   */
+  private boolean loadNextPartition() {
+    assert _rightPartitions != null && _leftPartitions != null;
+    if (_currentPartitionId >= 0) {
+      _rightPartitions.release(_currentPartitionId);
+      _leftPartitions.release(_currentPartitionId);
+    }
+    _currentPartitionId++;
+    if (_currentPartitionId == NUM_SPILL_PARTITIONS) {
+      return false;
+    }
+    _rightTable = createLookupTable(_leftKeys, _leftSchema);
+    if (_matchedRightRows != null) {
+      _matchedRightRows.clear();
+    }
+    if (_nullKeyRightRows != null) {
+      _nullKeyRightRows.clear();
+    }
+    SpillFile.Reader rightReader = _rightPartitions.openReader(_currentPartitionId);
+    if (rightReader != null) {
+      try (SpillFile.Reader reader = rightReader) {
+        List<Object[]> rows;
+        while ((rows = reader.nextBlock()) != null) {
+          addRowsToLookupTable(rows);
+          sampleAndCheckInterruption();
+        }
+      } catch (IOException e) {
+        throw new UncheckedIOException("Failed to read spilled rows from disk", e);
+      }
+    }
+    _rightTable.finish();
+    _currentLeftReader = _leftPartitions.openReader(_currentPartitionId);
+    _probingPartition = true;
+    return true;
+  }
+
+  @Nullable
+  private static List<Object[]> readNextBlock(SpillFile.Reader reader) {
+    try {
+      return reader.nextBlock();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to read spilled rows from disk", e);
+    }
+  }
+
+  private void closeCurrentLeftReader() {
+    if (_currentLeftReader != null) {
+      try {
+        _currentLeftReader.close();
+      } catch (IOException e) {
+        logger().warn("Failed to close spilled rows reader", e);
+      }
+      _currentLeftReader = null;
+    }
+  }
+
+  private void releaseSpilledPartitions() {
+    closeCurrentLeftReader();
+    if (_rightPartitions != null) {
+      _rightPartitions.close();
+    }
+    if (_leftPartitions != null) {
+      _leftPartitions.close();
+    }
+  }
+
   @Override
   protected void onEosProduced() {
     _rightTable = null;
     _matchedRightRows = null;
     _nullKeyRightRows = null;
+    releaseSpilledPartitions();
+    releaseSharedRightTable();
+  }
+
+  @Override
+  public void close() {
+    super.close();
+    releaseSpilledPartitions();
+    releaseSharedRightTable();
   }
 
   @Override
@@ -45,6 +45,7 @@ import org.apache.pinot.common.utils.config.QueryOptionsUtils;
 import org.apache.pinot.core.operator.blocks.InstanceResponseBlock;
 import org.apache.pinot.core.operator.blocks.results.BaseResultsBlock;
 import org.apache.pinot.core.operator.blocks.results.ExplainV2ResultBlock;
+import org.apache.pinot.core.operator.blocks.results.GroupByResultsBlock;
 import org.apache.pinot.core.operator.blocks.results.MetadataResultsBlock;
 import org.apache.pinot.core.operator.blocks.results.SelectionResultsBlock;
 import org.apache.pinot.core.plan.ExplainInfo;
@@ -187,6 +188,9 @@ public class LeafOperator extends MultiStageOperator {
       return SuccessMseBlock.INSTANCE;
     } else {
       // Regular data block
+      if (resultsBlock instanceof GroupByResultsBlock) {
+        mergeGroupByStats((GroupByResultsBlock) resultsBlock);
+      }
       return composeMseBlock(resultsBlock);
     }
   }
@@ -380,6 +384,13 @@ public class LeafOperator extends MultiStageOperator {
     }
   }
 
+  /// Merges the group limit flags of the group-by results block, which are not part of the execution stats when the
+  /// group-by results are streamed in chunks.
+  private synchronized void mergeGroupByStats(GroupByResultsBlock resultsBlock) {
+    _statMap.merge(StatKey.NUM_GROUPS_LIMIT_REACHED, resultsBlock.isNumGroupsLimitReached());
+    _statMap.merge(StatKey.NUM_GROUPS_WARNING_LIMIT_REACHED, resultsBlock.isNumGroupsWarningLimitReached());
+  }
+
   private ExplainedNode asNode(ExplainInfo info) {
     int size = info.getInputs().size();
     List<PlanNode> inputs = new ArrayList<>(size);
@@ -24,6 +24,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeoutException;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -164,13 +165,16 @@ public class MailboxSendOperator extends MultiStageOperator {
     // the useful error block is sent
     long deadlineMs = context.getPassiveDeadlineMs();
 
+    Map<String, String> opChainMetadata = context.getOpChainMetadata();
+
     List<MailboxInfo> mailboxInfos =
         context.getWorkerMetadata().getMailboxInfosMap().get(receiverStageId).getMailboxInfos();
     List<RoutingInfo> routingInfos =
           MailboxIdUtils.toRoutingInfos(requestId, context.getStageId(), context.getWorkerId(), receiverStageId,
               mailboxInfos);
     List<SendingMailbox> sendingMailboxes = routingInfos.stream()
-        .map(v -> mailboxService.getSendingMailbox(v.getHostname(), v.getPort(), v.getMailboxId(), deadlineMs, statMap))
+        .map(v -> mailboxService.getSendingMailbox(v.getHostname(), v.getPort(), v.getMailboxId(), deadlineMs, statMap,
+            opChainMetadata))
         .collect(Collectors.toList());
     statMap.merge(StatKey.FAN_OUT, sendingMailboxes.size());
     return BlockExchange.getExchange(sendingMailboxes, distributionType, node.getKeys(), splitter,
@@ -387,7 +391,23 @@ public class MailboxSendOperator extends MultiStageOperator {
       public boolean includeDefaultInJson() {
         return true;
       }
-    };
+    },
+    /**
+     * How many bytes have been sent through the network by this mailbox.
+     * <p>
+     * This is lower than SERIALIZED_BYTES when the mailbox compression is enabled.
+     */
+    SENT_BYTES(StatMap.Type.LONG),
+    /**
+     * How many data blocks have been coalesced with other blocks before being sent by this mailbox.
+     */
+    BATCHED_MESSAGES(StatMap.Type.INT),
+    /**
+     * How long this mailbox waited for the receivers to return credits before sending data.
+     * <p>
+     * A high number here indicates that the receivers are slower than the sender.
+     */
+    SEND_STALL_TIME_MS(StatMap.Type.LONG);
     //@formatter:on
 
     private final StatMap.Type _type;
@@ -152,6 +152,16 @@ public abstract class MultiStageOperator
   @Override
   public abstract List<MultiStageOperator> getChildOperators();
 
+  /**
+   * Returns the child operators the next call to {@link #nextBlock()} reads from. The cooperative op chain scheduler
+   * only runs an op chain when the mailboxes reached through these operators have data, so operators that consume
+   * their inputs in a fixed order (e.g. the right input of a join before the left one) should only return the input
+   * they are currently consuming.
+   */
+  public List<MultiStageOperator> getNextInputOperators() {
+    return getChildOperators();
+  }
+
   /**
    * Calculates and returns the stats for the operator.
    *
@@ -18,12 +18,18 @@
  */
 package org.apache.pinot.query.runtime.operator;
 
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Iterators;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.PriorityQueue;
 import javax.annotation.Nullable;
 import org.apache.pinot.calcite.rel.hint.PinotHintOptions;
@@ -42,17 +48,36 @@ import org.apache.pinot.query.planner.plannode.PlanNode;
 import org.apache.pinot.query.runtime.blocks.MseBlock;
 import org.apache.pinot.query.runtime.operator.groupby.GroupIdGenerator;
 import org.apache.pinot.query.runtime.operator.groupby.GroupIdGeneratorFactory;
+import org.apache.pinot.query.runtime.operator.utils.SpillFile;
+import org.apache.pinot.query.runtime.operator.utils.SpilledPartitions;
 import org.apache.pinot.query.runtime.operator.utils.TypeUtils;
+import org.apache.pinot.segment.spi.AggregationFunctionType;
+import org.apache.pinot.spi.trace.Tracing;
 import org.apache.pinot.spi.utils.CommonConstants.Server;
 import org.roaringbitmap.PeekableIntIterator;
 import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 
 /**
  * Class that executes the keyed group by aggregations for the multistage AggregateOperator.
+ *
+ * <p>When spilling is enabled (see {@link PinotHintOptions.AggregateOptions#SPILL_ON_NUM_GROUPS_LIMIT}), the num groups
+ * limit is the budget of the in-memory groups instead of a hard limit. Once the budget is reached, the keys and the
+ * intermediate results of the in-memory groups are hash partitioned into local spill files, and the aggregation
+ * restarts with empty result holders. After all the input is processed, the partitions are re-aggregated one by one by
+ * merging the spilled intermediate results, so that only the groups of a single partition are held in memory.
  */
 @SuppressWarnings({"rawtypes", "unchecked"})
 public class MultistageGroupByExecutor {
+  private static final Logger LOGGER = LoggerFactory.getLogger(MultistageGroupByExecutor.class);
+  // Number of partitions when spilling the groups to disk, must be a power of 2
+  private static final int NUM_SPILL_PARTITIONS_BITS = 4;
+  private static final int NUM_SPILL_PARTITIONS = 1 << NUM_SPILL_PARTITIONS_BITS;
+  // Number of rows per block in the spill files
+  private static final int SPILL_BLOCK_SIZE = 4096;
+
   private final int[] _groupKeyIds;
   private final AggregationFunction[] _aggFunctions;
   private final int[] _filterArgIds;
@@ -64,14 +89,25 @@ public class MultistageGroupByExecutor {
   private final int _numGroupsLimit;
   private final int _numGroupsWarningLimit;
   private final boolean _filteredAggregationsSkipEmptyGroups;
+  private final int _maxInitialResultHolderCapacity;
+  private final boolean _spillOnNumGroupsLimit;
 
   // Group By Result holders for each mode
-  private final GroupByResultHolder[] _aggregateResultHolders;
-  private final List<Object[]> _mergeResultHolder;
+  private GroupByResultHolder[] _aggregateResultHolders;
+  private List<Object[]> _mergeResultHolder;
 
   // Mapping from the row-key to a zero based integer index. This is used when we invoke the v1 aggregation functions
   // because they use the zero based integer indexes to store results.
-  private final GroupIdGenerator _groupIdGenerator;
+  private GroupIdGenerator _groupIdGenerator;
+
+  // Groups spilled to disk, null when all the groups fit in memory
+  @Nullable
+  private SpilledPartitions _spilledPartitions;
+  @Nullable
+  private DataSchema _spillSchema;
+  private int _nextSpilledPartitionId;
+  private long _numRowsSpilled;
+  private long _numBytesSpilled;
 
   public MultistageGroupByExecutor(int[] groupKeyIds, AggregationFunction[] aggFunctions, int[] filterArgIds,
       int maxFilterArgId, AggType aggType, boolean leafReturnFinalResult, DataSchema resultSchema,
@@ -84,31 +120,41 @@ public class MultistageGroupByExecutor {
     _leafReturnFinalResult = leafReturnFinalResult;
     _resultSchema = resultSchema;
 
-    int maxInitialResultHolderCapacity = getResolvedMaxInitialResultHolderCapacity(opChainMetadata, nodeHint);
+    _maxInitialResultHolderCapacity = getResolvedMaxInitialResultHolderCapacity(opChainMetadata, nodeHint);
 
     _numGroupsLimit = getNumGroupsLimit(opChainMetadata, nodeHint);
     _numGroupsWarningLimit = getNumGroupsWarningLimit(opChainMetadata);
+    _spillOnNumGroupsLimit = getSpillOnNumGroupsLimit(opChainMetadata, nodeHint) && canSpill();
 
     // By default, we compute all groups for SQL compliant results. However, we allow overriding this behavior via
     // query option for improved performance.
     _filteredAggregationsSkipEmptyGroups = QueryOptionsUtils.isFilteredAggregationsSkipEmptyGroups(opChainMetadata);
 
-    int numFunctions = aggFunctions.length;
-    if (!aggType.isInputIntermediateFormat()) {
+    initGroups();
+  }
+
+  /**
+   * Initializes the group id generator and the result holders. When spilling is enabled, the groups are not limited
+   * within a block, and are spilled to disk after processing the block which reaches the num groups limit.
+   */
+  private void initGroups() {
+    int maxNumGroups = _spillOnNumGroupsLimit ? Integer.MAX_VALUE : _numGroupsLimit;
+    int numFunctions = _aggFunctions.length;
+    if (!_aggType.isInputIntermediateFormat()) {
       _aggregateResultHolders = new GroupByResultHolder[numFunctions];
       for (int i = 0; i < numFunctions; i++) {
         _aggregateResultHolders[i] =
-            _aggFunctions[i].createGroupByResultHolder(maxInitialResultHolderCapacity, _numGroupsLimit);
+            _aggFunctions[i].createGroupByResultHolder(_maxInitialResultHolderCapacity, maxNumGroups);
       }
       _mergeResultHolder = null;
     } else {
-      _mergeResultHolder = new ArrayList<>(maxInitialResultHolderCapacity);
+      _mergeResultHolder = new ArrayList<>(_maxInitialResultHolderCapacity);
       _aggregateResultHolders = null;
     }
 
     _groupIdGenerator =
-        GroupIdGeneratorFactory.getGroupIdGenerator(_resultSchema.getStoredColumnDataTypes(), groupKeyIds.length,
-            _numGroupsLimit, maxInitialResultHolderCapacity);
+        GroupIdGeneratorFactory.getGroupIdGenerator(_resultSchema.getStoredColumnDataTypes(), _groupKeyIds.length,
+            maxNumGroups, _maxInitialResultHolderCapacity);
   }
 
   private int getNumGroupsLimit(Map<String, String> opChainMetadata, @Nullable PlanNode.NodeHint nodeHint) {
@@ -125,6 +171,37 @@ public class MultistageGroupByExecutor {
     return numGroupsLimit != null ? numGroupsLimit : Server.DEFAULT_QUERY_EXECUTOR_NUM_GROUPS_LIMIT;
   }
 
+  private boolean getSpillOnNumGroupsLimit(Map<String, String> opChainMetadata, @Nullable PlanNode.NodeHint nodeHint) {
+    if (nodeHint != null) {
+      Map<String, String> aggregateOptions = nodeHint.getHintOptions().get(PinotHintOptions.AGGREGATE_HINT_OPTIONS);
+      if (aggregateOptions != null) {
+        String spillOnNumGroupsLimitStr =
+            aggregateOptions.get(PinotHintOptions.AggregateOptions.SPILL_ON_NUM_GROUPS_LIMIT);
+        if (spillOnNumGroupsLimitStr != null) {
+          return Boolean.parseBoolean(spillOnNumGroupsLimitStr);
+        }
+      }
+    }
+    return QueryOptionsUtils.getSpillOnNumGroupsLimit(opChainMetadata);
+  }
+
+  /**
+   * Returns whether the groups can be spilled and re-aggregated. When aggregating the raw input, the spilled
+   * intermediate results of the same group are merged, which is not supported by the functions assuming the inputs of
+   * a group are disjoint (e.g. SEGMENTPARTITIONEDDISTINCTCOUNT returns the count as the intermediate result).
+   */
+  private boolean canSpill() {
+    if (_aggType.isInputIntermediateFormat()) {
+      return true;
+    }
+    for (AggregationFunction aggFunction : _aggFunctions) {
+      if (aggFunction.getType() == AggregationFunctionType.SEGMENTPARTITIONEDDISTINCTCOUNT) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   private int getNumGroupsWarningLimit(Map<String, String> opChainMetadata) {
     Integer numGroupsWarningLimit = QueryOptionsUtils.getNumGroupsWarningLimit(opChainMetadata);
     return numGroupsWarningLimit != null ? numGroupsWarningLimit : Server.DEFAULT_QUERY_EXECUTOR_NUM_GROUPS_WARN_LIMIT;
@@ -187,47 +264,72 @@ public class MultistageGroupByExecutor {
     } else {
       processMerge(block);
     }
+    if (_spillOnNumGroupsLimit && _groupIdGenerator.getNumGroups() >= _numGroupsLimit) {
+      spillGroups();
+    }
   }
 
   /**
    * Get aggregation result limited to first {@code maxRows} rows, ordered with {@code comparator}.
    */
   public List<Object[]> getResult(Comparator<Object[]> comparator, int maxRows) {
-    int numGroups = Math.min(_groupIdGenerator.getNumGroups(), maxRows);
-    if (numGroups == 0) {
-      return Collections.emptyList();
-    }
+    return getResult(getRowIterator(), comparator, Math.min(_groupIdGenerator.getNumGroups(), maxRows));
+  }
 
-    // TODO: Change it to use top-K algorithm
-    PriorityQueue<Object[]> sortedRows = new PriorityQueue<>(numGroups, comparator);
+  /**  Get aggregation result limited to {@code maxRows} rows. */
+  public List<Object[]> getResult(int maxRows) {
+    return getResult(getRowIterator(), null, Math.min(_groupIdGenerator.getNumGroups(), maxRows));
+  }
+
+  /**
+   * Returns the aggregation result rows of the in-memory groups.
+   */
+  private Iterator<Object[]> getRowIterator() {
     int numKeys = _groupKeyIds.length;
     int numFunctions = _aggFunctions.length;
     ColumnDataType[] resultStoredTypes = _resultSchema.getStoredColumnDataTypes();
-    Iterator<GroupIdGenerator.GroupKey> groupKeyIterator =
-        _groupIdGenerator.getGroupKeyIterator(numKeys + numFunctions);
+    return Iterators.transform(_groupIdGenerator.getGroupKeyIterator(numKeys + numFunctions),
+        groupKey -> getRow(groupKey, numKeys, numFunctions, resultStoredTypes));
+  }
 
-    int idx = 0;
-    while (idx < numGroups && groupKeyIterator.hasNext()) {
-      Object[] row = getRow(groupKeyIterator, numKeys, numFunctions, resultStoredTypes);
-      sortedRows.add(row);
-      idx++;
+  /**
+   * Get aggregation result limited to first {@code maxRows} rows from the given rows, ordered with {@code comparator}
+   * when it is provided, and tracks the number of processed rows to detect whether the result is trimmed.
+   */
+  private List<Object[]> getResult(Iterator<Object[]> rowIterator, @Nullable Comparator<Object[]> comparator,
+      int maxRows) {
+    if (maxRows <= 0) {
+      return Collections.emptyList();
     }
 
-    while (groupKeyIterator.hasNext()) {
-      idx++;
+    if (comparator == null) {
+      List<Object[]> rows = new ArrayList<>(maxRows);
+      while (rows.size() < maxRows && rowIterator.hasNext()) {
+        rows.add(rowIterator.next());
+      }
+      _rowsProcessed = rowIterator.hasNext() ? maxRows + 1 : rows.size();
+      return rows;
+    }
+
+    // TODO: Change it to use top-K algorithm
+    PriorityQueue<Object[]> sortedRows = new PriorityQueue<>(maxRows, comparator);
+    int numRows = 0;
+    while (rowIterator.hasNext()) {
       // TODO: allocate new array row only if row enters set
-      Object[] row = getRow(groupKeyIterator, numKeys, numFunctions, resultStoredTypes);
-      if (comparator.compare(sortedRows.peek(), row) < 0) {
+      Object[] row = rowIterator.next();
+      if (sortedRows.size() < maxRows) {
+        sortedRows.add(row);
+      } else if (comparator.compare(sortedRows.peek(), row) < 0) {
         sortedRows.poll();
         sortedRows.offer(row);
       }
+      numRows++;
     }
-
-    _rowsProcessed = idx;
+    _rowsProcessed = numRows;
 
     int resultSize = sortedRows.size();
-    ArrayList<Object[]> result = new ArrayList<>(sortedRows.size());
-    for (int i = resultSize - 1; i >= 0; i--) {
+    ArrayList<Object[]> result = new ArrayList<>(resultSize);
+    for (int i = 0; i < resultSize; i++) {
       result.add(sortedRows.poll());
     }
     // reverse priority queue order because comparators are reversed
@@ -235,35 +337,8 @@ public class MultistageGroupByExecutor {
     return result;
   }
 
-  /**  Get aggregation result limited to {@code maxRows} rows. */
-  public List<Object[]> getResult(int maxRows) {
-    int numGroups = Math.min(_groupIdGenerator.getNumGroups(), maxRows);
-    if (numGroups == 0) {
-      return Collections.emptyList();
-    }
-
-    List<Object[]> rows = new ArrayList<>(numGroups);
-    int numKeys = _groupKeyIds.length;
-    int numFunctions = _aggFunctions.length;
-    ColumnDataType[] resultStoredTypes = _resultSchema.getStoredColumnDataTypes();
-    Iterator<GroupIdGenerator.GroupKey> groupKeyIterator =
-        _groupIdGenerator.getGroupKeyIterator(numKeys + numFunctions);
-
-    int idx = 0;
-    while (groupKeyIterator.hasNext() && idx < numGroups) {
-      Object[] row = getRow(groupKeyIterator, numKeys, numFunctions, resultStoredTypes);
-      rows.add(row);
-      idx++;
-    }
-    if (groupKeyIterator.hasNext()) {
-      _rowsProcessed = idx + 1;
-    }
-    return rows;
-  }
-
-  private Object[] getRow(Iterator<GroupIdGenerator.GroupKey> groupKeyIterator, int numKeys, int numFunctions,
+  private Object[] getRow(GroupIdGenerator.GroupKey groupKey, int numKeys, int numFunctions,
       ColumnDataType[] resultStoredTypes) {
-    GroupIdGenerator.GroupKey groupKey = groupKeyIterator.next();
     int groupId = groupKey._groupId;
     Object[] row = groupKey._row;
     int columnId = numKeys;
@@ -306,7 +381,226 @@ public class MultistageGroupByExecutor {
   }
 
   public boolean isNumGroupsLimitReached() {
-    return _groupIdGenerator.getNumGroups() == _numGroupsLimit;
+    return !_spillOnNumGroupsLimit && _groupIdGenerator.getNumGroups() == _numGroupsLimit;
+  }
+
+  /**
+   * Returns whether the groups are spilled to disk. When spilled, the result should be read with
+   * {@link #getNextSpilledPartitionResult()} or {@link #getSpilledResult(Comparator, int)} after calling
+   * {@link #finishSpilling()}.
+   */
+  public boolean isSpilled() {
+    return _spilledPartitions != null;
+  }
+
+  public long getNumRowsSpilled() {
+    return _numRowsSpilled;
+  }
+
+  public long getNumBytesSpilled() {
+    return _numBytesSpilled;
+  }
+
+  /**
+   * Moves the keys and the stored values (intermediate results, or final results when merging final results) of the
+   * in-memory groups into the spilled partitions, then resets the in-memory groups.
+   */
+  private void spillGroups() {
+    int numKeys = _groupKeyIds.length;
+    int numFunctions = _aggFunctions.length;
+    if (_spilledPartitions == null) {
+      LOGGER.info("Spilling group by to disk with {} partitions, num groups: {}", NUM_SPILL_PARTITIONS,
+          _groupIdGenerator.getNumGroups());
+      _spillSchema = getSpillSchema();
+      _spilledPartitions =
+          new SpilledPartitions(NUM_SPILL_PARTITIONS, _spillSchema, _aggFunctions, SPILL_BLOCK_SIZE);
+    }
+    ColumnDataType[] spillStoredTypes = _spillSchema.getStoredColumnDataTypes();
+    Iterator<GroupIdGenerator.GroupKey> groupKeyIterator =
+        _groupIdGenerator.getGroupKeyIterator(numKeys + numFunctions);
+    int numGroupsSpilled = 0;
+    while (groupKeyIterator.hasNext()) {
+      GroupIdGenerator.GroupKey groupKey = groupKeyIterator.next();
+      int groupId = groupKey._groupId;
+      Object[] row = groupKey._row;
+      for (int i = 0; i < numFunctions; i++) {
+        row[numKeys + i] = _aggregateResultHolders != null
+            ? _aggFunctions[i].extractGroupByResult(_aggregateResultHolders[i], groupId)
+            : _mergeResultHolder.get(groupId)[i];
+      }
+      TypeUtils.convertRow(row, spillStoredTypes);
+      _spilledPartitions.add(getSpillPartitionId(row, numKeys), row);
+      Tracing.ThreadAccountantOps.sampleAndCheckInterruptionPeriodically(++numGroupsSpilled);
+    }
+    initGroups();
+  }
+
+  private DataSchema getSpillSchema() {
+    int numKeys = _groupKeyIds.length;
+    int numFunctions = _aggFunctions.length;
+    int numColumns = numKeys + numFunctions;
+    String[] columnNames = new String[numColumns];
+    ColumnDataType[] columnDataTypes = new ColumnDataType[numColumns];
+    for (int i = 0; i < numKeys; i++) {
+      columnNames[i] = _resultSchema.getColumnName(i);
+      columnDataTypes[i] = _resultSchema.getColumnDataType(i);
+    }
+    boolean storeFinalResult = isMergingFinalResult();
+    for (int i = 0; i < numFunctions; i++) {
+      AggregationFunction aggFunction = _aggFunctions[i];
+      columnNames[numKeys + i] = _resultSchema.getColumnName(numKeys + i);
+      columnDataTypes[numKeys + i] = storeFinalResult ? aggFunction.getFinalResultColumnType()
+          : aggFunction.getIntermediateResultColumnType();
+    }
+    return new DataSchema(columnNames, columnDataTypes);
+  }
+
+  /**
+   * Returns the spill partition of the group. The hash is mixed before taking the high bits so that the partitions are
+   * not correlated with the hash partitioning of the exchange feeding the aggregation.
+   */
+  private static int getSpillPartitionId(Object[] row, int numKeys) {
+    int hashCode = Objects.hashCode(row[0]);
+    for (int i = 1; i < numKeys; i++) {
+      hashCode = 31 * hashCode + Objects.hashCode(row[i]);
+    }
+    return (hashCode * 0x9E3779B9) >>> (Integer.SIZE - NUM_SPILL_PARTITIONS_BITS);
+  }
+
+  /**
+   * Spills the remaining in-memory groups and flushes the spilled partitions. Should be called after all the blocks
+   * are processed and before reading the spilled result.
+   */
+  public void finishSpilling() {
+    assert _spilledPartitions != null : "Groups are not spilled";
+    if (_groupIdGenerator.getNumGroups() > 0) {
+      spillGroups();
+    }
+    _spilledPartitions.finish();
+    _numRowsSpilled = _spilledPartitions.getNumRows();
+    _numBytesSpilled = _spilledPartitions.getNumBytes();
+  }
+
+  /**
+   * Returns the aggregation result of the next non-empty spilled partition, or {@code null} if all the partitions are
+   * returned. The partition is deleted once its groups are re-aggregated.
+   */
+  @Nullable
+  public List<Object[]> getNextSpilledPartitionResult() {
+    assert _spilledPartitions != null : "Groups are not spilled";
+    while (_nextSpilledPartitionId < NUM_SPILL_PARTITIONS) {
+      int partitionId = _nextSpilledPartitionId++;
+      if (!_spilledPartitions.isEmpty(partitionId)) {
+        return aggregateSpilledPartition(partitionId);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Get aggregation result of all the spilled partitions limited to first {@code maxRows} rows, ordered with
+   * {@code comparator} when it is provided.
+   */
+  public List<Object[]> getSpilledResult(@Nullable Comparator<Object[]> comparator, int maxRows) {
+    // The number of spilled rows is an upper bound of the number of groups
+    return getResult(Iterators.concat(new AbstractIterator<Iterator<Object[]>>() {
+      @Override
+      protected Iterator<Object[]> computeNext() {
+        List<Object[]> rows = getNextSpilledPartitionResult();
+        return rows != null ? rows.iterator() : endOfData();
+      }
+    }), comparator, (int) Math.min(_numRowsSpilled, maxRows));
+  }
+
+  /**
+   * Re-aggregates the groups of the spilled partition by merging the spilled values of the same key.
+   */
+  private List<Object[]> aggregateSpilledPartition(int partitionId) {
+    assert _spilledPartitions != null && _spillSchema != null;
+    int numKeys = _groupKeyIds.length;
+    int numFunctions = _aggFunctions.length;
+    GroupIdGenerator groupIdGenerator =
+        GroupIdGeneratorFactory.getGroupIdGenerator(_spillSchema.getStoredColumnDataTypes(), numKeys,
+            Integer.MAX_VALUE, _maxInitialResultHolderCapacity);
+    List<Object[]> mergeResultHolder = new ArrayList<>(_maxInitialResultHolderCapacity);
+    boolean mergeFinalResult = isMergingFinalResult();
+    int[] keyIds = new int[numKeys];
+    Arrays.setAll(keyIds, i -> i);
+    try (SpillFile.Reader reader = _spilledPartitions.openReader(partitionId)) {
+      assert reader != null;
+      DataBlock dataBlock;
+      while ((dataBlock = reader.nextDataBlock()) != null) {
+        Object[] keys = numKeys == 1 ? DataBlockExtractUtils.extractKey(dataBlock, 0)
+            : DataBlockExtractUtils.extractKeys(dataBlock, keyIds);
+        int numRows = keys.length;
+        int[] groupIds = new int[numRows];
+        for (int i = 0; i < numRows; i++) {
+          groupIds[i] = groupIdGenerator.getGroupId(keys[i]);
+        }
+        Object[][] values = new Object[numFunctions][];
+        for (int i = 0; i < numFunctions; i++) {
+          values[i] = DataBlockExtractUtils.extractAggResult(dataBlock, numKeys + i, _aggFunctions[i]);
+        }
+        mergeResults(groupIds, values, mergeResultHolder, mergeFinalResult);
+        Tracing.ThreadAccountantOps.sampleAndCheckInterruption();
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to read spilled groups from disk", e);
+    } finally {
+      _spilledPartitions.release(partitionId);
+    }
+
+    List<Object[]> rows = new ArrayList<>(groupIdGenerator.getNumGroups());
+    ColumnDataType[] resultStoredTypes = _resultSchema.getStoredColumnDataTypes();
+    Iterator<GroupIdGenerator.GroupKey> groupKeyIterator =
+        groupIdGenerator.getGroupKeyIterator(numKeys + numFunctions);
+    while (groupKeyIterator.hasNext()) {
+      GroupIdGenerator.GroupKey groupKey = groupKeyIterator.next();
+      Object[] mergedResults = mergeResultHolder.get(groupKey._groupId);
+      Object[] row = groupKey._row;
+      for (int i = 0; i < numFunctions; i++) {
+        row[numKeys + i] = getSpilledResultValue(i, mergedResults[i]);
+      }
+      TypeUtils.convertRow(row, resultStoredTypes);
+      rows.add(row);
+    }
+    return rows;
+  }
+
+  /**
+   * Returns the result value from the merged spilled value, which is the intermediate result, or the final result when
+   * merging final results.
+   */
+  private Object getSpilledResultValue(int functionId, Object mergedResult) {
+    AggregationFunction aggFunction = _aggFunctions[functionId];
+    switch (_aggType) {
+      case LEAF:
+        return _leafReturnFinalResult ? aggFunction.extractFinalResult(mergedResult) : mergedResult;
+      case INTERMEDIATE:
+        return mergedResult;
+      case FINAL:
+        return _leafReturnFinalResult ? mergedResult : aggFunction.extractFinalResult(mergedResult);
+      case DIRECT:
+        return aggFunction.extractFinalResult(mergedResult);
+      default:
+        throw new IllegalStateException("Unsupported aggType: " + _aggType);
+    }
+  }
+
+  /**
+   * Returns whether the input contains final results (instead of intermediate results) to be merged.
+   */
+  private boolean isMergingFinalResult() {
+    return _aggType.isInputIntermediateFormat() && _leafReturnFinalResult;
+  }
+
+  /**
+   * Deletes the spilled partitions.
+   */
+  public void releaseSpilledPartitions() {
+    if (_spilledPartitions != null) {
+      _spilledPartitions.close();
+    }
   }
 
   private void processAggregate(MseBlock.Data block) {
@@ -381,18 +675,25 @@ public class MultistageGroupByExecutor {
     for (int i = 0; i < numFunctions; i++) {
       intermediateResults[i] = AggregateOperator.getIntermediateResults(_aggFunctions[i], block);
     }
-    if (_leafReturnFinalResult) {
+    mergeResults(groupByKeys, intermediateResults, _mergeResultHolder, _leafReturnFinalResult);
+  }
+
+  private void mergeResults(int[] groupByKeys, Object[][] intermediateResults, List<Object[]> mergeResultHolder,
+      boolean mergeFinalResult) {
+    int numRows = groupByKeys.length;
+    int numFunctions = _aggFunctions.length;
+    if (mergeFinalResult) {
       for (int i = 0; i < numRows; i++) {
         int groupByKey = groupByKeys[i];
         if (groupByKey == GroupKeyGenerator.INVALID_ID) {
           continue;
         }
         Comparable[] mergedResults;
-        if (_mergeResultHolder.size() == groupByKey) {
+        if (mergeResultHolder.size() == groupByKey) {
           mergedResults = new Comparable[numFunctions];
-          _mergeResultHolder.add(mergedResults);
+          mergeResultHolder.add(mergedResults);
         } else {
-          mergedResults = (Comparable[]) _mergeResultHolder.get(groupByKey);
+          mergedResults = (Comparable[]) mergeResultHolder.get(groupByKey);
         }
         for (int j = 0; j < numFunctions; j++) {
           AggregationFunction aggFunction = _aggFunctions[j];
@@ -416,11 +717,11 @@ public class MultistageGroupByExecutor {
           continue;
         }
         Object[] mergedResults;
-        if (_mergeResultHolder.size() == groupByKey) {
+        if (mergeResultHolder.size() == groupByKey) {
           mergedResults = new Object[numFunctions];
-          _mergeResultHolder.add(mergedResults);
+          mergeResultHolder.add(mergedResults);
         } else {
-          mergedResults = _mergeResultHolder.get(groupByKey);
+          mergedResults = mergeResultHolder.get(groupByKey);
         }
         for (int j = 0; j < numFunctions; j++) {
           AggregationFunction aggFunction = _aggFunctions[j];
@@ -23,7 +23,9 @@ import com.google.common.base.Joiner;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.PriorityQueue;
+import javax.annotation.Nullable;
 import org.apache.calcite.rel.RelFieldCollation;
 import org.apache.pinot.common.datatable.StatMap;
 import org.apache.pinot.common.utils.DataSchema;
@@ -31,6 +33,7 @@ import org.apache.pinot.core.query.selection.SelectionOperatorUtils;
 import org.apache.pinot.query.planner.plannode.SortNode;
 import org.apache.pinot.query.runtime.blocks.MseBlock;
 import org.apache.pinot.query.runtime.blocks.RowHeapDataBlock;
+import org.apache.pinot.query.runtime.operator.utils.ExternalSorter;
 import org.apache.pinot.query.runtime.operator.utils.SortUtils;
 import org.apache.pinot.query.runtime.plan.OpChainExecutionContext;
 import org.apache.pinot.spi.utils.CommonConstants;
@@ -38,9 +41,17 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 
+/**
+ * Sorts the input rows on the collations and applies the limit and offset. When the number of rows to keep is within
+ * the sort spill threshold, the rows are kept in a bounded priority queue. Otherwise, the rows are sorted with an
+ * {@link ExternalSorter} which spills sorted runs to disk once the buffered rows exceed the threshold, and the merged
+ * rows are emitted in multiple blocks.
+ */
 public class SortOperator extends MultiStageOperator {
   private static final String EXPLAIN_NAME = "SORT";
   private static final Logger LOGGER = LoggerFactory.getLogger(SortOperator.class);
+  // Number of rows per block emitted from the external sorter
+  private static final int EXTERNAL_SORT_BLOCK_SIZE = 10_000;
 
   private final MultiStageOperator _input;
   private final DataSchema _dataSchema;
@@ -48,7 +59,11 @@ public class SortOperator extends MultiStageOperator {
   private final int _numRowsToKeep;
   private final PriorityQueue<Object[]> _priorityQueue;
   private final ArrayList<Object[]> _rows;
+  @Nullable
+  private final ExternalSorter _externalSorter;
   private final StatMap<StatKey> _statMap = new StatMap<>(StatKey.class);
+  // Number of rows read from the external sorter, including the skipped rows for the offset
+  private long _numExternalSortedRowsRead;
 
   private boolean _hasConstructedSortedBlock;
   private MseBlock.Eos _eosBlock;
@@ -73,15 +88,24 @@ public class SortOperator extends MultiStageOperator {
     // - There is no collation
     // - Input is already sorted
     List<RelFieldCollation> collations = node.getCollations();
+    Map<String, String> metadata = context.getOpChainMetadata();
+    int spillThresholdRows = ExternalSorter.getSpillThresholdRows(metadata);
     if (collations.isEmpty() || input instanceof SortedMailboxReceiveOperator) {
       _priorityQueue = null;
       _rows = new ArrayList<>(Math.min(defaultHolderCapacity, _numRowsToKeep));
+      _externalSorter = null;
+    } else if (_numRowsToKeep > spillThresholdRows) {
+      _priorityQueue = null;
+      _rows = null;
+      _externalSorter = new ExternalSorter(_dataSchema, new SortUtils.SortComparator(collations, false),
+          spillThresholdRows, ExternalSorter.getSpillThresholdBytes(metadata));
     } else {
       // Use the opposite direction as specified by the collation directions since we need the PriorityQueue to decide
       // which elements to keep and which to remove based on the limits.
       _priorityQueue = new PriorityQueue<>(Math.min(defaultHolderCapacity, _numRowsToKeep),
           new SortUtils.SortComparator(collations, true));
       _rows = null;
+      _externalSorter = null;
     }
   }
 
@@ -115,21 +139,58 @@ public class SortOperator extends MultiStageOperator {
     return EXPLAIN_NAME;
   }
 
+  @Override
+  public void close() {
+    super.close();
+    if (_externalSorter != null) {
+      _externalSorter.close();
+    }
+  }
+
   @Override
   protected MseBlock getNextBlock() {
     if (_hasConstructedSortedBlock) {
       assert _eosBlock != null;
-      return _eosBlock;
+      return _externalSorter != null ? produceExternalSortedBlock() : _eosBlock;
     }
     _eosBlock = consumeInputBlocks();
     // returning upstream error block if finalBlock contains error.
-    _statMap.merge(StatKey.REQUIRE_SORT, _priorityQueue != null);
+    _statMap.merge(StatKey.REQUIRE_SORT, _priorityQueue != null || _externalSorter != null);
     if (_eosBlock.isError()) {
       return _eosBlock;
     }
+    if (_externalSorter != null) {
+      _hasConstructedSortedBlock = true;
+      _externalSorter.finish();
+      _statMap.merge(StatKey.NUM_SPILLED_RUNS, _externalSorter.getNumRunsSpilled());
+      _statMap.merge(StatKey.NUM_ROWS_SPILLED, _externalSorter.getNumRowsSpilled());
+      _statMap.merge(StatKey.NUM_BYTES_SPILLED, _externalSorter.getNumBytesSpilled());
+      return produceExternalSortedBlock();
+    }
     return produceSortedBlock();
   }
 
+  private MseBlock produceExternalSortedBlock() {
+    assert _externalSorter != null;
+    while (!_isEarlyTerminated && _numExternalSortedRowsRead < _numRowsToKeep) {
+      int maxRows = (int) Math.min(EXTERNAL_SORT_BLOCK_SIZE, _numRowsToKeep - _numExternalSortedRowsRead);
+      List<Object[]> rows = _externalSorter.nextBlock(maxRows);
+      if (rows == null) {
+        break;
+      }
+      // Rows are returned in a single block when nothing is spilled, so the block can have more rows than requested
+      int startIndex = (int) Math.min(Math.max(_offset - _numExternalSortedRowsRead, 0), rows.size());
+      int endIndex = (int) Math.min(_numRowsToKeep - _numExternalSortedRowsRead, rows.size());
+      _numExternalSortedRowsRead += rows.size();
+      sampleAndCheckInterruption();
+      if (startIndex < endIndex) {
+        return new RowHeapDataBlock(rows.subList(startIndex, endIndex), _dataSchema);
+      }
+    }
+    _externalSorter.close();
+    return _eosBlock;
+  }
+
   @Override
   protected StatMap<?> copyStatMaps() {
     return new StatMap<>(_statMap);
@@ -162,7 +223,7 @@ public class SortOperator extends MultiStageOperator {
     MseBlock block = _input.nextBlock();
     while (block.isData()) {
       List<Object[]> container = ((MseBlock.Data) block).asRowHeap().getRows();
-      if (_priorityQueue == null) {
+      if (_rows != null) {
         // TODO: when push-down properly, we shouldn't get more than _numRowsToKeep
         int numRows = _rows.size();
         if (numRows < _numRowsToKeep) {
@@ -181,11 +242,15 @@ public class SortOperator extends MultiStageOperator {
             earlyTerminate();
           }
         }
-      } else {
+      } else if (_priorityQueue != null) {
         for (Object[] row : container) {
           SelectionOperatorUtils.addToPriorityQueue(row, _priorityQueue, _numRowsToKeep);
         }
         sampleAndCheckInterruption();
+      } else {
+        assert _externalSorter != null;
+        _externalSorter.addRows(container);
+        sampleAndCheckInterruption();
       }
       block = _input.nextBlock();
     }
@@ -205,7 +270,19 @@ public class SortOperator extends MultiStageOperator {
       public boolean includeDefaultInJson() {
         return true;
       }
-    };
+    },
+    /**
+     * Number of sorted runs spilled to disk by the external sort.
+     */
+    NUM_SPILLED_RUNS(StatMap.Type.INT),
+    /**
+     * Number of rows spilled to disk by the external sort.
+     */
+    NUM_ROWS_SPILLED(StatMap.Type.LONG),
+    /**
+     * Number of bytes spilled to disk by the external sort.
+     */
+    NUM_BYTES_SPILLED(StatMap.Type.LONG);
     //@formatter:on
 
     private final StatMap.Type _type;
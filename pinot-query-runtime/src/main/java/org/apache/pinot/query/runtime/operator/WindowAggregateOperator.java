@@ -20,10 +20,12 @@ package org.apache.pinot.query.runtime.operator;
 
 import com.google.common.base.Preconditions;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import javax.annotation.Nullable;
 import org.apache.calcite.rel.RelFieldCollation;
 import org.apache.pinot.calcite.rel.hint.PinotHintOptions;
 import org.apache.pinot.common.datatable.StatMap;
@@ -37,6 +39,8 @@ import org.apache.pinot.query.planner.plannode.WindowNode;
 import org.apache.pinot.query.runtime.blocks.MseBlock;
 import org.apache.pinot.query.runtime.blocks.RowHeapDataBlock;
 import org.apache.pinot.query.runtime.operator.utils.AggregationUtils;
+import org.apache.pinot.query.runtime.operator.utils.ExternalSorter;
+import org.apache.pinot.query.runtime.operator.utils.SortUtils;
 import org.apache.pinot.query.runtime.operator.utils.TypeUtils;
 import org.apache.pinot.query.runtime.operator.window.WindowFrame;
 import org.apache.pinot.query.runtime.operator.window.WindowFunction;
@@ -68,6 +72,11 @@ import org.slf4j.LoggerFactory;
  * should handle adding a 'SortExchange' to do the ordering prior to pipelining the data to the upstream operators
  * wherever ordering is required.
  *
+ * When the number of buffered input rows exceeds the sort spill threshold, the rows are spilled to disk with an
+ * {@link ExternalSorter} on the 'PARTITION BY' keys (the sort is stable, so the input ordering within each partition
+ * is kept), and the partitions are processed one at a time from the merged rows. In that case the max rows in window
+ * limit applies to each partition instead of all the input rows.
+ *
  * Note: This class performs aggregation over the double value of input.
  * If the input is single value, the output type will be input type. Otherwise, the output type will be double.
  *
@@ -83,6 +92,8 @@ public class WindowAggregateOperator extends MultiStageOperator {
   private static final Logger LOGGER = LoggerFactory.getLogger(WindowAggregateOperator.class);
   private static final int DEFAULT_MAX_ROWS_IN_WINDOW = 1024 * 1024; // 2^20, around 1MM rows
   private static final WindowOverFlowMode DEFAULT_WINDOW_OVERFLOW_MODE = WindowOverFlowMode.THROW;
+  // Number of rows per block emitted when the window is spilled
+  private static final int SPILLED_WINDOW_BLOCK_SIZE = 10_000;
 
   // List of window functions which can only be applied as ROWS window frame type
   public static final Set<String> ROWS_ONLY_FUNCTION_NAMES = Set.of("ROW_NUMBER");
@@ -107,6 +118,20 @@ public class WindowAggregateOperator extends MultiStageOperator {
    * BREAK: Break window cache build process, continue to perform WINDOW operation, results might be partial or wrong.
    */
   private final WindowOverFlowMode _windowOverflowMode;
+  private final ColumnDataType[] _resultStoredTypes;
+
+  // Sorter on the partition keys to spill the input rows, null when spilling is not supported
+  @Nullable
+  private final ExternalSorter _externalSorter;
+  @Nullable
+  private final Comparator<Object[]> _keyComparator;
+  private final int _spillThresholdRows;
+  private final long _spillThresholdBytes;
+  private boolean _spilling;
+  private long _numBytes;
+  @Nullable
+  private List<Object[]> _sortedBlock;
+  private int _sortedBlockRowId;
 
   private int _numRows;
   private boolean _hasReturnedWindowAggregateBlock;
@@ -145,6 +170,24 @@ public class WindowAggregateOperator extends MultiStageOperator {
     PlanNode.NodeHint nodeHint = node.getNodeHint();
     _maxRowsInWindowCache = getMaxRowInWindow(metadata, nodeHint);
     _windowOverflowMode = getWindowOverflowMode(metadata, nodeHint);
+    _resultStoredTypes = _resultSchema.getStoredColumnDataTypes();
+
+    _spillThresholdRows = ExternalSorter.getSpillThresholdRows(metadata);
+    _spillThresholdBytes = ExternalSorter.getSpillThresholdBytes(metadata);
+    // Spilling only helps when there are multiple partitions, and requires comparable partition keys
+    boolean canSpill = numKeys > 0;
+    List<RelFieldCollation> keyCollations = new ArrayList<>(numKeys);
+    for (int key : _keys) {
+      canSpill &= !inputSchema.getColumnDataType(key).isArray();
+      keyCollations.add(new RelFieldCollation(key));
+    }
+    if (canSpill) {
+      _keyComparator = new SortUtils.SortComparator(keyCollations, false);
+      _externalSorter = new ExternalSorter(inputSchema, _keyComparator, _spillThresholdRows, _spillThresholdBytes);
+    } else {
+      _keyComparator = null;
+      _externalSorter = null;
+    }
   }
 
   @Override
@@ -197,11 +240,22 @@ public class WindowAggregateOperator extends MultiStageOperator {
     return EXPLAIN_NAME;
   }
 
+  @Override
+  public void close() {
+    super.close();
+    if (_externalSorter != null) {
+      _externalSorter.close();
+    }
+  }
+
   @Override
   protected MseBlock getNextBlock() {
     if (_hasReturnedWindowAggregateBlock) {
       return _eosBlock;
     }
+    if (_spilling && _eosBlock != null) {
+      return produceSpilledBlock();
+    }
     return computeBlocks();
   }
 
@@ -214,6 +268,17 @@ public class WindowAggregateOperator extends MultiStageOperator {
     while (block.isData()) {
       List<Object[]> container = ((MseBlock.Data) block).asRowHeap().getRows();
       int containerSize = container.size();
+      if (!_spilling && shouldSpill(container)) {
+        startSpilling(partitionRows);
+      }
+      if (_spilling) {
+        assert _externalSorter != null;
+        _externalSorter.addRows(container);
+        _numRows += containerSize;
+        sampleAndCheckInterruption();
+        block = _input.nextBlock();
+        continue;
+      }
       if (_numRows + containerSize > _maxRowsInWindowCache) {
         if (_windowOverflowMode == WindowOverFlowMode.THROW) {
           throw QueryErrorCode.SERVER_RESOURCE_LIMIT_EXCEEDED.asException(
@@ -242,35 +307,22 @@ public class WindowAggregateOperator extends MultiStageOperator {
     _eosBlock = eosBlock;
     // Early termination if the block is an error block
     if (eosBlock.isError()) {
+      _hasReturnedWindowAggregateBlock = true;
       return block;
     }
 
-    ColumnDataType[] resultStoredTypes = _resultSchema.getStoredColumnDataTypes();
+    if (_spilling) {
+      assert _externalSorter != null;
+      _externalSorter.finish();
+      _statMap.merge(StatKey.NUM_SPILLED_RUNS, _externalSorter.getNumRunsSpilled());
+      _statMap.merge(StatKey.NUM_ROWS_SPILLED, _externalSorter.getNumRowsSpilled());
+      _statMap.merge(StatKey.NUM_BYTES_SPILLED, _externalSorter.getNumBytesSpilled());
+      return produceSpilledBlock();
+    }
+
     List<Object[]> rows = new ArrayList<>(_numRows);
     for (Map.Entry<Key, List<Object[]>> e : partitionRows.entrySet()) {
-      List<Object[]> rowList = e.getValue();
-
-      // Each window function will return a list of results for each row in the input set
-      List<List<Object>> windowFunctionResults = new ArrayList<>();
-      for (WindowFunction windowFunction : _windowFunctions) {
-        List<Object> processRows = windowFunction.processRows(rowList);
-        assert processRows.size() == rowList.size();
-        Tracing.ThreadAccountantOps.sampleAndCheckInterruptionPeriodically(windowFunctionResults.size());
-        windowFunctionResults.add(processRows);
-      }
-
-      for (int rowId = 0; rowId < rowList.size(); rowId++) {
-        Object[] existingRow = rowList.get(rowId);
-        Object[] row = new Object[existingRow.length + _windowFunctions.length];
-        System.arraycopy(existingRow, 0, row, 0, existingRow.length);
-        for (int i = 0; i < _windowFunctions.length; i++) {
-          row[i + existingRow.length] = windowFunctionResults.get(i).get(rowId);
-        }
-        // Convert the results from WindowFunction to the desired type
-        TypeUtils.convertRow(row, resultStoredTypes);
-        Tracing.ThreadAccountantOps.sampleAndCheckInterruptionPeriodically(rows.size());
-        rows.add(row);
-      }
+      processPartition(e.getValue(), rows);
     }
 
     _hasReturnedWindowAggregateBlock = true;
@@ -281,6 +333,122 @@ public class WindowAggregateOperator extends MultiStageOperator {
     }
   }
 
+  private void processPartition(List<Object[]> rowList, List<Object[]> rows) {
+    // Each window function will return a list of results for each row in the input set
+    List<List<Object>> windowFunctionResults = new ArrayList<>();
+    for (WindowFunction windowFunction : _windowFunctions) {
+      List<Object> processRows = windowFunction.processRows(rowList);
+      assert processRows.size() == rowList.size();
+      Tracing.ThreadAccountantOps.sampleAndCheckInterruptionPeriodically(windowFunctionResults.size());
+      windowFunctionResults.add(processRows);
+    }
+
+    for (int rowId = 0; rowId < rowList.size(); rowId++) {
+      Object[] existingRow = rowList.get(rowId);
+      Object[] row = new Object[existingRow.length + _windowFunctions.length];
+      System.arraycopy(existingRow, 0, row, 0, existingRow.length);
+      for (int i = 0; i < _windowFunctions.length; i++) {
+        row[i + existingRow.length] = windowFunctionResults.get(i).get(rowId);
+      }
+      // Convert the results from WindowFunction to the desired type
+      TypeUtils.convertRow(row, _resultStoredTypes);
+      Tracing.ThreadAccountantOps.sampleAndCheckInterruptionPeriodically(rows.size());
+      rows.add(row);
+    }
+  }
+
+  private boolean shouldSpill(List<Object[]> container) {
+    if (_externalSorter == null) {
+      return false;
+    }
+    if (_numRows + container.size() > _spillThresholdRows) {
+      return true;
+    }
+    if (_spillThresholdBytes > 0) {
+      for (Object[] row : container) {
+        _numBytes += _externalSorter.estimateRowSize(row);
+      }
+      return _numBytes > _spillThresholdBytes;
+    }
+    return false;
+  }
+
+  /**
+   * Moves the rows already buffered in memory into the external sorter. All the following input rows are added to the
+   * external sorter.
+   */
+  private void startSpilling(Map<Key, List<Object[]>> partitionRows) {
+    assert _externalSorter != null;
+    LOGGER.info("Spilling window rows to disk, number of rows: {}, number of partitions: {}", _numRows,
+        partitionRows.size());
+    _spilling = true;
+    for (List<Object[]> rowList : partitionRows.values()) {
+      _externalSorter.addRows(rowList);
+    }
+    partitionRows.clear();
+  }
+
+  /**
+   * Processes the partitions from the rows sorted on the partition keys until enough rows are generated for a block.
+   */
+  private MseBlock produceSpilledBlock() {
+    assert _keyComparator != null && _externalSorter != null;
+    List<Object[]> rows = new ArrayList<>();
+    while (rows.size() < SPILLED_WINDOW_BLOCK_SIZE && !_isEarlyTerminated) {
+      Object[] firstRow = nextSortedRow();
+      if (firstRow == null) {
+        break;
+      }
+      List<Object[]> rowList = new ArrayList<>();
+      rowList.add(firstRow);
+      Object[] row;
+      while ((row = peekSortedRow()) != null && _keyComparator.compare(firstRow, row) == 0) {
+        _sortedBlockRowId++;
+        if (rowList.size() == _maxRowsInWindowCache) {
+          if (_windowOverflowMode == WindowOverFlowMode.THROW) {
+            throw QueryErrorCode.SERVER_RESOURCE_LIMIT_EXCEEDED.asException(
+                "Cannot build in memory window cache for WINDOW operator partition, reach number of rows limit: "
+                    + _maxRowsInWindowCache);
+          }
+          // Skip the remaining rows of the partition
+          _statMap.merge(StatKey.MAX_ROWS_IN_WINDOW_REACHED, true);
+          continue;
+        }
+        rowList.add(row);
+      }
+      processPartition(rowList, rows);
+      sampleAndCheckInterruption();
+    }
+    if (rows.isEmpty()) {
+      _hasReturnedWindowAggregateBlock = true;
+      _externalSorter.close();
+      return _eosBlock;
+    }
+    return new RowHeapDataBlock(rows, _resultSchema);
+  }
+
+  @Nullable
+  private Object[] peekSortedRow() {
+    assert _externalSorter != null;
+    if (_sortedBlock == null || _sortedBlockRowId == _sortedBlock.size()) {
+      _sortedBlock = _externalSorter.nextBlock(SPILLED_WINDOW_BLOCK_SIZE);
+      _sortedBlockRowId = 0;
+      if (_sortedBlock == null) {
+        return null;
+      }
+    }
+    return _sortedBlock.get(_sortedBlockRowId);
+  }
+
+  @Nullable
+  private Object[] nextSortedRow() {
+    Object[] row = peekSortedRow();
+    if (row != null) {
+      _sortedBlockRowId++;
+    }
+    return row;
+  }
+
   @Override
   protected StatMap<?> copyStatMaps() {
     return new StatMap<>(_statMap);
@@ -300,7 +468,19 @@ public class WindowAggregateOperator extends MultiStageOperator {
         return true;
       }
     },
-    MAX_ROWS_IN_WINDOW_REACHED(StatMap.Type.BOOLEAN);
+    MAX_ROWS_IN_WINDOW_REACHED(StatMap.Type.BOOLEAN),
+    /**
+     * Number of sorted runs spilled to disk when the window rows exceed the spill threshold.
+     */
+    NUM_SPILLED_RUNS(StatMap.Type.INT),
+    /**
+     * Number of rows spilled to disk when the window rows exceed the spill threshold.
+     */
+    NUM_ROWS_SPILLED(StatMap.Type.LONG),
+    /**
+     * Number of bytes spilled to disk when the window rows exceed the spill threshold.
+     */
+    NUM_BYTES_SPILLED(StatMap.Type.LONG);
     //@formatter:on
 
     private final StatMap.Type _type;
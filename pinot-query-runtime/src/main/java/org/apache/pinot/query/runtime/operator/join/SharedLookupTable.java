@@ -0,0 +1,184 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.runtime.operator.join;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.annotation.Nullable;
+import org.apache.pinot.spi.exception.QueryCancelledException;
+import org.apache.pinot.spi.exception.QueryErrorCode;
+
+
+/**
+ * The {@code SharedLookupTable} holds a {@link LookupTable} shared by the hash join workers of the same server when the
+ * right input is broadcast, in which case all the workers receive the same right rows.
+ * <p>The first worker acquiring the shared lookup table builds it from its right input, and publishes it once finished.
+ * The other workers drain and discard their right input, then wait for the lookup table to be published and probe it
+ * concurrently. The waiting workers block their executor thread until the lookup table is published, which is bounded
+ * by the time the building worker takes to consume the same right input. The lookup table is read-only once published.
+ * <p>If the building worker does not publish the lookup table (e.g. it fails), the waiting workers are notified and
+ * fail as well, because they do not keep the right rows to build their own lookup table.
+ * <p>The shared lookup table is removed from the registry once released by all the workers of the stage on the server,
+ * so that a late worker always finds it instead of building it again. Each worker must release it exactly once, even
+ * if the worker never uses it.
+ */
+public class SharedLookupTable {
+  private static final ConcurrentHashMap<Key, SharedLookupTable> SHARED_LOOKUP_TABLES = new ConcurrentHashMap<>();
+
+  private final Key _key;
+  private final int _numWorkers;
+  private final long _deadlineMs;
+  private final AtomicBoolean _building = new AtomicBoolean();
+  // Completed with null when the building worker does not publish the lookup table
+  private final CompletableFuture<Result> _result = new CompletableFuture<>();
+  // Guarded by the lock of the registry entry
+  private int _numReleased;
+
+  private SharedLookupTable(Key key, int numWorkers, long deadlineMs) {
+    _key = key;
+    _numWorkers = numWorkers;
+    _deadlineMs = deadlineMs;
+  }
+
+  /**
+   * Acquires the lookup table shared by the join of the given stage which receives its broadcast right input from the
+   * given sender stage, where {@code numWorkers} is the number of workers of the stage on the server. Each worker
+   * should release the acquired lookup table via {@link #release()}.
+   * <p>The lookup tables past the deadline of their query are purged, in case some workers never released them (e.g.
+   * the op chain of the worker failed to be created).
+   */
+  public static SharedLookupTable acquire(long requestId, int stageId, int rightSenderStageId, int numWorkers,
+      long deadlineMs) {
+    long currentTimeMs = System.currentTimeMillis();
+    SHARED_LOOKUP_TABLES.values().removeIf(sharedLookupTable -> sharedLookupTable._deadlineMs < currentTimeMs);
+    return SHARED_LOOKUP_TABLES.computeIfAbsent(new Key(requestId, stageId, rightSenderStageId),
+        key -> new SharedLookupTable(key, numWorkers, deadlineMs));
+  }
+
+  /**
+   * Returns {@code true} if the caller should build the lookup table, which is the case for the first caller only. The
+   * builder must either {@link #publish} the lookup table or {@link #abandon} the build.
+   */
+  public boolean tryStartBuilding() {
+    return _building.compareAndSet(false, true);
+  }
+
+  /**
+   * Publishes the finished lookup table to the other workers.
+   *
+   * @param maxRowsInJoinReached whether the right rows are truncated because of the max rows in join limit
+   */
+  public void publish(LookupTable lookupTable, boolean maxRowsInJoinReached) {
+    _result.complete(new Result(lookupTable, maxRowsInJoinReached));
+  }
+
+  /**
+   * Abandons the build so that the workers waiting for the lookup table stop waiting. No-op if the lookup table is
+   * already published.
+   */
+  public void abandon() {
+    _result.complete(null);
+  }
+
+  /**
+   * Waits for the lookup table to be published and returns it, or returns {@code null} if the build is abandoned.
+   */
+  @Nullable
+  public Result get(long deadlineMs) {
+    try {
+      return _result.get(Math.max(deadlineMs - System.currentTimeMillis(), 0), TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      throw QueryErrorCode.EXECUTION_TIMEOUT.asException("Timed out waiting for the shared hash table of the join");
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new QueryCancelledException("Interrupted while waiting for the shared hash table of the join", e);
+    } catch (ExecutionException e) {
+      // Should not happen because the result is never completed exceptionally
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Releases the lookup table. The lookup table is removed from the registry when released by all the workers.
+   */
+  public void release() {
+    SHARED_LOOKUP_TABLES.computeIfPresent(_key,
+        (key, sharedLookupTable) -> sharedLookupTable != this || ++_numReleased < _numWorkers ? sharedLookupTable
+            : null);
+  }
+
+  @VisibleForTesting
+  public static int getNumSharedLookupTables() {
+    return SHARED_LOOKUP_TABLES.size();
+  }
+
+  public static class Result {
+    private final LookupTable _lookupTable;
+    private final boolean _maxRowsInJoinReached;
+
+    private Result(LookupTable lookupTable, boolean maxRowsInJoinReached) {
+      _lookupTable = lookupTable;
+      _maxRowsInJoinReached = maxRowsInJoinReached;
+    }
+
+    public LookupTable getLookupTable() {
+      return _lookupTable;
+    }
+
+    public boolean isMaxRowsInJoinReached() {
+      return _maxRowsInJoinReached;
+    }
+  }
+
+  private static class Key {
+    final long _requestId;
+    final int _stageId;
+    final int _rightSenderStageId;
+
+    Key(long requestId, int stageId, int rightSenderStageId) {
+      _requestId = requestId;
+      _stageId = stageId;
+      _rightSenderStageId = rightSenderStageId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key key = (Key) o;
+      return _requestId == key._requestId && _stageId == key._stageId
+          && _rightSenderStageId == key._rightSenderStageId;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(_requestId, _stageId, _rightSenderStageId);
+    }
+  }
+}
@@ -68,6 +68,14 @@ public abstract class SetOperator extends MultiStageOperator {
     return List.of(_leftChildOperator, _rightChildOperator);
   }
 
+  @Override
+  public List<MultiStageOperator> getNextInputOperators() {
+    if (_eos != null) {
+      return List.of();
+    }
+    return List.of(_isRightChildOperatorProcessed ? _leftChildOperator : _rightChildOperator);
+  }
+
   @Override
   public void prepareForExplainPlan(ExplainPlanRows explainPlanRows) {
     super.prepareForExplainPlan(explainPlanRows);
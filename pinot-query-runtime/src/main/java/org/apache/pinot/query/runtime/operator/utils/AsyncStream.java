@@ -58,6 +58,16 @@ public interface AsyncStream<E> {
    */
   void addOnNewDataListener(OnNewData onNewData);
 
+  /**
+   * Returns whether there may be an element to read. Implementations that cannot tell it without consuming the element
+   * should return true.
+   *
+   * <strong>This method can be called from any thread</strong>.
+   */
+  default boolean hasPendingElements() {
+    return true;
+  }
+
   /**
    * Cancels this stream.
    *
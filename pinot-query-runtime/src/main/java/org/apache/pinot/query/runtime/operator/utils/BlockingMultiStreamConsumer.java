@@ -61,6 +61,8 @@ public abstract class BlockingMultiStreamConsumer<E> implements AutoCloseable {
   protected int _lastRead;
   @Nullable
   private E _errorBlock = null;
+  @Nullable
+  private volatile Runnable _onNewDataListener;
 
   public BlockingMultiStreamConsumer(Object id, long deadlineMs, List<? extends AsyncStream<E>> asyncProducers) {
     _id = id;
@@ -177,6 +179,49 @@ public abstract class BlockingMultiStreamConsumer<E> implements AutoCloseable {
     } else if (LOGGER.isTraceEnabled()) {
       LOGGER.trace("New data notification ignored on " + _id + ". " + System.identityHashCode(_newDataReady));
     }
+    Runnable onNewDataListener = _onNewDataListener;
+    if (onNewDataListener != null) {
+      onNewDataListener.run();
+    }
+  }
+
+  /**
+   * Sets a listener that is called whenever new data arrives in any of the mailboxes. This is used by cooperative
+   * schedulers to resume a consumer that released its thread instead of blocking on {@link #readBlockBlocking()}.
+   *
+   * The listener is called by the producer threads, so it should not block.
+   *
+   * <strong>This method can be called from any thread</strong>.
+   */
+  public void setOnNewDataListener(@Nullable Runnable onNewDataListener) {
+    _onNewDataListener = onNewDataListener;
+  }
+
+  /**
+   * Returns whether all mailboxes already emitted EOS, in which case no more data is going to be read.
+   *
+   * This method is called by the consumer thread.
+   */
+  public boolean isFinished() {
+    return _mailboxes.isEmpty();
+  }
+
+  /**
+   * Returns whether {@link #readBlockBlocking()} can return without waiting for new data, which is the case when any
+   * mailbox has pending data, an error was found or the deadline is reached.
+   *
+   * This method is called by the consumer thread.
+   */
+  public boolean isReadyToRead() {
+    if (_errorBlock != null || System.currentTimeMillis() > _deadlineMs) {
+      return true;
+    }
+    for (AsyncStream<E> mailbox : _mailboxes) {
+      if (mailbox.hasPendingElements()) {
+        return true;
+      }
+    }
+    return false;
   }
 
   /**
@@ -0,0 +1,454 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.runtime.operator.utils;
+
+import com.google.common.base.Preconditions;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import javax.annotation.Nullable;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
+import org.apache.pinot.common.utils.config.QueryOptionsUtils;
+import org.apache.pinot.spi.trace.Tracing;
+import org.apache.pinot.spi.utils.ByteArray;
+import org.apache.pinot.spi.utils.CommonConstants.MultiStageQueryRunner;
+
+
+/**
+ * Bounded memory external merge sort for the multi-stage operators.
+ * <p>Rows are buffered in memory until the number of rows or the estimated size of the rows exceeds the threshold,
+ * then the buffered rows are sorted and written to a {@link SpillFile} as a sorted run. Once all the rows are added,
+ * the sorted runs and the remaining buffered rows are k-way merged. When no run is spilled, the rows are simply sorted
+ * in memory.
+ * <p>Each run being merged holds an open file and a buffered block of rows, so at most {@code mergeFactor} runs are
+ * merged at once. When there are more runs, consecutive runs are first merged into larger runs on disk, in as many
+ * passes as needed.
+ * <p>The sort is stable: rows comparing equal are returned in the order they are added.
+ * <p>This class is not thread-safe.
+ */
+public class ExternalSorter implements Closeable {
+  public static final int DEFAULT_MERGE_FACTOR = 64;
+
+  // Number of rows per block in the spill files
+  private static final int SPILL_BLOCK_SIZE = 10_000;
+  // Rough estimation of the object header and reference overhead of a value
+  private static final int VALUE_OVERHEAD_BYTES = 16;
+
+  private final DataSchema _dataSchema;
+  private final ColumnDataType[] _storedTypes;
+  private final Comparator<Object[]> _comparator;
+  private final int _maxRowsInMemory;
+  private final long _maxBytesInMemory;
+  private final int _mergeFactor;
+  private final List<SpillFile> _runs = new ArrayList<>();
+
+  private List<Object[]> _buffer = new ArrayList<>();
+  private long _bufferBytes;
+  private int _numRunsSpilled;
+  private int _numMergePasses;
+  private long _numRowsSpilled;
+  private long _numBytesSpilled;
+  @Nullable
+  private PriorityQueue<RunCursor> _mergeQueue;
+  private int _nextInMemoryRowId = -1;
+
+  /**
+   * @param maxRowsInMemory Max number of rows buffered in memory before spilling a sorted run
+   * @param maxBytesInMemory Max estimated bytes buffered in memory before spilling a sorted run, non-positive value to
+   *                         disable the bytes based spilling
+   */
+  public ExternalSorter(DataSchema dataSchema, Comparator<Object[]> comparator, int maxRowsInMemory,
+      long maxBytesInMemory) {
+    this(dataSchema, comparator, maxRowsInMemory, maxBytesInMemory, DEFAULT_MERGE_FACTOR);
+  }
+
+  /**
+   * @param mergeFactor Max number of runs merged at once, must be at least 2
+   */
+  public ExternalSorter(DataSchema dataSchema, Comparator<Object[]> comparator, int maxRowsInMemory,
+      long maxBytesInMemory, int mergeFactor) {
+    Preconditions.checkArgument(mergeFactor >= 2, "Merge factor must be at least 2, got: %s", mergeFactor);
+    _dataSchema = dataSchema;
+    _storedTypes = dataSchema.getStoredColumnDataTypes();
+    _comparator = comparator;
+    _maxRowsInMemory = maxRowsInMemory;
+    _maxBytesInMemory = maxBytesInMemory;
+    _mergeFactor = mergeFactor;
+  }
+
+  public static int getSpillThresholdRows(Map<String, String> opChainMetadata) {
+    Integer spillThresholdRows = QueryOptionsUtils.getSortSpillThresholdRows(opChainMetadata);
+    return spillThresholdRows != null ? spillThresholdRows : MultiStageQueryRunner.DEFAULT_SORT_SPILL_THRESHOLD_ROWS;
+  }
+
+  public static long getSpillThresholdBytes(Map<String, String> opChainMetadata) {
+    Long spillThresholdBytes = QueryOptionsUtils.getSortSpillThresholdBytes(opChainMetadata);
+    return spillThresholdBytes != null ? spillThresholdBytes : MultiStageQueryRunner.DEFAULT_SORT_SPILL_THRESHOLD_BYTES;
+  }
+
+  public void addRows(List<Object[]> rows) {
+    assert _mergeQueue == null && _nextInMemoryRowId < 0 : "Cannot add rows after finishing";
+    for (Object[] row : rows) {
+      _buffer.add(row);
+      if (_maxBytesInMemory > 0) {
+        _bufferBytes += estimateRowSize(row);
+      }
+      if (_buffer.size() >= _maxRowsInMemory || (_maxBytesInMemory > 0 && _bufferBytes >= _maxBytesInMemory)) {
+        spillBuffer();
+      }
+    }
+  }
+
+  /**
+   * Returns the total number of rows added.
+   */
+  public long getNumRows() {
+    return _numRowsSpilled + _buffer.size();
+  }
+
+  public boolean isSpilled() {
+    return !_runs.isEmpty();
+  }
+
+  public int getNumRunsSpilled() {
+    return _numRunsSpilled;
+  }
+
+  /**
+   * Returns the number of intermediate merge passes over the spilled runs.
+   */
+  public int getNumMergePasses() {
+    return _numMergePasses;
+  }
+
+  public long getNumRowsSpilled() {
+    return _numRowsSpilled;
+  }
+
+  /**
+   * Returns the number of bytes written to disk, including the runs written by the intermediate merge passes.
+   */
+  public long getNumBytesSpilled() {
+    return _numBytesSpilled;
+  }
+
+  private void spillBuffer() {
+    _buffer.sort(_comparator);
+    try {
+      SpillFile run = SpillFile.create(_dataSchema);
+      _runs.add(run);
+      int numRows = _buffer.size();
+      for (int from = 0; from < numRows; from += SPILL_BLOCK_SIZE) {
+        run.append(_buffer.subList(from, Math.min(from + SPILL_BLOCK_SIZE, numRows)));
+        Tracing.ThreadAccountantOps.sampleAndCheckInterruption();
+      }
+      _numRunsSpilled++;
+      _numRowsSpilled += numRows;
+      _numBytesSpilled += run.getNumBytes();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to spill sorted run to disk", e);
+    }
+    _buffer = new ArrayList<>();
+    _bufferBytes = 0;
+  }
+
+  /**
+   * Finishes adding rows, and prepares to return the sorted rows.
+   */
+  public void finish() {
+    _buffer.sort(_comparator);
+    if (_runs.isEmpty()) {
+      _nextInMemoryRowId = 0;
+      return;
+    }
+    // The final merge also reads the in-memory run
+    while (_runs.size() >= _mergeFactor) {
+      mergeRuns();
+    }
+    int numRuns = _runs.size();
+    _mergeQueue = createMergeQueue(numRuns + 1);
+    try {
+      for (int i = 0; i < numRuns; i++) {
+        RunCursor cursor = new SpilledRunCursor(i, _runs.get(i).openReader());
+        if (cursor.advance()) {
+          _mergeQueue.add(cursor);
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to read sorted run from disk", e);
+    }
+    // Remaining buffered rows are the last run
+    RunCursor inMemoryCursor = new InMemoryRunCursor(numRuns, _buffer);
+    if (inMemoryCursor.advance()) {
+      _mergeQueue.add(inMemoryCursor);
+    }
+  }
+
+  private PriorityQueue<RunCursor> createMergeQueue(int numRuns) {
+    return new PriorityQueue<>(numRuns, (c1, c2) -> {
+      int result = _comparator.compare(c1._currentRow, c2._currentRow);
+      // Break the tie with the run order to keep the sort stable
+      return result != 0 ? result : Integer.compare(c1._runId, c2._runId);
+    });
+  }
+
+  /**
+   * Merges every {@code mergeFactor} consecutive spilled runs into a single run. Merging consecutive runs keeps the
+   * sort stable.
+   */
+  private void mergeRuns() {
+    int numRuns = _runs.size();
+    List<SpillFile> mergedRuns = new ArrayList<>((numRuns + _mergeFactor - 1) / _mergeFactor);
+    try {
+      for (int from = 0; from < numRuns; from += _mergeFactor) {
+        List<SpillFile> runs = _runs.subList(from, Math.min(from + _mergeFactor, numRuns));
+        mergedRuns.add(runs.size() == 1 ? runs.get(0) : mergeRuns(runs));
+      }
+    } catch (IOException e) {
+      for (SpillFile mergedRun : mergedRuns) {
+        mergedRun.close();
+      }
+      throw new UncheckedIOException("Failed to merge sorted runs on disk", e);
+    }
+    // The runs merged into larger runs are already closed and deleted
+    _runs.clear();
+    _runs.addAll(mergedRuns);
+    _numMergePasses++;
+  }
+
+  private SpillFile mergeRuns(List<SpillFile> runs)
+      throws IOException {
+    SpillFile mergedRun = SpillFile.create(_dataSchema);
+    PriorityQueue<RunCursor> mergeQueue = createMergeQueue(runs.size());
+    try {
+      int numRuns = runs.size();
+      for (int i = 0; i < numRuns; i++) {
+        RunCursor cursor = new SpilledRunCursor(i, runs.get(i).openReader());
+        if (cursor.advance()) {
+          mergeQueue.add(cursor);
+        } else {
+          cursor.close();
+        }
+      }
+      List<Object[]> rows = new ArrayList<>(SPILL_BLOCK_SIZE);
+      while (!mergeQueue.isEmpty()) {
+        RunCursor cursor = mergeQueue.poll();
+        rows.add(cursor._currentRow);
+        if (cursor.advance()) {
+          mergeQueue.add(cursor);
+        } else {
+          cursor.close();
+        }
+        if (rows.size() == SPILL_BLOCK_SIZE) {
+          mergedRun.append(rows);
+          rows.clear();
+          Tracing.ThreadAccountantOps.sampleAndCheckInterruption();
+        }
+      }
+      mergedRun.append(rows);
+    } catch (Exception e) {
+      for (RunCursor cursor : mergeQueue) {
+        cursor.close();
+      }
+      mergedRun.close();
+      throw e;
+    }
+    for (SpillFile run : runs) {
+      run.close();
+    }
+    _numBytesSpilled += mergedRun.getNumBytes();
+    return mergedRun;
+  }
+
+  /**
+   * Returns the next block of at most {@code maxRows} sorted rows, or {@code null} if all the rows are returned. When
+   * no run is spilled, all the rows are returned in a single block.
+   */
+  @Nullable
+  public List<Object[]> nextBlock(int maxRows) {
+    if (_mergeQueue == null) {
+      assert _nextInMemoryRowId >= 0 : "Should finish before reading the sorted rows";
+      if (_nextInMemoryRowId == _buffer.size()) {
+        return null;
+      }
+      _nextInMemoryRowId = _buffer.size();
+      return _buffer;
+    }
+    if (_mergeQueue.isEmpty()) {
+      return null;
+    }
+    List<Object[]> rows = new ArrayList<>(maxRows);
+    while (rows.size() < maxRows && !_mergeQueue.isEmpty()) {
+      RunCursor cursor = _mergeQueue.poll();
+      rows.add(cursor._currentRow);
+      if (cursor.advance()) {
+        _mergeQueue.add(cursor);
+      } else {
+        cursor.close();
+      }
+      Tracing.ThreadAccountantOps.sampleAndCheckInterruptionPeriodically(rows.size());
+    }
+    return rows;
+  }
+
+  /**
+   * Returns the rough estimation of the heap size of the row.
+   */
+  public long estimateRowSize(Object[] row) {
+    long size = VALUE_OVERHEAD_BYTES;
+    for (int i = 0; i < row.length; i++) {
+      Object value = row[i];
+      size += VALUE_OVERHEAD_BYTES;
+      if (value == null) {
+        continue;
+      }
+      switch (_storedTypes[i]) {
+        case INT:
+        case FLOAT:
+          size += Integer.BYTES;
+          break;
+        case LONG:
+        case DOUBLE:
+          size += Long.BYTES;
+          break;
+        case STRING:
+          size += ((String) value).length();
+          break;
+        case BYTES:
+          size += ((ByteArray) value).length();
+          break;
+        case INT_ARRAY:
+          size += (long) ((int[]) value).length * Integer.BYTES;
+          break;
+        case LONG_ARRAY:
+          size += (long) ((long[]) value).length * Long.BYTES;
+          break;
+        case FLOAT_ARRAY:
+          size += (long) ((float[]) value).length * Float.BYTES;
+          break;
+        case DOUBLE_ARRAY:
+          size += (long) ((double[]) value).length * Double.BYTES;
+          break;
+        case STRING_ARRAY:
+          for (String element : (String[]) value) {
+            size += VALUE_OVERHEAD_BYTES + element.length();
+          }
+          break;
+        default:
+          size += Long.BYTES;
+          break;
+      }
+    }
+    return size;
+  }
+
+  @Override
+  public void close() {
+    if (_mergeQueue != null) {
+      for (RunCursor cursor : _mergeQueue) {
+        cursor.close();
+      }
+      _mergeQueue.clear();
+    }
+    for (SpillFile run : _runs) {
+      run.close();
+    }
+    _runs.clear();
+    _buffer = new ArrayList<>();
+  }
+
+  private abstract static class RunCursor {
+    final int _runId;
+    Object[] _currentRow;
+
+    RunCursor(int runId) {
+      _runId = runId;
+    }
+
+    /**
+     * Moves to the next row of the run, returns {@code false} if the run is exhausted.
+     */
+    abstract boolean advance();
+
+    void close() {
+    }
+  }
+
+  private static class InMemoryRunCursor extends RunCursor {
+    final List<Object[]> _rows;
+    int _nextRowId;
+
+    InMemoryRunCursor(int runId, List<Object[]> rows) {
+      super(runId);
+      _rows = rows;
+    }
+
+    @Override
+    boolean advance() {
+      if (_nextRowId == _rows.size()) {
+        return false;
+      }
+      _currentRow = _rows.get(_nextRowId++);
+      return true;
+    }
+  }
+
+  private static class SpilledRunCursor extends RunCursor {
+    final SpillFile.Reader _reader;
+    List<Object[]> _block;
+    int _nextRowId;
+
+    SpilledRunCursor(int runId, SpillFile.Reader reader) {
+      super(runId);
+      _reader = reader;
+    }
+
+    @Override
+    boolean advance() {
+      if (_block == null || _nextRowId == _block.size()) {
+        try {
+          _block = _reader.nextBlock();
+        } catch (IOException e) {
+          throw new UncheckedIOException("Failed to read sorted run from disk", e);
+        }
+        _nextRowId = 0;
+        if (_block == null) {
+          return false;
+        }
+      }
+      _currentRow = _block.get(_nextRowId++);
+      return true;
+    }
+
+    @Override
+    void close() {
+      try {
+        _reader.close();
+      } catch (IOException e) {
+        // Ignore, the spill file is deleted when the sorter is closed
+      }
+    }
+  }
+}
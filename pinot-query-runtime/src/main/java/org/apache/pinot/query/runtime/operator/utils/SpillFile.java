@@ -0,0 +1,212 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.runtime.operator.utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.List;
+import javax.annotation.Nullable;
+import org.apache.commons.io.FileUtils;
+import org.apache.pinot.common.datablock.DataBlock;
+import org.apache.pinot.common.datablock.DataBlockUtils;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.core.common.datablock.DataBlockBuilder;
+import org.apache.pinot.core.query.aggregation.function.AggregationFunction;
+import org.apache.pinot.core.util.DataBlockExtractUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Local file used by the multi-stage operators to spill rows to disk when the rows cannot fit in memory.
+ * <p>Rows are appended in blocks, where each block is serialized as a data block prefixed by its size, and are read
+ * back block by block in the same order. The file is deleted when this object is closed.
+ * <p>This class is not thread-safe.
+ */
+public class SpillFile implements Closeable {
+  private static final Logger LOGGER = LoggerFactory.getLogger(SpillFile.class);
+  private static final String FILE_PREFIX = "pinot-spill-";
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private static volatile File _spillDir = FileUtils.getTempDirectory();
+
+  private final File _file;
+  private final DataSchema _dataSchema;
+  @Nullable
+  private final AggregationFunction[] _aggFunctions;
+  @Nullable
+  private DataOutputStream _outputStream;
+  private int _numBlocks;
+  private long _numRows;
+  private long _numBytes;
+
+  private SpillFile(File file, DataSchema dataSchema, @Nullable AggregationFunction[] aggFunctions)
+      throws IOException {
+    _file = file;
+    _dataSchema = dataSchema;
+    _aggFunctions = aggFunctions;
+    _outputStream = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file.toPath()), BUFFER_SIZE));
+  }
+
+  /**
+   * Sets the directory where the spill files are created. Uses the java temp directory when not set.
+   */
+  public static void setSpillDir(@Nullable String spillDir) {
+    if (spillDir != null) {
+      File dir = new File(spillDir);
+      try {
+        FileUtils.forceMkdir(dir);
+      } catch (IOException e) {
+        throw new IllegalStateException("Failed to create spill directory: " + spillDir, e);
+      }
+      LOGGER.info("Spilling multi-stage operator rows to directory: {}", dir);
+      _spillDir = dir;
+    }
+  }
+
+  public static SpillFile create(DataSchema dataSchema)
+      throws IOException {
+    return create(dataSchema, null);
+  }
+
+  /**
+   * Creates a spill file where the custom object columns (aggregation intermediate results) are serialized with the
+   * given aggregation functions, which are aligned with the last columns of the schema.
+   */
+  public static SpillFile create(DataSchema dataSchema, @Nullable AggregationFunction[] aggFunctions)
+      throws IOException {
+    return new SpillFile(File.createTempFile(FILE_PREFIX, null, _spillDir), dataSchema, aggFunctions);
+  }
+
+  /**
+   * Appends a block of rows to the file. Can only be called before the file is read.
+   */
+  public void append(List<Object[]> rows)
+      throws IOException {
+    if (rows.isEmpty()) {
+      return;
+    }
+    if (_outputStream == null) {
+      throw new IllegalStateException("Cannot append rows to spill file after reading it");
+    }
+    DataBlock dataBlock = DataBlockBuilder.buildFromRows(rows, _dataSchema, _aggFunctions);
+    List<ByteBuffer> byteBuffers = DataBlockUtils.serialize(dataBlock);
+    int size = 0;
+    for (ByteBuffer byteBuffer : byteBuffers) {
+      size += byteBuffer.remaining();
+    }
+    _outputStream.writeInt(size);
+    for (ByteBuffer byteBuffer : byteBuffers) {
+      if (byteBuffer.hasArray()) {
+        _outputStream.write(byteBuffer.array(), byteBuffer.arrayOffset() + byteBuffer.position(),
+            byteBuffer.remaining());
+      } else {
+        byte[] bytes = new byte[byteBuffer.remaining()];
+        byteBuffer.duplicate().get(bytes);
+        _outputStream.write(bytes);
+      }
+    }
+    _numBlocks++;
+    _numRows += rows.size();
+    _numBytes += Integer.BYTES + size;
+  }
+
+  public long getNumRows() {
+    return _numRows;
+  }
+
+  public long getNumBytes() {
+    return _numBytes;
+  }
+
+  /**
+   * Opens a reader over the blocks appended to the file. No more rows can be appended after this call.
+   */
+  public Reader openReader()
+      throws IOException {
+    if (_outputStream != null) {
+      _outputStream.close();
+      _outputStream = null;
+    }
+    return new Reader(new DataInputStream(new BufferedInputStream(Files.newInputStream(_file.toPath()),
+        BUFFER_SIZE)), _numBlocks);
+  }
+
+  @Override
+  public void close() {
+    if (_outputStream != null) {
+      try {
+        _outputStream.close();
+      } catch (IOException e) {
+        LOGGER.warn("Failed to close spill file: {}", _file, e);
+      }
+      _outputStream = null;
+    }
+    FileUtils.deleteQuietly(_file);
+  }
+
+  public static class Reader implements Closeable {
+    private final DataInputStream _inputStream;
+    private int _numRemainingBlocks;
+
+    private Reader(DataInputStream inputStream, int numBlocks) {
+      _inputStream = inputStream;
+      _numRemainingBlocks = numBlocks;
+    }
+
+    /**
+     * Returns the next block of rows, or {@code null} if all the blocks are read.
+     */
+    @Nullable
+    public List<Object[]> nextBlock()
+        throws IOException {
+      DataBlock dataBlock = nextDataBlock();
+      return dataBlock != null ? DataBlockExtractUtils.extractRows(dataBlock) : null;
+    }
+
+    /**
+     * Returns the next data block, or {@code null} if all the blocks are read. The custom object columns should be
+     * extracted with the aggregation functions (see {@link DataBlockExtractUtils#extractAggResult}).
+     */
+    @Nullable
+    public DataBlock nextDataBlock()
+        throws IOException {
+      if (_numRemainingBlocks == 0) {
+        return null;
+      }
+      _numRemainingBlocks--;
+      byte[] bytes = new byte[_inputStream.readInt()];
+      _inputStream.readFully(bytes);
+      return DataBlockUtils.readFrom(ByteBuffer.wrap(bytes));
+    }
+
+    @Override
+    public void close()
+        throws IOException {
+      _inputStream.close();
+    }
+  }
+}
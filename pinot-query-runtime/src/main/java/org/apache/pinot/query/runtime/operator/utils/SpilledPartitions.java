@@ -0,0 +1,165 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.runtime.operator.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.Nullable;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.core.query.aggregation.function.AggregationFunction;
+
+
+/**
+ * Rows partitioned into {@link SpillFile}s, e.g. rows of one side of a join or groups of an aggregation. Rows are
+ * buffered per partition and appended to the partition file in blocks of {@code blockSize} rows.
+ */
+public class SpilledPartitions implements Closeable {
+  private final DataSchema _dataSchema;
+  @Nullable
+  private final AggregationFunction[] _aggFunctions;
+  private final int _blockSize;
+  private final SpillFile[] _spillFiles;
+  private final List<Object[]>[] _buffers;
+  private long _numRows;
+
+  public SpilledPartitions(int numPartitions, DataSchema dataSchema, int blockSize) {
+    this(numPartitions, dataSchema, null, blockSize);
+  }
+
+  /**
+   * @param aggFunctions Aggregation functions used to serialize the custom object columns, see
+   *                     {@link SpillFile#create(DataSchema, AggregationFunction[])}
+   */
+  @SuppressWarnings("unchecked")
+  public SpilledPartitions(int numPartitions, DataSchema dataSchema, @Nullable AggregationFunction[] aggFunctions,
+      int blockSize) {
+    _dataSchema = dataSchema;
+    _aggFunctions = aggFunctions;
+    _blockSize = blockSize;
+    _spillFiles = new SpillFile[numPartitions];
+    _buffers = new List[numPartitions];
+  }
+
+  public int getNumPartitions() {
+    return _spillFiles.length;
+  }
+
+  public long getNumRows() {
+    return _numRows;
+  }
+
+  /**
+   * Returns the number of bytes in the partition files which are not released yet.
+   */
+  public long getNumBytes() {
+    long numBytes = 0;
+    for (SpillFile spillFile : _spillFiles) {
+      if (spillFile != null) {
+        numBytes += spillFile.getNumBytes();
+      }
+    }
+    return numBytes;
+  }
+
+  public void add(int partitionId, Object[] row) {
+    List<Object[]> buffer = _buffers[partitionId];
+    if (buffer == null) {
+      buffer = new ArrayList<>(_blockSize);
+      _buffers[partitionId] = buffer;
+    }
+    buffer.add(row);
+    _numRows++;
+    if (buffer.size() == _blockSize) {
+      flush(partitionId);
+    }
+  }
+
+  /**
+   * Flushes the buffered rows to the partition files. Should be called after all rows are added and before reading the
+   * partitions.
+   */
+  public void finish() {
+    for (int i = 0; i < _buffers.length; i++) {
+      flush(i);
+    }
+  }
+
+  private void flush(int partitionId) {
+    List<Object[]> buffer = _buffers[partitionId];
+    if (buffer == null || buffer.isEmpty()) {
+      return;
+    }
+    try {
+      SpillFile spillFile = _spillFiles[partitionId];
+      if (spillFile == null) {
+        spillFile = SpillFile.create(_dataSchema, _aggFunctions);
+        _spillFiles[partitionId] = spillFile;
+      }
+      spillFile.append(buffer);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to spill rows to disk", e);
+    }
+    _buffers[partitionId] = null;
+  }
+
+  /**
+   * Returns whether the partition has no row.
+   */
+  public boolean isEmpty(int partitionId) {
+    return _spillFiles[partitionId] == null;
+  }
+
+  /**
+   * Opens a reader over the rows of the partition, or returns {@code null} if the partition has no row.
+   */
+  @Nullable
+  public SpillFile.Reader openReader(int partitionId) {
+    SpillFile spillFile = _spillFiles[partitionId];
+    if (spillFile == null) {
+      return null;
+    }
+    try {
+      return spillFile.openReader();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to read spilled rows from disk", e);
+    }
+  }
+
+  /**
+   * Deletes the files of the given partition.
+   */
+  public void release(int partitionId) {
+    SpillFile spillFile = _spillFiles[partitionId];
+    if (spillFile != null) {
+      spillFile.close();
+      _spillFiles[partitionId] = null;
+    }
+  }
+
+  @Override
+  public void close() {
+    for (int i = 0; i < _spillFiles.length; i++) {
+      release(i);
+      _buffers[i] = null;
+    }
+  }
+}
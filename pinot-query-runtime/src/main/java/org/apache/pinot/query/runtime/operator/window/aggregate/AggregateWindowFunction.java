@@ -18,11 +18,13 @@
  */
 package org.apache.pinot.query.runtime.operator.window.aggregate;
 
+import com.google.common.annotations.VisibleForTesting;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import javax.annotation.Nullable;
 import org.apache.calcite.rel.RelFieldCollation;
 import org.apache.pinot.common.utils.DataSchema;
 import org.apache.pinot.core.data.table.Key;
@@ -35,17 +37,36 @@ import org.apache.pinot.query.runtime.operator.window.WindowFunction;
 public class AggregateWindowFunction extends WindowFunction {
   private final WindowValueAggregator<Object> _windowValueAggregator;
   private final String _functionName;
+  // Aggregator on primitive values, null when the function or the data type is not supported, or the aggregated value
+  // is a literal
+  @Nullable
+  private final PrimitiveWindowAggregator _primitiveWindowAggregator;
 
   public AggregateWindowFunction(RexExpression.FunctionCall aggCall, DataSchema inputSchema,
       List<RelFieldCollation> collations, WindowFrame windowFrame) {
+    this(aggCall, inputSchema, collations, windowFrame, true);
+  }
+
+  /**
+   * @param enablePrimitiveAggregation Whether to aggregate on primitive values when the function and the data type are
+   *                                   supported by {@link PrimitiveWindowAggregator}
+   */
+  @VisibleForTesting
+  public AggregateWindowFunction(RexExpression.FunctionCall aggCall, DataSchema inputSchema,
+      List<RelFieldCollation> collations, WindowFrame windowFrame, boolean enablePrimitiveAggregation) {
     super(aggCall, inputSchema, collations, windowFrame);
     _functionName = aggCall.getFunctionName();
     _windowValueAggregator = WindowValueAggregatorFactory.getWindowValueAggregator(_functionName, _dataType,
         windowFrame.isRowType() && !(_windowFrame.isUnboundedPreceding() && _windowFrame.isUnboundedFollowing()));
+    _primitiveWindowAggregator = enablePrimitiveAggregation && _inputRef >= 0
+        ? PrimitiveWindowAggregator.getPrimitiveWindowAggregator(_functionName, _dataType) : null;
   }
 
   @Override
   public final List<Object> processRows(List<Object[]> rows) {
+    if (_primitiveWindowAggregator != null) {
+      return _primitiveWindowAggregator.processRows(rows, _inputRef, _orderKeys, _windowFrame);
+    }
     _windowValueAggregator.clear();
     if (_windowFrame.isRowType()) {
       return processRowsWindow(rows);
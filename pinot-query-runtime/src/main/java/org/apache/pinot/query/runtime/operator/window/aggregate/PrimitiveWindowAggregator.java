@@ -0,0 +1,431 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.runtime.operator.window.aggregate;
+
+import it.unimi.dsi.fastutil.ints.IntArrayFIFOQueue;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.Objects;
+import javax.annotation.Nullable;
+import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
+import org.apache.pinot.query.runtime.operator.window.WindowFrame;
+
+
+/**
+ * Computes the SUM, COUNT, MIN and MAX window aggregates of a partition on primitive long (INT / LONG column) or double
+ * (FLOAT / DOUBLE column) values instead of the boxed values used by {@link WindowValueAggregator}.
+ * <p>The values of the partition are first extracted into a primitive array, then the frame of each row is computed
+ * as a range of row ids. Because both ends of the frame never move backward (for ROWS frames they move by one row, and
+ * for RANGE frames they move to the boundaries of the peer groups), all the frames are computed in a single pass with a
+ * running sum / count for SUM and COUNT, and a monotonic deque of row ids for MIN and MAX. The results are stored in a
+ * primitive array as well, and only boxed when being read.
+ * <p>NOTE: The rows of the partition must be sorted on the order keys (ensured by the sort exchange before the window
+ *          operator) so that the peer rows of RANGE frames are contiguous.
+ */
+public class PrimitiveWindowAggregator {
+  private enum AggregationType {
+    SUM, COUNT, MIN, MAX
+  }
+
+  private final AggregationType _aggregationType;
+  private final boolean _longValue;
+
+  private PrimitiveWindowAggregator(AggregationType aggregationType, boolean longValue) {
+    _aggregationType = aggregationType;
+    _longValue = longValue;
+  }
+
+  /**
+   * Returns the primitive window aggregator for the given window function name and column data type, or {@code null}
+   * if the function or the data type is not supported.
+   */
+  @Nullable
+  public static PrimitiveWindowAggregator getPrimitiveWindowAggregator(String functionName,
+      ColumnDataType columnDataType) {
+    AggregationType aggregationType;
+    switch (functionName) {
+      // NOTE: Keep both 'SUM0' and '$SUM0' for backward compatibility where 'SUM0' is SqlKind and '$SUM0' is function
+      // name.
+      case "SUM":
+      case "SUM0":
+      case "$SUM0":
+        aggregationType = AggregationType.SUM;
+        break;
+      case "COUNT":
+        // COUNT only checks whether the value is null
+        return new PrimitiveWindowAggregator(AggregationType.COUNT, true);
+      case "MIN":
+        aggregationType = AggregationType.MIN;
+        break;
+      case "MAX":
+        aggregationType = AggregationType.MAX;
+        break;
+      default:
+        return null;
+    }
+    switch (columnDataType) {
+      case INT:
+      case LONG:
+        return new PrimitiveWindowAggregator(aggregationType, true);
+      case FLOAT:
+      case DOUBLE:
+        return new PrimitiveWindowAggregator(aggregationType, false);
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * Processes the rows of a partition, and returns the aggregated value of the window frame for each row.
+   *
+   * @param rows Rows of the partition, sorted on the order keys
+   * @param inputRef Index of the aggregated column
+   * @param orderKeys Indexes of the order keys, used to find the peer rows of RANGE frames
+   * @param windowFrame Window frame
+   */
+  public List<Object> processRows(List<Object[]> rows, int inputRef, int[] orderKeys, WindowFrame windowFrame) {
+    int numRows = rows.size();
+    int[] frameStarts = new int[numRows];
+    int[] frameEnds = new int[numRows];
+    if (windowFrame.isRowType()) {
+      computeRowsFrames(numRows, windowFrame, frameStarts, frameEnds);
+    } else {
+      computeRangeFrames(rows, orderKeys, windowFrame, frameStarts, frameEnds);
+    }
+
+    boolean[] nulls = new boolean[numRows];
+    long[] longValues = null;
+    double[] doubleValues = null;
+    if (_aggregationType == AggregationType.COUNT) {
+      for (int i = 0; i < numRows; i++) {
+        nulls[i] = rows.get(i)[inputRef] == null;
+      }
+    } else if (_longValue) {
+      longValues = new long[numRows];
+      for (int i = 0; i < numRows; i++) {
+        Object value = rows.get(i)[inputRef];
+        if (value != null) {
+          longValues[i] = ((Number) value).longValue();
+        } else {
+          nulls[i] = true;
+        }
+      }
+    } else {
+      doubleValues = new double[numRows];
+      for (int i = 0; i < numRows; i++) {
+        Object value = rows.get(i)[inputRef];
+        if (value != null) {
+          doubleValues[i] = ((Number) value).doubleValue();
+        } else {
+          nulls[i] = true;
+        }
+      }
+    }
+
+    switch (_aggregationType) {
+      case SUM:
+        return _longValue ? sumLong(longValues, nulls, frameStarts, frameEnds)
+            : sumDouble(doubleValues, nulls, frameStarts, frameEnds);
+      case COUNT:
+        return count(nulls, frameStarts, frameEnds);
+      case MIN:
+      case MAX:
+        return _longValue ? minMaxLong(longValues, nulls, frameStarts, frameEnds)
+            : minMaxDouble(doubleValues, nulls, frameStarts, frameEnds);
+      default:
+        throw new IllegalStateException("Unsupported aggregation type: " + _aggregationType);
+    }
+  }
+
+  /**
+   * Computes the ROWS frame [start, end] of each row. The start can be larger than the end when the frame is empty, and
+   * can be larger than the last row id when the frame is out of the partition, in which case the result is null.
+   */
+  private static void computeRowsFrames(int numRows, WindowFrame windowFrame, int[] frameStarts, int[] frameEnds) {
+    boolean unboundedPreceding = windowFrame.isUnboundedPreceding();
+    boolean unboundedFollowing = windowFrame.isUnboundedFollowing();
+    long lowerBound = windowFrame.getLowerBound();
+    long upperBound = windowFrame.getUpperBound();
+    for (int i = 0; i < numRows; i++) {
+      frameStarts[i] = unboundedPreceding ? 0 : (int) Math.min(Math.max(i + lowerBound, 0), numRows);
+      frameEnds[i] = unboundedFollowing ? numRows - 1 : (int) Math.max(Math.min(i + upperBound, numRows - 1), -1);
+    }
+  }
+
+  /**
+   * Computes the RANGE frame [start, end] of each row. Only UNBOUNDED and CURRENT ROW bounds are supported for RANGE
+   * frames, where CURRENT ROW includes all the peer rows (rows with the same order keys).
+   */
+  private static void computeRangeFrames(List<Object[]> rows, int[] orderKeys, WindowFrame windowFrame,
+      int[] frameStarts, int[] frameEnds) {
+    int numRows = rows.size();
+    boolean unboundedPreceding = windowFrame.isUnboundedPreceding();
+    boolean unboundedFollowing = windowFrame.isUnboundedFollowing();
+    int peerStart = 0;
+    while (peerStart < numRows) {
+      int peerEnd = peerStart;
+      Object[] firstRow = rows.get(peerStart);
+      while (peerEnd + 1 < numRows && isPeer(firstRow, rows.get(peerEnd + 1), orderKeys)) {
+        peerEnd++;
+      }
+      for (int i = peerStart; i <= peerEnd; i++) {
+        frameStarts[i] = unboundedPreceding ? 0 : peerStart;
+        frameEnds[i] = unboundedFollowing ? numRows - 1 : peerEnd;
+      }
+      peerStart = peerEnd + 1;
+    }
+  }
+
+  private static boolean isPeer(Object[] row1, Object[] row2, int[] orderKeys) {
+    for (int orderKey : orderKeys) {
+      if (!Objects.equals(row1[orderKey], row2[orderKey])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static List<Object> sumLong(long[] values, boolean[] nulls, int[] frameStarts, int[] frameEnds) {
+    int numRows = values.length;
+    long[] results = new long[numRows];
+    boolean[] resultNulls = new boolean[numRows];
+    long sum = 0;
+    int count = 0;
+    // Rows within [lo, hi) are added to the running sum
+    int lo = 0;
+    int hi = 0;
+    for (int i = 0; i < numRows; i++) {
+      int start = frameStarts[i];
+      int end = frameEnds[i];
+      while (lo < start) {
+        if (lo < hi && !nulls[lo]) {
+          sum -= values[lo];
+          count--;
+        }
+        lo++;
+      }
+      hi = Math.max(hi, lo);
+      while (hi <= end) {
+        if (!nulls[hi]) {
+          sum += values[hi];
+          count++;
+        }
+        hi++;
+      }
+      if (count == 0) {
+        resultNulls[i] = true;
+      } else {
+        results[i] = sum;
+      }
+    }
+    return new LongResultList(results, resultNulls);
+  }
+
+  private static List<Object> sumDouble(double[] values, boolean[] nulls, int[] frameStarts, int[] frameEnds) {
+    int numRows = values.length;
+    double[] results = new double[numRows];
+    boolean[] resultNulls = new boolean[numRows];
+    double sum = 0;
+    int count = 0;
+    // Rows within [lo, hi) are added to the running sum
+    int lo = 0;
+    int hi = 0;
+    for (int i = 0; i < numRows; i++) {
+      int start = frameStarts[i];
+      int end = frameEnds[i];
+      while (lo < start) {
+        if (lo < hi && !nulls[lo]) {
+          sum -= values[lo];
+          count--;
+        }
+        lo++;
+      }
+      hi = Math.max(hi, lo);
+      while (hi <= end) {
+        if (!nulls[hi]) {
+          sum += values[hi];
+          count++;
+        }
+        hi++;
+      }
+      if (count == 0) {
+        resultNulls[i] = true;
+      } else {
+        results[i] = sum;
+      }
+    }
+    return new DoubleResultList(results, resultNulls);
+  }
+
+  private static List<Object> count(boolean[] nulls, int[] frameStarts, int[] frameEnds) {
+    int numRows = nulls.length;
+    long[] results = new long[numRows];
+    boolean[] resultNulls = new boolean[numRows];
+    long count = 0;
+    // Rows within [lo, hi) are counted
+    int lo = 0;
+    int hi = 0;
+    for (int i = 0; i < numRows; i++) {
+      int start = frameStarts[i];
+      int end = frameEnds[i];
+      while (lo < start) {
+        if (lo < hi && !nulls[lo]) {
+          count--;
+        }
+        lo++;
+      }
+      hi = Math.max(hi, lo);
+      while (hi <= end) {
+        if (!nulls[hi]) {
+          count++;
+        }
+        hi++;
+      }
+      // Keep the behavior of the boxed aggregator where the frame out of the partition returns null
+      if (start >= numRows) {
+        resultNulls[i] = true;
+      } else {
+        results[i] = count;
+      }
+    }
+    return new LongResultList(results, resultNulls);
+  }
+
+  private List<Object> minMaxLong(long[] values, boolean[] nulls, int[] frameStarts, int[] frameEnds) {
+    boolean isMin = _aggregationType == AggregationType.MIN;
+    int numRows = values.length;
+    long[] results = new long[numRows];
+    boolean[] resultNulls = new boolean[numRows];
+    // Row ids within the frame whose values are monotonic (increasing for MIN, decreasing for MAX), where the first one
+    // holds the result
+    IntArrayFIFOQueue deque = new IntArrayFIFOQueue();
+    int lo = 0;
+    int hi = 0;
+    for (int i = 0; i < numRows; i++) {
+      int start = frameStarts[i];
+      int end = frameEnds[i];
+      lo = Math.max(lo, start);
+      while (!deque.isEmpty() && deque.firstInt() < lo) {
+        deque.dequeueInt();
+      }
+      hi = Math.max(hi, lo);
+      while (hi <= end) {
+        if (!nulls[hi]) {
+          long value = values[hi];
+          while (!deque.isEmpty() && (isMin ? values[deque.lastInt()] >= value : values[deque.lastInt()] <= value)) {
+            deque.dequeueLastInt();
+          }
+          deque.enqueue(hi);
+        }
+        hi++;
+      }
+      if (deque.isEmpty()) {
+        resultNulls[i] = true;
+      } else {
+        results[i] = values[deque.firstInt()];
+      }
+    }
+    return new LongResultList(results, resultNulls);
+  }
+
+  private List<Object> minMaxDouble(double[] values, boolean[] nulls, int[] frameStarts, int[] frameEnds) {
+    boolean isMin = _aggregationType == AggregationType.MIN;
+    int numRows = values.length;
+    double[] results = new double[numRows];
+    boolean[] resultNulls = new boolean[numRows];
+    // Row ids within the frame whose values are monotonic (increasing for MIN, decreasing for MAX), where the first one
+    // holds the result
+    IntArrayFIFOQueue deque = new IntArrayFIFOQueue();
+    int lo = 0;
+    int hi = 0;
+    for (int i = 0; i < numRows; i++) {
+      int start = frameStarts[i];
+      int end = frameEnds[i];
+      lo = Math.max(lo, start);
+      while (!deque.isEmpty() && deque.firstInt() < lo) {
+        deque.dequeueInt();
+      }
+      hi = Math.max(hi, lo);
+      while (hi <= end) {
+        if (!nulls[hi]) {
+          double value = values[hi];
+          while (!deque.isEmpty() && (isMin ? values[deque.lastInt()] >= value : values[deque.lastInt()] <= value)) {
+            deque.dequeueLastInt();
+          }
+          deque.enqueue(hi);
+        }
+        hi++;
+      }
+      if (deque.isEmpty()) {
+        resultNulls[i] = true;
+      } else {
+        results[i] = values[deque.firstInt()];
+      }
+    }
+    return new DoubleResultList(results, resultNulls);
+  }
+
+  /**
+   * Read-only list view of the long results, where the values are boxed when being read.
+   */
+  private static class LongResultList extends AbstractList<Object> {
+    private final long[] _values;
+    private final boolean[] _nulls;
+
+    LongResultList(long[] values, boolean[] nulls) {
+      _values = values;
+      _nulls = nulls;
+    }
+
+    @Nullable
+    @Override
+    public Object get(int index) {
+      return _nulls[index] ? null : _values[index];
+    }
+
+    @Override
+    public int size() {
+      return _values.length;
+    }
+  }
+
+  /**
+   * Read-only list view of the double results, where the values are boxed when being read.
+   */
+  private static class DoubleResultList extends AbstractList<Object> {
+    private final double[] _values;
+    private final boolean[] _nulls;
+
+    DoubleResultList(double[] values, boolean[] nulls) {
+      _values = values;
+      _nulls = nulls;
+    }
+
+    @Nullable
+    @Override
+    public Object get(int index) {
+      return _nulls[index] ? null : _values[index];
+    }
+
+    @Override
+    public int size() {
+      return _values.length;
+    }
+  }
+}
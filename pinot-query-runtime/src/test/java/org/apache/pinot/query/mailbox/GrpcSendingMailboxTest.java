@@ -19,6 +19,7 @@
 package org.apache.pinot.query.mailbox;
 
 import com.google.protobuf.ByteString;
+import io.grpc.stub.StreamObserver;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
@@ -30,14 +31,22 @@ import java.util.stream.Collectors;
 import org.apache.pinot.common.datablock.DataBlock;
 import org.apache.pinot.common.datablock.DataBlockEquals;
 import org.apache.pinot.common.datablock.DataBlockUtils;
+import org.apache.pinot.common.datatable.StatMap;
 import org.apache.pinot.common.utils.DataSchema;
 import org.apache.pinot.core.common.datablock.DataBlockBuilder;
+import org.apache.pinot.query.mailbox.channel.ChannelManager;
+import org.apache.pinot.query.mailbox.channel.MailboxContentObserver;
+import org.apache.pinot.query.runtime.operator.MailboxSendOperator;
+import org.apache.pinot.segment.local.io.compression.ChunkCompressorFactory;
+import org.apache.pinot.segment.spi.compression.ChunkCompressionType;
 import org.apache.pinot.segment.spi.memory.CompoundDataBuffer;
 import org.apache.pinot.segment.spi.memory.DataBuffer;
 import org.apache.pinot.segment.spi.memory.PinotByteBuffer;
+import org.apache.pinot.spi.env.PinotConfiguration;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import static org.mockito.Mockito.mock;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertTrue;
 
@@ -108,6 +117,40 @@ public class GrpcSendingMailboxTest {
     assertEquals(split1, split2);
   }
 
+  @Test(dataProvider = "compressionTypes")
+  public void testCompressDataBlock(ChunkCompressionType compressionType)
+      throws IOException {
+    GrpcSendingMailbox sendingMailbox =
+        new GrpcSendingMailbox(new PinotConfiguration(), "testMailbox", mock(ChannelManager.class), "localhost", 0,
+            Long.MAX_VALUE, new StatMap<>(MailboxSendOperator.StatKey.class), 0, compressionType, false);
+    MailboxContentObserver contentObserver =
+        new MailboxContentObserver(mock(MailboxService.class), null, mock(StreamObserver.class));
+    ChunkCompressionType sentCompressionType =
+        ChunkCompressorFactory.getCompressor(compressionType, true).compressionType();
+
+    // The compression buffers are reused across the blocks, so send a large block before the small ones, and check the
+    // blocks after all of them are sent
+    List<DataBlock> dataBlocks = List.of(buildTestDataBlock(1000), buildTestDataBlock(10), buildTestDataBlock(1));
+    List<DataBlock> actualDataBlocks = new ArrayList<>();
+    for (DataBlock dataBlock : dataBlocks) {
+      List<ByteBuffer> bytes = dataBlock.serialize();
+      int sizeInBytes = bytes.stream().mapToInt(ByteBuffer::remaining).sum();
+      ByteBuffer compressed = sendingMailbox.compress(bytes, sizeInBytes);
+      ByteBuffer decompressed =
+          contentObserver.decompress(List.of(compressed), compressed.remaining(), sentCompressionType);
+      actualDataBlocks.add(DataBlockUtils.deserialize(List.of(decompressed)));
+    }
+    for (int i = 0; i < dataBlocks.size(); i++) {
+      DataBlockEquals.checkSameContent(dataBlocks.get(i), actualDataBlocks.get(i),
+          "Decompressed data block (" + compressionType + ") does not match.");
+    }
+  }
+
+  @DataProvider(name = "compressionTypes")
+  public Object[][] compressionTypes() {
+    return new Object[][]{{ChunkCompressionType.LZ4}, {ChunkCompressionType.ZSTANDARD}};
+  }
+
   @DataProvider(name = "byteBuffersDataProvider")
   public Object[][] byteBuffersDataProvider() {
     // byteBufferSizes / maxByteStringSize
@@ -136,7 +179,11 @@ public class GrpcSendingMailboxTest {
 
   private static DataBlock buildTestDataBlock()
       throws IOException {
-    int numRows = 1;
+    return buildTestDataBlock(1);
+  }
+
+  private static DataBlock buildTestDataBlock(int numRows)
+      throws IOException {
     DataSchema dataSchema = new DataSchema(
         new String[]{
             "valueInt"
@@ -19,10 +19,13 @@
 package org.apache.pinot.query.mailbox;
 
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicInteger;
 import javax.annotation.Nullable;
+import org.apache.pinot.common.datablock.DataBlock;
 import org.apache.pinot.common.datatable.StatMap;
 import org.apache.pinot.common.utils.DataSchema;
 import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
@@ -41,6 +44,7 @@ import org.apache.pinot.util.TestUtils;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.BeforeTest;
+import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
 import static org.testng.Assert.*;
@@ -674,6 +678,98 @@ public class MailboxServiceTest {
     TestUtils.waitForCondition(aVoid -> sendingMailbox.isEarlyTerminated(), 1000L, "Failed to early-terminate sender");
   }
 
+  @Test(dataProvider = "compressionTypes")
+  public void testRemoteBatchedAndCompressedWithCredits(String compression)
+      throws Exception {
+    int numBlocks = 250;
+    int batchRows = 100;
+    // Make the values compressible
+    String padding = "x".repeat(50);
+    Map<String, Object> properties = new HashMap<>();
+    properties.put(CommonConstants.MultiStageQueryRunner.KEY_OF_MAILBOX_SEND_BATCH_ROWS, batchRows);
+    // Only allow a single message in flight
+    properties.put(CommonConstants.MultiStageQueryRunner.KEY_OF_MAILBOX_SEND_CREDIT_BYTES, 1);
+    MailboxService mailboxService =
+        new MailboxService("localhost", QueryTestUtils.getAvailablePort(), new PinotConfiguration(properties));
+    mailboxService.start();
+    try {
+      String mailboxId = MailboxIdUtils.toMailboxId(_requestId++, SENDER_STAGE_ID, 0, RECEIVER_STAGE_ID, 0);
+      StatMap<MailboxSendOperator.StatKey> stats = new StatMap<>(MailboxSendOperator.StatKey.class);
+      SendingMailbox sendingMailbox =
+          mailboxService.getSendingMailbox("localhost", _mailboxService1.getPort(), mailboxId, Long.MAX_VALUE, stats,
+              Map.of(CommonConstants.Broker.Request.QueryOptionKey.MAILBOX_COMPRESSION, compression));
+      for (int i = 0; i < numBlocks; i++) {
+        sendingMailbox.send(OperatorTestUtil.block(DATA_SCHEMA, new Object[]{"value_" + i + "_" + padding}));
+      }
+      sendingMailbox.send(SuccessMseBlock.INSTANCE, MultiStageQueryStats.emptyStats(SENDER_STAGE_ID).serialize());
+      sendingMailbox.complete();
+
+      // Blocks are coalesced into 3 messages
+      ReceivingMailbox receivingMailbox = _mailboxService1.getReceivingMailbox(mailboxId);
+      receivingMailbox.registeredReader(() -> {
+      });
+      TestUtils.waitForCondition(aVoid -> receivingMailbox.getNumPendingBlocks() == 4, 1000L,
+          "Failed to deliver mails");
+      int rowId = 0;
+      for (int i = 0; i < 3; i++) {
+        List<Object[]> rows = getRows(receivingMailbox);
+        assertEquals(rows.size(), Math.min(batchRows, numBlocks - rowId));
+        for (Object[] row : rows) {
+          assertEquals(row, new Object[]{"value_" + rowId++ + "_" + padding});
+        }
+      }
+      MseBlock block = readBlock(receivingMailbox);
+      assertNotNull(block);
+      assertTrue(block.isSuccess());
+      assertNull(receivingMailbox.poll());
+
+      assertEquals(stats.getInt(MailboxSendOperator.StatKey.RAW_MESSAGES), 4);
+      assertEquals(stats.getInt(MailboxSendOperator.StatKey.BATCHED_MESSAGES), numBlocks);
+      assertTrue(stats.getLong(MailboxSendOperator.StatKey.SENT_BYTES)
+          < stats.getLong(MailboxSendOperator.StatKey.SERIALIZED_BYTES));
+    } finally {
+      mailboxService.shutdown();
+    }
+  }
+
+  @Test
+  public void testRemoteColumnarDataBlock()
+      throws Exception {
+    String mailboxId = MailboxIdUtils.toMailboxId(_requestId++, SENDER_STAGE_ID, 0, RECEIVER_STAGE_ID, 0);
+    SendingMailbox sendingMailbox =
+        _mailboxService2.getSendingMailbox("localhost", _mailboxService1.getPort(), mailboxId, Long.MAX_VALUE, _stats,
+            Map.of(CommonConstants.Broker.Request.QueryOptionKey.USE_COLUMNAR_DATA_BLOCK, "true"));
+    sendingMailbox.send(OperatorTestUtil.block(DATA_SCHEMA, new Object[]{"0"}, new Object[]{null},
+        new Object[]{"2"}));
+    sendingMailbox.send(SuccessMseBlock.INSTANCE, MultiStageQueryStats.emptyStats(SENDER_STAGE_ID).serialize());
+    sendingMailbox.complete();
+
+    ReceivingMailbox receivingMailbox = _mailboxService1.getReceivingMailbox(mailboxId);
+    receivingMailbox.registeredReader(() -> {
+    });
+    TestUtils.waitForCondition(aVoid -> receivingMailbox.getNumPendingBlocks() == 2, 1000L,
+        "Failed to deliver mails");
+    MseBlock block = readBlock(receivingMailbox);
+    assertNotNull(block);
+    assertTrue(block.isData());
+    MseBlock.Data dataBlock = (MseBlock.Data) block;
+    assertTrue(dataBlock.isSerialized());
+    assertEquals(dataBlock.asSerialized().getDataBlock().getDataBlockType(), DataBlock.Type.COLUMNAR);
+    List<Object[]> rows = dataBlock.asRowHeap().getRows();
+    assertEquals(rows.size(), 3);
+    assertEquals(rows.get(0), new Object[]{"0"});
+    assertEquals(rows.get(1), new Object[]{null});
+    assertEquals(rows.get(2), new Object[]{"2"});
+    block = readBlock(receivingMailbox);
+    assertNotNull(block);
+    assertTrue(block.isSuccess());
+  }
+
+  @DataProvider(name = "compressionTypes")
+  public Object[][] compressionTypes() {
+    return new Object[][]{{"LZ4"}, {"ZSTANDARD"}};
+  }
+
   private static List<Object[]> getRows(ReceivingMailbox receivingMailbox) {
     ReceivingMailbox.MseBlockWithStats block = receivingMailbox.poll();
     assertNotNull(block);
@@ -19,23 +19,32 @@
 package org.apache.pinot.query.runtime.executor;
 
 import com.google.common.collect.ImmutableList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import org.apache.pinot.common.utils.DataSchema;
 import org.apache.pinot.common.utils.NamedThreadFactory;
 import org.apache.pinot.query.mailbox.MailboxService;
 import org.apache.pinot.query.routing.StageMetadata;
 import org.apache.pinot.query.routing.WorkerMetadata;
 import org.apache.pinot.query.runtime.blocks.ErrorMseBlock;
+import org.apache.pinot.query.runtime.blocks.RowHeapDataBlock;
 import org.apache.pinot.query.runtime.blocks.SuccessMseBlock;
+import org.apache.pinot.query.runtime.operator.BaseMailboxReceiveOperator;
 import org.apache.pinot.query.runtime.operator.MultiStageOperator;
 import org.apache.pinot.query.runtime.operator.OpChain;
 import org.apache.pinot.query.runtime.plan.MultiStageQueryStats;
 import org.apache.pinot.query.runtime.plan.OpChainExecutionContext;
+import org.apache.pinot.spi.env.PinotConfiguration;
 import org.apache.pinot.spi.exception.QueryCancelledException;
 import org.apache.pinot.spi.executor.ExecutorServiceUtils;
+import org.apache.pinot.spi.utils.CommonConstants.MultiStageQueryRunner;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
 import org.testng.annotations.AfterClass;
@@ -43,9 +52,11 @@ import org.testng.annotations.BeforeClass;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import static org.mockito.Mockito.after;
 import static org.mockito.Mockito.clearInvocations;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
 
@@ -282,4 +293,137 @@ public class OpChainSchedulerServiceTest {
       assertTrue(e.getMessage().contains("Query has been cancelled before op-chain"));
     }
   }
+
+  @Test
+  public void shouldParkCooperativeOpChainUntilNewDataArrives()
+      throws InterruptedException {
+    BaseMailboxReceiveOperator receiveOperator = Mockito.mock(BaseMailboxReceiveOperator.class);
+    OpChain opChain = getChain(receiveOperator);
+    OpChainSchedulerService schedulerService = getCooperativeSchedulerService();
+
+    AtomicBoolean readyToRead = new AtomicBoolean(true);
+    AtomicReference<Runnable> listener = new AtomicReference<>();
+    Mockito.when(receiveOperator.isReadyToRead()).thenAnswer(inv -> readyToRead.get());
+    Mockito.doAnswer(inv -> {
+      listener.set(inv.getArgument(0));
+      return null;
+    }).when(receiveOperator).setOnNewDataListener(Mockito.any());
+    // The first block consumes all the pending data, so the op chain should park after it
+    Mockito.when(receiveOperator.nextBlock()).thenAnswer(inv -> {
+      readyToRead.set(false);
+      return new RowHeapDataBlock(Collections.emptyList(), DataSchema.EXPLAIN_RESULT_SCHEMA);
+    }).thenReturn(SuccessMseBlock.INSTANCE);
+    CountDownLatch closeLatch = new CountDownLatch(1);
+    Mockito.doAnswer(inv -> {
+      closeLatch.countDown();
+      return null;
+    }).when(receiveOperator).close();
+
+    schedulerService.register(opChain);
+
+    Mockito.verify(receiveOperator, after(500).times(1)).nextBlock();
+    assertNotNull(listener.get());
+
+    // New data arrives
+    readyToRead.set(true);
+    listener.get().run();
+
+    assertTrue(closeLatch.await(10, TimeUnit.SECONDS), "expected OpChain to be resumed and closed");
+    Mockito.verify(receiveOperator, Mockito.times(2)).nextBlock();
+    Mockito.verify(receiveOperator, Mockito.never()).cancel(Mockito.any());
+  }
+
+  @Test
+  public void shouldParkCooperativeJoinOpChainUntilBuildSideArrives()
+      throws InterruptedException {
+    BaseMailboxReceiveOperator leftReceiveOperator = Mockito.mock(BaseMailboxReceiveOperator.class);
+    BaseMailboxReceiveOperator rightReceiveOperator = Mockito.mock(BaseMailboxReceiveOperator.class);
+    OpChain opChain = getChain(_operatorA);
+    OpChainSchedulerService schedulerService = getCooperativeSchedulerService();
+
+    // The join reads the right (build) input until its right table is built, then the left input
+    AtomicBoolean rightTableBuilt = new AtomicBoolean(false);
+    Mockito.when(_operatorA.getChildOperators()).thenReturn(List.of(leftReceiveOperator, rightReceiveOperator));
+    Mockito.when(_operatorA.getNextInputOperators()).thenAnswer(
+        inv -> List.of(rightTableBuilt.get() ? leftReceiveOperator : rightReceiveOperator));
+    Mockito.when(_operatorA.nextBlock()).thenAnswer(inv -> {
+      rightTableBuilt.set(true);
+      return new RowHeapDataBlock(Collections.emptyList(), DataSchema.EXPLAIN_RESULT_SCHEMA);
+    }).thenReturn(SuccessMseBlock.INSTANCE);
+    CountDownLatch closeLatch = new CountDownLatch(1);
+    Mockito.doAnswer(inv -> {
+      closeLatch.countDown();
+      return null;
+    }).when(_operatorA).close();
+
+    // Only the left (probe) input has data
+    AtomicBoolean rightReadyToRead = new AtomicBoolean(false);
+    AtomicReference<Runnable> rightListener = new AtomicReference<>();
+    Mockito.when(leftReceiveOperator.isReadyToRead()).thenReturn(true);
+    Mockito.when(rightReceiveOperator.isReadyToRead()).thenAnswer(inv -> rightReadyToRead.get());
+    Mockito.doAnswer(inv -> {
+      rightListener.set(inv.getArgument(0));
+      return null;
+    }).when(rightReceiveOperator).setOnNewDataListener(Mockito.any());
+
+    schedulerService.register(opChain);
+
+    Mockito.verify(_operatorA, after(500).never()).nextBlock();
+    assertNotNull(rightListener.get());
+
+    // The build side arrives
+    rightReadyToRead.set(true);
+    rightListener.get().run();
+
+    assertTrue(closeLatch.await(10, TimeUnit.SECONDS), "expected OpChain to be resumed and closed");
+    Mockito.verify(_operatorA, Mockito.times(2)).nextBlock();
+    Mockito.verify(_operatorA, Mockito.never()).cancel(Mockito.any());
+  }
+
+  @Test
+  public void shouldCallCancelOnParkedCooperativeOpChainsWhenItIsCancelledByDispatch()
+      throws InterruptedException {
+    BaseMailboxReceiveOperator receiveOperator = Mockito.mock(BaseMailboxReceiveOperator.class);
+    OpChain opChain = getChain(receiveOperator);
+    OpChainSchedulerService schedulerService = getCooperativeSchedulerService();
+
+    Mockito.when(receiveOperator.isReadyToRead()).thenReturn(false);
+    Mockito.doAnswer(inv -> MultiStageQueryStats.emptyStats(1)).when(receiveOperator).calculateStats();
+    CountDownLatch cancelLatch = new CountDownLatch(1);
+    Mockito.doAnswer(inv -> {
+      cancelLatch.countDown();
+      return null;
+    }).when(receiveOperator).cancel(Mockito.any());
+
+    schedulerService.register(opChain);
+    schedulerService.cancel(123L);
+
+    assertTrue(cancelLatch.await(10, TimeUnit.SECONDS), "expected OpChain to be cancelled");
+    Mockito.verify(receiveOperator, Mockito.times(1)).cancel(Mockito.any());
+    Mockito.verify(receiveOperator, Mockito.never()).nextBlock();
+  }
+
+  @Test
+  public void shouldNotParkCooperativeOpChainsWithoutReceiveOperators()
+      throws InterruptedException {
+    OpChain opChain = getChain(_operatorA);
+    OpChainSchedulerService schedulerService = getCooperativeSchedulerService();
+
+    CountDownLatch closeLatch = new CountDownLatch(1);
+    Mockito.when(_operatorA.getChildOperators()).thenReturn(Collections.emptyList());
+    Mockito.when(_operatorA.nextBlock()).thenReturn(SuccessMseBlock.INSTANCE);
+    Mockito.doAnswer(inv -> {
+      closeLatch.countDown();
+      return null;
+    }).when(_operatorA).close();
+
+    schedulerService.register(opChain);
+
+    assertTrue(closeLatch.await(10, TimeUnit.SECONDS), "expected OpChain to be closed");
+  }
+
+  private OpChainSchedulerService getCooperativeSchedulerService() {
+    return new OpChainSchedulerService(_executor,
+        new PinotConfiguration(Map.of(MultiStageQueryRunner.KEY_OF_OP_CHAIN_COOPERATIVE_SCHEDULING, true)));
+  }
 }
@@ -18,6 +18,7 @@
  */
 package org.apache.pinot.query.runtime.operator;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -55,6 +56,7 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.openMocks;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
 
 
@@ -286,6 +288,97 @@ public class AggregateOperatorTest {
         "num groups warning limit should be reached");
   }
 
+  @Test
+  public void shouldSpillGroupsOnGroupLimitExceed() {
+    // Given:
+    List<RexExpression.FunctionCall> aggCalls = List.of(getSum(new RexExpression.InputRef(1)),
+        new RexExpression.FunctionCall(ColumnDataType.INT, "DISTINCTCOUNT", List.of(new RexExpression.InputRef(1))));
+    List<Integer> filterArgs = List.of(-1, -1);
+    List<Integer> groupKeys = List.of(0);
+    PlanNode.NodeHint nodeHint = new PlanNode.NodeHint(Map.of(PinotHintOptions.AGGREGATE_HINT_OPTIONS,
+        Map.of(PinotHintOptions.AggregateOptions.NUM_GROUPS_LIMIT, "2",
+            PinotHintOptions.AggregateOptions.SPILL_ON_NUM_GROUPS_LIMIT, "true")));
+    DataSchema inSchema = new DataSchema(new String[]{"group", "arg"}, new ColumnDataType[]{INT, DOUBLE});
+
+    // Each group is spread across the blocks, and each block reaches the num groups limit
+    BlockListMultiStageOperator.Builder builder = new BlockListMultiStageOperator.Builder(inSchema).spied();
+    int numGroups = 10;
+    for (int i = 0; i < 5; i++) {
+      for (int group = 0; group < numGroups; group++) {
+        builder.addRow(group, (double) i);
+      }
+      builder.finishBlock();
+    }
+    _input = builder.buildWithEos();
+    DataSchema resultSchema =
+        new DataSchema(new String[]{"group", "sum", "distinctCount"}, new ColumnDataType[]{INT, DOUBLE, INT});
+    AggregateOperator operator = getOperator(resultSchema, aggCalls, filterArgs, groupKeys, nodeHint, Map.of());
+
+    // When:
+    List<Object[]> rows = new ArrayList<>();
+    MseBlock block = operator.nextBlock();
+    while (block.isData()) {
+      rows.addAll(((MseBlock.Data) block).asRowHeap().getRows());
+      block = operator.nextBlock();
+    }
+
+    // Then:
+    assertTrue(block.isSuccess(), "expected success EOS block after the spilled partitions");
+    assertEquals(rows.size(), numGroups, "all the groups should be returned");
+    rows.sort((r1, r2) -> Integer.compare((int) r1[0], (int) r2[0]));
+    for (int group = 0; group < numGroups; group++) {
+      assertEquals(rows.get(group), new Object[]{group, 10.0, 5});
+    }
+    verify(_input, times(0)).earlyTerminate();
+
+    MultiStageQueryStats stats = operator.calculateStats();
+    StatMap<AggregateOperator.StatKey> statMap = OperatorTestUtil.getStatMap(AggregateOperator.StatKey.class, stats);
+    assertFalse(statMap.getBoolean(AggregateOperator.StatKey.NUM_GROUPS_LIMIT_REACHED),
+        "num groups limit should not be reached when spilling");
+    assertEquals(statMap.getLong(AggregateOperator.StatKey.NUM_ROWS_SPILLED), 5L * numGroups);
+    assertTrue(statMap.getLong(AggregateOperator.StatKey.NUM_BYTES_SPILLED) > 0, "spilled bytes should be tracked");
+  }
+
+  @Test
+  public void shouldTrimSpilledGroups() {
+    // Given:
+    List<RexExpression.FunctionCall> aggCalls = List.of(getSum(new RexExpression.InputRef(1)));
+    List<Integer> filterArgs = List.of(-1);
+    List<Integer> groupKeys = List.of(0);
+    DataSchema inSchema = new DataSchema(new String[]{"group", "arg"}, new ColumnDataType[]{INT, DOUBLE});
+    BlockListMultiStageOperator.Builder builder = new BlockListMultiStageOperator.Builder(inSchema);
+    for (int i = 0; i < 3; i++) {
+      for (int group = 0; group < 20; group++) {
+        builder.addRow(group, (double) group);
+      }
+      builder.finishBlock();
+    }
+    _input = builder.buildWithEos();
+    DataSchema resultSchema = new DataSchema(new String[]{"group", "sum"}, new ColumnDataType[]{INT, DOUBLE});
+    Map<String, String> opChainMetadata = Map.of(QueryOptionKey.NUM_GROUPS_LIMIT, "5",
+        QueryOptionKey.SPILL_ON_NUM_GROUPS_LIMIT, "true", QueryOptionKey.MSE_MIN_GROUP_TRIM_SIZE, "3");
+    // Order by sum DESC limit 3, which keeps max(3 * 5, 3) groups
+    AggregateOperator operator = new AggregateOperator(OperatorTestUtil.getContext(opChainMetadata), _input,
+        new AggregateNode(-1, resultSchema, PlanNode.NodeHint.EMPTY, List.of(), aggCalls, filterArgs, groupKeys,
+            AggType.DIRECT, false, List.of(new RelFieldCollation(1, RelFieldCollation.Direction.DESCENDING)), 3));
+
+    // When:
+    MseBlock block1 = operator.nextBlock();
+    MseBlock block2 = operator.nextBlock();
+
+    // Then:
+    List<Object[]> rows = ((MseBlock.Data) block1).asRowHeap().getRows();
+    assertEquals(rows.size(), 15);
+    assertEquals(rows.get(0), new Object[]{19, 57.0});
+    assertEquals(rows.get(1), new Object[]{18, 54.0});
+    assertEquals(rows.get(2), new Object[]{17, 51.0});
+    assertTrue(block2.isEos(), "Second block is EOS (done processing)");
+
+    MultiStageQueryStats stats = operator.calculateStats();
+    StatMap<AggregateOperator.StatKey> statMap = OperatorTestUtil.getStatMap(AggregateOperator.StatKey.class, stats);
+    assertTrue(statMap.getBoolean(AggregateOperator.StatKey.GROUPS_TRIMMED), "groups should be trimmed");
+  }
+
   @Test
   public void testDefaultGroupTrimSize() {
     OpChainExecutionContext context = OperatorTestUtil.getTracingContext();
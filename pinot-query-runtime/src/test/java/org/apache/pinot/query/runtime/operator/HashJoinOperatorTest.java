@@ -18,20 +18,41 @@
  */
 package org.apache.pinot.query.runtime.operator;
 
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.apache.calcite.rel.RelDistribution;
 import org.apache.calcite.rel.core.JoinRelType;
 import org.apache.pinot.calcite.rel.hint.PinotHintOptions;
+import org.apache.pinot.calcite.rel.logical.PinotRelExchangeType;
 import org.apache.pinot.common.datatable.StatMap;
 import org.apache.pinot.common.utils.DataSchema;
 import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
 import org.apache.pinot.query.planner.logical.RexExpression;
+import org.apache.pinot.query.mailbox.MailboxService;
 import org.apache.pinot.query.planner.plannode.JoinNode;
+import org.apache.pinot.query.planner.plannode.MailboxReceiveNode;
 import org.apache.pinot.query.planner.plannode.PlanNode;
+import org.apache.pinot.query.planner.plannode.ValueNode;
+import org.apache.pinot.query.routing.StageMetadata;
 import org.apache.pinot.query.routing.VirtualServerAddress;
+import org.apache.pinot.query.routing.WorkerMetadata;
 import org.apache.pinot.query.runtime.blocks.ErrorMseBlock;
 import org.apache.pinot.query.runtime.blocks.MseBlock;
+import org.apache.pinot.query.runtime.blocks.RowHeapDataBlock;
+import org.apache.pinot.query.runtime.operator.join.IntLookupTable;
+import org.apache.pinot.query.runtime.operator.join.SharedLookupTable;
+import org.apache.pinot.query.runtime.plan.OpChainExecutionContext;
 import org.apache.pinot.spi.exception.QueryErrorCode;
+import org.apache.pinot.spi.utils.CommonConstants;
+import org.apache.pinot.util.TestUtils;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.testng.annotations.AfterMethod;
@@ -41,6 +62,8 @@ import org.testng.annotations.Test;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.openMocks;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 import static org.testng.internal.junit.ArrayAsserts.assertArrayEquals;
 
@@ -765,6 +788,206 @@ public class HashJoinOperatorTest {
     assertTrue(containsRow(resultRows, new Object[]{3, "Cc", 3.0}));  // Unmatched preserved
   }
 
+  @Test
+  public void shouldSpillJoinWhenHitDataRowsLimitOnRightInput() {
+    DataSchema joinResultSchema = new DataSchema(new String[]{"int_col1", "string_col1", "int_col2", "string_col2"},
+        new ColumnDataType[]{ColumnDataType.INT, ColumnDataType.STRING, ColumnDataType.INT, ColumnDataType.STRING});
+    PlanNode.NodeHint spillHint = new PlanNode.NodeHint(Map.of(PinotHintOptions.JOIN_HINT_OPTIONS,
+        Map.of(PinotHintOptions.JoinHintOptions.JOIN_OVERFLOW_MODE, "SPILL",
+            PinotHintOptions.JoinHintOptions.MAX_ROWS_IN_JOIN, "10")));
+    for (JoinRelType joinType : new JoinRelType[]{
+        JoinRelType.INNER, JoinRelType.LEFT, JoinRelType.RIGHT, JoinRelType.FULL, JoinRelType.SEMI, JoinRelType.ANTI
+    }) {
+      DataSchema resultSchema =
+          joinType == JoinRelType.SEMI || joinType == JoinRelType.ANTI ? DEFAULT_CHILD_SCHEMA : joinResultSchema;
+      setUpSpillInputs();
+      List<Object[]> expectedRows = getAllRows(
+          getOperator(resultSchema, joinType, List.of(1), List.of(1), List.of(), PlanNode.NodeHint.EMPTY));
+
+      setUpSpillInputs();
+      PlanNode input = new ValueNode(-1, DEFAULT_CHILD_SCHEMA, PlanNode.NodeHint.EMPTY, List.of(), List.of());
+      HashJoinOperator operator = new HashJoinOperator(OperatorTestUtil.getTracingContext(), _leftInput,
+          DEFAULT_CHILD_SCHEMA, _rightInput,
+          new JoinNode(-1, resultSchema, spillHint, List.of(input, input), joinType, List.of(1), List.of(1),
+              List.of(), JoinNode.JoinStrategy.HASH));
+      List<Object[]> resultRows = getAllRows(operator);
+
+      assertEquals(sortRows(resultRows), sortRows(expectedRows), "Mismatched rows for join type: " + joinType);
+      StatMap<HashJoinOperator.StatKey> statMap =
+          OperatorTestUtil.getStatMap(HashJoinOperator.StatKey.class, operator.calculateStats());
+      assertTrue(statMap.getLong(HashJoinOperator.StatKey.NUM_ROWS_SPILLED) > 0, "Join should be spilled");
+      assertTrue(statMap.getLong(HashJoinOperator.StatKey.NUM_BYTES_SPILLED) > 0, "Join should be spilled");
+      assertFalse(statMap.getBoolean(HashJoinOperator.StatKey.MAX_ROWS_IN_JOIN_REACHED));
+    }
+  }
+
+  @Test
+  public void shouldShareRightTableWithBroadcastRightInput() {
+    HashJoinOperator[] operators = getSharedJoinOperators(123L, getSharedJoinRightInput(), getSharedJoinRightInput());
+
+    List<Object[]> resultRows0 = ((MseBlock.Data) operators[0].nextBlock()).asRowHeap().getRows();
+    assertEquals(resultRows0.size(), 2);
+    assertEquals(resultRows0.get(0), new Object[]{2, "BB", 2, "Aa"});
+    assertEquals(resultRows0.get(1), new Object[]{2, "BB", 2, "BB"});
+    // The second worker probes the right table built by the first worker
+    List<Object[]> resultRows1 = ((MseBlock.Data) operators[1].nextBlock()).asRowHeap().getRows();
+    assertEquals(resultRows1.size(), 2);
+    assertEquals(resultRows1.get(0), new Object[]{2, "BB", 2, "Aa"});
+    assertEquals(resultRows1.get(1), new Object[]{2, "BB", 2, "BB"});
+    assertSame(operators[1]._rightTable, operators[0]._rightTable);
+    assertTrue(operators[0].nextBlock().isSuccess());
+    // The shared right table is kept until released by both workers
+    assertEquals(SharedLookupTable.getNumSharedLookupTables(), 1);
+    assertTrue(operators[1].nextBlock().isSuccess());
+    assertEquals(SharedLookupTable.getNumSharedLookupTables(), 0);
+  }
+
+  @Test
+  public void shouldNotKeepRightRowsWhenWaitingForSharedRightTable()
+      throws Exception {
+    // The right rows of the second worker are generated on the fly and only weakly referenced by the test
+    List<WeakReference<Object[]>> rightRowRefs = new ArrayList<>();
+    CountDownLatch rightInputDrained = new CountDownLatch(1);
+    Iterator<MseBlock> rightBlocks = new Iterator<>() {
+      int _numBlocks;
+
+      @Override
+      public boolean hasNext() {
+        if (_numBlocks < 10) {
+          return true;
+        }
+        rightInputDrained.countDown();
+        return false;
+      }
+
+      @Override
+      public MseBlock next() {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+          Object[] row = new Object[]{_numBlocks * 100 + i, "BB"};
+          rightRowRefs.add(new WeakReference<>(row));
+          rows.add(row);
+        }
+        _numBlocks++;
+        return new RowHeapDataBlock(rows, DEFAULT_CHILD_SCHEMA);
+      }
+    };
+    HashJoinOperator[] operators = getSharedJoinOperators(125L, getSharedJoinRightInput(),
+        new BlockListMultiStageOperator(OperatorTestUtil.getTracingContext(), () -> rightBlocks));
+    // Start the shared build on behalf of the first worker so that the second worker waits for the right table
+    SharedLookupTable sharedRightTable = SharedLookupTable.acquire(125L, 1, 2, 2, Long.MAX_VALUE);
+    assertTrue(sharedRightTable.tryStartBuilding());
+
+    CompletableFuture<MseBlock> resultBlock1 = CompletableFuture.supplyAsync(() -> operators[1].nextBlock());
+    assertTrue(rightInputDrained.await(10, TimeUnit.SECONDS));
+    // The second worker should not keep the right rows while waiting for the shared right table
+    TestUtils.waitForCondition(aVoid -> {
+      System.gc();
+      return rightRowRefs.stream().allMatch(rowRef -> rowRef.get() == null);
+    }, 10_000L, "Right rows should not be kept by the worker waiting for the shared right table");
+    assertFalse(resultBlock1.isDone());
+
+    IntLookupTable lookupTable = new IntLookupTable();
+    lookupTable.addRow(2, new Object[]{2, "BB"});
+    lookupTable.finish();
+    sharedRightTable.publish(lookupTable, false);
+    List<Object[]> resultRows1 = ((MseBlock.Data) resultBlock1.get(10, TimeUnit.SECONDS)).asRowHeap().getRows();
+    assertEquals(resultRows1.size(), 1);
+    assertEquals(resultRows1.get(0), new Object[]{2, "BB", 2, "BB"});
+    assertSame(operators[1]._rightTable, lookupTable);
+    assertTrue(operators[1].nextBlock().isSuccess());
+    sharedRightTable.release();
+    assertEquals(SharedLookupTable.getNumSharedLookupTables(), 0);
+  }
+
+  @Test
+  public void shouldFailWhenSharedBuildIsAbandoned() {
+    // The right input of the first worker fails, so the first worker abandons the shared build
+    MultiStageOperator errorRightInput = new BlockListMultiStageOperator.Builder(DEFAULT_CHILD_SCHEMA)
+        .addRow(2, "Aa")
+        .buildWithError(ErrorMseBlock.fromException(new Exception("testSharedBuildRightError")));
+    HashJoinOperator[] operators = getSharedJoinOperators(124L, errorRightInput, getSharedJoinRightInput());
+
+    assertTrue(operators[0].nextBlock().isError());
+    // The second worker does not keep the right rows to build its own right table
+    MseBlock block = operators[1].nextBlock();
+    assertTrue(block.isError());
+    assertTrue(((ErrorMseBlock) block).getErrorMessages()
+        .get(QueryErrorCode.QUERY_EXECUTION).contains("shared hash table"));
+    operators[0].close();
+    operators[1].close();
+    assertEquals(SharedLookupTable.getNumSharedLookupTables(), 0);
+  }
+
+  private static MultiStageOperator getSharedJoinRightInput() {
+    return new BlockListMultiStageOperator.Builder(DEFAULT_CHILD_SCHEMA)
+        .addRow(2, "Aa")
+        .addRow(2, "BB")
+        .addRow(3, "BB")
+        .buildWithEos();
+  }
+
+  /**
+   * Returns the join operators of 2 workers of the same stage sharing the right table, with the given right inputs.
+   */
+  private static HashJoinOperator[] getSharedJoinOperators(long requestId, MultiStageOperator... rightInputs) {
+    DataSchema resultSchema = new DataSchema(new String[]{"int_col1", "string_col1", "int_col2", "string_col2"},
+        new ColumnDataType[]{ColumnDataType.INT, ColumnDataType.STRING, ColumnDataType.INT, ColumnDataType.STRING});
+    PlanNode left = new ValueNode(-1, DEFAULT_CHILD_SCHEMA, PlanNode.NodeHint.EMPTY, List.of(), List.of());
+    PlanNode right = new MailboxReceiveNode(-1, DEFAULT_CHILD_SCHEMA, 2, PinotRelExchangeType.STREAMING,
+        RelDistribution.Type.BROADCAST_DISTRIBUTED, null, null, false, false, null);
+    JoinNode node = new JoinNode(-1, resultSchema, PlanNode.NodeHint.EMPTY, List.of(left, right), JoinRelType.INNER,
+        List.of(0), List.of(0), List.of(), JoinNode.JoinStrategy.HASH);
+    List<WorkerMetadata> workerMetadataList =
+        List.of(new WorkerMetadata(0, Map.of(), Map.of()), new WorkerMetadata(1, Map.of(), Map.of()));
+    StageMetadata stageMetadata = new StageMetadata(1, workerMetadataList, Map.of());
+    MailboxService mailboxService = Mockito.mock(MailboxService.class);
+    when(mailboxService.getHostname()).thenReturn("localhost");
+    when(mailboxService.getPort()).thenReturn(1234);
+    HashJoinOperator[] operators = new HashJoinOperator[2];
+    for (int workerId = 0; workerId < 2; workerId++) {
+      OpChainExecutionContext context = new OpChainExecutionContext(mailboxService, requestId, Long.MAX_VALUE,
+          Long.MAX_VALUE, Map.of(CommonConstants.Broker.Request.QueryOptionKey.SHARED_JOIN_BUILD, "true"),
+          stageMetadata, workerMetadataList.get(workerId), null, null, true);
+      MultiStageOperator leftInput = new BlockListMultiStageOperator.Builder(DEFAULT_CHILD_SCHEMA)
+          .addRow(workerId, "Aa")
+          .addRow(2, "BB")
+          .buildWithEos();
+      operators[workerId] = new HashJoinOperator(context, leftInput, DEFAULT_CHILD_SCHEMA, rightInputs[workerId], node);
+    }
+    return operators;
+  }
+
+  private void setUpSpillInputs() {
+    BlockListMultiStageOperator.Builder leftBuilder = new BlockListMultiStageOperator.Builder(DEFAULT_CHILD_SCHEMA);
+    BlockListMultiStageOperator.Builder rightBuilder = new BlockListMultiStageOperator.Builder(DEFAULT_CHILD_SCHEMA);
+    for (int i = 0; i < 100; i++) {
+      leftBuilder.addRow(i, i % 7 == 0 ? null : "key" + (i % 40));
+      rightBuilder.addRow(i, i % 11 == 0 ? null : "key" + (i % 30 + 20));
+      if (i % 25 == 24) {
+        leftBuilder.finishBlock();
+        rightBuilder.finishBlock();
+      }
+    }
+    _leftInput = leftBuilder.buildWithEos();
+    _rightInput = rightBuilder.buildWithEos();
+  }
+
+  private static List<Object[]> getAllRows(HashJoinOperator operator) {
+    List<Object[]> rows = new ArrayList<>();
+    MseBlock block = operator.nextBlock();
+    while (block.isData()) {
+      rows.addAll(((MseBlock.Data) block).asRowHeap().getRows());
+      block = operator.nextBlock();
+    }
+    assertTrue(block.isSuccess());
+    return rows;
+  }
+
+  private static List<String> sortRows(List<Object[]> rows) {
+    return rows.stream().map(Arrays::toString).sorted().collect(Collectors.toList());
+  }
+
   private HashJoinOperator getOperator(DataSchema leftSchema, DataSchema resultSchema, JoinRelType joinType,
       List<Integer> leftKeys, List<Integer> rightKeys, List<RexExpression> nonEquiConditions,
       PlanNode.NodeHint nodeHint) {
@@ -18,10 +18,13 @@
  */
 package org.apache.pinot.query.runtime.operator;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import org.apache.calcite.rel.RelFieldCollation;
 import org.apache.calcite.rel.RelFieldCollation.Direction;
 import org.apache.calcite.rel.RelFieldCollation.NullDirection;
+import org.apache.pinot.common.datatable.StatMap;
 import org.apache.pinot.common.utils.DataSchema;
 import org.apache.pinot.query.planner.plannode.PlanNode;
 import org.apache.pinot.query.planner.plannode.SortNode;
@@ -30,6 +33,8 @@ import org.apache.pinot.query.runtime.blocks.ErrorMseBlock;
 import org.apache.pinot.query.runtime.blocks.MseBlock;
 import org.apache.pinot.query.runtime.blocks.RowHeapDataBlock;
 import org.apache.pinot.query.runtime.blocks.SuccessMseBlock;
+import org.apache.pinot.query.runtime.plan.OpChainExecutionContext;
+import org.apache.pinot.spi.utils.CommonConstants.Broker.Request.QueryOptionKey;
 import org.mockito.Mock;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
@@ -499,6 +504,48 @@ public class SortOperatorTest {
     assertTrue(operator.nextBlock().isSuccess(), "expected EOS block to propagate");
   }
 
+  @Test
+  public void shouldSpillSortedRunsWhenHitSpillThreshold() {
+    // Given:
+    DataSchema schema = new DataSchema(new String[]{"first", "second"}, new DataSchema.ColumnDataType[]{INT, INT});
+    MultiStageOperator input = new BlockListMultiStageOperator.Builder(schema)
+        .addRow(5, 0).addRow(3, 1).addRow(9, 2).addRow(1, 3)
+        .finishBlock()
+        .addRow(3, 4).addRow(7, 5).addRow(null, 6).addRow(3, 7)
+        .finishBlock()
+        .addRow(8, 8).addRow(2, 9)
+        .buildWithEos();
+    List<RelFieldCollation> collations = List.of(new RelFieldCollation(0, Direction.ASCENDING, NullDirection.LAST));
+    OpChainExecutionContext context =
+        OperatorTestUtil.getContext(Map.of(QueryOptionKey.SORT_SPILL_THRESHOLD_ROWS, "3"));
+    SortOperator operator = new SortOperator(context, input,
+        new SortNode(-1, schema, PlanNode.NodeHint.EMPTY, List.of(), collations, 6, 1));
+
+    // When:
+    List<Object[]> resultRows = new ArrayList<>();
+    MseBlock block = operator.nextBlock();
+    while (block.isData()) {
+      resultRows.addAll(((MseBlock.Data) block).asRowHeap().getRows());
+      block = operator.nextBlock();
+    }
+
+    // Then:
+    assertTrue(block.isSuccess(), "expected EOS block to propagate");
+    // Rows with the same sort key should keep the input order
+    assertEquals(resultRows.size(), 6);
+    assertEquals(resultRows.get(0), new Object[]{2, 9});
+    assertEquals(resultRows.get(1), new Object[]{3, 1});
+    assertEquals(resultRows.get(2), new Object[]{3, 4});
+    assertEquals(resultRows.get(3), new Object[]{3, 7});
+    assertEquals(resultRows.get(4), new Object[]{5, 0});
+    assertEquals(resultRows.get(5), new Object[]{7, 5});
+    StatMap<SortOperator.StatKey> statMap =
+        OperatorTestUtil.getStatMap(SortOperator.StatKey.class, operator.calculateStats());
+    assertEquals(statMap.getInt(SortOperator.StatKey.NUM_SPILLED_RUNS), 3);
+    assertEquals(statMap.getLong(SortOperator.StatKey.NUM_ROWS_SPILLED), 9L);
+    assertTrue(statMap.getLong(SortOperator.StatKey.NUM_BYTES_SPILLED) > 0);
+  }
+
   private SortOperator getOperator(DataSchema schema, List<RelFieldCollation> collations, int fetch, int offset) {
     return new SortOperator(OperatorTestUtil.getTracingContext(), _input,
         new SortNode(-1, schema, PlanNode.NodeHint.EMPTY, List.of(), collations, fetch, offset));
@@ -36,6 +36,7 @@ import org.apache.pinot.query.routing.VirtualServerAddress;
 import org.apache.pinot.query.runtime.blocks.ErrorMseBlock;
 import org.apache.pinot.query.runtime.blocks.MseBlock;
 import org.apache.pinot.spi.exception.QueryErrorCode;
+import org.apache.pinot.spi.utils.CommonConstants.Broker.Request.QueryOptionKey;
 import org.mockito.Mock;
 import org.testng.Assert;
 import org.testng.annotations.AfterMethod;
@@ -349,6 +350,52 @@ public class WindowAggregateOperatorTest {
     assertTrue(operator.nextBlock().isSuccess(), "Second block is EOS (done processing)");
   }
 
+  @Test
+  public void testShouldSpillPartitionsWhenHitSpillThreshold() {
+    // Given:
+    DataSchema inputSchema = new DataSchema(new String[]{"group", "arg"}, new ColumnDataType[]{INT, STRING});
+    MultiStageOperator input = new BlockListMultiStageOperator.Builder(inputSchema)
+        .addRow(3, "and")
+        .addRow(2, "bar")
+        .addRow(2, "foo")
+        .finishBlock()
+        .addRow(1, "foo")
+        .addRow(2, "foo")
+        .addRow(2, "the")
+        .addRow(3, "true")
+        .buildWithEos();
+    DataSchema resultSchema =
+        new DataSchema(new String[]{"group", "arg", "row_number"}, new ColumnDataType[]{INT, STRING, LONG});
+    List<Integer> keys = List.of(0);
+    List<RelFieldCollation> collations =
+        List.of(new RelFieldCollation(1, RelFieldCollation.Direction.ASCENDING, RelFieldCollation.NullDirection.LAST));
+    List<RexExpression.FunctionCall> aggCalls =
+        List.of(new RexExpression.FunctionCall(ColumnDataType.INT, SqlKind.ROW_NUMBER.name(), List.of()));
+    WindowAggregateOperator operator = new WindowAggregateOperator(
+        OperatorTestUtil.getContext(Map.of(QueryOptionKey.SORT_SPILL_THRESHOLD_ROWS, "2")), input, inputSchema,
+        new WindowNode(-1, resultSchema, PlanNode.NodeHint.EMPTY, List.of(), keys, collations, aggCalls, ROWS,
+            Integer.MIN_VALUE, 0, List.of()));
+
+    // When:
+    List<Object[]> resultRows = new ArrayList<>();
+    MseBlock block = operator.nextBlock();
+    while (block.isData()) {
+      resultRows.addAll(((MseBlock.Data) block).asRowHeap().getRows());
+      block = operator.nextBlock();
+    }
+
+    // Then:
+    assertTrue(block.isSuccess(), "Last block is EOS (done processing)");
+    // Partitions are returned in the order of the partition keys after spilling
+    verifyResultRows(resultRows, List.of(new Object[]{1, "foo", 1L}, new Object[]{2, "bar", 1L},
+        new Object[]{2, "foo", 2L}, new Object[]{2, "foo", 3L}, new Object[]{2, "the", 4L},
+        new Object[]{3, "and", 1L}, new Object[]{3, "true", 2L}));
+    StatMap<WindowAggregateOperator.StatKey> windowStats =
+        OperatorTestUtil.getStatMap(WindowAggregateOperator.StatKey.class, operator.calculateStats());
+    assertTrue(windowStats.getInt(WindowAggregateOperator.StatKey.NUM_SPILLED_RUNS) > 0, "Window should be spilled");
+    assertTrue(windowStats.getLong(WindowAggregateOperator.StatKey.NUM_ROWS_SPILLED) > 0, "Window should be spilled");
+  }
+
   @Test
   public void testNonEmptyOrderByKeysNotMatchingPartitionByKeys() {
     // Given:
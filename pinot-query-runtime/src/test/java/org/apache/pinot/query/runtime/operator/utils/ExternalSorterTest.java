@@ -0,0 +1,132 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.runtime.operator.utils;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import org.apache.commons.io.FileUtils;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertThrows;
+import static org.testng.Assert.assertTrue;
+
+
+public class ExternalSorterTest {
+  private static final File SPILL_DIR = new File(FileUtils.getTempDirectory(), "ExternalSorterTest");
+  private static final DataSchema DATA_SCHEMA =
+      new DataSchema(new String[]{"key", "seq"}, new ColumnDataType[]{ColumnDataType.INT, ColumnDataType.INT});
+  private static final Comparator<Object[]> COMPARATOR = Comparator.comparingInt(row -> (Integer) row[0]);
+  private static final int NUM_ROWS = 1000;
+  private static final int NUM_KEYS = 50;
+
+  @BeforeClass
+  public void setUp() {
+    FileUtils.deleteQuietly(SPILL_DIR);
+    SpillFile.setSpillDir(SPILL_DIR.getAbsolutePath());
+  }
+
+  @AfterClass
+  public void tearDown() {
+    SpillFile.setSpillDir(FileUtils.getTempDirectoryPath());
+    FileUtils.deleteQuietly(SPILL_DIR);
+  }
+
+  @DataProvider
+  public Object[][] mergeFactors() {
+    return new Object[][]{{2}, {3}, {16}, {ExternalSorter.DEFAULT_MERGE_FACTOR}};
+  }
+
+  @Test(dataProvider = "mergeFactors")
+  public void testSpillAndMerge(int mergeFactor) {
+    Random random = new Random();
+    List<Object[]> rows = new ArrayList<>(NUM_ROWS);
+    for (int i = 0; i < NUM_ROWS; i++) {
+      rows.add(new Object[]{random.nextInt(NUM_KEYS), i});
+    }
+    int maxRowsInMemory = 7;
+    int numRuns = NUM_ROWS / maxRowsInMemory;
+
+    List<Object[]> sortedRows = new ArrayList<>(NUM_ROWS);
+    try (ExternalSorter sorter = new ExternalSorter(DATA_SCHEMA, COMPARATOR, maxRowsInMemory, 0, mergeFactor)) {
+      // Add the rows in blocks of different sizes
+      for (int from = 0; from < NUM_ROWS; from += 13) {
+        sorter.addRows(rows.subList(from, Math.min(from + 13, NUM_ROWS)));
+      }
+      assertEquals(sorter.getNumRows(), NUM_ROWS);
+      assertEquals(sorter.getNumRunsSpilled(), numRuns);
+      assertEquals(sorter.getNumRowsSpilled(), (long) numRuns * maxRowsInMemory);
+      sorter.finish();
+
+      // Each pass reduces the number of runs by the merge factor, until the final merge (which also includes the
+      // in-memory run) reads at most merge factor runs
+      int expectedNumMergePasses = 0;
+      for (int numRemainingRuns = numRuns; numRemainingRuns >= mergeFactor; expectedNumMergePasses++) {
+        numRemainingRuns = (numRemainingRuns + mergeFactor - 1) / mergeFactor;
+      }
+      assertEquals(sorter.getNumMergePasses(), expectedNumMergePasses);
+      assertEquals(sorter.getNumRunsSpilled(), numRuns);
+
+      List<Object[]> block = sorter.nextBlock(100);
+      while (block != null) {
+        assertTrue(block.size() <= 100);
+        sortedRows.addAll(block);
+        block = sorter.nextBlock(100);
+      }
+    }
+
+    // The sort should be stable
+    rows.sort(COMPARATOR);
+    assertEquals(sortedRows.size(), NUM_ROWS);
+    for (int i = 0; i < NUM_ROWS; i++) {
+      assertEquals(sortedRows.get(i), rows.get(i));
+    }
+    String[] remainingFiles = SPILL_DIR.list();
+    assertTrue(remainingFiles == null || remainingFiles.length == 0, "Spill files should be deleted");
+  }
+
+  @Test
+  public void testInMemory() {
+    try (ExternalSorter sorter = new ExternalSorter(DATA_SCHEMA, COMPARATOR, NUM_ROWS, 0)) {
+      sorter.addRows(List.of(new Object[]{2, 0}, new Object[]{1, 1}, new Object[]{2, 2}));
+      sorter.finish();
+      assertEquals(sorter.getNumRunsSpilled(), 0);
+      List<Object[]> block = sorter.nextBlock(100);
+      assertEquals(block.size(), 3);
+      assertEquals(block.get(0), new Object[]{1, 1});
+      assertEquals(block.get(1), new Object[]{2, 0});
+      assertEquals(block.get(2), new Object[]{2, 2});
+      assertNull(sorter.nextBlock(100));
+    }
+  }
+
+  @Test
+  public void testInvalidMergeFactor() {
+    assertThrows(IllegalArgumentException.class, () -> new ExternalSorter(DATA_SCHEMA, COMPARATOR, NUM_ROWS, 0, 1));
+  }
+}
@@ -0,0 +1,148 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.query.runtime.operator.window.aggregate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.apache.calcite.rel.RelFieldCollation;
+import org.apache.pinot.common.utils.DataSchema;
+import org.apache.pinot.common.utils.DataSchema.ColumnDataType;
+import org.apache.pinot.query.planner.logical.RexExpression;
+import org.apache.pinot.query.planner.plannode.WindowNode;
+import org.apache.pinot.query.runtime.operator.window.WindowFrame;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+
+
+public class PrimitiveWindowAggregatorTest {
+  private static final int UNBOUNDED_PRECEDING = Integer.MIN_VALUE;
+  private static final int UNBOUNDED_FOLLOWING = Integer.MAX_VALUE;
+  private static final int[][] ROWS_FRAMES = {
+      {UNBOUNDED_PRECEDING, 0}, {UNBOUNDED_PRECEDING, UNBOUNDED_FOLLOWING}, {0, UNBOUNDED_FOLLOWING}, {-3, 0},
+      {-3, 2}, {0, 0}, {0, 1}, {1, 4}, {-5, -2}, {UNBOUNDED_PRECEDING, -1}, {2, UNBOUNDED_FOLLOWING}
+  };
+  private static final int[][] RANGE_FRAMES = {
+      {UNBOUNDED_PRECEDING, 0}, {UNBOUNDED_PRECEDING, UNBOUNDED_FOLLOWING}, {0, UNBOUNDED_FOLLOWING}, {0, 0}
+  };
+  private static final int[] PARTITION_SIZES = {0, 1, 7, 200};
+
+  @DataProvider
+  public static Object[][] functionsAndDataTypes() {
+    List<Object[]> result = new ArrayList<>();
+    for (String functionName : new String[]{"SUM", "$SUM0", "COUNT", "MIN", "MAX"}) {
+      for (ColumnDataType dataType : new ColumnDataType[]{
+          ColumnDataType.INT, ColumnDataType.LONG, ColumnDataType.FLOAT, ColumnDataType.DOUBLE
+      }) {
+        result.add(new Object[]{functionName, dataType});
+      }
+    }
+    return result.toArray(new Object[0][]);
+  }
+
+  @Test(dataProvider = "functionsAndDataTypes")
+  public void testMatchBoxedAggregation(String functionName, ColumnDataType dataType) {
+    DataSchema inputSchema =
+        new DataSchema(new String[]{"orderKey", "value"}, new ColumnDataType[]{ColumnDataType.INT, dataType});
+    RexExpression.FunctionCall aggCall =
+        new RexExpression.FunctionCall(dataType, functionName, List.of(new RexExpression.InputRef(1)));
+    List<RelFieldCollation> collations = List.of(new RelFieldCollation(0));
+    Random random = new Random();
+    for (int partitionSize : PARTITION_SIZES) {
+      List<Object[]> rows = generateRows(random, partitionSize, dataType);
+      for (int[] frame : ROWS_FRAMES) {
+        WindowFrame windowFrame = new WindowFrame(WindowNode.WindowFrameType.ROWS, frame[0], frame[1]);
+        assertSameResults(aggCall, inputSchema, collations, windowFrame, rows);
+      }
+      for (int[] frame : RANGE_FRAMES) {
+        WindowFrame windowFrame = new WindowFrame(WindowNode.WindowFrameType.RANGE, frame[0], frame[1]);
+        assertSameResults(aggCall, inputSchema, collations, windowFrame, rows);
+      }
+    }
+  }
+
+  @Test
+  public void testUnsupportedAggregation() {
+    assertNull(PrimitiveWindowAggregator.getPrimitiveWindowAggregator("BOOLAND", ColumnDataType.BOOLEAN));
+    assertNull(PrimitiveWindowAggregator.getPrimitiveWindowAggregator("SUM", ColumnDataType.BIG_DECIMAL));
+    assertNull(PrimitiveWindowAggregator.getPrimitiveWindowAggregator("MIN", ColumnDataType.STRING));
+    assertNotNull(PrimitiveWindowAggregator.getPrimitiveWindowAggregator("COUNT", ColumnDataType.STRING));
+  }
+
+  private static void assertSameResults(RexExpression.FunctionCall aggCall, DataSchema inputSchema,
+      List<RelFieldCollation> collations, WindowFrame windowFrame, List<Object[]> rows) {
+    List<Object> expected =
+        new AggregateWindowFunction(aggCall, inputSchema, collations, windowFrame, false).processRows(rows);
+    List<Object> actual =
+        new AggregateWindowFunction(aggCall, inputSchema, collations, windowFrame, true).processRows(rows);
+    assertEquals(actual.size(), expected.size());
+    for (int i = 0; i < expected.size(); i++) {
+      Object expectedValue = expected.get(i);
+      Object actualValue = actual.get(i);
+      String message = windowFrame + ", row: " + i;
+      if (expectedValue == null) {
+        assertNull(actualValue, message);
+      } else {
+        assertNotNull(actualValue, message);
+        assertEquals(((Number) actualValue).doubleValue(), ((Number) expectedValue).doubleValue(), 1e-6, message);
+      }
+    }
+  }
+
+  /**
+   * Generates rows sorted on the order key, with duplicate order keys and null values.
+   */
+  private static List<Object[]> generateRows(Random random, int numRows, ColumnDataType dataType) {
+    List<Object[]> rows = new ArrayList<>(numRows);
+    int orderKey = 0;
+    for (int i = 0; i < numRows; i++) {
+      if (random.nextInt(3) == 0) {
+        orderKey++;
+      }
+      Object value;
+      if (random.nextInt(5) == 0) {
+        value = null;
+      } else {
+        int intValue = random.nextInt(200) - 100;
+        switch (dataType) {
+          case INT:
+            value = intValue;
+            break;
+          case LONG:
+            value = (long) intValue;
+            break;
+          case FLOAT:
+            value = intValue / 4f;
+            break;
+          case DOUBLE:
+            value = intValue / 4d;
+            break;
+          default:
+            throw new IllegalStateException("Unsupported data type: " + dataType);
+        }
+      }
+      rows.add(new Object[]{orderKey, value});
+    }
+    return rows;
+  }
+}
@@ -260,6 +260,13 @@ public class QueryRunnerTest extends QueryRunnerTestBase {
         // test queries with special query options attached
         //   - when leaf limit is set, each server returns multiStageLeafLimit number of rows only.
         new Object[]{"SET multiStageLeafLimit = 1; SELECT * FROM a", 2},
+        //   - when streaming group-by is enabled, leaf stage streams partial groups which are merged downstream.
+        new Object[]{"SET streamingGroupBy = true; SELECT col1, COUNT(*) FROM a GROUP BY col1", 5},
+        new Object[]{
+            "SET streamingGroupBy = true; SET streamingGroupByChunkSize = 1; "
+                + "SELECT col1, SUM(col3) FROM a GROUP BY col1",
+            5
+        },
 
         // test groups limit in both leaf and intermediate stage
         new Object[]{"SET numGroupsLimit = 1; SELECT col1, COUNT(*) FROM a GROUP BY col1", 1},
@@ -0,0 +1,431 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.dedup;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+import javax.annotation.Nullable;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.pinot.common.metrics.ServerMeter;
+import org.apache.pinot.common.metrics.ServerTimer;
+import org.apache.pinot.segment.local.upsert.OffHeapRecordLocationMap;
+import org.apache.pinot.segment.local.utils.HashUtils;
+import org.apache.pinot.segment.spi.ImmutableSegment;
+import org.apache.pinot.segment.spi.IndexSegment;
+import org.apache.pinot.spi.data.readers.PrimaryKey;
+import org.apache.pinot.spi.utils.ByteArray;
+
+
+/**
+ * Dedup metadata manager that bounds the heap footprint of the primary keys by keeping 2 tiers:
+ * <ul>
+ *   <li>Hot tier: the most recently accessed primary keys, kept on heap in LRU order</li>
+ *   <li>Cold tier: the primary keys evicted from the hot tier, kept in an {@link OffHeapRecordLocationMap} backed by a
+ *   memory-mapped file under the table index dir, so that the OS can page it out to disk</li>
+ * </ul>
+ * A primary key lives in exactly one of the tiers. The cold tier is guarded by a Bloom filter so that looking up a new
+ * primary key (the common case when ingesting) does not touch the cold tier. The Bloom filter does not support
+ * removal, and is rebuilt when the expired primary keys are removed or when the cold tier outgrows it.
+ * <p>
+ * The primary keys are stored as 128-bit hashes: the hashed key is used directly when the hash function produces 16
+ * bytes (MD5, MURMUR3), otherwise the key bytes are hashed with MURMUR3.
+ * <p>
+ * The following configs can be provided through the metadata manager configs of the dedup config:
+ * <ul>
+ *   <li>{@link #HOT_TIER_MAX_KEYS}: max number of primary keys in the hot tier</li>
+ *   <li>{@link #COLD_TIER_BLOOM_FILTER_FPP}: false positive probability of the Bloom filter of the cold tier</li>
+ * </ul>
+ */
+public class TieredPartitionDedupMetadataManager extends BasePartitionDedupMetadataManager {
+  public static final String HOT_TIER_MAX_KEYS = "hotTier.maxKeys";
+  public static final int DEFAULT_HOT_TIER_MAX_KEYS = 1_000_000;
+  public static final String COLD_TIER_BLOOM_FILTER_FPP = "coldTier.bloomFilter.fpp";
+  public static final double DEFAULT_COLD_TIER_BLOOM_FILTER_FPP = 0.01;
+  public static final String COLD_TIER_FILE_PREFIX = "dedup.cold.tier.";
+
+  // Spill a fraction of the hot tier at once when it is full to amortize the cost of spilling
+  private static final double SPILL_RATIO = 0.1;
+  private static final int MIN_BLOOM_FILTER_EXPECTED_KEYS = 1 << 16;
+  // Flush the lookup metrics every this number of lookups to keep the metrics off the per-record path
+  private static final int METRICS_FLUSH_INTERVAL = 1024;
+
+  private final int _hotTierMaxKeys;
+  private final double _bloomFilterFpp;
+  private final String _coldTierFilePrefix;
+
+  // All the accesses to the tiers, the Bloom filter, the segment ids and the metrics are guarded by the hot tier
+  @VisibleForTesting
+  final LinkedHashMap<ByteArray, Pair<IndexSegment, Double>> _hotTier = new LinkedHashMap<>(16, 0.75f, true);
+  @VisibleForTesting
+  OffHeapRecordLocationMap _coldTier;
+  private BloomFilter<byte[]> _coldTierBloomFilter;
+  private int _bloomFilterExpectedKeys;
+
+  // Segments referenced by the cold tier, and the number of primary keys in each segment
+  private final Reference2IntOpenHashMap<IndexSegment> _segmentToIdMap = new Reference2IntOpenHashMap<>();
+  private final Int2ObjectOpenHashMap<IndexSegment> _idToSegmentMap = new Int2ObjectOpenHashMap<>();
+  private final Int2IntOpenHashMap _segmentIdToNumKeysMap = new Int2IntOpenHashMap();
+  private int _nextSegmentId = OffHeapRecordLocationMap.EMPTY_SEGMENT_ID + 1;
+
+  private int _numLookups;
+  private long _numHotTierHits;
+  private long _numColdTierHits;
+  private long _numColdTierProbes;
+  private long _numKeysSpilled;
+
+  public TieredPartitionDedupMetadataManager(String tableNameWithType, int partitionId, DedupContext dedupContext) {
+    super(tableNameWithType, partitionId, dedupContext);
+    Map<String, String> configs = dedupContext.getMetadataManagerConfigs();
+    int hotTierMaxKeys = DEFAULT_HOT_TIER_MAX_KEYS;
+    double bloomFilterFpp = DEFAULT_COLD_TIER_BLOOM_FILTER_FPP;
+    if (configs != null) {
+      String hotTierMaxKeysStr = configs.get(HOT_TIER_MAX_KEYS);
+      if (hotTierMaxKeysStr != null) {
+        hotTierMaxKeys = Integer.parseInt(hotTierMaxKeysStr);
+      }
+      String bloomFilterFppStr = configs.get(COLD_TIER_BLOOM_FILTER_FPP);
+      if (bloomFilterFppStr != null) {
+        bloomFilterFpp = Double.parseDouble(bloomFilterFppStr);
+      }
+    }
+    _hotTierMaxKeys = hotTierMaxKeys;
+    _bloomFilterFpp = bloomFilterFpp;
+    _coldTierFilePrefix = COLD_TIER_FILE_PREFIX + partitionId;
+    // Clean up the files left from the previous run
+    File[] staleFiles = _tableIndexDir.listFiles((dir, name) -> name.startsWith(_coldTierFilePrefix + "."));
+    if (staleFiles != null) {
+      for (File staleFile : staleFiles) {
+        FileUtils.deleteQuietly(staleFile);
+      }
+    }
+  }
+
+  @Override
+  protected void doPreloadSegment(ImmutableSegment segment, Iterator<DedupRecordInfo> dedupRecordInfoIterator) {
+    while (dedupRecordInfoIterator.hasNext()) {
+      DedupRecordInfo dedupRecordInfo = dedupRecordInfoIterator.next();
+      Pair<IndexSegment, Double> newSegmentAndTime = Pair.of(segment, dedupRecordInfo.getDedupTime());
+      compute(dedupRecordInfo.getPrimaryKey(), segmentAndTime -> newSegmentAndTime);
+    }
+  }
+
+  @Override
+  protected void doAddOrReplaceSegment(@Nullable IndexSegment oldSegment, IndexSegment newSegment,
+      Iterator<DedupRecordInfo> dedupRecordInfoIteratorOfNewSegment) {
+    String segmentName = newSegment.getSegmentName();
+    while (dedupRecordInfoIteratorOfNewSegment.hasNext()) {
+      DedupRecordInfo dedupRecordInfo = dedupRecordInfoIteratorOfNewSegment.next();
+      double dedupTime = dedupRecordInfo.getDedupTime();
+      compute(dedupRecordInfo.getPrimaryKey(), segmentAndTime -> {
+        // Stale metadata is treated as not existing when checking for deduplicates.
+        if (segmentAndTime == null || isOutOfMetadataTTL(segmentAndTime.getRight())) {
+          return Pair.of(newSegment, dedupTime);
+        }
+        // when oldSegment is null, it means we are adding a new segment
+        // when oldSegment is not null, it means we are replacing an existing segment
+        if (oldSegment == null) {
+          _logger.warn("When adding a new segment: record in segment: {} with primary key: {} and dedup "
+                  + "time: {} already exists in segment: {} with dedup time: {}", segmentName,
+              dedupRecordInfo.getPrimaryKey(), dedupTime, segmentAndTime.getLeft().getSegmentName(),
+              segmentAndTime.getRight());
+        } else if (segmentAndTime.getLeft() != oldSegment) {
+          _logger.warn("When replacing a segment: record in segment: {} with primary key: {} and dedup "
+                  + "time: {} exists in segment: {} with dedup time: {} (but not the segment: {} to replace)",
+              segmentName, dedupRecordInfo.getPrimaryKey(), dedupTime, segmentAndTime.getLeft().getSegmentName(),
+              segmentAndTime.getRight(), oldSegment.getSegmentName());
+        }
+        // When dedup time is the same, we always keep the latest segment
+        if (segmentAndTime.getRight() <= dedupTime) {
+          return Pair.of(newSegment, dedupTime);
+        }
+        return segmentAndTime;
+      });
+    }
+  }
+
+  @Override
+  protected void doRemoveSegment(IndexSegment segment, Iterator<DedupRecordInfo> dedupRecordInfoIterator) {
+    while (dedupRecordInfoIterator.hasNext()) {
+      DedupRecordInfo dedupRecordInfo = dedupRecordInfoIterator.next();
+      compute(dedupRecordInfo.getPrimaryKey(), segmentAndTime -> {
+        // do not need to compare dedup time because we are removing the segment
+        if (segmentAndTime != null && segmentAndTime.getLeft() == segment) {
+          return null;
+        }
+        return segmentAndTime;
+      });
+    }
+  }
+
+  @Override
+  protected void doRemoveExpiredPrimaryKeys() {
+    double smallestTimeToKeep = _largestSeenTime.get() - _metadataTTL;
+    synchronized (_hotTier) {
+      _hotTier.values().removeIf(segmentAndTime -> segmentAndTime.getRight() < smallestTimeToKeep);
+      if (_coldTier != null) {
+        // Collect the keys first because removing an entry can shift the other entries
+        List<byte[]> keysToRemove = new ArrayList<>();
+        int capacity = _coldTier.getCapacity();
+        for (int i = 0; i < capacity; i++) {
+          if (_coldTier.isOccupied(i) && (Double) _coldTier.getComparisonValue(i) < smallestTimeToKeep) {
+            keysToRemove.add(_coldTier.getKey(i));
+          }
+        }
+        for (byte[] key : keysToRemove) {
+          removeFromColdTier(_coldTier.indexOf(key));
+        }
+        rebuildBloomFilter();
+      }
+      flushMetrics();
+    }
+  }
+
+  @Override
+  public boolean checkRecordPresentOrUpdate(DedupRecordInfo dedupRecordInfo, IndexSegment indexSegment) {
+    if (!startOperation()) {
+      _logger.info("Skip adding record to {} because metadata manager is already stopped",
+          indexSegment.getSegmentName());
+      return true;
+    }
+    try {
+      if (_metadataTTL > 0) {
+        _largestSeenTime.getAndUpdate(time -> Math.max(time, dedupRecordInfo.getDedupTime()));
+      }
+      boolean[] present = new boolean[1];
+      compute(dedupRecordInfo.getPrimaryKey(), segmentAndTime -> {
+        // The dedup metadata out of TTL is cleaned up when starting the next consuming segment, so it's possible
+        // when ingesting records into current segment, some dedup metadata is already becoming stale. The stale
+        // metadata is treated as not existing when checking for deduplicates.
+        if (segmentAndTime == null || isOutOfMetadataTTL(segmentAndTime.getRight())) {
+          return Pair.of(indexSegment, dedupRecordInfo.getDedupTime());
+        }
+        present[0] = true;
+        return segmentAndTime;
+      });
+      if (!present[0]) {
+        updatePrimaryKeyGauge();
+      }
+      return present[0];
+    } finally {
+      finishOperation();
+    }
+  }
+
+  @Override
+  public long getNumPrimaryKeys() {
+    synchronized (_hotTier) {
+      return _hotTier.size() + (_coldTier != null ? _coldTier.size() : 0);
+    }
+  }
+
+  @Override
+  protected void doClose()
+      throws IOException {
+    synchronized (_hotTier) {
+      flushMetrics();
+      _hotTier.clear();
+      if (_coldTier != null) {
+        _coldTier.close();
+        _coldTier = null;
+        _coldTierBloomFilter = null;
+      }
+      _segmentToIdMap.clear();
+      _idToSegmentMap.clear();
+      _segmentIdToNumKeysMap.clear();
+    }
+  }
+
+  /**
+   * Atomically computes the segment and dedup time for the given primary key in the tier holding the primary key, or
+   * in the hot tier for a new primary key. The remapping function takes the current segment and dedup time
+   * ({@code null} if the primary key does not exist), and returns the new segment and dedup time ({@code null} to
+   * remove the primary key).
+   */
+  private void compute(PrimaryKey primaryKey, UnaryOperator<Pair<IndexSegment, Double>> remappingFunction) {
+    byte[] key = getKey(primaryKey);
+    ByteArray hotTierKey = new ByteArray(key);
+    synchronized (_hotTier) {
+      if (++_numLookups == METRICS_FLUSH_INTERVAL) {
+        flushMetrics();
+      }
+
+      // Look up the hot tier
+      Pair<IndexSegment, Double> currentSegmentAndTime = _hotTier.get(hotTierKey);
+      if (currentSegmentAndTime != null) {
+        _numHotTierHits++;
+        Pair<IndexSegment, Double> newSegmentAndTime = remappingFunction.apply(currentSegmentAndTime);
+        if (newSegmentAndTime == null) {
+          _hotTier.remove(hotTierKey);
+        } else if (newSegmentAndTime != currentSegmentAndTime) {
+          _hotTier.put(hotTierKey, newSegmentAndTime);
+        }
+        return;
+      }
+
+      // Look up the cold tier
+      int coldTierIndex = probeColdTier(key);
+      if (coldTierIndex >= 0) {
+        _numColdTierHits++;
+        currentSegmentAndTime = Pair.of(_idToSegmentMap.get(_coldTier.getSegmentId(coldTierIndex)),
+            (Double) _coldTier.getComparisonValue(coldTierIndex));
+        Pair<IndexSegment, Double> newSegmentAndTime = remappingFunction.apply(currentSegmentAndTime);
+        if (newSegmentAndTime == null) {
+          removeFromColdTier(coldTierIndex);
+        } else if (newSegmentAndTime != currentSegmentAndTime) {
+          int newSegmentId = acquireSegmentId(newSegmentAndTime.getLeft());
+          releaseSegmentId(_coldTier.getSegmentId(coldTierIndex));
+          _coldTier.set(coldTierIndex, newSegmentId, 0, newSegmentAndTime.getRight(), 0);
+        }
+        return;
+      }
+
+      // New primary key
+      Pair<IndexSegment, Double> newSegmentAndTime = remappingFunction.apply(null);
+      if (newSegmentAndTime != null) {
+        _hotTier.put(hotTierKey, newSegmentAndTime);
+        if (_hotTier.size() > _hotTierMaxKeys) {
+          spill();
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the index of the primary key in the cold tier, or -1 if it does not exist.
+   */
+  private int probeColdTier(byte[] key) {
+    if (_coldTier == null || !_coldTierBloomFilter.mightContain(key)) {
+      return -1;
+    }
+    _numColdTierProbes++;
+    long startTimeNs = System.nanoTime();
+    int index = _coldTier.indexOf(key);
+    _serverMetrics.addTimedTableValue(_tableNameWithType, ServerTimer.DEDUP_COLD_TIER_PROBE_TIME_NS,
+        System.nanoTime() - startTimeNs, TimeUnit.NANOSECONDS);
+    return index;
+  }
+
+  /**
+   * Moves the least recently accessed primary keys from the hot tier to the cold tier.
+   */
+  private void spill() {
+    if (_coldTier == null) {
+      _coldTier = new OffHeapRecordLocationMap(_hotTierMaxKeys,
+          "DedupColdTier: " + _tableNameWithType + "_" + _partitionId, _tableIndexDir, _coldTierFilePrefix);
+      _bloomFilterExpectedKeys = Math.max(MIN_BLOOM_FILTER_EXPECTED_KEYS, 2 * _hotTierMaxKeys);
+      _coldTierBloomFilter = BloomFilter.create(Funnels.byteArrayFunnel(), _bloomFilterExpectedKeys, _bloomFilterFpp);
+    }
+    int numKeysToSpill = _hotTier.size() - (int) (_hotTierMaxKeys * (1 - SPILL_RATIO));
+    Iterator<Map.Entry<ByteArray, Pair<IndexSegment, Double>>> iterator = _hotTier.entrySet().iterator();
+    for (int i = 0; i < numKeysToSpill; i++) {
+      Map.Entry<ByteArray, Pair<IndexSegment, Double>> entry = iterator.next();
+      byte[] key = entry.getKey().getBytes();
+      Pair<IndexSegment, Double> segmentAndTime = entry.getValue();
+      _coldTier.put(key, acquireSegmentId(segmentAndTime.getLeft()), 0, segmentAndTime.getRight(), 0);
+      _coldTierBloomFilter.put(key);
+      iterator.remove();
+    }
+    _numKeysSpilled += numKeysToSpill;
+    if (_coldTier.size() > _bloomFilterExpectedKeys) {
+      rebuildBloomFilter();
+    }
+  }
+
+  private void removeFromColdTier(int index) {
+    releaseSegmentId(_coldTier.getSegmentId(index));
+    _coldTier.removeAt(index);
+  }
+
+  /**
+   * Rebuilds the Bloom filter to drop the removed primary keys, and to resize it based on the size of the cold tier.
+   */
+  private void rebuildBloomFilter() {
+    _bloomFilterExpectedKeys = Math.max(MIN_BLOOM_FILTER_EXPECTED_KEYS, 2 * _coldTier.size());
+    _coldTierBloomFilter = BloomFilter.create(Funnels.byteArrayFunnel(), _bloomFilterExpectedKeys, _bloomFilterFpp);
+    int capacity = _coldTier.getCapacity();
+    for (int i = 0; i < capacity; i++) {
+      if (_coldTier.isOccupied(i)) {
+        _coldTierBloomFilter.put(_coldTier.getKey(i));
+      }
+    }
+  }
+
+  private void flushMetrics() {
+    if (_numHotTierHits > 0) {
+      _serverMetrics.addMeteredTableValue(_tableNameWithType, ServerMeter.DEDUP_HOT_TIER_HITS, _numHotTierHits);
+    }
+    if (_numColdTierHits > 0) {
+      _serverMetrics.addMeteredTableValue(_tableNameWithType, ServerMeter.DEDUP_COLD_TIER_HITS, _numColdTierHits);
+    }
+    if (_numColdTierProbes > 0) {
+      _serverMetrics.addMeteredTableValue(_tableNameWithType, ServerMeter.DEDUP_COLD_TIER_PROBES, _numColdTierProbes);
+    }
+    if (_numKeysSpilled > 0) {
+      _serverMetrics.addMeteredTableValue(_tableNameWithType, ServerMeter.DEDUP_KEYS_SPILLED_TO_COLD_TIER,
+          _numKeysSpilled);
+    }
+    _numLookups = 0;
+    _numHotTierHits = 0;
+    _numColdTierHits = 0;
+    _numColdTierProbes = 0;
+    _numKeysSpilled = 0;
+  }
+
+  /**
+   * Returns the 16 bytes key stored in the tiers for the given primary key.
+   */
+  private byte[] getKey(PrimaryKey primaryKey) {
+    Object hashedPrimaryKey = HashUtils.hashPrimaryKey(primaryKey, _hashFunction);
+    byte[] bytes = hashedPrimaryKey instanceof ByteArray ? ((ByteArray) hashedPrimaryKey).getBytes()
+        : ((PrimaryKey) hashedPrimaryKey).asBytes();
+    return bytes.length == OffHeapRecordLocationMap.KEY_SIZE ? bytes : HashUtils.hashMurmur3(bytes);
+  }
+
+  private int acquireSegmentId(IndexSegment segment) {
+    int segmentId = _segmentToIdMap.getOrDefault(segment, OffHeapRecordLocationMap.EMPTY_SEGMENT_ID);
+    if (segmentId == OffHeapRecordLocationMap.EMPTY_SEGMENT_ID) {
+      segmentId = _nextSegmentId++;
+      _segmentToIdMap.put(segment, segmentId);
+      _idToSegmentMap.put(segmentId, segment);
+    }
+    _segmentIdToNumKeysMap.addTo(segmentId, 1);
+    return segmentId;
+  }
+
+  private void releaseSegmentId(int segmentId) {
+    if (_segmentIdToNumKeysMap.addTo(segmentId, -1) == 1) {
+      _segmentIdToNumKeysMap.remove(segmentId);
+      _segmentToIdMap.removeInt(_idToSegmentMap.remove(segmentId));
+    }
+  }
+}
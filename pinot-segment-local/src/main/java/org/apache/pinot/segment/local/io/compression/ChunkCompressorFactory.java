@@ -71,11 +71,32 @@ public class ChunkCompressorFactory {
       case GZIP:
         return new GzipCompressor();
 
+      case DELTA:
+      case DELTA_DELTA:
+      case FRAME_OF_REFERENCE:
+        throw new IllegalArgumentException(
+            "Value size is required for numeric compression type: " + compressionType);
+
       default:
         throw new IllegalArgumentException("Illegal compressor name " + compressionType);
     }
   }
 
+  /**
+   * Returns the chunk compressor for the specified name, for chunks of fixed width values of the given size. Numeric
+   * compression types (see {@link ChunkCompressionType#isNumeric()}) only apply to INT and LONG values.
+   *
+   * @param compressionType Type of compressor.
+   * @param valueSizeInBytes Size of each value in the chunk.
+   * @return Compressor for the specified type.
+   */
+  public static ChunkCompressor getCompressor(ChunkCompressionType compressionType, int valueSizeInBytes) {
+    if (compressionType.isNumeric()) {
+      return new NumericChunkCompressor(compressionType, valueSizeInBytes);
+    }
+    return getCompressor(compressionType);
+  }
+
   /**
    * Returns the chunk decompressor for the specified name.
    *
@@ -102,6 +123,15 @@ public class ChunkCompressorFactory {
       case GZIP:
         return new GzipDecompressor();
 
+      case DELTA:
+        return NumericChunkDecompressor.DELTA;
+
+      case DELTA_DELTA:
+        return NumericChunkDecompressor.DELTA_DELTA;
+
+      case FRAME_OF_REFERENCE:
+        return NumericChunkDecompressor.FRAME_OF_REFERENCE;
+
       default:
         throw new IllegalArgumentException("Illegal compressor name " + compressionType);
     }
@@ -0,0 +1,165 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.io.compression;
+
+import com.google.common.base.Preconditions;
+import java.nio.ByteBuffer;
+import org.apache.pinot.segment.spi.compression.ChunkCompressionType;
+import org.apache.pinot.segment.spi.compression.ChunkCompressor;
+
+
+/**
+ * Implementation of {@link ChunkCompressor} for the numeric compression types (see
+ * {@link ChunkCompressionType#isNumeric()}), which compresses a chunk of INT or LONG values into the following
+ * big-endian format:
+ * <ul>
+ *   <li>Value size in bytes (byte)</li>
+ *   <li>Number of values (int)</li>
+ *   <li>For DELTA: first value (long); for DELTA_DELTA: first value (long) and first delta (long)</li>
+ *   <li>Frame of reference: min residual (long) and number of bits per residual (byte)</li>
+ *   <li>Residuals minus the frame of reference, bit-packed into longs from the lowest bit</li>
+ * </ul>
+ * The residuals are the values for FRAME_OF_REFERENCE, the deltas between consecutive values for DELTA, and the deltas
+ * between consecutive deltas for DELTA_DELTA. The arithmetic wraps on overflow, which is reverted when decoding (see
+ * {@link NumericChunkDecompressor}).
+ */
+class NumericChunkCompressor implements ChunkCompressor {
+  // Value size, number of values, first value, first delta, min residual and number of bits per residual
+  private static final int MAX_HEADER_SIZE = Byte.BYTES + Integer.BYTES + 3 * Long.BYTES + Byte.BYTES;
+
+  private final ChunkCompressionType _compressionType;
+  private final int _valueSizeInBytes;
+
+  NumericChunkCompressor(ChunkCompressionType compressionType, int valueSizeInBytes) {
+    Preconditions.checkArgument(compressionType.isNumeric(), "Compression type: %s is not numeric", compressionType);
+    Preconditions.checkArgument(valueSizeInBytes == Integer.BYTES || valueSizeInBytes == Long.BYTES,
+        "Compression type: %s only applies to INT and LONG values, got value size: %s", compressionType,
+        valueSizeInBytes);
+    _compressionType = compressionType;
+    _valueSizeInBytes = valueSizeInBytes;
+  }
+
+  @Override
+  public int compress(ByteBuffer inUncompressed, ByteBuffer outCompressed) {
+    int numValues = inUncompressed.remaining() / _valueSizeInBytes;
+    long[] values = new long[numValues];
+    int position = inUncompressed.position();
+    if (_valueSizeInBytes == Integer.BYTES) {
+      for (int i = 0; i < numValues; i++) {
+        values[i] = inUncompressed.getInt(position + i * Integer.BYTES);
+      }
+    } else {
+      for (int i = 0; i < numValues; i++) {
+        values[i] = inUncompressed.getLong(position + i * Long.BYTES);
+      }
+    }
+    inUncompressed.position(inUncompressed.limit());
+
+    // Slice to always write in big-endian order
+    ByteBuffer out = outCompressed.slice();
+    out.put((byte) _valueSizeInBytes);
+    out.putInt(numValues);
+    int residualsStart;
+    switch (_compressionType) {
+      case DELTA:
+        residualsStart = Math.min(numValues, 1);
+        toDeltas(values, residualsStart);
+        out.putLong(numValues > 0 ? values[0] : 0);
+        break;
+      case DELTA_DELTA:
+        residualsStart = Math.min(numValues, 2);
+        toDeltas(values, 1);
+        toDeltas(values, residualsStart);
+        out.putLong(numValues > 0 ? values[0] : 0);
+        out.putLong(numValues > 1 ? values[1] : 0);
+        break;
+      case FRAME_OF_REFERENCE:
+        residualsStart = 0;
+        break;
+      default:
+        throw new IllegalStateException("Unsupported compression type: " + _compressionType);
+    }
+    pack(values, residualsStart, out);
+
+    outCompressed.position(outCompressed.position() + out.position());
+    outCompressed.flip();
+    return outCompressed.limit();
+  }
+
+  /**
+   * Replaces the values from the given index with the deltas from the previous value.
+   */
+  private static void toDeltas(long[] values, int startIndex) {
+    for (int i = values.length - 1; i >= startIndex && i > 0; i--) {
+      values[i] -= values[i - 1];
+    }
+  }
+
+  private static void pack(long[] residuals, int startIndex, ByteBuffer out) {
+    long minResidual = 0;
+    long maxResidual = 0;
+    if (startIndex < residuals.length) {
+      minResidual = Long.MAX_VALUE;
+      maxResidual = Long.MIN_VALUE;
+      for (int i = startIndex; i < residuals.length; i++) {
+        minResidual = Math.min(minResidual, residuals[i]);
+        maxResidual = Math.max(maxResidual, residuals[i]);
+      }
+    }
+    // NOTE: The range is unsigned, and might overflow as signed long
+    int numBitsPerValue = Long.SIZE - Long.numberOfLeadingZeros(maxResidual - minResidual);
+    out.putLong(minResidual);
+    out.put((byte) numBitsPerValue);
+    if (numBitsPerValue == 0) {
+      return;
+    }
+    if (numBitsPerValue == Long.SIZE) {
+      for (int i = startIndex; i < residuals.length; i++) {
+        out.putLong(residuals[i] - minResidual);
+      }
+      return;
+    }
+    long word = 0;
+    int numBitsInWord = 0;
+    for (int i = startIndex; i < residuals.length; i++) {
+      long value = residuals[i] - minResidual;
+      word |= value << numBitsInWord;
+      numBitsInWord += numBitsPerValue;
+      if (numBitsInWord >= Long.SIZE) {
+        out.putLong(word);
+        numBitsInWord -= Long.SIZE;
+        // Carry the remaining high bits of the value to the next word
+        word = numBitsInWord > 0 ? value >>> (numBitsPerValue - numBitsInWord) : 0;
+      }
+    }
+    if (numBitsInWord > 0) {
+      out.putLong(word);
+    }
+  }
+
+  @Override
+  public int maxCompressedSize(int uncompressedSize) {
+    return MAX_HEADER_SIZE + uncompressedSize / _valueSizeInBytes * Long.BYTES;
+  }
+
+  @Override
+  public ChunkCompressionType compressionType() {
+    return _compressionType;
+  }
+}
@@ -0,0 +1,257 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.io.compression;
+
+import java.nio.ByteBuffer;
+import org.apache.pinot.segment.spi.compression.ChunkCompressionType;
+import org.apache.pinot.segment.spi.compression.ChunkDecompressor;
+
+
+/**
+ * Implementation of {@link ChunkDecompressor} for the numeric compression types (see {@link NumericChunkCompressor}
+ * for the format). Besides decompressing into a buffer, the values can be decoded straight into an int or long array
+ * (see {@link #decompressInts(ByteBuffer, int[], int)} and {@link #decompressLongs(ByteBuffer, long[], int)}).
+ * <p>When decoding into an int array, the arithmetic is done on ints, which gives the same result as on longs because
+ * it wraps on overflow.
+ */
+public class NumericChunkDecompressor implements ChunkDecompressor {
+  static final NumericChunkDecompressor DELTA = new NumericChunkDecompressor(ChunkCompressionType.DELTA);
+  static final NumericChunkDecompressor DELTA_DELTA = new NumericChunkDecompressor(ChunkCompressionType.DELTA_DELTA);
+  static final NumericChunkDecompressor FRAME_OF_REFERENCE =
+      new NumericChunkDecompressor(ChunkCompressionType.FRAME_OF_REFERENCE);
+
+  private static final int VALUE_SIZE_OFFSET = 0;
+  private static final int NUM_VALUES_OFFSET = Byte.BYTES;
+
+  private final ChunkCompressionType _compressionType;
+
+  private NumericChunkDecompressor(ChunkCompressionType compressionType) {
+    _compressionType = compressionType;
+  }
+
+  @Override
+  public int decompress(ByteBuffer compressedInput, ByteBuffer decompressedOutput) {
+    int valueSizeInBytes = compressedInput.get(compressedInput.position() + VALUE_SIZE_OFFSET);
+    if (valueSizeInBytes == Integer.BYTES) {
+      int[] values = new int[getNumValues(compressedInput)];
+      decompressInts(compressedInput, values, 0);
+      for (int value : values) {
+        decompressedOutput.putInt(value);
+      }
+    } else {
+      long[] values = new long[getNumValues(compressedInput)];
+      decompressLongs(compressedInput, values, 0);
+      for (long value : values) {
+        decompressedOutput.putLong(value);
+      }
+    }
+    decompressedOutput.flip();
+    return decompressedOutput.limit();
+  }
+
+  @Override
+  public int decompressedLength(ByteBuffer compressedInput) {
+    return compressedInput.get(compressedInput.position() + VALUE_SIZE_OFFSET) * getNumValues(compressedInput);
+  }
+
+  /**
+   * Returns the number of values in the compressed chunk.
+   */
+  public int getNumValues(ByteBuffer compressedInput) {
+    return compressedInput.getInt(compressedInput.position() + NUM_VALUES_OFFSET);
+  }
+
+  /**
+   * Decodes the values of the compressed chunk into the given array starting from the given offset, and returns the
+   * number of values decoded.
+   */
+  public int decompressInts(ByteBuffer compressedInput, int[] values, int offset) {
+    // Slice to always read in big-endian order
+    ByteBuffer in = compressedInput.slice();
+    in.position(NUM_VALUES_OFFSET);
+    int numValues = in.getInt();
+    int end = offset + numValues;
+    switch (_compressionType) {
+      case DELTA: {
+        int residualsStart = offset + Math.min(numValues, 1);
+        int firstValue = (int) in.getLong();
+        unpack(in, values, residualsStart, end);
+        if (numValues > 0) {
+          values[offset] = firstValue;
+        }
+        for (int i = offset + 1; i < end; i++) {
+          values[i] += values[i - 1];
+        }
+        break;
+      }
+      case DELTA_DELTA: {
+        int residualsStart = offset + Math.min(numValues, 2);
+        int firstValue = (int) in.getLong();
+        int firstDelta = (int) in.getLong();
+        unpack(in, values, residualsStart, end);
+        if (numValues > 1) {
+          values[offset + 1] = firstDelta;
+        }
+        for (int i = offset + 2; i < end; i++) {
+          values[i] += values[i - 1];
+        }
+        if (numValues > 0) {
+          values[offset] = firstValue;
+        }
+        for (int i = offset + 1; i < end; i++) {
+          values[i] += values[i - 1];
+        }
+        break;
+      }
+      case FRAME_OF_REFERENCE:
+        unpack(in, values, offset, end);
+        break;
+      default:
+        throw new IllegalStateException("Unsupported compression type: " + _compressionType);
+    }
+    return numValues;
+  }
+
+  /**
+   * Decodes the values of the compressed chunk into the given array starting from the given offset, and returns the
+   * number of values decoded.
+   */
+  public int decompressLongs(ByteBuffer compressedInput, long[] values, int offset) {
+    // Slice to always read in big-endian order
+    ByteBuffer in = compressedInput.slice();
+    in.position(NUM_VALUES_OFFSET);
+    int numValues = in.getInt();
+    int end = offset + numValues;
+    switch (_compressionType) {
+      case DELTA: {
+        int residualsStart = offset + Math.min(numValues, 1);
+        long firstValue = in.getLong();
+        unpack(in, values, residualsStart, end);
+        if (numValues > 0) {
+          values[offset] = firstValue;
+        }
+        for (int i = offset + 1; i < end; i++) {
+          values[i] += values[i - 1];
+        }
+        break;
+      }
+      case DELTA_DELTA: {
+        int residualsStart = offset + Math.min(numValues, 2);
+        long firstValue = in.getLong();
+        long firstDelta = in.getLong();
+        unpack(in, values, residualsStart, end);
+        if (numValues > 1) {
+          values[offset + 1] = firstDelta;
+        }
+        for (int i = offset + 2; i < end; i++) {
+          values[i] += values[i - 1];
+        }
+        if (numValues > 0) {
+          values[offset] = firstValue;
+        }
+        for (int i = offset + 1; i < end; i++) {
+          values[i] += values[i - 1];
+        }
+        break;
+      }
+      case FRAME_OF_REFERENCE:
+        unpack(in, values, offset, end);
+        break;
+      default:
+        throw new IllegalStateException("Unsupported compression type: " + _compressionType);
+    }
+    return numValues;
+  }
+
+  /**
+   * Reads the frame of reference, and unpacks the residuals into the given range of the array.
+   */
+  private static void unpack(ByteBuffer in, int[] values, int start, int end) {
+    int minResidual = (int) in.getLong();
+    int numBitsPerValue = in.get();
+    if (numBitsPerValue == 0) {
+      for (int i = start; i < end; i++) {
+        values[i] = minResidual;
+      }
+      return;
+    }
+    if (numBitsPerValue == Long.SIZE) {
+      for (int i = start; i < end; i++) {
+        values[i] = (int) in.getLong() + minResidual;
+      }
+      return;
+    }
+    long mask = (1L << numBitsPerValue) - 1;
+    long word = 0;
+    int numBitsInWord = 0;
+    for (int i = start; i < end; i++) {
+      long value;
+      if (numBitsInWord >= numBitsPerValue) {
+        value = word & mask;
+        word >>>= numBitsPerValue;
+        numBitsInWord -= numBitsPerValue;
+      } else {
+        long nextWord = in.getLong();
+        value = (word | (nextWord << numBitsInWord)) & mask;
+        int numBitsFromNextWord = numBitsPerValue - numBitsInWord;
+        word = nextWord >>> numBitsFromNextWord;
+        numBitsInWord = Long.SIZE - numBitsFromNextWord;
+      }
+      values[i] = (int) value + minResidual;
+    }
+  }
+
+  /**
+   * Reads the frame of reference, and unpacks the residuals into the given range of the array.
+   */
+  private static void unpack(ByteBuffer in, long[] values, int start, int end) {
+    long minResidual = in.getLong();
+    int numBitsPerValue = in.get();
+    if (numBitsPerValue == 0) {
+      for (int i = start; i < end; i++) {
+        values[i] = minResidual;
+      }
+      return;
+    }
+    if (numBitsPerValue == Long.SIZE) {
+      for (int i = start; i < end; i++) {
+        values[i] = in.getLong() + minResidual;
+      }
+      return;
+    }
+    long mask = (1L << numBitsPerValue) - 1;
+    long word = 0;
+    int numBitsInWord = 0;
+    for (int i = start; i < end; i++) {
+      long value;
+      if (numBitsInWord >= numBitsPerValue) {
+        value = word & mask;
+        word >>>= numBitsPerValue;
+        numBitsInWord -= numBitsPerValue;
+      } else {
+        long nextWord = in.getLong();
+        value = (word | (nextWord << numBitsInWord)) & mask;
+        int numBitsFromNextWord = numBitsPerValue - numBitsInWord;
+        word = nextWord >>> numBitsFromNextWord;
+        numBitsInWord = Long.SIZE - numBitsFromNextWord;
+      }
+      values[i] = value + minResidual;
+    }
+  }
+}
@@ -0,0 +1,280 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.segment.creator.impl;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import javax.annotation.Nullable;
+import org.apache.pinot.segment.local.io.compression.ChunkCompressorFactory;
+import org.apache.pinot.segment.local.io.util.PinotDataBitSet;
+import org.apache.pinot.segment.local.startree.v2.builder.StarTreeV2BuilderConfig;
+import org.apache.pinot.segment.spi.compression.ChunkCompressionType;
+import org.apache.pinot.segment.spi.compression.ChunkCompressor;
+import org.apache.pinot.segment.spi.creator.ColumnStatistics;
+import org.apache.pinot.segment.spi.creator.SegmentPreIndexStatsContainer;
+import org.apache.pinot.segment.spi.index.FieldIndexConfigs;
+import org.apache.pinot.segment.spi.index.ForwardIndexConfig;
+import org.apache.pinot.segment.spi.index.StandardIndexes;
+import org.apache.pinot.spi.config.table.FieldConfig.CompressionCodec;
+import org.apache.pinot.spi.config.table.FieldConfig.EncodingType;
+import org.apache.pinot.spi.config.table.StarTreeIndexConfig;
+import org.apache.pinot.spi.data.ComplexFieldSpec;
+import org.apache.pinot.spi.data.FieldSpec;
+import org.apache.pinot.spi.data.FieldSpec.DataType;
+import org.apache.pinot.spi.data.Schema;
+import org.apache.pinot.spi.utils.BytesUtils;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+
+/**
+ * Selects the encoding of a column (dictionary or raw with a compression codec) when auto encoding is enabled in the
+ * table config (see {@link org.apache.pinot.spi.config.table.IndexingConfig#isAutoEncoding()}).
+ * <p>The size of the dictionary encoded index is computed from the column statistics. The size of the raw index is
+ * estimated by compressing a sample of the values with each compression codec, and scaling the compression ratio to
+ * all the values of the column. The candidates are evaluated in the order of decoding speed (dictionary, then raw with
+ * PASS_THROUGH, the numeric codecs for INT and LONG values, LZ4 and ZSTANDARD), and a slower candidate is only selected
+ * when it reduces the size by at least {@link #MIN_SIZE_REDUCTION_RATIO}.
+ */
+public class AutoEncodingSelector {
+  private AutoEncodingSelector() {
+  }
+
+  public static final int MAX_SAMPLE_SIZE = 10_000;
+  public static final double MIN_SIZE_REDUCTION_RATIO = 0.1;
+
+  // Ordered by decoding speed
+  private static final CompressionCodec[] RAW_COMPRESSION_CODECS =
+      {CompressionCodec.PASS_THROUGH, CompressionCodec.LZ4, CompressionCodec.ZSTANDARD};
+  private static final CompressionCodec[] NUMERIC_RAW_COMPRESSION_CODECS = {
+      CompressionCodec.PASS_THROUGH, CompressionCodec.FRAME_OF_REFERENCE, CompressionCodec.DELTA,
+      CompressionCodec.DELTA_DELTA, CompressionCodec.LZ4, CompressionCodec.ZSTANDARD
+  };
+
+  /**
+   * Returns {@code true} if the encoding of the column can be auto selected, i.e. the column is single-valued, of a
+   * supported stored type, and the encoding is not constrained by the index configs (dictionary explicitly disabled,
+   * compression codec explicitly configured, forward index disabled, or indexes requiring a dictionary). The columns
+   * used as star-tree dimensions (see {@link #getStarTreeDimensions}) should be excluded as well.
+   */
+  public static boolean isApplicable(FieldSpec fieldSpec, FieldIndexConfigs fieldIndexConfigs) {
+    if (fieldSpec instanceof ComplexFieldSpec || !fieldSpec.isSingleValueField()) {
+      return false;
+    }
+    switch (fieldSpec.getDataType().getStoredType()) {
+      case INT:
+      case LONG:
+      case FLOAT:
+      case DOUBLE:
+      case STRING:
+      case BYTES:
+        break;
+      default:
+        return false;
+    }
+    if (fieldIndexConfigs.getConfig(StandardIndexes.dictionary()).isDisabled()) {
+      return false;
+    }
+    ForwardIndexConfig forwardIndexConfig = fieldIndexConfigs.getConfig(StandardIndexes.forward());
+    if (!forwardIndexConfig.isEnabled() || forwardIndexConfig.getCompressionCodec() != null) {
+      return false;
+    }
+    return !fieldIndexConfigs.getConfig(StandardIndexes.inverted()).isEnabled()
+        && !fieldIndexConfigs.getConfig(StandardIndexes.fst()).isEnabled()
+        && !fieldIndexConfigs.getConfig(StandardIndexes.ifst()).isEnabled();
+  }
+
+  /**
+   * Returns the columns which might be used as star-tree dimensions, and must be dictionary encoded. These are the
+   * dimensions of the configured star-trees, and when the default star-tree is enabled, the columns it might pick
+   * (dimensions within the cardinality threshold and time columns, see
+   * {@link StarTreeV2BuilderConfig#generateDefaultConfig(org.apache.pinot.segment.spi.SegmentMetadata)}).
+   */
+  public static Set<String> getStarTreeDimensions(@Nullable List<StarTreeIndexConfig> starTreeIndexConfigs,
+      boolean enableDefaultStarTree, Schema schema, SegmentPreIndexStatsContainer segmentStats)
+      throws Exception {
+    Set<String> starTreeDimensions = new HashSet<>();
+    if (starTreeIndexConfigs != null) {
+      for (StarTreeIndexConfig starTreeIndexConfig : starTreeIndexConfigs) {
+        starTreeDimensions.addAll(starTreeIndexConfig.getDimensionsSplitOrder());
+      }
+    }
+    if (enableDefaultStarTree) {
+      for (FieldSpec fieldSpec : schema.getAllFieldSpecs()) {
+        if (!fieldSpec.isSingleValueField() || fieldSpec.isVirtualColumn()) {
+          continue;
+        }
+        String column = fieldSpec.getName();
+        switch (fieldSpec.getFieldType()) {
+          case DIMENSION:
+            if (segmentStats.getColumnProfileFor(column).getCardinality()
+                <= StarTreeV2BuilderConfig.DIMENSION_CARDINALITY_THRESHOLD_FOR_DEFAULT_CONFIG) {
+              starTreeDimensions.add(column);
+            }
+            break;
+          case DATE_TIME:
+          case TIME:
+            starTreeDimensions.add(column);
+            break;
+          default:
+            break;
+        }
+      }
+    }
+    return starTreeDimensions;
+  }
+
+  /**
+   * Selects the encoding for the column based on the column statistics and the sample values (the first values of
+   * the column).
+   */
+  public static Selection select(FieldSpec fieldSpec, ColumnStatistics columnStatistics, List<Object> sampleValues) {
+    long dictionarySize = getDictionaryEncodedSize(fieldSpec, columnStatistics);
+    Selection selection = new Selection(EncodingType.DICTIONARY, null, dictionarySize);
+    // Sorted column has the most compact dictionary encoded forward index (start and end doc id for each value)
+    if (columnStatistics.isSorted() || sampleValues.isEmpty()) {
+      return selection;
+    }
+    DataType storedType = fieldSpec.getDataType().getStoredType();
+    ByteBuffer sampleBuffer = serialize(storedType, sampleValues);
+    int sampleSize = sampleBuffer.remaining();
+    double numValuesRatio = (double) columnStatistics.getTotalNumberOfEntries() / sampleValues.size();
+    CompressionCodec[] compressionCodecs =
+        storedType == DataType.INT || storedType == DataType.LONG ? NUMERIC_RAW_COMPRESSION_CODECS
+            : RAW_COMPRESSION_CODECS;
+    for (CompressionCodec compressionCodec : compressionCodecs) {
+      long compressedSampleSize = compress(compressionCodec, storedType, sampleBuffer.duplicate(), sampleSize);
+      long rawSize = (long) (compressedSampleSize * numValuesRatio);
+      if (rawSize < selection.getEstimatedSize() * (1 - MIN_SIZE_REDUCTION_RATIO)) {
+        selection = new Selection(EncodingType.RAW, compressionCodec, rawSize);
+      }
+    }
+    return selection;
+  }
+
+  private static long getDictionaryEncodedSize(FieldSpec fieldSpec, ColumnStatistics columnStatistics) {
+    int cardinality = columnStatistics.getCardinality();
+    DataType storedType = fieldSpec.getDataType().getStoredType();
+    int numBytesPerValue =
+        storedType.isFixedWidth() ? storedType.size() : columnStatistics.getLengthOfLargestElement();
+    long dictionarySize = (long) cardinality * numBytesPerValue;
+    long forwardIndexSize =
+        (long) columnStatistics.getTotalNumberOfEntries() * PinotDataBitSet.getNumBitsPerValue(cardinality - 1)
+            / Byte.SIZE;
+    return dictionarySize + forwardIndexSize;
+  }
+
+  private static ByteBuffer serialize(DataType storedType, List<Object> values) {
+    if (storedType.isFixedWidth()) {
+      ByteBuffer buffer = ByteBuffer.allocateDirect(values.size() * storedType.size());
+      for (Object value : values) {
+        Number number = (Number) value;
+        switch (storedType) {
+          case INT:
+            buffer.putInt(number.intValue());
+            break;
+          case LONG:
+            buffer.putLong(number.longValue());
+            break;
+          case FLOAT:
+            buffer.putFloat(number.floatValue());
+            break;
+          case DOUBLE:
+            buffer.putDouble(number.doubleValue());
+            break;
+          default:
+            throw new IllegalStateException("Unsupported stored type: " + storedType);
+        }
+      }
+      buffer.flip();
+      return buffer;
+    }
+    // Variable width values are stored with a 4 bytes offset per value
+    List<byte[]> bytesValues = new ArrayList<>(values.size());
+    int size = 0;
+    for (Object value : values) {
+      byte[] bytes;
+      if (value instanceof byte[]) {
+        bytes = (byte[]) value;
+      } else if (storedType == DataType.BYTES) {
+        bytes = BytesUtils.toBytes(value.toString());
+      } else {
+        bytes = value.toString().getBytes(UTF_8);
+      }
+      bytesValues.add(bytes);
+      size += Integer.BYTES + bytes.length;
+    }
+    ByteBuffer buffer = ByteBuffer.allocateDirect(size);
+    for (byte[] bytes : bytesValues) {
+      buffer.putInt(bytes.length);
+      buffer.put(bytes);
+    }
+    buffer.flip();
+    return buffer;
+  }
+
+  private static long compress(CompressionCodec compressionCodec, DataType storedType, ByteBuffer uncompressed,
+      int uncompressedSize) {
+    if (compressionCodec == CompressionCodec.PASS_THROUGH) {
+      return uncompressedSize;
+    }
+    ChunkCompressionType compressionType = ChunkCompressionType.valueOf(compressionCodec.name());
+    try (ChunkCompressor compressor = compressionType.isNumeric()
+        ? ChunkCompressorFactory.getCompressor(compressionType, storedType.size())
+        : ChunkCompressorFactory.getCompressor(compressionType)) {
+      ByteBuffer compressed = ByteBuffer.allocateDirect(compressor.maxCompressedSize(uncompressedSize));
+      return compressor.compress(uncompressed, compressed);
+    } catch (IOException e) {
+      throw new IllegalStateException("Caught exception while compressing sample values with: " + compressionCodec,
+          e);
+    }
+  }
+
+  public static class Selection {
+    private final EncodingType _encodingType;
+    private final CompressionCodec _compressionCodec;
+    private final long _estimatedSize;
+
+    public Selection(EncodingType encodingType, @Nullable CompressionCodec compressionCodec, long estimatedSize) {
+      _encodingType = encodingType;
+      _compressionCodec = compressionCodec;
+      _estimatedSize = estimatedSize;
+    }
+
+    public EncodingType getEncodingType() {
+      return _encodingType;
+    }
+
+    /**
+     * Returns the compression codec of the raw index, or {@code null} for dictionary encoding.
+     */
+    @Nullable
+    public CompressionCodec getCompressionCodec() {
+      return _compressionCodec;
+    }
+
+    public long getEstimatedSize() {
+      return _estimatedSize;
+    }
+  }
+}
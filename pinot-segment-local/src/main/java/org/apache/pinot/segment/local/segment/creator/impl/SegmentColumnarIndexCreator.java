@@ -60,6 +60,7 @@ import org.apache.pinot.segment.spi.index.TextIndexConfig;
 import org.apache.pinot.segment.spi.index.creator.ForwardIndexCreator;
 import org.apache.pinot.segment.spi.index.creator.SegmentIndexCreationInfo;
 import org.apache.pinot.segment.spi.partition.PartitionFunction;
+import org.apache.pinot.spi.config.table.FieldConfig;
 import org.apache.pinot.spi.config.table.IndexConfig;
 import org.apache.pinot.spi.config.table.SegmentZKPropsConfig;
 import org.apache.pinot.spi.data.ComplexFieldSpec;
@@ -595,6 +596,19 @@ public class SegmentColumnarIndexCreator implements SegmentCreator {
       int dictionaryElementSize = (dictionaryCreator != null) ? dictionaryCreator.getNumBytesPerEntry() : 0;
       addColumnMetadataInfo(properties, column, columnIndexCreationInfo, _totalDocs, _schema.getFieldSpecFor(column),
           dictionaryCreator != null, dictionaryElementSize);
+      if (_config.getAutoSelectedEncodings().containsKey(column)) {
+        if (dictionaryCreator != null) {
+          properties.setProperty(getKeyFor(column, AUTO_SELECTED_ENCODING), FieldConfig.EncodingType.DICTIONARY);
+        } else {
+          properties.setProperty(getKeyFor(column, AUTO_SELECTED_ENCODING), FieldConfig.EncodingType.RAW);
+          FieldConfig.CompressionCodec compressionCodec =
+              _config.getIndexConfigsByColName().get(column).getConfig(StandardIndexes.forward())
+                  .getCompressionCodec();
+          if (compressionCodec != null) {
+            properties.setProperty(getKeyFor(column, AUTO_SELECTED_COMPRESSION_CODEC), compressionCodec);
+          }
+        }
+      }
     }
 
     SegmentZKPropsConfig segmentZKPropsConfig = _config.getSegmentZKPropsConfig();
@@ -23,6 +23,7 @@ import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -62,6 +63,7 @@ import org.apache.pinot.segment.spi.creator.SegmentVersion;
 import org.apache.pinot.segment.spi.creator.StatsCollectorConfig;
 import org.apache.pinot.segment.spi.index.DictionaryIndexConfig;
 import org.apache.pinot.segment.spi.index.FieldIndexConfigs;
+import org.apache.pinot.segment.spi.index.ForwardIndexConfig;
 import org.apache.pinot.segment.spi.index.IndexHandler;
 import org.apache.pinot.segment.spi.index.IndexService;
 import org.apache.pinot.segment.spi.index.IndexType;
@@ -71,6 +73,7 @@ import org.apache.pinot.segment.spi.loader.SegmentDirectoryLoaderContext;
 import org.apache.pinot.segment.spi.loader.SegmentDirectoryLoaderRegistry;
 import org.apache.pinot.segment.spi.store.SegmentDirectory;
 import org.apache.pinot.segment.spi.store.SegmentDirectoryPaths;
+import org.apache.pinot.spi.config.table.FieldConfig;
 import org.apache.pinot.spi.config.table.StarTreeIndexConfig;
 import org.apache.pinot.spi.config.table.TableConfig;
 import org.apache.pinot.spi.data.FieldSpec;
@@ -579,6 +582,9 @@ public class SegmentIndexCreationDriverImpl implements SegmentIndexCreationDrive
         new StatsCollectorConfig(_config.getTableConfig(), _dataSchema, _config.getSegmentPartitionConfig()));
     _totalDocs = _segmentStats.getTotalDocCount();
     Map<String, FieldIndexConfigs> indexConfigsMap = _config.getIndexConfigsByColName();
+    if (_config.isAutoEncoding() && _totalDocs > 0) {
+      selectEncodings(indexConfigsMap);
+    }
 
     for (FieldSpec fieldSpec : _dataSchema.getAllFieldSpecs()) {
       // Ignore virtual columns
@@ -605,6 +611,74 @@ public class SegmentIndexCreationDriverImpl implements SegmentIndexCreationDrive
     _totalStatsCollectorTimeNs = System.nanoTime() - statsCollectorStartTime;
   }
 
+  /**
+   * Selects the encoding of the eligible columns (see {@link AutoEncodingSelector}) based on the collected stats and
+   * the values of the first records, and overrides the index configs of the columns selected as raw.
+   */
+  private void selectEncodings(Map<String, FieldIndexConfigs> indexConfigsMap)
+      throws Exception {
+    Set<String> starTreeDimensions =
+        AutoEncodingSelector.getStarTreeDimensions(_config.getStarTreeIndexConfigs(), _config.isEnableDefaultStarTree(),
+            _dataSchema, _segmentStats);
+    Map<String, List<Object>> sampleValuesMap = new HashMap<>();
+    for (FieldSpec fieldSpec : _dataSchema.getAllFieldSpecs()) {
+      if (!fieldSpec.isVirtualColumn() && !starTreeDimensions.contains(fieldSpec.getName())
+          && AutoEncodingSelector.isApplicable(fieldSpec, indexConfigsMap.get(fieldSpec.getName()))) {
+        sampleValuesMap.put(fieldSpec.getName(), new ArrayList<>());
+      }
+    }
+    if (sampleValuesMap.isEmpty()) {
+      return;
+    }
+
+    // Use a separate transform pipeline so that the sampled rows are not counted in the stats of the transform pipeline
+    TransformPipeline transformPipeline = new TransformPipeline(_config.getTableConfig(), _dataSchema);
+    int numSampledRows = 0;
+    _recordReader.rewind();
+    GenericRow reuse = new GenericRow();
+    while (_recordReader.hasNext() && numSampledRows < AutoEncodingSelector.MAX_SAMPLE_SIZE) {
+      reuse.clear();
+      TransformPipeline.Result result;
+      try {
+        result = transformPipeline.processRow(_recordReader.next(reuse));
+      } catch (Exception e) {
+        // The error is handled when indexing the record
+        continue;
+      }
+      for (GenericRow row : result.getTransformedRows()) {
+        for (Map.Entry<String, List<Object>> entry : sampleValuesMap.entrySet()) {
+          Object value = row.getValue(entry.getKey());
+          if (value != null) {
+            entry.getValue().add(value);
+          }
+        }
+        numSampledRows++;
+      }
+    }
+    _recordReader.rewind();
+
+    for (Map.Entry<String, List<Object>> entry : sampleValuesMap.entrySet()) {
+      String column = entry.getKey();
+      FieldSpec fieldSpec = _dataSchema.getFieldSpecFor(column);
+      AutoEncodingSelector.Selection selection =
+          AutoEncodingSelector.select(fieldSpec, _segmentStats.getColumnProfileFor(column), entry.getValue());
+      LOGGER.info("Selected encoding: {}, compression codec: {} with estimated size: {} for column: {}",
+          selection.getEncodingType(), selection.getCompressionCodec(), selection.getEstimatedSize(), column);
+      if (selection.getEncodingType() == FieldConfig.EncodingType.RAW) {
+        FieldIndexConfigs fieldIndexConfigs = indexConfigsMap.get(column);
+        ForwardIndexConfig forwardIndexConfig =
+            new ForwardIndexConfig.Builder(fieldIndexConfigs.getConfig(StandardIndexes.forward()))
+                .withCompressionCodec(selection.getCompressionCodec())
+                .build();
+        indexConfigsMap.put(column, new FieldIndexConfigs.Builder(fieldIndexConfigs)
+            .add(StandardIndexes.dictionary(), DictionaryIndexConfig.DISABLED)
+            .add(StandardIndexes.forward(), forwardIndexConfig)
+            .build());
+      }
+      _config.setAutoSelectedEncoding(column, selection.getEncodingType());
+    }
+  }
+
   /**
    * Uses config and column properties like storedType and length of elements to determine if
    * varLengthDictionary should be used for a column
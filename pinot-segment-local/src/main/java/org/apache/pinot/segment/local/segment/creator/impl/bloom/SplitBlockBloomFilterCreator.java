@@ -0,0 +1,95 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.segment.creator.impl.bloom;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import org.apache.pinot.segment.local.segment.index.readers.bloom.GuavaBloomFilterReaderUtils;
+import org.apache.pinot.segment.local.segment.index.readers.bloom.SplitBlockBloomFilterUtils;
+import org.apache.pinot.segment.spi.V1Constants;
+import org.apache.pinot.segment.spi.index.creator.BloomFilterCreator;
+import org.apache.pinot.spi.config.table.BloomFilterConfig;
+import org.apache.pinot.spi.data.FieldSpec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * On-heap creator for split block bloom filter (see {@link SplitBlockBloomFilterUtils}), which is flushed to disk with
+ * the following format:
+ * <ul>
+ *   <li>Header: type value (int), version (int), number of blocks (int)</li>
+ *   <li>Blocks: 8 int words per block</li>
+ * </ul>
+ */
+public class SplitBlockBloomFilterCreator implements BloomFilterCreator {
+  private static final Logger LOGGER = LoggerFactory.getLogger(SplitBlockBloomFilterCreator.class);
+
+  public static final int TYPE_VALUE = 2;
+  public static final int VERSION = 1;
+
+  private final File _bloomFilterFile;
+  private final FieldSpec.DataType _dataType;
+  private final int _numBlocks;
+  private final int[] _words;
+
+  public SplitBlockBloomFilterCreator(File indexDir, String columnName, int cardinality,
+      BloomFilterConfig bloomFilterConfig, FieldSpec.DataType dataType) {
+    _dataType = dataType;
+    _bloomFilterFile = new File(indexDir, columnName + V1Constants.Indexes.BLOOM_FILTER_FILE_EXTENSION);
+    _numBlocks = SplitBlockBloomFilterUtils.computeNumBlocks(cardinality, bloomFilterConfig.getFpp(),
+        bloomFilterConfig.getMaxSizeInBytes());
+    LOGGER.info("Creating split block bloom filter with cardinality: {}, fpp: {}, number of blocks: {}", cardinality,
+        bloomFilterConfig.getFpp(), _numBlocks);
+    _words = new int[_numBlocks * SplitBlockBloomFilterUtils.NUM_WORDS_PER_BLOCK];
+  }
+
+  @Override
+  public FieldSpec.DataType getDataType() {
+    return _dataType;
+  }
+
+  @Override
+  public void add(String value) {
+    long hash1 = GuavaBloomFilterReaderUtils.hashAsLongs(value).getHash1();
+    int firstWordIndex = SplitBlockBloomFilterUtils.getFirstWordIndex(hash1, _numBlocks);
+    for (int i = 0; i < SplitBlockBloomFilterUtils.NUM_WORDS_PER_BLOCK; i++) {
+      _words[firstWordIndex + i] |= SplitBlockBloomFilterUtils.getMask(hash1, i);
+    }
+  }
+
+  @Override
+  public void seal()
+      throws IOException {
+    try (DataOutputStream out = new DataOutputStream(new FileOutputStream(_bloomFilterFile))) {
+      out.writeInt(TYPE_VALUE);
+      out.writeInt(VERSION);
+      out.writeInt(_numBlocks);
+      for (int word : _words) {
+        out.writeInt(word);
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+  }
+}
@@ -0,0 +1,205 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.segment.creator.impl.zonemap;
+
+import com.google.common.base.Preconditions;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import javax.annotation.Nullable;
+import org.apache.pinot.segment.spi.V1Constants;
+import org.apache.pinot.segment.spi.index.creator.ZoneMapCreator;
+import org.apache.pinot.spi.data.FieldSpec.DataType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * On-heap creator for the zone map. The min and max values of the zones are kept on heap (2 values per zone), and
+ * flushed to disk when sealed with the following format:
+ * <ul>
+ *   <li>Header: version (int), whether the column is dictionary-encoded (int), number of docs per zone (int), number of
+ *   zones (int)</li>
+ *   <li>For each zone: min value, max value (stored as dictionary id for dictionary-encoded column, or stored type of
+ *   the column for raw column)</li>
+ * </ul>
+ * Zone map can only be created on single-value column which is either dictionary-encoded or of numeric stored type
+ * (INT, LONG, FLOAT, DOUBLE). For other columns, no zone map is created.
+ */
+public class ZoneMapIndexCreator implements ZoneMapCreator {
+  private static final Logger LOGGER = LoggerFactory.getLogger(ZoneMapIndexCreator.class);
+
+  public static final int VERSION = 1;
+  public static final int HEADER_SIZE = 4 * Integer.BYTES;
+
+  private final File _zoneMapFile;
+  private final boolean _dictionaryEncoded;
+  // Type of the min / max values, or null if zone map is not supported on the column
+  private final DataType _valueType;
+  private final int _numDocsPerZone;
+  private final int _numZones;
+  // INT and LONG values are tracked as long, FLOAT and DOUBLE values are tracked as double
+  private final long[] _longMinValues;
+  private final long[] _longMaxValues;
+  private final double[] _doubleMinValues;
+  private final double[] _doubleMaxValues;
+
+  private int _nextDocId;
+
+  public ZoneMapIndexCreator(File indexDir, String columnName, DataType storedType, boolean dictionaryEncoded,
+      int numDocs, int numDocsPerZone) {
+    Preconditions.checkArgument(numDocsPerZone > 0, "Invalid number of docs per zone: %s", numDocsPerZone);
+    _zoneMapFile = new File(indexDir, columnName + V1Constants.Indexes.ZONE_MAP_FILE_EXTENSION);
+    _dictionaryEncoded = dictionaryEncoded;
+    _valueType = getValueType(storedType, dictionaryEncoded);
+    _numDocsPerZone = numDocsPerZone;
+    _numZones = (int) (((long) numDocs + numDocsPerZone - 1) / numDocsPerZone);
+    if (_valueType == DataType.INT || _valueType == DataType.LONG) {
+      _longMinValues = new long[_numZones];
+      _longMaxValues = new long[_numZones];
+      Arrays.fill(_longMinValues, Long.MAX_VALUE);
+      Arrays.fill(_longMaxValues, Long.MIN_VALUE);
+    } else {
+      _longMinValues = null;
+      _longMaxValues = null;
+    }
+    if (_valueType == DataType.FLOAT || _valueType == DataType.DOUBLE) {
+      _doubleMinValues = new double[_numZones];
+      _doubleMaxValues = new double[_numZones];
+      Arrays.fill(_doubleMinValues, Double.POSITIVE_INFINITY);
+      Arrays.fill(_doubleMaxValues, Double.NEGATIVE_INFINITY);
+    } else {
+      _doubleMinValues = null;
+      _doubleMaxValues = null;
+    }
+    if (_valueType == null) {
+      LOGGER.warn("Skipping creating zone map for raw column: {} of stored type: {}", columnName, storedType);
+    }
+  }
+
+  /**
+   * Returns the type of the min / max values recorded in the zone map, or {@code null} if zone map is not supported on
+   * the column.
+   */
+  @Nullable
+  public static DataType getValueType(DataType storedType, boolean dictionaryEncoded) {
+    if (dictionaryEncoded) {
+      return DataType.INT;
+    }
+    switch (storedType) {
+      case INT:
+      case LONG:
+      case FLOAT:
+      case DOUBLE:
+        return storedType;
+      default:
+        return null;
+    }
+  }
+
+  @Override
+  public void add(Object value, int dictId) {
+    if (_valueType == null) {
+      return;
+    }
+    int zoneId = _nextDocId++ / _numDocsPerZone;
+    if (_dictionaryEncoded) {
+      addLong(zoneId, dictId);
+      return;
+    }
+    switch (_valueType) {
+      case INT:
+      case LONG:
+        addLong(zoneId, ((Number) value).longValue());
+        break;
+      case FLOAT:
+      case DOUBLE:
+        addDouble(zoneId, ((Number) value).doubleValue());
+        break;
+      default:
+        throw new IllegalStateException("Unsupported value type: " + _valueType);
+    }
+  }
+
+  private void addLong(int zoneId, long value) {
+    if (value < _longMinValues[zoneId]) {
+      _longMinValues[zoneId] = value;
+    }
+    if (value > _longMaxValues[zoneId]) {
+      _longMaxValues[zoneId] = value;
+    }
+  }
+
+  private void addDouble(int zoneId, double value) {
+    // NaN is not recorded because it never matches the EQ and RANGE predicates
+    if (value < _doubleMinValues[zoneId]) {
+      _doubleMinValues[zoneId] = value;
+    }
+    if (value > _doubleMaxValues[zoneId]) {
+      _doubleMaxValues[zoneId] = value;
+    }
+  }
+
+  @Override
+  public void add(Object[] values, @Nullable int[] dictIds) {
+    throw new UnsupportedOperationException("Zone map is not supported on multi-value column");
+  }
+
+  @Override
+  public void seal()
+      throws IOException {
+    if (_valueType == null) {
+      return;
+    }
+    try (DataOutputStream out = new DataOutputStream(new FileOutputStream(_zoneMapFile))) {
+      out.writeInt(VERSION);
+      out.writeInt(_dictionaryEncoded ? 1 : 0);
+      out.writeInt(_numDocsPerZone);
+      out.writeInt(_numZones);
+      for (int i = 0; i < _numZones; i++) {
+        switch (_valueType) {
+          case INT:
+            out.writeInt((int) _longMinValues[i]);
+            out.writeInt((int) _longMaxValues[i]);
+            break;
+          case LONG:
+            out.writeLong(_longMinValues[i]);
+            out.writeLong(_longMaxValues[i]);
+            break;
+          case FLOAT:
+            out.writeFloat((float) _doubleMinValues[i]);
+            out.writeFloat((float) _doubleMaxValues[i]);
+            break;
+          case DOUBLE:
+            out.writeDouble(_doubleMinValues[i]);
+            out.writeDouble(_doubleMaxValues[i]);
+            break;
+          default:
+            throw new IllegalStateException("Unsupported value type: " + _valueType);
+        }
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+  }
+}
@@ -25,6 +25,7 @@ import java.util.List;
 import java.util.Map;
 import javax.annotation.Nullable;
 import org.apache.pinot.segment.local.segment.creator.impl.bloom.OnHeapGuavaBloomFilterCreator;
+import org.apache.pinot.segment.local.segment.creator.impl.bloom.SplitBlockBloomFilterCreator;
 import org.apache.pinot.segment.local.segment.index.loader.bloomfilter.BloomFilterHandler;
 import org.apache.pinot.segment.local.segment.index.readers.bloom.BloomFilterReaderFactory;
 import org.apache.pinot.segment.spi.ColumnMetadata;
@@ -106,10 +107,22 @@ public class BloomIndexType extends AbstractIndexType<BloomFilterConfig, BloomFi
       // TODO (saurabh) Check if we can do a better estimate
       cardinality = context.getTotalNumberOfEntries();
     }
+    if (indexConfig.getType() == BloomFilterConfig.Type.SPLIT_BLOCK) {
+      return new SplitBlockBloomFilterCreator(context.getIndexDir(), context.getFieldSpec().getName(), cardinality,
+          indexConfig, context.getFieldSpec().getDataType());
+    }
     return new OnHeapGuavaBloomFilterCreator(context.getIndexDir(), context.getFieldSpec().getName(), cardinality,
         indexConfig, context.getFieldSpec().getDataType());
   }
 
+  /**
+   * Returns the type value stored in the header of the bloom filter created with the given config.
+   */
+  public static int getTypeValue(BloomFilterConfig indexConfig) {
+    return indexConfig.getType() == BloomFilterConfig.Type.SPLIT_BLOCK ? SplitBlockBloomFilterCreator.TYPE_VALUE
+        : OnHeapGuavaBloomFilterCreator.TYPE_VALUE;
+  }
+
   @Override
   public IndexReaderFactory<BloomFilterReader> getReaderFactory() {
     return ReaderFactory.INSTANCE;
@@ -31,6 +31,7 @@ import java.util.Map;
 import java.util.Set;
 import javax.annotation.Nullable;
 import org.apache.commons.io.FileUtils;
+import org.apache.pinot.segment.local.segment.creator.impl.AutoEncodingSelector;
 import org.apache.pinot.segment.local.segment.creator.impl.SegmentDictionaryCreator;
 import org.apache.pinot.segment.local.segment.creator.impl.fwd.MultiValueVarByteRawIndexCreator;
 import org.apache.pinot.segment.local.segment.creator.impl.stats.AbstractColumnStatisticsCollector;
@@ -64,6 +65,7 @@ import org.apache.pinot.segment.spi.index.reader.ForwardIndexReader;
 import org.apache.pinot.segment.spi.index.reader.ForwardIndexReaderContext;
 import org.apache.pinot.segment.spi.store.SegmentDirectory;
 import org.apache.pinot.segment.spi.utils.SegmentMetadataUtils;
+import org.apache.pinot.spi.config.table.FieldConfig;
 import org.apache.pinot.spi.config.table.IndexingConfig;
 import org.apache.pinot.spi.config.table.TableConfig;
 import org.apache.pinot.spi.data.FieldSpec;
@@ -97,7 +99,8 @@ public class ForwardIndexHandler extends BaseIndexHandler {
 
   // This should contain a list of all indexes that need to be rewritten if the dictionary is enabled or disabled
   private static final List<IndexType<?, ?, ?>> DICTIONARY_BASED_INDEXES_TO_REWRITE =
-      Arrays.asList(StandardIndexes.range(), StandardIndexes.fst(), StandardIndexes.inverted());
+      Arrays.asList(StandardIndexes.range(), StandardIndexes.fst(), StandardIndexes.inverted(),
+          StandardIndexes.zoneMap());
 
   protected enum Operation {
     DISABLE_FORWARD_INDEX, ENABLE_FORWARD_INDEX, DISABLE_DICTIONARY, ENABLE_DICTIONARY, CHANGE_INDEX_COMPRESSION_TYPE
@@ -298,7 +301,13 @@ public class ForwardIndexHandler extends BaseIndexHandler {
         // Existing column is RAW. New column is dictionary enabled.
         ColumnMetadata existingColumnMetadata = _segmentDirectory.getSegmentMetadata().getColumnMetadataFor(column);
         IndexingConfig indexingConfig = _tableConfig.getIndexingConfig();
-        if (existingColumnMetadata.getFieldSpec().getFieldType() != FieldSpec.FieldType.COMPLEX
+        // Keep the raw encoding auto selected during segment creation as long as the column is still eligible for auto
+        // encoding
+        boolean keepAutoSelectedEncoding = indexingConfig.isAutoEncoding()
+            && existingColumnMetadata.getAutoSelectedEncoding() == FieldConfig.EncodingType.RAW
+            && AutoEncodingSelector.isApplicable(existingColumnMetadata.getFieldSpec(), _fieldIndexConfigs.get(column));
+        if (!keepAutoSelectedEncoding
+            && existingColumnMetadata.getFieldSpec().getFieldType() != FieldSpec.FieldType.COMPLEX
             && DictionaryIndexType.ignoreDictionaryOverride(indexingConfig.isOptimizeDictionary(),
             indexingConfig.isOptimizeDictionaryForMetrics(), indexingConfig.getNoDictionarySizeRatioThreshold(),
             indexingConfig.getNoDictionaryCardinalityRatioThreshold(), existingColumnMetadata.getFieldSpec(),
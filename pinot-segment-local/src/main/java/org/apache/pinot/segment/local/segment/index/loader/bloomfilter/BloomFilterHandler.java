@@ -24,9 +24,11 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import org.apache.commons.io.FileUtils;
+import org.apache.pinot.segment.local.segment.index.bloom.BloomIndexType;
 import org.apache.pinot.segment.local.segment.index.dictionary.DictionaryIndexType;
 import org.apache.pinot.segment.local.segment.index.loader.BaseIndexHandler;
 import org.apache.pinot.segment.local.segment.index.loader.LoaderUtils;
+import org.apache.pinot.segment.local.segment.index.readers.bloom.BloomFilterReaderFactory;
 import org.apache.pinot.segment.spi.ColumnMetadata;
 import org.apache.pinot.segment.spi.V1Constants;
 import org.apache.pinot.segment.spi.creator.IndexCreationContext;
@@ -63,7 +65,8 @@ public class BloomFilterHandler extends BaseIndexHandler {
   }
 
   @Override
-  public boolean needUpdateIndices(SegmentDirectory.Reader segmentReader) {
+  public boolean needUpdateIndices(SegmentDirectory.Reader segmentReader)
+      throws IOException {
     String segmentName = _segmentDirectory.getSegmentMetadata().getName();
     Set<String> columnsToAddBF = new HashSet<>(_bloomFilterConfigs.keySet());
     Set<String> existingColumns = segmentReader.toSegmentDirectory().getColumnsWithIndex(StandardIndexes.bloomFilter());
@@ -73,6 +76,10 @@ public class BloomFilterHandler extends BaseIndexHandler {
         LOGGER.info("Need to remove existing bloom filter from segment: {}, column: {}", segmentName, column);
         return true;
       }
+      if (needConvertBloomFilter(segmentReader, column)) {
+        LOGGER.info("Need to convert existing bloom filter for segment: {}, column: {}", segmentName, column);
+        return true;
+      }
     }
     // Check if any new bloomfilter need to be added.
     for (String column : columnsToAddBF) {
@@ -97,6 +104,11 @@ public class BloomFilterHandler extends BaseIndexHandler {
         LOGGER.info("Removing existing bloom filter from segment: {}, column: {}", segmentName, column);
         segmentWriter.removeIndex(column, StandardIndexes.bloomFilter());
         LOGGER.info("Removed existing bloom filter from segment: {}, column: {}", segmentName, column);
+      } else if (needConvertBloomFilter(segmentWriter, column)) {
+        // Remove the existing bloom filter and re-create it with the configured type
+        LOGGER.info("Removing existing bloom filter to convert it for segment: {}, column: {}", segmentName, column);
+        segmentWriter.removeIndex(column, StandardIndexes.bloomFilter());
+        columnsToAddBF.add(column);
       }
     }
     for (String column : columnsToAddBF) {
@@ -111,6 +123,17 @@ public class BloomFilterHandler extends BaseIndexHandler {
     return columnMetadata != null;
   }
 
+  /**
+   * Returns {@code true} if the existing bloom filter is of a different type than the configured one (e.g. Guava bloom
+   * filter configured to be split block bloom filter).
+   */
+  private boolean needConvertBloomFilter(SegmentDirectory.Reader segmentReader, String column)
+      throws IOException {
+    int expectedTypeValue = BloomIndexType.getTypeValue(_bloomFilterConfigs.get(column));
+    PinotDataBuffer dataBuffer = segmentReader.getIndexFor(column, StandardIndexes.bloomFilter());
+    return BloomFilterReaderFactory.getTypeValue(dataBuffer) != expectedTypeValue;
+  }
+
   private void createAndSealBloomFilterForDictionaryColumn(File indexDir, ColumnMetadata columnMetadata,
       BloomFilterConfig bloomFilterConfig, SegmentDirectory.Writer segmentWriter)
       throws Exception {
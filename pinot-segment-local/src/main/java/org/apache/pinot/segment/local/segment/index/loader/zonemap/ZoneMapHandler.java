@@ -0,0 +1,215 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.segment.index.loader.zonemap;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.Nullable;
+import org.apache.commons.io.FileUtils;
+import org.apache.pinot.segment.local.segment.creator.impl.zonemap.ZoneMapIndexCreator;
+import org.apache.pinot.segment.local.segment.index.loader.BaseIndexHandler;
+import org.apache.pinot.segment.local.segment.index.loader.LoaderUtils;
+import org.apache.pinot.segment.local.segment.index.readers.ZoneMapReaderImpl;
+import org.apache.pinot.segment.spi.ColumnMetadata;
+import org.apache.pinot.segment.spi.V1Constants;
+import org.apache.pinot.segment.spi.creator.IndexCreationContext;
+import org.apache.pinot.segment.spi.creator.SegmentVersion;
+import org.apache.pinot.segment.spi.index.FieldIndexConfigs;
+import org.apache.pinot.segment.spi.index.FieldIndexConfigsUtil;
+import org.apache.pinot.segment.spi.index.IndexReaderFactory;
+import org.apache.pinot.segment.spi.index.StandardIndexes;
+import org.apache.pinot.segment.spi.index.ZoneMapIndexConfig;
+import org.apache.pinot.segment.spi.index.creator.ZoneMapCreator;
+import org.apache.pinot.segment.spi.index.reader.ForwardIndexReader;
+import org.apache.pinot.segment.spi.index.reader.ForwardIndexReaderContext;
+import org.apache.pinot.segment.spi.memory.PinotDataBuffer;
+import org.apache.pinot.segment.spi.store.SegmentDirectory;
+import org.apache.pinot.spi.config.table.TableConfig;
+import org.apache.pinot.spi.data.Schema;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class ZoneMapHandler extends BaseIndexHandler {
+  private static final Logger LOGGER = LoggerFactory.getLogger(ZoneMapHandler.class);
+
+  private final Map<String, ZoneMapIndexConfig> _zoneMapConfigs;
+
+  public ZoneMapHandler(SegmentDirectory segmentDirectory, Map<String, FieldIndexConfigs> fieldIndexConfigs,
+      TableConfig tableConfig, Schema schema) {
+    super(segmentDirectory, fieldIndexConfigs, tableConfig, schema);
+    _zoneMapConfigs = FieldIndexConfigsUtil.enableConfigByColumn(StandardIndexes.zoneMap(), _fieldIndexConfigs);
+  }
+
+  @Override
+  public boolean needUpdateIndices(SegmentDirectory.Reader segmentReader)
+      throws IOException {
+    String segmentName = _segmentDirectory.getSegmentMetadata().getName();
+    Set<String> columnsToAddIdx = new HashSet<>(_zoneMapConfigs.keySet());
+    Set<String> existingColumns = segmentReader.toSegmentDirectory().getColumnsWithIndex(StandardIndexes.zoneMap());
+    // Check if any existing zone map need to be removed.
+    for (String column : existingColumns) {
+      if (!columnsToAddIdx.remove(column)) {
+        LOGGER.info("Need to remove existing zone map from segment: {}, column: {}", segmentName, column);
+        return true;
+      }
+      if (needRebuildZoneMap(segmentReader, column)) {
+        LOGGER.info("Need to rebuild existing zone map for segment: {}, column: {}", segmentName, column);
+        return true;
+      }
+    }
+    // Check if any new zone map need to be added.
+    for (String column : columnsToAddIdx) {
+      if (shouldCreateZoneMap(_segmentDirectory.getSegmentMetadata().getColumnMetadataFor(column))) {
+        LOGGER.info("Need to create new zone map for segment: {}, column: {}", segmentName, column);
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public void updateIndices(SegmentDirectory.Writer segmentWriter)
+      throws Exception {
+    // Remove indices not set in table config any more
+    String segmentName = _segmentDirectory.getSegmentMetadata().getName();
+    Set<String> columnsToAddIdx = new HashSet<>(_zoneMapConfigs.keySet());
+    Set<String> existingColumns = segmentWriter.toSegmentDirectory().getColumnsWithIndex(StandardIndexes.zoneMap());
+    for (String column : existingColumns) {
+      if (!columnsToAddIdx.remove(column)) {
+        LOGGER.info("Removing existing zone map from segment: {}, column: {}", segmentName, column);
+        segmentWriter.removeIndex(column, StandardIndexes.zoneMap());
+        LOGGER.info("Removed existing zone map from segment: {}, column: {}", segmentName, column);
+      } else if (needRebuildZoneMap(segmentWriter, column)) {
+        // Remove the existing zone map and re-create it with the configured number of docs per zone
+        LOGGER.info("Removing existing zone map to rebuild it for segment: {}, column: {}", segmentName, column);
+        segmentWriter.removeIndex(column, StandardIndexes.zoneMap());
+        columnsToAddIdx.add(column);
+      }
+    }
+    for (String column : columnsToAddIdx) {
+      ColumnMetadata columnMetadata = _segmentDirectory.getSegmentMetadata().getColumnMetadataFor(column);
+      if (shouldCreateZoneMap(columnMetadata)) {
+        createZoneMapForColumn(segmentWriter, columnMetadata);
+      }
+    }
+  }
+
+  /**
+   * Zone map is only created on single-value column which is either dictionary-encoded or of numeric stored type.
+   */
+  private boolean shouldCreateZoneMap(@Nullable ColumnMetadata columnMetadata) {
+    return columnMetadata != null && columnMetadata.isSingleValue()
+        && ZoneMapIndexCreator.getValueType(columnMetadata.getDataType().getStoredType(),
+        columnMetadata.hasDictionary()) != null;
+  }
+
+  /**
+   * Returns {@code true} if the existing zone map is created with a different number of docs per zone than the
+   * configured one.
+   */
+  private boolean needRebuildZoneMap(SegmentDirectory.Reader segmentReader, String column)
+      throws IOException {
+    PinotDataBuffer dataBuffer = segmentReader.getIndexFor(column, StandardIndexes.zoneMap());
+    return ZoneMapReaderImpl.getNumDocsPerZone(dataBuffer) != _zoneMapConfigs.get(column).getNumDocsPerZone();
+  }
+
+  private void createZoneMapForColumn(SegmentDirectory.Writer segmentWriter, ColumnMetadata columnMetadata)
+      throws Exception {
+    File indexDir = _segmentDirectory.getSegmentMetadata().getIndexDir();
+    String segmentName = _segmentDirectory.getSegmentMetadata().getName();
+    String columnName = columnMetadata.getColumnName();
+    File inProgress = new File(indexDir, columnName + ".zonemap.inprogress");
+    File zoneMapFile = new File(indexDir, columnName + V1Constants.Indexes.ZONE_MAP_FILE_EXTENSION);
+
+    if (!inProgress.exists()) {
+      // Marker file does not exist, which means last run ended normally.
+      // Create a marker file.
+      FileUtils.touch(inProgress);
+    } else {
+      // Marker file exists, which means last run gets interrupted.
+      // Remove zone map if exists.
+      // For v1 and v2, it's the actual zone map. For v3, it's the temporary zone map.
+      FileUtils.deleteQuietly(zoneMapFile);
+    }
+
+    // Create a temporary forward index if it is disabled and does not exist
+    columnMetadata = createForwardIndexIfNeeded(segmentWriter, columnName, true);
+
+    LOGGER.info("Creating new zone map for segment: {}, column: {}", segmentName, columnName);
+    int numDocs = columnMetadata.getTotalDocs();
+    IndexCreationContext context = IndexCreationContext.builder()
+        .withIndexDir(indexDir)
+        .withColumnMetadata(columnMetadata)
+        .withTableNameWithType(_tableConfig.getTableName())
+        .build();
+    IndexReaderFactory<ForwardIndexReader> readerFactory = StandardIndexes.forward().getReaderFactory();
+    try (ForwardIndexReader forwardIndexReader = readerFactory.createIndexReader(segmentWriter,
+        _fieldIndexConfigs.get(columnName), columnMetadata);
+        ForwardIndexReaderContext readerContext = forwardIndexReader.createContext();
+        ZoneMapCreator zoneMapCreator = StandardIndexes.zoneMap()
+            .createIndexCreator(context, _zoneMapConfigs.get(columnName))) {
+      if (forwardIndexReader.isDictionaryEncoded()) {
+        for (int i = 0; i < numDocs; i++) {
+          zoneMapCreator.add(null, forwardIndexReader.getDictId(i, readerContext));
+        }
+      } else {
+        switch (forwardIndexReader.getStoredType()) {
+          case INT:
+            for (int i = 0; i < numDocs; i++) {
+              zoneMapCreator.add(forwardIndexReader.getInt(i, readerContext), -1);
+            }
+            break;
+          case LONG:
+            for (int i = 0; i < numDocs; i++) {
+              zoneMapCreator.add(forwardIndexReader.getLong(i, readerContext), -1);
+            }
+            break;
+          case FLOAT:
+            for (int i = 0; i < numDocs; i++) {
+              zoneMapCreator.add(forwardIndexReader.getFloat(i, readerContext), -1);
+            }
+            break;
+          case DOUBLE:
+            for (int i = 0; i < numDocs; i++) {
+              zoneMapCreator.add(forwardIndexReader.getDouble(i, readerContext), -1);
+            }
+            break;
+          default:
+            throw new IllegalStateException("Unsupported data type: " + columnMetadata.getDataType());
+        }
+      }
+      zoneMapCreator.seal();
+    }
+
+    // For v3, write the generated zone map file into the single file and remove it.
+    if (_segmentDirectory.getSegmentMetadata().getVersion() == SegmentVersion.v3) {
+      LoaderUtils.writeIndexToV3Format(segmentWriter, columnName, zoneMapFile, StandardIndexes.zoneMap());
+    }
+
+    // Delete the marker file.
+    FileUtils.deleteQuietly(inProgress);
+
+    LOGGER.info("Created zone map for segment: {}, column: {}", segmentName, columnName);
+  }
+}
@@ -0,0 +1,134 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.segment.index.readers;
+
+import com.google.common.base.Preconditions;
+import org.apache.pinot.segment.local.segment.creator.impl.zonemap.ZoneMapIndexCreator;
+import org.apache.pinot.segment.spi.index.reader.ZoneMapReader;
+import org.apache.pinot.segment.spi.memory.PinotDataBuffer;
+import org.apache.pinot.spi.data.FieldSpec.DataType;
+
+
+/**
+ * Reader for the zone map created by {@link ZoneMapIndexCreator}.
+ */
+public class ZoneMapReaderImpl implements ZoneMapReader {
+  private final PinotDataBuffer _dataBuffer;
+  private final boolean _dictionaryEncoded;
+  private final DataType _valueType;
+  private final int _numDocsPerZone;
+  private final int _numZones;
+  private final int _valueSize;
+
+  /**
+   * @param storedType Stored type of the column, only used for raw column
+   */
+  public ZoneMapReaderImpl(PinotDataBuffer dataBuffer, DataType storedType) {
+    _dataBuffer = dataBuffer;
+    int version = dataBuffer.getInt(0);
+    Preconditions.checkState(version == ZoneMapIndexCreator.VERSION, "Unsupported zone map version: %s", version);
+    _dictionaryEncoded = dataBuffer.getInt(Integer.BYTES) == 1;
+    _numDocsPerZone = getNumDocsPerZone(dataBuffer);
+    _numZones = dataBuffer.getInt(3 * Integer.BYTES);
+    _valueType = ZoneMapIndexCreator.getValueType(storedType, _dictionaryEncoded);
+    Preconditions.checkState(_valueType != null, "Unsupported stored type: %s for raw column zone map", storedType);
+    _valueSize = _valueType.size();
+  }
+
+  /**
+   * Returns the number of docs per zone stored in the header of the zone map.
+   */
+  public static int getNumDocsPerZone(PinotDataBuffer dataBuffer) {
+    return dataBuffer.getInt(2 * Integer.BYTES);
+  }
+
+  @Override
+  public boolean isDictionaryEncoded() {
+    return _dictionaryEncoded;
+  }
+
+  @Override
+  public DataType getValueType() {
+    return _valueType;
+  }
+
+  @Override
+  public int getNumDocsPerZone() {
+    return _numDocsPerZone;
+  }
+
+  @Override
+  public int getNumZones() {
+    return _numZones;
+  }
+
+  private long getMinOffset(int zoneId) {
+    return ZoneMapIndexCreator.HEADER_SIZE + (long) zoneId * 2 * _valueSize;
+  }
+
+  private long getMaxOffset(int zoneId) {
+    return getMinOffset(zoneId) + _valueSize;
+  }
+
+  @Override
+  public int getMinInt(int zoneId) {
+    return _dataBuffer.getInt(getMinOffset(zoneId));
+  }
+
+  @Override
+  public int getMaxInt(int zoneId) {
+    return _dataBuffer.getInt(getMaxOffset(zoneId));
+  }
+
+  @Override
+  public long getMinLong(int zoneId) {
+    return _dataBuffer.getLong(getMinOffset(zoneId));
+  }
+
+  @Override
+  public long getMaxLong(int zoneId) {
+    return _dataBuffer.getLong(getMaxOffset(zoneId));
+  }
+
+  @Override
+  public float getMinFloat(int zoneId) {
+    return _dataBuffer.getFloat(getMinOffset(zoneId));
+  }
+
+  @Override
+  public float getMaxFloat(int zoneId) {
+    return _dataBuffer.getFloat(getMaxOffset(zoneId));
+  }
+
+  @Override
+  public double getMinDouble(int zoneId) {
+    return _dataBuffer.getDouble(getMinOffset(zoneId));
+  }
+
+  @Override
+  public double getMaxDouble(int zoneId) {
+    return _dataBuffer.getDouble(getMaxOffset(zoneId));
+  }
+
+  @Override
+  public void close() {
+    // NOTE: DO NOT close the PinotDataBuffer here because it is tracked by the caller and might be reused later. The
+    // caller is responsible of closing the PinotDataBuffer.
+  }
+}
@@ -20,6 +20,7 @@ package org.apache.pinot.segment.local.segment.index.readers.bloom;
 
 import com.google.common.base.Preconditions;
 import org.apache.pinot.segment.local.segment.creator.impl.bloom.OnHeapGuavaBloomFilterCreator;
+import org.apache.pinot.segment.local.segment.creator.impl.bloom.SplitBlockBloomFilterCreator;
 import org.apache.pinot.segment.spi.index.reader.BloomFilterReader;
 import org.apache.pinot.segment.spi.memory.PinotDataBuffer;
 
@@ -32,9 +33,21 @@ public class BloomFilterReaderFactory {
   private static final int VERSION_OFFSET = 4;
   private static final int HEADER_SIZE = 8;
 
+  /**
+   * Returns the type value of the bloom filter stored in the given data buffer.
+   */
+  public static int getTypeValue(PinotDataBuffer dataBuffer) {
+    return dataBuffer.getInt(TYPE_VALUE_OFFSET);
+  }
+
   public static BloomFilterReader getBloomFilterReader(PinotDataBuffer dataBuffer, boolean onHeap) {
     int typeValue = dataBuffer.getInt(TYPE_VALUE_OFFSET);
     int version = dataBuffer.getInt(VERSION_OFFSET);
+    if (typeValue == SplitBlockBloomFilterCreator.TYPE_VALUE) {
+      Preconditions.checkState(version == SplitBlockBloomFilterCreator.VERSION,
+          "Unsupported split block bloom filter version: %s", version);
+      return new SplitBlockBloomFilterReader(dataBuffer.view(HEADER_SIZE, dataBuffer.size()), onHeap);
+    }
     Preconditions.checkState(
         typeValue == OnHeapGuavaBloomFilterCreator.TYPE_VALUE && version == OnHeapGuavaBloomFilterCreator.VERSION,
         "Unsupported bloom filter type value: %s and version: %s", typeValue, version);
@@ -0,0 +1,84 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.segment.index.readers.bloom;
+
+import org.apache.pinot.segment.spi.index.reader.BloomFilterReader;
+import org.apache.pinot.segment.spi.memory.PinotDataBuffer;
+
+
+/**
+ * Reader for split block bloom filter (see {@link SplitBlockBloomFilterUtils}). When loaded on-heap, the words are
+ * copied into an int array; otherwise they are read from the data buffer.
+ */
+public class SplitBlockBloomFilterReader implements BloomFilterReader {
+  // Format of the data buffer header:
+  //   - Number of blocks: 4 bytes
+  private static final int NUM_BLOCKS_OFFSET = 0;
+  private static final int HEADER_SIZE = 4;
+
+  private final int _numBlocks;
+  private final PinotDataBuffer _valueBuffer;
+  // Only set when loaded on-heap
+  private final int[] _words;
+
+  public SplitBlockBloomFilterReader(PinotDataBuffer dataBuffer, boolean onHeap) {
+    _numBlocks = dataBuffer.getInt(NUM_BLOCKS_OFFSET);
+    _valueBuffer = dataBuffer.view(HEADER_SIZE, dataBuffer.size());
+    if (onHeap) {
+      _words = new int[_numBlocks * SplitBlockBloomFilterUtils.NUM_WORDS_PER_BLOCK];
+      for (int i = 0; i < _words.length; i++) {
+        _words[i] = _valueBuffer.getInt((long) i * Integer.BYTES);
+      }
+    } else {
+      _words = null;
+    }
+  }
+
+  @Override
+  public boolean mightContain(String value) {
+    GuavaBloomFilterReaderUtils.Hash128AsLongs hash = GuavaBloomFilterReaderUtils.hashAsLongs(value);
+    return mightContain(hash.getHash1(), hash.getHash2());
+  }
+
+  @Override
+  public boolean mightContain(long hash1, long hash2) {
+    int firstWordIndex = SplitBlockBloomFilterUtils.getFirstWordIndex(hash1, _numBlocks);
+    // NOTE: Check all the words without short-circuit so that the loop can be unrolled and vectorized
+    int missingBits = 0;
+    if (_words != null) {
+      for (int i = 0; i < SplitBlockBloomFilterUtils.NUM_WORDS_PER_BLOCK; i++) {
+        int mask = SplitBlockBloomFilterUtils.getMask(hash1, i);
+        missingBits |= ~_words[firstWordIndex + i] & mask;
+      }
+    } else {
+      long offset = (long) firstWordIndex * Integer.BYTES;
+      for (int i = 0; i < SplitBlockBloomFilterUtils.NUM_WORDS_PER_BLOCK; i++) {
+        int mask = SplitBlockBloomFilterUtils.getMask(hash1, i);
+        missingBits |= ~_valueBuffer.getInt(offset + (long) i * Integer.BYTES) & mask;
+      }
+    }
+    return missingBits == 0;
+  }
+
+  @Override
+  public void close() {
+    // NOTE: DO NOT close the PinotDataBuffer here because it is tracked by the caller and might be reused later. The
+    // caller is responsible of closing the PinotDataBuffer.
+  }
+}
@@ -0,0 +1,69 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.segment.index.readers.bloom;
+
+/**
+ * Utils for the split block bloom filter, which is composed of blocks of 256 bits (8 int words). Each value sets
+ * exactly one bit in each word of a single block, so that a probe only accesses 32 consecutive bytes (within a single
+ * cache line) instead of the scattered bits of the Guava bloom filter.
+ * <p>The value is hashed with the same hash function as the Guava bloom filter (see
+ * {@link GuavaBloomFilterReaderUtils#hashAsLongs(String)}), so that the hash of a value can be shared by both formats.
+ * Only the first 64 bits of the hash are used: the upper 32 bits select the block, and the lower 32 bits select the bit
+ * within each word.
+ * <p>See the Parquet bloom filter specification for more details of the algorithm.
+ */
+public class SplitBlockBloomFilterUtils {
+  private SplitBlockBloomFilterUtils() {
+  }
+
+  public static final int NUM_WORDS_PER_BLOCK = 8;
+  public static final int BLOCK_SIZE_IN_BYTES = NUM_WORDS_PER_BLOCK * Integer.BYTES;
+
+  // DO NOT change the salts. They have to be aligned between the bloom filter creator and reader.
+  private static final int[] SALTS = {
+      0x47b6137b, 0x44974d91, 0x8824ad5b, 0xa2b7289d, 0x705495c7, 0x2df1424b, 0x9efc4947, 0x5c6bfb31
+  };
+
+  /**
+   * Returns the index of the first word of the block for the given hash.
+   */
+  public static int getFirstWordIndex(long hash1, int numBlocks) {
+    return (int) (((hash1 >>> 32) * numBlocks) >>> 32) * NUM_WORDS_PER_BLOCK;
+  }
+
+  /**
+   * Returns the mask of the bit to set / check in the given word of the block for the given hash.
+   */
+  public static int getMask(long hash1, int wordIndexInBlock) {
+    return 1 << (((int) hash1 * SALTS[wordIndexInBlock]) >>> 27);
+  }
+
+  /**
+   * Returns the number of blocks required to hold the given number of insertions with the given fpp (false positive
+   * probability), capped by the max size when positive.
+   */
+  public static int computeNumBlocks(int numInsertions, double fpp, int maxSizeInBytes) {
+    double numBits = -8.0 * Math.max(numInsertions, 1) / Math.log(1 - Math.pow(fpp, 1.0 / NUM_WORDS_PER_BLOCK));
+    long numBlocks = (long) Math.ceil(numBits / Byte.SIZE / BLOCK_SIZE_IN_BYTES);
+    if (maxSizeInBytes > 0) {
+      numBlocks = Math.min(numBlocks, maxSizeInBytes / BLOCK_SIZE_IN_BYTES);
+    }
+    return (int) Math.max(Math.min(numBlocks, Integer.MAX_VALUE / BLOCK_SIZE_IN_BYTES), 1);
+  }
+}
@@ -202,22 +202,11 @@ public abstract class BaseChunkForwardIndexReader implements ForwardIndexReader<
   }
 
   protected ByteBuffer decompressChunk(int chunkId, ChunkReaderContext context) {
-    int chunkSize;
-    long chunkPosition = getChunkPosition(chunkId);
-
-    // Size of chunk can be determined using next chunks offset, or end of data buffer for last chunk.
-    if (chunkId == (_numChunks - 1)) { // Last chunk.
-      chunkSize = (int) (_dataBuffer.size() - chunkPosition);
-    } else {
-      long nextChunkOffset = getChunkPosition(chunkId + 1);
-      chunkSize = (int) (nextChunkOffset - chunkPosition);
-    }
-
     ByteBuffer decompressedBuffer = context.getChunkBuffer();
     decompressedBuffer.clear();
 
     try {
-      _chunkDecompressor.decompress(_dataBuffer.toDirectByteBuffer(chunkPosition, chunkSize), decompressedBuffer);
+      _chunkDecompressor.decompress(getCompressedChunk(chunkId), decompressedBuffer);
     } catch (IOException e) {
       LOGGER.error("Exception caught while decompressing data chunk", e);
       throw new RuntimeException(e);
@@ -226,6 +215,23 @@ public abstract class BaseChunkForwardIndexReader implements ForwardIndexReader<
     return decompressedBuffer;
   }
 
+  /**
+   * Returns the compressed data of the given chunk.
+   */
+  protected ByteBuffer getCompressedChunk(int chunkId) {
+    int chunkSize;
+    long chunkPosition = getChunkPosition(chunkId);
+
+    // Size of chunk can be determined using next chunks offset, or end of data buffer for last chunk.
+    if (chunkId == (_numChunks - 1)) { // Last chunk.
+      chunkSize = (int) (_dataBuffer.size() - chunkPosition);
+    } else {
+      long nextChunkOffset = getChunkPosition(chunkId + 1);
+      chunkSize = (int) (nextChunkOffset - chunkPosition);
+    }
+    return _dataBuffer.toDirectByteBuffer(chunkPosition, chunkSize);
+  }
+
   /**
    * Helper method to get the offset of the chunk in the data.
    * @param chunkId Id of the chunk for which to return the position.
@@ -451,7 +457,7 @@ public abstract class BaseChunkForwardIndexReader implements ForwardIndexReader<
     _chunkDecompressor.close();
   }
 
-  private boolean isContiguousRange(int[] docIds, int length) {
+  protected boolean isContiguousRange(int[] docIds, int length) {
     return docIds[length - 1] - docIds[0] == length - 1;
   }
 }
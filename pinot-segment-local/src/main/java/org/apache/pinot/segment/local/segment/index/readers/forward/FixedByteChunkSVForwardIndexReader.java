@@ -21,6 +21,7 @@ package org.apache.pinot.segment.local.segment.index.readers.forward;
 import java.nio.ByteBuffer;
 import java.util.List;
 import javax.annotation.Nullable;
+import org.apache.pinot.segment.local.io.compression.NumericChunkDecompressor;
 import org.apache.pinot.segment.local.io.writer.impl.FixedByteChunkForwardIndexWriter;
 import org.apache.pinot.segment.spi.memory.PinotDataBuffer;
 import org.apache.pinot.spi.data.FieldSpec.DataType;
@@ -33,10 +34,13 @@ import org.apache.pinot.spi.data.FieldSpec.DataType;
  */
 public final class FixedByteChunkSVForwardIndexReader extends BaseChunkForwardIndexReader {
   private final int _chunkSize;
+  // Only set for numeric compression types, which can decode the values straight into the result array
+  private final NumericChunkDecompressor _numericChunkDecompressor;
 
   public FixedByteChunkSVForwardIndexReader(PinotDataBuffer dataBuffer, DataType valueType) {
     super(dataBuffer, valueType, true);
     _chunkSize = _numDocsPerChunk * _lengthOfLongestEntry;
+    _numericChunkDecompressor = _compressionType.isNumeric() ? (NumericChunkDecompressor) _chunkDecompressor : null;
   }
 
   @Nullable
@@ -93,6 +97,98 @@ public final class FixedByteChunkSVForwardIndexReader extends BaseChunkForwardIn
     }
   }
 
+  @Override
+  public void readValuesSV(int[] docIds, int length, int[] values, ChunkReaderContext context) {
+    if (_isCompressed && _storedType == DataType.INT && isContiguousRange(docIds, length)) {
+      // Bulk copy the values from the decompressed chunks
+      int docId = docIds[0];
+      int index = 0;
+      while (index < length) {
+        int chunkRowId = docId % _numDocsPerChunk;
+        int numValues = Math.min(_numDocsPerChunk - chunkRowId, length - index);
+        if (_numericChunkDecompressor != null && numValues == _numDocsPerChunk) {
+          // Decode the whole chunk straight into the values
+          _numericChunkDecompressor.decompressInts(getCompressedChunk(getChunkId(docId)), values, index);
+        } else {
+          getChunkView(docId, context, chunkRowId * Integer.BYTES).asIntBuffer().get(values, index, numValues);
+        }
+        docId += numValues;
+        index += numValues;
+      }
+    } else {
+      super.readValuesSV(docIds, length, values, context);
+    }
+  }
+
+  @Override
+  public void readValuesSV(int[] docIds, int length, long[] values, ChunkReaderContext context) {
+    if (_isCompressed && _storedType == DataType.LONG && isContiguousRange(docIds, length)) {
+      // Bulk copy the values from the decompressed chunks
+      int docId = docIds[0];
+      int index = 0;
+      while (index < length) {
+        int chunkRowId = docId % _numDocsPerChunk;
+        int numValues = Math.min(_numDocsPerChunk - chunkRowId, length - index);
+        if (_numericChunkDecompressor != null && numValues == _numDocsPerChunk) {
+          // Decode the whole chunk straight into the values
+          _numericChunkDecompressor.decompressLongs(getCompressedChunk(getChunkId(docId)), values, index);
+        } else {
+          getChunkView(docId, context, chunkRowId * Long.BYTES).asLongBuffer().get(values, index, numValues);
+        }
+        docId += numValues;
+        index += numValues;
+      }
+    } else {
+      super.readValuesSV(docIds, length, values, context);
+    }
+  }
+
+  @Override
+  public void readValuesSV(int[] docIds, int length, float[] values, ChunkReaderContext context) {
+    if (_isCompressed && _storedType == DataType.FLOAT && isContiguousRange(docIds, length)) {
+      // Bulk copy the values from the decompressed chunks
+      int docId = docIds[0];
+      int index = 0;
+      while (index < length) {
+        int chunkRowId = docId % _numDocsPerChunk;
+        int numValues = Math.min(_numDocsPerChunk - chunkRowId, length - index);
+        getChunkView(docId, context, chunkRowId * Float.BYTES).asFloatBuffer().get(values, index, numValues);
+        docId += numValues;
+        index += numValues;
+      }
+    } else {
+      super.readValuesSV(docIds, length, values, context);
+    }
+  }
+
+  @Override
+  public void readValuesSV(int[] docIds, int length, double[] values, ChunkReaderContext context) {
+    if (_isCompressed && _storedType == DataType.DOUBLE && isContiguousRange(docIds, length)) {
+      // Bulk copy the values from the decompressed chunks
+      int docId = docIds[0];
+      int index = 0;
+      while (index < length) {
+        int chunkRowId = docId % _numDocsPerChunk;
+        int numValues = Math.min(_numDocsPerChunk - chunkRowId, length - index);
+        getChunkView(docId, context, chunkRowId * Double.BYTES).asDoubleBuffer().get(values, index, numValues);
+        docId += numValues;
+        index += numValues;
+      }
+    } else {
+      super.readValuesSV(docIds, length, values, context);
+    }
+  }
+
+  /**
+   * Returns a view of the decompressed chunk for the given document starting at the given offset within the chunk.
+   */
+  private ByteBuffer getChunkView(int docId, ChunkReaderContext context, int offset) {
+    ByteBuffer chunkBuffer = getChunkBuffer(docId, context);
+    ByteBuffer chunkView = chunkBuffer.duplicate().order(chunkBuffer.order());
+    chunkView.position(offset);
+    return chunkView;
+  }
+
   @Override
   public boolean isBufferByteRangeInfoSupported() {
     return true;
@@ -0,0 +1,140 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.segment.index.zonemap;
+
+import com.google.common.base.Preconditions;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+import org.apache.pinot.segment.local.segment.creator.impl.zonemap.ZoneMapIndexCreator;
+import org.apache.pinot.segment.local.segment.index.loader.zonemap.ZoneMapHandler;
+import org.apache.pinot.segment.local.segment.index.readers.ZoneMapReaderImpl;
+import org.apache.pinot.segment.spi.ColumnMetadata;
+import org.apache.pinot.segment.spi.V1Constants;
+import org.apache.pinot.segment.spi.creator.IndexCreationContext;
+import org.apache.pinot.segment.spi.index.AbstractIndexType;
+import org.apache.pinot.segment.spi.index.FieldIndexConfigs;
+import org.apache.pinot.segment.spi.index.IndexHandler;
+import org.apache.pinot.segment.spi.index.IndexReaderFactory;
+import org.apache.pinot.segment.spi.index.IndexType;
+import org.apache.pinot.segment.spi.index.StandardIndexes;
+import org.apache.pinot.segment.spi.index.ZoneMapIndexConfig;
+import org.apache.pinot.segment.spi.index.creator.ZoneMapCreator;
+import org.apache.pinot.segment.spi.index.reader.ZoneMapReader;
+import org.apache.pinot.segment.spi.memory.PinotDataBuffer;
+import org.apache.pinot.segment.spi.store.SegmentDirectory;
+import org.apache.pinot.spi.config.table.TableConfig;
+import org.apache.pinot.spi.data.FieldSpec;
+import org.apache.pinot.spi.data.Schema;
+
+
+/**
+ * The zone map records the min and max value of each zone (fixed number of consecutive docs) of a single-value column,
+ * and is used by the scan based filter to skip the zones that cannot match the filter. It is most effective on column
+ * correlated with the doc order (e.g. time column of the events ingested in time order), where it can skip most of the
+ * zones without the cost of a range index.
+ * <p>It can be configured in the field config with:
+ * <pre>
+ *   "indexes": {
+ *     "zoneMap": {
+ *       "numDocsPerZone": 1024
+ *     }
+ *   }
+ * </pre>
+ */
+public class ZoneMapIndexType extends AbstractIndexType<ZoneMapIndexConfig, ZoneMapReader, ZoneMapCreator> {
+  public static final String INDEX_DISPLAY_NAME = "zoneMap";
+  private static final List<String> EXTENSIONS =
+      Collections.singletonList(V1Constants.Indexes.ZONE_MAP_FILE_EXTENSION);
+
+  protected ZoneMapIndexType() {
+    super(StandardIndexes.ZONE_MAP_ID);
+  }
+
+  @Override
+  public Class<ZoneMapIndexConfig> getIndexConfigClass() {
+    return ZoneMapIndexConfig.class;
+  }
+
+  @Override
+  public ZoneMapIndexConfig getDefaultConfig() {
+    return ZoneMapIndexConfig.DISABLED;
+  }
+
+  @Override
+  public void validate(FieldIndexConfigs indexConfigs, FieldSpec fieldSpec, TableConfig tableConfig) {
+    ZoneMapIndexConfig zoneMapConfig = indexConfigs.getConfig(StandardIndexes.zoneMap());
+    if (zoneMapConfig.isEnabled()) {
+      String column = fieldSpec.getName();
+      Preconditions.checkState(fieldSpec.isSingleValueField(), "Cannot create zone map on multi-value column: %s",
+          column);
+      if (indexConfigs.getConfig(StandardIndexes.dictionary()).isDisabled()) {
+        FieldSpec.DataType storedType = fieldSpec.getDataType().getStoredType();
+        Preconditions.checkState(ZoneMapIndexCreator.getValueType(storedType, false) != null,
+            "Cannot create zone map on raw column: %s of stored type other than INT, LONG, FLOAT, DOUBLE", column);
+      }
+    }
+  }
+
+  @Override
+  public String getPrettyName() {
+    return INDEX_DISPLAY_NAME;
+  }
+
+  @Override
+  public ZoneMapCreator createIndexCreator(IndexCreationContext context, ZoneMapIndexConfig indexConfig) {
+    FieldSpec fieldSpec = context.getFieldSpec();
+    Preconditions.checkState(fieldSpec.isSingleValueField(), "Cannot create zone map on multi-value column: %s",
+        fieldSpec.getName());
+    return new ZoneMapIndexCreator(context.getIndexDir(), fieldSpec.getName(), fieldSpec.getDataType().getStoredType(),
+        context.hasDictionary(), context.getTotalDocs(), indexConfig.getNumDocsPerZone());
+  }
+
+  @Override
+  protected IndexReaderFactory<ZoneMapReader> createReaderFactory() {
+    return ReaderFactory.INSTANCE;
+  }
+
+  @Override
+  public IndexHandler createIndexHandler(SegmentDirectory segmentDirectory, Map<String, FieldIndexConfigs> configsByCol,
+      Schema schema, TableConfig tableConfig) {
+    return new ZoneMapHandler(segmentDirectory, configsByCol, tableConfig, schema);
+  }
+
+  @Override
+  public List<String> getFileExtensions(@Nullable ColumnMetadata columnMetadata) {
+    return EXTENSIONS;
+  }
+
+  private static class ReaderFactory extends IndexReaderFactory.Default<ZoneMapIndexConfig, ZoneMapReader> {
+    public static final ReaderFactory INSTANCE = new ReaderFactory();
+
+    @Override
+    protected IndexType<ZoneMapIndexConfig, ZoneMapReader, ?> getIndexType() {
+      return StandardIndexes.zoneMap();
+    }
+
+    @Override
+    protected ZoneMapReader createIndexReader(PinotDataBuffer dataBuffer, ColumnMetadata metadata,
+        ZoneMapIndexConfig indexConfig) {
+      return new ZoneMapReaderImpl(dataBuffer, metadata.getDataType().getStoredType());
+    }
+  }
+}
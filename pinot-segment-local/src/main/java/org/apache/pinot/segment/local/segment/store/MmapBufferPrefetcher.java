@@ -0,0 +1,152 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.segment.store;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.Uninterruptibles;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nullable;
+import org.apache.pinot.segment.spi.memory.PinotDataBuffer;
+import org.apache.pinot.spi.utils.CommonConstants.Server;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Warms up the pages of mmap-ed buffers on a bounded thread pool, so that the page faults are taken by the prefetch
+ * threads instead of the query threads. Each page is loaded by reading one byte from it.
+ * <p>When the pool is saturated, new prefetch tasks are rejected instead of being queued without limit, and the query
+ * threads take the page faults as if there were no prefetch.
+ */
+public class MmapBufferPrefetcher {
+  private MmapBufferPrefetcher() {
+  }
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(MmapBufferPrefetcher.class);
+
+  // matches most systems
+  private static final int PAGE_SIZE_BYTES = 4096;
+  private static final long KEEP_ALIVE_TIME_SECONDS = 60L;
+
+  private static volatile ThreadPoolExecutor _executor =
+      createExecutor(Server.DEFAULT_MMAP_PREFETCH_NUM_THREADS, Server.DEFAULT_MMAP_PREFETCH_MAX_PENDING_TASKS);
+
+  /**
+   * Replaces the thread pool with one of the given size. Should be called when the server starts up.
+   */
+  public static void init(int numThreads, int maxPendingTasks) {
+    Preconditions.checkArgument(numThreads > 0, "Number of mmap prefetch threads must be positive, got: %s",
+        numThreads);
+    Preconditions.checkArgument(maxPendingTasks > 0, "Max pending mmap prefetch tasks must be positive, got: %s",
+        maxPendingTasks);
+    LOGGER.info("Initializing mmap buffer prefetcher with {} threads and max {} pending tasks", numThreads,
+        maxPendingTasks);
+    ThreadPoolExecutor oldExecutor = _executor;
+    _executor = createExecutor(numThreads, maxPendingTasks);
+    oldExecutor.shutdown();
+  }
+
+  private static ThreadPoolExecutor createExecutor(int numThreads, int maxPendingTasks) {
+    ThreadPoolExecutor executor =
+        new ThreadPoolExecutor(numThreads, numThreads, KEEP_ALIVE_TIME_SECONDS, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(maxPendingTasks),
+            new ThreadFactoryBuilder().setDaemon(true).setNameFormat("mmap-prefetch-%d").build());
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+
+  /**
+   * Submits a task to load the pages of the given buffers, or returns {@code null} when the thread pool is saturated.
+   * The returned task must be cancelled (see {@link PrefetchTask#cancel()}) before the buffers are closed.
+   */
+  @Nullable
+  public static PrefetchTask submit(List<PinotDataBuffer> buffers) {
+    PrefetchTask task = new PrefetchTask(buffers);
+    try {
+      _executor.execute(task);
+      return task;
+    } catch (RejectedExecutionException e) {
+      return null;
+    }
+  }
+
+  public static class PrefetchTask implements Runnable {
+    private static final int NEW = 0;
+    private static final int RUNNING = 1;
+    private static final int DONE = 2;
+
+    private final List<PinotDataBuffer> _buffers;
+    private final AtomicInteger _state = new AtomicInteger(NEW);
+    private final CountDownLatch _doneLatch = new CountDownLatch(1);
+    private volatile boolean _cancelled;
+
+    private PrefetchTask(List<PinotDataBuffer> buffers) {
+      _buffers = buffers;
+    }
+
+    @Override
+    public void run() {
+      if (!_state.compareAndSet(NEW, RUNNING)) {
+        return;
+      }
+      try {
+        for (PinotDataBuffer buffer : _buffers) {
+          long size = buffer.size();
+          for (long pos = 0; pos < size; pos += PAGE_SIZE_BYTES) {
+            if (_cancelled) {
+              return;
+            }
+            buffer.getByte(pos);
+          }
+        }
+      } catch (Exception e) {
+        LOGGER.warn("Caught exception while prefetching mmap buffers", e);
+      } finally {
+        _state.set(DONE);
+        _doneLatch.countDown();
+      }
+    }
+
+    /**
+     * Returns {@code true} if all the pages have been loaded, or the task has been cancelled.
+     */
+    public boolean isDone() {
+      return _state.get() == DONE;
+    }
+
+    /**
+     * Cancels the task, and blocks until it stops accessing the buffers if it is already running.
+     */
+    public void cancel() {
+      _cancelled = true;
+      if (_state.compareAndSet(NEW, DONE)) {
+        _doneLatch.countDown();
+        return;
+      }
+      Uninterruptibles.awaitUninterruptibly(_doneLatch);
+    }
+  }
+}
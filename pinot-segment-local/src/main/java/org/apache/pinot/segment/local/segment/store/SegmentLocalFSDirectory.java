@@ -24,14 +24,23 @@ import java.io.File;
 import java.io.IOException;
 import java.net.URI;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
 import javax.annotation.Nullable;
 import org.apache.commons.configuration2.ex.ConfigurationException;
 import org.apache.commons.io.FileUtils;
+import org.apache.pinot.common.metrics.ServerMeter;
+import org.apache.pinot.common.metrics.ServerMetrics;
+import org.apache.pinot.segment.spi.FetchContext;
 import org.apache.pinot.segment.spi.creator.SegmentVersion;
 import org.apache.pinot.segment.spi.index.IndexType;
+import org.apache.pinot.segment.spi.index.StandardIndexes;
 import org.apache.pinot.segment.spi.index.metadata.SegmentMetadataImpl;
 import org.apache.pinot.segment.spi.index.multicolumntext.MultiColumnTextIndexConstants;
 import org.apache.pinot.segment.spi.memory.PinotDataBuffer;
@@ -57,6 +66,9 @@ public class SegmentLocalFSDirectory extends SegmentDirectory {
   private static final long MAX_MMAP_PREFETCH_PAGES = 100 * 1024 * 1024 * 1024L / PAGE_SIZE_BYTES;
   private static final double PREFETCH_SLOWDOWN_PCT = 0.67;
   private static final AtomicLong PREFETCHED_PAGES = new AtomicLong(0);
+  // Indexes to prefetch for the columns without explicit index list in the fetch context
+  private static final List<IndexType<?, ?, ?>> DEFAULT_PREFETCH_INDEXES =
+      List.of(StandardIndexes.forward(), StandardIndexes.dictionary(), StandardIndexes.inverted());
 
   private final File _indexDir;
   private final File _segmentDirectory;
@@ -67,6 +79,8 @@ public class SegmentLocalFSDirectory extends SegmentDirectory {
   private StarTreeIndexReader _starTreeIndexReader;
   private String _tier;
   private boolean _hasMultiColumnTextIndex;
+  // Prefetch tasks for the fetch contexts that are not released yet
+  private final Map<UUID, MmapBufferPrefetcher.PrefetchTask> _prefetchTasks = new ConcurrentHashMap<>();
 
   // Create an empty SegmentLocalFSDirectory object mainly used to
   // prepare env for subsequent processing on the segment.
@@ -283,11 +297,97 @@ public class SegmentLocalFSDirectory extends SegmentDirectory {
         != null;
   }
 
+  /**
+   * Loads the pages of the mmap-ed buffers in the fetch context asynchronously (see {@link MmapBufferPrefetcher}), so
+   * that they are in memory when the query threads {@link #acquire(FetchContext)} the segment.
+   */
+  @Override
+  public void prefetch(FetchContext fetchContext) {
+    if (_readMode != ReadMode.mmap || fetchContext.isEmpty()) {
+      return;
+    }
+    // NOTE: Synchronize with close() so that the buffers are not closed before the prefetch task is tracked
+    synchronized (this) {
+      if (_columnIndexDirectory == null) {
+        return;
+      }
+      List<PinotDataBuffer> buffers;
+      try {
+        buffers = getBuffersToPrefetch(fetchContext);
+      } catch (Exception e) {
+        LOGGER.warn("Caught exception while getting buffers to prefetch for segment: {}", _segmentDirectory, e);
+        return;
+      }
+      if (buffers.isEmpty()) {
+        return;
+      }
+      MmapBufferPrefetcher.PrefetchTask prefetchTask = MmapBufferPrefetcher.submit(buffers);
+      if (prefetchTask != null) {
+        _prefetchTasks.put(fetchContext.getFetchId(), prefetchTask);
+        return;
+      }
+    }
+    // The prefetch thread pool is saturated, and the query threads will take the page faults
+    ServerMetrics.get().addMeteredTableValue(_segmentMetadata.getTableName(), ServerMeter.SEGMENT_PREFETCH_MISSES, 1);
+  }
+
+  private List<PinotDataBuffer> getBuffersToPrefetch(FetchContext fetchContext)
+      throws IOException {
+    List<PinotDataBuffer> buffers = new ArrayList<>();
+    for (Map.Entry<String, List<IndexType<?, ?, ?>>> entry : fetchContext.getColumnToIndexList().entrySet()) {
+      String column = entry.getKey();
+      List<IndexType<?, ?, ?>> indexTypes = entry.getValue() != null ? entry.getValue() : DEFAULT_PREFETCH_INDEXES;
+      for (IndexType<?, ?, ?> indexType : indexTypes) {
+        if (_columnIndexDirectory.hasIndexFor(column, indexType)) {
+          buffers.add(_columnIndexDirectory.getBuffer(column, indexType));
+        }
+      }
+    }
+    return buffers;
+  }
+
+  /**
+   * Tracks whether the prefetch for the fetch context has finished before the segment is acquired. The query threads
+   * do not wait for an unfinished prefetch, which keeps loading the pages ahead of them.
+   */
+  @Override
+  public void acquire(FetchContext fetchContext) {
+    MmapBufferPrefetcher.PrefetchTask prefetchTask = _prefetchTasks.get(fetchContext.getFetchId());
+    if (prefetchTask != null) {
+      ServerMetrics.get().addMeteredTableValue(_segmentMetadata.getTableName(),
+          prefetchTask.isDone() ? ServerMeter.SEGMENT_PREFETCH_HITS : ServerMeter.SEGMENT_PREFETCH_MISSES, 1);
+    }
+  }
+
+  @Override
+  public void release(FetchContext fetchContext) {
+    MmapBufferPrefetcher.PrefetchTask prefetchTask = _prefetchTasks.remove(fetchContext.getFetchId());
+    if (prefetchTask != null) {
+      prefetchTask.cancel();
+    }
+  }
+
+  /**
+   * Stops the prefetch tasks, which should be called before closing the buffers.
+   */
+  private void cancelPrefetchTasks() {
+    for (MmapBufferPrefetcher.PrefetchTask prefetchTask : _prefetchTasks.values()) {
+      prefetchTask.cancel();
+    }
+    _prefetchTasks.clear();
+  }
+
+  @VisibleForTesting
+  int getNumPendingPrefetchTasks() {
+    return _prefetchTasks.size();
+  }
+
   @Override
   public void close()
       throws IOException {
     _segmentLock.close();
     synchronized (this) {
+      cancelPrefetchTasks();
       if (_columnIndexDirectory != null) {
         _columnIndexDirectory.close();
         _columnIndexDirectory = null;
@@ -451,6 +551,7 @@ public class SegmentLocalFSDirectory extends SegmentDirectory {
     public void close()
         throws IOException {
       _segmentLock.unlock();
+      cancelPrefetchTasks();
       if (_columnIndexDirectory != null) {
         _columnIndexDirectory.close();
         _columnIndexDirectory = null;
@@ -52,7 +52,7 @@ public class StarTreeV2BuilderConfig {
 
   // For default config, dimensions with cardinality smaller or equal to this threshold will be included into the split
   // order
-  private static final int DIMENSION_CARDINALITY_THRESHOLD_FOR_DEFAULT_CONFIG = 10_000;
+  public static final int DIMENSION_CARDINALITY_THRESHOLD_FOR_DEFAULT_CONFIG = 10_000;
 
   private final List<String> _dimensionsSplitOrder;
   private final Set<String> _skipStarNodeCreationForDimensions;
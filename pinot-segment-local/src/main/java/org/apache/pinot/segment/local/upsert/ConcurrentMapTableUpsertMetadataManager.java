@@ -47,10 +47,17 @@ public class ConcurrentMapTableUpsertMetadataManager extends BaseTableUpsertMeta
 
   @Override
   public BasePartitionUpsertMetadataManager getOrCreatePartitionManager(int partitionId) {
-    return _partitionMetadataManagerMap.computeIfAbsent(partitionId,
-        k -> _context.isEnableDeletedKeysCompactionConsistency()
-            ? new ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletes(_tableNameWithType, k, _context)
-            : new ConcurrentMapPartitionUpsertMetadataManager(_tableNameWithType, k, _context));
+    return _partitionMetadataManagerMap.computeIfAbsent(partitionId, this::createPartitionManager);
+  }
+
+  /**
+   * Creates the metadata manager for the given partition. Can be overridden to plug in a different partition level
+   * implementation while reusing the table level management.
+   */
+  protected BasePartitionUpsertMetadataManager createPartitionManager(int partitionId) {
+    return _context.isEnableDeletedKeysCompactionConsistency()
+        ? new ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletes(_tableNameWithType, partitionId, _context)
+        : new ConcurrentMapPartitionUpsertMetadataManager(_tableNameWithType, partitionId, _context);
   }
 
   @Override
@@ -0,0 +1,721 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.upsert;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import it.unimi.dsi.fastutil.HashCommon;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.function.UnaryOperator;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import org.apache.commons.io.FileUtils;
+import org.apache.pinot.common.metrics.ServerMeter;
+import org.apache.pinot.segment.local.indexsegment.immutable.ImmutableSegmentImpl;
+import org.apache.pinot.segment.local.segment.readers.LazyRow;
+import org.apache.pinot.segment.local.segment.readers.PrimaryKeyReader;
+import org.apache.pinot.segment.local.utils.HashUtils;
+import org.apache.pinot.segment.local.utils.SegmentLocks;
+import org.apache.pinot.segment.spi.ImmutableSegment;
+import org.apache.pinot.segment.spi.IndexSegment;
+import org.apache.pinot.segment.spi.MutableSegment;
+import org.apache.pinot.segment.spi.index.mutable.ThreadSafeMutableRoaringBitmap;
+import org.apache.pinot.spi.data.readers.GenericRow;
+import org.apache.pinot.spi.data.readers.PrimaryKey;
+import org.apache.pinot.spi.utils.ByteArray;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
+
+
+/**
+ * Implementation of {@link PartitionUpsertMetadataManager} that keeps the primary key to record location map off-heap
+ * in an {@link OffHeapRecordLocationMap}, so that the per-key footprint is a fixed size entry instead of several heap
+ * objects.
+ * <p>
+ * The primary keys are stored as 128-bit hashes: the hashed key is used directly when the hash function produces 16
+ * bytes (MD5, MURMUR3, single column UUID), otherwise the key bytes are hashed with MURMUR3. Segments are referenced by
+ * an int id, which is released when no primary key points to the segment anymore.
+ * <p>
+ * The map is split into stripes by primary key hash, each stripe being a separate {@link OffHeapRecordLocationMap}
+ * guarded by its own lock and tracking its own segment ids, so that updates to keys in different stripes do not block
+ * each other (similar to the per-bin locking of {@link java.util.concurrent.ConcurrentHashMap#compute}).
+ * <p>
+ * The following configs can be provided through the metadata manager configs of the upsert config:
+ * <ul>
+ *   <li>{@link #INITIAL_CAPACITY}: initial number of entries of the map (shared by all the stripes)</li>
+ *   <li>{@link #NUM_STRIPES}: number of stripes of the map, rounded up to a power of 2</li>
+ *   <li>{@link #MEMORY_MAPPED}: whether to back the map with memory-mapped files under the table index dir instead of
+ *   direct memory</li>
+ * </ul>
+ * <p>
+ * When consistent deletes ({@code enableDeletedKeysCompactionConsistency}) is enabled, the number of distinct segments
+ * containing each primary key is tracked in the map, and deleted keys are only removed after the TTL when they exist in
+ * a single segment, same as {@link ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletes}.
+ */
+@SuppressWarnings({"rawtypes", "unchecked"})
+@ThreadSafe
+public class OffHeapPartitionUpsertMetadataManager extends BasePartitionUpsertMetadataManager {
+  public static final String INITIAL_CAPACITY = "offHeap.initialCapacity";
+  public static final int DEFAULT_INITIAL_CAPACITY = 1 << 16;
+  public static final String NUM_STRIPES = "offHeap.numStripes";
+  public static final int DEFAULT_NUM_STRIPES = 16;
+  public static final String MEMORY_MAPPED = "offHeap.memoryMapped";
+  public static final String MEMORY_MAPPED_FILE_PREFIX = "upsert.pk.map.";
+
+  // The stripe is picked with the first 2 bytes of the key
+  private static final int MAX_NUM_STRIPES = 1 << 16;
+
+  // Used to initialize a reference to previous row for merging in partial upsert
+  private final LazyRow _reusePreviousRow = new LazyRow();
+  private final Map<String, Object> _reuseMergeResultHolder = new HashMap<>();
+
+  private final Stripe[] _stripes;
+  private final int _stripeMask;
+  private final boolean _enableConsistentDeletes;
+
+  public OffHeapPartitionUpsertMetadataManager(String tableNameWithType, int partitionId, UpsertContext context) {
+    super(tableNameWithType, partitionId, context);
+    _enableConsistentDeletes = context.isEnableDeletedKeysCompactionConsistency();
+    Map<String, String> configs = context.getMetadataManagerConfigs();
+    int initialCapacity = DEFAULT_INITIAL_CAPACITY;
+    int numStripes = DEFAULT_NUM_STRIPES;
+    boolean memoryMapped = false;
+    if (configs != null) {
+      String initialCapacityStr = configs.get(INITIAL_CAPACITY);
+      if (initialCapacityStr != null) {
+        initialCapacity = Integer.parseInt(initialCapacityStr);
+      }
+      String numStripesStr = configs.get(NUM_STRIPES);
+      if (numStripesStr != null) {
+        numStripes = Integer.parseInt(numStripesStr);
+        Preconditions.checkArgument(numStripes > 0 && numStripes <= MAX_NUM_STRIPES,
+            "Number of stripes must be in range (0, %s], got: %s", MAX_NUM_STRIPES, numStripes);
+      }
+      memoryMapped = Boolean.parseBoolean(configs.get(MEMORY_MAPPED));
+    }
+    numStripes = HashCommon.nextPowerOfTwo(numStripes);
+    _stripes = new Stripe[numStripes];
+    _stripeMask = numStripes - 1;
+    int stripeInitialCapacity = Math.max(initialCapacity / numStripes, 1);
+    String description = "UpsertPrimaryKeyMap: " + tableNameWithType + "_" + partitionId;
+    if (memoryMapped) {
+      String filePrefix = MEMORY_MAPPED_FILE_PREFIX + partitionId + ".";
+      // Clean up the files left from the previous run
+      File[] staleFiles = _tableIndexDir.listFiles((dir, name) -> name.startsWith(filePrefix));
+      if (staleFiles != null) {
+        for (File staleFile : staleFiles) {
+          FileUtils.deleteQuietly(staleFile);
+        }
+      }
+      for (int i = 0; i < numStripes; i++) {
+        _stripes[i] = new Stripe(
+            new OffHeapRecordLocationMap(stripeInitialCapacity, description + "_" + i, _tableIndexDir, filePrefix + i));
+      }
+    } else {
+      for (int i = 0; i < numStripes; i++) {
+        _stripes[i] = new Stripe(new OffHeapRecordLocationMap(stripeInitialCapacity, description + "_" + i));
+      }
+    }
+  }
+
+  @Override
+  protected long getNumPrimaryKeys() {
+    long numPrimaryKeys = 0;
+    for (Stripe stripe : _stripes) {
+      synchronized (stripe) {
+        numPrimaryKeys += stripe._map.size();
+      }
+    }
+    return numPrimaryKeys;
+  }
+
+  @Override
+  protected void doAddOrReplaceSegment(ImmutableSegmentImpl segment, ThreadSafeMutableRoaringBitmap validDocIds,
+      @Nullable ThreadSafeMutableRoaringBitmap queryableDocIds, Iterator<RecordInfo> recordInfoIterator,
+      @Nullable IndexSegment oldSegment, @Nullable MutableRoaringBitmap validDocIdsForOldSegment) {
+    if (_enableConsistentDeletes && _partialUpsertHandler == null) {
+      // De-dup the primary keys so that the distinct segment count is only incremented once per key in the segment.
+      // For partial-upsert, this is done in the base class.
+      recordInfoIterator = resolveComparisonTies(recordInfoIterator, _hashFunction);
+    }
+    String segmentName = segment.getSegmentName();
+    segment.enableUpsert(this, validDocIds, queryableDocIds);
+
+    int[] numKeysInWrongSegment = new int[1];
+    while (recordInfoIterator.hasNext()) {
+      RecordInfo recordInfo = recordInfoIterator.next();
+      int newDocId = recordInfo.getDocId();
+      Comparable newComparisonValue = recordInfo.getComparisonValue();
+      compute(recordInfo.getPrimaryKey(), currentRecordLocation -> {
+        if (currentRecordLocation != null) {
+          // Existing primary key
+          IndexSegment currentSegment = currentRecordLocation.getSegment();
+          int currentDocId = currentRecordLocation.getDocId();
+          int comparisonResult = newComparisonValue.compareTo(currentRecordLocation.getComparisonValue());
+
+          // The current record is in the same segment
+          // Update the record location when there is a tie to keep the newer record. Note that the record info
+          // iterator will return records with incremental doc ids.
+          if (currentSegment == segment) {
+            if (comparisonResult >= 0) {
+              replaceDocId(segment, validDocIds, queryableDocIds, currentDocId, newDocId, recordInfo);
+              return new RecordLocation(segment, newDocId, newComparisonValue,
+                  currentRecordLocation.getDistinctSegmentCount());
+            } else {
+              return currentRecordLocation;
+            }
+          }
+
+          // The current record is in an old segment being replaced
+          // See ConcurrentMapPartitionUpsertMetadataManager for details on why the valid doc ids of the old segment
+          // are not updated in place when a snapshot is provided.
+          if (currentSegment == oldSegment) {
+            if (comparisonResult >= 0) {
+              if (validDocIdsForOldSegment == null && oldSegment.getValidDocIds() != null) {
+                // Update the old segment's bitmap in place if a copy of the bitmap was not provided.
+                replaceDocId(segment, validDocIds, queryableDocIds, oldSegment, currentDocId, newDocId, recordInfo);
+              } else {
+                addDocId(segment, validDocIds, queryableDocIds, newDocId, recordInfo);
+                if (validDocIdsForOldSegment != null) {
+                  validDocIdsForOldSegment.remove(currentDocId);
+                }
+              }
+              return new RecordLocation(segment, newDocId, newComparisonValue,
+                  getNewDistinctSegmentCount(currentRecordLocation));
+            } else {
+              return addDistinctSegment(currentRecordLocation);
+            }
+          }
+
+          // This should not happen because the previously replaced segment should have all keys removed. We still
+          // handle it here, and also track the number of keys not properly replaced previously.
+          String currentSegmentName = currentSegment.getSegmentName();
+          if (currentSegmentName.equals(segmentName)) {
+            numKeysInWrongSegment[0]++;
+            if (comparisonResult >= 0) {
+              addDocId(segment, validDocIds, queryableDocIds, newDocId, recordInfo);
+              return new RecordLocation(segment, newDocId, newComparisonValue,
+                  getNewDistinctSegmentCount(currentRecordLocation));
+            } else {
+              return currentRecordLocation;
+            }
+          }
+
+          // The current record is in a different segment
+          // Update the record location when getting a newer comparison value, or the value is the same as the
+          // current value, but the segment has a larger sequence number (the segment is newer than the current
+          // segment).
+          if (comparisonResult > 0 || (comparisonResult == 0 && shouldReplaceOnComparisonTie(segmentName,
+              currentSegmentName, getAuthoritativeCreationTime(segment),
+              getAuthoritativeCreationTime(currentSegment)))) {
+            replaceDocId(segment, validDocIds, queryableDocIds, currentSegment, currentDocId, newDocId, recordInfo);
+            return new RecordLocation(segment, newDocId, newComparisonValue,
+                getNewDistinctSegmentCount(currentRecordLocation));
+          } else {
+            return addDistinctSegment(currentRecordLocation);
+          }
+        } else {
+          // New primary key
+          addDocId(segment, validDocIds, queryableDocIds, newDocId, recordInfo);
+          return new RecordLocation(segment, newDocId, newComparisonValue, getNewDistinctSegmentCount(null));
+        }
+      });
+    }
+    int numKeys = numKeysInWrongSegment[0];
+    if (numKeys > 0) {
+      _logger.warn("Found {} primary keys in the wrong segment when adding segment: {}", numKeys, segmentName);
+      _serverMetrics.addMeteredTableValue(_tableNameWithType, ServerMeter.UPSERT_KEYS_IN_WRONG_SEGMENT, numKeys);
+    }
+  }
+
+  @Override
+  protected void addSegmentWithoutUpsert(ImmutableSegmentImpl segment, ThreadSafeMutableRoaringBitmap validDocIds,
+      @Nullable ThreadSafeMutableRoaringBitmap queryableDocIds, Iterator<RecordInfo> recordInfoIterator) {
+    if (_enableConsistentDeletes) {
+      throw new UnsupportedOperationException("Consistent-deletion does not support preloading of segments.");
+    }
+    segment.enableUpsert(this, validDocIds, queryableDocIds);
+    while (recordInfoIterator.hasNext()) {
+      RecordInfo recordInfo = recordInfoIterator.next();
+      int newDocId = recordInfo.getDocId();
+      Comparable newComparisonValue = recordInfo.getComparisonValue();
+      addDocId(segment, validDocIds, queryableDocIds, newDocId, recordInfo);
+      RecordLocation newRecordLocation = new RecordLocation(segment, newDocId, newComparisonValue, 0);
+      compute(recordInfo.getPrimaryKey(), currentRecordLocation -> newRecordLocation);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>NOTE: When consistent deletes is enabled, all the primary keys of the segment are removed (not only the valid
+   * ones) to decrement the distinct segment count of the keys in other segments. See
+   * {@link ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletes#doRemoveSegment}.
+   */
+  @Override
+  protected void doRemoveSegment(IndexSegment segment) {
+    if (!_enableConsistentDeletes) {
+      super.doRemoveSegment(segment);
+      return;
+    }
+    String segmentName = segment.getSegmentName();
+    _logger.info("Removing {} segment: {}, current primary key count: {}",
+        segment instanceof ImmutableSegment ? "immutable" : "mutable", segmentName, getNumPrimaryKeys());
+    long startTimeMs = System.currentTimeMillis();
+
+    try (PrimaryKeyReader primaryKeyReader = new PrimaryKeyReader(segment, _primaryKeyColumns)) {
+      removeSegment(segment,
+          UpsertUtils.getPrimaryKeyIterator(primaryKeyReader, segment.getSegmentMetadata().getTotalDocs()));
+    } catch (Exception e) {
+      throw new RuntimeException(
+          String.format("Caught exception while removing segment: %s, table: %s", segment.getSegmentName(),
+              _tableNameWithType), e);
+    }
+
+    // Update metrics
+    long numPrimaryKeys = getNumPrimaryKeys();
+    updatePrimaryKeyGauge(numPrimaryKeys);
+    _logger.info("Finished removing segment: {} in {}ms, current primary key count: {}", segmentName,
+        System.currentTimeMillis() - startTimeMs, numPrimaryKeys);
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>NOTE: When consistent deletes is enabled, the old segment is always removed to decrement the distinct segment
+   * count of its primary keys. See {@link ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletes}.
+   */
+  @Override
+  public void replaceSegment(ImmutableSegment segment, @Nullable ThreadSafeMutableRoaringBitmap validDocIds,
+      @Nullable ThreadSafeMutableRoaringBitmap queryableDocIds, @Nullable Iterator<RecordInfo> recordInfoIterator,
+      IndexSegment oldSegment) {
+    if (!_enableConsistentDeletes) {
+      super.replaceSegment(segment, validDocIds, queryableDocIds, recordInfoIterator, oldSegment);
+      return;
+    }
+    String segmentName = segment.getSegmentName();
+    Lock segmentLock = SegmentLocks.getSegmentLock(_tableNameWithType, segmentName);
+    segmentLock.lock();
+    try {
+      MutableRoaringBitmap validDocIdsForOldSegment =
+          oldSegment.getValidDocIds() != null ? oldSegment.getValidDocIds().getMutableRoaringBitmap() : null;
+      if (recordInfoIterator != null) {
+        Preconditions.checkArgument(segment instanceof ImmutableSegmentImpl,
+            "Got unsupported segment implementation: %s for segment: %s, table: %s", segment.getClass(), segmentName,
+            _tableNameWithType);
+        if (validDocIds == null) {
+          validDocIds = new ThreadSafeMutableRoaringBitmap();
+        }
+        if (queryableDocIds == null && _deleteRecordColumn != null) {
+          queryableDocIds = new ThreadSafeMutableRoaringBitmap();
+        }
+        addOrReplaceSegment((ImmutableSegmentImpl) segment, validDocIds, queryableDocIds, recordInfoIterator,
+            oldSegment, validDocIdsForOldSegment);
+      }
+      if (validDocIdsForOldSegment != null && !validDocIdsForOldSegment.isEmpty() && _partialUpsertHandler != null) {
+        int numKeysNotReplaced = validDocIdsForOldSegment.getCardinality();
+        _logger.warn("Found {} primary keys not replaced when replacing segment: {} for partial-upsert table. This "
+            + "can potentially cause inconsistency between replicas", numKeysNotReplaced, segmentName);
+        _serverMetrics.addMeteredTableValue(_tableNameWithType, ServerMeter.PARTIAL_UPSERT_KEYS_NOT_REPLACED,
+            numKeysNotReplaced);
+      }
+      doRemoveSegment(oldSegment);
+    } finally {
+      segmentLock.unlock();
+    }
+  }
+
+  @Override
+  protected void removeSegment(IndexSegment segment, Iterator<PrimaryKey> primaryKeyIterator) {
+    // With consistent deletes, decrement the distinct segment count once for each unique primary key in the segment
+    Set<ByteArray> uniqueKeys = _enableConsistentDeletes ? new HashSet<>() : null;
+    while (primaryKeyIterator.hasNext()) {
+      byte[] key = getKey(primaryKeyIterator.next());
+      compute(key, recordLocation -> {
+        if (recordLocation == null || recordLocation.getSegment() == segment) {
+          return null;
+        }
+        if (uniqueKeys == null || !uniqueKeys.add(new ByteArray(key))) {
+          return recordLocation;
+        }
+        return new RecordLocation(recordLocation.getSegment(), recordLocation.getDocId(),
+            recordLocation.getComparisonValue(), recordLocation.getDistinctSegmentCount() - 1);
+      });
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>NOTE: Each stripe of the map is locked while it is scanned, so the ingestion of the keys in that stripe is
+   * blocked during the scan of the stripe.
+   */
+  @Override
+  public void doRemoveExpiredPrimaryKeys() {
+    int numMetadataTTLKeysRemoved = 0;
+    int numDeletedTTLKeysRemoved = 0;
+    int numTotalKeysMarkForDeletion = 0;
+    int numDeletedKeysWithinTTLWindow = 0;
+    int numDeletedTTLKeysInMultipleSegments = 0;
+    double largestSeenComparisonValue = _largestSeenComparisonValue.get();
+    double metadataTTLKeysThreshold =
+        _metadataTTL > 0 ? largestSeenComparisonValue - _metadataTTL : Double.NEGATIVE_INFINITY;
+    double deletedKeysThreshold =
+        _deletedKeysTTL > 0 ? largestSeenComparisonValue - _deletedKeysTTL : Double.NEGATIVE_INFINITY;
+    for (Stripe stripe : _stripes) {
+      synchronized (stripe) {
+        OffHeapRecordLocationMap map = stripe._map;
+        // Collect the keys first because removing an entry can shift the other entries
+        List<byte[]> keysToRemove = new ArrayList<>();
+        int capacity = map.getCapacity();
+        for (int i = 0; i < capacity; i++) {
+          if (!map.isOccupied(i)) {
+            continue;
+          }
+          double comparisonValue = ((Number) map.getComparisonValue(i)).doubleValue();
+          if (_metadataTTL > 0 && comparisonValue < metadataTTLKeysThreshold) {
+            keysToRemove.add(map.getKey(i));
+            numMetadataTTLKeysRemoved++;
+          } else if (_deletedKeysTTL > 0) {
+            IndexSegment segment = stripe._idToSegmentMap.get(map.getSegmentId(i));
+            int docId = map.getDocId(i);
+            ThreadSafeMutableRoaringBitmap currentQueryableDocIds = segment.getQueryableDocIds();
+            // if key not part of queryable doc id, it means it is deleted
+            if (currentQueryableDocIds != null && !currentQueryableDocIds.contains(docId)) {
+              numTotalKeysMarkForDeletion++;
+              if (comparisonValue >= deletedKeysThreshold) {
+                // If key is within the TTL window, do not remove it from the primary hashmap
+                numDeletedKeysWithinTTLWindow++;
+              } else if (_enableConsistentDeletes && map.getDistinctSegmentCount(i) > 1) {
+                // If key is part of multiple segments, do not remove it from the primary hashmap
+                numDeletedTTLKeysInMultipleSegments++;
+              } else {
+                // delete key from primary hashmap
+                keysToRemove.add(map.getKey(i));
+                removeDocId(segment, docId);
+                numDeletedTTLKeysRemoved++;
+              }
+            }
+          }
+        }
+        for (byte[] key : keysToRemove) {
+          int index = map.indexOf(key);
+          stripe.releaseSegmentId(map.getSegmentId(index));
+          map.removeAt(index);
+        }
+      }
+    }
+
+    // Update metrics
+    updatePrimaryKeyGauge();
+    if (numMetadataTTLKeysRemoved > 0) {
+      _logger.info("Deleted {} primary keys based on metadataTTL", numMetadataTTLKeysRemoved);
+      _serverMetrics.addMeteredTableValue(_tableNameWithType, ServerMeter.METADATA_TTL_PRIMARY_KEYS_REMOVED,
+          numMetadataTTLKeysRemoved);
+    }
+    if (numDeletedTTLKeysRemoved > 0) {
+      _logger.info("Deleted {} primary keys based on deletedKeysTTL", numDeletedTTLKeysRemoved);
+      _serverMetrics.addMeteredTableValue(_tableNameWithType, ServerMeter.DELETED_KEYS_TTL_PRIMARY_KEYS_REMOVED,
+          numDeletedTTLKeysRemoved);
+    }
+    if (numTotalKeysMarkForDeletion > 0) {
+      _serverMetrics.addMeteredTableValue(_tableNameWithType, ServerMeter.TOTAL_KEYS_MARKED_FOR_DELETION,
+          numTotalKeysMarkForDeletion);
+    }
+    if (numDeletedKeysWithinTTLWindow > 0) {
+      _serverMetrics.addMeteredTableValue(_tableNameWithType, ServerMeter.DELETED_KEYS_WITHIN_TTL_WINDOW,
+          numDeletedKeysWithinTTLWindow);
+    }
+    if (numDeletedTTLKeysInMultipleSegments > 0) {
+      _serverMetrics.addMeteredTableValue(_tableNameWithType, ServerMeter.DELETED_TTL_KEYS_IN_MULTIPLE_SEGMENTS,
+          numDeletedTTLKeysInMultipleSegments);
+    }
+  }
+
+  @Override
+  protected boolean doAddRecord(MutableSegment segment, RecordInfo recordInfo) {
+    boolean[] isOutOfOrderRecord = new boolean[1];
+    ThreadSafeMutableRoaringBitmap validDocIds = Objects.requireNonNull(segment.getValidDocIds());
+    ThreadSafeMutableRoaringBitmap queryableDocIds = segment.getQueryableDocIds();
+    int newDocId = recordInfo.getDocId();
+    Comparable newComparisonValue = recordInfo.getComparisonValue();
+
+    // When TTL is enabled, update largestSeenComparisonValue when adding new record
+    if (isTTLEnabled()) {
+      double comparisonValue = ((Number) newComparisonValue).doubleValue();
+      _largestSeenComparisonValue.getAndUpdate(v -> Math.max(v, comparisonValue));
+    }
+
+    compute(recordInfo.getPrimaryKey(), currentRecordLocation -> {
+      if (currentRecordLocation != null) {
+        // Existing primary key
+
+        // Update the record location when the new comparison value is greater than or equal to the current value.
+        // Update the record location when there is a tie to keep the newer record.
+        if (newComparisonValue.compareTo(currentRecordLocation.getComparisonValue()) >= 0) {
+          IndexSegment currentSegment = currentRecordLocation.getSegment();
+          int currentDocId = currentRecordLocation.getDocId();
+          if (segment == currentSegment) {
+            replaceDocId(segment, validDocIds, queryableDocIds, currentDocId, newDocId, recordInfo);
+            return new RecordLocation(segment, newDocId, newComparisonValue,
+                currentRecordLocation.getDistinctSegmentCount());
+          } else {
+            replaceDocId(segment, validDocIds, queryableDocIds, currentSegment, currentDocId, newDocId, recordInfo);
+            return new RecordLocation(segment, newDocId, newComparisonValue,
+                getNewDistinctSegmentCount(currentRecordLocation));
+          }
+        } else {
+          // Out-of-order record
+          handleOutOfOrderEvent(currentRecordLocation.getComparisonValue(), recordInfo.getComparisonValue());
+          isOutOfOrderRecord[0] = true;
+          if (segment == currentRecordLocation.getSegment() || _context.isDropOutOfOrderRecord()) {
+            return currentRecordLocation;
+          } else {
+            return addDistinctSegment(currentRecordLocation);
+          }
+        }
+      } else {
+        // New primary key
+        addDocId(segment, validDocIds, queryableDocIds, newDocId, recordInfo);
+        return new RecordLocation(segment, newDocId, newComparisonValue, getNewDistinctSegmentCount(null));
+      }
+    });
+
+    updatePrimaryKeyGauge();
+    return !isOutOfOrderRecord[0];
+  }
+
+  @Override
+  protected GenericRow doUpdateRecord(GenericRow record, RecordInfo recordInfo) {
+    assert _partialUpsertHandler != null;
+    compute(recordInfo.getPrimaryKey(), recordLocation -> {
+      // Read the previous record if the following conditions are met:
+      // - Previous record exists
+      // - New record is not a DELETE record
+      // - New record is not out-of-order
+      // - Previous record is not deleted
+      if (recordLocation != null && !recordInfo.isDeleteRecord()
+          && recordInfo.getComparisonValue().compareTo(recordLocation.getComparisonValue()) >= 0) {
+        IndexSegment currentSegment = recordLocation.getSegment();
+        ThreadSafeMutableRoaringBitmap currentQueryableDocIds = currentSegment.getQueryableDocIds();
+        int currentDocId = recordLocation.getDocId();
+        if (currentQueryableDocIds == null || currentQueryableDocIds.contains(currentDocId)) {
+          _reusePreviousRow.init(currentSegment, currentDocId);
+          _partialUpsertHandler.merge(_reusePreviousRow, record, _reuseMergeResultHolder);
+          _reuseMergeResultHolder.clear();
+        }
+      }
+      return recordLocation;
+    });
+    return record;
+  }
+
+  @Override
+  protected void doClose()
+      throws IOException {
+    for (Stripe stripe : _stripes) {
+      synchronized (stripe) {
+        stripe.close();
+      }
+    }
+  }
+
+  /**
+   * Atomically computes the record location for the given primary key, similar to
+   * {@link java.util.concurrent.ConcurrentHashMap#compute}. The remapping function takes the current record location
+   * ({@code null} if the primary key does not exist), and returns the new record location ({@code null} to remove the
+   * primary key). Only the stripe of the primary key is locked while the remapping function is applied.
+   */
+  @VisibleForTesting
+  void compute(PrimaryKey primaryKey, UnaryOperator<RecordLocation> remappingFunction) {
+    compute(getKey(primaryKey), remappingFunction);
+  }
+
+  private void compute(byte[] key, UnaryOperator<RecordLocation> remappingFunction) {
+    Stripe stripe = getStripe(key);
+    synchronized (stripe) {
+      OffHeapRecordLocationMap map = stripe._map;
+      int index = map.indexOf(key);
+      RecordLocation currentRecordLocation = index >= 0 ? stripe.getRecordLocation(index) : null;
+      RecordLocation newRecordLocation = remappingFunction.apply(currentRecordLocation);
+      if (newRecordLocation == currentRecordLocation) {
+        return;
+      }
+      if (newRecordLocation == null) {
+        stripe.releaseSegmentId(map.getSegmentId(index));
+        map.removeAt(index);
+        return;
+      }
+      int newSegmentId = stripe.acquireSegmentId(newRecordLocation.getSegment());
+      if (index >= 0) {
+        stripe.releaseSegmentId(map.getSegmentId(index));
+        map.set(index, newSegmentId, newRecordLocation.getDocId(), newRecordLocation.getComparisonValue(),
+            newRecordLocation.getDistinctSegmentCount());
+      } else {
+        map.put(key, newSegmentId, newRecordLocation.getDocId(), newRecordLocation.getComparisonValue(),
+            newRecordLocation.getDistinctSegmentCount());
+      }
+    }
+  }
+
+  @VisibleForTesting
+  @Nullable
+  RecordLocation getRecordLocation(PrimaryKey primaryKey) {
+    byte[] key = getKey(primaryKey);
+    Stripe stripe = getStripe(key);
+    synchronized (stripe) {
+      int index = stripe._map.indexOf(key);
+      return index >= 0 ? stripe.getRecordLocation(index) : null;
+    }
+  }
+
+  @VisibleForTesting
+  int getNumStripes() {
+    return _stripes.length;
+  }
+
+  /**
+   * Returns the distinct segment count of a primary key when a record from a new segment is added for it. The count is
+   * only maintained when consistent deletes is enabled, and is always 0 otherwise.
+   */
+  private int getNewDistinctSegmentCount(@Nullable RecordLocation currentRecordLocation) {
+    if (!_enableConsistentDeletes) {
+      return 0;
+    }
+    return currentRecordLocation != null ? currentRecordLocation.getDistinctSegmentCount() + 1 : 1;
+  }
+
+  /**
+   * Returns the record location with the distinct segment count incremented when a new segment contains the primary
+   * key but the record location is not updated.
+   */
+  private RecordLocation addDistinctSegment(RecordLocation recordLocation) {
+    if (!_enableConsistentDeletes) {
+      return recordLocation;
+    }
+    return new RecordLocation(recordLocation.getSegment(), recordLocation.getDocId(),
+        recordLocation.getComparisonValue(), recordLocation.getDistinctSegmentCount() + 1);
+  }
+
+  /**
+   * Returns the 16 bytes key stored in the map for the given primary key.
+   */
+  private byte[] getKey(PrimaryKey primaryKey) {
+    Object hashedPrimaryKey = HashUtils.hashPrimaryKey(primaryKey, _hashFunction);
+    byte[] bytes = hashedPrimaryKey instanceof ByteArray ? ((ByteArray) hashedPrimaryKey).getBytes()
+        : ((PrimaryKey) hashedPrimaryKey).asBytes();
+    return bytes.length == OffHeapRecordLocationMap.KEY_SIZE ? bytes : HashUtils.hashMurmur3(bytes);
+  }
+
+  /**
+   * Returns the stripe for the given key. The map slot is picked with a mix of all the key bits, so using the leading
+   * key bytes for the stripe does not skew the slots within a stripe.
+   */
+  private Stripe getStripe(byte[] key) {
+    return _stripes[(((key[0] & 0xFF) << 8) | (key[1] & 0xFF)) & _stripeMask];
+  }
+
+  /**
+   * A stripe of the primary key map, together with the ids of the segments referenced by the keys in the stripe. All
+   * the accesses are guarded by the stripe itself.
+   */
+  private static class Stripe {
+    final OffHeapRecordLocationMap _map;
+    final Reference2IntOpenHashMap<IndexSegment> _segmentToIdMap = new Reference2IntOpenHashMap<>();
+    final Int2ObjectOpenHashMap<IndexSegment> _idToSegmentMap = new Int2ObjectOpenHashMap<>();
+    final Int2IntOpenHashMap _segmentIdToNumKeysMap = new Int2IntOpenHashMap();
+    int _nextSegmentId = OffHeapRecordLocationMap.EMPTY_SEGMENT_ID + 1;
+
+    Stripe(OffHeapRecordLocationMap map) {
+      _map = map;
+    }
+
+    RecordLocation getRecordLocation(int index) {
+      return new RecordLocation(_idToSegmentMap.get(_map.getSegmentId(index)), _map.getDocId(index),
+          _map.getComparisonValue(index), _map.getDistinctSegmentCount(index));
+    }
+
+    int acquireSegmentId(IndexSegment segment) {
+      int segmentId = _segmentToIdMap.getOrDefault(segment, OffHeapRecordLocationMap.EMPTY_SEGMENT_ID);
+      if (segmentId == OffHeapRecordLocationMap.EMPTY_SEGMENT_ID) {
+        segmentId = _nextSegmentId++;
+        _segmentToIdMap.put(segment, segmentId);
+        _idToSegmentMap.put(segmentId, segment);
+      }
+      _segmentIdToNumKeysMap.addTo(segmentId, 1);
+      return segmentId;
+    }
+
+    void releaseSegmentId(int segmentId) {
+      if (_segmentIdToNumKeysMap.addTo(segmentId, -1) == 1) {
+        _segmentIdToNumKeysMap.remove(segmentId);
+        _segmentToIdMap.removeInt(_idToSegmentMap.remove(segmentId));
+      }
+    }
+
+    void close()
+        throws IOException {
+      _map.close();
+      _segmentToIdMap.clear();
+      _idToSegmentMap.clear();
+      _segmentIdToNumKeysMap.clear();
+    }
+  }
+
+  @VisibleForTesting
+  static class RecordLocation {
+    private final IndexSegment _segment;
+    private final int _docId;
+    private final Comparable _comparisonValue;
+    // Only maintained when consistent deletes is enabled
+    private final int _distinctSegmentCount;
+
+    public RecordLocation(IndexSegment indexSegment, int docId, Comparable comparisonValue, int distinctSegmentCount) {
+      _segment = indexSegment;
+      _docId = docId;
+      _comparisonValue = comparisonValue;
+      _distinctSegmentCount = distinctSegmentCount;
+    }
+
+    public IndexSegment getSegment() {
+      return _segment;
+    }
+
+    public int getDocId() {
+      return _docId;
+    }
+
+    public Comparable getComparisonValue() {
+      return _comparisonValue;
+    }
+
+    public int getDistinctSegmentCount() {
+      return _distinctSegmentCount;
+    }
+  }
+}
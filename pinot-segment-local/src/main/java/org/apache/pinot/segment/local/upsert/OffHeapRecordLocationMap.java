@@ -0,0 +1,408 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.upsert;
+
+import com.google.common.base.Preconditions;
+import it.unimi.dsi.fastutil.HashCommon;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+import org.apache.commons.io.FileUtils;
+import org.apache.pinot.segment.spi.memory.PinotDataBuffer;
+
+
+/**
+ * Open-addressing (linear probing) hash table that maps fixed-width 128-bit primary key hashes to record locations,
+ * stored in a direct or memory-mapped {@link PinotDataBuffer} so that the upsert metadata does not live on the heap.
+ * <p>
+ * Each entry takes {@link #ENTRY_SIZE} bytes:
+ * <ul>
+ *   <li>128-bit primary key hash</li>
+ *   <li>Comparison value (INT, LONG, FLOAT and DOUBLE values are stored inline; other values are stored in an on-heap
+ *   pool and the entry stores the index into the pool)</li>
+ *   <li>Segment id (0 marks an empty slot), doc id and distinct segment count (number of segments containing the key,
+ *   used for consistent deletes)</li>
+ * </ul>
+ * Entries are removed with backward shift deletion, so there are no tombstones and the probe sequences stay short.
+ * <p>
+ * The caller is responsible for synchronization.
+ */
+@SuppressWarnings("rawtypes")
+@NotThreadSafe
+public class OffHeapRecordLocationMap implements Closeable {
+  public static final int KEY_SIZE = 16;
+  public static final int ENTRY_SIZE = 40;
+  public static final int EMPTY_SEGMENT_ID = 0;
+
+  private static final int KEY_HIGH_OFFSET = 0;
+  private static final int KEY_LOW_OFFSET = 8;
+  private static final int COMPARISON_VALUE_OFFSET = 16;
+  private static final int SEGMENT_ID_OFFSET = 24;
+  private static final int DOC_ID_OFFSET = 28;
+  private static final int DISTINCT_SEGMENT_COUNT_OFFSET = 32;
+  private static final int COMPARISON_VALUE_TYPE_OFFSET = 36;
+
+  private static final int TYPE_INT = 0;
+  private static final int TYPE_LONG = 1;
+  private static final int TYPE_FLOAT = 2;
+  private static final int TYPE_DOUBLE = 3;
+  private static final int TYPE_OBJECT = 4;
+
+  private static final float LOAD_FACTOR = 0.75f;
+  private static final int MIN_CAPACITY = 16;
+
+  private final String _description;
+  private final File _memoryMappedDir;
+  private final String _memoryMappedFilePrefix;
+
+  // Comparison values that cannot be stored inline, and the free indexes in the pool
+  private final ObjectArrayList<Comparable> _objectComparisonValues = new ObjectArrayList<>();
+  private final IntArrayList _freeObjectComparisonValueIds = new IntArrayList();
+
+  private PinotDataBuffer _buffer;
+  private File _memoryMappedFile;
+  private int _numFiles;
+  private int _capacity;
+  private int _mask;
+  private int _maxSize;
+  private int _size;
+
+  /**
+   * Creates a map backed by direct memory.
+   */
+  public OffHeapRecordLocationMap(int initialCapacity, String description) {
+    this(initialCapacity, description, null, null);
+  }
+
+  /**
+   * Creates a map backed by memory-mapped files under the given directory if it is provided, or by direct memory
+   * otherwise.
+   */
+  public OffHeapRecordLocationMap(int initialCapacity, String description, @Nullable File memoryMappedDir,
+      @Nullable String memoryMappedFilePrefix) {
+    Preconditions.checkArgument(memoryMappedDir == null || memoryMappedFilePrefix != null,
+        "File prefix must be provided for memory-mapped map");
+    _description = description;
+    _memoryMappedDir = memoryMappedDir;
+    _memoryMappedFilePrefix = memoryMappedFilePrefix;
+    allocate(HashCommon.arraySize(Math.max(initialCapacity, MIN_CAPACITY), LOAD_FACTOR));
+  }
+
+  public int size() {
+    return _size;
+  }
+
+  public int getCapacity() {
+    return _capacity;
+  }
+
+  /**
+   * Returns the size of the off-heap buffer in bytes.
+   */
+  public long getSizeInBytes() {
+    return (long) _capacity * ENTRY_SIZE;
+  }
+
+  /**
+   * Returns the index of the entry for the given key, or -1 if the key does not exist. The index is only valid until
+   * the map is modified.
+   */
+  public int indexOf(byte[] key) {
+    long keyHigh = getKeyHigh(key);
+    long keyLow = getKeyLow(key);
+    int index = getIdealIndex(keyHigh, keyLow);
+    while (getSegmentId(index) != EMPTY_SEGMENT_ID) {
+      if (getKeyHigh(index) == keyHigh && getKeyLow(index) == keyLow) {
+        return index;
+      }
+      index = (index + 1) & _mask;
+    }
+    return -1;
+  }
+
+  /**
+   * Returns whether the slot at the given index holds an entry. Can be used together with {@link #getCapacity()} to
+   * iterate over all the entries.
+   */
+  public boolean isOccupied(int index) {
+    return getSegmentId(index) != EMPTY_SEGMENT_ID;
+  }
+
+  public byte[] getKey(int index) {
+    byte[] key = new byte[KEY_SIZE];
+    long keyHigh = getKeyHigh(index);
+    long keyLow = getKeyLow(index);
+    for (int i = 0; i < 8; i++) {
+      key[i] = (byte) (keyHigh >>> (56 - 8 * i));
+      key[8 + i] = (byte) (keyLow >>> (56 - 8 * i));
+    }
+    return key;
+  }
+
+  public int getSegmentId(int index) {
+    return _buffer.getInt(getOffset(index) + SEGMENT_ID_OFFSET);
+  }
+
+  public int getDocId(int index) {
+    return _buffer.getInt(getOffset(index) + DOC_ID_OFFSET);
+  }
+
+  public int getDistinctSegmentCount(int index) {
+    return _buffer.getInt(getOffset(index) + DISTINCT_SEGMENT_COUNT_OFFSET);
+  }
+
+  public Comparable getComparisonValue(int index) {
+    long offset = getOffset(index);
+    long value = _buffer.getLong(offset + COMPARISON_VALUE_OFFSET);
+    switch (_buffer.getInt(offset + COMPARISON_VALUE_TYPE_OFFSET)) {
+      case TYPE_INT:
+        return (int) value;
+      case TYPE_LONG:
+        return value;
+      case TYPE_FLOAT:
+        return Float.intBitsToFloat((int) value);
+      case TYPE_DOUBLE:
+        return Double.longBitsToDouble(value);
+      case TYPE_OBJECT:
+        return _objectComparisonValues.get((int) value);
+      default:
+        throw new IllegalStateException("Unsupported comparison value type");
+    }
+  }
+
+  /**
+   * Adds a new entry or updates the existing entry for the given key.
+   */
+  public void put(byte[] key, int segmentId, int docId, Comparable comparisonValue, int distinctSegmentCount) {
+    Preconditions.checkArgument(segmentId != EMPTY_SEGMENT_ID, "Invalid segment id: %s", segmentId);
+    long keyHigh = getKeyHigh(key);
+    long keyLow = getKeyLow(key);
+    int index = getIdealIndex(keyHigh, keyLow);
+    while (getSegmentId(index) != EMPTY_SEGMENT_ID) {
+      if (getKeyHigh(index) == keyHigh && getKeyLow(index) == keyLow) {
+        set(index, segmentId, docId, comparisonValue, distinctSegmentCount);
+        return;
+      }
+      index = (index + 1) & _mask;
+    }
+    long offset = getOffset(index);
+    _buffer.putLong(offset + KEY_HIGH_OFFSET, keyHigh);
+    _buffer.putLong(offset + KEY_LOW_OFFSET, keyLow);
+    setValue(offset, segmentId, docId, comparisonValue, distinctSegmentCount);
+    if (++_size > _maxSize) {
+      resize(_capacity << 1);
+    }
+  }
+
+  /**
+   * Updates the entry at the given index.
+   */
+  public void set(int index, int segmentId, int docId, Comparable comparisonValue, int distinctSegmentCount) {
+    Preconditions.checkArgument(segmentId != EMPTY_SEGMENT_ID, "Invalid segment id: %s", segmentId);
+    long offset = getOffset(index);
+    releaseObjectComparisonValue(offset);
+    setValue(offset, segmentId, docId, comparisonValue, distinctSegmentCount);
+  }
+
+  /**
+   * Removes the entry for the given key, and returns whether the key existed.
+   */
+  public boolean remove(byte[] key) {
+    int index = indexOf(key);
+    if (index < 0) {
+      return false;
+    }
+    removeAt(index);
+    return true;
+  }
+
+  /**
+   * Removes the entry at the given index. Entries after the removed entry in the same probe sequence are shifted back
+   * so that no tombstone is needed.
+   */
+  public void removeAt(int index) {
+    releaseObjectComparisonValue(getOffset(index));
+    int hole = index;
+    int next = (index + 1) & _mask;
+    while (getSegmentId(next) != EMPTY_SEGMENT_ID) {
+      int idealIndex = getIdealIndex(getKeyHigh(next), getKeyLow(next));
+      // Move the entry into the hole if the hole is within its probe sequence
+      if (((next - idealIndex) & _mask) >= ((next - hole) & _mask)) {
+        copyEntry(_buffer, next, _buffer, hole);
+        hole = next;
+      }
+      next = (next + 1) & _mask;
+    }
+    _buffer.putInt(getOffset(hole) + SEGMENT_ID_OFFSET, EMPTY_SEGMENT_ID);
+    _size--;
+  }
+
+  @Override
+  public void close()
+      throws IOException {
+    if (_buffer != null) {
+      _buffer.close();
+      _buffer = null;
+      deleteMemoryMappedFile(_memoryMappedFile);
+    }
+    _objectComparisonValues.clear();
+    _freeObjectComparisonValueIds.clear();
+  }
+
+  private void setValue(long offset, int segmentId, int docId, Comparable comparisonValue, int distinctSegmentCount) {
+    int type;
+    long value;
+    if (comparisonValue instanceof Integer) {
+      type = TYPE_INT;
+      value = (Integer) comparisonValue;
+    } else if (comparisonValue instanceof Long) {
+      type = TYPE_LONG;
+      value = (Long) comparisonValue;
+    } else if (comparisonValue instanceof Float) {
+      type = TYPE_FLOAT;
+      value = Float.floatToRawIntBits((Float) comparisonValue);
+    } else if (comparisonValue instanceof Double) {
+      type = TYPE_DOUBLE;
+      value = Double.doubleToRawLongBits((Double) comparisonValue);
+    } else {
+      type = TYPE_OBJECT;
+      int id;
+      if (_freeObjectComparisonValueIds.isEmpty()) {
+        id = _objectComparisonValues.size();
+        _objectComparisonValues.add(comparisonValue);
+      } else {
+        id = _freeObjectComparisonValueIds.popInt();
+        _objectComparisonValues.set(id, comparisonValue);
+      }
+      value = id;
+    }
+    _buffer.putLong(offset + COMPARISON_VALUE_OFFSET, value);
+    _buffer.putInt(offset + SEGMENT_ID_OFFSET, segmentId);
+    _buffer.putInt(offset + DOC_ID_OFFSET, docId);
+    _buffer.putInt(offset + DISTINCT_SEGMENT_COUNT_OFFSET, distinctSegmentCount);
+    _buffer.putInt(offset + COMPARISON_VALUE_TYPE_OFFSET, type);
+  }
+
+  private void releaseObjectComparisonValue(long offset) {
+    if (_buffer.getInt(offset + COMPARISON_VALUE_TYPE_OFFSET) == TYPE_OBJECT) {
+      int id = (int) _buffer.getLong(offset + COMPARISON_VALUE_OFFSET);
+      _objectComparisonValues.set(id, null);
+      _freeObjectComparisonValueIds.add(id);
+    }
+  }
+
+  private void allocate(int capacity) {
+    long sizeInBytes = (long) capacity * ENTRY_SIZE;
+    if (_memoryMappedDir != null) {
+      _memoryMappedFile = new File(_memoryMappedDir, _memoryMappedFilePrefix + "." + _numFiles++);
+      try {
+        FileUtils.deleteQuietly(_memoryMappedFile);
+        _buffer = PinotDataBuffer.mapFile(_memoryMappedFile, false, 0, sizeInBytes, ByteOrder.nativeOrder(),
+            _description);
+      } catch (IOException e) {
+        throw new RuntimeException("Caught exception while memory mapping file: " + _memoryMappedFile, e);
+      }
+    } else {
+      _buffer = PinotDataBuffer.allocateDirect(sizeInBytes, ByteOrder.nativeOrder(), _description);
+    }
+    // The content of the allocated buffer is not defined, so explicitly mark all the slots as empty
+    for (int i = 0; i < capacity; i++) {
+      _buffer.putInt((long) i * ENTRY_SIZE + SEGMENT_ID_OFFSET, EMPTY_SEGMENT_ID);
+    }
+    _capacity = capacity;
+    _mask = capacity - 1;
+    _maxSize = (int) Math.min(capacity - 1, (long) Math.ceil(capacity * LOAD_FACTOR));
+  }
+
+  private void resize(int newCapacity) {
+    Preconditions.checkState(newCapacity > 0, "Cannot resize the map beyond the max capacity");
+    PinotDataBuffer oldBuffer = _buffer;
+    File oldMemoryMappedFile = _memoryMappedFile;
+    int oldCapacity = _capacity;
+    allocate(newCapacity);
+    for (int i = 0; i < oldCapacity; i++) {
+      if (oldBuffer.getInt((long) i * ENTRY_SIZE + SEGMENT_ID_OFFSET) != EMPTY_SEGMENT_ID) {
+        long offset = (long) i * ENTRY_SIZE;
+        int index =
+            getIdealIndex(oldBuffer.getLong(offset + KEY_HIGH_OFFSET), oldBuffer.getLong(offset + KEY_LOW_OFFSET));
+        while (getSegmentId(index) != EMPTY_SEGMENT_ID) {
+          index = (index + 1) & _mask;
+        }
+        copyEntry(oldBuffer, i, _buffer, index);
+      }
+    }
+    try {
+      oldBuffer.close();
+    } catch (IOException e) {
+      throw new RuntimeException("Caught exception while closing buffer for: " + _description, e);
+    }
+    deleteMemoryMappedFile(oldMemoryMappedFile);
+  }
+
+  private static void copyEntry(PinotDataBuffer srcBuffer, int srcIndex, PinotDataBuffer destBuffer, int destIndex) {
+    long srcOffset = (long) srcIndex * ENTRY_SIZE;
+    long destOffset = (long) destIndex * ENTRY_SIZE;
+    for (int i = 0; i < ENTRY_SIZE; i += Long.BYTES) {
+      destBuffer.putLong(destOffset + i, srcBuffer.getLong(srcOffset + i));
+    }
+  }
+
+  private static void deleteMemoryMappedFile(@Nullable File file) {
+    if (file != null) {
+      FileUtils.deleteQuietly(file);
+    }
+  }
+
+  private int getIdealIndex(long keyHigh, long keyLow) {
+    return (int) HashCommon.mix(keyHigh ^ keyLow) & _mask;
+  }
+
+  private long getKeyHigh(int index) {
+    return _buffer.getLong(getOffset(index) + KEY_HIGH_OFFSET);
+  }
+
+  private long getKeyLow(int index) {
+    return _buffer.getLong(getOffset(index) + KEY_LOW_OFFSET);
+  }
+
+  private static long getOffset(int index) {
+    return (long) index * ENTRY_SIZE;
+  }
+
+  private static long getKeyHigh(byte[] key) {
+    return toLong(key, 0);
+  }
+
+  private static long getKeyLow(byte[] key) {
+    return toLong(key, 8);
+  }
+
+  private static long toLong(byte[] bytes, int offset) {
+    long value = 0;
+    for (int i = 0; i < 8; i++) {
+      value = (value << 8) | (bytes[offset + i] & 0xFF);
+    }
+    return value;
+  }
+}
@@ -0,0 +1,183 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.dedup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import org.apache.commons.io.FileUtils;
+import org.apache.pinot.segment.local.data.manager.TableDataManager;
+import org.apache.pinot.segment.local.segment.readers.PinotSegmentColumnReader;
+import org.apache.pinot.segment.local.segment.readers.PrimaryKeyReader;
+import org.apache.pinot.segment.spi.IndexSegment;
+import org.apache.pinot.spi.config.table.HashFunction;
+import org.apache.pinot.spi.config.table.TableConfig;
+import org.apache.pinot.spi.data.Schema;
+import org.mockito.Mockito;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+
+public class TieredPartitionDedupMetadataManagerTest {
+  private static final File TEMP_DIR =
+      new File(FileUtils.getTempDirectory(), TieredPartitionDedupMetadataManagerTest.class.getSimpleName());
+  private static final int HOT_TIER_MAX_KEYS = 10;
+  private static final int METADATA_TTL = 10000;
+  private static final String DEDUP_TIME_COLUMN_NAME = "dedupTimeColumn";
+  private DedupContext.Builder _dedupContextBuilder;
+
+  @BeforeMethod
+  public void setUpContextBuilder()
+      throws IOException {
+    FileUtils.forceMkdir(TEMP_DIR);
+    TableDataManager tableDataManager = mock(TableDataManager.class);
+    when(tableDataManager.getTableDataDir()).thenReturn(TEMP_DIR);
+    _dedupContextBuilder = new DedupContext.Builder()
+        .setTableConfig(mock(TableConfig.class))
+        .setSchema(mock(Schema.class))
+        .setTableDataManager(tableDataManager)
+        .setPrimaryKeyColumns(List.of("primaryKeyColumn"))
+        .setMetadataManagerConfigs(
+            Map.of(TieredPartitionDedupMetadataManager.HOT_TIER_MAX_KEYS, Integer.toString(HOT_TIER_MAX_KEYS)));
+  }
+
+  @AfterMethod
+  public void cleanup() {
+    FileUtils.deleteQuietly(TEMP_DIR);
+  }
+
+  @Test
+  public void testCheckRecordPresentOrUpdate()
+      throws IOException {
+    verifyCheckRecordPresentOrUpdate(HashFunction.NONE);
+    verifyCheckRecordPresentOrUpdate(HashFunction.MD5);
+    verifyCheckRecordPresentOrUpdate(HashFunction.MURMUR3);
+  }
+
+  private void verifyCheckRecordPresentOrUpdate(HashFunction hashFunction)
+      throws IOException {
+    TieredPartitionDedupMetadataManager metadataManager =
+        new TieredPartitionDedupMetadataManager(DedupTestUtils.REALTIME_TABLE_NAME, 0,
+            _dedupContextBuilder.setHashFunction(hashFunction).build());
+    IndexSegment segment = DedupTestUtils.mockSegment(1, 100);
+
+    // The cold tier is not created until the hot tier is full
+    for (int i = 0; i < HOT_TIER_MAX_KEYS; i++) {
+      assertFalse(metadataManager.checkRecordPresentOrUpdate(getDedupRecordInfo(i), segment));
+    }
+    assertNull(metadataManager._coldTier);
+
+    for (int i = HOT_TIER_MAX_KEYS; i < 100; i++) {
+      assertFalse(metadataManager.checkRecordPresentOrUpdate(getDedupRecordInfo(i), segment));
+    }
+    assertEquals(metadataManager.getNumPrimaryKeys(), 100);
+    assertTrue(metadataManager._hotTier.size() <= HOT_TIER_MAX_KEYS);
+    assertEquals(metadataManager._coldTier.size(), 100 - metadataManager._hotTier.size());
+
+    // Keys in both tiers should be found
+    for (int i = 0; i < 100; i++) {
+      assertTrue(metadataManager.checkRecordPresentOrUpdate(getDedupRecordInfo(i), segment));
+    }
+    for (int i = 100; i < 120; i++) {
+      assertFalse(metadataManager.checkRecordPresentOrUpdate(getDedupRecordInfo(i), segment));
+    }
+    assertEquals(metadataManager.getNumPrimaryKeys(), 120);
+
+    metadataManager.stop();
+    metadataManager.close();
+    assertEquals(TEMP_DIR.list((dir, name) -> name.startsWith(
+        TieredPartitionDedupMetadataManager.COLD_TIER_FILE_PREFIX)).length, 0);
+  }
+
+  @Test
+  public void testAddReplaceRemoveSegment()
+      throws IOException {
+    TieredPartitionDedupMetadataManager metadataManager =
+        new TieredPartitionDedupMetadataManager(DedupTestUtils.REALTIME_TABLE_NAME, 0, _dedupContextBuilder.build());
+    int numDocs = 50;
+    DedupUtils.DedupRecordInfoReader dedupRecordInfoReader = generateDedupRecordInfoReader(numDocs);
+
+    IndexSegment segment1 = DedupTestUtils.mockSegment(1, numDocs);
+    metadataManager.doAddOrReplaceSegment(null, segment1,
+        DedupUtils.getDedupRecordInfoIterator(dedupRecordInfoReader, numDocs));
+    assertEquals(metadataManager.getNumPrimaryKeys(), numDocs);
+
+    // Replace segment1 with segment2, all the keys in both tiers should point to segment2
+    IndexSegment segment2 = DedupTestUtils.mockSegment(2, numDocs);
+    metadataManager.doAddOrReplaceSegment(segment1, segment2,
+        DedupUtils.getDedupRecordInfoIterator(dedupRecordInfoReader, numDocs));
+    assertEquals(metadataManager.getNumPrimaryKeys(), numDocs);
+    metadataManager.doRemoveSegment(segment1, DedupUtils.getDedupRecordInfoIterator(dedupRecordInfoReader, numDocs));
+    assertEquals(metadataManager.getNumPrimaryKeys(), numDocs);
+    metadataManager.doRemoveSegment(segment2, DedupUtils.getDedupRecordInfoIterator(dedupRecordInfoReader, numDocs));
+    assertEquals(metadataManager.getNumPrimaryKeys(), 0);
+
+    metadataManager.stop();
+    metadataManager.close();
+  }
+
+  @Test
+  public void testRemoveExpiredPrimaryKeys()
+      throws IOException {
+    TieredPartitionDedupMetadataManager metadataManager =
+        new TieredPartitionDedupMetadataManager(DedupTestUtils.REALTIME_TABLE_NAME, 0,
+            _dedupContextBuilder.setMetadataTTL(METADATA_TTL).setDedupTimeColumn(DEDUP_TIME_COLUMN_NAME).build());
+    IndexSegment segment = DedupTestUtils.mockSegment(1, 20);
+    // Keys with older dedup time are spilled to the cold tier
+    for (int i = 0; i < 20; i++) {
+      assertFalse(metadataManager.checkRecordPresentOrUpdate(getDedupRecordInfo(i), segment));
+    }
+    assertEquals(metadataManager.getNumPrimaryKeys(), 20);
+    assertEquals(metadataManager._largestSeenTime.get(), 19000.0);
+
+    metadataManager.removeExpiredPrimaryKeys();
+    assertEquals(metadataManager.getNumPrimaryKeys(), 11);
+    for (int i = 9; i < 20; i++) {
+      assertTrue(metadataManager.checkRecordPresentOrUpdate(getDedupRecordInfo(i), segment));
+    }
+    assertFalse(metadataManager.checkRecordPresentOrUpdate(getDedupRecordInfo(8), segment));
+    assertEquals(metadataManager.getNumPrimaryKeys(), 12);
+
+    metadataManager.stop();
+    metadataManager.close();
+  }
+
+  private static DedupRecordInfo getDedupRecordInfo(int primaryKeyValue) {
+    return new DedupRecordInfo(DedupTestUtils.getPrimaryKey(primaryKeyValue), primaryKeyValue * 1000);
+  }
+
+  private static DedupUtils.DedupRecordInfoReader generateDedupRecordInfoReader(int numberOfDocs) {
+    PrimaryKeyReader primaryKeyReader = Mockito.mock(PrimaryKeyReader.class);
+    PinotSegmentColumnReader dedupTimeColumnReader = Mockito.mock(PinotSegmentColumnReader.class);
+    for (int i = 0; i < numberOfDocs; i++) {
+      Mockito.when(primaryKeyReader.getPrimaryKey(i)).thenReturn(DedupTestUtils.getPrimaryKey(i));
+      Mockito.when(dedupTimeColumnReader.getValue(i)).thenReturn(i * 1000.0);
+    }
+    return new DedupUtils.DedupRecordInfoReader(primaryKeyReader, dedupTimeColumnReader);
+  }
+}
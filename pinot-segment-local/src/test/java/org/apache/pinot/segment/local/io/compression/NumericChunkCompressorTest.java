@@ -0,0 +1,202 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.io.compression;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.apache.pinot.segment.spi.compression.ChunkCompressionType;
+import org.apache.pinot.segment.spi.compression.ChunkCompressor;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertThrows;
+import static org.testng.Assert.assertTrue;
+
+
+public class NumericChunkCompressorTest {
+  private static final ChunkCompressionType[] NUMERIC_COMPRESSION_TYPES = {
+      ChunkCompressionType.DELTA, ChunkCompressionType.DELTA_DELTA, ChunkCompressionType.FRAME_OF_REFERENCE
+  };
+  private static final int NUM_VALUES = 1000;
+  private static final Random RANDOM = new Random();
+
+  @DataProvider
+  public Object[][] longValues() {
+    List<long[]> valuesList = new ArrayList<>();
+    valuesList.add(new long[0]);
+    valuesList.add(new long[]{RANDOM.nextLong()});
+    valuesList.add(new long[]{RANDOM.nextLong(), RANDOM.nextLong()});
+    valuesList.add(new long[]{Long.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE, 0, Long.MAX_VALUE});
+    long[] constantValues = new long[NUM_VALUES];
+    Arrays.fill(constantValues, RANDOM.nextLong());
+    valuesList.add(constantValues);
+    long[] randomValues = new long[NUM_VALUES];
+    long[] smallValues = new long[NUM_VALUES];
+    long[] timestamps = new long[NUM_VALUES];
+    long timestamp = System.currentTimeMillis();
+    for (int i = 0; i < NUM_VALUES; i++) {
+      randomValues[i] = RANDOM.nextLong();
+      smallValues[i] = 1_000_000 + RANDOM.nextInt(1000);
+      timestamp += 1000 + RANDOM.nextInt(10);
+      timestamps[i] = timestamp;
+    }
+    valuesList.add(randomValues);
+    valuesList.add(smallValues);
+    valuesList.add(timestamps);
+    List<Object[]> params = new ArrayList<>();
+    for (ChunkCompressionType compressionType : NUMERIC_COMPRESSION_TYPES) {
+      for (long[] values : valuesList) {
+        params.add(new Object[]{compressionType, values});
+      }
+    }
+    return params.toArray(new Object[0][]);
+  }
+
+  @DataProvider
+  public Object[][] intValues() {
+    List<int[]> valuesList = new ArrayList<>();
+    valuesList.add(new int[0]);
+    valuesList.add(new int[]{RANDOM.nextInt()});
+    valuesList.add(new int[]{RANDOM.nextInt(), RANDOM.nextInt()});
+    valuesList.add(new int[]{Integer.MIN_VALUE, Integer.MAX_VALUE, Integer.MIN_VALUE, 0, Integer.MAX_VALUE});
+    int[] constantValues = new int[NUM_VALUES];
+    Arrays.fill(constantValues, RANDOM.nextInt());
+    valuesList.add(constantValues);
+    int[] randomValues = new int[NUM_VALUES];
+    int[] smallValues = new int[NUM_VALUES];
+    int[] sortedValues = new int[NUM_VALUES];
+    int sortedValue = RANDOM.nextInt(1000);
+    for (int i = 0; i < NUM_VALUES; i++) {
+      randomValues[i] = RANDOM.nextInt();
+      smallValues[i] = -RANDOM.nextInt(100);
+      sortedValue += RANDOM.nextInt(5);
+      sortedValues[i] = sortedValue;
+    }
+    valuesList.add(randomValues);
+    valuesList.add(smallValues);
+    valuesList.add(sortedValues);
+    List<Object[]> params = new ArrayList<>();
+    for (ChunkCompressionType compressionType : NUMERIC_COMPRESSION_TYPES) {
+      for (int[] values : valuesList) {
+        params.add(new Object[]{compressionType, values});
+      }
+    }
+    return params.toArray(new Object[0][]);
+  }
+
+  @Test(dataProvider = "longValues")
+  public void testLongRoundtrip(ChunkCompressionType compressionType, long[] values)
+      throws IOException {
+    ByteBuffer uncompressed = ByteBuffer.allocateDirect(values.length * Long.BYTES);
+    for (long value : values) {
+      uncompressed.putLong(value);
+    }
+    uncompressed.flip();
+    ByteBuffer compressed = compress(compressionType, Long.BYTES, uncompressed);
+
+    NumericChunkDecompressor decompressor =
+        (NumericChunkDecompressor) ChunkCompressorFactory.getDecompressor(compressionType);
+    assertEquals(decompressor.getNumValues(compressed), values.length);
+    assertEquals(decompressor.decompressedLength(compressed), values.length * Long.BYTES);
+
+    ByteBuffer decompressed = ByteBuffer.allocateDirect(values.length * Long.BYTES);
+    assertEquals(decompressor.decompress(compressed.duplicate(), decompressed), values.length * Long.BYTES);
+    for (int i = 0; i < values.length; i++) {
+      assertEquals(decompressed.getLong(i * Long.BYTES), values[i]);
+    }
+
+    // Decode straight into the array with an offset
+    int offset = 3;
+    long[] decoded = new long[offset + values.length];
+    assertEquals(decompressor.decompressLongs(compressed, decoded, offset), values.length);
+    assertEquals(Arrays.copyOfRange(decoded, offset, decoded.length), values);
+  }
+
+  @Test(dataProvider = "intValues")
+  public void testIntRoundtrip(ChunkCompressionType compressionType, int[] values)
+      throws IOException {
+    ByteBuffer uncompressed = ByteBuffer.allocateDirect(values.length * Integer.BYTES);
+    for (int value : values) {
+      uncompressed.putInt(value);
+    }
+    uncompressed.flip();
+    ByteBuffer compressed = compress(compressionType, Integer.BYTES, uncompressed);
+
+    NumericChunkDecompressor decompressor =
+        (NumericChunkDecompressor) ChunkCompressorFactory.getDecompressor(compressionType);
+    assertEquals(decompressor.getNumValues(compressed), values.length);
+    assertEquals(decompressor.decompressedLength(compressed), values.length * Integer.BYTES);
+
+    ByteBuffer decompressed = ByteBuffer.allocateDirect(values.length * Integer.BYTES);
+    assertEquals(decompressor.decompress(compressed.duplicate(), decompressed), values.length * Integer.BYTES);
+    for (int i = 0; i < values.length; i++) {
+      assertEquals(decompressed.getInt(i * Integer.BYTES), values[i]);
+    }
+
+    // Decode straight into the array with an offset
+    int offset = 3;
+    int[] decoded = new int[offset + values.length];
+    assertEquals(decompressor.decompressInts(compressed, decoded, offset), values.length);
+    assertEquals(Arrays.copyOfRange(decoded, offset, decoded.length), values);
+  }
+
+  @Test
+  public void testCompressionRatio()
+      throws IOException {
+    // Timestamps with a fixed interval should only take the header for DELTA and DELTA_DELTA, and less than 32 bits
+    // per value for FRAME_OF_REFERENCE
+    ByteBuffer uncompressed = ByteBuffer.allocateDirect(NUM_VALUES * Long.BYTES);
+    long timestamp = System.currentTimeMillis();
+    for (int i = 0; i < NUM_VALUES; i++) {
+      uncompressed.putLong(timestamp + i * 1000L);
+    }
+    uncompressed.flip();
+    for (ChunkCompressionType compressionType : NUMERIC_COMPRESSION_TYPES) {
+      ByteBuffer compressed = compress(compressionType, Long.BYTES, uncompressed.duplicate());
+      int maxCompressedSize =
+          compressionType == ChunkCompressionType.FRAME_OF_REFERENCE ? NUM_VALUES * Integer.BYTES : 64;
+      assertTrue(compressed.remaining() <= maxCompressedSize,
+          compressionType + " compressed size: " + compressed.remaining());
+    }
+  }
+
+  @Test
+  public void testInvalidValueSize() {
+    assertThrows(IllegalArgumentException.class,
+        () -> ChunkCompressorFactory.getCompressor(ChunkCompressionType.DELTA, Double.BYTES + 1));
+    assertThrows(IllegalArgumentException.class,
+        () -> ChunkCompressorFactory.getCompressor(ChunkCompressionType.FRAME_OF_REFERENCE, false));
+  }
+
+  private static ByteBuffer compress(ChunkCompressionType compressionType, int valueSizeInBytes,
+      ByteBuffer uncompressed)
+      throws IOException {
+    try (ChunkCompressor compressor = ChunkCompressorFactory.getCompressor(compressionType, valueSizeInBytes)) {
+      assertEquals(compressor.compressionType(), compressionType);
+      ByteBuffer compressed = ByteBuffer.allocateDirect(compressor.maxCompressedSize(uncompressed.remaining()));
+      compressor.compress(uncompressed, compressed);
+      return compressed;
+    }
+  }
+}
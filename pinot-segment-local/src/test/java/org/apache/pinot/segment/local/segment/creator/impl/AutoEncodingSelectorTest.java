@@ -0,0 +1,195 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.segment.creator.impl;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.apache.commons.configuration2.PropertiesConfiguration;
+import org.apache.commons.io.FileUtils;
+import org.apache.pinot.segment.local.indexsegment.immutable.ImmutableSegmentLoader;
+import org.apache.pinot.segment.local.segment.index.loader.IndexLoadingConfig;
+import org.apache.pinot.segment.local.segment.readers.GenericRowRecordReader;
+import org.apache.pinot.segment.spi.ColumnMetadata;
+import org.apache.pinot.segment.spi.ImmutableSegment;
+import org.apache.pinot.segment.spi.V1Constants;
+import org.apache.pinot.segment.spi.creator.SegmentGeneratorConfig;
+import org.apache.pinot.segment.spi.index.metadata.SegmentMetadataImpl;
+import org.apache.pinot.segment.spi.store.SegmentDirectoryPaths;
+import org.apache.pinot.spi.config.table.FieldConfig.CompressionCodec;
+import org.apache.pinot.spi.config.table.FieldConfig.EncodingType;
+import org.apache.pinot.spi.config.table.StarTreeIndexConfig;
+import org.apache.pinot.spi.config.table.TableConfig;
+import org.apache.pinot.spi.config.table.TableType;
+import org.apache.pinot.spi.data.FieldSpec.DataType;
+import org.apache.pinot.spi.data.Schema;
+import org.apache.pinot.spi.data.readers.GenericRow;
+import org.apache.pinot.spi.env.CommonsConfigurationUtils;
+import org.apache.pinot.spi.utils.builder.TableConfigBuilder;
+import org.apache.pinot.util.TestUtils;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import static org.apache.pinot.segment.spi.V1Constants.MetadataKeys.Column.getKeyFor;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+
+public class AutoEncodingSelectorTest {
+  private static final File TEMP_DIR = new File(FileUtils.getTempDirectory(), "AutoEncodingSelectorTest");
+  private static final String RAW_TABLE_NAME = "testTable";
+  private static final String SEGMENT_NAME = "testSegment";
+  private static final String LOW_CARDINALITY_COLUMN = "lowCardinalityCol";
+  private static final String SORTED_COLUMN = "sortedCol";
+  private static final String RANDOM_LONG_COLUMN = "randomLongCol";
+  private static final String PREFIXED_STRING_COLUMN = "prefixedStringCol";
+  private static final String INVERTED_INDEX_COLUMN = "invertedIndexCol";
+  private static final int NUM_RECORDS = 20000;
+  private static final Schema SCHEMA = new Schema.SchemaBuilder().setSchemaName(RAW_TABLE_NAME)
+      .addSingleValueDimension(LOW_CARDINALITY_COLUMN, DataType.STRING)
+      .addSingleValueDimension(SORTED_COLUMN, DataType.INT)
+      .addSingleValueDimension(RANDOM_LONG_COLUMN, DataType.LONG)
+      .addSingleValueDimension(PREFIXED_STRING_COLUMN, DataType.STRING)
+      .addSingleValueDimension(INVERTED_INDEX_COLUMN, DataType.LONG)
+      .build();
+
+  private List<GenericRow> _records;
+  private File _indexDir;
+
+  @BeforeClass
+  public void setUp()
+      throws Exception {
+    TestUtils.ensureDirectoriesExistAndEmpty(TEMP_DIR);
+    Random random = new Random(42);
+    List<GenericRow> records = new ArrayList<>(NUM_RECORDS);
+    for (int i = 0; i < NUM_RECORDS; i++) {
+      GenericRow record = new GenericRow();
+      record.putValue(LOW_CARDINALITY_COLUMN, "value_" + random.nextInt(5));
+      record.putValue(SORTED_COLUMN, i);
+      record.putValue(RANDOM_LONG_COLUMN, random.nextLong());
+      record.putValue(PREFIXED_STRING_COLUMN, "a_long_and_highly_repetitive_prefix_" + random.nextInt());
+      record.putValue(INVERTED_INDEX_COLUMN, random.nextLong());
+      records.add(record);
+    }
+    _records = records;
+    _indexDir = buildSegment(getTableConfig(true), SEGMENT_NAME);
+  }
+
+  private File buildSegment(TableConfig tableConfig, String segmentName)
+      throws Exception {
+    SegmentGeneratorConfig segmentGeneratorConfig = new SegmentGeneratorConfig(tableConfig, SCHEMA);
+    segmentGeneratorConfig.setOutDir(TEMP_DIR.getPath());
+    segmentGeneratorConfig.setSegmentName(segmentName);
+    SegmentIndexCreationDriverImpl driver = new SegmentIndexCreationDriverImpl();
+    driver.init(segmentGeneratorConfig, new GenericRowRecordReader(_records));
+    driver.build();
+    return new File(TEMP_DIR, segmentName);
+  }
+
+  private static TableConfig getTableConfig(boolean autoEncoding) {
+    return new TableConfigBuilder(TableType.OFFLINE).setTableName(RAW_TABLE_NAME)
+        .setInvertedIndexColumns(List.of(INVERTED_INDEX_COLUMN))
+        .setCreateInvertedIndexDuringSegmentGeneration(true)
+        .setAutoEncoding(autoEncoding)
+        .build();
+  }
+
+  @Test
+  public void testAutoSelectedEncoding()
+      throws Exception {
+    SegmentMetadataImpl segmentMetadata = new SegmentMetadataImpl(_indexDir);
+    assertEncoding(segmentMetadata, LOW_CARDINALITY_COLUMN, EncodingType.DICTIONARY);
+    assertEncoding(segmentMetadata, SORTED_COLUMN, EncodingType.DICTIONARY);
+    assertEncoding(segmentMetadata, RANDOM_LONG_COLUMN, EncodingType.RAW);
+    assertEncoding(segmentMetadata, PREFIXED_STRING_COLUMN, EncodingType.RAW);
+    // Inverted index requires dictionary
+    ColumnMetadata invertedIndexColumnMetadata = segmentMetadata.getColumnMetadataFor(INVERTED_INDEX_COLUMN);
+    assertTrue(invertedIndexColumnMetadata.hasDictionary());
+    assertNull(invertedIndexColumnMetadata.getAutoSelectedEncoding());
+
+    PropertiesConfiguration properties =
+        CommonsConfigurationUtils.fromFile(SegmentDirectoryPaths.findMetadataFile(_indexDir));
+    // Random values cannot be compressed
+    assertEquals(properties.getString(
+            getKeyFor(RANDOM_LONG_COLUMN, V1Constants.MetadataKeys.Column.AUTO_SELECTED_COMPRESSION_CODEC)),
+        CompressionCodec.PASS_THROUGH.name());
+    assertNotEquals(properties.getString(
+            getKeyFor(PREFIXED_STRING_COLUMN, V1Constants.MetadataKeys.Column.AUTO_SELECTED_COMPRESSION_CODEC)),
+        CompressionCodec.PASS_THROUGH.name());
+    assertNull(properties.getString(
+        getKeyFor(LOW_CARDINALITY_COLUMN, V1Constants.MetadataKeys.Column.AUTO_SELECTED_COMPRESSION_CODEC)));
+  }
+
+  @Test(dependsOnMethods = "testAutoSelectedEncoding")
+  public void testReload()
+      throws Exception {
+    // Auto selected raw encoding should be kept when auto encoding is enabled
+    ImmutableSegment segment =
+        ImmutableSegmentLoader.load(_indexDir, new IndexLoadingConfig(getTableConfig(true), SCHEMA));
+    try {
+      assertFalse(segment.getForwardIndex(RANDOM_LONG_COLUMN).isDictionaryEncoded());
+      assertFalse(segment.getForwardIndex(PREFIXED_STRING_COLUMN).isDictionaryEncoded());
+      assertTrue(segment.getForwardIndex(LOW_CARDINALITY_COLUMN).isDictionaryEncoded());
+    } finally {
+      segment.destroy();
+    }
+
+    // Dictionary should be created when auto encoding is disabled
+    segment = ImmutableSegmentLoader.load(_indexDir, new IndexLoadingConfig(getTableConfig(false), SCHEMA));
+    try {
+      assertTrue(segment.getForwardIndex(RANDOM_LONG_COLUMN).isDictionaryEncoded());
+      assertTrue(segment.getForwardIndex(PREFIXED_STRING_COLUMN).isDictionaryEncoded());
+    } finally {
+      segment.destroy();
+    }
+  }
+
+  @Test
+  public void testStarTreeDimensions()
+      throws Exception {
+    // Star-tree dimensions require dictionary
+    TableConfig tableConfig = getTableConfig(true);
+    tableConfig.getIndexingConfig().setStarTreeIndexConfigs(List.of(
+        new StarTreeIndexConfig(List.of(RANDOM_LONG_COLUMN), null, List.of("COUNT__*"), null, 100)));
+    File indexDir = buildSegment(tableConfig, "starTreeSegment");
+    SegmentMetadataImpl segmentMetadata = new SegmentMetadataImpl(indexDir);
+    ColumnMetadata columnMetadata = segmentMetadata.getColumnMetadataFor(RANDOM_LONG_COLUMN);
+    assertTrue(columnMetadata.hasDictionary());
+    assertNull(columnMetadata.getAutoSelectedEncoding());
+    assertEncoding(segmentMetadata, PREFIXED_STRING_COLUMN, EncodingType.RAW);
+    assertEquals(segmentMetadata.getStarTreeV2MetadataList().size(), 1);
+  }
+
+  private static void assertEncoding(SegmentMetadataImpl segmentMetadata, String column, EncodingType encodingType) {
+    ColumnMetadata columnMetadata = segmentMetadata.getColumnMetadataFor(column);
+    assertEquals(columnMetadata.getAutoSelectedEncoding(), encodingType);
+    assertEquals(columnMetadata.hasDictionary(), encodingType == EncodingType.DICTIONARY);
+  }
+
+  @AfterClass
+  public void tearDown()
+      throws Exception {
+    FileUtils.deleteDirectory(TEMP_DIR);
+  }
+}
@@ -50,6 +50,10 @@ public class BloomIndexTypeTest {
             + "  \"fpp\": 0.5,\n"
             + "  \"maxSizeInBytes\": 1024,\n"
             + "  \"loadOnHeap\": true"
+            + "}"},
+        new String[] {"{\n"
+            + "  \"fpp\": 0.01,\n"
+            + "  \"type\": \"SPLIT_BLOCK\""
             + "}"}
     };
   }
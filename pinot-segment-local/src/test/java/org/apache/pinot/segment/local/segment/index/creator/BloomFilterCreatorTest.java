@@ -22,7 +22,10 @@ import java.io.File;
 import org.apache.commons.io.FileUtils;
 import org.apache.pinot.segment.local.PinotBuffersAfterMethodCheckRule;
 import org.apache.pinot.segment.local.segment.creator.impl.bloom.OnHeapGuavaBloomFilterCreator;
+import org.apache.pinot.segment.local.segment.creator.impl.bloom.SplitBlockBloomFilterCreator;
 import org.apache.pinot.segment.local.segment.index.readers.bloom.BloomFilterReaderFactory;
+import org.apache.pinot.segment.local.segment.index.readers.bloom.GuavaBloomFilterReaderUtils;
+import org.apache.pinot.segment.local.segment.index.readers.bloom.SplitBlockBloomFilterReader;
 import org.apache.pinot.segment.spi.V1Constants;
 import org.apache.pinot.segment.spi.index.creator.BloomFilterCreator;
 import org.apache.pinot.segment.spi.index.reader.BloomFilterReader;
@@ -75,6 +78,65 @@ public class BloomFilterCreatorTest implements PinotBuffersAfterMethodCheckRule
     }
   }
 
+  @Test
+  public void testSplitBlockBloomFilterCreator()
+      throws Exception {
+    // Create the bloom filter
+    int cardinality = 10000;
+    double fpp = 0.01;
+    String columnName = "splitBlockColumn";
+    try (BloomFilterCreator bloomFilterCreator = new SplitBlockBloomFilterCreator(TEMP_DIR, columnName, cardinality,
+        new BloomFilterConfig(false, fpp, 0, false, BloomFilterConfig.Type.SPLIT_BLOCK), FieldSpec.DataType.INT)) {
+      for (int i = 0; i < cardinality; i++) {
+        bloomFilterCreator.add(Integer.toString(i));
+      }
+      bloomFilterCreator.seal();
+    }
+
+    // Read the bloom filter
+    File bloomFilterFile = new File(TEMP_DIR, columnName + V1Constants.Indexes.BLOOM_FILTER_FILE_EXTENSION);
+    try (PinotDataBuffer dataBuffer = PinotDataBuffer.mapReadOnlyBigEndianFile(bloomFilterFile);
+        BloomFilterReader onHeapBloomFilter = BloomFilterReaderFactory.getBloomFilterReader(dataBuffer, true);
+        BloomFilterReader offHeapBloomFilter = BloomFilterReaderFactory.getBloomFilterReader(dataBuffer, false)) {
+      Assert.assertTrue(onHeapBloomFilter instanceof SplitBlockBloomFilterReader);
+      Assert.assertTrue(offHeapBloomFilter instanceof SplitBlockBloomFilterReader);
+      // No false negative
+      for (int i = 0; i < cardinality; i++) {
+        String value = Integer.toString(i);
+        Assert.assertTrue(onHeapBloomFilter.mightContain(value));
+        Assert.assertTrue(offHeapBloomFilter.mightContain(value));
+        GuavaBloomFilterReaderUtils.Hash128AsLongs hash = GuavaBloomFilterReaderUtils.hashAsLongs(value);
+        Assert.assertTrue(offHeapBloomFilter.mightContain(hash.getHash1(), hash.getHash2()));
+      }
+      // False positive rate should be close to the configured fpp
+      int numFalsePositives = 0;
+      int numLookups = 100000;
+      for (int i = cardinality; i < cardinality + numLookups; i++) {
+        String value = Integer.toString(i);
+        boolean mightContain = offHeapBloomFilter.mightContain(value);
+        Assert.assertEquals(onHeapBloomFilter.mightContain(value), mightContain);
+        if (mightContain) {
+          numFalsePositives++;
+        }
+      }
+      Assert.assertTrue(numFalsePositives < 2 * fpp * numLookups, "Too many false positives: " + numFalsePositives);
+    }
+  }
+
+  @Test
+  public void testSplitBlockBloomFilterMaxSize()
+      throws Exception {
+    String columnName = "splitBlockMaxSizeColumn";
+    try (BloomFilterCreator bloomFilterCreator = new SplitBlockBloomFilterCreator(TEMP_DIR, columnName, 10000,
+        new BloomFilterConfig(false, 0.01, 1000, false, BloomFilterConfig.Type.SPLIT_BLOCK), FieldSpec.DataType.INT)) {
+      bloomFilterCreator.add("0");
+      bloomFilterCreator.seal();
+    }
+    File bloomFilterFile = new File(TEMP_DIR, columnName + V1Constants.Indexes.BLOOM_FILTER_FILE_EXTENSION);
+    // Header (12 bytes) + 31 blocks of 32 bytes
+    Assert.assertEquals(bloomFilterFile.length(), 12 + 31 * 32);
+  }
+
   @AfterClass
   public void tearDown()
       throws Exception {
@@ -59,6 +59,7 @@ public class MultiValueFixedByteRawIndexCreatorTest implements PinotBuffersAfter
   @DataProvider(name = "compressionTypes")
   public Object[][] compressionTypes() {
     return Arrays.stream(ChunkCompressionType.values())
+        .filter(chunkCompressionType -> !chunkCompressionType.isNumeric())
         .flatMap(ct -> IntStream.rangeClosed(2, 5).boxed().map(writerVersion -> new Object[]{ct, writerVersion}))
         .toArray(Object[][]::new);
   }
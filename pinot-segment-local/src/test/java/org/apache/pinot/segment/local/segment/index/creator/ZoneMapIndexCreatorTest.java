@@ -0,0 +1,150 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.segment.index.creator;
+
+import java.io.File;
+import org.apache.commons.io.FileUtils;
+import org.apache.pinot.segment.local.PinotBuffersAfterMethodCheckRule;
+import org.apache.pinot.segment.local.segment.creator.impl.zonemap.ZoneMapIndexCreator;
+import org.apache.pinot.segment.local.segment.index.readers.ZoneMapReaderImpl;
+import org.apache.pinot.segment.spi.V1Constants;
+import org.apache.pinot.segment.spi.index.reader.ZoneMapReader;
+import org.apache.pinot.segment.spi.memory.PinotDataBuffer;
+import org.apache.pinot.spi.data.FieldSpec.DataType;
+import org.apache.pinot.util.TestUtils;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+
+public class ZoneMapIndexCreatorTest implements PinotBuffersAfterMethodCheckRule {
+  private static final File TEMP_DIR = new File(FileUtils.getTempDirectory(), "ZoneMapIndexCreatorTest");
+  private static final int NUM_DOCS = 1000;
+  private static final int NUM_DOCS_PER_ZONE = 64;
+  private static final int NUM_ZONES = (NUM_DOCS + NUM_DOCS_PER_ZONE - 1) / NUM_DOCS_PER_ZONE;
+
+  @BeforeClass
+  public void setUp()
+      throws Exception {
+    TestUtils.ensureDirectoriesExistAndEmpty(TEMP_DIR);
+  }
+
+  @Test
+  public void testDictionaryEncoded()
+      throws Exception {
+    String columnName = "dictColumn";
+    try (ZoneMapIndexCreator creator = new ZoneMapIndexCreator(TEMP_DIR, columnName, DataType.STRING, true, NUM_DOCS,
+        NUM_DOCS_PER_ZONE)) {
+      for (int i = 0; i < NUM_DOCS; i++) {
+        creator.add("value_" + i, i);
+      }
+      creator.seal();
+    }
+    try (PinotDataBuffer dataBuffer = mapZoneMap(columnName);
+        ZoneMapReader reader = new ZoneMapReaderImpl(dataBuffer, DataType.STRING)) {
+      assertTrue(reader.isDictionaryEncoded());
+      assertEquals(reader.getValueType(), DataType.INT);
+      assertEquals(reader.getNumDocsPerZone(), NUM_DOCS_PER_ZONE);
+      assertEquals(reader.getNumZones(), NUM_ZONES);
+      for (int i = 0; i < NUM_ZONES; i++) {
+        assertEquals(reader.getMinInt(i), i * NUM_DOCS_PER_ZONE);
+        assertEquals(reader.getMaxInt(i), Math.min((i + 1) * NUM_DOCS_PER_ZONE, NUM_DOCS) - 1);
+      }
+    }
+  }
+
+  @Test
+  public void testRawLong()
+      throws Exception {
+    String columnName = "longColumn";
+    try (ZoneMapIndexCreator creator = new ZoneMapIndexCreator(TEMP_DIR, columnName, DataType.LONG, false, NUM_DOCS,
+        NUM_DOCS_PER_ZONE)) {
+      for (int i = 0; i < NUM_DOCS; i++) {
+        // Descending values
+        creator.add((long) (NUM_DOCS - i) * Integer.MAX_VALUE, -1);
+      }
+      creator.seal();
+    }
+    try (PinotDataBuffer dataBuffer = mapZoneMap(columnName);
+        ZoneMapReader reader = new ZoneMapReaderImpl(dataBuffer, DataType.LONG)) {
+      assertFalse(reader.isDictionaryEncoded());
+      assertEquals(reader.getValueType(), DataType.LONG);
+      assertEquals(reader.getNumZones(), NUM_ZONES);
+      for (int i = 0; i < NUM_ZONES; i++) {
+        int lastDocId = Math.min((i + 1) * NUM_DOCS_PER_ZONE, NUM_DOCS) - 1;
+        assertEquals(reader.getMinLong(i), (long) (NUM_DOCS - lastDocId) * Integer.MAX_VALUE);
+        assertEquals(reader.getMaxLong(i), (long) (NUM_DOCS - i * NUM_DOCS_PER_ZONE) * Integer.MAX_VALUE);
+      }
+    }
+  }
+
+  @Test
+  public void testRawDoubleWithNaN()
+      throws Exception {
+    String columnName = "doubleColumn";
+    try (ZoneMapIndexCreator creator = new ZoneMapIndexCreator(TEMP_DIR, columnName, DataType.DOUBLE, false, NUM_DOCS,
+        NUM_DOCS_PER_ZONE)) {
+      for (int i = 0; i < NUM_DOCS; i++) {
+        // The first zone only contains NaN, the other zones contain NaN for every other doc
+        creator.add(i < NUM_DOCS_PER_ZONE || i % 2 == 0 ? Double.NaN : i + 0.5, -1);
+      }
+      creator.seal();
+    }
+    try (PinotDataBuffer dataBuffer = mapZoneMap(columnName);
+        ZoneMapReader reader = new ZoneMapReaderImpl(dataBuffer, DataType.DOUBLE)) {
+      assertEquals(reader.getValueType(), DataType.DOUBLE);
+      assertTrue(reader.getMinDouble(0) > reader.getMaxDouble(0));
+      for (int i = 1; i < NUM_ZONES; i++) {
+        int lastDocId = Math.min((i + 1) * NUM_DOCS_PER_ZONE, NUM_DOCS) - 1;
+        assertEquals(reader.getMinDouble(i), i * NUM_DOCS_PER_ZONE + 1.5);
+        assertEquals(reader.getMaxDouble(i), (lastDocId % 2 == 1 ? lastDocId : lastDocId - 1) + 0.5);
+      }
+    }
+  }
+
+  @Test
+  public void testUnsupportedRawColumn()
+      throws Exception {
+    String columnName = "stringColumn";
+    try (ZoneMapIndexCreator creator = new ZoneMapIndexCreator(TEMP_DIR, columnName, DataType.STRING, false, NUM_DOCS,
+        NUM_DOCS_PER_ZONE)) {
+      for (int i = 0; i < NUM_DOCS; i++) {
+        creator.add("value_" + i, -1);
+      }
+      creator.seal();
+    }
+    assertFalse(new File(TEMP_DIR, columnName + V1Constants.Indexes.ZONE_MAP_FILE_EXTENSION).exists());
+  }
+
+  private static PinotDataBuffer mapZoneMap(String columnName)
+      throws Exception {
+    return PinotDataBuffer.mapReadOnlyBigEndianFile(
+        new File(TEMP_DIR, columnName + V1Constants.Indexes.ZONE_MAP_FILE_EXTENSION));
+  }
+
+  @AfterClass
+  public void tearDown()
+      throws Exception {
+    FileUtils.deleteDirectory(TEMP_DIR);
+  }
+}
@@ -56,12 +56,22 @@ public class FixedByteChunkSVForwardIndexTest implements PinotBuffersAfterMethod
   @DataProvider(name = "combinations")
   public static Object[][] combinations() {
     return Arrays.stream(ChunkCompressionType.values())
+        .filter(chunkCompressionType -> !chunkCompressionType.isNumeric())
         .flatMap(chunkCompressionType -> IntStream.of(2, 3, 4)
             .mapToObj(version -> new Object[]{chunkCompressionType, version}))
         .toArray(Object[][]::new);
   }
 
-  @Test(dataProvider = "combinations")
+  // Numeric compression types only apply to INT and LONG values
+  @DataProvider(name = "intLongCombinations")
+  public static Object[][] intLongCombinations() {
+    return Arrays.stream(ChunkCompressionType.values())
+        .flatMap(chunkCompressionType -> IntStream.of(2, 3, 4)
+            .mapToObj(version -> new Object[]{chunkCompressionType, version}))
+        .toArray(Object[][]::new);
+  }
+
+  @Test(dataProvider = "intLongCombinations")
   public void testInt(ChunkCompressionType compressionType, int version)
       throws Exception {
     int[] expected = new int[NUM_VALUES];
@@ -101,6 +111,18 @@ public class FixedByteChunkSVForwardIndexTest implements PinotBuffersAfterMethod
         Assert.assertEquals(eightByteOffsetReader.getInt(i, eightByteOffsetReaderContext), expected[i]);
       }
 
+      // Bulk read of contiguous doc ids across the chunk boundary
+      int[] docIds = IntStream.range(NUM_DOCS_PER_CHUNK - 100, NUM_DOCS_PER_CHUNK + 100).toArray();
+      int[] values = new int[docIds.length];
+      fourByteOffsetReader.readValuesSV(docIds, docIds.length, values, fourByteOffsetReaderContext);
+      Assert.assertEquals(values, Arrays.copyOfRange(expected, docIds[0], docIds[0] + docIds.length));
+
+      // Bulk read of a whole chunk
+      docIds = IntStream.range(NUM_DOCS_PER_CHUNK, 2 * NUM_DOCS_PER_CHUNK).toArray();
+      values = new int[docIds.length];
+      eightByteOffsetReader.readValuesSV(docIds, docIds.length, values, eightByteOffsetReaderContext);
+      Assert.assertEquals(values, Arrays.copyOfRange(expected, docIds[0], docIds[0] + docIds.length));
+
 
       Assert.assertTrue(fourByteOffsetReader.isBufferByteRangeInfoSupported());
       Assert.assertTrue(eightByteOffsetReader.isBufferByteRangeInfoSupported());
@@ -124,7 +146,7 @@ public class FixedByteChunkSVForwardIndexTest implements PinotBuffersAfterMethod
     FileUtils.deleteQuietly(outFileEightByte);
   }
 
-  @Test(dataProvider = "combinations")
+  @Test(dataProvider = "intLongCombinations")
   public void testLong(ChunkCompressionType compressionType, int version)
       throws Exception {
     long[] expected = new long[NUM_VALUES];
@@ -164,6 +186,18 @@ public class FixedByteChunkSVForwardIndexTest implements PinotBuffersAfterMethod
         Assert.assertEquals(eightByteOffsetReader.getLong(i, eightByteOffsetReaderContext), expected[i]);
       }
 
+      // Bulk read of contiguous doc ids across the chunk boundary
+      int[] docIds = IntStream.range(NUM_DOCS_PER_CHUNK - 100, NUM_DOCS_PER_CHUNK + 100).toArray();
+      long[] values = new long[docIds.length];
+      fourByteOffsetReader.readValuesSV(docIds, docIds.length, values, fourByteOffsetReaderContext);
+      Assert.assertEquals(values, Arrays.copyOfRange(expected, docIds[0], docIds[0] + docIds.length));
+
+      // Bulk read of a whole chunk
+      docIds = IntStream.range(NUM_DOCS_PER_CHUNK, 2 * NUM_DOCS_PER_CHUNK).toArray();
+      values = new long[docIds.length];
+      eightByteOffsetReader.readValuesSV(docIds, docIds.length, values, eightByteOffsetReaderContext);
+      Assert.assertEquals(values, Arrays.copyOfRange(expected, docIds[0], docIds[0] + docIds.length));
+
       // Validate byte range provider behaviour
       Assert.assertTrue(fourByteOffsetReader.isBufferByteRangeInfoSupported());
       Assert.assertTrue(eightByteOffsetReader.isBufferByteRangeInfoSupported());
@@ -225,6 +259,12 @@ public class FixedByteChunkSVForwardIndexTest implements PinotBuffersAfterMethod
         Assert.assertEquals(eightByteOffsetReader.getFloat(i, eightByteOffsetReaderContext), expected[i]);
       }
 
+      // Bulk read of contiguous doc ids across the chunk boundary
+      int[] docIds = IntStream.range(NUM_DOCS_PER_CHUNK - 100, NUM_DOCS_PER_CHUNK + 100).toArray();
+      float[] values = new float[docIds.length];
+      fourByteOffsetReader.readValuesSV(docIds, docIds.length, values, fourByteOffsetReaderContext);
+      Assert.assertEquals(values, Arrays.copyOfRange(expected, docIds[0], docIds[0] + docIds.length));
+
       // Validate byte range provider behaviour
       Assert.assertTrue(fourByteOffsetReader.isBufferByteRangeInfoSupported());
       Assert.assertTrue(eightByteOffsetReader.isBufferByteRangeInfoSupported());
@@ -287,6 +327,12 @@ public class FixedByteChunkSVForwardIndexTest implements PinotBuffersAfterMethod
         Assert.assertEquals(eightByteOffsetReader.getDouble(i, eightByteOffsetReaderContext), expected[i]);
       }
 
+      // Bulk read of contiguous doc ids across the chunk boundary
+      int[] docIds = IntStream.range(NUM_DOCS_PER_CHUNK - 100, NUM_DOCS_PER_CHUNK + 100).toArray();
+      double[] values = new double[docIds.length];
+      fourByteOffsetReader.readValuesSV(docIds, docIds.length, values, fourByteOffsetReaderContext);
+      Assert.assertEquals(values, Arrays.copyOfRange(expected, docIds[0], docIds[0] + docIds.length));
+
       // Validate byte range provider behaviour
       Assert.assertTrue(fourByteOffsetReader.isBufferByteRangeInfoSupported());
       Assert.assertTrue(eightByteOffsetReader.isBufferByteRangeInfoSupported());
@@ -0,0 +1,140 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.segment.index.loader.bloomfilter;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.apache.commons.io.FileUtils;
+import org.apache.pinot.segment.local.indexsegment.immutable.ImmutableSegmentLoader;
+import org.apache.pinot.segment.local.segment.creator.impl.SegmentIndexCreationDriverImpl;
+import org.apache.pinot.segment.local.segment.index.loader.IndexLoadingConfig;
+import org.apache.pinot.segment.local.segment.index.readers.bloom.BaseGuavaBloomFilterReader;
+import org.apache.pinot.segment.local.segment.index.readers.bloom.SplitBlockBloomFilterReader;
+import org.apache.pinot.segment.local.segment.readers.GenericRowRecordReader;
+import org.apache.pinot.segment.spi.ImmutableSegment;
+import org.apache.pinot.segment.spi.creator.SegmentGeneratorConfig;
+import org.apache.pinot.segment.spi.index.reader.BloomFilterReader;
+import org.apache.pinot.spi.config.table.BloomFilterConfig;
+import org.apache.pinot.spi.config.table.TableConfig;
+import org.apache.pinot.spi.config.table.TableType;
+import org.apache.pinot.spi.data.FieldSpec.DataType;
+import org.apache.pinot.spi.data.Schema;
+import org.apache.pinot.spi.data.readers.GenericRow;
+import org.apache.pinot.spi.utils.builder.TableConfigBuilder;
+import org.apache.pinot.util.TestUtils;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertTrue;
+
+
+public class BloomFilterHandlerTest {
+  private static final File TEMP_DIR = new File(FileUtils.getTempDirectory(), "BloomFilterHandlerTest");
+  private static final String RAW_TABLE_NAME = "testTable";
+  private static final String SEGMENT_NAME = "testSegment";
+  private static final String DICT_COLUMN = "dictCol";
+  private static final String RAW_COLUMN = "rawCol";
+  private static final int NUM_RECORDS = 1000;
+  private static final Schema SCHEMA = new Schema.SchemaBuilder().setSchemaName(RAW_TABLE_NAME)
+      .addSingleValueDimension(DICT_COLUMN, DataType.STRING)
+      .addSingleValueDimension(RAW_COLUMN, DataType.LONG)
+      .build();
+
+  private File _indexDir;
+
+  @BeforeClass
+  public void setUp()
+      throws Exception {
+    TestUtils.ensureDirectoriesExistAndEmpty(TEMP_DIR);
+    List<GenericRow> records = new ArrayList<>(NUM_RECORDS);
+    for (int i = 0; i < NUM_RECORDS; i++) {
+      GenericRow record = new GenericRow();
+      record.putValue(DICT_COLUMN, "value_" + i);
+      record.putValue(RAW_COLUMN, (long) i);
+      records.add(record);
+    }
+    SegmentGeneratorConfig segmentGeneratorConfig =
+        new SegmentGeneratorConfig(getTableConfig(BloomFilterConfig.Type.GUAVA), SCHEMA);
+    segmentGeneratorConfig.setOutDir(TEMP_DIR.getPath());
+    segmentGeneratorConfig.setSegmentName(SEGMENT_NAME);
+    SegmentIndexCreationDriverImpl driver = new SegmentIndexCreationDriverImpl();
+    driver.init(segmentGeneratorConfig, new GenericRowRecordReader(records));
+    driver.build();
+    _indexDir = new File(TEMP_DIR, SEGMENT_NAME);
+  }
+
+  private static TableConfig getTableConfig(BloomFilterConfig.Type type) {
+    BloomFilterConfig bloomFilterConfig = new BloomFilterConfig(false, 0.01, 0, false, type);
+    TableConfig tableConfig = new TableConfigBuilder(TableType.OFFLINE).setTableName(RAW_TABLE_NAME)
+        .setNoDictionaryColumns(List.of(RAW_COLUMN))
+        .build();
+    tableConfig.getIndexingConfig()
+        .setBloomFilterConfigs(Map.of(DICT_COLUMN, bloomFilterConfig, RAW_COLUMN, bloomFilterConfig));
+    return tableConfig;
+  }
+
+  @Test
+  public void testConvertBloomFilter()
+      throws Exception {
+    // Guava bloom filter created with the segment
+    assertBloomFilter(BloomFilterConfig.Type.GUAVA, BaseGuavaBloomFilterReader.class);
+    // Convert to split block bloom filter
+    assertBloomFilter(BloomFilterConfig.Type.SPLIT_BLOCK, SplitBlockBloomFilterReader.class);
+    // Convert back to Guava bloom filter
+    assertBloomFilter(BloomFilterConfig.Type.GUAVA, BaseGuavaBloomFilterReader.class);
+  }
+
+  private void assertBloomFilter(BloomFilterConfig.Type type, Class<?> expectedReaderClass)
+      throws Exception {
+    TableConfig tableConfig = getTableConfig(type);
+    ImmutableSegment segment = ImmutableSegmentLoader.load(_indexDir, new IndexLoadingConfig(tableConfig, SCHEMA));
+    try {
+      BloomFilterReader dictBloomFilter = segment.getDataSource(DICT_COLUMN).getBloomFilter();
+      BloomFilterReader rawBloomFilter = segment.getDataSource(RAW_COLUMN).getBloomFilter();
+      assertNotNull(dictBloomFilter);
+      assertNotNull(rawBloomFilter);
+      assertTrue(expectedReaderClass.isInstance(dictBloomFilter), dictBloomFilter.getClass().getName());
+      assertTrue(expectedReaderClass.isInstance(rawBloomFilter), rawBloomFilter.getClass().getName());
+      for (int i = 0; i < NUM_RECORDS; i++) {
+        assertTrue(dictBloomFilter.mightContain("value_" + i));
+        assertTrue(rawBloomFilter.mightContain(Long.toString(i)));
+      }
+      int numFalsePositives = 0;
+      for (int i = NUM_RECORDS; i < 2 * NUM_RECORDS; i++) {
+        if (dictBloomFilter.mightContain("value_" + i)) {
+          numFalsePositives++;
+        }
+      }
+      assertFalse(numFalsePositives > NUM_RECORDS / 20, "Too many false positives: " + numFalsePositives);
+    } finally {
+      segment.destroy();
+    }
+  }
+
+  @AfterClass
+  public void tearDown()
+      throws Exception {
+    FileUtils.deleteDirectory(TEMP_DIR);
+  }
+}
@@ -0,0 +1,87 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.segment.store;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.util.Collections;
+import java.util.List;
+import org.apache.pinot.segment.local.PinotBuffersAfterMethodCheckRule;
+import org.apache.pinot.segment.spi.memory.PinotDataBuffer;
+import org.apache.pinot.spi.utils.CommonConstants.Server;
+import org.apache.pinot.util.TestUtils;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+
+public class MmapBufferPrefetcherTest implements PinotBuffersAfterMethodCheckRule {
+  private static final long BUFFER_SIZE = 1024 * 1024;
+
+  @Test
+  public void testPrefetch()
+      throws IOException {
+    try (PinotDataBuffer buffer1 = PinotDataBuffer.allocateDirect(BUFFER_SIZE, ByteOrder.BIG_ENDIAN, "buffer1");
+        PinotDataBuffer buffer2 = PinotDataBuffer.allocateDirect(BUFFER_SIZE, ByteOrder.BIG_ENDIAN, "buffer2")) {
+      MmapBufferPrefetcher.PrefetchTask prefetchTask = MmapBufferPrefetcher.submit(List.of(buffer1, buffer2));
+      assertNotNull(prefetchTask);
+      TestUtils.waitForCondition(aVoid -> prefetchTask.isDone(), 10_000L, "Failed to finish prefetch");
+      // Cancel after the task is done should be no-op
+      prefetchTask.cancel();
+      assertTrue(prefetchTask.isDone());
+    }
+  }
+
+  @Test
+  public void testCancel()
+      throws IOException {
+    try (PinotDataBuffer buffer = PinotDataBuffer.allocateDirect(BUFFER_SIZE, ByteOrder.BIG_ENDIAN, "buffer")) {
+      MmapBufferPrefetcher.PrefetchTask prefetchTask = MmapBufferPrefetcher.submit(List.of(buffer));
+      assertNotNull(prefetchTask);
+      // The task should stop accessing the buffer once cancelled, so that the buffer can be closed
+      prefetchTask.cancel();
+      assertTrue(prefetchTask.isDone());
+    }
+  }
+
+  @Test
+  public void testSaturatedThreadPool()
+      throws IOException {
+    MmapBufferPrefetcher.init(1, 1);
+    try (PinotDataBuffer buffer = PinotDataBuffer.allocateDirect(BUFFER_SIZE, ByteOrder.BIG_ENDIAN, "buffer")) {
+      // Keep the only thread busy with a long running task
+      List<PinotDataBuffer> buffers = Collections.nCopies(100_000, buffer);
+      MmapBufferPrefetcher.PrefetchTask runningTask = MmapBufferPrefetcher.submit(buffers);
+      MmapBufferPrefetcher.PrefetchTask pendingTask = MmapBufferPrefetcher.submit(buffers);
+      assertNotNull(runningTask);
+      assertNotNull(pendingTask);
+      // The queue is full, so the task should be rejected
+      assertNull(MmapBufferPrefetcher.submit(buffers));
+      pendingTask.cancel();
+      runningTask.cancel();
+      assertTrue(pendingTask.isDone());
+      assertTrue(runningTask.isDone());
+    } finally {
+      MmapBufferPrefetcher.init(Server.DEFAULT_MMAP_PREFETCH_NUM_THREADS,
+          Server.DEFAULT_MMAP_PREFETCH_MAX_PENDING_TASKS);
+    }
+  }
+}
@@ -19,8 +19,13 @@
 package org.apache.pinot.segment.local.segment.store;
 
 import java.io.File;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 import org.apache.commons.io.FileUtils;
 import org.apache.pinot.segment.local.PinotBuffersAfterClassCheckRule;
+import org.apache.pinot.segment.spi.FetchContext;
 import org.apache.pinot.segment.spi.creator.SegmentVersion;
 import org.apache.pinot.segment.spi.index.StandardIndexes;
 import org.apache.pinot.segment.spi.index.metadata.SegmentMetadataImpl;
@@ -117,6 +122,40 @@ public class SegmentLocalFSDirectoryTest implements PinotBuffersAfterClassCheckR
     }
   }
 
+  @Test
+  public void testPrefetch()
+      throws Exception {
+    try (SegmentDirectory.Writer writer = _segmentDirectory.createWriter()) {
+      Assert.assertNotNull(writer);
+      PinotDataBuffer buffer = writer.newIndexFor("prefetchColumn", StandardIndexes.forward(), 1024 * 1024);
+      loadData(buffer);
+      writer.save();
+    }
+    SegmentLocalFSDirectory segmentDirectory = (SegmentLocalFSDirectory) _segmentDirectory;
+    try (SegmentDirectory.Reader reader = _segmentDirectory.createReader()) {
+      Assert.assertNotNull(reader);
+
+      // No prefetch when none of the indexes exists
+      FetchContext fetchContext = new FetchContext(UUID.randomUUID(), "testSegment",
+          Map.of("prefetchColumn", List.of(StandardIndexes.bloomFilter())));
+      segmentDirectory.prefetch(fetchContext);
+      Assert.assertEquals(segmentDirectory.getNumPendingPrefetchTasks(), 0);
+      segmentDirectory.acquire(fetchContext);
+      segmentDirectory.release(fetchContext);
+
+      // Prefetch the forward index by default
+      fetchContext = new FetchContext(UUID.randomUUID(), "testSegment", Set.of("prefetchColumn"));
+      segmentDirectory.prefetch(fetchContext);
+      Assert.assertEquals(segmentDirectory.getNumPendingPrefetchTasks(), 1);
+      segmentDirectory.acquire(fetchContext);
+      verifyData(reader.getIndexFor("prefetchColumn", StandardIndexes.forward()));
+      segmentDirectory.release(fetchContext);
+      Assert.assertEquals(segmentDirectory.getNumPendingPrefetchTasks(), 0);
+      // Release can be called multiple times
+      segmentDirectory.release(fetchContext);
+    }
+  }
+
   @Test
   public void testDirectorySize()
       throws Exception {
@@ -24,7 +24,6 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.concurrent.ExecutorService;
@@ -81,13 +80,12 @@ import static org.testng.Assert.*;
  */
 public class ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletesTest {
   private static final String RAW_TABLE_NAME = "testTable";
-  private static final String REALTIME_TABLE_NAME = TableNameBuilder.REALTIME.tableNameWithType(RAW_TABLE_NAME);
+  protected static final String REALTIME_TABLE_NAME = TableNameBuilder.REALTIME.tableNameWithType(RAW_TABLE_NAME);
   private static final List<String> PRIMARY_KEY_COLUMNS = Collections.singletonList("pk");
   private static final List<String> COMPARISON_COLUMNS = Collections.singletonList("timeCol");
   private static final String DELETE_RECORD_COLUMN = "deleteCol";
-  private static final File INDEX_DIR =
-      new File(FileUtils.getTempDirectory(), "ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletesTest");
 
+  private final File _indexDir = new File(FileUtils.getTempDirectory(), getClass().getSimpleName());
   private UpsertContext.Builder _contextBuilder;
 
   private static ImmutableSegmentImpl mockImmutableSegment(int sequenceNumber,
@@ -174,16 +172,19 @@ public class ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletesTest
     return new UploadedRealtimeSegmentName(RAW_TABLE_NAME, 0, creationTimeMs, "uploaded", suffix).toString();
   }
 
-  private static PrimaryKey makePrimaryKey(int value) {
+  protected static PrimaryKey makePrimaryKey(int value) {
     return new PrimaryKey(new Object[]{value});
   }
 
-  private static void checkRecordLocation(
-      Map<Object, ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletes.RecordLocation> recordLocationMap,
-      int keyValue, IndexSegment segment, int docId, int comparisonValue, int distinctSegmentCount,
-      HashFunction hashFunction) {
+  protected BasePartitionUpsertMetadataManager createUpsertMetadataManager(UpsertContext context) {
+    return new ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletes(REALTIME_TABLE_NAME, 0, context);
+  }
+
+  protected void checkRecordLocation(BasePartitionUpsertMetadataManager upsertMetadataManager, int keyValue,
+      IndexSegment segment, int docId, int comparisonValue, int distinctSegmentCount, HashFunction hashFunction) {
     ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletes.RecordLocation recordLocation =
-        recordLocationMap.get(HashUtils.hashPrimaryKey(makePrimaryKey(keyValue), hashFunction));
+        ((ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletes) upsertMetadataManager)
+            ._primaryKeyToRecordLocationMap.get(HashUtils.hashPrimaryKey(makePrimaryKey(keyValue), hashFunction));
     assertNotNull(recordLocation);
     assertSame(recordLocation.getSegment(), segment);
     assertEquals(recordLocation.getDocId(), docId);
@@ -194,14 +195,14 @@ public class ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletesTest
   @BeforeClass
   public void setUp()
       throws IOException {
-    FileUtils.forceMkdir(INDEX_DIR);
+    FileUtils.forceMkdir(_indexDir);
     ServerMetrics.register(mock(ServerMetrics.class));
   }
 
   @BeforeMethod
   public void setUpContextBuilder() {
     TableDataManager tableDataManager = mock(TableDataManager.class);
-    when(tableDataManager.getTableDataDir()).thenReturn(INDEX_DIR);
+    when(tableDataManager.getTableDataDir()).thenReturn(_indexDir);
     _contextBuilder = new UpsertContext.Builder()
         .setTableConfig(mock(TableConfig.class))
         .setSchema(mock(Schema.class))
@@ -217,14 +218,12 @@ public class ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletesTest
   @AfterClass
   public void tearDown()
       throws IOException {
-    FileUtils.forceDelete(INDEX_DIR);
+    FileUtils.forceDelete(_indexDir);
   }
 
   @Test
   public void testStartFinishOperation() {
-    ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletes upsertMetadataManager =
-        new ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletes(REALTIME_TABLE_NAME, 0,
-            _contextBuilder.build());
+    BasePartitionUpsertMetadataManager upsertMetadataManager = createUpsertMetadataManager(_contextBuilder.build());
 
     // Start 2 operations
     assertTrue(upsertMetadataManager.startOperation());
@@ -316,11 +315,8 @@ public class ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletesTest
 
   private void verifyAddReplaceRemoveSegment(HashFunction hashFunction)
       throws IOException {
-    ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletes upsertMetadataManager =
-        new ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletes(REALTIME_TABLE_NAME, 0,
-            _contextBuilder.setHashFunction(hashFunction).build());
-    Map<Object, ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletes.RecordLocation> recordLocationMap =
-        upsertMetadataManager._primaryKeyToRecordLocationMap;
+    BasePartitionUpsertMetadataManager upsertMetadataManager =
+        createUpsertMetadataManager(_contextBuilder.setHashFunction(hashFunction).build());
     Set<IndexSegment> trackedSegments = upsertMetadataManager._trackedSegments;
 
     // Add the first segment
@@ -344,10 +340,10 @@ public class ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletesTest
     upsertMetadataManager.addSegment(segment1, validDocIds1, null, recordInfoList1.iterator());
     trackedSegments.add(segment1);
     // segment1: 0 -> {5, 100}, 1 -> {4, 120}, 2 -> {2, 100}
-    assertEquals(recordLocationMap.size(), 3);
-    checkRecordLocation(recordLocationMap, 0, segment1, 5, 100, 1, hashFunction);
-    checkRecordLocation(recordLocationMap, 1, segment1, 4, 120, 1, hashFunction);
-    checkRecordLocation(recordLocationMap, 2, segment1, 2, 100, 1, hashFunction);
+    assertEquals(upsertMetadataManager.getNumPrimaryKeys(), 3);
+    checkRecordLocation(upsertMetadataManager, 0, segment1, 5, 100, 1, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 1, segment1, 4, 120, 1, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 2, segment1, 2, 100, 1, hashFunction);
     assertEquals(validDocIds1.getMutableRoaringBitmap().toArray(), new int[]{2, 4, 5});
 
     // Add the second segment
@@ -373,11 +369,11 @@ public class ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletesTest
 
     // segment1: 1 -> {4, 120}
     // segment2: 0 -> {0, 100}, 2 -> {2, 120}, 3 -> {3, 80}
-    assertEquals(recordLocationMap.size(), 4);
-    checkRecordLocation(recordLocationMap, 0, segment2, 0, 100, 2, hashFunction);
-    checkRecordLocation(recordLocationMap, 1, segment1, 4, 120, 2, hashFunction);
-    checkRecordLocation(recordLocationMap, 2, segment2, 2, 120, 2, hashFunction);
-    checkRecordLocation(recordLocationMap, 3, segment2, 3, 80, 1, hashFunction);
+    assertEquals(upsertMetadataManager.getNumPrimaryKeys(), 4);
+    checkRecordLocation(upsertMetadataManager, 0, segment2, 0, 100, 2, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 1, segment1, 4, 120, 2, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 2, segment2, 2, 120, 2, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 3, segment2, 3, 80, 1, hashFunction);
     assertEquals(validDocIds1.getMutableRoaringBitmap().toArray(), new int[]{4});
     assertEquals(validDocIds2.getMutableRoaringBitmap().toArray(), new int[]{0, 2, 3});
 
@@ -386,11 +382,11 @@ public class ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletesTest
     upsertMetadataManager.addSegment(emptySegment);
     // segment1: 1 -> {4, 120}
     // segment2: 0 -> {0, 100}, 2 -> {2, 120}, 3 -> {3, 80}
-    assertEquals(recordLocationMap.size(), 4);
-    checkRecordLocation(recordLocationMap, 0, segment2, 0, 100, 2, hashFunction);
-    checkRecordLocation(recordLocationMap, 1, segment1, 4, 120, 2, hashFunction);
-    checkRecordLocation(recordLocationMap, 2, segment2, 2, 120, 2, hashFunction);
-    checkRecordLocation(recordLocationMap, 3, segment2, 3, 80, 1, hashFunction);
+    assertEquals(upsertMetadataManager.getNumPrimaryKeys(), 4);
+    checkRecordLocation(upsertMetadataManager, 0, segment2, 0, 100, 2, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 1, segment1, 4, 120, 2, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 2, segment2, 2, 120, 2, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 3, segment2, 3, 80, 1, hashFunction);
     assertEquals(validDocIds1.getMutableRoaringBitmap().toArray(), new int[]{4});
     assertEquals(validDocIds2.getMutableRoaringBitmap().toArray(), new int[]{0, 2, 3});
 
@@ -406,11 +402,11 @@ public class ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletesTest
     // original segment1: 1 -> {4, 120} (not in the map)
     // segment2: 0 -> {0, 100}, 2 -> {2, 120}, 3 -> {3, 80}
     // new segment1: 1 -> {4, 120}
-    assertEquals(recordLocationMap.size(), 4);
-    checkRecordLocation(recordLocationMap, 0, segment2, 0, 100, 2, hashFunction);
-    checkRecordLocation(recordLocationMap, 1, newSegment1, 4, 120, 2, hashFunction);
-    checkRecordLocation(recordLocationMap, 2, segment2, 2, 120, 2, hashFunction);
-    checkRecordLocation(recordLocationMap, 3, segment2, 3, 80, 1, hashFunction);
+    assertEquals(upsertMetadataManager.getNumPrimaryKeys(), 4);
+    checkRecordLocation(upsertMetadataManager, 0, segment2, 0, 100, 2, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 1, newSegment1, 4, 120, 2, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 2, segment2, 2, 120, 2, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 3, segment2, 3, 80, 1, hashFunction);
     assertEquals(validDocIds1.getMutableRoaringBitmap().toArray(), new int[]{4});
     assertEquals(validDocIds2.getMutableRoaringBitmap().toArray(), new int[]{0, 2, 3});
     assertEquals(newValidDocIds1.getMutableRoaringBitmap().toArray(), new int[]{4});
@@ -420,11 +416,11 @@ public class ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletesTest
     upsertMetadataManager.removeSegment(segment1);
     // segment2: 0 -> {0, 100}, 2 -> {2, 120}, 3 -> {3, 80}
     // new segment1: 1 -> {4, 120}
-    assertEquals(recordLocationMap.size(), 4);
-    checkRecordLocation(recordLocationMap, 0, segment2, 0, 100, 2, hashFunction);
-    checkRecordLocation(recordLocationMap, 1, newSegment1, 4, 120, 2, hashFunction);
-    checkRecordLocation(recordLocationMap, 2, segment2, 2, 120, 2, hashFunction);
-    checkRecordLocation(recordLocationMap, 3, segment2, 3, 80, 1, hashFunction);
+    assertEquals(upsertMetadataManager.getNumPrimaryKeys(), 4);
+    checkRecordLocation(upsertMetadataManager, 0, segment2, 0, 100, 2, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 1, newSegment1, 4, 120, 2, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 2, segment2, 2, 120, 2, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 3, segment2, 3, 80, 1, hashFunction);
     assertEquals(validDocIds1.getMutableRoaringBitmap().toArray(), new int[]{4});
     assertEquals(validDocIds2.getMutableRoaringBitmap().toArray(), new int[]{0, 2, 3});
     assertEquals(newValidDocIds1.getMutableRoaringBitmap().toArray(), new int[]{4});
@@ -433,11 +429,11 @@ public class ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletesTest
     upsertMetadataManager.removeSegment(emptySegment);
     // segment2: 0 -> {0, 100}, 2 -> {2, 120}, 3 -> {3, 80}
     // new segment1: 1 -> {4, 120}
-    assertEquals(recordLocationMap.size(), 4);
-    checkRecordLocation(recordLocationMap, 0, segment2, 0, 100, 2, hashFunction);
-    checkRecordLocation(recordLocationMap, 1, newSegment1, 4, 120, 2, hashFunction);
-    checkRecordLocation(recordLocationMap, 2, segment2, 2, 120, 2, hashFunction);
-    checkRecordLocation(recordLocationMap, 3, segment2, 3, 80, 1, hashFunction);
+    assertEquals(upsertMetadataManager.getNumPrimaryKeys(), 4);
+    checkRecordLocation(upsertMetadataManager, 0, segment2, 0, 100, 2, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 1, newSegment1, 4, 120, 2, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 2, segment2, 2, 120, 2, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 3, segment2, 3, 80, 1, hashFunction);
     assertEquals(validDocIds2.getMutableRoaringBitmap().toArray(), new int[]{0, 2, 3});
     assertEquals(newValidDocIds1.getMutableRoaringBitmap().toArray(), new int[]{4});
 
@@ -445,8 +441,8 @@ public class ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletesTest
     upsertMetadataManager.removeSegment(segment2);
     // segment2: 0 -> {0, 100}, 2 -> {2, 120}, 3 -> {3, 80} (not in the map)
     // new segment1: 1 -> {4, 120}
-    assertEquals(recordLocationMap.size(), 1);
-    checkRecordLocation(recordLocationMap, 1, newSegment1, 4, 120, 1, hashFunction);
+    assertEquals(upsertMetadataManager.getNumPrimaryKeys(), 1);
+    checkRecordLocation(upsertMetadataManager, 1, newSegment1, 4, 120, 1, hashFunction);
     assertEquals(validDocIds2.getMutableRoaringBitmap().toArray(), new int[]{0, 2, 3});
     assertEquals(newValidDocIds1.getMutableRoaringBitmap().toArray(), new int[]{4});
     assertEquals(trackedSegments, Collections.singleton(newSegment1));
@@ -457,8 +453,8 @@ public class ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletesTest
     // Remove new segment1, should be no-op
     upsertMetadataManager.removeSegment(newSegment1);
     // new segment1: 1 -> {4, 120}
-    assertEquals(recordLocationMap.size(), 1);
-    checkRecordLocation(recordLocationMap, 1, newSegment1, 4, 120, 1, hashFunction);
+    assertEquals(upsertMetadataManager.getNumPrimaryKeys(), 1);
+    checkRecordLocation(upsertMetadataManager, 1, newSegment1, 4, 120, 1, hashFunction);
     assertEquals(newValidDocIds1.getMutableRoaringBitmap().toArray(), new int[]{4});
     assertEquals(trackedSegments, Collections.singleton(newSegment1));
 
@@ -477,11 +473,8 @@ public class ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletesTest
   @Test
   public void verifyAddReplaceUploadedSegment1()
       throws IOException {
-    ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletes upsertMetadataManager =
-        new ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletes(REALTIME_TABLE_NAME, 0,
-            _contextBuilder.setHashFunction(HashFunction.NONE).build());
-    Map<Object, ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletes.RecordLocation> recordLocationMap =
-        upsertMetadataManager._primaryKeyToRecordLocationMap;
+    BasePartitionUpsertMetadataManager upsertMetadataManager =
+        createUpsertMetadataManager(_contextBuilder.setHashFunction(HashFunction.NONE).build());
     Set<IndexSegment> trackedSegments = upsertMetadataManager._trackedSegments;
 
     // Add the first segment
@@ -500,10 +493,10 @@ public class ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletesTest
     upsertMetadataManager.addSegment(segment1, validDocIds1, null, recordInfoList1.iterator());
     trackedSegments.add(segment1);
     // segment1: 0 -> {5, 100}, 1 -> {4, 120}, 2 -> {2, 100}
-    assertEquals(recordLocationMap.size(), 3);
-    checkRecordLocation(recordLocationMap, 0, segment1, 5, 100, 1, HashFunction.NONE);
-    checkRecordLocation(recordLocationMap, 1, segment1, 4, 120, 1, HashFunction.NONE);
-    checkRecordLocation(recordLocationMap, 2, segment1, 2, 100, 1, HashFunction.NONE);
+    assertEquals(upsertMetadataManager.getNumPrimaryKeys(), 3);
+    checkRecordLocation(upsertMetadataManager, 0, segment1, 5, 100, 1, HashFunction.NONE);
+    checkRecordLocation(upsertMetadataManager, 1, segment1, 4, 120, 1, HashFunction.NONE);
+    checkRecordLocation(upsertMetadataManager, 2, segment1, 2, 100, 1, HashFunction.NONE);
     assertEquals(validDocIds1.getMutableRoaringBitmap().toArray(), new int[]{2, 4, 5});
 
     // Add the second segment of uploaded name format with same creation time
@@ -521,11 +514,11 @@ public class ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletesTest
 
     // segment1: 1 -> {4, 120}, 2 -> {2, 100}
     // uploadedSegment2: 0 -> {0, 100}, 3 -> {1, 80}
-    assertEquals(recordLocationMap.size(), 4);
-    checkRecordLocation(recordLocationMap, 0, uploadedSegment2, 0, 100, 2, HashFunction.NONE);
-    checkRecordLocation(recordLocationMap, 1, segment1, 4, 120, 1, HashFunction.NONE);
-    checkRecordLocation(recordLocationMap, 2, segment1, 2, 100, 1, HashFunction.NONE);
-    checkRecordLocation(recordLocationMap, 3, uploadedSegment2, 1, 80, 1, HashFunction.NONE);
+    assertEquals(upsertMetadataManager.getNumPrimaryKeys(), 4);
+    checkRecordLocation(upsertMetadataManager, 0, uploadedSegment2, 0, 100, 2, HashFunction.NONE);
+    checkRecordLocation(upsertMetadataManager, 1, segment1, 4, 120, 1, HashFunction.NONE);
+    checkRecordLocation(upsertMetadataManager, 2, segment1, 2, 100, 1, HashFunction.NONE);
+    checkRecordLocation(upsertMetadataManager, 3, uploadedSegment2, 1, 80, 1, HashFunction.NONE);
     assertEquals(validDocIds1.getMutableRoaringBitmap().toArray(), new int[]{2, 4});
     assertEquals(validDocIds2.getMutableRoaringBitmap().toArray(), new int[]{0, 1});
 
@@ -540,11 +533,11 @@ public class ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletesTest
 
     // segment1: 1 -> {4, 120}, 2 -> {2, 100}
     // newUploadedSegment2: 0 -> {0, 100}, 3 -> {1, 80}
-    assertEquals(recordLocationMap.size(), 4);
-    checkRecordLocation(recordLocationMap, 0, newUploadedSegment2, 0, 100, 2, HashFunction.NONE);
-    checkRecordLocation(recordLocationMap, 1, segment1, 4, 120, 1, HashFunction.NONE);
-    checkRecordLocation(recordLocationMap, 2, segment1, 2, 100, 1, HashFunction.NONE);
-    checkRecordLocation(recordLocationMap, 3, newUploadedSegment2, 1, 80, 1, HashFunction.NONE);
+    assertEquals(upsertMetadataManager.getNumPrimaryKeys(), 4);
+    checkRecordLocation(upsertMetadataManager, 0, newUploadedSegment2, 0, 100, 2, HashFunction.NONE);
+    checkRecordLocation(upsertMetadataManager, 1, segment1, 4, 120, 1, HashFunction.NONE);
+    checkRecordLocation(upsertMetadataManager, 2, segment1, 2, 100, 1, HashFunction.NONE);
+    checkRecordLocation(upsertMetadataManager, 3, newUploadedSegment2, 1, 80, 1, HashFunction.NONE);
     assertEquals(validDocIds1.getMutableRoaringBitmap().toArray(), new int[]{2, 4});
     assertEquals(newValidDocIds2.getMutableRoaringBitmap().toArray(), new int[]{0, 1});
 
@@ -563,11 +556,11 @@ public class ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletesTest
     // segment1: 1 -> {4, 120}, 2 -> {2, 100}
     // newUploadedSegment2: 3 -> {1, 80}
     // uploadedSegment3: 0 -> {0, 100}
-    assertEquals(recordLocationMap.size(), 4);
-    checkRecordLocation(recordLocationMap, 0, uploadedSegment3, 0, 100, 3, HashFunction.NONE);
-    checkRecordLocation(recordLocationMap, 1, segment1, 4, 120, 1, HashFunction.NONE);
-    checkRecordLocation(recordLocationMap, 2, segment1, 2, 100, 1, HashFunction.NONE);
-    checkRecordLocation(recordLocationMap, 3, newUploadedSegment2, 1, 80, 1, HashFunction.NONE);
+    assertEquals(upsertMetadataManager.getNumPrimaryKeys(), 4);
+    checkRecordLocation(upsertMetadataManager, 0, uploadedSegment3, 0, 100, 3, HashFunction.NONE);
+    checkRecordLocation(upsertMetadataManager, 1, segment1, 4, 120, 1, HashFunction.NONE);
+    checkRecordLocation(upsertMetadataManager, 2, segment1, 2, 100, 1, HashFunction.NONE);
+    checkRecordLocation(upsertMetadataManager, 3, newUploadedSegment2, 1, 80, 1, HashFunction.NONE);
     assertEquals(validDocIds1.getMutableRoaringBitmap().toArray(), new int[]{2, 4});
     assertEquals(newValidDocIds2.getMutableRoaringBitmap().toArray(), new int[]{1});
     assertEquals(validDocIds3.getMutableRoaringBitmap().toArray(), new int[]{0});
@@ -588,11 +581,11 @@ public class ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletesTest
     // newUploadedSegment2: 3 -> {1, 80}
     // uploadedSegment3: 0 -> {0, 100}
     // uploadedSegment4: 1 -> {1, 120}
-    assertEquals(recordLocationMap.size(), 4);
-    checkRecordLocation(recordLocationMap, 0, uploadedSegment3, 0, 100, 4, HashFunction.NONE);
-    checkRecordLocation(recordLocationMap, 1, uploadedSegment4, 1, 120, 2, HashFunction.NONE);
-    checkRecordLocation(recordLocationMap, 2, segment1, 2, 100, 1, HashFunction.NONE);
-    checkRecordLocation(recordLocationMap, 3, newUploadedSegment2, 1, 80, 1, HashFunction.NONE);
+    assertEquals(upsertMetadataManager.getNumPrimaryKeys(), 4);
+    checkRecordLocation(upsertMetadataManager, 0, uploadedSegment3, 0, 100, 4, HashFunction.NONE);
+    checkRecordLocation(upsertMetadataManager, 1, uploadedSegment4, 1, 120, 2, HashFunction.NONE);
+    checkRecordLocation(upsertMetadataManager, 2, segment1, 2, 100, 1, HashFunction.NONE);
+    checkRecordLocation(upsertMetadataManager, 3, newUploadedSegment2, 1, 80, 1, HashFunction.NONE);
     assertEquals(validDocIds1.getMutableRoaringBitmap().toArray(), new int[]{2});
     assertEquals(newValidDocIds2.getMutableRoaringBitmap().toArray(), new int[]{1});
     assertEquals(validDocIds3.getMutableRoaringBitmap().toArray(), new int[]{0});
@@ -614,11 +607,8 @@ public class ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletesTest
 
   private void verifyAddReplaceRemoveSegmentWithRecordDelete(HashFunction hashFunction)
       throws IOException {
-    ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletes upsertMetadataManager =
-        new ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletes(REALTIME_TABLE_NAME, 0,
-            _contextBuilder.setHashFunction(hashFunction).build());
-    Map<Object, ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletes.RecordLocation> recordLocationMap =
-        upsertMetadataManager._primaryKeyToRecordLocationMap;
+    BasePartitionUpsertMetadataManager upsertMetadataManager =
+        createUpsertMetadataManager(_contextBuilder.setHashFunction(hashFunction).build());
     Set<IndexSegment> trackedSegments = upsertMetadataManager._trackedSegments;
 
     // Add the first segment
@@ -640,10 +630,10 @@ public class ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletesTest
     upsertMetadataManager.addSegment(segment1, validDocIds1, queryableDocIds1, recordInfoList1.iterator());
     trackedSegments.add(segment1);
     // segment1: 0 -> {5, 100}, 1 -> {4, 120}, 2 -> {2, 100}
-    assertEquals(recordLocationMap.size(), 3);
-    checkRecordLocation(recordLocationMap, 0, segment1, 5, 100, 1, hashFunction);
-    checkRecordLocation(recordLocationMap, 1, segment1, 4, 120, 1, hashFunction);
-    checkRecordLocation(recordLocationMap, 2, segment1, 2, 100, 1, hashFunction);
+    assertEquals(upsertMetadataManager.getNumPrimaryKeys(), 3);
+    checkRecordLocation(upsertMetadataManager, 0, segment1, 5, 100, 1, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 1, segment1, 4, 120, 1, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 2, segment1, 2, 100, 1, hashFunction);
     assertEquals(validDocIds1.getMutableRoaringBitmap().toArray(), new int[]{2, 4, 5});
     assertEquals(queryableDocIds1.getMutableRoaringBitmap().toArray(), new int[]{2, 5});
 
@@ -671,11 +661,11 @@ public class ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletesTest
 
     // segment1: 1 -> {4, 120}
     // segment2: 0 -> {0, 100}, 2 -> {2, 120}, 3 -> {3, 80}
-    assertEquals(recordLocationMap.size(), 4);
-    checkRecordLocation(recordLocationMap, 0, segment2, 0, 100, 2, hashFunction);
-    checkRecordLocation(recordLocationMap, 1, segment1, 4, 120, 2, hashFunction);
-    checkRecordLocation(recordLocationMap, 2, segment2, 2, 120, 2, hashFunction);
-    checkRecordLocation(recordLocationMap, 3, segment2, 3, 80, 1, hashFunction);
+    assertEquals(upsertMetadataManager.getNumPrimaryKeys(), 4);
+    checkRecordLocation(upsertMetadataManager, 0, segment2, 0, 100, 2, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 1, segment1, 4, 120, 2, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 2, segment2, 2, 120, 2, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 3, segment2, 3, 80, 1, hashFunction);
     assertEquals(validDocIds1.getMutableRoaringBitmap().toArray(), new int[]{4});
     assertEquals(validDocIds2.getMutableRoaringBitmap().toArray(), new int[]{0, 2, 3});
     assertTrue(queryableDocIds1.getMutableRoaringBitmap().isEmpty());
@@ -686,11 +676,11 @@ public class ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletesTest
     upsertMetadataManager.addSegment(emptySegment);
     // segment1: 1 -> {4, 120}
     // segment2: 0 -> {0, 100}, 2 -> {2, 120}, 3 -> {3, 80}
-    assertEquals(recordLocationMap.size(), 4);
-    checkRecordLocation(recordLocationMap, 0, segment2, 0, 100, 2, hashFunction);
-    checkRecordLocation(recordLocationMap, 1, segment1, 4, 120, 2, hashFunction);
-    checkRecordLocation(recordLocationMap, 2, segment2, 2, 120, 2, hashFunction);
-    checkRecordLocation(recordLocationMap, 3, segment2, 3, 80, 1, hashFunction);
+    assertEquals(upsertMetadataManager.getNumPrimaryKeys(), 4);
+    checkRecordLocation(upsertMetadataManager, 0, segment2, 0, 100, 2, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 1, segment1, 4, 120, 2, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 2, segment2, 2, 120, 2, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 3, segment2, 3, 80, 1, hashFunction);
     assertEquals(validDocIds1.getMutableRoaringBitmap().toArray(), new int[]{4});
     assertEquals(validDocIds2.getMutableRoaringBitmap().toArray(), new int[]{0, 2, 3});
     assertTrue(queryableDocIds1.getMutableRoaringBitmap().isEmpty());
@@ -708,11 +698,11 @@ public class ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletesTest
     // original segment1: 1 -> {4, 120} (not in the map)
     // segment2: 0 -> {0, 100}, 2 -> {2, 120}, 3 -> {3, 80}
     // new segment1: 1 -> {4, 120}
-    assertEquals(recordLocationMap.size(), 4);
-    checkRecordLocation(recordLocationMap, 0, segment2, 0, 100, 2, hashFunction);
-    checkRecordLocation(recordLocationMap, 1, newSegment1, 4, 120, 2, hashFunction);
-    checkRecordLocation(recordLocationMap, 2, segment2, 2, 120, 2, hashFunction);
-    checkRecordLocation(recordLocationMap, 3, segment2, 3, 80, 1, hashFunction);
+    assertEquals(upsertMetadataManager.getNumPrimaryKeys(), 4);
+    checkRecordLocation(upsertMetadataManager, 0, segment2, 0, 100, 2, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 1, newSegment1, 4, 120, 2, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 2, segment2, 2, 120, 2, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 3, segment2, 3, 80, 1, hashFunction);
     assertEquals(validDocIds1.getMutableRoaringBitmap().toArray(), new int[]{4});
     assertEquals(validDocIds2.getMutableRoaringBitmap().toArray(), new int[]{0, 2, 3});
     assertEquals(newValidDocIds1.getMutableRoaringBitmap().toArray(), new int[]{4});
@@ -725,11 +715,11 @@ public class ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletesTest
     upsertMetadataManager.removeSegment(segment1);
     // segment2: 0 -> {0, 100}, 2 -> {2, 120}, 3 -> {3, 80}
     // new segment1: 1 -> {4, 120}
-    assertEquals(recordLocationMap.size(), 4);
-    checkRecordLocation(recordLocationMap, 0, segment2, 0, 100, 2, hashFunction);
-    checkRecordLocation(recordLocationMap, 1, newSegment1, 4, 120, 2, hashFunction);
-    checkRecordLocation(recordLocationMap, 2, segment2, 2, 120, 2, hashFunction);
-    checkRecordLocation(recordLocationMap, 3, segment2, 3, 80, 1, hashFunction);
+    assertEquals(upsertMetadataManager.getNumPrimaryKeys(), 4);
+    checkRecordLocation(upsertMetadataManager, 0, segment2, 0, 100, 2, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 1, newSegment1, 4, 120, 2, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 2, segment2, 2, 120, 2, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 3, segment2, 3, 80, 1, hashFunction);
     assertEquals(validDocIds1.getMutableRoaringBitmap().toArray(), new int[]{4});
     assertEquals(validDocIds2.getMutableRoaringBitmap().toArray(), new int[]{0, 2, 3});
     assertEquals(newValidDocIds1.getMutableRoaringBitmap().toArray(), new int[]{4});
@@ -741,11 +731,11 @@ public class ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletesTest
     upsertMetadataManager.removeSegment(emptySegment);
     // segment2: 0 -> {0, 100}, 2 -> {2, 120}, 3 -> {3, 80}
     // new segment1: 1 -> {4, 120}
-    assertEquals(recordLocationMap.size(), 4);
-    checkRecordLocation(recordLocationMap, 0, segment2, 0, 100, 2, hashFunction);
-    checkRecordLocation(recordLocationMap, 1, newSegment1, 4, 120, 2, hashFunction);
-    checkRecordLocation(recordLocationMap, 2, segment2, 2, 120, 2, hashFunction);
-    checkRecordLocation(recordLocationMap, 3, segment2, 3, 80, 1, hashFunction);
+    assertEquals(upsertMetadataManager.getNumPrimaryKeys(), 4);
+    checkRecordLocation(upsertMetadataManager, 0, segment2, 0, 100, 2, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 1, newSegment1, 4, 120, 2, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 2, segment2, 2, 120, 2, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 3, segment2, 3, 80, 1, hashFunction);
     assertEquals(validDocIds2.getMutableRoaringBitmap().toArray(), new int[]{0, 2, 3});
     assertEquals(newValidDocIds1.getMutableRoaringBitmap().toArray(), new int[]{4});
     assertEquals(queryableDocIds2.getMutableRoaringBitmap().toArray(), new int[]{0, 3});
@@ -755,8 +745,8 @@ public class ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletesTest
     upsertMetadataManager.removeSegment(segment2);
     // segment2: 0 -> {0, 100}, 2 -> {2, 120}, 3 -> {3, 80} (not in the map)
     // new segment1: 1 -> {4, 120}
-    assertEquals(recordLocationMap.size(), 1);
-    checkRecordLocation(recordLocationMap, 1, newSegment1, 4, 120, 1, hashFunction);
+    assertEquals(upsertMetadataManager.getNumPrimaryKeys(), 1);
+    checkRecordLocation(upsertMetadataManager, 1, newSegment1, 4, 120, 1, hashFunction);
     assertEquals(validDocIds2.getMutableRoaringBitmap().toArray(), new int[]{0, 2, 3});
     assertEquals(newValidDocIds1.getMutableRoaringBitmap().toArray(), new int[]{4});
     assertEquals(trackedSegments, Collections.singleton(newSegment1));
@@ -769,8 +759,8 @@ public class ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletesTest
     // Remove new segment1, should be no-op
     upsertMetadataManager.removeSegment(newSegment1);
     // new segment1: 1 -> {4, 120}
-    assertEquals(recordLocationMap.size(), 1);
-    checkRecordLocation(recordLocationMap, 1, newSegment1, 4, 120, 1, hashFunction);
+    assertEquals(upsertMetadataManager.getNumPrimaryKeys(), 1);
+    checkRecordLocation(upsertMetadataManager, 1, newSegment1, 4, 120, 1, hashFunction);
     assertEquals(newValidDocIds1.getMutableRoaringBitmap().toArray(), new int[]{4});
     assertEquals(trackedSegments, Collections.singleton(newSegment1));
     assertTrue(newQueryableDocIds1.getMutableRoaringBitmap().isEmpty());
@@ -830,11 +820,8 @@ public class ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletesTest
 
   private void verifyAddRecord(HashFunction hashFunction)
       throws IOException {
-    ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletes upsertMetadataManager =
-        new ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletes(REALTIME_TABLE_NAME, 0,
-            _contextBuilder.setHashFunction(hashFunction).build());
-    Map<Object, ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletes.RecordLocation> recordLocationMap =
-        upsertMetadataManager._primaryKeyToRecordLocationMap;
+    BasePartitionUpsertMetadataManager upsertMetadataManager =
+        createUpsertMetadataManager(_contextBuilder.setHashFunction(hashFunction).build());
 
     // Add the first segment
     // segment1: 0 -> {0, 100}, 1 -> {1, 120}, 2 -> {2, 100}
@@ -854,10 +841,10 @@ public class ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletesTest
 
     // segment1: 0 -> {0, 100}, 1 -> {1, 120}, 2 -> {2, 100}
     // segment2: 3 -> {0, 100}
-    checkRecordLocation(recordLocationMap, 0, segment1, 0, 100, 1, hashFunction);
-    checkRecordLocation(recordLocationMap, 1, segment1, 1, 120, 1, hashFunction);
-    checkRecordLocation(recordLocationMap, 2, segment1, 2, 100, 1, hashFunction);
-    checkRecordLocation(recordLocationMap, 3, segment2, 0, 100, 1, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 0, segment1, 0, 100, 1, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 1, segment1, 1, 120, 1, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 2, segment1, 2, 100, 1, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 3, segment2, 0, 100, 1, hashFunction);
     assertEquals(validDocIds1.getMutableRoaringBitmap().toArray(), new int[]{0, 1, 2});
     assertEquals(validDocIds2.getMutableRoaringBitmap().toArray(), new int[]{0});
 
@@ -865,10 +852,10 @@ public class ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletesTest
 
     // segment1: 0 -> {0, 100}, 1 -> {1, 120}
     // segment2: 2 -> {1, 120}, 3 -> {0, 100}
-    checkRecordLocation(recordLocationMap, 0, segment1, 0, 100, 1, hashFunction);
-    checkRecordLocation(recordLocationMap, 1, segment1, 1, 120, 1, hashFunction);
-    checkRecordLocation(recordLocationMap, 2, segment2, 1, 120, 2, hashFunction);
-    checkRecordLocation(recordLocationMap, 3, segment2, 0, 100, 1, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 0, segment1, 0, 100, 1, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 1, segment1, 1, 120, 1, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 2, segment2, 1, 120, 2, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 3, segment2, 0, 100, 1, hashFunction);
     assertEquals(validDocIds1.getMutableRoaringBitmap().toArray(), new int[]{0, 1});
     assertEquals(validDocIds2.getMutableRoaringBitmap().toArray(), new int[]{0, 1});
 
@@ -876,10 +863,10 @@ public class ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletesTest
 
     // segment1: 0 -> {0, 100}, 1 -> {1, 120}
     // segment2: 2 -> {1, 120}, 3 -> {0, 100}
-    checkRecordLocation(recordLocationMap, 0, segment1, 0, 100, 1, hashFunction);
-    checkRecordLocation(recordLocationMap, 1, segment1, 1, 120, 2, hashFunction);
-    checkRecordLocation(recordLocationMap, 2, segment2, 1, 120, 2, hashFunction);
-    checkRecordLocation(recordLocationMap, 3, segment2, 0, 100, 1, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 0, segment1, 0, 100, 1, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 1, segment1, 1, 120, 2, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 2, segment2, 1, 120, 2, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 3, segment2, 0, 100, 1, hashFunction);
     assertEquals(validDocIds1.getMutableRoaringBitmap().toArray(), new int[]{0, 1});
     assertEquals(validDocIds2.getMutableRoaringBitmap().toArray(), new int[]{0, 1});
 
@@ -887,10 +874,10 @@ public class ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletesTest
 
     // segment1: 1 -> {1, 120}
     // segment2: 0 -> {3, 100}, 2 -> {1, 120}, 3 -> {0, 100}
-    checkRecordLocation(recordLocationMap, 0, segment2, 3, 100, 2, hashFunction);
-    checkRecordLocation(recordLocationMap, 1, segment1, 1, 120, 2, hashFunction);
-    checkRecordLocation(recordLocationMap, 2, segment2, 1, 120, 2, hashFunction);
-    checkRecordLocation(recordLocationMap, 3, segment2, 0, 100, 1, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 0, segment2, 3, 100, 2, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 1, segment1, 1, 120, 2, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 2, segment2, 1, 120, 2, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 3, segment2, 0, 100, 1, hashFunction);
     assertEquals(validDocIds1.getMutableRoaringBitmap().toArray(), new int[]{1});
     assertEquals(validDocIds2.getMutableRoaringBitmap().toArray(), new int[]{0, 1, 3});
 
@@ -901,10 +888,10 @@ public class ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletesTest
     upsertMetadataManager.addRecord(segment2, new RecordInfo(makePrimaryKey(0), 4, 120, false));
     // segment1: 1 -> {1, 120}
     // segment2: 0 -> {3, 100}, 2 -> {1, 120}, 3 -> {0, 100}
-    checkRecordLocation(recordLocationMap, 0, segment2, 3, 100, 2, hashFunction);
-    checkRecordLocation(recordLocationMap, 1, segment1, 1, 120, 2, hashFunction);
-    checkRecordLocation(recordLocationMap, 2, segment2, 1, 120, 2, hashFunction);
-    checkRecordLocation(recordLocationMap, 3, segment2, 0, 100, 1, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 0, segment2, 3, 100, 2, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 1, segment1, 1, 120, 2, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 2, segment2, 1, 120, 2, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 3, segment2, 0, 100, 1, hashFunction);
     assertEquals(validDocIds1.getMutableRoaringBitmap().toArray(), new int[]{1});
     assertEquals(validDocIds2.getMutableRoaringBitmap().toArray(), new int[]{0, 1, 3});
 
@@ -922,11 +909,8 @@ public class ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletesTest
 
   private void verifyAddOutOfOrderRecord(HashFunction hashFunction)
       throws IOException {
-    ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletes upsertMetadataManager =
-        new ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletes(REALTIME_TABLE_NAME, 0,
-            _contextBuilder.setHashFunction(hashFunction).setDropOutOfOrderRecord(true).build());
-    Map<Object, ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletes.RecordLocation> recordLocationMap =
-        upsertMetadataManager._primaryKeyToRecordLocationMap;
+    BasePartitionUpsertMetadataManager upsertMetadataManager = createUpsertMetadataManager(
+        _contextBuilder.setHashFunction(hashFunction).setDropOutOfOrderRecord(true).build());
 
     // Add the first segment
     // segment1: 0 -> {0, 100}, 1 -> {1, 120}, 2 -> {2, 100}
@@ -950,10 +934,10 @@ public class ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletesTest
 
     // segment1: 0 -> {0, 100}, 1 -> {1, 120}, 2 -> {2, 100}
     // segment2: 3 -> {0, 100}
-    checkRecordLocation(recordLocationMap, 0, segment1, 0, 100, 1, hashFunction);
-    checkRecordLocation(recordLocationMap, 1, segment1, 1, 120, 1, hashFunction);
-    checkRecordLocation(recordLocationMap, 2, segment1, 2, 100, 1, hashFunction);
-    checkRecordLocation(recordLocationMap, 3, segment2, 0, 100, 1, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 0, segment1, 0, 100, 1, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 1, segment1, 1, 120, 1, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 2, segment1, 2, 100, 1, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 3, segment2, 0, 100, 1, hashFunction);
     assertEquals(validDocIds1.getMutableRoaringBitmap().toArray(), new int[]{0, 1, 2});
     assertEquals(validDocIds2.getMutableRoaringBitmap().toArray(), new int[]{0});
 
@@ -967,10 +951,10 @@ public class ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletesTest
 
     // segment1: 0 -> {0, 100}, 1 -> {1, 120}
     // segment2: 3 -> {0, 100}, 2 -> {1, 150}
-    checkRecordLocation(recordLocationMap, 0, segment1, 0, 100, 1, hashFunction);
-    checkRecordLocation(recordLocationMap, 1, segment1, 1, 120, 1, hashFunction);
-    checkRecordLocation(recordLocationMap, 2, segment2, 1, 150, 2, hashFunction);
-    checkRecordLocation(recordLocationMap, 3, segment2, 0, 100, 1, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 0, segment1, 0, 100, 1, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 1, segment1, 1, 120, 1, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 2, segment2, 1, 150, 2, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 3, segment2, 0, 100, 1, hashFunction);
     assertEquals(validDocIds1.getMutableRoaringBitmap().toArray(), new int[]{0, 1});
     assertEquals(validDocIds2.getMutableRoaringBitmap().toArray(), new int[]{0, 1});
 
@@ -989,11 +973,8 @@ public class ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletesTest
 
   private void verifyAddRecordWithDeleteColumn(HashFunction hashFunction)
       throws IOException {
-    ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletes upsertMetadataManager =
-        new ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletes(REALTIME_TABLE_NAME, 0,
-            _contextBuilder.setHashFunction(hashFunction).build());
-    Map<Object, ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletes.RecordLocation> recordLocationMap =
-        upsertMetadataManager._primaryKeyToRecordLocationMap;
+    BasePartitionUpsertMetadataManager upsertMetadataManager =
+        createUpsertMetadataManager(_contextBuilder.setHashFunction(hashFunction).build());
 
     // queryableDocIds is same as validDocIds in the absence of delete markers
     // Add the first segment
@@ -1016,10 +997,10 @@ public class ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletesTest
 
     // segment1: 0 -> {0, 100}, 1 -> {1, 120}, 2 -> {2, 100}
     // segment2: 3 -> {0, 100}
-    checkRecordLocation(recordLocationMap, 0, segment1, 0, 100, 1, hashFunction);
-    checkRecordLocation(recordLocationMap, 1, segment1, 1, 120, 1, hashFunction);
-    checkRecordLocation(recordLocationMap, 2, segment1, 2, 100, 1, hashFunction);
-    checkRecordLocation(recordLocationMap, 3, segment2, 0, 100, 1, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 0, segment1, 0, 100, 1, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 1, segment1, 1, 120, 1, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 2, segment1, 2, 100, 1, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 3, segment2, 0, 100, 1, hashFunction);
     assertEquals(validDocIds1.getMutableRoaringBitmap().toArray(), new int[]{0, 1, 2});
     assertEquals(validDocIds2.getMutableRoaringBitmap().toArray(), new int[]{0});
     assertEquals(queryableDocIds1.getMutableRoaringBitmap().toArray(), new int[]{0, 1, 2});
@@ -1030,10 +1011,10 @@ public class ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletesTest
 
     // segment1: 0 -> {0, 100}, 1 -> {1, 120}
     // segment2: 2 -> {1, 120}, 3 -> {0, 100}
-    checkRecordLocation(recordLocationMap, 0, segment1, 0, 100, 1, hashFunction);
-    checkRecordLocation(recordLocationMap, 1, segment1, 1, 120, 1, hashFunction);
-    checkRecordLocation(recordLocationMap, 2, segment2, 1, 120, 2, hashFunction);
-    checkRecordLocation(recordLocationMap, 3, segment2, 0, 100, 1, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 0, segment1, 0, 100, 1, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 1, segment1, 1, 120, 1, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 2, segment2, 1, 120, 2, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 3, segment2, 0, 100, 1, hashFunction);
     assertEquals(validDocIds1.getMutableRoaringBitmap().toArray(), new int[]{0, 1});
     assertEquals(validDocIds2.getMutableRoaringBitmap().toArray(), new int[]{0, 1});
     assertEquals(queryableDocIds1.getMutableRoaringBitmap().toArray(), new int[]{0, 1});
@@ -1044,10 +1025,10 @@ public class ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletesTest
 
     // segment1: 0 -> {0, 100}, 1 -> {1, 120}
     // segment2: 2 -> {1, 120}, 3 -> {2, 150}
-    checkRecordLocation(recordLocationMap, 0, segment1, 0, 100, 1, hashFunction);
-    checkRecordLocation(recordLocationMap, 1, segment1, 1, 120, 1, hashFunction);
-    checkRecordLocation(recordLocationMap, 2, segment2, 1, 120, 2, hashFunction);
-    checkRecordLocation(recordLocationMap, 3, segment2, 2, 150, 1, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 0, segment1, 0, 100, 1, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 1, segment1, 1, 120, 1, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 2, segment2, 1, 120, 2, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 3, segment2, 2, 150, 1, hashFunction);
     assertEquals(validDocIds1.getMutableRoaringBitmap().toArray(), new int[]{0, 1});
     assertEquals(validDocIds2.getMutableRoaringBitmap().toArray(), new int[]{1, 2});
     assertEquals(queryableDocIds1.getMutableRoaringBitmap().toArray(), new int[]{0, 1});
@@ -1058,10 +1039,10 @@ public class ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletesTest
 
     // segment1: 0 -> {0, 100}, 1 -> {1, 120}
     // segment2: 2 -> {1, 120}, 3 -> {3, 200}
-    checkRecordLocation(recordLocationMap, 0, segment1, 0, 100, 1, hashFunction);
-    checkRecordLocation(recordLocationMap, 1, segment1, 1, 120, 1, hashFunction);
-    checkRecordLocation(recordLocationMap, 2, segment2, 1, 120, 2, hashFunction);
-    checkRecordLocation(recordLocationMap, 3, segment2, 3, 200, 1, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 0, segment1, 0, 100, 1, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 1, segment1, 1, 120, 1, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 2, segment2, 1, 120, 2, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 3, segment2, 3, 200, 1, hashFunction);
     assertEquals(validDocIds1.getMutableRoaringBitmap().toArray(), new int[]{0, 1});
     assertEquals(validDocIds2.getMutableRoaringBitmap().toArray(), new int[]{1, 3});
     assertEquals(queryableDocIds1.getMutableRoaringBitmap().toArray(), new int[]{0, 1});
@@ -1074,10 +1055,10 @@ public class ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletesTest
     upsertMetadataManager.addRecord(segment2, new RecordInfo(makePrimaryKey(0), 4, 120, false));
     // segment1: 0 -> {0, 100}, 1 -> {1, 120}
     // segment2: 2 -> {1, 120}, 3 -> {3, 200}
-    checkRecordLocation(recordLocationMap, 0, segment1, 0, 100, 1, hashFunction);
-    checkRecordLocation(recordLocationMap, 1, segment1, 1, 120, 1, hashFunction);
-    checkRecordLocation(recordLocationMap, 2, segment2, 1, 120, 2, hashFunction);
-    checkRecordLocation(recordLocationMap, 3, segment2, 3, 200, 1, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 0, segment1, 0, 100, 1, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 1, segment1, 1, 120, 1, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 2, segment2, 1, 120, 2, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 3, segment2, 3, 200, 1, hashFunction);
     assertEquals(validDocIds1.getMutableRoaringBitmap().toArray(), new int[]{0, 1});
     assertEquals(validDocIds2.getMutableRoaringBitmap().toArray(), new int[]{1, 3});
     assertEquals(queryableDocIds1.getMutableRoaringBitmap().toArray(), new int[]{0, 1});
@@ -1097,11 +1078,8 @@ public class ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletesTest
 
   private void verifyRemoveExpiredDeletedKeys(HashFunction hashFunction)
       throws IOException {
-    ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletes upsertMetadataManager =
-        new ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletes(REALTIME_TABLE_NAME, 0,
-            _contextBuilder.setHashFunction(hashFunction).build());
-    Map<Object, ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletes.RecordLocation> recordLocationMap =
-        upsertMetadataManager._primaryKeyToRecordLocationMap;
+    BasePartitionUpsertMetadataManager upsertMetadataManager =
+        createUpsertMetadataManager(_contextBuilder.setHashFunction(hashFunction).build());
 
     // Add the first segment
     // segment1: 0 -> {0, 100}, 1 -> {1, 120}, 2 -> {2, 100}
@@ -1123,10 +1101,10 @@ public class ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletesTest
 
     // segment1: 0 -> {0, 100}, 1 -> {1, 120}, 2 -> {2, 100}
     // segment2: 3 -> {0, 100}
-    checkRecordLocation(recordLocationMap, 0, segment1, 0, 100, 1, hashFunction);
-    checkRecordLocation(recordLocationMap, 1, segment1, 1, 120, 1, hashFunction);
-    checkRecordLocation(recordLocationMap, 2, segment1, 2, 100, 1, hashFunction);
-    checkRecordLocation(recordLocationMap, 3, segment2, 0, 100, 1, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 0, segment1, 0, 100, 1, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 1, segment1, 1, 120, 1, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 2, segment1, 2, 100, 1, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 3, segment2, 0, 100, 1, hashFunction);
     assertEquals(validDocIds1.getMutableRoaringBitmap().toArray(), new int[]{0, 1, 2});
     assertEquals(validDocIds2.getMutableRoaringBitmap().toArray(), new int[]{0});
     assertEquals(queryableDocIds1.getMutableRoaringBitmap().toArray(), new int[]{0, 1, 2});
@@ -1137,10 +1115,10 @@ public class ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletesTest
 
     // segment1: 0 -> {0, 100}, 1 -> {1, 120}
     // segment2: 2 -> {1, 120}, 3 -> {0, 100}
-    checkRecordLocation(recordLocationMap, 0, segment1, 0, 100, 1, hashFunction);
-    checkRecordLocation(recordLocationMap, 1, segment1, 1, 120, 1, hashFunction);
-    checkRecordLocation(recordLocationMap, 2, segment2, 1, 150, 2, hashFunction);
-    checkRecordLocation(recordLocationMap, 3, segment2, 0, 100, 1, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 0, segment1, 0, 100, 1, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 1, segment1, 1, 120, 1, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 2, segment2, 1, 150, 2, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 3, segment2, 0, 100, 1, hashFunction);
     assertEquals(validDocIds1.getMutableRoaringBitmap().toArray(), new int[]{0, 1});
     assertEquals(validDocIds2.getMutableRoaringBitmap().toArray(), new int[]{0, 1});
     assertEquals(queryableDocIds1.getMutableRoaringBitmap().toArray(), new int[]{0, 1});
@@ -1156,10 +1134,10 @@ public class ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletesTest
     // in the same segment.
     // segment1: 0 -> {0, 100}
     // segment2: 2 -> {1, 120}, 3 -> {2, 150}, 1 -> {1, 120}
-    checkRecordLocation(recordLocationMap, 0, segment1, 0, 100, 1, hashFunction);
-    checkRecordLocation(recordLocationMap, 1, segment2, 3, 120, 2, hashFunction);
-    checkRecordLocation(recordLocationMap, 2, segment2, 1, 150, 2, hashFunction);
-    checkRecordLocation(recordLocationMap, 3, segment2, 2, 120, 1, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 0, segment1, 0, 100, 1, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 1, segment2, 3, 120, 2, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 2, segment2, 1, 150, 2, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 3, segment2, 2, 120, 1, hashFunction);
     assertEquals(validDocIds1.getMutableRoaringBitmap().toArray(), new int[]{0});
     assertEquals(validDocIds2.getMutableRoaringBitmap().toArray(), new int[]{1, 2, 3});
     assertEquals(queryableDocIds1.getMutableRoaringBitmap().toArray(), new int[]{0});
@@ -1172,9 +1150,9 @@ public class ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletesTest
     upsertMetadataManager.removeExpiredPrimaryKeys();
     // segment1: 0 -> {0, 100}
     // segment2: 2 -> {1, 120}, 1 -> {1, 120}
-    checkRecordLocation(recordLocationMap, 0, segment1, 0, 100, 1, hashFunction);
-    checkRecordLocation(recordLocationMap, 1, segment2, 3, 120, 2, hashFunction);
-    checkRecordLocation(recordLocationMap, 2, segment2, 1, 150, 2, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 0, segment1, 0, 100, 1, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 1, segment2, 3, 120, 2, hashFunction);
+    checkRecordLocation(upsertMetadataManager, 2, segment2, 1, 150, 2, hashFunction);
     assertEquals(validDocIds1.getMutableRoaringBitmap().toArray(), new int[]{0});
     assertEquals(validDocIds2.getMutableRoaringBitmap().toArray(), new int[]{1, 3});
     assertEquals(queryableDocIds1.getMutableRoaringBitmap().toArray(), new int[]{0});
@@ -1189,9 +1167,7 @@ public class ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletesTest
 
   public void verifyGetQueryableDocIds(boolean isDeleteColumnNull, boolean[] deleteFlags,
       MutableRoaringBitmap validDocIdsSnapshot, MutableRoaringBitmap queryableDocIds) {
-    ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletes upsertMetadataManager =
-        new ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletes(REALTIME_TABLE_NAME, 0,
-            _contextBuilder.build());
+    BasePartitionUpsertMetadataManager upsertMetadataManager = createUpsertMetadataManager(_contextBuilder.build());
 
     try (MockedConstruction<PinotSegmentColumnReader> deleteColReader = mockConstruction(PinotSegmentColumnReader.class,
         (mockReader, context) -> {
@@ -0,0 +1,53 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.upsert;
+
+import org.apache.pinot.segment.local.upsert.OffHeapPartitionUpsertMetadataManager.RecordLocation;
+import org.apache.pinot.segment.spi.IndexSegment;
+import org.apache.pinot.spi.config.table.HashFunction;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertSame;
+
+
+/**
+ * Runs the consistent deletes scenarios of {@link ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletesTest}
+ * against {@link OffHeapPartitionUpsertMetadataManager}, which tracks the distinct segment count in the off-heap map.
+ */
+public class OffHeapPartitionUpsertMetadataManagerForConsistentDeletesTest
+    extends ConcurrentMapPartitionUpsertMetadataManagerForConsistentDeletesTest {
+
+  @Override
+  protected BasePartitionUpsertMetadataManager createUpsertMetadataManager(UpsertContext context) {
+    return new OffHeapPartitionUpsertMetadataManager(REALTIME_TABLE_NAME, 0, context);
+  }
+
+  @Override
+  protected void checkRecordLocation(BasePartitionUpsertMetadataManager upsertMetadataManager, int keyValue,
+      IndexSegment segment, int docId, int comparisonValue, int distinctSegmentCount, HashFunction hashFunction) {
+    RecordLocation recordLocation =
+        ((OffHeapPartitionUpsertMetadataManager) upsertMetadataManager).getRecordLocation(makePrimaryKey(keyValue));
+    assertNotNull(recordLocation);
+    assertSame(recordLocation.getSegment(), segment);
+    assertEquals(recordLocation.getDocId(), docId);
+    assertEquals(((Integer) recordLocation.getComparisonValue()).intValue(), comparisonValue);
+    assertEquals(recordLocation.getDistinctSegmentCount(), distinctSegmentCount);
+  }
+}
@@ -0,0 +1,384 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.upsert;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.apache.commons.io.FileUtils;
+import org.apache.pinot.common.metrics.ServerMetrics;
+import org.apache.pinot.common.utils.LLCSegmentName;
+import org.apache.pinot.segment.local.data.manager.TableDataManager;
+import org.apache.pinot.segment.local.indexsegment.immutable.ImmutableSegmentImpl;
+import org.apache.pinot.segment.local.upsert.OffHeapPartitionUpsertMetadataManager.RecordLocation;
+import org.apache.pinot.segment.spi.IndexSegment;
+import org.apache.pinot.segment.spi.MutableSegment;
+import org.apache.pinot.segment.spi.datasource.DataSource;
+import org.apache.pinot.segment.spi.index.metadata.SegmentMetadataImpl;
+import org.apache.pinot.segment.spi.index.mutable.ThreadSafeMutableRoaringBitmap;
+import org.apache.pinot.segment.spi.index.reader.ForwardIndexReader;
+import org.apache.pinot.spi.config.table.HashFunction;
+import org.apache.pinot.spi.config.table.TableConfig;
+import org.apache.pinot.spi.data.FieldSpec.DataType;
+import org.apache.pinot.spi.data.Schema;
+import org.apache.pinot.spi.data.readers.PrimaryKey;
+import org.apache.pinot.spi.utils.builder.TableNameBuilder;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+
+public class OffHeapPartitionUpsertMetadataManagerTest {
+  private static final String RAW_TABLE_NAME = "testTable";
+  private static final String REALTIME_TABLE_NAME = TableNameBuilder.REALTIME.tableNameWithType(RAW_TABLE_NAME);
+  private static final List<String> PRIMARY_KEY_COLUMNS = Collections.singletonList("pk");
+  private static final List<String> COMPARISON_COLUMNS = Collections.singletonList("timeCol");
+  private static final String DELETE_RECORD_COLUMN = "deleteCol";
+  private static final File INDEX_DIR =
+      new File(FileUtils.getTempDirectory(), "OffHeapPartitionUpsertMetadataManagerTest");
+
+  private UpsertContext.Builder _contextBuilder;
+
+  @BeforeClass
+  public void setUp()
+      throws IOException {
+    FileUtils.forceMkdir(INDEX_DIR);
+    ServerMetrics.register(mock(ServerMetrics.class));
+  }
+
+  @BeforeMethod
+  public void setUpContextBuilder() {
+    TableDataManager tableDataManager = mock(TableDataManager.class);
+    when(tableDataManager.getTableDataDir()).thenReturn(INDEX_DIR);
+    _contextBuilder = new UpsertContext.Builder()
+        .setTableConfig(mock(TableConfig.class))
+        .setSchema(mock(Schema.class))
+        .setTableDataManager(tableDataManager)
+        .setPrimaryKeyColumns(PRIMARY_KEY_COLUMNS)
+        .setComparisonColumns(COMPARISON_COLUMNS);
+  }
+
+  @AfterClass
+  public void tearDown()
+      throws IOException {
+    FileUtils.forceDelete(INDEX_DIR);
+  }
+
+  @Test
+  public void testAddRecord()
+      throws IOException {
+    verifyAddRecord(HashFunction.NONE, null);
+    verifyAddRecord(HashFunction.MD5, null);
+    verifyAddRecord(HashFunction.MURMUR3, null);
+    verifyAddRecord(HashFunction.MURMUR3, Map.of(OffHeapPartitionUpsertMetadataManager.MEMORY_MAPPED, "true",
+        OffHeapPartitionUpsertMetadataManager.INITIAL_CAPACITY, "1"));
+  }
+
+  private void verifyAddRecord(HashFunction hashFunction, Map<String, String> metadataManagerConfigs)
+      throws IOException {
+    OffHeapPartitionUpsertMetadataManager upsertMetadataManager =
+        new OffHeapPartitionUpsertMetadataManager(REALTIME_TABLE_NAME, 0,
+            _contextBuilder.setHashFunction(hashFunction).setMetadataManagerConfigs(metadataManagerConfigs).build());
+
+    // Add the first segment
+    // segment1: 0 -> {0, 100}, 1 -> {1, 120}, 2 -> {2, 100}
+    int numRecords = 3;
+    int[] primaryKeys = new int[]{0, 1, 2};
+    int[] timestamps = new int[]{100, 120, 100};
+    ThreadSafeMutableRoaringBitmap validDocIds1 = new ThreadSafeMutableRoaringBitmap();
+    ImmutableSegmentImpl segment1 =
+        mockImmutableSegment(1, validDocIds1, null, getPrimaryKeyList(numRecords, primaryKeys));
+    upsertMetadataManager.addSegment(segment1, validDocIds1, null,
+        getRecordInfoList(numRecords, primaryKeys, timestamps, null).iterator());
+    upsertMetadataManager._trackedSegments.add(segment1);
+
+    // Update records from the second segment
+    ThreadSafeMutableRoaringBitmap validDocIds2 = new ThreadSafeMutableRoaringBitmap();
+    MutableSegment segment2 = mockMutableSegment(1, validDocIds2, null);
+    upsertMetadataManager.addRecord(segment2, new RecordInfo(makePrimaryKey(3), 0, 100, false));
+
+    // segment1: 0 -> {0, 100}, 1 -> {1, 120}, 2 -> {2, 100}
+    // segment2: 3 -> {0, 100}
+    checkRecordLocation(upsertMetadataManager, 0, segment1, 0, 100);
+    checkRecordLocation(upsertMetadataManager, 1, segment1, 1, 120);
+    checkRecordLocation(upsertMetadataManager, 2, segment1, 2, 100);
+    checkRecordLocation(upsertMetadataManager, 3, segment2, 0, 100);
+    assertEquals(validDocIds1.getMutableRoaringBitmap().toArray(), new int[]{0, 1, 2});
+    assertEquals(validDocIds2.getMutableRoaringBitmap().toArray(), new int[]{0});
+
+    upsertMetadataManager.addRecord(segment2, new RecordInfo(makePrimaryKey(2), 1, 120, false));
+    upsertMetadataManager.addRecord(segment2, new RecordInfo(makePrimaryKey(1), 2, 100, false));
+    upsertMetadataManager.addRecord(segment2, new RecordInfo(makePrimaryKey(0), 3, 100, false));
+
+    // segment1: 1 -> {1, 120}
+    // segment2: 0 -> {3, 100}, 2 -> {1, 120}, 3 -> {0, 100}
+    checkRecordLocation(upsertMetadataManager, 0, segment2, 3, 100);
+    checkRecordLocation(upsertMetadataManager, 1, segment1, 1, 120);
+    checkRecordLocation(upsertMetadataManager, 2, segment2, 1, 120);
+    checkRecordLocation(upsertMetadataManager, 3, segment2, 0, 100);
+    assertEquals(validDocIds1.getMutableRoaringBitmap().toArray(), new int[]{1});
+    assertEquals(validDocIds2.getMutableRoaringBitmap().toArray(), new int[]{0, 1, 3});
+    assertEquals(upsertMetadataManager.getNumPrimaryKeys(), 4);
+
+    // Remove the first segment, only the key still pointing to it should be removed
+    upsertMetadataManager.removeSegment(segment1);
+    assertNull(upsertMetadataManager.getRecordLocation(makePrimaryKey(1)));
+    checkRecordLocation(upsertMetadataManager, 0, segment2, 3, 100);
+    checkRecordLocation(upsertMetadataManager, 2, segment2, 1, 120);
+    checkRecordLocation(upsertMetadataManager, 3, segment2, 0, 100);
+    assertEquals(upsertMetadataManager.getNumPrimaryKeys(), 3);
+
+    // Stop and close the metadata manager
+    upsertMetadataManager.stop();
+    upsertMetadataManager.close();
+    assertEquals(INDEX_DIR.list((dir, name) -> name.startsWith(
+        OffHeapPartitionUpsertMetadataManager.MEMORY_MAPPED_FILE_PREFIX)).length, 0);
+  }
+
+  @Test
+  public void testAddReplaceSegment()
+      throws IOException {
+    OffHeapPartitionUpsertMetadataManager upsertMetadataManager =
+        new OffHeapPartitionUpsertMetadataManager(REALTIME_TABLE_NAME, 0, _contextBuilder.build());
+
+    // segment1: 0 -> {0, 100}, 1 -> {1, 120}, 2 -> {3, 120}
+    int numRecords = 4;
+    int[] primaryKeys = new int[]{0, 1, 2, 2};
+    int[] timestamps = new int[]{100, 120, 100, 120};
+    ThreadSafeMutableRoaringBitmap validDocIds1 = new ThreadSafeMutableRoaringBitmap();
+    List<PrimaryKey> primaryKeys1 = getPrimaryKeyList(numRecords, primaryKeys);
+    ImmutableSegmentImpl segment1 = mockImmutableSegment(1, validDocIds1, null, primaryKeys1);
+    upsertMetadataManager.addSegment(segment1, validDocIds1, null,
+        getRecordInfoList(numRecords, primaryKeys, timestamps, null).iterator());
+    checkRecordLocation(upsertMetadataManager, 0, segment1, 0, 100);
+    checkRecordLocation(upsertMetadataManager, 1, segment1, 1, 120);
+    checkRecordLocation(upsertMetadataManager, 2, segment1, 3, 120);
+    assertEquals(validDocIds1.getMutableRoaringBitmap().toArray(), new int[]{0, 1, 3});
+
+    // Replace segment1 with a segment with the same name: 0 -> {0, 100}, 1 -> {1, 120}, 3 -> {2, 100}
+    numRecords = 3;
+    primaryKeys = new int[]{0, 1, 3};
+    timestamps = new int[]{100, 120, 100};
+    ThreadSafeMutableRoaringBitmap newValidDocIds1 = new ThreadSafeMutableRoaringBitmap();
+    ImmutableSegmentImpl newSegment1 =
+        mockImmutableSegment(1, newValidDocIds1, null, getPrimaryKeyList(numRecords, primaryKeys));
+    String segmentName = segment1.getSegmentName();
+    when(newSegment1.getSegmentName()).thenReturn(segmentName);
+    upsertMetadataManager.replaceSegment(newSegment1, newValidDocIds1, null,
+        getRecordInfoList(numRecords, primaryKeys, timestamps, null).iterator(), segment1);
+
+    // Keys only in the old segment are removed
+    checkRecordLocation(upsertMetadataManager, 0, newSegment1, 0, 100);
+    checkRecordLocation(upsertMetadataManager, 1, newSegment1, 1, 120);
+    checkRecordLocation(upsertMetadataManager, 3, newSegment1, 2, 100);
+    assertNull(upsertMetadataManager.getRecordLocation(makePrimaryKey(2)));
+    assertEquals(newValidDocIds1.getMutableRoaringBitmap().toArray(), new int[]{0, 1, 2});
+    assertEquals(upsertMetadataManager.getNumPrimaryKeys(), 3);
+
+    upsertMetadataManager.stop();
+    upsertMetadataManager.close();
+  }
+
+  @Test
+  public void testRemoveExpiredDeletedKeys()
+      throws IOException {
+    OffHeapPartitionUpsertMetadataManager upsertMetadataManager =
+        new OffHeapPartitionUpsertMetadataManager(REALTIME_TABLE_NAME, 0,
+            _contextBuilder.setDeleteRecordColumn(DELETE_RECORD_COLUMN).setDeletedKeysTTL(20).build());
+
+    // segment1: 0 -> {0, 100}, 1 -> {1, 120}, 2 -> {2, 100}
+    int numRecords = 3;
+    int[] primaryKeys = new int[]{0, 1, 2};
+    int[] timestamps = new int[]{100, 120, 100};
+    ThreadSafeMutableRoaringBitmap validDocIds1 = new ThreadSafeMutableRoaringBitmap();
+    ThreadSafeMutableRoaringBitmap queryableDocIds1 = new ThreadSafeMutableRoaringBitmap();
+    ImmutableSegmentImpl segment1 =
+        mockImmutableSegment(1, validDocIds1, queryableDocIds1, getPrimaryKeyList(numRecords, primaryKeys));
+    upsertMetadataManager.addSegment(segment1, validDocIds1, queryableDocIds1,
+        getRecordInfoList(numRecords, primaryKeys, timestamps, null).iterator());
+
+    ThreadSafeMutableRoaringBitmap validDocIds2 = new ThreadSafeMutableRoaringBitmap();
+    ThreadSafeMutableRoaringBitmap queryableDocIds2 = new ThreadSafeMutableRoaringBitmap();
+    MutableSegment segment2 = mockMutableSegment(1, validDocIds2, queryableDocIds2);
+    upsertMetadataManager.addRecord(segment2, new RecordInfo(makePrimaryKey(3), 0, 100, false));
+    // Mark a record in segment1 as deleted (outside TTL-window)
+    upsertMetadataManager.addRecord(segment2, new RecordInfo(makePrimaryKey(2), 1, 120, true));
+    // Mark a record in segment2 as deleted (within TTL window)
+    upsertMetadataManager.addRecord(segment2, new RecordInfo(makePrimaryKey(3), 2, 150, true));
+
+    // segment1: 0 -> {0, 100}, 1 -> {1, 120}
+    // segment2: 2 -> {1, 120}, 3 -> {2, 150}
+    checkRecordLocation(upsertMetadataManager, 2, segment2, 1, 120);
+    checkRecordLocation(upsertMetadataManager, 3, segment2, 2, 150);
+    assertEquals(validDocIds2.getMutableRoaringBitmap().toArray(), new int[]{1, 2});
+    assertEquals(queryableDocIds2.getMutableRoaringBitmap().toArray(), new int[]{});
+
+    upsertMetadataManager.removeExpiredPrimaryKeys();
+
+    // segment1: 0 -> {0, 100}, 1 -> {1, 120}
+    // segment2: 3 -> {2, 150}
+    checkRecordLocation(upsertMetadataManager, 0, segment1, 0, 100);
+    checkRecordLocation(upsertMetadataManager, 1, segment1, 1, 120);
+    assertNull(upsertMetadataManager.getRecordLocation(makePrimaryKey(2)));
+    checkRecordLocation(upsertMetadataManager, 3, segment2, 2, 150);
+    assertEquals(validDocIds1.getMutableRoaringBitmap().toArray(), new int[]{0, 1});
+    assertEquals(validDocIds2.getMutableRoaringBitmap().toArray(), new int[]{2});
+    assertEquals(upsertMetadataManager.getNumPrimaryKeys(), 3);
+
+    upsertMetadataManager.stop();
+    upsertMetadataManager.close();
+  }
+
+  @Test
+  public void testConcurrentAddRecord()
+      throws Exception {
+    OffHeapPartitionUpsertMetadataManager upsertMetadataManager =
+        new OffHeapPartitionUpsertMetadataManager(REALTIME_TABLE_NAME, 0, _contextBuilder.setMetadataManagerConfigs(
+            Map.of(OffHeapPartitionUpsertMetadataManager.NUM_STRIPES, "5",
+                OffHeapPartitionUpsertMetadataManager.INITIAL_CAPACITY, "1")).build());
+    assertEquals(upsertMetadataManager.getNumStripes(), 8);
+
+    // Each thread adds the same keys to its own segment, with a comparison value unique across the threads
+    int numThreads = 4;
+    int numKeys = 10_000;
+    MutableSegment[] segments = new MutableSegment[numThreads];
+    ThreadSafeMutableRoaringBitmap[] validDocIds = new ThreadSafeMutableRoaringBitmap[numThreads];
+    for (int i = 0; i < numThreads; i++) {
+      validDocIds[i] = new ThreadSafeMutableRoaringBitmap();
+      segments[i] = mockMutableSegment(i + 1, validDocIds[i], null);
+    }
+    ExecutorService executorService = Executors.newFixedThreadPool(numThreads);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < numThreads; i++) {
+        int threadId = i;
+        futures.add(executorService.submit(() -> {
+          for (int key = 0; key < numKeys; key++) {
+            upsertMetadataManager.addRecord(segments[threadId],
+                new RecordInfo(makePrimaryKey(key), key, key * numThreads + threadId, false));
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executorService.shutdownNow();
+    }
+
+    // The last thread always has the largest comparison value
+    assertEquals(upsertMetadataManager.getNumPrimaryKeys(), numKeys);
+    for (int key = 0; key < numKeys; key++) {
+      checkRecordLocation(upsertMetadataManager, key, segments[numThreads - 1], key, key * numThreads + numThreads - 1);
+    }
+    for (int i = 0; i < numThreads - 1; i++) {
+      assertTrue(validDocIds[i].getMutableRoaringBitmap().isEmpty());
+    }
+    assertEquals(validDocIds[numThreads - 1].getMutableRoaringBitmap().getCardinality(), numKeys);
+
+    upsertMetadataManager.stop();
+    upsertMetadataManager.close();
+  }
+
+  private static List<RecordInfo> getRecordInfoList(int numRecords, int[] primaryKeys, int[] timestamps,
+      boolean[] deleteRecordFlags) {
+    List<RecordInfo> recordInfoList = new ArrayList<>();
+    for (int i = 0; i < numRecords; i++) {
+      recordInfoList.add(new RecordInfo(makePrimaryKey(primaryKeys[i]), i, timestamps[i],
+          deleteRecordFlags != null && deleteRecordFlags[i]));
+    }
+    return recordInfoList;
+  }
+
+  private static List<PrimaryKey> getPrimaryKeyList(int numRecords, int[] primaryKeys) {
+    List<PrimaryKey> primaryKeyList = new ArrayList<>();
+    for (int i = 0; i < numRecords; i++) {
+      primaryKeyList.add(makePrimaryKey(primaryKeys[i]));
+    }
+    return primaryKeyList;
+  }
+
+  private static ImmutableSegmentImpl mockImmutableSegment(int sequenceNumber,
+      ThreadSafeMutableRoaringBitmap validDocIds, ThreadSafeMutableRoaringBitmap queryableDocIds,
+      List<PrimaryKey> primaryKeys) {
+    ImmutableSegmentImpl segment = mock(ImmutableSegmentImpl.class);
+    when(segment.getSegmentName()).thenReturn(getSegmentName(sequenceNumber));
+    when(segment.getValidDocIds()).thenReturn(validDocIds);
+    when(segment.getQueryableDocIds()).thenReturn(queryableDocIds);
+    DataSource dataSource = mock(DataSource.class);
+    when(segment.getDataSource(anyString())).thenReturn(dataSource);
+    ForwardIndexReader forwardIndex = mock(ForwardIndexReader.class);
+    when(forwardIndex.isSingleValue()).thenReturn(true);
+    when(forwardIndex.getStoredType()).thenReturn(DataType.INT);
+    when(forwardIndex.getInt(anyInt(), any())).thenAnswer(
+        invocation -> primaryKeys.get(invocation.getArgument(0)).getValues()[0]);
+    when(dataSource.getForwardIndex()).thenReturn(forwardIndex);
+    SegmentMetadataImpl segmentMetadata = mock(SegmentMetadataImpl.class);
+    long creationTimeMs = System.currentTimeMillis();
+    when(segmentMetadata.getIndexCreationTime()).thenReturn(creationTimeMs);
+    when(segmentMetadata.getZkCreationTime()).thenReturn(creationTimeMs);
+    when(segmentMetadata.getTotalDocs()).thenReturn(primaryKeys.size());
+    when(segment.getSegmentMetadata()).thenReturn(segmentMetadata);
+    return segment;
+  }
+
+  private static MutableSegment mockMutableSegment(int sequenceNumber, ThreadSafeMutableRoaringBitmap validDocIds,
+      ThreadSafeMutableRoaringBitmap queryableDocIds) {
+    MutableSegment segment = mock(MutableSegment.class);
+    when(segment.getSegmentName()).thenReturn(getSegmentName(sequenceNumber));
+    when(segment.getQueryableDocIds()).thenReturn(queryableDocIds);
+    when(segment.getValidDocIds()).thenReturn(validDocIds);
+    return segment;
+  }
+
+  private static String getSegmentName(int sequenceNumber) {
+    return new LLCSegmentName(RAW_TABLE_NAME, 0, sequenceNumber, System.currentTimeMillis()).toString();
+  }
+
+  private static PrimaryKey makePrimaryKey(int value) {
+    return new PrimaryKey(new Object[]{value});
+  }
+
+  private static void checkRecordLocation(OffHeapPartitionUpsertMetadataManager upsertMetadataManager, int keyValue,
+      IndexSegment segment, int docId, int comparisonValue) {
+    RecordLocation recordLocation = upsertMetadataManager.getRecordLocation(makePrimaryKey(keyValue));
+    assertNotNull(recordLocation);
+    assertSame(recordLocation.getSegment(), segment);
+    assertEquals(recordLocation.getDocId(), docId);
+    assertEquals(recordLocation.getComparisonValue(), comparisonValue);
+  }
+}
@@ -0,0 +1,170 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.local.upsert;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.apache.commons.io.FileUtils;
+import org.apache.pinot.segment.local.utils.HashUtils;
+import org.apache.pinot.spi.utils.ByteArray;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+
+public class OffHeapRecordLocationMapTest {
+  private static final File INDEX_DIR = new File(FileUtils.getTempDirectory(), "OffHeapRecordLocationMapTest");
+  private static final String FILE_PREFIX = "testMap";
+  private static final int NUM_KEYS = 10_000;
+
+  @BeforeClass
+  public void setUp()
+      throws IOException {
+    FileUtils.forceMkdir(INDEX_DIR);
+  }
+
+  @AfterClass
+  public void tearDown()
+      throws IOException {
+    FileUtils.forceDelete(INDEX_DIR);
+  }
+
+  @Test
+  public void testPutGetRemove()
+      throws IOException {
+    try (OffHeapRecordLocationMap map = new OffHeapRecordLocationMap(16, "testPutGetRemove")) {
+      byte[] key1 = getKey(1);
+      byte[] key2 = getKey(2);
+      assertEquals(map.indexOf(key1), -1);
+
+      map.put(key1, 1, 10, 100, 0);
+      map.put(key2, 2, 20, 200L, 1);
+      assertEquals(map.size(), 2);
+      int index1 = map.indexOf(key1);
+      assertEquals(map.getSegmentId(index1), 1);
+      assertEquals(map.getDocId(index1), 10);
+      assertEquals(map.getComparisonValue(index1), 100);
+      assertEquals(map.getDistinctSegmentCount(index1), 0);
+      assertEquals(map.getKey(index1), key1);
+      int index2 = map.indexOf(key2);
+      assertEquals(map.getSegmentId(index2), 2);
+      assertEquals(map.getDocId(index2), 20);
+      assertEquals(map.getComparisonValue(index2), 200L);
+      assertEquals(map.getDistinctSegmentCount(index2), 1);
+
+      // Update existing keys with different comparison value types
+      map.put(key1, 3, 30, 1.5f, 0);
+      map.set(index2, 4, 40, 2.5, 2);
+      assertEquals(map.size(), 2);
+      index1 = map.indexOf(key1);
+      assertEquals(map.getSegmentId(index1), 3);
+      assertEquals(map.getDocId(index1), 30);
+      assertEquals(map.getComparisonValue(index1), 1.5f);
+      assertEquals(map.getComparisonValue(index2), 2.5);
+      assertEquals(map.getDistinctSegmentCount(index2), 2);
+
+      // Non-primitive comparison values are stored on-heap
+      ComparisonColumns comparisonColumns = new ComparisonColumns(new Comparable[]{1, "a"}, 0);
+      map.put(key1, 3, 30, comparisonColumns, 0);
+      assertEquals(map.getComparisonValue(map.indexOf(key1)), comparisonColumns);
+      map.put(key1, 3, 30, "b", 0);
+      assertEquals(map.getComparisonValue(map.indexOf(key1)), "b");
+
+      assertTrue(map.remove(key1));
+      assertFalse(map.remove(key1));
+      assertEquals(map.indexOf(key1), -1);
+      assertEquals(map.size(), 1);
+      assertEquals(map.getDocId(map.indexOf(key2)), 40);
+    }
+  }
+
+  @Test
+  public void testRandomOperations()
+      throws IOException {
+    try (OffHeapRecordLocationMap map = new OffHeapRecordLocationMap(16, "testRandomOperations")) {
+      verifyRandomOperations(map);
+    }
+  }
+
+  @Test
+  public void testMemoryMapped()
+      throws IOException {
+    try (OffHeapRecordLocationMap map = new OffHeapRecordLocationMap(16, "testMemoryMapped", INDEX_DIR,
+        FILE_PREFIX)) {
+      verifyRandomOperations(map);
+      // Only the file backing the current buffer should be kept after resizing
+      String[] files = INDEX_DIR.list((dir, name) -> name.startsWith(FILE_PREFIX));
+      assertEquals(files.length, 1);
+    }
+    String[] files = INDEX_DIR.list((dir, name) -> name.startsWith(FILE_PREFIX));
+    assertEquals(files.length, 0);
+  }
+
+  private static void verifyRandomOperations(OffHeapRecordLocationMap map) {
+    Random random = new Random();
+    Map<ByteArray, int[]> expectedMap = new HashMap<>();
+    List<byte[]> keys = new ArrayList<>(NUM_KEYS);
+    for (int i = 0; i < NUM_KEYS; i++) {
+      keys.add(getKey(i));
+    }
+    for (int i = 0; i < 5 * NUM_KEYS; i++) {
+      byte[] key = keys.get(random.nextInt(NUM_KEYS));
+      if (random.nextInt(4) == 0) {
+        assertEquals(map.remove(key), expectedMap.remove(new ByteArray(key)) != null);
+      } else {
+        int segmentId = random.nextInt(10) + 1;
+        int docId = random.nextInt(1000);
+        map.put(key, segmentId, docId, (long) i, 0);
+        expectedMap.put(new ByteArray(key), new int[]{segmentId, docId, i});
+      }
+    }
+    assertEquals(map.size(), expectedMap.size());
+    for (byte[] key : keys) {
+      int index = map.indexOf(key);
+      int[] expected = expectedMap.get(new ByteArray(key));
+      if (expected == null) {
+        assertEquals(index, -1);
+      } else {
+        assertEquals(map.getSegmentId(index), expected[0]);
+        assertEquals(map.getDocId(index), expected[1]);
+        assertEquals(map.getComparisonValue(index), (long) expected[2]);
+      }
+    }
+    int numOccupied = 0;
+    for (int i = 0; i < map.getCapacity(); i++) {
+      if (map.isOccupied(i)) {
+        numOccupied++;
+      }
+    }
+    assertEquals(numOccupied, expectedMap.size());
+  }
+
+  private static byte[] getKey(int value) {
+    return HashUtils.hashMurmur3(Integer.toString(value).getBytes());
+  }
+}
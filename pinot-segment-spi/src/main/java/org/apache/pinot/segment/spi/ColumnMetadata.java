@@ -25,6 +25,7 @@ import javax.annotation.Nullable;
 import org.apache.pinot.segment.spi.index.IndexType;
 import org.apache.pinot.segment.spi.partition.PartitionFunction;
 import org.apache.pinot.spi.annotations.InterfaceAudience;
+import org.apache.pinot.spi.config.table.FieldConfig;
 import org.apache.pinot.spi.data.FieldSpec;
 import org.apache.pinot.spi.data.FieldSpec.DataType;
 import org.apache.pinot.spi.data.FieldSpec.FieldType;
@@ -126,5 +127,14 @@ public interface ColumnMetadata {
 
   boolean isAutoGenerated();
 
+  /**
+   * Returns the encoding selected for the column during segment creation when auto encoding is enabled, or
+   * {@code null} if the encoding is not auto selected.
+   */
+  @Nullable
+  default FieldConfig.EncodingType getAutoSelectedEncoding() {
+    return null;
+  }
+
   Map<IndexType<?, ?, ?>, Long> getIndexSizeMap();
 }
@@ -50,6 +50,7 @@ public class V1Constants {
     public static final String H3_INDEX_FILE_EXTENSION = ".h3.idx";
     public static final String BLOOM_FILTER_FILE_EXTENSION = ".bloom";
     public static final String NULLVALUE_VECTOR_FILE_EXTENSION = ".bitmap.nullvalue";
+    public static final String ZONE_MAP_FILE_EXTENSION = ".zonemap";
     public static final String LUCENE_FST_INDEX_FILE_EXTENSION = ".lucene.fst";
     public static final String LUCENE_TEXT_INDEX_DOCID_MAPPING_FILE_EXTENSION = ".lucene.mapping";
     public static final String LUCENE_TEXT_INDEX_FILE_EXTENSION = ".lucene.index";
@@ -116,6 +117,8 @@ public class V1Constants {
       public static final String MAX_MULTI_VALUE_ELEMENTS = "maxNumberOfMultiValues";
       public static final String TOTAL_NUMBER_OF_ENTRIES = "totalNumberOfEntries";
       public static final String IS_AUTO_GENERATED = "isAutoGenerated";
+      public static final String AUTO_SELECTED_ENCODING = "autoSelectedEncoding";
+      public static final String AUTO_SELECTED_COMPRESSION_CODEC = "autoSelectedCompressionCodec";
       public static final String DEFAULT_NULL_VALUE = "defaultNullValue";
       public static final String MIN_VALUE = "minValue";
       public static final String MAX_VALUE = "maxValue";
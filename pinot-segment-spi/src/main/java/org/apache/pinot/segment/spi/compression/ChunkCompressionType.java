@@ -19,20 +19,36 @@
 package org.apache.pinot.segment.spi.compression;
 
 public enum ChunkCompressionType {
-  PASS_THROUGH(0), SNAPPY(1), ZSTANDARD(2), LZ4(3), LZ4_LENGTH_PREFIXED(4), GZIP(5);
+  PASS_THROUGH(0), SNAPPY(1), ZSTANDARD(2), LZ4(3), LZ4_LENGTH_PREFIXED(4), GZIP(5),
+
+  // Numeric compression types only apply to chunks of fixed width INT and LONG values
+  DELTA(6, true), DELTA_DELTA(7, true), FRAME_OF_REFERENCE(8, true);
 
   private static final ChunkCompressionType[] VALUES = values();
 
   private final int _value;
+  private final boolean _numeric;
 
   ChunkCompressionType(int value) {
+    this(value, false);
+  }
+
+  ChunkCompressionType(int value, boolean numeric) {
     _value = value;
+    _numeric = numeric;
   }
 
   public int getValue() {
     return _value;
   }
 
+  /**
+   * Returns {@code true} if the compression type only applies to chunks of fixed width INT and LONG values.
+   */
+  public boolean isNumeric() {
+    return _numeric;
+  }
+
   public static ChunkCompressionType valueOf(int ordinal) {
     if (ordinal < 0 || ordinal >= VALUES.length) {
       throw new IllegalArgumentException("invalid ordinal " + ordinal);
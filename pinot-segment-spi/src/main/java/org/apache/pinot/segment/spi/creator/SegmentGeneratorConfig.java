@@ -115,12 +115,15 @@ public class SegmentGeneratorConfig implements Serializable {
   private boolean _optimizeDictionary = false;
   private boolean _optimizeDictionaryForMetrics = false;
   private boolean _optimizeDictionaryType = false;
+  private boolean _autoEncoding = false;
   private double _noDictionarySizeRatioThreshold = IndexingConfig.DEFAULT_NO_DICTIONARY_SIZE_RATIO_THRESHOLD;
   private Double _noDictionaryCardinalityRatioThreshold;
   private boolean _realtimeConversion = false;
   // consumerDir contains data from the consuming segment, and is used during _realtimeConversion optimization
   private File _consumerDir;
   private final Map<String, FieldIndexConfigs> _indexConfigsByColName;
+  // Encoding selected for the columns when auto encoding is enabled, which is recorded in the segment metadata
+  private final Map<String, FieldConfig.EncodingType> _autoSelectedEncodings = new HashMap<>();
 
   // constructed from FieldConfig
   private final Map<String, Map<String, String>> _columnProperties = new HashMap<>();
@@ -172,6 +175,7 @@ public class SegmentGeneratorConfig implements Serializable {
     _optimizeDictionary = indexingConfig.isOptimizeDictionary();
     _optimizeDictionaryForMetrics = indexingConfig.isOptimizeDictionaryForMetrics();
     _optimizeDictionaryType = indexingConfig.isOptimizeDictionaryType();
+    _autoEncoding = indexingConfig.isAutoEncoding();
     _noDictionarySizeRatioThreshold = indexingConfig.getNoDictionarySizeRatioThreshold();
     _noDictionaryCardinalityRatioThreshold = indexingConfig.getNoDictionaryCardinalityRatioThreshold();
 
@@ -673,6 +677,22 @@ public class SegmentGeneratorConfig implements Serializable {
     _optimizeDictionaryType = optimizeDictionaryType;
   }
 
+  public boolean isAutoEncoding() {
+    return _autoEncoding;
+  }
+
+  public void setAutoEncoding(boolean autoEncoding) {
+    _autoEncoding = autoEncoding;
+  }
+
+  public Map<String, FieldConfig.EncodingType> getAutoSelectedEncodings() {
+    return _autoSelectedEncodings;
+  }
+
+  public void setAutoSelectedEncoding(String column, FieldConfig.EncodingType encodingType) {
+    _autoSelectedEncodings.put(column, encodingType);
+  }
+
   public double getNoDictionarySizeRatioThreshold() {
     return _noDictionarySizeRatioThreshold;
   }
@@ -141,6 +141,18 @@ public class ForwardIndexConfig extends IndexConfig {
           _chunkCompressionType = ChunkCompressionType.GZIP;
           _dictIdCompressionType = null;
           break;
+        case DELTA:
+          _chunkCompressionType = ChunkCompressionType.DELTA;
+          _dictIdCompressionType = null;
+          break;
+        case DELTA_DELTA:
+          _chunkCompressionType = ChunkCompressionType.DELTA_DELTA;
+          _dictIdCompressionType = null;
+          break;
+        case FRAME_OF_REFERENCE:
+          _chunkCompressionType = ChunkCompressionType.FRAME_OF_REFERENCE;
+          _dictIdCompressionType = null;
+          break;
         case MV_ENTRY_DICT:
           _dictIdCompressionType = DictIdCompressionType.MV_ENTRY_DICT;
           _chunkCompressionType = null;
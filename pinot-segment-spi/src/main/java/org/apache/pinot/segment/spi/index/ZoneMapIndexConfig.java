@@ -0,0 +1,75 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.spi.index;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.Preconditions;
+import java.util.Objects;
+import javax.annotation.Nullable;
+import org.apache.pinot.spi.config.table.IndexConfig;
+
+
+/**
+ * Config for the zone map, which records the min and max value of each zone (fixed number of consecutive docs) of a
+ * single-value column, and is used to skip the zones that cannot match the filter when scanning the forward index.
+ */
+public class ZoneMapIndexConfig extends IndexConfig {
+  public static final int DEFAULT_NUM_DOCS_PER_ZONE = 1024;
+  public static final ZoneMapIndexConfig DEFAULT = new ZoneMapIndexConfig(false, DEFAULT_NUM_DOCS_PER_ZONE);
+  public static final ZoneMapIndexConfig DISABLED = new ZoneMapIndexConfig(true, null);
+
+  private final int _numDocsPerZone;
+
+  public ZoneMapIndexConfig(int numDocsPerZone) {
+    this(false, numDocsPerZone);
+  }
+
+  @JsonCreator
+  public ZoneMapIndexConfig(@JsonProperty("disabled") Boolean disabled,
+      @JsonProperty("numDocsPerZone") @Nullable Integer numDocsPerZone) {
+    super(disabled);
+    _numDocsPerZone = numDocsPerZone != null ? numDocsPerZone : DEFAULT_NUM_DOCS_PER_ZONE;
+    Preconditions.checkArgument(_numDocsPerZone > 0, "numDocsPerZone must be positive, got: %s", _numDocsPerZone);
+  }
+
+  public int getNumDocsPerZone() {
+    return _numDocsPerZone;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    if (!super.equals(o)) {
+      return false;
+    }
+    ZoneMapIndexConfig that = (ZoneMapIndexConfig) o;
+    return _numDocsPerZone == that._numDocsPerZone;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(super.hashCode(), _numDocsPerZone);
+  }
+}
@@ -43,6 +43,7 @@ import org.apache.pinot.segment.spi.index.IndexType;
 import org.apache.pinot.segment.spi.partition.PartitionFunction;
 import org.apache.pinot.segment.spi.partition.PartitionFunctionFactory;
 import org.apache.pinot.segment.spi.partition.metadata.ColumnPartitionMetadata;
+import org.apache.pinot.spi.config.table.FieldConfig;
 import org.apache.pinot.spi.data.ComplexFieldSpec;
 import org.apache.pinot.spi.data.DateTimeFieldSpec;
 import org.apache.pinot.spi.data.DimensionFieldSpec;
@@ -79,12 +80,13 @@ public class ColumnMetadataImpl implements ColumnMetadata {
   private final LongArrayList _indexTypeSizeList;
 
   private final boolean _autoGenerated;
+  private final FieldConfig.EncodingType _autoSelectedEncoding;
 
   private ColumnMetadataImpl(FieldSpec fieldSpec, int totalDocs, int cardinality, boolean sorted,
       Comparable<?> minValue, Comparable<?> maxValue, boolean minMaxValueInvalid, boolean hasDictionary,
       int columnMaxLength, int bitsPerElement, int maxNumberOfMultiValues, int totalNumberOfEntries,
       @Nullable PartitionFunction partitionFunction, @Nullable Set<Integer> partitions,
-      LongArrayList indexSizeList, boolean autoGenerated) {
+      LongArrayList indexSizeList, boolean autoGenerated, @Nullable FieldConfig.EncodingType autoSelectedEncoding) {
     _fieldSpec = fieldSpec;
     _totalDocs = totalDocs;
     _cardinality = cardinality;
@@ -101,6 +103,7 @@ public class ColumnMetadataImpl implements ColumnMetadata {
     _partitions = partitions;
     _indexTypeSizeList = indexSizeList;
     _autoGenerated = autoGenerated;
+    _autoSelectedEncoding = autoSelectedEncoding;
   }
 
   @Override
@@ -226,6 +229,12 @@ public class ColumnMetadataImpl implements ColumnMetadata {
     return _autoGenerated;
   }
 
+  @Nullable
+  @Override
+  public FieldConfig.EncodingType getAutoSelectedEncoding() {
+    return _autoSelectedEncoding;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) {
@@ -239,6 +248,7 @@ public class ColumnMetadataImpl implements ColumnMetadata {
         && _hasDictionary == that._hasDictionary && _columnMaxLength == that._columnMaxLength
         && _bitsPerElement == that._bitsPerElement && _maxNumberOfMultiValues == that._maxNumberOfMultiValues
         && _totalNumberOfEntries == that._totalNumberOfEntries && _autoGenerated == that._autoGenerated
+        && _autoSelectedEncoding == that._autoSelectedEncoding
         && Objects.equals(_fieldSpec, that._fieldSpec) && Objects.equals(_minValue, that._minValue) && Objects.equals(
         _maxValue, that._maxValue) && Objects.equals(_partitionFunction, that._partitionFunction) && Objects.equals(
         _partitions, that._partitions);
@@ -248,7 +258,7 @@ public class ColumnMetadataImpl implements ColumnMetadata {
   public int hashCode() {
     return Objects.hash(_fieldSpec, _totalDocs, _cardinality, _sorted, _minValue, _maxValue, _hasDictionary,
         _columnMaxLength, _bitsPerElement, _maxNumberOfMultiValues, _totalNumberOfEntries, _partitionFunction,
-        _partitions, _autoGenerated);
+        _partitions, _autoGenerated, _autoSelectedEncoding);
   }
 
   @Override
@@ -258,7 +268,7 @@ public class ColumnMetadataImpl implements ColumnMetadata {
         + ", _hasDictionary=" + _hasDictionary + ", _columnMaxLength=" + _columnMaxLength + ", _bitsPerElement="
         + _bitsPerElement + ", _maxNumberOfMultiValues=" + _maxNumberOfMultiValues + ", _totalNumberOfEntries="
         + _totalNumberOfEntries + ", _partitionFunction=" + _partitionFunction + ", _partitions=" + _partitions
-        + ", _autoGenerated=" + _autoGenerated + '}';
+        + ", _autoGenerated=" + _autoGenerated + ", _autoSelectedEncoding=" + _autoSelectedEncoding + '}';
   }
 
   public static ColumnMetadataImpl fromPropertiesConfiguration(String column, PropertiesConfiguration config) {
@@ -271,6 +281,10 @@ public class ColumnMetadataImpl implements ColumnMetadata {
         .setMaxNumberOfMultiValues(config.getInt(Column.getKeyFor(column, Column.MAX_MULTI_VALUE_ELEMENTS)))
         .setTotalNumberOfEntries(config.getInt(Column.getKeyFor(column, Column.TOTAL_NUMBER_OF_ENTRIES)))
         .setAutoGenerated(config.getBoolean(Column.getKeyFor(column, Column.IS_AUTO_GENERATED), false));
+    String autoSelectedEncoding = config.getString(Column.getKeyFor(column, Column.AUTO_SELECTED_ENCODING), null);
+    if (autoSelectedEncoding != null) {
+      builder.setAutoSelectedEncoding(FieldConfig.EncodingType.valueOf(autoSelectedEncoding));
+    }
 
     FieldSpec fieldSpec = generateFieldSpec(column, config);
     builder.setFieldSpec(fieldSpec);
@@ -424,6 +438,7 @@ public class ColumnMetadataImpl implements ColumnMetadata {
     private PartitionFunction _partitionFunction;
     private Set<Integer> _partitions;
     private boolean _autoGenerated;
+    private FieldConfig.EncodingType _autoSelectedEncoding;
 
     // use non-default size to save space for most columns
     private LongArrayList _indexSizeList = new LongArrayList(2);
@@ -511,10 +526,16 @@ public class ColumnMetadataImpl implements ColumnMetadata {
       return this;
     }
 
+    public Builder setAutoSelectedEncoding(@Nullable FieldConfig.EncodingType autoSelectedEncoding) {
+      _autoSelectedEncoding = autoSelectedEncoding;
+      return this;
+    }
+
     public ColumnMetadataImpl build() {
       return new ColumnMetadataImpl(_fieldSpec, _totalDocs, _cardinality, _sorted, _minValue, _maxValue,
           _minMaxValueInvalid, _hasDictionary, _columnMaxLength, _bitsPerElement, _maxNumberOfMultiValues,
-          _totalNumberOfEntries, _partitionFunction, _partitions, _indexSizeList, _autoGenerated);
+          _totalNumberOfEntries, _partitionFunction, _partitions, _indexSizeList, _autoGenerated,
+          _autoSelectedEncoding);
     }
 
     private Comparable<?> parseValue(DataType storedType, String column, String valueString) {
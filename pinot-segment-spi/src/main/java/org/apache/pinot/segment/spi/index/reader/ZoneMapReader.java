@@ -0,0 +1,65 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.pinot.segment.spi.index.reader;
+
+import org.apache.pinot.segment.spi.index.IndexReader;
+import org.apache.pinot.spi.data.FieldSpec.DataType;
+
+
+/**
+ * Interface for zone map reader. The zone map records the min and max value of each zone (fixed number of consecutive
+ * docs) of a single-value column, where zone {@code i} contains the docs in range
+ * {@code [i * numDocsPerZone, (i + 1) * numDocsPerZone)}.
+ * <p>For dictionary-encoded column, the min and max dictionary id are recorded instead of the values, and can be read
+ * with {@link #getMinInt(int)} and {@link #getMaxInt(int)}. For raw column, the values are recorded with the stored
+ * type of the column, which can be INT, LONG, FLOAT or DOUBLE.
+ * <p>NaN values are not recorded in the zone map, so a zone with only NaN values has min greater than max.
+ */
+public interface ZoneMapReader extends IndexReader {
+
+  /**
+   * Returns {@code true} if the zone map records the dictionary ids instead of the values.
+   */
+  boolean isDictionaryEncoded();
+
+  /**
+   * Returns the type of the min and max values recorded in the zone map, which is INT for dictionary-encoded column.
+   */
+  DataType getValueType();
+
+  int getNumDocsPerZone();
+
+  int getNumZones();
+
+  int getMinInt(int zoneId);
+
+  int getMaxInt(int zoneId);
+
+  long getMinLong(int zoneId);
+
+  long getMaxLong(int zoneId);
+
+  float getMinFloat(int zoneId);
+
+  float getMaxFloat(int zoneId);
+
+  double getMinDouble(int zoneId);
+
+  double getMaxDouble(int zoneId);
+}
@@ -88,6 +88,7 @@ import org.apache.pinot.core.util.ListenerConfigUtil;
 import org.apache.pinot.core.util.trace.ContinuousJfrStarter;
 import org.apache.pinot.segment.local.realtime.impl.invertedindex.RealtimeLuceneIndexRefreshManager;
 import org.apache.pinot.segment.local.realtime.impl.invertedindex.RealtimeLuceneTextIndexSearcherPool;
+import org.apache.pinot.segment.local.segment.store.MmapBufferPrefetcher;
 import org.apache.pinot.segment.local.segment.store.TextIndexUtils;
 import org.apache.pinot.segment.local.utils.SegmentAllIndexPreprocessThrottler;
 import org.apache.pinot.segment.local.utils.SegmentDownloadThrottler;
@@ -242,6 +243,12 @@ public abstract class BaseServerStarter implements ServiceStartable {
       MmapMemoryConfig.setDefaultAdvice(defaultMmapAdvice);
     }
 
+    // Initialize the thread pool to prefetch mmap buffers for queries
+    MmapBufferPrefetcher.init(
+        _serverConf.getProperty(Server.CONFIG_OF_MMAP_PREFETCH_NUM_THREADS, Server.DEFAULT_MMAP_PREFETCH_NUM_THREADS),
+        _serverConf.getProperty(Server.CONFIG_OF_MMAP_PREFETCH_MAX_PENDING_TASKS,
+            Server.DEFAULT_MMAP_PREFETCH_MAX_PENDING_TASKS));
+
     // Initialize the data buffer factory
     PinotDataBuffer.loadDefaultFactory(serverConf);
 
@@ -78,6 +78,14 @@ public interface ThreadResourceUsageAccountant {
     return false;
   }
 
+  /**
+   * Returns whether the operators that can spill their state to disk (e.g. hash join with SPILL overflow mode) should
+   * spill instead of growing the in-memory state, because the heap usage is approaching the limit.
+   */
+  default boolean shouldSpillToDisk() {
+    return false;
+  }
+
   /**
    * Register a callback to be invoked when a query is cancelled.
    * This is useful for cleaning up resources or notifying other components.
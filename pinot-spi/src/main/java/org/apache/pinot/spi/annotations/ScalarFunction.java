@@ -62,5 +62,20 @@ public @interface ScalarFunction {
    */
   boolean isVarArg() default false;
 
+  /**
+   * Name of an optional batch kernel for the annotated method. The batch kernel is used by the query engine to evaluate
+   * the function over a whole block of values with a single call instead of invoking the annotated method once per
+   * row.
+   *
+   * The batch kernel must be a public static void method declared in the same class, taking the number of values to
+   * process, then one array per parameter of the annotated method, then the array to fill with the results. E.g. for
+   * {@code double power(double a, double b)}, the batch kernel should be
+   * {@code void powerBatch(int length, double[] a, double[] b, double[] results)}.
+   *
+   * Only int, long, float, double, String and byte[] parameters, and int, long, float, double and String results are
+   * supported. Only applies to scalar function methods (not classes).
+   */
+  String batchMethod() default "";
+
   @Deprecated boolean isPlaceholder() default false;
 }
@@ -22,6 +22,7 @@ import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.base.Preconditions;
 import java.util.Objects;
+import javax.annotation.Nullable;
 
 
 public class BloomFilterConfig extends IndexConfig {
@@ -33,15 +34,20 @@ public class BloomFilterConfig extends IndexConfig {
   private final double _fpp;
   private final int _maxSizeInBytes;
   private final boolean _loadOnHeap;
+  private final Type _type;
 
   public BloomFilterConfig(double fpp, int maxSizeInBytes, boolean loadOnHeap) {
     this(false, fpp, maxSizeInBytes, loadOnHeap);
   }
 
+  public BloomFilterConfig(Boolean disabled, double fpp, int maxSizeInBytes, boolean loadOnHeap) {
+    this(disabled, fpp, maxSizeInBytes, loadOnHeap, null);
+  }
+
   @JsonCreator
   public BloomFilterConfig(@JsonProperty("disabled") Boolean disabled, @JsonProperty(value = "fpp") double fpp,
       @JsonProperty(value = "maxSizeInBytes") int maxSizeInBytes,
-      @JsonProperty(value = "loadOnHeap") boolean loadOnHeap) {
+      @JsonProperty(value = "loadOnHeap") boolean loadOnHeap, @JsonProperty(value = "type") @Nullable Type type) {
     super(disabled);
     if (fpp != 0.0) {
       Preconditions.checkArgument(fpp > 0.0 && fpp < 1.0, "Invalid fpp (false positive probability): %s", fpp);
@@ -51,6 +57,7 @@ public class BloomFilterConfig extends IndexConfig {
     }
     _maxSizeInBytes = maxSizeInBytes;
     _loadOnHeap = loadOnHeap;
+    _type = type != null ? type : Type.GUAVA;
   }
 
   public double getFpp() {
@@ -65,6 +72,10 @@ public class BloomFilterConfig extends IndexConfig {
     return _loadOnHeap;
   }
 
+  public Type getType() {
+    return _type;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) {
@@ -78,11 +89,21 @@ public class BloomFilterConfig extends IndexConfig {
     }
     BloomFilterConfig that = (BloomFilterConfig) o;
     return Double.compare(that._fpp, _fpp) == 0 && _maxSizeInBytes == that._maxSizeInBytes
-        && _loadOnHeap == that._loadOnHeap && isEnabled() == that.isEnabled();
+        && _loadOnHeap == that._loadOnHeap && _type == that._type && isEnabled() == that.isEnabled();
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(super.hashCode(), _fpp, _maxSizeInBytes, _loadOnHeap, isEnabled());
+    return Objects.hash(super.hashCode(), _fpp, _maxSizeInBytes, _loadOnHeap, _type, isEnabled());
+  }
+
+  /**
+   * Format of the bloom filter.
+   */
+  public enum Type {
+    // Guava bloom filter, where the bits of a value are spread across the whole filter
+    GUAVA,
+    // Split block bloom filter, where the bits of a value are within a 32 bytes block (fits in a single cache line)
+    SPLIT_BLOCK
   }
 }
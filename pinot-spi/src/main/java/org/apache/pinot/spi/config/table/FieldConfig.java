@@ -150,7 +150,14 @@ public class FieldConfig extends BaseJsonConfig {
     CLP(false, false),
     CLPV2(false, false),
     CLPV2_ZSTD(false, false),
-    CLPV2_LZ4(false, false);
+    CLPV2_LZ4(false, false),
+
+    // Numeric compression codecs are only applicable to single-value RAW columns of INT and LONG stored type. DELTA and
+    // DELTA_DELTA suit sorted or slowly changing values (e.g. ids, timestamps), FRAME_OF_REFERENCE suits values within
+    // a narrow range. All of them bit-pack the values within each chunk.
+    DELTA(false, false),
+    DELTA_DELTA(false, false),
+    FRAME_OF_REFERENCE(false, false);
 
     //@formatter:on
 
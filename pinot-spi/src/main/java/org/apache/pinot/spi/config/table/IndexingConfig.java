@@ -84,6 +84,13 @@ public class IndexingConfig extends BaseJsonConfig {
    */
   private boolean _optimizeDictionaryType;
 
+  /**
+   * If `autoEncoding` enabled, the encoding (dictionary or raw) and the compression codec of the raw forward index are
+   * selected per column during segment creation, based on the column statistics and the trial compression of a sample
+   * of the values. Only applies to the single-valued columns without explicit encoding related configs.
+   */
+  private boolean _autoEncoding;
+
   private double _noDictionarySizeRatioThreshold = DEFAULT_NO_DICTIONARY_SIZE_RATIO_THRESHOLD;
 
   // Used in conjunction with `optimizeDictionary`, if cardinality / total docs is less than the threshold,
@@ -378,6 +385,14 @@ public class IndexingConfig extends BaseJsonConfig {
     _optimizeDictionaryType = optimizeDictionaryType;
   }
 
+  public boolean isAutoEncoding() {
+    return _autoEncoding;
+  }
+
+  public void setAutoEncoding(boolean autoEncoding) {
+    _autoEncoding = autoEncoding;
+  }
+
   public double getNoDictionarySizeRatioThreshold() {
     return _noDictionarySizeRatioThreshold;
   }
@@ -472,6 +472,11 @@ public class CommonConstants {
         "pinot.broker.enable.partition.metadata.manager";
     public static final boolean DEFAULT_ENABLE_PARTITION_METADATA_MANAGER = true;
 
+    // Whether to track the number of documents of each table from the segment ZK metadata, which is used by the
+    // multi-stage query planner to pick the broadcast join strategy for small tables.
+    public static final String CONFIG_OF_ENABLE_TABLE_NUM_DOCS_TRACKER = "pinot.broker.enable.table.num.docs.tracker";
+    public static final boolean DEFAULT_ENABLE_TABLE_NUM_DOCS_TRACKER = false;
+
       // When enabled, the broker will set a query option to ignore SERVER_SEGMENT_MISSING errors from servers.
       // This is useful to tolerate short windows where routing has not yet reflected recently deleted segments.
       public static final String CONFIG_OF_IGNORE_MISSING_SEGMENTS =
@@ -482,6 +487,15 @@ public class CommonConstants {
     public static final String CONFIG_OF_INFER_PARTITION_HINT = "pinot.broker.multistage.infer.partition.hint";
     public static final boolean DEFAULT_INFER_PARTITION_HINT = false;
 
+    // Whether to infer the join strategy (colocated or broadcast) from the table partition and segment metadata by
+    // default or not. This value can always be overridden by INFER_JOIN_STRATEGY query option
+    public static final String CONFIG_OF_INFER_JOIN_STRATEGY = "pinot.broker.multistage.infer.join.strategy";
+    public static final boolean DEFAULT_INFER_JOIN_STRATEGY = false;
+    // Max number of rows (based on the segment metadata) of the right table to pick the broadcast join strategy when
+    // inferring the join strategy. This value can always be overridden by BROADCAST_JOIN_MAX_ROWS query option
+    public static final String CONFIG_OF_BROADCAST_JOIN_MAX_ROWS = "pinot.broker.multistage.broadcast.join.max.rows";
+    public static final long DEFAULT_BROADCAST_JOIN_MAX_ROWS = 100_000L;
+
     /**
      * Whether to use spools in multistage query engine by default.
      * This value can always be overridden by {@link Request.QueryOptionKey#USE_SPOOLS} query option
@@ -647,6 +661,8 @@ public class CommonConstants {
         public static final String EXPLAIN_PLAN_VERBOSE = "explainPlanVerbose";
         public static final String USE_MULTISTAGE_ENGINE = "useMultistageEngine";
         public static final String INFER_PARTITION_HINT = "inferPartitionHint";
+        public static final String INFER_JOIN_STRATEGY = "inferJoinStrategy";
+        public static final String BROADCAST_JOIN_MAX_ROWS = "broadcastJoinMaxRows";
         public static final String ENABLE_NULL_HANDLING = "enableNullHandling";
         public static final String APPLICATION_NAME = "applicationName";
         public static final String USE_SPOOLS = "useSpools";
@@ -690,6 +706,8 @@ public class CommonConstants {
         // TODO: Apply this to SSE as well
         /** Throw an exception on reaching num_groups_limit instead of just setting a flag. */
         public static final String ERROR_ON_NUM_GROUPS_LIMIT = "errorOnNumGroupsLimit";
+        /** Spill the groups to disk on reaching num_groups_limit in MSE instead of truncating the groups. */
+        public static final String SPILL_ON_NUM_GROUPS_LIMIT = "spillOnNumGroupsLimit";
 
         public static final String NUM_GROUPS_LIMIT = "numGroupsLimit";
         // Not actually accepted as Query Option but faked as one during MSE
@@ -711,11 +729,29 @@ public class CommonConstants {
         // Handle JOIN Overflow
         public static final String MAX_ROWS_IN_JOIN = "maxRowsInJoin";
         public static final String JOIN_OVERFLOW_MODE = "joinOverflowMode";
+        // Share the hash table built from a broadcast right input across the join workers of the same server
+        public static final String SHARED_JOIN_BUILD = "sharedJoinBuild";
 
         // Handle WINDOW Overflow
         public static final String MAX_ROWS_IN_WINDOW = "maxRowsInWindow";
         public static final String WINDOW_OVERFLOW_MODE = "windowOverflowMode";
 
+        // Number of rows / estimated bytes buffered in memory before the multi-stage sort and window operators spill
+        // sorted runs to disk (external merge sort)
+        public static final String SORT_SPILL_THRESHOLD_ROWS = "sortSpillThresholdRows";
+        public static final String SORT_SPILL_THRESHOLD_BYTES = "sortSpillThresholdBytes";
+
+        // Compression type of the blocks sent through the multi-stage gRPC mailboxes (e.g. LZ4, ZSTANDARD)
+        public static final String MAILBOX_COMPRESSION = "mailboxCompression";
+        // Serialize the blocks sent through the multi-stage gRPC mailboxes in columnar format
+        public static final String USE_COLUMNAR_DATA_BLOCK = "useColumnarDataBlock";
+
+        // Stream the group-by results of the leaf stage in chunks of groups as soon as they are ready instead of
+        // merging the groups of all the segments first. Only applies when the groups are merged again downstream.
+        public static final String STREAMING_GROUP_BY = "streamingGroupBy";
+        // Number of groups merged by a worker thread before streaming them with the streaming group-by
+        public static final String STREAMING_GROUP_BY_CHUNK_SIZE = "streamingGroupByChunkSize";
+
         // Indicates the maximum length of the serialized response per server for a query.
         public static final String MAX_SERVER_RESPONSE_SIZE_BYTES = "maxServerResponseSizeBytes";
 
@@ -765,6 +801,9 @@ public class CommonConstants {
         // (overrides the "pinot.broker.use.mse.to.fill.empty.response.schema" broker conf)
         public static final String USE_MSE_TO_FILL_EMPTY_RESPONSE_SCHEMA = "useMSEToFillEmptyResponseSchema";
 
+        // Set to false to bypass the broker query result cache (only applies when the cache is enabled on the broker)
+        public static final String USE_RESULT_CACHE = "useResultCache";
+
         // Used by the MSE Engine when auto-inferring data partitioning. Realtime streams can often incorrectly assign
         // records to stream partitions, which can make a segment have multiple partitions. The scale of this is
         // usually low, and this query option allows the MSE Optimizer to infer the partition of a segment based on its
@@ -802,6 +841,7 @@ public class CommonConstants {
 
       public static class QueryOptionValue {
         public static final int DEFAULT_MAX_STREAMING_PENDING_BLOCKS = 100;
+        public static final int DEFAULT_STREAMING_GROUP_BY_CHUNK_SIZE = 10_000;
       }
     }
 
@@ -851,6 +891,8 @@ public class CommonConstants {
       public static final String PRUNE_EMPTY_JOIN_LEFT = "PruneEmptyJoinLeft";
       public static final String PRUNE_EMPTY_JOIN_RIGHT = "PruneEmptyJoinRight";
       public static final String JOIN_TO_ENRICHED_JOIN = "JoinToEnrichedJoin";
+      public static final String SORT_PUSH_DOWN = "SortPushDown";
+      public static final String JOIN_REORDER = "JoinReorder";
     }
 
     /**
@@ -866,7 +908,8 @@ public class CommonConstants {
         PlannerRuleNames.SORT_JOIN_TRANSPOSE,
         PlannerRuleNames.SORT_JOIN_COPY,
         PlannerRuleNames.AGGREGATE_UNION_AGGREGATE,
-        PlannerRuleNames.JOIN_TO_ENRICHED_JOIN
+        PlannerRuleNames.JOIN_TO_ENRICHED_JOIN,
+        PlannerRuleNames.JOIN_REORDER
     );
 
     public static class FailureDetector {
@@ -1000,6 +1043,18 @@ public class CommonConstants {
     public static final String USE_MSE_TO_FILL_EMPTY_RESPONSE_SCHEMA =
         "pinot.broker.use.mse.to.fill.empty.response.schema";
     public static final boolean DEFAULT_USE_MSE_TO_FILL_EMPTY_RESPONSE_SCHEMA = false;
+
+    // Configs for the broker side single-stage query result cache. When enabled, the response of a query is cached and
+    // keyed on the server query and the segments selected by the routing, and is invalidated when the routing of the
+    // table changes. Only queries not touching any real-time segment are cached.
+    public static final String CONFIG_OF_QUERY_RESULT_CACHE_ENABLED = "pinot.broker.query.result.cache.enabled";
+    public static final boolean DEFAULT_QUERY_RESULT_CACHE_ENABLED = false;
+    public static final String CONFIG_OF_QUERY_RESULT_CACHE_MAX_SIZE_BYTES =
+        "pinot.broker.query.result.cache.max.size.bytes";
+    public static final long DEFAULT_QUERY_RESULT_CACHE_MAX_SIZE_BYTES = 64L * 1024 * 1024;
+    public static final String CONFIG_OF_QUERY_RESULT_CACHE_EXPIRE_AFTER_WRITE_MS =
+        "pinot.broker.query.result.cache.expire.after.write.ms";
+    public static final long DEFAULT_QUERY_RESULT_CACHE_EXPIRE_AFTER_WRITE_MS = 300_000L;
   }
 
   public static class Server {
@@ -1094,6 +1149,32 @@ public class CommonConstants {
         QUERY_EXECUTOR_CONFIG_PREFIX + "." + MAX_EXECUTION_THREADS;
     public static final int DEFAULT_QUERY_EXECUTOR_MAX_EXECUTION_THREADS = -1;  // Use number of CPU cores
 
+    // Segment level results cache for aggregation and group-by queries on immutable segments
+    public static final String SEGMENT_RESULTS_CACHE_ENABLED = "segment.results.cache.enabled";
+    public static final String CONFIG_OF_QUERY_EXECUTOR_SEGMENT_RESULTS_CACHE_ENABLED =
+        QUERY_EXECUTOR_CONFIG_PREFIX + "." + SEGMENT_RESULTS_CACHE_ENABLED;
+    public static final boolean DEFAULT_SEGMENT_RESULTS_CACHE_ENABLED = false;
+    public static final String SEGMENT_RESULTS_CACHE_MAX_SIZE_BYTES = "segment.results.cache.max.size.bytes";
+    public static final String CONFIG_OF_QUERY_EXECUTOR_SEGMENT_RESULTS_CACHE_MAX_SIZE_BYTES =
+        QUERY_EXECUTOR_CONFIG_PREFIX + "." + SEGMENT_RESULTS_CACHE_MAX_SIZE_BYTES;
+    public static final long DEFAULT_SEGMENT_RESULTS_CACHE_MAX_SIZE_BYTES = 128 * 1024 * 1024L;
+
+    // Adaptive ordering of the AND filter children based on the observed selectivity of the predicates
+    public static final String ADAPTIVE_FILTER_ENABLED = "adaptive.filter.enabled";
+    public static final String CONFIG_OF_QUERY_EXECUTOR_ADAPTIVE_FILTER_ENABLED =
+        QUERY_EXECUTOR_CONFIG_PREFIX + "." + ADAPTIVE_FILTER_ENABLED;
+    public static final boolean DEFAULT_ADAPTIVE_FILTER_ENABLED = false;
+    // Max number of (table, column, predicate type) entries to keep the selectivity stats for
+    public static final String ADAPTIVE_FILTER_MAX_ENTRIES = "adaptive.filter.max.entries";
+    public static final String CONFIG_OF_QUERY_EXECUTOR_ADAPTIVE_FILTER_MAX_ENTRIES =
+        QUERY_EXECUTOR_CONFIG_PREFIX + "." + ADAPTIVE_FILTER_MAX_ENTRIES;
+    public static final int DEFAULT_ADAPTIVE_FILTER_MAX_ENTRIES = 10_000;
+    // Min number of observations before the stats of a predicate are used
+    public static final String ADAPTIVE_FILTER_MIN_SAMPLES = "adaptive.filter.min.samples";
+    public static final String CONFIG_OF_QUERY_EXECUTOR_ADAPTIVE_FILTER_MIN_SAMPLES =
+        QUERY_EXECUTOR_CONFIG_PREFIX + "." + ADAPTIVE_FILTER_MIN_SAMPLES;
+    public static final int DEFAULT_ADAPTIVE_FILTER_MIN_SAMPLES = 5;
+
     // Group-by query related configs
     public static final String NUM_GROUPS_LIMIT = "num.groups.limit";
     public static final String CONFIG_OF_QUERY_EXECUTOR_NUM_GROUPS_LIMIT =
@@ -1282,6 +1363,11 @@ public class CommonConstants {
     public static final double DEFAULT_SERVER_CONSUMPTION_RATE_LIMIT = 0.0;
 
     public static final String CONFIG_OF_MMAP_DEFAULT_ADVICE = "pinot.server.mmap.advice.default";
+    // Configs for the thread pool warming up the mmap buffers prefetched for queries
+    public static final String CONFIG_OF_MMAP_PREFETCH_NUM_THREADS = "pinot.server.mmap.prefetch.numThreads";
+    public static final int DEFAULT_MMAP_PREFETCH_NUM_THREADS = 4;
+    public static final String CONFIG_OF_MMAP_PREFETCH_MAX_PENDING_TASKS = "pinot.server.mmap.prefetch.maxPendingTasks";
+    public static final int DEFAULT_MMAP_PREFETCH_MAX_PENDING_TASKS = 1000;
     public static final String PREFIX_OF_CONFIG_OF_SEGMENT_FETCHER_FACTORY = "pinot.server.segment.fetcher";
 
     // Configs for server starter startup/shutdown checks
@@ -1926,6 +2012,40 @@ public class CommonConstants {
         "pinot.query.runner.enable.data.block.payload.split";
     public static final boolean DEFAULT_ENABLE_DATA_BLOCK_PAYLOAD_SPLIT = false;
 
+    /**
+     * Max number of bytes a gRPC sending mailbox can have in flight, i.e. sent but not yet added to the receiving
+     * mailbox. The receiver returns the credits of each message once it is added to the receiving mailbox, and the
+     * sender waits for the credits before sending more data, so that a slow receiver does not make the sender buffer
+     * unboundedly in gRPC. Non-positive value disables the flow control.
+     */
+    public static final String KEY_OF_MAILBOX_SEND_CREDIT_BYTES = "pinot.query.runner.mailbox.send.credit.bytes";
+    public static final long DEFAULT_MAILBOX_SEND_CREDIT_BYTES = -1;
+
+    /**
+     * Target number of rows of the blocks sent through the gRPC mailboxes. Consecutive smaller row blocks with the same
+     * schema are coalesced until reaching the target before being serialized, which reduces the number of messages
+     * sent by selective operators. Non-positive value disables the batching.
+     */
+    public static final String KEY_OF_MAILBOX_SEND_BATCH_ROWS = "pinot.query.runner.mailbox.send.batch.rows";
+    public static final int DEFAULT_MAILBOX_SEND_BATCH_ROWS = -1;
+
+    /**
+     * Compression type (e.g. PASS_THROUGH, LZ4, ZSTANDARD) of the blocks sent through the gRPC mailboxes. The receiver
+     * decompresses the blocks based on the compression type sent along with each message. Can be overridden per query
+     * with the {@link Broker.Request.QueryOptionKey#MAILBOX_COMPRESSION} query option.
+     */
+    public static final String KEY_OF_MAILBOX_COMPRESSION = "pinot.query.runner.mailbox.compression";
+    public static final String DEFAULT_MAILBOX_COMPRESSION = "PASS_THROUGH";
+
+    /**
+     * Whether to serialize the row blocks sent through the gRPC mailboxes as columnar data blocks instead of row data
+     * blocks. The receiving operators that read whole columns (e.g. aggregations) can then read the values as primitive
+     * arrays. Can be overridden per query with the {@link Broker.Request.QueryOptionKey#USE_COLUMNAR_DATA_BLOCK} query
+     * option.
+     */
+    public static final String KEY_OF_COLUMNAR_DATA_BLOCK = "pinot.query.runner.columnar.data.block";
+    public static final boolean DEFAULT_COLUMNAR_DATA_BLOCK = false;
+
     /**
      * Configuration for server port, port that opens and accepts
      * {@link org.apache.pinot.query.runtime.plan.DistributedStagePlan} and start executing query stages.
@@ -1947,6 +2067,20 @@ public class CommonConstants {
     public static final String KEY_OF_MAX_ROWS_IN_JOIN = "pinot.query.join.max.rows";
     public static final String KEY_OF_JOIN_OVERFLOW_MODE = "pinot.query.join.overflow.mode";
 
+    /**
+     * Whether the hash join workers of the same server share the hash table built from a broadcast right input: one
+     * worker builds the hash table, and the other workers probe it once built instead of building identical copies.
+     * Can be overridden per query with the {@link Broker.Request.QueryOptionKey#SHARED_JOIN_BUILD} query option.
+     */
+    public static final String KEY_OF_SHARED_JOIN_BUILD = "pinot.query.join.shared.build";
+    public static final boolean DEFAULT_SHARED_JOIN_BUILD = false;
+
+    /**
+     * Directory where the multi-stage operators spill rows to disk (e.g. hash join with SPILL overflow mode). Uses the
+     * java temp directory when not configured.
+     */
+    public static final String KEY_OF_SPILL_DIR = "pinot.query.runner.spill.dir";
+
     /// Specifies the send stats mode used in MSE.
     ///
     /// Valid values are (in lower or upper case):
@@ -1973,7 +2107,7 @@ public class CommonConstants {
     public static final String KEY_OF_LOG_STATS = "logStats";
 
     public enum JoinOverFlowMode {
-      THROW, BREAK
+      THROW, BREAK, SPILL
     }
 
     /**
@@ -1986,6 +2120,26 @@ public class CommonConstants {
       THROW, BREAK
     }
 
+    /**
+     * Configuration for the external merge sort used by the sort and window operators. Once the rows buffered in memory
+     * exceed either threshold, the rows are sorted and spilled to disk as sorted runs, which are merged when emitting
+     * the results. Non-positive bytes threshold disables the bytes based spilling.
+     */
+    public static final String KEY_OF_SORT_SPILL_THRESHOLD_ROWS = "pinot.query.sort.spill.threshold.rows";
+    public static final int DEFAULT_SORT_SPILL_THRESHOLD_ROWS = 1024 * 1024;
+    public static final String KEY_OF_SORT_SPILL_THRESHOLD_BYTES = "pinot.query.sort.spill.threshold.bytes";
+    public static final long DEFAULT_SORT_SPILL_THRESHOLD_BYTES = -1;
+
+    /**
+     * Whether the leaf stage streams the group-by results to the upper stage in chunks of groups as soon as they are
+     * ready, instead of merging the groups of all the segments before sending them. This reduces the time to the first
+     * block and the memory of the leaf stage, at the cost of sending the groups shared by multiple chunks more than
+     * once.
+     * Can be overridden per query with the {@link Broker.Request.QueryOptionKey#STREAMING_GROUP_BY} query option.
+     */
+    public static final String KEY_OF_LEAF_STREAMING_GROUP_BY = "pinot.query.leaf.streaming.group.by";
+    public static final boolean DEFAULT_LEAF_STREAMING_GROUP_BY = false;
+
     /**
      * Constants related to plan versions.
      */
@@ -2014,6 +2168,14 @@ public class CommonConstants {
     public static final String KEY_OF_CANCELLED_QUERY_CACHE_EXPIRE_MS = "pinot.server.query.cancelled.cache.ms";
     public static final int DEFAULT_OF_CANCELLED_QUERY_CACHE_EXPIRE_MS = 60 * 1000;
 
+    /// Whether to schedule the op chains cooperatively.
+    /// When enabled, an op chain whose mailboxes have no data to read releases its thread instead of blocking it, and
+    /// it is resubmitted to the executor once new data arrives, so that the number of threads does not need to grow
+    /// with the number of waiting op chains.
+    public static final String KEY_OF_OP_CHAIN_COOPERATIVE_SCHEDULING =
+        "pinot.server.query.opchain.cooperative.scheduling";
+    public static final boolean DEFAULT_OF_OP_CHAIN_COOPERATIVE_SCHEDULING = false;
+
     /// Timeout of the cancel request, in milliseconds.
     /// TODO: This is used by the broker. Consider renaming it.
     public static final String KEY_OF_CANCEL_TIMEOUT_MS = "pinot.server.query.cancel.timeout.ms";
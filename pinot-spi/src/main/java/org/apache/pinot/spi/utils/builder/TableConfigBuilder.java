@@ -116,6 +116,7 @@ public class TableConfigBuilder {
   // This threshold determines if dictionary should be enabled or not for a metric column and is relevant
   // only when _optimizeDictionaryForMetrics is set to true.
   private boolean _optimizeDictionaryType;
+  private boolean _autoEncoding;
   private double _noDictionarySizeRatioThreshold;
   private double _noDictionaryCardinalityRatioThreshold;
 
@@ -293,6 +294,11 @@ public class TableConfigBuilder {
     return this;
   }
 
+  public TableConfigBuilder setAutoEncoding(boolean autoEncoding) {
+    _autoEncoding = autoEncoding;
+    return this;
+  }
+
   public TableConfigBuilder setNoDictionarySizeRatioThreshold(double noDictionarySizeRatioThreshold) {
     _noDictionarySizeRatioThreshold = noDictionarySizeRatioThreshold;
     return this;
@@ -519,6 +525,7 @@ public class TableConfigBuilder {
     indexingConfig.setOptimizeDictionary(_optimizeDictionary);
     indexingConfig.setOptimizeDictionaryForMetrics(_optimizeDictionaryForMetrics);
     indexingConfig.setOptimizeDictionaryType(_optimizeDictionaryType);
+    indexingConfig.setAutoEncoding(_autoEncoding);
     indexingConfig.setNoDictionarySizeRatioThreshold(_noDictionarySizeRatioThreshold);
     indexingConfig.setNoDictionaryCardinalityRatioThreshold(_noDictionaryCardinalityRatioThreshold);
     indexingConfig.setTierOverwrites(_tierOverwrites);